@@ -1,4 +1,4 @@
-# Copyright (c) 2020, 2022, Oracle and/or its affiliates. All rights reserved.
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
 # DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
 #
 # The Universal Permissive License (UPL), Version 1.0
@@ -36,35 +36,25 @@
 # LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
 # OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
 # SOFTWARE.
+# subscripts a dict with str keys
 
-def __initialize__(owner_globals):
-    delegate_attrs = ['Struct', 'StructError', '_clearcache', 'calcsize', 'error', 'iter_unpack', 'pack',
-                          'pack_into', 'unpack', 'unpack_from']
-    res = True
-    for x in delegate_attrs:
-        if x not in owner_globals:
-            res = False
-            break
+KEYS = ["key%d" % i for i in range(100)]
 
-    if not res:
-        __graalpython__.import_current_as_named_module_with_delegate(
-            module_name="_struct",
-            delegate_name="_cpython_struct",
-            delegate_attributes=delegate_attrs,
-            on_import_error={
-                # Just enough to make zipfile and six import successfully, but raise the
-                # original import error when someone tries to use the Struct object
-                "__all__": ["calcsize", "Struct"],
-                "_clearcache": lambda: None,
-                "__doc__": "Fake _struct",
-                "calcsize": lambda _: 8,
-                "Struct": type("Struct", (), {
-                    "__init__": lambda self, _: None,
-                    "__getattr__": lambda self, attr: (lambda *args: __import__("_cpython_struct"))
-                })
-            },
-            owner_globals=owner_globals)
 
-__initialize__(globals())
+def getitem(d, keys, num):
+    total = 0
+    for t in range(num):
+        for k in keys:
+            total += d[k]
 
-del __initialize__
+    return total
+
+
+def measure(num):
+    d = {k: i for i, k in enumerate(KEYS)}
+    result = getitem(d, KEYS, num)  # 1000000
+    print("Result ", result)
+
+
+def __benchmark__(num=1000000):
+    measure(num)
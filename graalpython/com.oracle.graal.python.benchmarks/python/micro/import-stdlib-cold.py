@@ -0,0 +1,97 @@
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+
+import os
+import sys
+import tempfile
+
+MODULES = [
+    "argparse",
+    "difflib",
+    "email.message",
+    "fractions",
+    "http.client",
+    "json",
+    "pprint",
+    "textwrap",
+    "xml.dom.minidom",
+]
+
+PREFIXES = []
+
+ORIGINAL_PYCACHE_PREFIX = sys.pycache_prefix
+ORIGINAL_DONT_WRITE_BYTECODE = sys.dont_write_bytecode
+
+
+def purge(baseline):
+    for name in list(sys.modules):
+        if name not in baseline:
+            del sys.modules[name]
+
+
+def import_all(prefix):
+    # every iteration gets an empty cache directory, so each module is
+    # compiled from source and nothing is written back
+    sys.pycache_prefix = prefix
+    sys.dont_write_bytecode = True
+    baseline = set(sys.modules)
+    try:
+        for name in MODULES:
+            __import__(name)
+    finally:
+        purge(baseline)
+
+
+def measure(num):
+    for i in range(num):
+        prefix = tempfile.mkdtemp(prefix="graalpy-import-cold-")
+        PREFIXES.append(prefix)
+        import_all(prefix)
+
+
+def __teardown__():
+    for prefix in PREFIXES:
+        os.rmdir(prefix)
+    PREFIXES.clear()
+    sys.pycache_prefix = ORIGINAL_PYCACHE_PREFIX
+    sys.dont_write_bytecode = ORIGINAL_DONT_WRITE_BYTECODE
+
+
+def __benchmark__(num=5):
+    measure(num)
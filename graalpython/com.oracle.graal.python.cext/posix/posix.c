@@ -75,6 +75,9 @@
 #include <sys/mman.h>
 #include <unistd.h>
 #include <pwd.h>
+#ifdef __gnu_linux__
+#include <sys/epoll.h>
+#endif
 
 
 int64_t call_getpid() {
@@ -205,6 +208,56 @@ int32_t call_select(int32_t nfds, int32_t* readfds, int32_t readfdsLen,
     return (int32_t) result;
 }
 
+int32_t call_epoll_create() {
+#ifdef __gnu_linux__
+    return epoll_create1(EPOLL_CLOEXEC);
+#else
+    errno = ENOSYS;
+    return -1;
+#endif
+}
+
+int32_t call_epoll_ctl(int32_t epfd, int32_t op, int32_t fd, int32_t events) {
+#ifdef __gnu_linux__
+    struct epoll_event ev;
+    ev.events = (uint32_t) events;
+    ev.data.fd = fd;
+    return epoll_ctl(epfd, op, fd, &ev);
+#else
+    errno = ENOSYS;
+    return -1;
+#endif
+}
+
+// fds and events are output parameters of length maxevents, the first
+// n entries (n being the return value) describe the ready file descriptors
+int32_t call_epoll_wait(int32_t epfd, int32_t *fds, int32_t *events, int32_t maxevents, int64_t timeoutMs) {
+#ifdef __gnu_linux__
+    if (maxevents <= 0) {
+        errno = EINVAL;
+        return -1;
+    }
+    struct epoll_event *evs = malloc(sizeof(struct epoll_event) * maxevents);
+    if (evs == NULL) {
+        errno = ENOMEM;
+        return -1;
+    }
+    int timeout = timeoutMs < 0 ? -1 : (timeoutMs > INT32_MAX ? INT32_MAX : (int) timeoutMs);
+    int result = epoll_wait(epfd, evs, maxevents, timeout);
+    for (int i = 0; i < result; ++i) {
+        fds[i] = evs[i].data.fd;
+        events[i] = (int32_t) evs[i].events;
+    }
+    int saved_errno = errno;
+    free(evs);
+    errno = saved_errno;
+    return result;
+#else
+    errno = ENOSYS;
+    return -1;
+#endif
+}
+
 int64_t call_lseek(int32_t fd, int64_t offset, int32_t whence) {
     return lseek(fd, offset, whence);
 }
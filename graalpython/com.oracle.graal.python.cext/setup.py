@@ -450,7 +450,6 @@ builtin_exts = (
     NativeBuiltinModule("_cpython_sre"),
     NativeBuiltinModule("_cpython_unicodedata"),
     NativeBuiltinModule("_mmap"),
-    NativeBuiltinModule("_cpython_struct"),
 ) + (() if WIN32 else (
     NativeBuiltinModule("_testcapi", core=False),
     NativeBuiltinModule("_testmultiphase"),
@@ -109,7 +109,6 @@ def add_graalpython_core():
     for name in [
         "__graalpython__",
         "_sre",
-        "_struct",
         "_sysconfig",
         "_weakref",
         "builtins",
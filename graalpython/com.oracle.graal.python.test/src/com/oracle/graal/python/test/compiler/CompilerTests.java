@@ -1073,6 +1073,52 @@ public class CompilerTests extends PythonTests {
 
     }
 
+    @Test
+    public void testNodeIndices() {
+        CodeUnit co = assemble("x = 1\ny = x + 2\nprint(f'{y}')\n", InputType.FILE);
+        Assert.assertTrue(co.nodeCount > 0);
+        Assert.assertTrue(co.nodeCount < co.code.length);
+        checkNodeIndices(co);
+    }
+
+    @Test
+    public void testNodeIndicesLarge() {
+        // the rank bitmap spans many 64-bit words, with one-slot binary operations mixed with
+        // two-slot FORMAT_VALUE instructions
+        StringBuilder src = new StringBuilder("def f(a, b):\n    r = 0\n");
+        for (int i = 0; i < 40000; i++) {
+            src.append("    r = r ").append(i % 2 == 0 ? '+' : '-').append(" a\n");
+            if (i % 10 == 0) {
+                src.append("    b = f'{r!r:>4}'\n");
+            }
+        }
+        src.append("    return r\n");
+        CodeUnit module = assemble(src.toString(), InputType.FILE);
+        CodeUnit co = null;
+        for (Object c : module.constants) {
+            if (c instanceof CodeUnit) {
+                co = (CodeUnit) c;
+            }
+        }
+        Assert.assertNotNull(co);
+        checkNodeIndices(co);
+    }
+
+    private static void checkNodeIndices(CodeUnit co) {
+        boolean[] used = new boolean[co.nodeCount];
+        co.iterateBytecode((bci, op, oparg, followingArgs) -> {
+            for (int i = 0; i < op.helperNodeSlots(); i++) {
+                int index = co.getNodeIndex(bci + i);
+                Assert.assertEquals(co.getNodeIndex(bci) + i, index);
+                Assert.assertFalse(used[index]);
+                used[index] = true;
+            }
+        });
+        for (boolean b : used) {
+            Assert.assertTrue(b);
+        }
+    }
+
     private void doTest(String src) {
         doTest(src, InputType.FILE);
     }
@@ -26,16 +26,27 @@
 package com.oracle.graal.python.test.datatype;
 
 import static com.oracle.graal.python.test.PythonTests.assertPrints;
+import static com.oracle.graal.python.test.PythonTests.ts;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.polyglot.Context;
 import org.junit.Test;
 
 import com.oracle.graal.python.PythonLanguage;
+import com.oracle.graal.python.builtins.objects.code.CodeNodes.GetCodeRootNode;
+import com.oracle.graal.python.builtins.objects.function.PFunction;
 import com.oracle.graal.python.builtins.objects.range.PIntRange;
 import com.oracle.graal.python.builtins.objects.range.PRange;
+import com.oracle.graal.python.compiler.OpCodes;
 import com.oracle.graal.python.lib.GetNextNode;
 import com.oracle.graal.python.lib.PyObjectGetIter;
+import com.oracle.graal.python.nodes.bytecode.PBytecodeRootNode;
 import com.oracle.graal.python.nodes.object.BuiltinClassProfiles.IsBuiltinObjectProfile;
+import com.oracle.graal.python.runtime.PythonContext;
 import com.oracle.graal.python.runtime.exception.PException;
 import com.oracle.graal.python.runtime.object.PythonObjectFactory;
 import com.oracle.graal.python.test.PythonTests;
@@ -151,4 +162,30 @@ public class PRangeTests {
                         "print(r3[1:])\n";
         assertPrints("range(0, 1)\nrange(1, 3)\nrange(2, 3)\n", source);
     }
+
+    @Test
+    public void forLongRangeLoopIsQuickened() {
+        Context context = PythonTests.enterContext();
+        try {
+            String source = "def f():\n" + //
+                            "  s = 0\n" + //
+                            "  for i in range(2**40, 2**40 + 10):\n" + //
+                            "    s += i\n" + //
+                            "  return s\n" + //
+                            "result = f()\n";
+            context.eval("python", source);
+            assertEquals(10 * (1L << 40) + 45, context.getBindings("python").getMember("result").asLong());
+            PFunction f = (PFunction) PythonContext.get(null).getMainModule().getAttribute(ts("f"));
+            byte[] bytecode = ((PBytecodeRootNode) GetCodeRootNode.executeUncached(f.getCode())).getBytecode();
+            List<OpCodes> opcodes = new ArrayList<>();
+            for (int bci = 0; bci < bytecode.length;) {
+                OpCodes op = OpCodes.fromOpCode(bytecode[bci]);
+                opcodes.add(op);
+                bci += op.length();
+            }
+            assertTrue(opcodes.toString(), opcodes.contains(OpCodes.FOR_ITER_L));
+        } finally {
+            PythonTests.closeContext();
+        }
+    }
 }
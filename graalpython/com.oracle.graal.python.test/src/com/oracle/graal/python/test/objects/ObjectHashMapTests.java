@@ -72,6 +72,7 @@ import com.oracle.truffle.api.frame.Frame;
 import com.oracle.truffle.api.interop.TruffleObject;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.profiles.InlinedBranchProfile;
+import com.oracle.truffle.api.profiles.InlinedConditionProfile;
 import com.oracle.truffle.api.profiles.InlinedCountingConditionProfile;
 
 public class ObjectHashMapTests {
@@ -184,6 +185,32 @@ public class ObjectHashMapTests {
         }
     }
 
+    @Test
+    public void testManyMoves() {
+        ObjectHashMap map = new ObjectHashMap();
+        List<Long> expected = new ArrayList<>();
+        for (long i = 0; i < 1000; i++) {
+            put(map, i, getKeyHash(i), newValue());
+            expected.add(i);
+        }
+        Random rand = new Random(42);
+        for (int i = 0; i < 50000; i++) {
+            Long key = (long) rand.nextInt(1000);
+            boolean last = rand.nextInt(4) != 0;
+            assertTrue(move(map, key, getKeyHash(key), last));
+            expected.remove(key);
+            expected.add(last ? expected.size() : 0, key);
+            if (i % 5000 == 0) {
+                assertArrayEquals(expected.toArray(), keysToArray(map));
+            }
+        }
+        assertArrayEquals(expected.toArray(), keysToArray(map));
+        for (Long key : expected) {
+            assertTrue(key.toString(), get(map, key, getKeyHash(key)) != null);
+        }
+        assertEquals(expected.size(), map.size());
+    }
+
     private static void testBasics(ObjectHashMap map) {
         LinkedHashMap<Long, Object> expected = new LinkedHashMap<>();
         Random rand = new Random(42);
@@ -350,6 +377,11 @@ public class ObjectHashMapTests {
                         uncachedCounting, InlinedBranchProfile.getUncached(), new EqNodeStub());
     }
 
+    private static boolean move(ObjectHashMap map, Object key, long hash, boolean last) {
+        return ObjectHashMap.MoveToEndNode.doMoveWithRestart(null, map, key, hash, last,
+                        null, InlinedBranchProfile.getUncached(), InlinedConditionProfile.getUncached(), new EqNodeStub());
+    }
+
     private static void put(ObjectHashMap map, Object key, long hash, Object value) {
         InlinedCountingConditionProfile uncachedCounting = InlinedCountingConditionProfile.getUncached();
         ObjectHashMap.PutNode.doPutWithRestart(null, map, key, hash, value,
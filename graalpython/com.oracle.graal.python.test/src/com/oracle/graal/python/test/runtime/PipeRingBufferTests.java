@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.test.runtime;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.oracle.graal.python.runtime.PipeRingBuffer;
+
+public class PipeRingBufferTests {
+
+    private static byte[] message(int length, int seed) {
+        byte[] result = new byte[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = (byte) (i * 31 + seed);
+        }
+        return result;
+    }
+
+    private static byte[] read(PipeRingBuffer ring) throws InterruptedException {
+        int length = ring.awaitMessage();
+        if (length < 0) {
+            return null;
+        }
+        byte[] result = ring.readMessage();
+        assertEquals(length, result.length);
+        return result;
+    }
+
+    @Test
+    public void testCapacity() {
+        assertEquals(PipeRingBuffer.DEFAULT_CAPACITY, new PipeRingBuffer(PipeRingBuffer.DEFAULT_CAPACITY).getCapacity());
+        assertEquals(1 << 17, new PipeRingBuffer(100000).getCapacity());
+        assertEquals(16, new PipeRingBuffer(0).getCapacity());
+    }
+
+    @Test
+    public void testWrapAround() throws InterruptedException {
+        PipeRingBuffer ring = new PipeRingBuffer(64);
+        for (int i = 0; i < 100; i++) {
+            byte[] data = message(i % 50, i);
+            assertTrue(ring.writeMessage(data, 0, data.length));
+            byte[] dst = new byte[data.length + 3];
+            assertEquals(data.length, ring.awaitMessage());
+            ring.readMessage(dst, 3);
+            assertArrayEquals(data, Arrays.copyOfRange(dst, 3, dst.length));
+        }
+    }
+
+    @Test
+    public void testLargerThanCapacity() throws Exception {
+        PipeRingBuffer ring = new PipeRingBuffer(64);
+        byte[][] messages = new byte[20][];
+        for (int i = 0; i < messages.length; i++) {
+            // mix of messages that fit into the ring and messages that do not
+            messages[i] = message(i % 3 == 0 ? 1000 + i : i * 3, i);
+        }
+        Thread writer = new Thread(() -> {
+            try {
+                for (byte[] m : messages) {
+                    assertTrue(ring.writeMessage(m, 0, m.length));
+                }
+                ring.closeWriter();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        writer.start();
+        for (byte[] m : messages) {
+            assertArrayEquals(m, read(ring));
+        }
+        assertEquals(null, read(ring));
+        writer.join();
+    }
+
+    @Test
+    public void testInterruptedWaitKeepsStream() throws Exception {
+        PipeRingBuffer ring = new PipeRingBuffer(64);
+        byte[] first = message(40, 1);
+        assertTrue(ring.writeMessage(first, 0, first.length));
+        // the second message does not fit until the first one is read
+        Thread.currentThread().interrupt();
+        try {
+            ring.writeMessage(first, 0, first.length);
+            fail("expected InterruptedException");
+        } catch (InterruptedException e) {
+            // expected, nothing was written
+        }
+        byte[] second = message(30, 2);
+        Thread writer = new Thread(() -> {
+            try {
+                assertTrue(ring.writeMessage(second, 0, second.length));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        writer.start();
+        assertArrayEquals(first, read(ring));
+        writer.join();
+        assertArrayEquals(second, read(ring));
+        Thread.currentThread().interrupt();
+        try {
+            ring.awaitMessage();
+            fail("expected InterruptedException");
+        } catch (InterruptedException e) {
+            // expected, nothing was consumed
+        }
+        assertTrue(ring.writeMessage(second, 0, second.length));
+        assertArrayEquals(second, read(ring));
+    }
+
+    @Test
+    public void testClosedReader() throws InterruptedException {
+        PipeRingBuffer ring = new PipeRingBuffer(64);
+        ring.closeReader();
+        byte[] data = message(10, 0);
+        assertFalse(ring.writeMessage(data, 0, data.length));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.test.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.oracle.graal.python.util.LongObjectHashMap;
+
+public class LongObjectHashMapTest {
+    @Test
+    public void testBasics() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        assertNull(map.put(8, "a"));
+        assertNull(map.put(16, "b"));
+        assertEquals("a", map.put(8, "c"));
+        assertEquals(2, map.size());
+        assertEquals("c", map.get(8));
+        assertEquals("b", map.remove(16));
+        assertNull(map.remove(16));
+        assertNull(map.get(16));
+        assertNull(map.get(0));
+        assertNull(map.remove(0));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testAgainstHashMap() {
+        Random random = new Random(42);
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        HashMap<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            // aligned pointer-like keys
+            long key = (random.nextInt(4096) + 1) * 16L;
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+                    break;
+                case 1:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                default:
+                    assertEquals(expected.get(key), map.get(key));
+                    break;
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        assertTrue(map.getMaxProbeLength() >= 1);
+        assertTrue(map.getAverageProbeLength() <= map.getMaxProbeLength());
+    }
+}
@@ -0,0 +1,203 @@
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+
+import asyncio
+import unittest
+
+
+class FutureTaskTests(unittest.TestCase):
+
+    def setUp(self):
+        self.loop = asyncio.new_event_loop()
+
+    def tearDown(self):
+        self.loop.close()
+
+    def test_future_result(self):
+        fut = asyncio.Future(loop=self.loop)
+        self.assertFalse(fut.done())
+        self.assertRaises(asyncio.InvalidStateError, fut.result)
+        fut.set_result(42)
+        self.assertTrue(fut.done())
+        self.assertEqual(42, fut.result())
+        self.assertIsNone(fut.exception())
+        self.assertRaises(asyncio.InvalidStateError, fut.set_result, 1)
+
+    def test_future_exception(self):
+        fut = asyncio.Future(loop=self.loop)
+        fut.set_exception(ValueError("boom"))
+        self.assertIsInstance(fut.exception(), ValueError)
+        self.assertRaises(ValueError, fut.result)
+        fut = asyncio.Future(loop=self.loop)
+        self.assertRaises(TypeError, fut.set_exception, StopIteration)
+
+    def test_future_cancel(self):
+        fut = asyncio.Future(loop=self.loop)
+        self.assertTrue(fut.cancel("msg"))
+        self.assertTrue(fut.cancelled())
+        self.assertFalse(fut.cancel())
+        with self.assertRaises(asyncio.CancelledError) as cm:
+            fut.result()
+        self.assertEqual(("msg",), cm.exception.args)
+
+    def test_future_callbacks(self):
+        fut = asyncio.Future(loop=self.loop)
+        seen = []
+        for i in range(5):
+            fut.add_done_callback(lambda f, i=i: seen.append((i, f.result())))
+        cb = lambda f: seen.append("removed")
+        fut.add_done_callback(cb)
+        self.assertEqual(1, fut.remove_done_callback(cb))
+        fut.set_result("x")
+        self.loop.run_until_complete(asyncio.sleep(0))
+        self.assertEqual([(i, "x") for i in range(5)], seen)
+
+    def test_future_await(self):
+        async def waiter(fut):
+            return await fut
+
+        fut = asyncio.Future(loop=self.loop)
+        self.loop.call_soon(fut.set_result, 7)
+        self.assertEqual(7, self.loop.run_until_complete(waiter(fut)))
+
+    def test_future_iter_misuse(self):
+        fut = asyncio.Future(loop=self.loop)
+        it = fut.__await__()
+        self.assertIs(fut, next(it))
+        self.assertRaises(RuntimeError, next, it)
+
+    def test_task_chain(self):
+        async def leaf(n):
+            await asyncio.sleep(0)
+            return n * 2
+
+        async def main():
+            tasks = [asyncio.ensure_future(leaf(i)) for i in range(10)]
+            self.assertIs(asyncio.current_task(), main_task)
+            return sum([await t for t in tasks])
+
+        main_task = self.loop.create_task(main())
+        self.assertIsInstance(main_task, asyncio.Task)
+        self.assertEqual(90, self.loop.run_until_complete(main_task))
+        self.assertEqual(90, main_task.result())
+
+    def test_task_cancel(self):
+        started = []
+
+        async def forever():
+            started.append(True)
+            await asyncio.sleep(3600)
+
+        async def main():
+            task = asyncio.ensure_future(forever())
+            await asyncio.sleep(0)
+            task.cancel("stop")
+            try:
+                await task
+            except asyncio.CancelledError:
+                return task.cancelled()
+            return False
+
+        self.assertTrue(self.loop.run_until_complete(main()))
+        self.assertEqual([True], started)
+
+    def test_task_exception(self):
+        async def failing():
+            raise KeyError("k")
+
+        task = self.loop.create_task(failing())
+        self.assertRaises(KeyError, self.loop.run_until_complete, task)
+        self.assertIsInstance(task.exception(), KeyError)
+
+    def test_task_name(self):
+        async def noop():
+            pass
+
+        task = self.loop.create_task(noop(), name="worker")
+        self.assertEqual("worker", task.get_name())
+        task.set_name(12)
+        self.assertEqual("12", task.get_name())
+        self.loop.run_until_complete(task)
+        self.assertRaises(RuntimeError, task.set_result, 1)
+
+    def collect_reports(self, create):
+        import gc
+        reports = []
+        self.loop.set_exception_handler(lambda loop, context: reports.append(context))
+        create()
+        # collection and finalization are not deterministic, try hard but do not fail if nothing
+        # was reported
+        for i in range(50):
+            if reports:
+                break
+            gc.collect()
+        return reports
+
+    def test_future_exception_never_retrieved(self):
+        def create():
+            fut = self.loop.create_future()
+            fut.set_exception(ValueError("lost"))
+
+        reports = self.collect_reports(create)
+        if reports:
+            self.assertEqual(1, len(reports))
+            self.assertEqual("Future exception was never retrieved", reports[0]["message"])
+            self.assertIsInstance(reports[0]["exception"], ValueError)
+
+        def create_retrieved():
+            fut = self.loop.create_future()
+            fut.set_exception(ValueError("seen"))
+            fut.exception()
+
+        self.assertEqual([], self.collect_reports(create_retrieved))
+
+    def test_task_destroyed_pending(self):
+        def create():
+            async def waiting(fut):
+                await fut
+
+            self.loop.create_task(waiting(self.loop.create_future()))
+            self.loop.run_until_complete(asyncio.sleep(0))
+
+        reports = self.collect_reports(create)
+        if reports:
+            self.assertEqual("Task was destroyed but it is pending!", reports[0]["message"])
+
+    def test_task_requires_coroutine(self):
+        self.assertRaises(TypeError, asyncio.Task, 42, loop=self.loop)
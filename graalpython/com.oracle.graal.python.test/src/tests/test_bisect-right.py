@@ -46,3 +46,13 @@ def test_bisect():
     assert bisect_right(ll, 3) == 3
     assert bisect_right(ll, 3) == 3
     assert bisect_right(ll, 3) == 3
+
+def test_bisect_list_subclass():
+    import bisect
+    class NegatedList(list):
+        def __getitem__(self, i):
+            return -list.__getitem__(self, i)
+    for ll in [NegatedList([5, 4, 3, 2, 1]), NegatedList([5.0, 4.0, 3.0, 2.0, 1.0])]:
+        # the search goes through __getitem__, which makes the list ascending
+        assert bisect.bisect_left(ll, -3) == 2
+        assert bisect.bisect_right(ll, -3) == 3
@@ -57,3 +57,160 @@ def test_import():
     except ImportError:
         imported = False
     assert imported
+
+
+def test_ordered_dict_move_to_end():
+    from collections import OrderedDict
+    od = OrderedDict.fromkeys('abcde')
+    od.move_to_end('b')
+    assert list(od) == ['a', 'c', 'd', 'e', 'b']
+    od.move_to_end('e', last=False)
+    assert list(od) == ['e', 'a', 'c', 'd', 'b']
+    od.move_to_end('b', last=False)
+    od.move_to_end('a', last=False)
+    assert list(od) == ['a', 'b', 'e', 'c', 'd']
+    assert list(reversed(od)) == ['d', 'c', 'e', 'b', 'a']
+    assert_raises(KeyError, od.move_to_end, 'x')
+    for i in range(1000):
+        od.move_to_end('abcde'[i % 5], last=bool(i % 3))
+    assert len(od) == 5 and sorted(od) == list('abcde')
+
+
+def test_ordered_dict_popitem():
+    from collections import OrderedDict
+    od = OrderedDict((i, str(i)) for i in range(100))
+    assert od.popitem() == (99, '99')
+    assert od.popitem(last=False) == (0, '0')
+    assert od.popitem(False) == (1, '1')
+    od[1] = 'x'
+    assert list(od)[-1] == 1
+    for i in range(2, 99):
+        assert od.popitem(last=False) == (i, str(i))
+    assert od.popitem() == (1, 'x')
+    assert_raises(KeyError, od.popitem)
+    assert_raises(KeyError, od.popitem, last=False)
+
+
+def test_ordered_dict_lru():
+    from collections import OrderedDict
+    cache = OrderedDict()
+    for i in range(2000):
+        key = i % 37
+        if key in cache:
+            cache.move_to_end(key)
+        cache[key] = i
+        if len(cache) > 16:
+            cache.popitem(last=False)
+    assert len(cache) == 16
+    assert list(cache) == [(1999 - 15 + j) % 37 for j in range(16)]
+
+
+def test_ordered_dict_move_during_iteration():
+    from collections import OrderedDict
+
+    def move_all(od, last):
+        for k in od:
+            od.move_to_end(k, last=last)
+
+    od = OrderedDict.fromkeys('abcde')
+    assert_raises(RuntimeError, move_all, od, True)
+    od = OrderedDict.fromkeys('abcde')
+    assert_raises(RuntimeError, move_all, od, False)
+
+    def move_all_reversed(od):
+        for k in reversed(od):
+            od.move_to_end(k, last=False)
+
+    assert_raises(RuntimeError, move_all_reversed, OrderedDict.fromkeys('abcde'))
+    # moving the item that is already in place does not change the order
+    od = OrderedDict.fromkeys('abcde')
+    for k in od:
+        od.move_to_end('a', last=False)
+    assert list(od) == list('abcde')
+
+
+def test_ordered_dict_subclass_setitem():
+    from collections import OrderedDict
+
+    class LoggingOD(OrderedDict):
+        def __setitem__(self, key, value):
+            self.setitem_keys.append(key)
+            super().__setitem__(key, value)
+
+        def __init__(self, *args, **kwargs):
+            self.setitem_keys = []
+            super().__init__(*args, **kwargs)
+
+    od = LoggingOD([('a', 1), ('b', 2)], c=3)
+    assert od.setitem_keys == ['a', 'b', 'c']
+    assert list(od.items()) == [('a', 1), ('b', 2), ('c', 3)]
+    od.update({'d': 4}, e=5)
+    od.update([('a', 6)])
+    assert od.setitem_keys == ['a', 'b', 'c', 'd', 'e', 'a']
+    assert list(od.items()) == [('a', 6), ('b', 2), ('c', 3), ('d', 4), ('e', 5)]
+    assert_raises(TypeError, OrderedDict, {}, {})
+    assert_raises(TypeError, od.update, {}, {})
+
+def test_ordered_dict_eq_repr_copy():
+    from collections import OrderedDict
+    a = OrderedDict([(1, 'a'), (2, 'b')])
+    b = OrderedDict([(2, 'b'), (1, 'a')])
+    assert a != b
+    assert a == dict(b) and dict(b) == a
+    assert b.copy() == b and list(b.copy()) == [2, 1]
+    assert repr(OrderedDict()) == 'OrderedDict()'
+    assert repr(a) == "OrderedDict([(1, 'a'), (2, 'b')])"
+    a[3] = a
+    assert repr(a) == "OrderedDict([(1, 'a'), (2, 'b'), (3, ...)])"
+
+    class MyOD(OrderedDict):
+        pass
+    c = MyOD(b) | {3: 'c'}
+    assert type(c) is MyOD and list(c) == [2, 1, 3]
+    assert type(b.copy()) is OrderedDict and type(MyOD(b).copy()) is MyOD
+    import pickle
+    assert pickle.loads(pickle.dumps(b)) == b
+
+
+def test_count_elements():
+    from collections import Counter, _count_elements
+    assert Counter([1, 2, 2, 3, 3, 3]) == {1: 1, 2: 2, 3: 3}
+    assert Counter((1, 'a', 1, 'a', 2.0)) == {1: 2, 'a': 2, 2.0: 1}
+    assert Counter('abracadabra') == {'a': 5, 'b': 2, 'r': 2, 'c': 1, 'd': 1}
+    assert list(Counter('zyzx')) == ['z', 'y', 'x']
+    assert Counter(x % 7 for x in range(100)) == {i: len(range(i, 100, 7)) for i in range(7)}
+
+    c = Counter({'a': 2 ** 63 - 1, 'b': 2.5, 'c': 2 ** 31 - 1})
+    c.update('abc')
+    assert c == {'a': 2 ** 63, 'b': 3.5, 'c': 2 ** 31}
+
+    d = {}
+    _count_elements(d, [True, 1, 1.0])
+    assert d == {True: 3}
+
+    class MyList(list):
+        def __iter__(self):
+            return iter([0])
+    assert Counter(MyList([1, 2])) == {0: 1}
+
+    class LoggingCounter(Counter):
+        def __setitem__(self, key, value):
+            self.log.append(key)
+            super().__setitem__(key, value)
+    lc = LoggingCounter()
+    lc.log = []
+    lc.update('aab')
+    assert lc.log == ['a', 'a', 'b'] and lc == {'a': 2, 'b': 1}
+
+    class Mapping:
+        def __init__(self):
+            self.data = {}
+        def get(self, key, default):
+            return self.data.get(key, default)
+        def __setitem__(self, key, value):
+            self.data[key] = value
+    m = Mapping()
+    _count_elements(m, 'hello')
+    assert m.data == {'h': 1, 'e': 1, 'l': 2, 'o': 1}
+    assert_raises(TypeError, _count_elements, {}, 1)
+    assert_raises(TypeError, _count_elements, {}, [[]])
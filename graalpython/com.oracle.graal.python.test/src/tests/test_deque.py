@@ -629,3 +629,29 @@ class TestBasic(unittest.TestCase):
         klass = type(reversed(deque()))
         for s in ('abcd', range(2000)):
             self.assertEqual(list(klass(deque(s))), list(reversed(s)))
+
+    def test_mixed_element_types(self):
+        # starts out with primitive elements and generalizes on the first non-matching one
+        d = deque(range(10))
+        d.append(2 ** 40)
+        d.appendleft(1.5)
+        d.rotate(3)
+        d[5] = 'x'
+        del d[0]
+        ref = [1.5] + list(range(10)) + [2 ** 40]
+        ref = ref[-3:] + ref[:-3]
+        ref[5] = 'x'
+        del ref[0]
+        self.assertEqual(list(d), ref)
+        self.assertEqual(list(reversed(d)), list(reversed(ref)))
+
+    def test_indexing_after_rotate(self):
+        for n in (1, 7, 8, 9, 100):
+            d = deque(range(n))
+            ref = list(range(n))
+            for r in (1, -1, 3, -5, n, n + 2, -(n + 2)):
+                d.rotate(r)
+                k = r % n
+                ref = ref[-k:] + ref[:-k] if k else ref
+                self.assertEqual([d[i] for i in range(n)], ref)
+                self.assertEqual([d[-i - 1] for i in range(n)], ref[::-1])
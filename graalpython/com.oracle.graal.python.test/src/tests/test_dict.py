@@ -1267,3 +1267,29 @@ def test_dict_values_eq():
     d1 = {1: 1, 2: 2, 4: 4}
     assert d1.values() != d1.values()
 
+
+def test_subscript_str_key():
+    from collections import defaultdict
+
+    class MissingDict(dict):
+        def __missing__(self, key):
+            return key * 2
+
+    def get(d, k):
+        return d[k]
+
+    d = {'a': 1, 'b': 2}
+    for i in range(3):
+        assert get(d, 'a') == 1
+        assert get(d, 'b') == 2
+        try:
+            get(d, 'c')
+        except KeyError as e:
+            assert e.args == ('c',)
+        else:
+            assert False
+    assert get(defaultdict(int), 'x') == 0
+    assert get(MissingDict(), 'x') == 'xx'
+    assert get({1: 'one'}, 1) == 'one'
+    assert get(['a'], 0) == 'a'
+    assert get(d, 'a') == 1
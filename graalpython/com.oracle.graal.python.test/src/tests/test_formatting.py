@@ -215,3 +215,54 @@ def test_fstring():
     # this is not walrus but 'x' with a format specifier "=10"
     x = 20
     assert f'{x:=10}' == '        20'
+
+
+def test_fstring_parts():
+    class MyStr(str):
+        def __format__(self, format_spec):
+            return "formatted"
+
+    class StrResult:
+        def __format__(self, format_spec):
+            return MyStr("sub")
+
+    def fmt(v):
+        return f"<{v}|{v!r}|{v!s}|{v!a}>"
+
+    # run several times so that quickened variants get exercised and generalized
+    for i in range(3):
+        assert fmt(42) == "<42|42|42|42>"
+        assert fmt(-2 ** 40) == "<-1099511627776|-1099511627776|-1099511627776|-1099511627776>"
+        assert fmt(2 ** 70) == "<1180591620717411303424|1180591620717411303424|1180591620717411303424|1180591620717411303424>"
+        assert fmt(1.5) == "<1.5|1.5|1.5|1.5>"
+        assert fmt(1e100) == "<1e+100|1e+100|1e+100|1e+100>"
+        assert fmt(True) == "<True|True|True|True>"
+        assert fmt("a\xe9") == "<a\xe9|'a\xe9'|a\xe9|'a\\xe9'>"
+        assert fmt(MyStr("s")) == "<formatted|'s'|s|'s'>"
+        assert fmt(None) == "<None|None|None|None>"
+        assert f"{StrResult()}" == "sub"
+        assert f"{StrResult()}!" == "sub!"
+        assert f"{i}" == str(i)
+        assert f"{i:03}{i * 0.5:.2f}" == "%03d%.2f" % (i, i * 0.5)
+
+    values = list(range(40))
+    assert f"{values[0]}{values[1]}{values[2]}{values[3]}{values[4]}{values[5]}{values[6]}{values[7]}{values[8]}{values[9]}" \
+           f"{values[10]}{values[11]}{values[12]}{values[13]}{values[14]}{values[15]}{values[16]}{values[17]}{values[18]}" \
+           f"{values[19]}{values[20]}{values[21]}{values[22]}{values[23]}{values[24]}{values[25]}{values[26]}{values[27]}" \
+           f"{values[28]}{values[29]}{values[30]}{values[31]}{values[32]}{values[33]}" == "".join(str(v) for v in values[:34])
+    assert f"" == ""
+    assert f"{''}" == ""
+
+
+def test_fstring_spec_primitive_values():
+    def fmt(n, d, width):
+        # the values come from unboxed locals, the spec from a nested f-string
+        s = ""
+        for i in range(n):
+            x = i * 2
+            s += f"{x:>{width}}|{d * i:.{width}f}|"
+        return s
+
+    for i in range(3):
+        assert fmt(3, 1.5, 3) == "  0|0.000|  2|1.500|  4|3.000|"
+        assert fmt(2, 0.25, 1) == "0|0.0|2|0.2|"
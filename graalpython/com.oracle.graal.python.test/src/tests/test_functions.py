@@ -267,3 +267,31 @@ def test_function_no_module():
     @wrapper_2
     def test_func():
         pass
+
+
+def test_huge_function():
+    # helper node slots are ranks in a bitmap that spans many 64-bit words here, with one-slot
+    # binary operations mixed with two-slot FORMAT_VALUE instructions, so that a wrong rank would
+    # share a node between different operations and give wrong results
+    ops = ['+', '-', '^']
+    lines = ["def f(a):", "    r = 0"]
+    expected = 0
+    for i in range(40000):
+        op = ops[i % 3]
+        g = i % 7
+        lines.append("    r = r %s (a + g%d)" % (op, g))
+        if i % 10 == 0:
+            lines.append("    s = f'{r!r:>4}'")
+        operand = 1 + g
+        if op == '+':
+            expected += operand
+        elif op == '-':
+            expected -= operand
+        else:
+            expected ^= operand
+    lines.append("    return r")
+    namespace = {"g%d" % g: g for g in range(7)}
+    exec("\n".join(lines), namespace)
+    f = namespace["f"]
+    for i in range(3):
+        assert f(1) == expected
@@ -0,0 +1,184 @@
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+
+import functools
+import threading
+import unittest
+
+
+class LruCacheTests(unittest.TestCase):
+
+    def test_bounded(self):
+        calls = []
+
+        @functools.lru_cache(maxsize=2)
+        def f(x):
+            calls.append(x)
+            return x * 2
+
+        self.assertEqual(f(1), 2)
+        self.assertEqual(f(2), 4)
+        self.assertEqual(f(1), 2)
+        # 2 is the least recently used entry now
+        self.assertEqual(f(3), 6)
+        self.assertEqual(f(1), 2)
+        self.assertEqual(f(2), 4)
+        self.assertEqual(calls, [1, 2, 3, 2])
+        info = f.cache_info()
+        self.assertEqual((info.hits, info.misses, info.maxsize, info.currsize), (2, 4, 2, 2))
+
+    def test_unbounded(self):
+        calls = []
+
+        @functools.cache
+        def f(x, y=0):
+            calls.append((x, y))
+            return x + y
+
+        for i in range(100):
+            self.assertEqual(f(i, y=1), i + 1)
+        for i in range(100):
+            self.assertEqual(f(i, y=1), i + 1)
+        self.assertEqual(len(calls), 100)
+        info = f.cache_info()
+        self.assertEqual((info.hits, info.misses, info.maxsize, info.currsize), (100, 100, None, 100))
+        f.cache_clear()
+        self.assertEqual(f.cache_info(), (0, 0, None, 0))
+
+    def test_no_caching(self):
+        @functools.lru_cache(maxsize=0)
+        def f(x):
+            return x
+
+        f(1)
+        f(1)
+        self.assertEqual(f.cache_info(), (0, 2, 0, 0))
+
+    def test_keys(self):
+        calls = []
+
+        @functools.lru_cache(maxsize=None)
+        def f(*args, **kwargs):
+            calls.append((args, kwargs))
+            return len(calls)
+
+        self.assertEqual(f(1, 2), 1)
+        self.assertEqual(f(1, 2), 1)
+        self.assertEqual(f((1, 2)), 2)
+        self.assertEqual(f(1, b=2), 3)
+        self.assertEqual(f(1, b=2), 3)
+        self.assertEqual(f(1, 'b', 2), 4)
+        self.assertEqual(f(1.0, 2), 1)
+
+    def test_typed(self):
+        @functools.lru_cache(typed=True)
+        def f(x):
+            return type(x)
+
+        self.assertIs(f(1), int)
+        self.assertIs(f(1.0), float)
+        self.assertIs(f(True), bool)
+        self.assertEqual(f.cache_info().currsize, 3)
+
+    def test_unhashable(self):
+        @functools.lru_cache
+        def f(x):
+            return x
+
+        self.assertRaises(TypeError, f, [])
+
+    def test_wrapper_attributes(self):
+        def f(x):
+            "doc"
+            return x
+
+        wrapped = functools.lru_cache(maxsize=10)(f)
+        self.assertIs(wrapped.__wrapped__, f)
+        self.assertEqual(wrapped.__name__, 'f')
+        self.assertEqual(wrapped.__doc__, 'doc')
+        self.assertEqual(wrapped.cache_parameters(), {'maxsize': 10, 'typed': False})
+        self.assertRaises(TypeError, functools.lru_cache, 'x')
+
+    def test_method(self):
+        class C:
+            @functools.lru_cache
+            def f(self, x):
+                return (self, x)
+
+        c = C()
+        self.assertEqual(c.f(1), (c, 1))
+        self.assertEqual(C.f(c, 1), (c, 1))
+        self.assertEqual(C.f.cache_info().hits, 1)
+
+    def test_recursion(self):
+        @functools.lru_cache(maxsize=16)
+        def fib(n):
+            return n if n < 2 else fib(n - 1) + fib(n - 2)
+
+        self.assertEqual(fib(100), 354224848179261915075)
+        self.assertEqual(fib.cache_info().currsize, 16)
+
+    def test_threads(self):
+        @functools.lru_cache(maxsize=32)
+        def f(x):
+            return x * x
+
+        errors = []
+
+        def worker():
+            try:
+                for i in range(2000):
+                    if f(i % 50) != (i % 50) ** 2:
+                        errors.append(i)
+            except BaseException as e:
+                errors.append(e)
+
+        threads = [threading.Thread(target=worker) for _ in range(4)]
+        for t in threads:
+            t.start()
+        for t in threads:
+            t.join()
+        self.assertEqual(errors, [])
+        info = f.cache_info()
+        self.assertEqual(info.hits + info.misses, 8000)
+        self.assertLessEqual(info.currsize, 32)
+
+
+if __name__ == '__main__':
+    unittest.main()
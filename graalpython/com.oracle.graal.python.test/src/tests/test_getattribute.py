@@ -76,3 +76,51 @@ def test_key_is_string():
     assert_raises(TypeError, types.ModuleType.__getattribute__, list, type)
     assert_raises(TypeError, types.MethodType.__getattribute__, list, type)
 
+
+
+def test_megamorphic_lookup_sees_type_changes():
+    class Base:
+        attr = "base"
+
+        def method(self):
+            return "base method"
+
+    classes = [type("C%d" % i, (Base,), {}) for i in range(20)]
+    names = ["attr", "method", "missing"]
+
+    def lookup(cls, name):
+        return getattr(cls, name, None)
+
+    def check(expected_attr):
+        for cls in classes:
+            assert lookup(cls, "attr") == expected_attr, cls
+            assert lookup(cls, "missing") is None
+            assert lookup(cls(), "method")() == "base method"
+
+    for name in names * 3:
+        for cls in classes:
+            lookup(cls, name)
+    check("base")
+
+    Base.attr = "changed"
+    check("changed")
+
+    classes[3].attr = "own"
+    assert lookup(classes[3], "attr") == "own"
+    del classes[3].attr
+    check("changed")
+
+    del Base.attr
+    check(None)
+
+    class OtherBase:
+        attr = "other"
+
+        def method(self):
+            return "base method"
+
+    classes[5].__bases__ = (OtherBase,)
+    assert lookup(classes[5], "attr") == "other"
+    Base.missing = 42
+    assert lookup(classes[5], "missing") is None
+    assert lookup(classes[6], "missing") == 42
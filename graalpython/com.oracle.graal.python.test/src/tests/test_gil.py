@@ -0,0 +1,124 @@
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+
+import sys
+import threading
+import time
+import unittest
+
+IS_GRAALPY = sys.implementation.name == 'graalpy'
+
+
+class SwitchIntervalTest(unittest.TestCase):
+
+    def setUp(self):
+        self.orig = sys.getswitchinterval()
+
+    def tearDown(self):
+        sys.setswitchinterval(self.orig)
+
+    def test_default(self):
+        self.assertAlmostEqual(0.005, self.orig)
+
+    def test_roundtrip(self):
+        for n in 0.00001, 0.05, 3.0:
+            sys.setswitchinterval(n)
+            self.assertAlmostEqual(n, sys.getswitchinterval())
+        self.assertRaises(ValueError, sys.setswitchinterval, 0.0)
+        self.assertRaises(ValueError, sys.setswitchinterval, -1.0)
+
+    def test_waiter_makes_progress(self):
+        # a CPU bound thread must not starve a thread that repeatedly gives up the GIL
+        sys.setswitchinterval(0.001)
+        stop = False
+
+        def spin():
+            x = 0
+            while not stop:
+                x += 1
+
+        t = threading.Thread(target=spin)
+        t.start()
+        try:
+            start = time.monotonic()
+            for i in range(20):
+                time.sleep(0.001)
+            self.assertLess(time.monotonic() - start, 10)
+        finally:
+            stop = True
+            t.join()
+
+
+@unittest.skipUnless(IS_GRAALPY, "GraalPy specific API")
+class GilStatisticsTest(unittest.TestCase):
+
+    def tearDown(self):
+        __graalpython__.set_gil_statistics(False)
+
+    def test_statistics(self):
+        __graalpython__.set_gil_statistics(True)
+
+        def work():
+            for i in range(5):
+                time.sleep(0.001)
+
+        threads = [threading.Thread(target=work) for i in range(3)]
+        for t in threads:
+            t.start()
+        for t in threads:
+            t.join()
+        stats = __graalpython__.get_gil_statistics()
+        for t in threads:
+            self.assertIn(t.ident, stats)
+            entry = stats[t.ident]
+            self.assertEqual(t.name, entry["name"])
+            self.assertGreaterEqual(entry["acquisitions"], 5)
+            self.assertEqual(entry["acquisitions"], sum(entry["wait_histogram"]))
+            self.assertGreaterEqual(entry["hold_ns"], 0)
+            self.assertGreaterEqual(entry["wait_ns"], 0)
+            self.assertEqual(24, len(entry["hold_histogram"]))
+
+    def test_enable_resets(self):
+        __graalpython__.set_gil_statistics(True)
+        t = threading.Thread(target=time.sleep, args=(0.001,))
+        t.start()
+        t.join()
+        self.assertIn(t.ident, __graalpython__.get_gil_statistics())
+        __graalpython__.set_gil_statistics(True)
+        self.assertNotIn(t.ident, __graalpython__.get_gil_statistics())
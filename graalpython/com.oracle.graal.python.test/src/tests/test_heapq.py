@@ -0,0 +1,210 @@
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+
+import bisect
+import heapq
+import random
+import unittest
+
+
+def py_heappush(heap, item):
+    heap.append(item)
+    heapq._siftdown(heap, 0, len(heap) - 1)
+
+
+def py_heapify(heap):
+    for i in reversed(range(len(heap) // 2)):
+        heapq._siftup(heap, i)
+
+
+def py_heapify_max(heap):
+    for i in reversed(range(len(heap) // 2)):
+        heapq._siftup_max(heap, i)
+
+
+class HeapqTests(unittest.TestCase):
+
+    def check_layouts(self, data):
+        heap, expected = [], []
+        for x in data:
+            heapq.heappush(heap, x)
+            py_heappush(expected, x)
+        self.assertEqual(expected, heap)
+
+        heap, expected = list(data), list(data)
+        heapq.heapify(heap)
+        py_heapify(expected)
+        self.assertEqual(expected, heap)
+
+        heap, expected = list(data), list(data)
+        heapq._heapify_max(heap)
+        py_heapify_max(expected)
+        self.assertEqual(expected, heap)
+
+        heap = list(data)
+        heapq.heapify(heap)
+        popped = [heapq.heappop(heap) for _ in range(len(data))]
+        self.assertEqual(sorted(data), popped)
+
+        heap = list(data)
+        heapq._heapify_max(heap)
+        popped = [heapq._heappop_max(heap) for _ in range(len(data))]
+        self.assertEqual(sorted(data, reverse=True), popped)
+
+    def test_int_heap(self):
+        rnd = random.Random(42)
+        self.check_layouts([rnd.randrange(-1000, 1000) for _ in range(257)])
+
+    def test_long_heap(self):
+        rnd = random.Random(43)
+        self.check_layouts([rnd.randrange(-2 ** 40, 2 ** 40) for _ in range(257)])
+
+    def test_double_heap(self):
+        rnd = random.Random(44)
+        self.check_layouts([rnd.random() for _ in range(257)])
+
+    def test_object_heap(self):
+        rnd = random.Random(45)
+        self.check_layouts([str(rnd.randrange(1000)) for _ in range(257)])
+        self.check_layouts([(rnd.randrange(10), i) for i in range(257)])
+
+    def test_mixed_heap(self):
+        heap = [5, 3, 8]
+        heapq.heapify(heap)
+        heapq.heappush(heap, 1.5)
+        heapq.heappush(heap, 2 ** 70)
+        self.assertEqual(1.5, heapq.heapreplace(heap, 0.5))
+        self.assertEqual([0.5, 3, 5, 8, 2 ** 70], [heapq.heappop(heap) for _ in range(5)])
+
+    def test_replace_and_pushpop(self):
+        heap = [1, 4, 2, 9]
+        self.assertEqual(0, heapq.heappushpop(heap, 0))
+        self.assertEqual(1, heapq.heappushpop(heap, 3))
+        self.assertEqual([2, 3, 4, 9], sorted(heap))
+        self.assertEqual(5, heapq.heappushpop([], 5))
+        heap = [9, 8, 7]
+        self.assertEqual(9, heapq._heapreplace_max(heap, 1))
+        self.assertEqual([8, 7, 1], [heapq._heappop_max(heap) for _ in range(3)])
+
+    def test_errors(self):
+        self.assertRaises(IndexError, heapq.heappop, [])
+        self.assertRaises(IndexError, heapq.heapreplace, [], 1)
+        self.assertRaises(TypeError, heapq.heappush, (1, 2), 3)
+        self.assertRaises(TypeError, heapq.heapify, None)
+        self.assertRaises(TypeError, heapq.heappush, [1], "a")
+
+    def test_list_subclass(self):
+        class L(list):
+            pass
+
+        heap = L([3, 1, 2])
+        heapq.heapify(heap)
+        self.assertEqual(1, heapq.heappop(heap))
+
+    def test_mutation_during_compare(self):
+        heap = []
+
+        class Evil:
+            def __lt__(self, other):
+                heap.clear()
+                return False
+
+        heap.extend([Evil(), Evil(), Evil()])
+        self.assertRaises(RuntimeError, heapq.heappush, heap, Evil())
+
+
+class BisectTests(unittest.TestCase):
+
+    def check_bisect(self, data, probes):
+        for x in probes:
+            for lo, hi in ((0, None), (1, len(data) - 1), (2, -1)):
+                expected_right = lo
+                end = len(data) if hi is None or hi == -1 else hi
+                while expected_right < end and not (x < data[expected_right]):
+                    expected_right += 1
+                expected_left = lo
+                while expected_left < end and data[expected_left] < x:
+                    expected_left += 1
+                self.assertEqual(expected_right, bisect.bisect_right(data, x, lo, hi))
+                self.assertEqual(expected_left, bisect.bisect_left(data, x, lo, hi))
+
+    def test_int(self):
+        self.check_bisect([1, 2, 2, 2, 5, 7, 9], [0, 1, 2, 3, 9, 10])
+
+    def test_long(self):
+        self.check_bisect([2 ** 40, 2 ** 41, 2 ** 41, 2 ** 50], [0, 2 ** 41, 2 ** 60, 3])
+
+    def test_double(self):
+        self.check_bisect([0.5, 1.5, 1.5, 3.0], [0.0, 1.5, 2, 4.0])
+
+    def test_object(self):
+        self.check_bisect(["a", "c", "c", "e"], ["a", "b", "c", "z"])
+
+    def test_key(self):
+        data = [(1, "a"), (3, "b"), (3, "c"), (7, "d")]
+        first = lambda t: t[0]
+        self.assertEqual(1, bisect.bisect_left(data, 3, key=first))
+        self.assertEqual(3, bisect.bisect_right(data, 3, key=first))
+        bisect.insort(data, (3, "x"), key=first)
+        self.assertEqual((3, "x"), data[3])
+
+    def test_insort(self):
+        data = [1, 3, 5]
+        bisect.insort_left(data, 3)
+        bisect.insort_right(data, 4.5)
+        bisect.insort(data, 2 ** 70)
+        self.assertEqual([1, 3, 3, 4.5, 5, 2 ** 70], data)
+
+        class L(list):
+            inserted = 0
+
+            def insert(self, index, item):
+                L.inserted += 1
+                super().insert(index, item)
+
+        data = L([1, 2, 4])
+        bisect.insort(data, 3)
+        self.assertEqual([1, 2, 3, 4], data)
+        self.assertEqual(1, L.inserted)
+
+    def test_errors(self):
+        self.assertRaises(ValueError, bisect.bisect, [1, 2], 1, -1)
+        self.assertRaises(IndexError, bisect.bisect, [1, 2], 1, 0, 10)
+        self.assertRaises(TypeError, bisect.bisect, [1, 2], 1, 0, "x")
+        self.assertEqual(1, bisect.bisect((1, 2, 3), 1))
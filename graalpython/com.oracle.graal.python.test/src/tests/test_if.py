@@ -94,3 +94,85 @@ def test_yes_container():
     else:
         assert False, "exception expected"
 
+
+
+def test_short_circuit_conditions():
+    def check(a, b, c):
+        if a and b:
+            r1 = True
+        else:
+            r1 = False
+        if a or not b:
+            r2 = True
+        else:
+            r2 = False
+        if not (a and b or c):
+            r3 = True
+        else:
+            r3 = False
+        if (b if a else c) and not c:
+            r4 = True
+        else:
+            r4 = False
+        return r1, r2, r3, r4
+
+    for a in (0, 1):
+        for b in (0, 1):
+            for c in (0, 1):
+                expected = (bool(a and b), bool(a or not b), not (a and b or c), bool((b if a else c) and not c))
+                assert check(a, b, c) == expected, (a, b, c)
+
+
+def test_short_circuit_bool_calls():
+    calls = []
+
+    class B:
+        def __init__(self, name, value):
+            self.name = name
+            self.value = value
+
+        def __bool__(self):
+            calls.append(self.name)
+            return self.value
+
+    if B('a', False) and B('b', True):
+        assert False
+    assert calls == ['a']
+    calls.clear()
+    if not (B('a', True) and B('b', False)):
+        pass
+    else:
+        assert False
+    assert calls == ['a', 'b']
+    calls.clear()
+    while B('a', False) or B('b', False):
+        assert False
+    assert calls == ['a', 'b']
+
+
+def test_chained_compare_conditions():
+    evaluated = []
+
+    def v(x):
+        evaluated.append(x)
+        return x
+
+    def in_range(x):
+        if 1 <= v(x) < 10:
+            return True
+        return False
+
+    def not_in_range(x):
+        if not 1 <= v(x) < 10:
+            return True
+        return False
+
+    assert in_range(5)
+    assert not in_range(0)
+    assert not in_range(10)
+    assert not not_in_range(5)
+    assert not_in_range(0)
+    assert not_in_range(10)
+    assert evaluated == [5, 0, 10, 5, 0, 10]
+    assert [x for x in range(12) if 2 < x <= 4 or x > 10] == [3, 4, 11]
+    assert [x for x in range(6) if not 1 < x < 4] == [0, 1, 4, 5]
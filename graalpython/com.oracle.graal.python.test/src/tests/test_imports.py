@@ -130,6 +130,50 @@ def test_imp_fix_co_filename():
     assert code.co_filename == old_name + '_more_path'
 
 
+def test_imp_source_hash():
+    import _imp
+    from importlib.util import MAGIC_NUMBER
+    key = int.from_bytes(MAGIC_NUMBER, 'little')
+    h1 = _imp.source_hash(key, b"x = 1\n")
+    assert len(h1) == 8
+    assert h1 == _imp.source_hash(key, memoryview(b"x = 1\n"))
+    assert h1 != _imp.source_hash(key, b"x = 2\n")
+    assert h1 != _imp.source_hash(key + 1, b"x = 1\n")
+    # differences beyond the first byte of the digest must show up too
+    digests = {_imp.source_hash(key, b"x = %d\n" % i)[1:] for i in range(512)}
+    assert len(digests) == 512
+
+
+def test_pyc_cache_roundtrip():
+    import importlib.util
+    import io
+    import os
+    import tempfile
+    with tempfile.TemporaryDirectory() as d:
+        src = os.path.join(d, "pyc_cache_mod.py")
+        with io.open(src, "w") as f:
+            f.write("value = 42\n")
+        old = sys.dont_write_bytecode
+        sys.dont_write_bytecode = False
+        try:
+            for _ in range(2):
+                spec = importlib.util.spec_from_file_location("pyc_cache_mod", src)
+                mod = importlib.util.module_from_spec(spec)
+                spec.loader.exec_module(mod)
+                assert mod.value == 42
+            pyc = importlib.util.cache_from_source(src)
+            if pyc and os.path.exists(pyc):
+                # a truncated cache entry must not break the import
+                with io.open(pyc, "r+b") as f:
+                    f.truncate(20)
+                spec = importlib.util.spec_from_file_location("pyc_cache_mod", src)
+                mod = importlib.util.module_from_spec(spec)
+                spec.loader.exec_module(mod)
+                assert mod.value == 42
+        finally:
+            sys.dont_write_bytecode = old
+
+
 def test_recursive_import_from():
     if sys.version_info.minor >= 6:
         import package.recpkg
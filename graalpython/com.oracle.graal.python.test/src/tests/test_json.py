@@ -83,3 +83,202 @@ class JsonTest(unittest.TestCase):
             1521583201347000000,
             10,
         }
+
+    def test_load_wide_strings(self):
+        import json
+        for s in ['abc', 'caf\xe9', '€ uro', 'emoji \U0001F600 x', 'lone \ud800 surrogate']:
+            doc = json.dumps({s: [s, 1]}, ensure_ascii=False)
+            assert json.loads(doc) == {s: [s, 1]}, doc
+            doc = json.dumps({s: [s, 1]}, ensure_ascii=True)
+            assert json.loads(doc) == {s: [s, 1]}, doc
+        assert json.loads('"\\ud83d\\ude00"') == '\U0001F600'
+        assert json.loads('["\U0001F600", "x"]') == ['\U0001F600', 'x']
+
+    def test_load_error_positions(self):
+        import json
+        for doc, pos in [('[1, 2', 5), ('{"€": 1 "b": 2}', 8), ('["\U0001F600", x]', 6), ('"abc', 0)]:
+            try:
+                json.loads(doc)
+            except json.JSONDecodeError as e:
+                assert e.pos == pos, (doc, e.pos)
+            else:
+                assert False, doc
+
+    def test_load_number_lists(self):
+        import json
+        assert json.loads('[1, 2, 3]') == [1, 2, 3]
+        assert json.loads('[1.5, -2.0, 3e2]') == [1.5, -2.0, 300.0]
+        assert json.loads('[1, 12345678901234, -1]') == [1, 12345678901234, -1]
+        assert json.loads('[1, 2.5, true]') == [1, 2.5, True]
+        assert json.loads('[123456789012345678901234567890, 1]') == [123456789012345678901234567890, 1]
+        l = json.loads('[1, 2]')
+        l.append('x')
+        l[0] = 1.5
+        assert l == [1.5, 2, 'x']
+
+    def test_memo_keys(self):
+        import json
+        data = json.loads('[{"key": 1}, {"key": 2}]')
+        k1, = data[0].keys()
+        k2, = data[1].keys()
+        assert k1 is k2
+
+    def test_scan_bytes(self):
+        import sys
+        if sys.implementation.name != 'graalpy':
+            return
+        import json
+        from json.decoder import JSONDecodeError
+        from _json import make_scanner
+        scan = make_scanner(json.JSONDecoder())
+        doc = '{"caf\xe9": ["€", 1, 2.5], "x": null}'
+        data = doc.encode('utf-8')
+        assert scan(data, 0) == (json.loads(doc), len(data))
+        assert scan(bytearray(data), 0) == (json.loads(doc), len(data))
+        assert scan(memoryview(data), 0) == (json.loads(doc), len(data))
+        # surrogates are not valid UTF-8, the scanner decodes before scanning
+        data = '["\ud800", "€"] '.encode('utf-8', 'surrogatepass')
+        assert scan(data, 0) == (['\ud800', '€'], len(data) - 1)
+        # errors are reported on the decoded document
+        try:
+            scan('["€" 1]'.encode('utf-8'), 0)
+        except JSONDecodeError as e:
+            assert e.doc == '["€" 1]'
+            assert e.pos == 5
+        else:
+            assert False
+
+    def test_loads_bytes(self):
+        import json
+        doc = '{"caf\xe9": [{"\u20ac": 1}, {"x": "\U0001F600"}]}'
+        for data in [doc.encode('utf-8'), bytearray(doc.encode('utf-8'))]:
+            assert json.loads(data) == json.loads(doc)
+            calls = []
+            assert json.loads(data, object_hook=lambda d: calls.append(d) or len(calls)) == 3
+            assert calls == [{'\u20ac': 1}, {'x': '\U0001F600'}, {'caf\xe9': [1, 2]}]
+        # hooks run once even when the input is not valid UTF-8
+        calls = []
+        data = '[{"\ud800": "\u20ac"}]'.encode('utf-8', 'surrogatepass')
+        assert json.loads(data, object_hook=lambda d: calls.append(d) or 0) == [0]
+        assert calls == [{'\ud800': '\u20ac'}]
+        for data, pos in [('{"\u20ac": 1 "b": 2}', 8), ('["\U0001F600"] x', 6), (' ', 1)]:
+            try:
+                json.loads(data.encode('utf-8'))
+            except json.JSONDecodeError as e:
+                assert e.doc == data, (data, e.doc)
+                assert e.pos == pos, (data, e.pos)
+            else:
+                assert False, data
+
+    def test_decoder_rejects_bytes(self):
+        import json
+        for data in [b'[1]', bytearray(b'[1]')]:
+            try:
+                json.JSONDecoder().decode(data)
+            except TypeError:
+                pass
+            else:
+                assert False, data
+
+    def test_dumps_values(self):
+        import json
+
+        class MyInt(int):
+            pass
+
+        class MyList(list):
+            pass
+
+        class MyDict(dict):
+            pass
+
+        class MyStr(str):
+            pass
+
+        doc = {"a": [1, 2.5, True, False, None, "x\n\"y\"", (3, 4)], "\u20ac": {}, "b": [],
+               "c": MyList([MyInt(5)]), "d": MyDict(e=MyStr("\xe9")), 7: 2 ** 70, 1.5: -0.0, None: "n"}
+        for _ in range(3):
+            assert json.dumps(doc) == ('{"a": [1, 2.5, true, false, null, "x\\n\\"y\\"", [3, 4]], "\\u20ac": {}, "b": [], '
+                                       '"c": [5], "d": {"e": "\\u00e9"}, "7": 1180591620717411303424, "1.5": -0.0, "null": "n"}')
+            assert json.dumps(doc, ensure_ascii=False, separators=(",", ":")) == (
+                '{"a":[1,2.5,true,false,null,"x\\n\\"y\\"",[3,4]],"\u20ac":{},"b":[],'
+                '"c":[5],"d":{"e":"\xe9"},"7":1180591620717411303424,"1.5":-0.0,"null":"n"}')
+        assert json.dumps({"b": 1, "a": [{"d": 2, "c": 3}]}, sort_keys=True) == '{"a": [{"c": 3, "d": 2}], "b": 1}'
+        assert json.dumps({"a": 1, (1,): 2, "b": 3}, skipkeys=True) == '{"a": 1, "b": 3}'
+        assert json.dumps({(1,): 2, "b": 3}, skipkeys=True) == '{"b": 3}'
+        assert json.dumps({"a": 1, (1,): 2}, skipkeys=True) == '{"a": 1}'
+        assert json.dumps([{1, 2}], default=sorted) == '[[1, 2]]'
+        assert json.dumps([float('inf'), float('nan')]) == '[Infinity, NaN]'
+        with self.assertRaises(ValueError):
+            json.dumps([1.0, float('-inf')], allow_nan=False)
+        with self.assertRaises(TypeError):
+            json.dumps({"a": [object()]})
+        with self.assertRaises(TypeError):
+            json.dumps({(1,): 2})
+
+    def test_dumps_nested(self):
+        import json
+        doc = []
+        for i in range(40):
+            doc = [i, {"k": doc}]
+        for _ in range(3):
+            assert json.loads(json.dumps(doc)) == doc
+        cycle = [1, {"a": []}]
+        cycle[1]["a"].append(cycle)
+        with self.assertRaises(ValueError):
+            json.dumps(cycle)
+        shared = [1, 2]
+        assert json.dumps([shared, {"x": shared}]) == '[[1, 2], {"x": [1, 2]}]'
+
+
+def _stream_decoder():
+    import sys
+    if sys.implementation.name != 'graalpy':
+        return None
+    import _json
+    return getattr(_json, 'StreamDecoder', None)
+
+
+class JsonStreamTest(unittest.TestCase):
+    def decode(self, doc, chunk_size=3, ndjson=False, **kwargs):
+        import io
+        import json
+        scanner = json.JSONDecoder(**kwargs).scan_once
+        return list(_stream_decoder()(scanner, io.BytesIO(doc.encode('utf-8')), chunk_size, ndjson))
+
+    def test_array(self):
+        if not _stream_decoder():
+            return
+        doc = ' [ {"a": [1, 2, {"b": "]}\\""}]}, "x,y", 12.5e3, true, null, -7, [], {} ] '
+        import json
+        for chunk_size in (1, 2, 3, 7, 1000):
+            assert self.decode(doc, chunk_size) == json.loads(doc), chunk_size
+        assert self.decode('[]') == []
+        assert self.decode('') == []
+
+    def test_values_and_ndjson(self):
+        if not _stream_decoder():
+            return
+        doc = '{"caf\xe9": 1}\n[1, 2]\n\n"s"\n3\nfalse\n'
+        assert self.decode(doc, 2) == [{'caf\xe9': 1}, [1, 2], 's', 3, False]
+        assert self.decode('[1, 2]\n[3]\n', ndjson=True) == [[1, 2], [3]]
+        assert self.decode('{"x": 1} {"x": 2}', 4, object_hook=lambda d: d['x']) == [1, 2]
+
+    def test_errors(self):
+        if not _stream_decoder():
+            return
+        import io
+        import json
+        for doc in ['[1, 2', '[1 2]', '[1,]', '[1] 2', '{"a": 1', '["abc', '[tru]', '1x', '[1, 2]]']:
+            with self.assertRaises(json.JSONDecodeError, msg=doc):
+                self.decode(doc)
+        # the stream continues after a broken record
+        it = _stream_decoder()(json.JSONDecoder().scan_once, io.BytesIO(b'1\n{"a" 1}\n3\n'), 4, True)
+        assert next(it) == 1
+        with self.assertRaises(json.JSONDecodeError):
+            next(it)
+        assert next(it) == 3
+        with self.assertRaises(StopIteration):
+            next(it)
+        with self.assertRaises(TypeError):
+            list(_stream_decoder()(json.JSONDecoder().scan_once, io.StringIO('[1]')))
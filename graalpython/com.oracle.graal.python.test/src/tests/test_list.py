@@ -730,6 +730,32 @@ class ListTest(list_tests.CommonTest):
         l.extend(l)
         self.assertEqual([1,2,3,4,10,20,30,40], l)
 
+    def test_primitive_loops(self):
+        def sum_items(it):
+            total = 0
+            for x in it:
+                total += x
+            return total
+
+        def copy_items(src, dst):
+            for i in range(len(src)):
+                dst[i] = src[i]
+            return dst
+
+        longs = [2 ** 40 + i for i in range(10)]
+        doubles = [i + 0.5 for i in range(10)]
+        for i in range(3):
+            self.assertEqual(10 * 2 ** 40 + 45, sum_items(longs))
+            self.assertEqual(10 * 2 ** 40 + 45, sum_items(range(2 ** 40, 2 ** 40 + 10)))
+            self.assertEqual(50.0, sum_items(doubles))
+            self.assertEqual(longs, copy_items(longs, [0] * 10))
+            self.assertEqual(doubles, copy_items(doubles, [0.0] * 10))
+        # Change the types flowing through the same loops
+        self.assertEqual(2 ** 64 + 2 ** 63 - 1, sum_items(range(2 ** 63 - 1, 2 ** 64 + 1, 2 ** 63 + 1)))
+        self.assertEqual(2 ** 70 + 1.5, sum_items([2 ** 70, 1.5]))
+        self.assertEqual(['a', 2 ** 70, 1.5], copy_items(['a', 2 ** 70, 1.5], [None] * 3))
+        self.assertEqual(longs, copy_items(longs, [0] * 10))
+
 class ListCompareTest(CompareTest):
 
     def test_compare(self):
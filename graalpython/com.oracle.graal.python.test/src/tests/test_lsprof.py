@@ -0,0 +1,134 @@
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+
+import subprocess
+import sys
+import textwrap
+import unittest
+
+# The sampling mode of the profiler has to be enabled when the context is created
+if sys.implementation.name == 'graalpy':
+    SAMPLING_OPTIONS = ['--experimental-options', '--python.ProfilerSamplingInterval=1000']
+else:
+    SAMPLING_OPTIONS = []
+
+PREAMBLE = """
+import cProfile
+import io
+import pstats
+import time
+
+
+def busy_leaf(deadline):
+    x = 0
+    while time.monotonic() < deadline:
+        x += 1
+    return x
+
+
+def busy_caller(seconds):
+    return busy_leaf(time.monotonic() + seconds)
+
+
+def profile(**kwargs):
+    prof = cProfile.Profile(**kwargs)
+    prof.enable()
+    busy_caller(0.3)
+    prof.disable()
+    return prof
+
+
+def find(stats, name):
+    for (filename, lineno, funcname), value in stats.stats.items():
+        if funcname == name:
+            return value
+    raise AssertionError("%s not found in profile" % name)
+"""
+
+
+class SamplingProfilerTest(unittest.TestCase):
+
+    def check(self, code):
+        out = subprocess.check_output([sys.executable, *SAMPLING_OPTIONS, '-c', PREAMBLE + textwrap.dedent(code) + "\nprint('ok')"],
+                                      universal_newlines=True)
+        self.assertEqual(out.strip(), 'ok')
+
+    def test_pstats(self):
+        self.check("""
+            stats = pstats.Stats(profile(), stream=io.StringIO())
+            cc, nc, tt, ct, callers = find(stats, 'busy_leaf')
+            assert nc > 0
+            assert ct > 0
+            assert any(key[2] == 'busy_caller' for key in callers)
+            cc, nc, tt, ct, callers = find(stats, 'busy_caller')
+            assert ct >= stats.stats[[k for k in stats.stats if k[2] == 'busy_leaf'][0]][3]
+            out = io.StringIO()
+            stats.stream = out
+            stats.sort_stats('cumulative').print_stats()
+            assert 'busy_leaf' in out.getvalue()
+        """)
+
+    def test_clear(self):
+        self.check("""
+            prof = profile()
+            prof.clear()
+            assert [e for e in prof.getstats() if getattr(e.code, 'co_name', None) == 'busy_leaf'] == []
+        """)
+
+    def test_no_subcalls(self):
+        self.check("""
+            prof = profile(subcalls=False)
+            for entry in prof.getstats():
+                assert entry.calls is None
+        """)
+
+    def test_collected_without_disable(self):
+        self.check("""
+            import gc
+            prof = cProfile.Profile()
+            prof.enable()
+            busy_caller(0.05)
+            del prof
+            gc.collect()
+            busy_caller(0.05)
+        """)
+
+
+if __name__ == '__main__':
+    unittest.main()
@@ -123,6 +123,30 @@ class CodeTest(unittest.TestCase):
             if isinstance(obj, types.CodeType):
                 self.assertIs(co.co_filename, obj.co_filename)
 
+    def test_nested_code_roundtrip(self):
+        s = """
+def outer(a):
+    doc = "shared constant"
+    def inner(b):
+        def innermost():
+            return doc, a + b
+        return innermost()
+    return inner
+
+class C:
+    def method(self):
+        return "shared constant"
+"""
+        co = marshal.loads(marshal.dumps(compile(s, "nested", "exec")))
+        # dumping code that was loaded, but whose nested functions were never used
+        co = marshal.loads(marshal.dumps(co))
+        ns = {}
+        exec(co, ns)
+        self.assertEqual(("shared constant", 3), ns["outer"](1)(2))
+        self.assertEqual("shared constant", ns["C"]().method())
+        names = [c.co_name for c in co.co_consts if isinstance(c, types.CodeType)]
+        self.assertEqual(["outer", "C"], names)
+
 class ContainerTest(unittest.TestCase, BaseMarshalUnmarshal):
     d = {'astring': 'foo@bar.baz.spam',
          'afloat': 7283.43,
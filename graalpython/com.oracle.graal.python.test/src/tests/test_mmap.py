@@ -224,6 +224,31 @@ def test_readline():
     assert m.readline() == b'ab'
 
 
+def test_flush_and_buffer_export():
+    with open(TESTFN, 'wb+') as f:
+        f.write(b'x' * PAGESIZE)
+        f.flush()
+        try:
+            m = mmap.mmap(f.fileno(), PAGESIZE)
+            m[0:5] = b'hello'
+            m.flush()
+            mv = memoryview(m)
+            assert bytes(mv[0:5]) == b'hello'
+            assert bytes(mv[PAGESIZE - 1:]) == b'x'
+            # copies that start in the middle of the source or destination array
+            ba = bytearray(b'0123456789')
+            ba[2:7] = mv[0:5]
+            assert ba == b'01hello789'
+            mv[10:15] = memoryview(b'--world--')[2:7]
+            assert m[10:15] == b'world'
+            mv.release()
+            m.close()
+            f.seek(0)
+            assert f.read(6) == b'hellox'
+        finally:
+            os.unlink(TESTFN)
+
+
 def test_main():
     #run_unittest(MmapTests, LargeMmapTests)
     run_unittest(MmapTests)
@@ -84,3 +84,33 @@ def test_array_read():
     num = multiprocessing.Value('d', 0.0)
     arr = multiprocessing.Array('i', range(10))
     assert arr[1] == 1
+
+
+def test_pipe_large_message():
+    import threading
+    x, y = multiprocessing.connection.Pipe(False)  # Truffle multiprocessing pipe
+    # larger than the pipe's buffer, so the writer has to wait for the reader
+    data = bytes(range(256)) * 4096
+    t = threading.Thread(target=y.send_bytes, args=(data,))
+    t.start()
+    assert x.recv_bytes() == data
+    t.join()
+    y.send_bytes(b'')
+    y.send_bytes(b'abc')
+    assert x.recv_bytes() == b''
+    assert x.recv_bytes() == b'abc'
+
+
+def test_pipe_recv_bytes_into():
+    x, y = multiprocessing.connection.Pipe(False)  # Truffle multiprocessing pipe
+    buf = bytearray(10)
+    y.send_bytes(b'hello')
+    assert x.recv_bytes_into(buf, 2) == 5
+    assert buf == bytearray(b'\0\0hello\0\0\0')
+    y.send_bytes(b'too long for the buffer')
+    try:
+        x.recv_bytes_into(buf)
+    except multiprocessing.BufferTooShort as e:
+        assert e.args[0] == b'too long for the buffer'
+    else:
+        assert False, "BufferTooShort expected"
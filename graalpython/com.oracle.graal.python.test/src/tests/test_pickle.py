@@ -66,5 +66,97 @@ class TestPickle(unittest.TestCase):
         assert [16,17,18,19] == [next(teeit2) for i in range(1, 5)]
         assert [16,17,18,19] == [next(teeit) for i in range(1, 5)]
 
+    def test_native_roundtrip(self):
+        data = [None, True, False, 0, 1, -1, 255, 65535, 2**31 - 1, -2**31, 2**63, -2**100, 1.5, -0.0,
+                "", "abc", "\u20ac\U0001f600", "\ud800", b"", b"bytes", bytearray(b"ba"),
+                (), (1,), (1, 2), (1, 2, 3), (1, 2, 3, 4), [], [1, 2.0, "3"], list(range(2500)),
+                [0.5] * 1200, {}, {"a": 1, 2: [3]}, set(), {1, 2, 3}, frozenset({"x"}),
+                Ellipsis, NotImplemented, type(None), len, pickle.Pickler]
+        shared = [1, 2]
+        data.append([shared, shared, (shared,)])
+        for proto in range(pickle.HIGHEST_PROTOCOL + 1):
+            for obj in data:
+                r_obj = pickle.loads(pickle.dumps(obj, proto))
+                self.assertEqual(r_obj, obj)
+                self.assertIs(type(r_obj), type(obj))
+            r_obj = pickle.loads(pickle.dumps(data[-1], proto))
+            self.assertIs(r_obj[0], r_obj[1])
+            self.assertIs(r_obj[0], r_obj[2][0])
+
+    def test_native_matches_python_pickler(self):
+        objs = [[1, "a", (2.5, b"b")], {"k": [None, True]}, list(range(300)), "x" * 70000, {1, 2}]
+        for proto in range(pickle.HIGHEST_PROTOCOL + 1):
+            for obj in objs:
+                self.assertEqual(pickle.dumps(obj, proto), pickle._dumps(obj, proto))
+                self.assertEqual(pickle.loads(pickle._dumps(obj, proto)), obj)
+
+    def test_recursive(self):
+        lst = []
+        lst.append(lst)
+        dct = {}
+        dct["self"] = dct
+        for proto in range(pickle.HIGHEST_PROTOCOL + 1):
+            r_lst = pickle.loads(pickle.dumps(lst, proto))
+            self.assertIs(r_lst[0], r_lst)
+            r_dct = pickle.loads(pickle.dumps(dct, proto))
+            self.assertIs(r_dct["self"], r_dct)
+
+    def test_file(self):
+        import io
+        f = io.BytesIO()
+        pickle.dump([1, 2], f, protocol=4)
+        pickle.dump("second", f, protocol=0)
+        f.seek(0)
+        self.assertEqual(pickle.load(f), [1, 2])
+        self.assertEqual(pickle.load(f), "second")
+        self.assertRaises(EOFError, pickle.load, f)
+
+    def test_errors(self):
+        self.assertRaises(EOFError, pickle.loads, b"")
+        self.assertRaises(pickle.UnpicklingError, pickle.loads, pickle.dumps([1, 2, 3])[:-3])
+        self.assertRaises(ValueError, pickle.dumps, 1, pickle.HIGHEST_PROTOCOL + 1)
+        self.assertRaises(AttributeError, pickle.dumps, lambda: 1)
+        self.assertRaises(TypeError, pickle.Pickler, object())
+
+    def test_memo_proxy(self):
+        import io
+        p = pickle.Pickler(io.BytesIO(), 2)
+        obj = [1]
+        p.dump(obj)
+        self.assertEqual(p.memo.copy(), {id(obj): (0, obj)})
+        p.clear_memo()
+        self.assertEqual(p.memo.copy(), {})
+        u = pickle.Unpickler(io.BytesIO(pickle.dumps(obj, 2)))
+        self.assertEqual(u.load(), obj)
+        self.assertEqual(list(u.memo.copy()), [0])
+
+    def test_persistent_id(self):
+        import io
+
+        class MyPickler(pickle.Pickler):
+            def persistent_id(self, obj):
+                return "ID" if obj == "external" else None
+
+        class MyUnpickler(pickle.Unpickler):
+            def persistent_load(self, pid):
+                return "loaded " + pid
+
+        for proto in range(pickle.HIGHEST_PROTOCOL + 1):
+            f = io.BytesIO()
+            MyPickler(f, proto).dump(["external", "internal"])
+            f.seek(0)
+            self.assertEqual(MyUnpickler(f).load(), ["loaded ID", "internal"])
+
+    def test_pickle_buffer(self):
+        buffers = []
+        data = pickle.dumps(pickle.PickleBuffer(bytearray(b"abc")), 5, buffer_callback=buffers.append)
+        self.assertEqual(len(buffers), 1)
+        self.assertEqual(bytes(pickle.loads(data, buffers=buffers)), b"abc")
+        self.assertEqual(pickle.loads(pickle.dumps(pickle.PickleBuffer(b"xyz"), 5)), b"xyz")
+        pb = pickle.PickleBuffer(b"raw")
+        self.assertEqual(pb.raw().tobytes(), b"raw")
+        pb.release()
+        self.assertRaises(ValueError, pb.raw)
+
 if __name__ == '__main__':
     unittest.main()
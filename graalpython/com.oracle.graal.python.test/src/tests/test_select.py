@@ -95,3 +95,83 @@ class SelectTests(unittest.TestCase):
             fds = [F(f.fileno()), F(stdout_fd), F(f.fileno())]
             res = select.select(fds, [], [], 1)
             assert res == ([fds[0], fds[2]], [], [])
+
+
+@unittest.skipUnless(hasattr(select, 'epoll'), 'epoll is not available')
+class EpollTests(unittest.TestCase):
+    def test_epoll_register_poll_unregister(self):
+        import socket
+        a, b = socket.socketpair()
+        try:
+            ep = select.epoll()
+            try:
+                self.assertFalse(ep.closed)
+                self.assertGreaterEqual(ep.fileno(), 0)
+                ep.register(a.fileno(), select.EPOLLIN)
+                self.assertRaises(FileExistsError, ep.register, a.fileno(), select.EPOLLIN)
+                self.assertEqual(ep.poll(0), [])
+                b.send(b'x')
+                self.assertEqual(ep.poll(1), [(a.fileno(), select.EPOLLIN)])
+                # registration persists across polls while the data is unread
+                self.assertEqual(ep.poll(1), [(a.fileno(), select.EPOLLIN)])
+                a.recv(1)
+                self.assertEqual(ep.poll(0), [])
+                ep.unregister(a.fileno())
+                self.assertRaises(FileNotFoundError, ep.unregister, a.fileno())
+            finally:
+                ep.close()
+            self.assertTrue(ep.closed)
+            self.assertRaises(ValueError, ep.poll, 0)
+        finally:
+            a.close()
+            b.close()
+
+    def test_epoll_poll_more_ready_than_registered(self):
+        import socket
+        pairs = [socket.socketpair() for _ in range(3)]
+        try:
+            with select.epoll() as ep:
+                for a, b in pairs:
+                    ep.register(a.fileno(), select.EPOLLIN)
+                    b.send(b'x')
+                ep.unregister(pairs[0][0].fileno())
+                ep.register(pairs[0][0].fileno(), select.EPOLLIN)
+                self.assertEqual(sorted(fd for fd, _ in ep.poll(1)), sorted(a.fileno() for a, _ in pairs))
+                self.assertEqual(len(ep.poll(1, 2)), 2)
+        finally:
+            for a, b in pairs:
+                a.close()
+                b.close()
+
+    @unittest.skipUnless(__graalpython__.posix_module_backend() == 'java', 'tests the emulated epoll')
+    def test_asyncio_loop_uses_emulated_epoll(self):
+        import asyncio
+        import selectors
+        import socket
+        self.assertIs(selectors.DefaultSelector, selectors.EpollSelector)
+
+        async def exchange(loop, a, b):
+            await loop.sock_sendall(a, b'ping')
+            data = await loop.sock_recv(b, 4)
+            b.close()
+            # the hang-up of the peer is reported as readable end of file
+            eof = await loop.sock_recv(a, 4)
+            return data, eof
+
+        loop = asyncio.new_event_loop()
+        a, b = socket.socketpair()
+        try:
+            a.setblocking(False)
+            b.setblocking(False)
+            self.assertIsInstance(loop._selector, selectors.EpollSelector)
+            result = loop.run_until_complete(asyncio.wait_for(exchange(loop, a, b), 10))
+            self.assertEqual(result, (b'ping', b''))
+        finally:
+            a.close()
+            b.close()
+            loop.close()
+
+    def test_epoll_context_manager(self):
+        with select.epoll() as ep:
+            self.assertFalse(ep.closed)
+        self.assertTrue(ep.closed)
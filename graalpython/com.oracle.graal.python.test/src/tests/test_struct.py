@@ -136,6 +136,10 @@ def test_pack_unpack():
             assert struct.calcsize(_fmt) == 260
             assert struct.pack(_fmt, b'hello-graal-python-'*20) == res
 
+    # the length byte of a Pascal string is capped at 255, but all bytes that fit are packed
+    assert struct.pack('300p', b'x' * 400) == b'\xff' + b'x' * 299
+    assert struct.pack('5p', b'xy') == b'\x02xy\x00\x00'
+
     # floats
     cases = [
         ('f', 1.12123123, 1.121231198310852),
@@ -269,3 +273,65 @@ def test_pack_varargs():
     except TypeError:
         raised = True
     assert raised
+
+
+def test_struct_attributes():
+    s = struct.Struct('<3hQ')
+    assert s.format == '<3hQ'
+    assert s.size == 14
+    assert struct.Struct(b'>i').format == '>i'
+    assert_raises(TypeError, struct.Struct, 42)
+    assert_raises(struct.error, struct.calcsize, 'y')
+    assert_raises(struct.error, struct.calcsize, '12')
+
+
+def test_format_whitespace():
+    # only the ASCII whitespace of Py_ISSPACE separates format codes
+    assert struct.calcsize(' i\t\n\x0b\x0c\ri ') == 2 * struct.calcsize('i')
+    assert_raises(struct.error, struct.calcsize, 'i\x1ci')
+    assert_raises(struct.error, struct.calcsize, 'i\x1fi')
+
+
+def test_native_alignment():
+    assert struct.calcsize('@bi') == 2 * struct.calcsize('i')
+    assert struct.calcsize('=bi') == 1 + struct.calcsize('=i')
+    assert struct.pack('@bq', 1, 2) == struct.pack('@b7xq', 1, 2)
+
+
+def test_large_repeat_count():
+    s = struct.Struct('<100000B')
+    data = bytes(range(256)) * 390 + bytes(160)
+    values = s.unpack(data)
+    assert len(values) == 100000
+    assert s.pack(*values) == data
+
+
+def test_range_errors():
+    for fmt, bad in [('b', 128), ('b', -129), ('B', 256), ('B', -1), ('<h', 1 << 15), ('<H', -1),
+                     ('<i', 1 << 31), ('<I', 1 << 32), ('<q', 1 << 63), ('<Q', -1), ('<Q', 1 << 64)]:
+        assert_raises(struct.error, struct.pack, fmt, bad)
+    assert_raises(struct.error, struct.pack, 'i', 1.5)
+    assert_raises(struct.error, struct.pack, 'd', 'x')
+    assert_raises(struct.error, struct.pack, 'c', b'ab')
+    assert_raises(struct.error, struct.pack, 's', 'str')
+    assert_raises(struct.error, struct.pack, 'ii', 1)
+    assert_raises(OverflowError, struct.pack, '<f', 1e300)
+
+
+def test_pack_into_negative_offset():
+    buf = bytearray(8)
+    struct.pack_into('<H', buf, -2, 0x0102)
+    assert buf == bytearray(b'\0' * 6 + b'\x02\x01')
+    assert_raises(struct.error, struct.pack_into, '<H', buf, -1, 1)
+    assert_raises(struct.error, struct.pack_into, '<H', buf, -9, 1)
+    assert struct.unpack_from('<H', buf, -2) == (0x0102,)
+    assert struct.unpack_from('<H', memoryview(buf), 6) == (0x0102,)
+
+
+def test_clearcache():
+    assert struct.pack('<i', 1) == b'\x01\0\0\0'
+    struct._clearcache()
+    assert struct.pack('<i', 1) == b'\x01\0\0\0'
+    # more distinct formats than fit into the cache
+    for i in range(300):
+        assert struct.calcsize('%dx' % i) == i
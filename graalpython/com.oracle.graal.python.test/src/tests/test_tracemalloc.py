@@ -0,0 +1,98 @@
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+
+import gc
+import tracemalloc
+import unittest
+
+
+def allocate_lists(n):
+    return [[i] * 100 for i in range(n)]
+
+
+class TracemallocTest(unittest.TestCase):
+
+    def setUp(self):
+        tracemalloc.start(5)
+
+    def tearDown(self):
+        tracemalloc.stop()
+
+    def test_start_stop(self):
+        self.assertTrue(tracemalloc.is_tracing())
+        self.assertEqual(5, tracemalloc.get_traceback_limit())
+        tracemalloc.stop()
+        self.assertFalse(tracemalloc.is_tracing())
+        self.assertEqual((0, 0), tracemalloc.get_traced_memory())
+        self.assertRaises(ValueError, tracemalloc.start, 0)
+        self.assertRaises(ValueError, tracemalloc.start, 65536)
+
+    def test_object_traceback(self):
+        obj = bytes(1000)
+        tb = tracemalloc.get_object_traceback(obj)
+        self.assertIsNotNone(tb)
+        frame = tb[-1]
+        self.assertEqual(__file__, frame.filename)
+        self.assertEqual(self.test_object_traceback.__code__.co_firstlineno + 1, frame.lineno)
+
+    def test_snapshot_diff(self):
+        before = tracemalloc.take_snapshot()
+        data = allocate_lists(100)
+        after = tracemalloc.take_snapshot()
+        stats = after.compare_to(before, 'filename')
+        this_file = [s for s in stats if s.traceback[0].filename == __file__]
+        self.assertTrue(this_file)
+        self.assertGreaterEqual(this_file[0].count_diff, 100)
+        self.assertGreater(this_file[0].size_diff, 0)
+        del data
+
+    def test_traced_memory(self):
+        tracemalloc.reset_peak()
+        data = allocate_lists(100)
+        current, peak = tracemalloc.get_traced_memory()
+        self.assertGreater(current, 0)
+        self.assertGreaterEqual(peak, current)
+        del data
+        gc.collect()
+        tracemalloc.clear_traces()
+        self.assertEqual((0, 0), tracemalloc.get_traced_memory())
+
+
+if __name__ == '__main__':
+    unittest.main()
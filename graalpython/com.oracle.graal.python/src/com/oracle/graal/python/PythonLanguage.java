@@ -59,6 +59,7 @@ import com.oracle.graal.python.builtins.objects.frame.PFrame;
 import com.oracle.graal.python.builtins.objects.function.BuiltinMethodDescriptor;
 import com.oracle.graal.python.builtins.objects.function.PArguments;
 import com.oracle.graal.python.builtins.objects.object.PythonObject;
+import com.oracle.graal.python.builtins.objects.struct.StructFormat;
 import com.oracle.graal.python.builtins.objects.type.MroShape;
 import com.oracle.graal.python.builtins.objects.type.PythonAbstractClass;
 import com.oracle.graal.python.builtins.objects.type.PythonManagedClass;
@@ -228,6 +229,11 @@ public final class PythonLanguage extends TruffleLanguage<PythonContext> {
      */
     public final Assumption noTracingOrProfilingAssumption = Assumption.create("No tracing function was set");
 
+    /**
+     * This assumption will be valid if no context started tracemalloc at any point.
+     */
+    public final Assumption noTracemallocAssumption = Assumption.create("No context started tracemalloc");
+
     @CompilationFinal private boolean singleContext = true;
 
     @Idempotent
@@ -276,6 +282,11 @@ public final class PythonLanguage extends TruffleLanguage<PythonContext> {
      */
     public final ConcurrentHashMap<TruffleString, Semaphore> namedSemaphores = new ConcurrentHashMap<>();
 
+    /**
+     * Compiled {@code struct} formats. They do not refer to any context, so they can be shared.
+     */
+    public final ConcurrentHashMap<String, StructFormat> structFormatCache = new ConcurrentHashMap<>();
+
     @CompilationFinal(dimensions = 1) private volatile Object[] engineOptionsStorage;
     @CompilationFinal private volatile OptionValues engineOptions;
 
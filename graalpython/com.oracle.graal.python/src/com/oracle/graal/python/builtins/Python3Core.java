@@ -63,6 +63,7 @@ import com.oracle.graal.python.builtins.modules.ArrayModuleBuiltins;
 import com.oracle.graal.python.builtins.modules.AsyncioModuleBuiltins;
 import com.oracle.graal.python.builtins.modules.AtexitModuleBuiltins;
 import com.oracle.graal.python.builtins.modules.BinasciiModuleBuiltins;
+import com.oracle.graal.python.builtins.modules.BisectModuleBuiltins;
 import com.oracle.graal.python.builtins.modules.BuiltinConstructors;
 import com.oracle.graal.python.builtins.modules.BuiltinFunctions;
 import com.oracle.graal.python.builtins.modules.CmathModuleBuiltins;
@@ -79,6 +80,7 @@ import com.oracle.graal.python.builtins.modules.GcModuleBuiltins;
 import com.oracle.graal.python.builtins.modules.GraalHPyDebugModuleBuiltins;
 import com.oracle.graal.python.builtins.modules.GraalHPyUniversalModuleBuiltins;
 import com.oracle.graal.python.builtins.modules.GraalPythonModuleBuiltins;
+import com.oracle.graal.python.builtins.modules.HeapqModuleBuiltins;
 import com.oracle.graal.python.builtins.modules.ImpModuleBuiltins;
 import com.oracle.graal.python.builtins.modules.ItertoolsModuleBuiltins;
 import com.oracle.graal.python.builtins.modules.JArrayModuleBuiltins;
@@ -106,6 +108,7 @@ import com.oracle.graal.python.builtins.modules.SelectModuleBuiltins;
 import com.oracle.graal.python.builtins.modules.SignalModuleBuiltins;
 import com.oracle.graal.python.builtins.modules.SocketModuleBuiltins;
 import com.oracle.graal.python.builtins.modules.StringModuleBuiltins;
+import com.oracle.graal.python.builtins.modules.StructModuleBuiltins;
 import com.oracle.graal.python.builtins.modules.SysModuleBuiltins;
 import com.oracle.graal.python.builtins.modules.TermiosModuleBuiltins;
 import com.oracle.graal.python.builtins.modules.ThreadModuleBuiltins;
@@ -189,9 +192,16 @@ import com.oracle.graal.python.builtins.modules.io.TextIOWrapperBuiltins;
 import com.oracle.graal.python.builtins.modules.json.JSONEncoderBuiltins;
 import com.oracle.graal.python.builtins.modules.json.JSONModuleBuiltins;
 import com.oracle.graal.python.builtins.modules.json.JSONScannerBuiltins;
+import com.oracle.graal.python.builtins.modules.json.JSONStreamDecoderBuiltins;
 import com.oracle.graal.python.builtins.modules.lzma.LZMACompressorBuiltins;
 import com.oracle.graal.python.builtins.modules.lzma.LZMADecompressorBuiltins;
 import com.oracle.graal.python.builtins.modules.lzma.LZMAModuleBuiltins;
+import com.oracle.graal.python.builtins.modules.pickle.PickleBufferBuiltins;
+import com.oracle.graal.python.builtins.modules.pickle.PickleModuleBuiltins;
+import com.oracle.graal.python.builtins.modules.pickle.PicklerBuiltins;
+import com.oracle.graal.python.builtins.modules.pickle.PicklerMemoProxyBuiltins;
+import com.oracle.graal.python.builtins.modules.pickle.UnpicklerBuiltins;
+import com.oracle.graal.python.builtins.modules.pickle.UnpicklerMemoProxyBuiltins;
 import com.oracle.graal.python.builtins.modules.zlib.ZLibModuleBuiltins;
 import com.oracle.graal.python.builtins.modules.zlib.ZlibCompressBuiltins;
 import com.oracle.graal.python.builtins.modules.zlib.ZlibDecompressBuiltins;
@@ -199,6 +209,9 @@ import com.oracle.graal.python.builtins.objects.NotImplementedBuiltins;
 import com.oracle.graal.python.builtins.objects.PNone;
 import com.oracle.graal.python.builtins.objects.array.ArrayBuiltins;
 import com.oracle.graal.python.builtins.objects.asyncio.CoroutineWrapperBuiltins;
+import com.oracle.graal.python.builtins.objects.asyncio.FutureBuiltins;
+import com.oracle.graal.python.builtins.objects.asyncio.FutureIterBuiltins;
+import com.oracle.graal.python.builtins.objects.asyncio.TaskBuiltins;
 import com.oracle.graal.python.builtins.objects.bool.BoolBuiltins;
 import com.oracle.graal.python.builtins.objects.bytes.ByteArrayBuiltins;
 import com.oracle.graal.python.builtins.objects.bytes.BytesBuiltins;
@@ -216,6 +229,7 @@ import com.oracle.graal.python.builtins.objects.dict.DictBuiltins;
 import com.oracle.graal.python.builtins.objects.dict.DictReprBuiltin;
 import com.oracle.graal.python.builtins.objects.dict.DictValuesBuiltins;
 import com.oracle.graal.python.builtins.objects.dict.DictViewBuiltins;
+import com.oracle.graal.python.builtins.objects.dict.OrderedDictBuiltins;
 import com.oracle.graal.python.builtins.objects.dict.PDict;
 import com.oracle.graal.python.builtins.objects.ellipsis.EllipsisBuiltins;
 import com.oracle.graal.python.builtins.objects.enumerate.EnumerateBuiltins;
@@ -241,6 +255,7 @@ import com.oracle.graal.python.builtins.objects.function.MethodDescriptorBuiltin
 import com.oracle.graal.python.builtins.objects.function.PArguments;
 import com.oracle.graal.python.builtins.objects.function.PFunction;
 import com.oracle.graal.python.builtins.objects.function.WrapperDescriptorBuiltins;
+import com.oracle.graal.python.builtins.objects.functools.LruCacheWrapperBuiltins;
 import com.oracle.graal.python.builtins.objects.generator.CommonGeneratorBuiltins;
 import com.oracle.graal.python.builtins.objects.generator.CoroutineBuiltins;
 import com.oracle.graal.python.builtins.objects.generator.GeneratorBuiltins;
@@ -304,6 +319,7 @@ import com.oracle.graal.python.builtins.objects.random.RandomBuiltins;
 import com.oracle.graal.python.builtins.objects.range.RangeBuiltins;
 import com.oracle.graal.python.builtins.objects.referencetype.ReferenceTypeBuiltins;
 import com.oracle.graal.python.builtins.objects.reversed.ReversedBuiltins;
+import com.oracle.graal.python.builtins.objects.select.EpollBuiltins;
 import com.oracle.graal.python.builtins.objects.set.BaseSetBuiltins;
 import com.oracle.graal.python.builtins.objects.set.FrozenSetBuiltins;
 import com.oracle.graal.python.builtins.objects.set.SetBuiltins;
@@ -314,6 +330,8 @@ import com.oracle.graal.python.builtins.objects.ssl.SSLContextBuiltins;
 import com.oracle.graal.python.builtins.objects.ssl.SSLErrorBuiltins;
 import com.oracle.graal.python.builtins.objects.ssl.SSLSocketBuiltins;
 import com.oracle.graal.python.builtins.objects.str.StringBuiltins;
+import com.oracle.graal.python.builtins.objects.struct.StructBuiltins;
+import com.oracle.graal.python.builtins.objects.struct.StructUnpackIteratorBuiltins;
 import com.oracle.graal.python.builtins.objects.superobject.SuperBuiltins;
 import com.oracle.graal.python.builtins.objects.thread.LockBuiltins;
 import com.oracle.graal.python.builtins.objects.thread.RLockBuiltins;
@@ -381,8 +399,7 @@ public abstract class Python3Core {
                         toTruffleStringUncached("function"),
                         toTruffleStringUncached("_sysconfig"),
                         toTruffleStringUncached("java"),
-                        toTruffleStringUncached("pip_hook"),
-                        toTruffleStringUncached("_struct")));
+                        toTruffleStringUncached("pip_hook")));
         // add service loader defined python file extensions
         if (!ImageInfo.inImageRuntimeCode()) {
             ServiceLoader<PythonBuiltins> providers = ServiceLoader.load(PythonBuiltins.class, Python3Core.class.getClassLoader());
@@ -450,6 +467,7 @@ public abstract class Python3Core {
                         new ForeignObjectBuiltins(),
                         new KeyWrapperBuiltins(),
                         new PartialBuiltins(),
+                        new LruCacheWrapperBuiltins(),
                         new ListBuiltins(),
                         new DictBuiltins(),
                         new DictReprBuiltin(),
@@ -474,6 +492,9 @@ public abstract class Python3Core {
                         new GeneratorBuiltins(),
                         new CoroutineBuiltins(),
                         new CoroutineWrapperBuiltins(),
+                        new FutureBuiltins(),
+                        new TaskBuiltins(),
+                        new FutureIterBuiltins(),
                         new CommonGeneratorBuiltins(),
                         new AbstractFunctionBuiltins(),
                         new FunctionBuiltins(),
@@ -574,8 +595,12 @@ public abstract class Python3Core {
                         new CodecsTruffleModuleBuiltins(),
                         new DequeBuiltins(),
                         new DequeIterBuiltins(),
+                        new StructModuleBuiltins(),
+                        new StructBuiltins(),
+                        new StructUnpackIteratorBuiltins(),
                         new CollectionsModuleBuiltins(),
                         new DefaultDictBuiltins(),
+                        new OrderedDictBuiltins(),
                         new TupleGetterBuiltins(),
                         new JavaModuleBuiltins(),
                         new JArrayModuleBuiltins(),
@@ -584,6 +609,7 @@ public abstract class Python3Core {
                         new SREModuleBuiltins(),
                         new AstModuleBuiltins(),
                         PythonOptions.WITHOUT_NATIVE_POSIX && PythonOptions.WITHOUT_JAVA_INET ? null : new SelectModuleBuiltins(),
+                        PythonOptions.WITHOUT_NATIVE_POSIX && PythonOptions.WITHOUT_JAVA_INET ? null : new EpollBuiltins(),
                         PythonOptions.WITHOUT_NATIVE_POSIX && PythonOptions.WITHOUT_JAVA_INET ? null : new SocketModuleBuiltins(),
                         PythonOptions.WITHOUT_NATIVE_POSIX && PythonOptions.WITHOUT_JAVA_INET ? null : new SocketBuiltins(),
                         PythonOptions.WITHOUT_PLATFORM_ACCESS ? null : new SignalModuleBuiltins(),
@@ -606,6 +632,9 @@ public abstract class Python3Core {
                         PythonOptions.WITHOUT_PLATFORM_ACCESS ? null : new PosixSubprocessModuleBuiltins(),
                         new ReadlineModuleBuiltins(),
                         new OperatorModuleBuiltins(),
+                        new HeapqModuleBuiltins(),
+                        new BisectModuleBuiltins(),
+                        new PickleModuleBuiltins(),
 
                         // hashlib
                         PythonOptions.WITHOUT_DIGEST ? null : new Md5ModuleBuiltins(),
@@ -674,6 +703,7 @@ public abstract class Python3Core {
 
                         // json
                         new JSONScannerBuiltins(),
+                        new JSONStreamDecoderBuiltins(),
                         new JSONEncoderBuiltins(),
 
                         // csv
@@ -681,6 +711,13 @@ public abstract class Python3Core {
                         new CSVReaderBuiltins(),
                         new CSVWriterBuiltins(),
 
+                        // pickle
+                        new PicklerBuiltins(),
+                        new PicklerMemoProxyBuiltins(),
+                        new UnpicklerBuiltins(),
+                        new UnpicklerMemoProxyBuiltins(),
+                        new PickleBufferBuiltins(),
+
                         // _ast
                         new AstBuiltins(),
 
@@ -768,7 +805,7 @@ public abstract class Python3Core {
     public static class SysModuleState {
         private int recursionLimit = ImageInfo.inImageCode() ? NATIVE_REC_LIM : REC_LIM;
         private int checkInterval = 100;
-        private double switchInterval = 0.005;
+        private volatile double switchInterval = 0.005;
 
         public int getRecursionLimit() {
             return recursionLimit;
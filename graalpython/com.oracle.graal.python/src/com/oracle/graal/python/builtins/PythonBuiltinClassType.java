@@ -40,7 +40,9 @@ import static com.oracle.graal.python.nodes.BuiltinNames.J_DICT_REVERSE_VALUEITE
 import static com.oracle.graal.python.nodes.BuiltinNames.J_DICT_VALUEITERATOR;
 import static com.oracle.graal.python.nodes.BuiltinNames.J_DICT_VALUES;
 import static com.oracle.graal.python.nodes.BuiltinNames.J_FOREIGN;
+import static com.oracle.graal.python.nodes.BuiltinNames.J_LRU_CACHE_WRAPPER;
 import static com.oracle.graal.python.nodes.BuiltinNames.J_MEMBER_DESCRIPTOR;
+import static com.oracle.graal.python.nodes.BuiltinNames.J_ORDERED_DICT;
 import static com.oracle.graal.python.nodes.BuiltinNames.J_PARTIAL;
 import static com.oracle.graal.python.nodes.BuiltinNames.J_POSIX;
 import static com.oracle.graal.python.nodes.BuiltinNames.J_PROPERTY;
@@ -103,7 +105,9 @@ public enum PythonBuiltinClassType implements TruffleObject {
     PSimpleNamespace("SimpleNamespace", null, "types", Flags.PUBLIC_BASE_WDICT),
     PKeyWrapper("KeyWrapper", "_functools", "functools", Flags.PUBLIC_DERIVED_WODICT),
     PPartial(J_PARTIAL, "_functools", "functools", Flags.PUBLIC_BASE_WDICT),
+    PLruCacheWrapper(J_LRU_CACHE_WRAPPER, "_functools", "functools", Flags.PUBLIC_DERIVED_WDICT),
     PDefaultDict(J_DEFAULTDICT, "_collections", "collections", Flags.PUBLIC_BASE_WODICT),
+    POrderedDict(J_ORDERED_DICT, "_collections", "collections", Flags.PUBLIC_BASE_WDICT),
     PDeque(J_DEQUE, "_collections", Flags.PUBLIC_BASE_WODICT),
     PTupleGetter(J_TUPLE_GETTER, "_collections", Flags.PUBLIC_BASE_WODICT),
     PDequeIter(J_DEQUE_ITER, "_collections", Flags.PUBLIC_DERIVED_WODICT),
@@ -129,6 +133,9 @@ public enum PythonBuiltinClassType implements TruffleObject {
     PGenerator("generator", Flags.PRIVATE_DERIVED_WODICT),
     PCoroutine("coroutine", Flags.PRIVATE_DERIVED_WODICT),
     PCoroutineWrapper("coroutine_wrapper", Flags.PRIVATE_DERIVED_WODICT),
+    PFuture("Future", "_asyncio", Flags.PUBLIC_BASE_WDICT),
+    PTask("Task", "_asyncio", Flags.PUBLIC_BASE_WDICT),
+    PFutureIter("FutureIter", "_asyncio", Flags.PUBLIC_DERIVED_WODICT),
     PAsyncGenerator("async_generator", Flags.PRIVATE_DERIVED_WODICT),
     PInt("int", J_BUILTINS),
     PList("list", J_BUILTINS),
@@ -136,6 +143,7 @@ public enum PythonBuiltinClassType implements TruffleObject {
     PMemoryView("memoryview", J_BUILTINS, Flags.PUBLIC_DERIVED_WODICT),
     PMethod("method", Flags.PRIVATE_DERIVED_WODICT),
     PMMap("mmap", "mmap"),
+    PEpoll("epoll", "select"),
     PNone("NoneType", Flags.PRIVATE_DERIVED_WODICT),
     PNotImplemented("NotImplementedType", Flags.PRIVATE_DERIVED_WODICT),
     PProperty(J_PROPERTY, J_BUILTINS, Flags.PUBLIC_BASE_WODICT),
@@ -255,6 +263,7 @@ public enum PythonBuiltinClassType implements TruffleObject {
     // json
     JSONScanner("Scanner", "_json", Flags.PUBLIC_BASE_WODICT),
     JSONEncoder("Encoder", "_json", Flags.PUBLIC_BASE_WODICT),
+    JSONStreamDecoder("StreamDecoder", "_json", Flags.PUBLIC_BASE_WODICT),
 
     // csv
     CSVDialect("Dialect", "_csv", Flags.PUBLIC_BASE_WODICT),
@@ -430,6 +439,7 @@ public enum PythonBuiltinClassType implements TruffleObject {
         static final Flags PUBLIC_BASE_WDICT = new Flags(true, true, true);
         static final Flags PUBLIC_BASE_WODICT = new Flags(true, true, false);
         static final Flags PUBLIC_DERIVED_WODICT = new Flags(true, false, false);
+        static final Flags PUBLIC_DERIVED_WDICT = new Flags(true, false, true);
         static final Flags PRIVATE_DERIVED_WODICT = new Flags(false, false, false);
 
         final boolean isPublic;
@@ -728,6 +738,8 @@ public enum PythonBuiltinClassType implements TruffleObject {
         PThreadInfo.base = PTuple;
         PUnraisableHookArgs.base = PTuple;
         PDefaultDict.base = PDict;
+        POrderedDict.base = PDict;
+        PTask.base = PFuture;
 
         PArrayIterator.type = PythonClass;
         PSocket.type = PythonClass;
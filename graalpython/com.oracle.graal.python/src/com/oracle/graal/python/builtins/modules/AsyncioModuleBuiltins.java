@@ -54,11 +54,12 @@ import com.oracle.graal.python.builtins.Python3Core;
 import com.oracle.graal.python.builtins.PythonBuiltinClassType;
 import com.oracle.graal.python.builtins.PythonBuiltins;
 import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.asyncio.FutureNodes;
+import com.oracle.graal.python.builtins.objects.asyncio.PFuture;
+import com.oracle.graal.python.builtins.objects.asyncio.PTask;
 import com.oracle.graal.python.builtins.objects.dict.PDict;
+import com.oracle.graal.python.builtins.objects.function.PKeyword;
 import com.oracle.graal.python.builtins.objects.module.PythonModule;
-import com.oracle.graal.python.lib.PyDictDelItem;
-import com.oracle.graal.python.lib.PyDictGetItem;
-import com.oracle.graal.python.lib.PyDictSetItem;
 import com.oracle.graal.python.lib.PyObjectCallMethodObjArgs;
 import com.oracle.graal.python.lib.PyObjectGetAttr;
 import com.oracle.graal.python.nodes.ErrorMessages;
@@ -68,6 +69,7 @@ import com.oracle.graal.python.nodes.call.CallNode;
 import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
 import com.oracle.graal.python.nodes.function.PythonBuiltinNode;
 import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonVarargsBuiltinNode;
 import com.oracle.graal.python.nodes.statement.AbstractImportNode;
 import com.oracle.graal.python.runtime.object.PythonObjectSlowPathFactory;
 import com.oracle.graal.python.util.PythonUtils;
@@ -86,6 +88,26 @@ public class AsyncioModuleBuiltins extends PythonBuiltins {
         return AsyncioModuleBuiltinsFactory.getFactories();
     }
 
+    @Builtin(name = "Future", minNumOfPositionalArgs = 1, constructsClass = PythonBuiltinClassType.PFuture, takesVarArgs = true, takesVarKeywordArgs = true)
+    @GenerateNodeFactory
+    public abstract static class FutureNode extends PythonVarargsBuiltinNode {
+        @Specialization
+        @SuppressWarnings("unused")
+        PFuture doGeneric(Object cls, Object[] args, PKeyword[] kwargs) {
+            return factory().createFuture(cls);
+        }
+    }
+
+    @Builtin(name = "Task", minNumOfPositionalArgs = 1, constructsClass = PythonBuiltinClassType.PTask, takesVarArgs = true, takesVarKeywordArgs = true)
+    @GenerateNodeFactory
+    public abstract static class TaskNode extends PythonVarargsBuiltinNode {
+        @Specialization
+        @SuppressWarnings("unused")
+        PTask doGeneric(Object cls, Object[] args, PKeyword[] kwargs) {
+            return factory().createTask(cls);
+        }
+    }
+
     @Builtin(name = "get_running_loop")
     @GenerateNodeFactory
     public abstract static class GetRunningLoop extends PythonBuiltinNode {
@@ -170,16 +192,8 @@ public class AsyncioModuleBuiltins extends PythonBuiltins {
     public abstract static class EnterTask extends PythonBuiltinNode {
         @Specialization
         public Object enterTask(VirtualFrame frame, PythonModule self, Object loop, Object task,
-                        @Cached PyDictSetItem set,
-                        @Cached PyDictGetItem get,
-                        @Cached PRaiseNode raise) {
-            PDict dict = (PDict) self.getAttribute(CURRENT_TASKS_ATTR);
-            Object item = get.execute(frame, dict, loop);
-            if (item == null) {
-                set.execute(frame, dict, loop, task);
-            } else {
-                throw raise.raise(PythonBuiltinClassType.RuntimeError, ErrorMessages.CANT_ENTER_TASK_ALREADY_RUNNING, task, item);
-            }
+                        @Cached FutureNodes.EnterTaskNode enterTaskNode) {
+            enterTaskNode.execute(frame, (PDict) self.getAttribute(CURRENT_TASKS_ATTR), loop, task);
             return PNone.NONE;
         }
     }
@@ -189,18 +203,8 @@ public class AsyncioModuleBuiltins extends PythonBuiltins {
     public abstract static class LeaveTask extends PythonBuiltinNode {
         @Specialization
         public Object leaveTask(VirtualFrame frame, PythonModule self, Object loop, Object task,
-                        @Cached PyDictDelItem del,
-                        @Cached PyDictGetItem get,
-                        @Cached PRaiseNode raise) {
-            PDict dict = (PDict) self.getAttribute(CURRENT_TASKS_ATTR);
-            Object item = get.execute(frame, dict, loop);
-            if (item == null) {
-                item = PNone.NONE;
-            }
-            if (item != task) {
-                throw raise.raise(PythonBuiltinClassType.RuntimeError, ErrorMessages.TASK_NOT_ENTERED, task, item);
-            }
-            del.execute(frame, dict, loop);
+                        @Cached FutureNodes.LeaveTaskNode leaveTaskNode) {
+            leaveTaskNode.execute(frame, (PDict) self.getAttribute(CURRENT_TASKS_ATTR), loop, task);
             return PNone.NONE;
         }
     }
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules;
+
+import static com.oracle.graal.python.nodes.SpecialMethodNames.T_INSERT;
+import static com.oracle.graal.python.runtime.exception.PythonErrorType.ValueError;
+
+import java.util.List;
+
+import com.oracle.graal.python.annotations.ArgumentClinic;
+import com.oracle.graal.python.annotations.ArgumentClinic.ClinicConversion;
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.list.ListBuiltins;
+import com.oracle.graal.python.builtins.objects.list.PList;
+import com.oracle.graal.python.lib.PyConvertOptionalToSizeNode;
+import com.oracle.graal.python.lib.PyListCheckExactNode;
+import com.oracle.graal.python.lib.PyObjectCallMethodObjArgs;
+import com.oracle.graal.python.lib.PyObjectGetItem;
+import com.oracle.graal.python.lib.PyObjectRichCompareBool;
+import com.oracle.graal.python.lib.PyObjectSizeNode;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PGuards;
+import com.oracle.graal.python.nodes.PNodeWithContext;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.nodes.call.CallNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonClinicBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.clinic.ArgumentClinicProvider;
+import com.oracle.graal.python.runtime.sequence.storage.DoubleSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.IntSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.LongSequenceStorage;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Cached.Shared;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+
+/**
+ * Implementation of CPython's {@code _bisect} module. Searches over lists backed by int, long or
+ * double storage run directly on the primitive arrays when no key function is given.
+ */
+@CoreFunctions(defineModule = "_bisect")
+public class BisectModuleBuiltins extends PythonBuiltins {
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return BisectModuleBuiltinsFactory.getFactories();
+    }
+
+    @Builtin(name = "bisect_right", minNumOfPositionalArgs = 2, parameterNames = {"a", "x", "lo", "hi"}, keywordOnlyNames = {"key"})
+    @ArgumentClinic(name = "lo", conversion = ClinicConversion.Index, defaultValue = "0")
+    @ArgumentClinic(name = "hi", defaultValue = "PNone.NONE")
+    @ArgumentClinic(name = "key", defaultValue = "PNone.NONE")
+    @GenerateNodeFactory
+    abstract static class BisectRightNode extends PythonClinicBuiltinNode {
+        @Specialization
+        static int bisect(VirtualFrame frame, Object a, Object x, int lo, Object hi, Object key,
+                        @Cached BisectNode bisectNode) {
+            return bisectNode.execute(frame, a, x, lo, hi, key, true);
+        }
+
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return BisectModuleBuiltinsClinicProviders.BisectRightNodeClinicProviderGen.INSTANCE;
+        }
+    }
+
+    @Builtin(name = "bisect_left", minNumOfPositionalArgs = 2, parameterNames = {"a", "x", "lo", "hi"}, keywordOnlyNames = {"key"})
+    @ArgumentClinic(name = "lo", conversion = ClinicConversion.Index, defaultValue = "0")
+    @ArgumentClinic(name = "hi", defaultValue = "PNone.NONE")
+    @ArgumentClinic(name = "key", defaultValue = "PNone.NONE")
+    @GenerateNodeFactory
+    abstract static class BisectLeftNode extends PythonClinicBuiltinNode {
+        @Specialization
+        static int bisect(VirtualFrame frame, Object a, Object x, int lo, Object hi, Object key,
+                        @Cached BisectNode bisectNode) {
+            return bisectNode.execute(frame, a, x, lo, hi, key, false);
+        }
+
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return BisectModuleBuiltinsClinicProviders.BisectLeftNodeClinicProviderGen.INSTANCE;
+        }
+    }
+
+    @Builtin(name = "insort_right", minNumOfPositionalArgs = 2, parameterNames = {"a", "x", "lo", "hi"}, keywordOnlyNames = {"key"})
+    @ArgumentClinic(name = "lo", conversion = ClinicConversion.Index, defaultValue = "0")
+    @ArgumentClinic(name = "hi", defaultValue = "PNone.NONE")
+    @ArgumentClinic(name = "key", defaultValue = "PNone.NONE")
+    @GenerateNodeFactory
+    abstract static class InsortRightNode extends PythonClinicBuiltinNode {
+        @Specialization
+        static Object insort(VirtualFrame frame, Object a, Object x, int lo, Object hi, Object key,
+                        @Cached InsortNode insortNode) {
+            insortNode.execute(frame, a, x, lo, hi, key, true);
+            return PNone.NONE;
+        }
+
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return BisectModuleBuiltinsClinicProviders.InsortRightNodeClinicProviderGen.INSTANCE;
+        }
+    }
+
+    @Builtin(name = "insort_left", minNumOfPositionalArgs = 2, parameterNames = {"a", "x", "lo", "hi"}, keywordOnlyNames = {"key"})
+    @ArgumentClinic(name = "lo", conversion = ClinicConversion.Index, defaultValue = "0")
+    @ArgumentClinic(name = "hi", defaultValue = "PNone.NONE")
+    @ArgumentClinic(name = "key", defaultValue = "PNone.NONE")
+    @GenerateNodeFactory
+    abstract static class InsortLeftNode extends PythonClinicBuiltinNode {
+        @Specialization
+        static Object insort(VirtualFrame frame, Object a, Object x, int lo, Object hi, Object key,
+                        @Cached InsortNode insortNode) {
+            insortNode.execute(frame, a, x, lo, hi, key, false);
+            return PNone.NONE;
+        }
+
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return BisectModuleBuiltinsClinicProviders.InsortLeftNodeClinicProviderGen.INSTANCE;
+        }
+    }
+
+    abstract static class InsortNode extends PNodeWithContext {
+        abstract void execute(VirtualFrame frame, Object a, Object x, int lo, Object hi, Object key, boolean right);
+
+        @Specialization
+        static void insort(VirtualFrame frame, Object a, Object x, int lo, Object hi, Object key, boolean right,
+                        @Cached CallNode callKeyNode,
+                        @Cached BisectNode bisectNode,
+                        @Cached PyListCheckExactNode isListNode,
+                        @Cached ListBuiltins.ListInsertNode listInsertNode,
+                        @Cached PyObjectCallMethodObjArgs callInsertNode) {
+            Object keyX = PGuards.isNone(key) ? x : callKeyNode.execute(frame, key, x);
+            int index = bisectNode.execute(frame, a, keyX, lo, hi, key, right);
+            if (isListNode.execute(a)) {
+                listInsertNode.execute(frame, (PList) a, index, x);
+            } else {
+                callInsertNode.execute(frame, a, T_INSERT, index, x);
+            }
+        }
+    }
+
+    /**
+     * Validates {@code lo} and resolves the default {@code hi} before running the search.
+     */
+    abstract static class BisectNode extends PNodeWithContext {
+        abstract int execute(VirtualFrame frame, Object a, Object x, int lo, Object hi, Object key, boolean right);
+
+        @Specialization
+        static int bisect(VirtualFrame frame, Object a, Object x, int lo, Object hi, Object key, boolean right,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyConvertOptionalToSizeNode convertHiNode,
+                        @Cached PyObjectSizeNode sizeNode,
+                        @Cached BisectSearchNode searchNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            int hiValue = convertHiNode.execute(frame, hi, -1);
+            if (lo < 0) {
+                throw raiseNode.get(inliningTarget).raise(ValueError, ErrorMessages.MUST_BE_NON_NEGATIVE, "lo");
+            }
+            if (hiValue == -1) {
+                hiValue = sizeNode.execute(frame, a);
+            }
+            return searchNode.execute(frame, a, x, lo, hiValue, key, right);
+        }
+    }
+
+    /**
+     * Equivalent of CPython's {@code internal_bisect_right}/{@code internal_bisect_left}.
+     */
+    abstract static class BisectSearchNode extends PNodeWithContext {
+        abstract int execute(VirtualFrame frame, Object a, Object x, int lo, int hi, Object key, boolean right);
+
+        @Specialization(guards = {"checkExact.execute(a)", "isIntStorage(a)", "isNone(key)", "hi <= a.getSequenceStorage().length()"}, limit = "1")
+        static int doInt(PList a, int x, int lo, int hi, @SuppressWarnings("unused") PNone key, boolean right,
+                        @SuppressWarnings("unused") @Shared("checkExact") @Cached PyListCheckExactNode checkExact) {
+            int[] arr = ((IntSequenceStorage) a.getSequenceStorage()).getInternalIntArray();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (right ? x < arr[mid] : !(arr[mid] < x)) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            return lo;
+        }
+
+        @Specialization(guards = {"checkExact.execute(a)", "isLongStorage(a)", "isNone(key)", "hi <= a.getSequenceStorage().length()"}, limit = "1")
+        static int doLong(PList a, long x, int lo, int hi, @SuppressWarnings("unused") PNone key, boolean right,
+                        @SuppressWarnings("unused") @Shared("checkExact") @Cached PyListCheckExactNode checkExact) {
+            long[] arr = ((LongSequenceStorage) a.getSequenceStorage()).getInternalLongArray();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (right ? x < arr[mid] : !(arr[mid] < x)) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            return lo;
+        }
+
+        @Specialization(guards = {"checkExact.execute(a)", "isLongStorage(a)", "isNone(key)", "hi <= a.getSequenceStorage().length()"}, limit = "1")
+        static int doLongInt(PList a, int x, int lo, int hi, PNone key, boolean right,
+                        @Shared("checkExact") @Cached PyListCheckExactNode checkExact) {
+            return doLong(a, x, lo, hi, key, right, checkExact);
+        }
+
+        @Specialization(guards = {"checkExact.execute(a)", "isDoubleStorage(a)", "isNone(key)", "hi <= a.getSequenceStorage().length()"}, limit = "1")
+        static int doDouble(PList a, double x, int lo, int hi, @SuppressWarnings("unused") PNone key, boolean right,
+                        @SuppressWarnings("unused") @Shared("checkExact") @Cached PyListCheckExactNode checkExact) {
+            double[] arr = ((DoubleSequenceStorage) a.getSequenceStorage()).getInternalDoubleArray();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (right ? x < arr[mid] : !(arr[mid] < x)) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            return lo;
+        }
+
+        @Fallback
+        static int doGeneric(VirtualFrame frame, Object a, Object x, int lo, int hi, Object key, boolean right,
+                        @Cached PyObjectGetItem getItemNode,
+                        @Cached CallNode callKeyNode,
+                        @Cached PyObjectRichCompareBool.LtNode ltNode) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                Object item = getItemNode.execute(frame, a, mid);
+                if (!PGuards.isNone(key)) {
+                    item = callKeyNode.execute(frame, key, item);
+                }
+                if (right ? ltNode.execute(frame, x, item) : !ltNode.execute(frame, item, x)) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -144,7 +144,7 @@ import com.oracle.graal.python.builtins.objects.function.PBuiltinFunction;
 import com.oracle.graal.python.builtins.objects.function.PFunction;
 import com.oracle.graal.python.builtins.objects.function.PKeyword;
 import com.oracle.graal.python.builtins.objects.ints.PInt;
-import com.oracle.graal.python.builtins.objects.iterator.PBigRangeIterator;
+import com.oracle.graal.python.builtins.objects.iterator.PLongRangeIterator;
 import com.oracle.graal.python.builtins.objects.iterator.PZip;
 import com.oracle.graal.python.builtins.objects.list.PList;
 import com.oracle.graal.python.builtins.objects.map.PMap;
@@ -859,15 +859,11 @@ public final class BuiltinConstructors extends PythonBuiltins {
             }
         }
 
-        @TruffleBoundary
-        private PBigRangeIterator handleOverflow(int lstart, int lstep, int ulen) {
-            BigInteger bstart = BigInteger.valueOf(lstart);
-            BigInteger bstep = BigInteger.valueOf(lstep);
-            BigInteger blen = BigInteger.valueOf(ulen);
-            BigInteger new_stop = bstart.subtract(bstep);
-            BigInteger new_start = new_stop.add(blen.multiply(bstep));
+        private PLongRangeIterator handleOverflow(int lstart, int lstep, int ulen) {
+            long new_stop = (long) lstart - lstep;
+            long new_start = new_stop + (long) ulen * lstep;
 
-            return factory().createBigRangeIterator(new_start, new_stop, bstep.negate(), blen);
+            return factory().createLongRangeIterator(new_start, -(long) lstep, ulen);
         }
 
         @Specialization
@@ -879,8 +875,12 @@ public final class BuiltinConstructors extends PythonBuiltins {
 
             BigInteger new_stop = lstart.subtract(lstep);
             BigInteger new_start = new_stop.add(ulen.multiply(lstep));
+            BigInteger new_step = lstep.negate();
 
-            return factory().createBigRangeIterator(new_start, new_stop, lstep.negate(), ulen);
+            if (PLongRangeIterator.fitsInLong(new_start, new_step, ulen)) {
+                return factory().createLongRangeIterator(new_start.longValue(), new_step.longValue(), ulen.longValue());
+            }
+            return factory().createBigRangeIterator(new_start, new_stop, new_step, ulen);
         }
 
         @Specialization
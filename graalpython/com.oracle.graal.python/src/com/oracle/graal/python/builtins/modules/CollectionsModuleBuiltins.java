@@ -44,7 +44,11 @@ import static com.oracle.graal.python.nodes.BuiltinNames.J_DEFAULTDICT;
 import static com.oracle.graal.python.nodes.BuiltinNames.J_DEQUE;
 import static com.oracle.graal.python.nodes.BuiltinNames.J_DEQUE_ITER;
 import static com.oracle.graal.python.nodes.BuiltinNames.J_DEQUE_REV_ITER;
+import static com.oracle.graal.python.nodes.BuiltinNames.J_ORDERED_DICT;
 import static com.oracle.graal.python.nodes.BuiltinNames.J_TUPLE_GETTER;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.T_GET;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.T___SETITEM__;
+import static com.oracle.graal.python.util.PythonUtils.TS_ENCODING;
 
 import java.util.List;
 
@@ -54,27 +58,56 @@ import com.oracle.graal.python.builtins.CoreFunctions;
 import com.oracle.graal.python.builtins.PythonBuiltinClassType;
 import com.oracle.graal.python.builtins.PythonBuiltins;
 import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageGetItemWithHash;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIncrement;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageSetItemWithHash;
+import com.oracle.graal.python.builtins.objects.common.ObjectHashMap;
+import com.oracle.graal.python.builtins.objects.common.SequenceStorageNodes;
 import com.oracle.graal.python.builtins.objects.deque.DequeIterBuiltins.DequeIterNextNode;
 import com.oracle.graal.python.builtins.objects.deque.PDeque;
 import com.oracle.graal.python.builtins.objects.deque.PDequeIter;
 import com.oracle.graal.python.builtins.objects.dict.PDefaultDict;
+import com.oracle.graal.python.builtins.objects.dict.PDict;
+import com.oracle.graal.python.builtins.objects.dict.POrderedDict;
 import com.oracle.graal.python.builtins.objects.function.PKeyword;
+import com.oracle.graal.python.builtins.objects.list.PList;
+import com.oracle.graal.python.builtins.objects.tuple.PTuple;
+import com.oracle.graal.python.lib.PyIterNextNode;
+import com.oracle.graal.python.lib.PyListCheckExactNode;
 import com.oracle.graal.python.lib.PyNumberIndexNode;
+import com.oracle.graal.python.lib.PyObjectCallMethodObjArgs;
+import com.oracle.graal.python.lib.PyObjectGetIter;
+import com.oracle.graal.python.lib.PyObjectHashNode;
+import com.oracle.graal.python.lib.PyObjectSetItem;
+import com.oracle.graal.python.lib.PyTupleCheckExactNode;
 import com.oracle.graal.python.nodes.BuiltinNames;
 import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PNodeWithContext;
+import com.oracle.graal.python.nodes.attributes.LookupAttributeInMRONode;
+import com.oracle.graal.python.nodes.expression.BinaryArithmetic;
+import com.oracle.graal.python.nodes.expression.BinaryOpNode;
 import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
 import com.oracle.graal.python.nodes.function.builtins.PythonTernaryBuiltinNode;
 import com.oracle.graal.python.nodes.function.builtins.PythonTernaryClinicBuiltinNode;
 import com.oracle.graal.python.nodes.function.builtins.PythonVarargsBuiltinNode;
 import com.oracle.graal.python.nodes.function.builtins.clinic.ArgumentClinicProvider;
+import com.oracle.graal.python.nodes.object.InlinedGetClassNode;
 import com.oracle.graal.python.nodes.util.CastToJavaIntExactNode;
+import com.oracle.graal.python.runtime.sequence.storage.SequenceStorage;
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.Bind;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Cached.Shared;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NeverDefault;
 import com.oracle.truffle.api.dsl.NodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.profiles.InlinedConditionProfile;
+import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleStringIterator;
 
 @CoreFunctions(defineModule = "_collections")
 public class CollectionsModuleBuiltins extends PythonBuiltins {
@@ -189,6 +222,17 @@ public class CollectionsModuleBuiltins extends PythonBuiltins {
         }
     }
 
+    // _collections.OrderedDict
+    @Builtin(name = J_ORDERED_DICT, minNumOfPositionalArgs = 1, constructsClass = PythonBuiltinClassType.POrderedDict, takesVarArgs = true, takesVarKeywordArgs = true)
+    @GenerateNodeFactory
+    abstract static class OrderedDictNode extends PythonVarargsBuiltinNode {
+        @Specialization
+        @SuppressWarnings("unused")
+        POrderedDict doGeneric(Object cls, Object[] args, PKeyword[] kwargs) {
+            return factory().createOrderedDict(cls);
+        }
+    }
+
     // _collections._tuplegetter
     @Builtin(name = J_TUPLE_GETTER, parameterNames = {"cls", "index", "doc"}, constructsClass = PythonBuiltinClassType.PTupleGetter)
     @ArgumentClinic(name = "index", conversion = ArgumentClinic.ClinicConversion.Index)
@@ -204,4 +248,139 @@ public class CollectionsModuleBuiltins extends PythonBuiltins {
             return factory().createTupleGetter(cls, index, doc);
         }
     }
+
+    // _collections._count_elements(mapping, iterable)
+    @Builtin(name = "_count_elements", minNumOfPositionalArgs = 2, parameterNames = {"mapping", "iterable"})
+    @GenerateNodeFactory
+    abstract static class CountElementsNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object count(VirtualFrame frame, Object mapping, Object iterable,
+                        @Bind("this") Node inliningTarget,
+                        @Cached InlinedConditionProfile dictProfile,
+                        @Cached InlinedGetClassNode getClassNode,
+                        @Cached("create(T_GET)") LookupAttributeInMRONode lookupGet,
+                        @Cached("create(T___SETITEM__)") LookupAttributeInMRONode lookupSetItem,
+                        @Cached CountDictElementsNode countDictElementsNode,
+                        @Cached PyObjectGetIter getIter,
+                        @Cached PyIterNextNode nextNode,
+                        @Cached PyObjectCallMethodObjArgs callGet,
+                        @Cached("createAdd()") BinaryOpNode addNode,
+                        @Cached PyObjectSetItem setItem) {
+            if (dictProfile.profile(inliningTarget, mapping instanceof PDict && hasDictMethods(getClassNode.execute(inliningTarget, mapping), lookupGet, lookupSetItem))) {
+                countDictElementsNode.execute(frame, (PDict) mapping, iterable);
+            } else {
+                Object iterator = getIter.execute(frame, iterable);
+                Object elem;
+                while ((elem = nextNode.execute(frame, iterator)) != null) {
+                    Object oldValue = callGet.execute(frame, mapping, T_GET, elem, 0);
+                    setItem.execute(frame, mapping, elem, addNode.executeObject(frame, oldValue, 1));
+                }
+            }
+            return PNone.NONE;
+        }
+
+        /**
+         * Like CPython, the fast path is only taken if neither {@code get} nor {@code __setitem__}
+         * is overridden, which is the case for {@code collections.Counter}.
+         */
+        private static boolean hasDictMethods(Object klass, LookupAttributeInMRONode lookupGet, LookupAttributeInMRONode lookupSetItem) {
+            return lookupGet.execute(klass) == lookupGet.execute(PythonBuiltinClassType.PDict) && lookupSetItem.execute(klass) == lookupSetItem.execute(PythonBuiltinClassType.PDict);
+        }
+
+        @NeverDefault
+        static BinaryOpNode createAdd() {
+            return BinaryArithmetic.Add.create();
+        }
+    }
+
+    /**
+     * Counts the elements of an iterable into a dict. The hash of each element is computed once,
+     * and an element that is already present with an int count is incremented in place with a
+     * single lookup. Builtin lists and tuples are indexed directly, so that their elements are not
+     * boxed into an iterator, and strings are counted by code point.
+     */
+    abstract static class CountDictElementsNode extends PNodeWithContext {
+        abstract void execute(VirtualFrame frame, PDict dict, Object iterable);
+
+        @Specialization(guards = "checkExact.execute(iterable)", limit = "1")
+        static void doList(VirtualFrame frame, PDict dict, PList iterable,
+                        @SuppressWarnings("unused") @Cached PyListCheckExactNode checkExact,
+                        @Shared("getItem") @Cached SequenceStorageNodes.GetItemScalarNode getItemNode,
+                        @Shared("countOne") @Cached CountOneNode countOneNode) {
+            // the storage is read again for each element, since counting may call arbitrary code
+            for (int i = 0; i < iterable.getSequenceStorage().length(); i++) {
+                countOneNode.execute(frame, dict, getItemNode.execute(iterable.getSequenceStorage(), i));
+            }
+        }
+
+        @Specialization(guards = "checkExact.execute(iterable)", limit = "1")
+        static void doTuple(VirtualFrame frame, PDict dict, PTuple iterable,
+                        @SuppressWarnings("unused") @Cached PyTupleCheckExactNode checkExact,
+                        @Shared("getItem") @Cached SequenceStorageNodes.GetItemScalarNode getItemNode,
+                        @Shared("countOne") @Cached CountOneNode countOneNode) {
+            SequenceStorage storage = iterable.getSequenceStorage();
+            for (int i = 0; i < storage.length(); i++) {
+                countOneNode.execute(frame, dict, getItemNode.execute(storage, i));
+            }
+        }
+
+        @Specialization
+        static void doString(VirtualFrame frame, PDict dict, TruffleString iterable,
+                        @Cached TruffleString.CreateCodePointIteratorNode createCodePointIteratorNode,
+                        @Cached TruffleStringIterator.NextNode nextCodePointNode,
+                        @Cached TruffleString.FromCodePointNode fromCodePointNode,
+                        @Shared("countOne") @Cached CountOneNode countOneNode) {
+            TruffleStringIterator it = createCodePointIteratorNode.execute(iterable, TS_ENCODING);
+            while (it.hasNext()) {
+                countOneNode.execute(frame, dict, fromCodePointNode.execute(nextCodePointNode.execute(it), TS_ENCODING, true));
+            }
+        }
+
+        @Specialization
+        static void doGeneric(VirtualFrame frame, PDict dict, Object iterable,
+                        @Cached PyObjectGetIter getIter,
+                        @Cached PyIterNextNode nextNode,
+                        @Shared("countOne") @Cached CountOneNode countOneNode) {
+            Object iterator = getIter.execute(frame, iterable);
+            Object elem;
+            while ((elem = nextNode.execute(frame, iterator)) != null) {
+                countOneNode.execute(frame, dict, elem);
+            }
+        }
+    }
+
+    abstract static class CountOneNode extends PNodeWithContext {
+        abstract void execute(VirtualFrame frame, PDict dict, Object elem);
+
+        @Specialization
+        static void doIt(VirtualFrame frame, PDict dict, Object elem,
+                        @Bind("this") Node inliningTarget,
+                        @Cached InlinedConditionProfile incrementedProfile,
+                        @Cached InlinedConditionProfile absentProfile,
+                        @Cached PyObjectHashNode hashNode,
+                        @Cached HashingStorageIncrement incrementNode,
+                        @Cached HashingStorageGetItemWithHash getItemNode,
+                        @Cached HashingStorageSetItemWithHash setItemNode,
+                        @Cached("createAdd()") BinaryOpNode addNode) {
+            long hash = hashNode.execute(frame, elem);
+            int result = incrementNode.execute(frame, dict.getDictStorage(), elem, hash);
+            if (incrementedProfile.profile(inliningTarget, result == ObjectHashMap.IncrementNode.INCREMENTED)) {
+                return;
+            }
+            Object newValue;
+            if (absentProfile.profile(inliningTarget, result == ObjectHashMap.IncrementNode.ABSENT)) {
+                newValue = 1;
+            } else {
+                Object oldValue = getItemNode.execute(frame, dict.getDictStorage(), elem, hash);
+                newValue = oldValue == null ? 1 : addNode.executeObject(frame, oldValue, 1);
+            }
+            // the addition may have run arbitrary code, so the storage is read again
+            dict.setDictStorage(setItemNode.execute(frame, dict.getDictStorage(), elem, hash, newValue));
+        }
+
+        @NeverDefault
+        static BinaryOpNode createAdd() {
+            return BinaryArithmetic.Add.create();
+        }
+    }
 }
@@ -41,7 +41,9 @@
 package com.oracle.graal.python.builtins.modules;
 
 import static com.oracle.graal.python.builtins.objects.partial.PartialBuiltins.getNewPartialArgs;
+import static com.oracle.graal.python.nodes.BuiltinNames.J_LRU_CACHE_WRAPPER;
 import static com.oracle.graal.python.nodes.BuiltinNames.J_PARTIAL;
+import static com.oracle.graal.python.nodes.ErrorMessages.MAXSIZE_SHOULD_BE_INTEGER_OR_NONE;
 import static com.oracle.graal.python.nodes.ErrorMessages.REDUCE_EMPTY_SEQ;
 import static com.oracle.graal.python.nodes.ErrorMessages.S_ARG_MUST_BE_CALLABLE;
 import static com.oracle.graal.python.nodes.ErrorMessages.S_ARG_N_MUST_SUPPORT_ITERATION;
@@ -64,7 +66,10 @@ import com.oracle.graal.python.builtins.objects.function.PKeyword;
 import com.oracle.graal.python.builtins.objects.partial.PPartial;
 import com.oracle.graal.python.lib.GetNextNode;
 import com.oracle.graal.python.lib.PyCallableCheckNode;
+import com.oracle.graal.python.lib.PyIndexCheckNode;
+import com.oracle.graal.python.lib.PyNumberAsSizeNode;
 import com.oracle.graal.python.lib.PyObjectGetIter;
+import com.oracle.graal.python.lib.PyObjectIsTrueNode;
 import com.oracle.graal.python.nodes.PGuards;
 import com.oracle.graal.python.nodes.call.CallNode;
 import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
@@ -164,6 +169,46 @@ public class FunctoolsModuleBuiltins extends PythonBuiltins {
         }
     }
 
+    // functools._lru_cache_wrapper(user_function, maxsize, typed, cache_info_type)
+    @Builtin(name = J_LRU_CACHE_WRAPPER, minNumOfPositionalArgs = 5, constructsClass = PythonBuiltinClassType.PLruCacheWrapper, parameterNames = {"$cls", "user_function", "maxsize", "typed",
+                    "cache_info_type"}, doc = "Create a cached callable that wraps another function.\n" +
+                                    "\n" +
+                                    "user_function:      the function being cached\n" +
+                                    "\n" +
+                                    "maxsize:  0         for no caching\n" +
+                                    "          None      for unlimited cache size\n" +
+                                    "          n         for a bounded cache\n" +
+                                    "\n" +
+                                    "typed:    False     cache f(3) and f(3.0) as identical calls\n" +
+                                    "          True      cache f(3) and f(3.0) as distinct calls\n" +
+                                    "\n" +
+                                    "cache_info_type:    namedtuple class with the fields:\n" +
+                                    "                        hits misses currsize maxsize\n")
+    @GenerateNodeFactory
+    public abstract static class LruCacheWrapperNode extends PythonBuiltinNode {
+        @Specialization
+        Object doCreate(VirtualFrame frame, Object cls, Object userFunction, Object maxsizeObj, Object typed, Object cacheInfoType,
+                        @Cached PyCallableCheckNode callableCheckNode,
+                        @Cached PyIndexCheckNode indexCheckNode,
+                        @Cached PyNumberAsSizeNode asSizeNode,
+                        @Cached PyObjectIsTrueNode isTrueNode) {
+            if (!callableCheckNode.execute(userFunction)) {
+                throw raise(PythonBuiltinClassType.TypeError, S_ARG_MUST_BE_CALLABLE, "the first");
+            }
+            int maxsize;
+            if (maxsizeObj == PNone.NONE) {
+                maxsize = -1;
+            } else if (indexCheckNode.execute(maxsizeObj)) {
+                // negative maxsize is treated as 0
+                maxsize = Math.max(0, asSizeNode.executeLossy(frame, maxsizeObj));
+            } else {
+                throw raise(PythonBuiltinClassType.TypeError, MAXSIZE_SHOULD_BE_INTEGER_OR_NONE);
+            }
+            Object kwdMark = factory().createPythonObject(PythonBuiltinClassType.PythonObject);
+            return factory().createLruCacheWrapper(cls, userFunction, maxsize, isTrueNode.execute(frame, typed), cacheInfoType, kwdMark);
+        }
+    }
+
     // functools.partial(func, /, *args, **keywords)
     @Builtin(name = J_PARTIAL, minNumOfPositionalArgs = 1, varArgsMarker = true, takesVarArgs = true, takesVarKeywordArgs = true, constructsClass = PythonBuiltinClassType.PPartial, doc = "partial(func, *args, **keywords) - new function with partial application\n" +
                     "of the given arguments and keywords.\n")
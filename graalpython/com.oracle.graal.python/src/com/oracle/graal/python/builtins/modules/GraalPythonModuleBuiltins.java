@@ -105,6 +105,7 @@ import com.oracle.graal.python.builtins.objects.type.PythonClass;
 import com.oracle.graal.python.builtins.objects.type.TypeNodes.CreateTypeNode;
 import com.oracle.graal.python.lib.PyObjectCallMethodObjArgs;
 import com.oracle.graal.python.lib.PyObjectGetItem;
+import com.oracle.graal.python.lib.PyObjectIsTrueNode;
 import com.oracle.graal.python.lib.PyObjectTypeCheck;
 import com.oracle.graal.python.nodes.ErrorMessages;
 import com.oracle.graal.python.nodes.builtins.FunctionNodes.GetCallTargetNode;
@@ -122,12 +123,14 @@ import com.oracle.graal.python.nodes.object.InlinedGetClassNode;
 import com.oracle.graal.python.nodes.statement.AbstractImportNode;
 import com.oracle.graal.python.nodes.truffle.PythonArithmeticTypes;
 import com.oracle.graal.python.nodes.util.CastToTruffleStringNode;
+import com.oracle.graal.python.runtime.GilStatistics;
 import com.oracle.graal.python.runtime.PosixSupportLibrary;
 import com.oracle.graal.python.runtime.PythonContext;
 import com.oracle.graal.python.runtime.PythonOptions;
 import com.oracle.graal.python.runtime.exception.PException;
 import com.oracle.graal.python.runtime.exception.PythonExitException;
 import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.graal.python.runtime.sequence.storage.LongSequenceStorage;
 import com.oracle.graal.python.runtime.sequence.storage.SequenceStorage;
 import com.oracle.graal.python.util.PythonUtils;
 import com.oracle.truffle.api.CallTarget;
@@ -165,6 +168,12 @@ public class GraalPythonModuleBuiltins extends PythonBuiltins {
     private static final TruffleString T__RUN_MODULE_AS_MAIN = tsLiteral("_run_module_as_main");
     private static final TruffleString T_STDIO_ENCODING = tsLiteral("stdio_encoding");
     private static final TruffleString T_STDIO_ERROR = tsLiteral("stdio_error");
+    private static final TruffleString T_NAME = tsLiteral("name");
+    private static final TruffleString T_ACQUISITIONS = tsLiteral("acquisitions");
+    private static final TruffleString T_WAIT_NS = tsLiteral("wait_ns");
+    private static final TruffleString T_HOLD_NS = tsLiteral("hold_ns");
+    private static final TruffleString T_WAIT_HISTOGRAM = tsLiteral("wait_histogram");
+    private static final TruffleString T_HOLD_HISTOGRAM = tsLiteral("hold_histogram");
 
     @Override
     protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
@@ -803,6 +812,48 @@ public class GraalPythonModuleBuiltins extends PythonBuiltins {
         }
     }
 
+    @Builtin(name = "set_gil_statistics", minNumOfPositionalArgs = 1, doc = "set_gil_statistics(enabled)\n" +
+                    "--\n" +
+                    "\n" +
+                    "Start or stop collecting per-thread GIL wait and hold times. Starting discards the data collected so far.")
+    @GenerateNodeFactory
+    abstract static class SetGilStatisticsNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        Object doIt(VirtualFrame frame, Object enabled,
+                        @Cached PyObjectIsTrueNode isTrueNode) {
+            getContext().getGilStatistics().setEnabled(isTrueNode.execute(frame, enabled));
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "get_gil_statistics", minNumOfPositionalArgs = 0, doc = "get_gil_statistics()\n" +
+                    "--\n" +
+                    "\n" +
+                    "Return a dict mapping thread idents to the GIL statistics of that thread. The histograms count\n" +
+                    "durations in power-of-two microsecond buckets: bucket 0 is below 1us, bucket i > 0 is [2**(i-1), 2**i)us\n" +
+                    "and the last bucket is open-ended.")
+    @GenerateNodeFactory
+    abstract static class GetGilStatisticsNode extends PythonBuiltinNode {
+        @Specialization
+        @TruffleBoundary
+        Object doIt() {
+            PythonObjectFactory factory = factory();
+            PDict result = factory.createDict();
+            for (GilStatistics.ThreadStatistics stats : getContext().getGilStatistics().getThreads()) {
+                PDict entry = factory.createDict(new PKeyword[]{
+                                new PKeyword(T_NAME, toTruffleStringUncached(stats.getName())),
+                                new PKeyword(T_ACQUISITIONS, stats.getAcquisitions()),
+                                new PKeyword(T_WAIT_NS, stats.getWaitNanos()),
+                                new PKeyword(T_HOLD_NS, stats.getHoldNanos()),
+                                new PKeyword(T_WAIT_HISTOGRAM, factory.createTuple(new LongSequenceStorage(stats.getWaitHistogram()))),
+                                new PKeyword(T_HOLD_HISTOGRAM, factory.createTuple(new LongSequenceStorage(stats.getHoldHistogram()))),
+                });
+                result.setItem(stats.getIdent(), entry);
+            }
+            return result;
+        }
+    }
+
     @Builtin(name = "java_assert", minNumOfPositionalArgs = 0)
     @GenerateNodeFactory
     abstract static class JavaAssertNode extends PythonBuiltinNode {
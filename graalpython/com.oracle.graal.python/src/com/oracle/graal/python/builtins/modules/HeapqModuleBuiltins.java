@@ -0,0 +1,559 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules;
+
+import static com.oracle.graal.python.runtime.exception.PythonErrorType.IndexError;
+import static com.oracle.graal.python.runtime.exception.PythonErrorType.RuntimeError;
+import static com.oracle.graal.python.runtime.exception.PythonErrorType.TypeError;
+
+import java.util.List;
+
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.common.SequenceStorageNodes;
+import com.oracle.graal.python.builtins.objects.list.PList;
+import com.oracle.graal.python.lib.PyObjectRichCompareBool;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PNodeWithContext;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.nodes.builtins.ListNodes;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.graal.python.runtime.sequence.storage.DoubleSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.IntSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.LongSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.SequenceStorage;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Cached.Shared;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+
+/**
+ * Implementation of CPython's {@code _heapq} module. Lists backed by int, long or double storage
+ * are sifted directly on the primitive arrays, all other lists go through the generic storage
+ * nodes and Python's {@code <} comparison. The element layout of the resulting heap is the same as
+ * with CPython, regardless of the path taken.
+ */
+@CoreFunctions(defineModule = "_heapq")
+public class HeapqModuleBuiltins extends PythonBuiltins {
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return HeapqModuleBuiltinsFactory.getFactories();
+    }
+
+    @Builtin(name = "heappush", minNumOfPositionalArgs = 2, numOfPositionalOnlyArgs = 2, parameterNames = {"heap", "item"})
+    @GenerateNodeFactory
+    abstract static class HeapPushNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object push(VirtualFrame frame, PList heap, Object item,
+                        @Cached ListNodes.AppendNode appendNode,
+                        @Cached SiftDownNode siftDownNode) {
+            appendNode.execute(heap, item);
+            siftDownNode.execute(frame, heap, 0, heap.getSequenceStorage().length() - 1, false);
+            return PNone.NONE;
+        }
+
+        @Fallback
+        @SuppressWarnings("unused")
+        Object notList(Object heap, Object item) {
+            throw raise(TypeError, ErrorMessages.HEAP_ARGUMENT_MUST_BE_A_LIST);
+        }
+    }
+
+    @Builtin(name = "heappop", minNumOfPositionalArgs = 1, numOfPositionalOnlyArgs = 1, parameterNames = {"heap"})
+    @GenerateNodeFactory
+    abstract static class HeapPopBuiltinNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object pop(VirtualFrame frame, PList heap,
+                        @Cached HeapPopNode popNode) {
+            return popNode.execute(frame, heap, false);
+        }
+
+        @Fallback
+        Object notList(@SuppressWarnings("unused") Object heap) {
+            throw raise(TypeError, ErrorMessages.HEAP_ARGUMENT_MUST_BE_A_LIST);
+        }
+    }
+
+    @Builtin(name = "_heappop_max", minNumOfPositionalArgs = 1, numOfPositionalOnlyArgs = 1, parameterNames = {"heap"})
+    @GenerateNodeFactory
+    abstract static class HeapPopMaxNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object pop(VirtualFrame frame, PList heap,
+                        @Cached HeapPopNode popNode) {
+            return popNode.execute(frame, heap, true);
+        }
+
+        @Fallback
+        Object notList(@SuppressWarnings("unused") Object heap) {
+            throw raise(TypeError, ErrorMessages.HEAP_ARGUMENT_MUST_BE_A_LIST);
+        }
+    }
+
+    @Builtin(name = "heapreplace", minNumOfPositionalArgs = 2, numOfPositionalOnlyArgs = 2, parameterNames = {"heap", "item"})
+    @GenerateNodeFactory
+    abstract static class HeapReplaceBuiltinNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object replace(VirtualFrame frame, PList heap, Object item,
+                        @Cached HeapReplaceNode replaceNode) {
+            return replaceNode.execute(frame, heap, item, false);
+        }
+
+        @Fallback
+        @SuppressWarnings("unused")
+        Object notList(Object heap, Object item) {
+            throw raise(TypeError, ErrorMessages.HEAP_ARGUMENT_MUST_BE_A_LIST);
+        }
+    }
+
+    @Builtin(name = "_heapreplace_max", minNumOfPositionalArgs = 2, numOfPositionalOnlyArgs = 2, parameterNames = {"heap", "item"})
+    @GenerateNodeFactory
+    abstract static class HeapReplaceMaxNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object replace(VirtualFrame frame, PList heap, Object item,
+                        @Cached HeapReplaceNode replaceNode) {
+            return replaceNode.execute(frame, heap, item, true);
+        }
+
+        @Fallback
+        @SuppressWarnings("unused")
+        Object notList(Object heap, Object item) {
+            throw raise(TypeError, ErrorMessages.HEAP_ARGUMENT_MUST_BE_A_LIST);
+        }
+    }
+
+    @Builtin(name = "heappushpop", minNumOfPositionalArgs = 2, numOfPositionalOnlyArgs = 2, parameterNames = {"heap", "item"})
+    @GenerateNodeFactory
+    abstract static class HeapPushPopNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object pushPop(VirtualFrame frame, PList heap, Object item,
+                        @Cached SequenceStorageNodes.GetItemScalarNode getItemNode,
+                        @Cached PyObjectRichCompareBool.LtNode ltNode,
+                        @Cached HeapReplaceNode replaceNode) {
+            SequenceStorage storage = heap.getSequenceStorage();
+            if (storage.length() == 0) {
+                return item;
+            }
+            if (!ltNode.execute(frame, getItemNode.execute(storage, 0), item)) {
+                return item;
+            }
+            // the comparison may have emptied the list, the replace node checks that again
+            return replaceNode.execute(frame, heap, item, false);
+        }
+
+        @Fallback
+        @SuppressWarnings("unused")
+        Object notList(Object heap, Object item) {
+            throw raise(TypeError, ErrorMessages.HEAP_ARGUMENT_MUST_BE_A_LIST);
+        }
+    }
+
+    @Builtin(name = "heapify", minNumOfPositionalArgs = 1, numOfPositionalOnlyArgs = 1, parameterNames = {"heap"})
+    @GenerateNodeFactory
+    abstract static class HeapifyBuiltinNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object heapify(VirtualFrame frame, PList heap,
+                        @Cached HeapifyNode heapifyNode) {
+            heapifyNode.execute(frame, heap, false);
+            return PNone.NONE;
+        }
+
+        @Fallback
+        Object notList(@SuppressWarnings("unused") Object heap) {
+            throw raise(TypeError, ErrorMessages.HEAP_ARGUMENT_MUST_BE_A_LIST);
+        }
+    }
+
+    @Builtin(name = "_heapify_max", minNumOfPositionalArgs = 1, numOfPositionalOnlyArgs = 1, parameterNames = {"heap"})
+    @GenerateNodeFactory
+    abstract static class HeapifyMaxNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object heapify(VirtualFrame frame, PList heap,
+                        @Cached HeapifyNode heapifyNode) {
+            heapifyNode.execute(frame, heap, true);
+            return PNone.NONE;
+        }
+
+        @Fallback
+        Object notList(@SuppressWarnings("unused") Object heap) {
+            throw raise(TypeError, ErrorMessages.HEAP_ARGUMENT_MUST_BE_A_LIST);
+        }
+    }
+
+    abstract static class HeapPopNode extends PNodeWithContext {
+        abstract Object execute(VirtualFrame frame, PList heap, boolean max);
+
+        @Specialization
+        static Object pop(VirtualFrame frame, PList heap, boolean max,
+                        @Bind("this") Node inliningTarget,
+                        @Cached SequenceStorageNodes.GetItemScalarNode getItemNode,
+                        @Cached SequenceStorageNodes.SetItemScalarNode setItemNode,
+                        @Cached SequenceStorageNodes.SetLenNode setLenNode,
+                        @Cached SiftUpNode siftUpNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            SequenceStorage storage = heap.getSequenceStorage();
+            int n = storage.length();
+            if (n == 0) {
+                throw raiseNode.get(inliningTarget).raise(IndexError, ErrorMessages.INDEX_OUT_OF_RANGE);
+            }
+            Object last = getItemNode.execute(storage, n - 1);
+            setLenNode.execute(storage, n - 1);
+            if (n == 1) {
+                return last;
+            }
+            Object result = getItemNode.execute(storage, 0);
+            setItemNode.execute(storage, 0, last);
+            siftUpNode.execute(frame, heap, 0, max);
+            return result;
+        }
+    }
+
+    abstract static class HeapReplaceNode extends PNodeWithContext {
+        abstract Object execute(VirtualFrame frame, PList heap, Object item, boolean max);
+
+        @Specialization
+        static Object replace(VirtualFrame frame, PList heap, Object item, boolean max,
+                        @Bind("this") Node inliningTarget,
+                        @Cached SequenceStorageNodes.GetItemScalarNode getItemNode,
+                        @Cached("createForList()") SequenceStorageNodes.SetItemNode setItemNode,
+                        @Cached SiftUpNode siftUpNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            SequenceStorage storage = heap.getSequenceStorage();
+            if (storage.length() == 0) {
+                throw raiseNode.get(inliningTarget).raise(IndexError, ErrorMessages.INDEX_OUT_OF_RANGE);
+            }
+            Object result = getItemNode.execute(storage, 0);
+            // storing the item may generalize the storage, e.g. a float into an int heap
+            SequenceStorage newStorage = setItemNode.execute(storage, 0, item);
+            if (newStorage != storage) {
+                heap.setSequenceStorage(newStorage);
+            }
+            siftUpNode.execute(frame, heap, 0, max);
+            return result;
+        }
+    }
+
+    abstract static class HeapifyNode extends PNodeWithContext {
+        abstract void execute(VirtualFrame frame, PList heap, boolean max);
+
+        @Specialization(guards = "isIntStorage(heap)")
+        static void doInt(PList heap, boolean max) {
+            IntSequenceStorage storage = (IntSequenceStorage) heap.getSequenceStorage();
+            int[] arr = storage.getInternalIntArray();
+            int n = storage.length();
+            for (int i = (n >> 1) - 1; i >= 0; i--) {
+                siftUp(arr, i, n, max);
+            }
+        }
+
+        @Specialization(guards = "isLongStorage(heap)")
+        static void doLong(PList heap, boolean max) {
+            LongSequenceStorage storage = (LongSequenceStorage) heap.getSequenceStorage();
+            long[] arr = storage.getInternalLongArray();
+            int n = storage.length();
+            for (int i = (n >> 1) - 1; i >= 0; i--) {
+                siftUp(arr, i, n, max);
+            }
+        }
+
+        @Specialization(guards = "isDoubleStorage(heap)")
+        static void doDouble(PList heap, boolean max) {
+            DoubleSequenceStorage storage = (DoubleSequenceStorage) heap.getSequenceStorage();
+            double[] arr = storage.getInternalDoubleArray();
+            int n = storage.length();
+            for (int i = (n >> 1) - 1; i >= 0; i--) {
+                siftUp(arr, i, n, max);
+            }
+        }
+
+        @Specialization(guards = {"!isIntStorage(heap)", "!isLongStorage(heap)", "!isDoubleStorage(heap)"})
+        static void doGeneric(VirtualFrame frame, PList heap, boolean max,
+                        @Cached SiftUpNode siftUpNode) {
+            int n = heap.getSequenceStorage().length();
+            for (int i = (n >> 1) - 1; i >= 0; i--) {
+                siftUpNode.execute(frame, heap, i, max);
+            }
+        }
+    }
+
+    /**
+     * Equivalent of CPython's {@code siftdown}/{@code siftdown_max}: moves the item at {@code pos}
+     * towards the root, but not further than {@code startPos}.
+     */
+    abstract static class SiftDownNode extends PNodeWithContext {
+        abstract void execute(VirtualFrame frame, PList heap, int startPos, int pos, boolean max);
+
+        @Specialization(guards = "isIntStorage(heap)")
+        static void doInt(PList heap, int startPos, int pos, boolean max,
+                        @Bind("this") Node inliningTarget,
+                        @Shared @Cached PRaiseNode.Lazy raiseNode) {
+            IntSequenceStorage storage = (IntSequenceStorage) heap.getSequenceStorage();
+            checkIndex(inliningTarget, pos, storage.length(), raiseNode);
+            siftDown(storage.getInternalIntArray(), startPos, pos, max);
+        }
+
+        @Specialization(guards = "isLongStorage(heap)")
+        static void doLong(PList heap, int startPos, int pos, boolean max,
+                        @Bind("this") Node inliningTarget,
+                        @Shared @Cached PRaiseNode.Lazy raiseNode) {
+            LongSequenceStorage storage = (LongSequenceStorage) heap.getSequenceStorage();
+            checkIndex(inliningTarget, pos, storage.length(), raiseNode);
+            siftDown(storage.getInternalLongArray(), startPos, pos, max);
+        }
+
+        @Specialization(guards = "isDoubleStorage(heap)")
+        static void doDouble(PList heap, int startPos, int pos, boolean max,
+                        @Bind("this") Node inliningTarget,
+                        @Shared @Cached PRaiseNode.Lazy raiseNode) {
+            DoubleSequenceStorage storage = (DoubleSequenceStorage) heap.getSequenceStorage();
+            checkIndex(inliningTarget, pos, storage.length(), raiseNode);
+            siftDown(storage.getInternalDoubleArray(), startPos, pos, max);
+        }
+
+        @Specialization(guards = {"!isIntStorage(heap)", "!isLongStorage(heap)", "!isDoubleStorage(heap)"})
+        static void doGeneric(VirtualFrame frame, PList heap, int startPos, int pos, boolean max,
+                        @Bind("this") Node inliningTarget,
+                        @Cached SequenceStorageNodes.GetItemScalarNode getItemNode,
+                        @Cached SequenceStorageNodes.SetItemScalarNode setItemNode,
+                        @Cached PyObjectRichCompareBool.LtNode ltNode,
+                        @Shared @Cached PRaiseNode.Lazy raiseNode) {
+            SequenceStorage storage = heap.getSequenceStorage();
+            int size = storage.length();
+            checkIndex(inliningTarget, pos, size, raiseNode);
+            while (pos > startPos) {
+                int parentPos = (pos - 1) >> 1;
+                Object newItem = getItemNode.execute(storage, pos);
+                Object parent = getItemNode.execute(storage, parentPos);
+                boolean lt = max ? ltNode.execute(frame, parent, newItem) : ltNode.execute(frame, newItem, parent);
+                // the comparison can run arbitrary code, so re-read the storage afterwards
+                storage = heap.getSequenceStorage();
+                checkSize(inliningTarget, size, storage.length(), raiseNode);
+                if (!lt) {
+                    break;
+                }
+                newItem = getItemNode.execute(storage, pos);
+                parent = getItemNode.execute(storage, parentPos);
+                setItemNode.execute(storage, parentPos, newItem);
+                setItemNode.execute(storage, pos, parent);
+                pos = parentPos;
+            }
+        }
+    }
+
+    /**
+     * Equivalent of CPython's {@code siftup}/{@code siftup_max}: moves the smaller (or larger) child
+     * up until a leaf is reached and then sifts the item originally at {@code pos} back down.
+     */
+    abstract static class SiftUpNode extends PNodeWithContext {
+        abstract void execute(VirtualFrame frame, PList heap, int pos, boolean max);
+
+        @Specialization(guards = "isIntStorage(heap)")
+        static void doInt(PList heap, int pos, boolean max,
+                        @Bind("this") Node inliningTarget,
+                        @Shared @Cached PRaiseNode.Lazy raiseNode) {
+            IntSequenceStorage storage = (IntSequenceStorage) heap.getSequenceStorage();
+            checkIndex(inliningTarget, pos, storage.length(), raiseNode);
+            siftUp(storage.getInternalIntArray(), pos, storage.length(), max);
+        }
+
+        @Specialization(guards = "isLongStorage(heap)")
+        static void doLong(PList heap, int pos, boolean max,
+                        @Bind("this") Node inliningTarget,
+                        @Shared @Cached PRaiseNode.Lazy raiseNode) {
+            LongSequenceStorage storage = (LongSequenceStorage) heap.getSequenceStorage();
+            checkIndex(inliningTarget, pos, storage.length(), raiseNode);
+            siftUp(storage.getInternalLongArray(), pos, storage.length(), max);
+        }
+
+        @Specialization(guards = "isDoubleStorage(heap)")
+        static void doDouble(PList heap, int pos, boolean max,
+                        @Bind("this") Node inliningTarget,
+                        @Shared @Cached PRaiseNode.Lazy raiseNode) {
+            DoubleSequenceStorage storage = (DoubleSequenceStorage) heap.getSequenceStorage();
+            checkIndex(inliningTarget, pos, storage.length(), raiseNode);
+            siftUp(storage.getInternalDoubleArray(), pos, storage.length(), max);
+        }
+
+        @Specialization(guards = {"!isIntStorage(heap)", "!isLongStorage(heap)", "!isDoubleStorage(heap)"})
+        static void doGeneric(VirtualFrame frame, PList heap, int pos, boolean max,
+                        @Bind("this") Node inliningTarget,
+                        @Cached SequenceStorageNodes.GetItemScalarNode getItemNode,
+                        @Cached SequenceStorageNodes.SetItemScalarNode setItemNode,
+                        @Cached PyObjectRichCompareBool.LtNode ltNode,
+                        @Cached SiftDownNode siftDownNode,
+                        @Shared @Cached PRaiseNode.Lazy raiseNode) {
+            SequenceStorage storage = heap.getSequenceStorage();
+            int endPos = storage.length();
+            int startPos = pos;
+            checkIndex(inliningTarget, pos, endPos, raiseNode);
+            int limit = endPos >> 1;
+            while (pos < limit) {
+                int childPos = 2 * pos + 1;
+                if (childPos + 1 < endPos) {
+                    Object a = getItemNode.execute(storage, childPos);
+                    Object b = getItemNode.execute(storage, childPos + 1);
+                    boolean lt = max ? ltNode.execute(frame, b, a) : ltNode.execute(frame, a, b);
+                    if (!lt) {
+                        childPos++;
+                    }
+                    storage = heap.getSequenceStorage();
+                    checkSize(inliningTarget, endPos, storage.length(), raiseNode);
+                }
+                Object child = getItemNode.execute(storage, childPos);
+                Object parent = getItemNode.execute(storage, pos);
+                setItemNode.execute(storage, childPos, parent);
+                setItemNode.execute(storage, pos, child);
+                pos = childPos;
+            }
+            siftDownNode.execute(frame, heap, startPos, pos, max);
+        }
+    }
+
+    private static void checkIndex(Node inliningTarget, int pos, int size, PRaiseNode.Lazy raiseNode) {
+        if (pos >= size) {
+            throw raiseNode.get(inliningTarget).raise(IndexError, ErrorMessages.INDEX_OUT_OF_RANGE);
+        }
+    }
+
+    private static void checkSize(Node inliningTarget, int expectedSize, int size, PRaiseNode.Lazy raiseNode) {
+        if (expectedSize != size) {
+            throw raiseNode.get(inliningTarget).raise(RuntimeError, ErrorMessages.CHANGED_SIZE_DURING_ITERATION, "list");
+        }
+    }
+
+    private static void siftDown(int[] arr, int startPos, int pos, boolean max) {
+        int newItem = arr[pos];
+        while (pos > startPos) {
+            int parentPos = (pos - 1) >> 1;
+            int parent = arr[parentPos];
+            if (!(max ? parent < newItem : newItem < parent)) {
+                break;
+            }
+            arr[pos] = parent;
+            pos = parentPos;
+        }
+        arr[pos] = newItem;
+    }
+
+    private static void siftUp(int[] arr, int pos, int endPos, boolean max) {
+        int startPos = pos;
+        int newItem = arr[pos];
+        int limit = endPos >> 1;
+        while (pos < limit) {
+            int childPos = 2 * pos + 1;
+            if (childPos + 1 < endPos && !(max ? arr[childPos + 1] < arr[childPos] : arr[childPos] < arr[childPos + 1])) {
+                childPos++;
+            }
+            arr[pos] = arr[childPos];
+            pos = childPos;
+        }
+        arr[pos] = newItem;
+        siftDown(arr, startPos, pos, max);
+    }
+
+    private static void siftDown(long[] arr, int startPos, int pos, boolean max) {
+        long newItem = arr[pos];
+        while (pos > startPos) {
+            int parentPos = (pos - 1) >> 1;
+            long parent = arr[parentPos];
+            if (!(max ? parent < newItem : newItem < parent)) {
+                break;
+            }
+            arr[pos] = parent;
+            pos = parentPos;
+        }
+        arr[pos] = newItem;
+    }
+
+    private static void siftUp(long[] arr, int pos, int endPos, boolean max) {
+        int startPos = pos;
+        long newItem = arr[pos];
+        int limit = endPos >> 1;
+        while (pos < limit) {
+            int childPos = 2 * pos + 1;
+            if (childPos + 1 < endPos && !(max ? arr[childPos + 1] < arr[childPos] : arr[childPos] < arr[childPos + 1])) {
+                childPos++;
+            }
+            arr[pos] = arr[childPos];
+            pos = childPos;
+        }
+        arr[pos] = newItem;
+        siftDown(arr, startPos, pos, max);
+    }
+
+    private static void siftDown(double[] arr, int startPos, int pos, boolean max) {
+        double newItem = arr[pos];
+        while (pos > startPos) {
+            int parentPos = (pos - 1) >> 1;
+            double parent = arr[parentPos];
+            if (!(max ? parent < newItem : newItem < parent)) {
+                break;
+            }
+            arr[pos] = parent;
+            pos = parentPos;
+        }
+        arr[pos] = newItem;
+    }
+
+    private static void siftUp(double[] arr, int pos, int endPos, boolean max) {
+        int startPos = pos;
+        double newItem = arr[pos];
+        int limit = endPos >> 1;
+        while (pos < limit) {
+            int childPos = 2 * pos + 1;
+            if (childPos + 1 < endPos && !(max ? arr[childPos + 1] < arr[childPos] : arr[childPos] < arr[childPos + 1])) {
+                childPos++;
+            }
+            arr[pos] = arr[childPos];
+            pos = childPos;
+        }
+        arr[pos] = newItem;
+        siftDown(arr, startPos, pos, max);
+    }
+}
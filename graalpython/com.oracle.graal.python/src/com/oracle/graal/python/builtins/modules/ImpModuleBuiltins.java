@@ -79,7 +79,6 @@ import com.oracle.graal.python.builtins.modules.BuiltinConstructors.MemoryViewNo
 import com.oracle.graal.python.builtins.modules.MarshalModuleBuiltins.Marshal.MarshalError;
 import com.oracle.graal.python.builtins.objects.PNone;
 import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAccessLibrary;
-import com.oracle.graal.python.builtins.objects.bytes.BytesNodes;
 import com.oracle.graal.python.builtins.objects.bytes.PBytes;
 import com.oracle.graal.python.builtins.objects.cext.capi.CExtNodes.ExecModuleNode;
 import com.oracle.graal.python.builtins.objects.cext.capi.ExternalFunctionNodesFactory.DefaultCheckFunctionResultNodeGen;
@@ -773,24 +772,76 @@ public class ImpModuleBuiltins extends PythonBuiltins {
     @ArgumentClinic(name = "source", conversion = ArgumentClinic.ClinicConversion.ReadableBuffer)
     @GenerateNodeFactory
     public abstract static class SourceHashNode extends PythonBinaryClinicBuiltinNode {
-        @Specialization
-        PBytes run(long magicNumber, Object sourceBuffer,
-                        @Bind("this") Node inliningTarget,
-                        @Cached BytesNodes.HashBufferNode hashBufferNode) {
-            long sourceHash = hashBufferNode.execute(inliningTarget, sourceBuffer);
-            return factory().createBytes(computeHash(magicNumber, sourceHash));
+        @Specialization(limit = "3")
+        PBytes run(VirtualFrame frame, long magicNumber, Object sourceBuffer,
+                        @CachedLibrary("sourceBuffer") PythonBufferAccessLibrary bufferLib) {
+            try {
+                return factory().createBytes(computeHash(magicNumber, sourceBuffer));
+            } finally {
+                bufferLib.release(sourceBuffer, frame, this);
+            }
         }
 
+        /**
+         * Same as CPython's {@code _Py_KeyedHash}: SipHash-2-4 keyed with {@code (key, 0)}, stored
+         * in little-endian order. This is what hash-based pycs use to detect changes of the source,
+         * so it needs to be stable across processes and must use all 64 bits. The whole source is
+         * read and hashed behind the boundary, none of it is partially evaluated.
+         */
         @TruffleBoundary
-        private static byte[] computeHash(long magicNumber, long sourceHash) {
+        static byte[] computeHash(long key, Object buffer) {
+            PythonBufferAccessLibrary bufferLib = PythonBufferAccessLibrary.getUncached();
+            return computeHash(key, bufferLib.getInternalOrCopiedByteArray(buffer), bufferLib.getBufferLength(buffer));
+        }
+
+        @TruffleBoundary
+        static byte[] computeHash(long key, byte[] data, int len) {
+            long[] v = {key ^ 0x736f6d6570736575L, 0x646f72616e646f6dL, key ^ 0x6c7967656e657261L, 0x7465646279746573L};
+            int end = len & ~7;
+            for (int i = 0; i < end; i += 8) {
+                compress(v, readLongLE(data, i, 8));
+            }
+            compress(v, ((long) len << 56) | readLongLE(data, end, len - end));
+            v[2] ^= 0xff;
+            for (int r = 0; r < 4; r++) {
+                sipRound(v);
+            }
+            long hashCode = v[0] ^ v[1] ^ v[2] ^ v[3];
             byte[] hash = new byte[Long.BYTES];
-            long hashCode = magicNumber ^ sourceHash;
             for (int i = 0; i < hash.length; i++) {
-                hash[i] = (byte) (hashCode << (8 * i));
+                hash[i] = (byte) (hashCode >>> (8 * i));
             }
             return hash;
         }
 
+        private static void compress(long[] v, long m) {
+            v[3] ^= m;
+            sipRound(v);
+            sipRound(v);
+            v[0] ^= m;
+        }
+
+        private static void sipRound(long[] v) {
+            v[0] += v[1];
+            v[1] = Long.rotateLeft(v[1], 13) ^ v[0];
+            v[0] = Long.rotateLeft(v[0], 32);
+            v[2] += v[3];
+            v[3] = Long.rotateLeft(v[3], 16) ^ v[2];
+            v[0] += v[3];
+            v[3] = Long.rotateLeft(v[3], 21) ^ v[0];
+            v[2] += v[1];
+            v[1] = Long.rotateLeft(v[1], 17) ^ v[2];
+            v[2] = Long.rotateLeft(v[2], 32);
+        }
+
+        private static long readLongLE(byte[] data, int offset, int n) {
+            long result = 0;
+            for (int i = n - 1; i >= 0; i--) {
+                result = (result << 8) | (data[offset + i] & 0xFFL);
+            }
+            return result;
+        }
+
         @Override
         protected ArgumentClinicProvider getArgumentClinic() {
             return ImpModuleBuiltinsClinicProviders.SourceHashNodeClinicProviderGen.INSTANCE;
@@ -43,11 +43,19 @@ package com.oracle.graal.python.builtins.modules;
 import static com.oracle.graal.python.nodes.SpecialMethodNames.J___INIT__;
 import static com.oracle.graal.python.util.PythonUtils.toTruffleStringUncached;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
 
 import com.oracle.graal.python.builtins.Builtin;
 import com.oracle.graal.python.builtins.CoreFunctions;
@@ -61,16 +69,27 @@ import com.oracle.graal.python.builtins.objects.object.PythonBuiltinObject;
 import com.oracle.graal.python.builtins.objects.tuple.PTuple;
 import com.oracle.graal.python.builtins.objects.tuple.StructSequence;
 import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.bytecode.PBytecodeGeneratorRootNode;
+import com.oracle.graal.python.nodes.bytecode.PBytecodeRootNode;
+import com.oracle.graal.python.nodes.function.BuiltinFunctionRootNode;
 import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
 import com.oracle.graal.python.nodes.function.PythonBuiltinNode;
+import com.oracle.graal.python.runtime.PythonContext;
+import com.oracle.graal.python.runtime.PythonOptions;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.InstrumentInfo;
+import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.api.ThreadLocalAction;
+import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.TruffleContext;
 import com.oracle.truffle.api.TruffleLanguage.Env;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.NodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.FrameInstanceVisitor;
 import com.oracle.truffle.api.instrumentation.SourceSectionFilter;
+import com.oracle.truffle.api.nodes.RootNode;
 import com.oracle.truffle.api.object.Shape;
 import com.oracle.truffle.api.source.SourceSection;
 import com.oracle.truffle.tools.profiler.CPUSampler;
@@ -135,6 +154,10 @@ public class LsprofModuleBuiltins extends PythonBuiltins {
         @Specialization
         @TruffleBoundary
         Profiler doit(Object cls, @SuppressWarnings("unused") Object[] args, @SuppressWarnings("unused") PKeyword[] kwargs) {
+            int samplingInterval = getContext().getOption(PythonOptions.ProfilerSamplingInterval);
+            if (samplingInterval > 0) {
+                return factory().trace(new Profiler(cls, factory().getShape(cls), samplingInterval));
+            }
             Env env = getContext().getEnv();
             Map<String, InstrumentInfo> instruments = env.getInstruments();
             InstrumentInfo instrumentInfo = instruments.get(CPUSamplerInstrument.ID);
@@ -149,20 +172,181 @@ public class LsprofModuleBuiltins extends PythonBuiltins {
     }
 }
 
+/**
+ * By default, the profiler uses the {@link CPUSampler} instrument. If the
+ * {@link PythonOptions#ProfilerSamplingInterval} option is set, the profiler instead captures the
+ * stacks of all threads in regular intervals by a thread-local action. Call counts are then the
+ * number of samples a function was seen in, and times are the number of samples multiplied by the
+ * sampling interval.
+ */
 class Profiler extends PythonBuiltinObject {
     boolean subcalls;
     boolean builtins;
     double timeunit;
     Object externalTimer;
     double time;
+    // null if the profiler samples the stacks itself
     final CPUSampler sampler;
+    final long samplingIntervalMicros;
+    private SamplingTask samplingTask;
+
+    // guarded by this
+    private final LinkedHashMap<RootNode, Entry> entries = new LinkedHashMap<>();
+
+    static final class Entry {
+        final RootNode rootNode;
+        // samples in which the function was on the stack, at most one per sample
+        long hits;
+        // samples in which the function was on the stack more than once
+        long recursiveHits;
+        // samples in which the function was on top of the stack
+        long selfHits;
+        final LinkedHashMap<RootNode, Entry> calls = new LinkedHashMap<>();
+
+        Entry(RootNode rootNode) {
+            this.rootNode = rootNode;
+        }
+    }
 
     public Profiler(Object cls, Shape instanceShape, CPUSampler sampler) {
         super(cls, instanceShape);
         this.sampler = sampler;
+        this.samplingIntervalMicros = 0;
         this.sampler.setFilter(SourceSectionFilter.newBuilder().includeInternal(true).build());
         this.sampler.setPeriod(1);
     }
+
+    public Profiler(Object cls, Shape instanceShape, long samplingIntervalMicros) {
+        super(cls, instanceShape);
+        this.sampler = null;
+        this.samplingIntervalMicros = samplingIntervalMicros;
+    }
+
+    @TruffleBoundary
+    boolean start(PythonContext context) {
+        if (samplingTask != null) {
+            return true;
+        }
+        SamplingTask task = new SamplingTask(this, context.getEnv());
+        task.future = context.getAsyncHandler().schedulePeriodic(task, samplingIntervalMicros);
+        if (task.future == null) {
+            return false;
+        }
+        samplingTask = task;
+        return true;
+    }
+
+    @TruffleBoundary
+    void stop() {
+        if (samplingTask != null) {
+            samplingTask.cancel();
+            samplingTask = null;
+        }
+    }
+
+    @TruffleBoundary
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized List<Entry> getEntries() {
+        return new ArrayList<>(entries.values());
+    }
+
+    private synchronized void addSample(ArrayList<RootNode> stack) {
+        Set<Entry> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Entry> recursive = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < stack.size(); i++) {
+            Entry entry = entries.computeIfAbsent(stack.get(i), Entry::new);
+            count(entry, seen, recursive, i == 0);
+            if (subcalls && i + 1 < stack.size()) {
+                Entry caller = entries.computeIfAbsent(stack.get(i + 1), Entry::new);
+                count(caller.calls.computeIfAbsent(stack.get(i), Entry::new), seen, recursive, i == 0);
+            }
+        }
+    }
+
+    private static void count(Entry entry, Set<Entry> seen, Set<Entry> recursive, boolean top) {
+        if (top) {
+            entry.selfHits++;
+        }
+        if (seen.add(entry)) {
+            entry.hits++;
+        } else if (recursive.add(entry)) {
+            entry.recursiveHits++;
+        }
+    }
+
+    /**
+     * Periodically submits a {@link SampleAction}. Neither the task nor the actions keep the
+     * profiler alive, so that a profiler that is collected without being disabled stops sampling.
+     */
+    private static final class SamplingTask implements Runnable {
+        private final WeakReference<Profiler> profilerRef;
+        private final Env env;
+        volatile ScheduledFuture<?> future;
+        private Future<Void> pendingSample;
+
+        SamplingTask(Profiler profiler, Env env) {
+            this.profilerRef = new WeakReference<>(profiler);
+            this.env = env;
+        }
+
+        @Override
+        public void run() {
+            if (profilerRef.get() == null) {
+                cancel();
+                return;
+            }
+            // do not pile up actions for threads that cannot reach a safepoint right now
+            if (pendingSample == null || pendingSample.isDone()) {
+                try {
+                    pendingSample = env.submitThreadLocal(null, new SampleAction(profilerRef));
+                } catch (IllegalStateException e) {
+                    // the context is closing
+                }
+            }
+        }
+
+        void cancel() {
+            ScheduledFuture<?> f = future;
+            if (f != null) {
+                f.cancel(false);
+            }
+        }
+    }
+
+    private static final class SampleAction extends ThreadLocalAction {
+        private final WeakReference<Profiler> profilerRef;
+
+        SampleAction(WeakReference<Profiler> profilerRef) {
+            super(false, false);
+            this.profilerRef = profilerRef;
+        }
+
+        @Override
+        protected void perform(Access access) {
+            Profiler profiler = profilerRef.get();
+            if (profiler == null) {
+                return;
+            }
+            boolean builtins = profiler.builtins;
+            ArrayList<RootNode> stack = new ArrayList<>();
+            Truffle.getRuntime().iterateFrames((FrameInstanceVisitor<Object>) frameInstance -> {
+                RootNode rootNode = ((RootCallTarget) frameInstance.getCallTarget()).getRootNode();
+                if (rootNode instanceof PBytecodeGeneratorRootNode) {
+                    rootNode = ((PBytecodeGeneratorRootNode) rootNode).getBytecodeRootNode();
+                }
+                if (rootNode instanceof PBytecodeRootNode || (builtins && rootNode instanceof BuiltinFunctionRootNode)) {
+                    stack.add(rootNode);
+                }
+                return null;
+            });
+            if (!stack.isEmpty()) {
+                profiler.addSample(stack);
+            }
+        }
+    }
 }
 
 @CoreFunctions(extendClasses = PythonBuiltinClassType.LsprofProfiler)
@@ -203,6 +387,12 @@ class ProfilerBuiltins extends PythonBuiltins {
         PNone doit(Profiler self, long subcalls, long builtins) {
             self.subcalls = subcalls > 0;
             self.builtins = builtins > 0;
+            if (self.sampler == null) {
+                if (!self.start(getContext())) {
+                    throw raise(PythonBuiltinClassType.NotImplementedError, ErrorMessages.PROFILER_SAMPLING_NOT_AVAILABLE);
+                }
+                return PNone.NONE;
+            }
             // TODO: deal with any arguments
             self.time = System.currentTimeMillis();
             self.sampler.setCollecting(true);
@@ -230,7 +420,11 @@ class ProfilerBuiltins extends PythonBuiltins {
     abstract static class Disable extends PythonBuiltinNode {
         @Specialization
         @TruffleBoundary
-        PNone doit(Profiler self) {
+        static PNone doit(Profiler self) {
+            if (self.sampler == null) {
+                self.stop();
+                return PNone.NONE;
+            }
             self.sampler.setCollecting(false);
             self.time = (System.currentTimeMillis() - self.time) / 1000D;
             return PNone.NONE;
@@ -242,8 +436,12 @@ class ProfilerBuiltins extends PythonBuiltins {
     abstract static class Clear extends PythonBuiltinNode {
         @Specialization
         @TruffleBoundary
-        PNone doit(Profiler self) {
-            self.sampler.clearData();
+        static PNone doit(Profiler self) {
+            if (self.sampler == null) {
+                self.clear();
+            } else {
+                self.sampler.clearData();
+            }
             return PNone.NONE;
         }
     }
@@ -275,6 +473,36 @@ class ProfilerBuiltins extends PythonBuiltins {
         @Specialization
         @TruffleBoundary
         PList doit(Profiler self) {
+            if (self.sampler != null) {
+                return getSamplerStats(self);
+            }
+            double sampleSeconds = self.samplingIntervalMicros / 1e6;
+            PythonObjectFactory factory = factory();
+            HashMap<RootNode, Object> codes = new HashMap<>();
+            List<Profiler.Entry> entries = self.getEntries();
+            Object[] result = new Object[entries.size()];
+            for (int i = 0; i < result.length; i++) {
+                Profiler.Entry entry = entries.get(i);
+                Object calls = PNone.NONE;
+                if (self.subcalls) {
+                    Object[] subentries;
+                    synchronized (self) {
+                        subentries = entry.calls.values().toArray();
+                    }
+                    for (int j = 0; j < subentries.length; j++) {
+                        subentries[j] = factory.createStructSeq(LsprofModuleBuiltins.PROFILER_SUBENTRY_DESC, getProfilerEntry(factory, codes, (Profiler.Entry) subentries[j], sampleSeconds));
+                    }
+                    calls = factory.createList(subentries);
+                }
+                Object[] profilerEntry = getProfilerEntry(factory, codes, entry, sampleSeconds);
+                profilerEntry = Arrays.copyOf(profilerEntry, 6);
+                profilerEntry[5] = calls;
+                result[i] = factory.createStructSeq(LsprofModuleBuiltins.PROFILER_ENTRY_DESC, profilerEntry);
+            }
+            return factory.createList(result);
+        }
+
+        private PList getSamplerStats(Profiler self) {
             double avgSampleSeconds = self.sampler.getPeriod() / 1000D;
             List<PTuple> entries = new ArrayList<>();
             Map<TruffleContext, CPUSamplerData> data = self.sampler.getData();
@@ -293,12 +521,12 @@ class ProfilerBuiltins extends PythonBuiltins {
 
         private void countNode(List<PTuple> entries, ProfilerNode<Payload> node, double avgSampleTime) {
             Collection<ProfilerNode<Payload>> children = node.getChildren();
-            Object[] profilerEntry = getProfilerEntry(node, avgSampleTime);
+            Object[] profilerEntry = getSamplerProfilerEntry(node, avgSampleTime);
             Object[] calls = new Object[children.size()];
             int callIdx = 0;
             for (ProfilerNode<Payload> childNode : children) {
                 countNode(entries, childNode, avgSampleTime);
-                calls[callIdx++] = factory().createStructSeq(LsprofModuleBuiltins.PROFILER_SUBENTRY_DESC, getProfilerEntry(childNode, avgSampleTime));
+                calls[callIdx++] = factory().createStructSeq(LsprofModuleBuiltins.PROFILER_SUBENTRY_DESC, getSamplerProfilerEntry(childNode, avgSampleTime));
             }
             assert callIdx == calls.length;
             profilerEntry = Arrays.copyOf(profilerEntry, 6);
@@ -306,7 +534,7 @@ class ProfilerBuiltins extends PythonBuiltins {
             entries.add(factory().createStructSeq(LsprofModuleBuiltins.PROFILER_ENTRY_DESC, profilerEntry));
         }
 
-        private static Object[] getProfilerEntry(ProfilerNode<Payload> node, double avgSampleTime) {
+        private static Object[] getSamplerProfilerEntry(ProfilerNode<Payload> node, double avgSampleTime) {
             SourceSection sec = node.getSourceSection();
             String rootName;
             if (sec == null) {
@@ -329,5 +557,22 @@ class ProfilerBuiltins extends PythonBuiltins {
             };
             return profilerEntry;
         }
+
+        private static Object[] getProfilerEntry(PythonObjectFactory factory, Map<RootNode, Object> codes, Profiler.Entry entry, double sampleSeconds) {
+            Object code = codes.computeIfAbsent(entry.rootNode, rootNode -> {
+                if (rootNode instanceof PBytecodeRootNode) {
+                    PBytecodeRootNode bytecodeRootNode = (PBytecodeRootNode) rootNode;
+                    return factory.createCode(bytecodeRootNode.getCallTarget(), bytecodeRootNode.getSignature(), bytecodeRootNode.getCodeUnit());
+                }
+                return toTruffleStringUncached("<built-in method " + rootNode.getName() + ">");
+            });
+            return new Object[]{
+                            code,
+                            entry.hits,
+                            entry.recursiveHits,
+                            entry.hits * sampleSeconds,
+                            entry.selfHits * sampleSeconds
+            };
+        }
     }
 }
@@ -82,6 +82,7 @@ import com.oracle.graal.python.builtins.objects.str.StringNodesFactory.IsInterne
 import com.oracle.graal.python.builtins.objects.type.TypeNodes;
 import com.oracle.graal.python.compiler.CodeUnit;
 import com.oracle.graal.python.compiler.Compiler;
+import com.oracle.graal.python.compiler.LazyCodeUnit;
 import com.oracle.graal.python.lib.PyComplexCheckExactNode;
 import com.oracle.graal.python.lib.PyDictCheckExactNodeGen;
 import com.oracle.graal.python.lib.PyFloatCheckExactNodeGen;
@@ -279,6 +280,8 @@ public final class MarshalModuleBuiltins extends PythonBuiltins {
         // plain Java objects
         private static final char TYPE_GRAALPYTHON_CODE = 'C';
         private static final char TYPE_GRAALPYTHON_CODE_UNIT = 'U';
+        // a nested code unit that is self-contained and can be decoded separately
+        private static final char TYPE_GRAALPYTHON_LAZY_CODE_UNIT = 'L';
         private static final char TYPE_BIG_INTEGER = 'B';
         private static final char TYPE_ARRAY = ']';
 
@@ -408,6 +411,12 @@ public final class MarshalModuleBuiltins extends PythonBuiltins {
         final ArrayList<Object> refList;
         final ByteArrayOutputStream out;
         final InputStream in;
+        /*
+         * When set, the input is immutable and lazily decoded code units may keep referring to it
+         * instead of copying their data.
+         */
+        final byte[] sharedInput;
+        final int sharedInputEnd;
         final int version;
         final PInt pyTrue;
         final PInt pyFalse;
@@ -423,11 +432,19 @@ public final class MarshalModuleBuiltins extends PythonBuiltins {
             this.out = new ByteArrayOutputStream();
             this.refMap = new HashMap<>();
             this.in = null;
+            this.sharedInput = null;
+            this.sharedInputEnd = 0;
             this.refList = null;
         }
 
         Marshal(byte[] in, int length) {
-            this.in = new ByteArrayInputStream(in, 0, length);
+            this(in, 0, length, false);
+        }
+
+        Marshal(byte[] in, int offset, int length, boolean shareInput) {
+            this.in = new ByteArrayInputStream(in, offset, length);
+            this.sharedInput = shareInput ? in : null;
+            this.sharedInputEnd = offset + length;
             this.refList = new ArrayList<>();
             this.version = -1;
             this.pyTrue = null;
@@ -438,6 +455,8 @@ public final class MarshalModuleBuiltins extends PythonBuiltins {
 
         Marshal(Object in) {
             this.in = new FileLikeInputStream(in);
+            this.sharedInput = null;
+            this.sharedInputEnd = 0;
             this.refList = new ArrayList<>();
             this.version = -1;
             this.pyTrue = null;
@@ -831,6 +850,9 @@ public final class MarshalModuleBuiltins extends PythonBuiltins {
                 } else if (v instanceof CodeUnit) {
                     writeByte(TYPE_GRAALPYTHON_CODE_UNIT | flag);
                     writeCodeUnit((CodeUnit) v);
+                } else if (v instanceof LazyCodeUnit) {
+                    writeByte(TYPE_GRAALPYTHON_CODE_UNIT | flag);
+                    writeCodeUnit(((LazyCodeUnit) v).resolve());
                 } else {
                     PythonBufferAcquireLibrary acquireLib = PythonBufferAcquireLibrary.getFactory().getUncached(v);
                     if (acquireLib.hasBuffer(v)) {
@@ -1044,6 +1066,8 @@ public final class MarshalModuleBuiltins extends PythonBuiltins {
                     return addRef.run(readCode());
                 case TYPE_GRAALPYTHON_CODE_UNIT:
                     return addRef.run(readCodeUnit());
+                case TYPE_GRAALPYTHON_LAZY_CODE_UNIT:
+                    return addRef.run(readLazyCodeUnit());
                 case TYPE_ARRAY: {
                     return addRef.run(readJavaArray());
                 }
@@ -1282,7 +1306,7 @@ public final class MarshalModuleBuiltins extends PythonBuiltins {
             } else {
                 writeIntArray(PythonUtils.EMPTY_INT_ARRAY);
             }
-            writeObjectArray(code.constants);
+            writeConstants(code.constants);
             writeLongArray(code.primitiveConstants);
             writeIntArray(code.exceptionHandlerRanges);
             writeInt(code.conditionProfileCount);
@@ -1296,6 +1320,41 @@ public final class MarshalModuleBuiltins extends PythonBuiltins {
             writeSparseTable(code.generalizeVarsMap);
         }
 
+        private void writeConstants(Object[] constants) throws IOException {
+            writeInt(constants.length);
+            for (int i = 0; i < constants.length; i++) {
+                Object constant = constants[i];
+                if (LazyCodeUnit.isCodeUnit(constant)) {
+                    /*
+                     * Nested code units are written with their own reference table, so that they
+                     * can be decoded without the enclosing data when they are first needed.
+                     */
+                    Marshal nested = new Marshal(version, pyTrue, pyFalse);
+                    nested.depth = depth;
+                    nested.writeCodeUnit(LazyCodeUnit.resolve(constant));
+                    writeByte(TYPE_GRAALPYTHON_LAZY_CODE_UNIT);
+                    writeSize(nested.out.size());
+                    nested.out.writeTo(out);
+                } else {
+                    writeObject(constant);
+                }
+            }
+        }
+
+        private LazyCodeUnit readLazyCodeUnit() {
+            int sz = readSize();
+            if (sharedInput != null) {
+                // ByteArrayInputStream#available is exact, so it gives us the current position
+                int offset = sharedInputEnd - in.available();
+                long skipped = in.skip(sz);
+                if (skipped < sz) {
+                    throw new MarshalError(PythonBuiltinClassType.EOFError, ErrorMessages.BAD_MARSHAL_DATA_EOF);
+                }
+                return new LazyCodeUnit(sharedInput, offset, sz);
+            }
+            return new LazyCodeUnit(readNBytes(sz, new byte[sz]), 0, sz);
+        }
+
         private PCode readCode() {
             TruffleString fileName = readString();
             int flags = readInt();
@@ -1331,10 +1390,19 @@ public final class MarshalModuleBuiltins extends PythonBuiltins {
         }
     }
 
+    /**
+     * Deserializes a code unit. The array must not be modified afterwards, nested code units keep
+     * referring to it until they are decoded.
+     */
     @TruffleBoundary
     public static CodeUnit deserializeCodeUnit(byte[] bytes) {
+        return deserializeCodeUnit(bytes, 0, bytes.length);
+    }
+
+    @TruffleBoundary
+    public static CodeUnit deserializeCodeUnit(byte[] bytes, int offset, int length) {
         try {
-            Marshal marshal = new Marshal(bytes, bytes.length);
+            Marshal marshal = new Marshal(bytes, offset, length, true);
             return marshal.readCodeUnit();
         } catch (Marshal.MarshalError me) {
             throw PRaiseNode.getUncached().raise(me.type, me.message, me.arguments);
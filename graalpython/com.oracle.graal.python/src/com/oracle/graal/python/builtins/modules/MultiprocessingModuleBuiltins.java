@@ -53,7 +53,7 @@ import com.oracle.graal.python.builtins.PythonBuiltinClassType;
 import com.oracle.graal.python.builtins.PythonBuiltins;
 import com.oracle.graal.python.builtins.objects.PNone;
 import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAccessLibrary;
-import com.oracle.graal.python.builtins.objects.bytes.PBytes;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAcquireLibrary;
 import com.oracle.graal.python.builtins.objects.common.SequenceNodes;
 import com.oracle.graal.python.builtins.objects.common.SequenceStorageNodes;
 import com.oracle.graal.python.builtins.objects.exception.OSErrorEnum;
@@ -71,6 +71,7 @@ import com.oracle.graal.python.nodes.builtins.ListNodes;
 import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
 import com.oracle.graal.python.nodes.function.PythonBuiltinNode;
 import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonTernaryBuiltinNode;
 import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
 import com.oracle.graal.python.nodes.util.CannotCastException;
 import com.oracle.graal.python.nodes.util.CastToJavaDoubleNode;
@@ -82,6 +83,7 @@ import com.oracle.graal.python.runtime.PosixSupportLibrary;
 import com.oracle.graal.python.runtime.PosixSupportLibrary.Timeval;
 import com.oracle.graal.python.runtime.PythonContext;
 import com.oracle.graal.python.runtime.PythonContext.SharedMultiprocessingData;
+import com.oracle.graal.python.runtime.PythonOptions;
 import com.oracle.graal.python.runtime.sequence.PSequence;
 import com.oracle.graal.python.runtime.sequence.storage.SequenceStorage;
 import com.oracle.graal.python.util.ArrayBuilder;
@@ -271,9 +273,10 @@ public class MultiprocessingModuleBuiltins extends PythonBuiltins {
             int[] pipe;
             PythonContext ctx = getContext();
             SharedMultiprocessingData sharedData = ctx.getSharedMultiprocessingData();
+            int capacity = ctx.getOption(PythonOptions.MultiprocessingPipeCapacity);
             gil.release(true);
             try {
-                pipe = sharedData.pipe();
+                pipe = sharedData.pipe(capacity);
                 ctx.getChildContextFDs().add(pipe[0]);
                 ctx.getChildContextFDs().add(pipe[1]);
             } finally {
@@ -286,32 +289,40 @@ public class MultiprocessingModuleBuiltins extends PythonBuiltins {
     @Builtin(name = "_write", minNumOfPositionalArgs = 2, parameterNames = {"fd", "data"})
     @GenerateNodeFactory
     public abstract static class WriteNode extends PythonBinaryBuiltinNode {
-        @Specialization(limit = "1")
-        Object doWrite(int fd, PBytes data,
-                        @CachedLibrary("data") PythonBufferAccessLibrary bufferLib,
+        @Specialization(limit = "3")
+        Object doWrite(VirtualFrame frame, int fd, Object data,
+                        @CachedLibrary("data") PythonBufferAcquireLibrary acquireLib,
+                        @CachedLibrary(limit = "1") PythonBufferAccessLibrary bufferLib,
                         @Cached GilNode gil) {
             SharedMultiprocessingData sharedData = getContext().getSharedMultiprocessingData();
-            gil.release(true);
+            Object buffer = acquireLib.acquireReadonly(data, frame, this);
             try {
-                byte[] bytes = bufferLib.getCopiedByteArray(data);
-                sharedData.addPipeData(fd, bytes,
-                                () -> {
-                                    throw PRaiseNode.raiseUncached(this, OSError, ErrorMessages.BAD_FILE_DESCRIPTOR);
-                                },
-                                () -> {
-                                    throw PConstructAndRaiseNode.getUncached().raiseOSError(null, OSErrorEnum.EPIPE.getNumber(), OSErrorEnum.EPIPE.getMessage(), null);
-                                });
-                return bytes.length;
+                byte[] bytes = bufferLib.getInternalOrCopiedByteArray(buffer);
+                int length = bufferLib.getBufferLength(buffer);
+                gil.release(true);
+                try {
+                    sharedData.addPipeData(this, fd, bytes, 0, length,
+                                    () -> {
+                                        throw PRaiseNode.raiseUncached(this, OSError, ErrorMessages.BAD_FILE_DESCRIPTOR);
+                                    },
+                                    () -> {
+                                        throw PConstructAndRaiseNode.getUncached().raiseOSError(null, OSErrorEnum.EPIPE.getNumber(), OSErrorEnum.EPIPE.getMessage(), null);
+                                    });
+                    return length;
+                } finally {
+                    gil.acquire();
+                }
             } finally {
-                gil.acquire();
+                bufferLib.release(buffer, frame, this);
             }
         }
 
-        @Specialization(limit = "1")
-        Object doWrite(long fd, PBytes data,
-                        @CachedLibrary("data") PythonBufferAccessLibrary bufferLib,
+        @Specialization(limit = "3")
+        Object doWrite(VirtualFrame frame, long fd, Object data,
+                        @CachedLibrary("data") PythonBufferAcquireLibrary acquireLib,
+                        @CachedLibrary(limit = "1") PythonBufferAccessLibrary bufferLib,
                         @Cached GilNode gil) {
-            return doWrite((int) fd, data, bufferLib, gil);
+            return doWrite(frame, (int) fd, data, acquireLib, bufferLib, gil);
         }
     }
 
@@ -324,13 +335,10 @@ public class MultiprocessingModuleBuiltins extends PythonBuiltins {
             SharedMultiprocessingData sharedData = getContext().getSharedMultiprocessingData();
             gil.release(true);
             try {
-                Object data = sharedData.takePipeData(this, fd, () -> {
+                byte[] data = sharedData.takePipeData(this, fd, () -> {
                     throw PRaiseNode.raiseUncached(this, OSError, ErrorMessages.BAD_FILE_DESCRIPTOR);
                 });
-                if (data == PNone.NONE) {
-                    return factory().createBytes(PythonUtils.EMPTY_BYTE_ARRAY, 0, 0);
-                }
-                return factory().createBytes((byte[]) data);
+                return factory().createBytes(data);
             } finally {
                 gil.acquire();
             }
@@ -343,6 +351,54 @@ public class MultiprocessingModuleBuiltins extends PythonBuiltins {
         }
     }
 
+    /**
+     * Receives the next message directly into a writable buffer starting at {@code offset}. Returns
+     * the size of the message, or the message as {@code bytes} if it does not fit into the buffer,
+     * so that the caller can raise {@code BufferTooShort}.
+     */
+    @Builtin(name = "_read_into", minNumOfPositionalArgs = 3, parameterNames = {"fd", "buffer", "offset"})
+    @GenerateNodeFactory
+    public abstract static class ReadIntoNode extends PythonTernaryBuiltinNode {
+        @Specialization(limit = "3")
+        Object doReadInto(VirtualFrame frame, long fd, Object bufferObj, int offset,
+                        @CachedLibrary("bufferObj") PythonBufferAcquireLibrary acquireLib,
+                        @CachedLibrary(limit = "1") PythonBufferAccessLibrary bufferLib,
+                        @Cached GilNode gil) {
+            SharedMultiprocessingData sharedData = getContext().getSharedMultiprocessingData();
+            Object buffer = acquireLib.acquireWritable(bufferObj, frame, this);
+            try {
+                int bufferLength = bufferLib.getBufferLength(buffer);
+                if (offset < 0) {
+                    throw raise(PythonBuiltinClassType.ValueError, ErrorMessages.OFFSET_CANNOT_BE_NEGATIVE);
+                } else if (offset > bufferLength) {
+                    throw raise(PythonBuiltinClassType.ValueError, ErrorMessages.OFFSET_TOO_LARGE);
+                }
+                boolean directWrite = bufferLib.hasInternalByteArray(buffer);
+                byte[] dst = directWrite ? bufferLib.getInternalByteArray(buffer) : new byte[bufferLength - offset];
+                int dstOffset = directWrite ? offset : 0;
+                Object result;
+                gil.release(true);
+                try {
+                    result = sharedData.readPipeDataInto(this, (int) fd, dst, dstOffset, bufferLength - offset, () -> {
+                        throw PRaiseNode.raiseUncached(this, OSError, ErrorMessages.BAD_FILE_DESCRIPTOR);
+                    });
+                } finally {
+                    gil.acquire();
+                }
+                if (result instanceof byte[] message) {
+                    return factory().createBytes(message);
+                }
+                int n = (int) result;
+                if (!directWrite) {
+                    bufferLib.writeFromByteArray(buffer, offset, dst, 0, n);
+                }
+                return n;
+            } finally {
+                bufferLib.release(buffer, frame, this);
+            }
+        }
+    }
+
     @Builtin(name = "_close", minNumOfPositionalArgs = 1, parameterNames = {"fd"})
     @GenerateNodeFactory
     public abstract static class CloseNode extends PythonUnaryBuiltinNode {
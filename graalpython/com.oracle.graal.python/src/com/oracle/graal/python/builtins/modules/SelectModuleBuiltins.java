@@ -42,17 +42,23 @@ package com.oracle.graal.python.builtins.modules;
 
 import static com.oracle.graal.python.runtime.PosixConstants.FD_SETSIZE;
 import static com.oracle.graal.python.runtime.exception.PythonErrorType.ValueError;
+import static com.oracle.graal.python.util.PythonUtils.tsLiteral;
 import static com.oracle.graal.python.util.TimeUtils.SEC_TO_NS;
 
 import java.util.List;
 
+import com.oracle.graal.python.annotations.ArgumentClinic;
+import com.oracle.graal.python.annotations.ArgumentClinic.ClinicConversion;
 import com.oracle.graal.python.builtins.Builtin;
 import com.oracle.graal.python.builtins.CoreFunctions;
 import com.oracle.graal.python.builtins.Python3Core;
 import com.oracle.graal.python.builtins.PythonBuiltinClassType;
 import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.modules.SelectModuleBuiltinsClinicProviders.EpollNodeClinicProviderGen;
 import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.exception.OSErrorEnum;
 import com.oracle.graal.python.builtins.objects.list.PList;
+import com.oracle.graal.python.builtins.objects.select.PEpoll;
 import com.oracle.graal.python.builtins.objects.tuple.PTuple;
 import com.oracle.graal.python.lib.PyObjectAsFileDescriptor;
 import com.oracle.graal.python.lib.PyObjectGetItem;
@@ -64,8 +70,11 @@ import com.oracle.graal.python.nodes.PGuards;
 import com.oracle.graal.python.nodes.builtins.ListNodes.FastConstructListNode;
 import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
 import com.oracle.graal.python.nodes.function.PythonBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonTernaryClinicBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.clinic.ArgumentClinicProvider;
 import com.oracle.graal.python.runtime.GilNode;
 import com.oracle.graal.python.runtime.PosixConstants;
+import com.oracle.graal.python.runtime.PosixConstants.IntConstant;
 import com.oracle.graal.python.runtime.PosixSupportLibrary;
 import com.oracle.graal.python.runtime.PosixSupportLibrary.ChannelNotSelectableException;
 import com.oracle.graal.python.runtime.PosixSupportLibrary.PosixException;
@@ -87,10 +96,14 @@ import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.library.CachedLibrary;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.profiles.InlinedBranchProfile;
+import com.oracle.truffle.api.strings.TruffleString;
 
 @CoreFunctions(defineModule = "select")
 public class SelectModuleBuiltins extends PythonBuiltins {
 
+    private static final TruffleString T_SELECT = tsLiteral("select");
+    private static final TruffleString T_EPOLL = tsLiteral("epoll");
+
     /*
      * ATTENTION: if we ever add "poll" support, update the code in
      * MultiprocessingModuleBuilins#SelectNode to use it if available
@@ -111,6 +124,57 @@ public class SelectModuleBuiltins extends PythonBuiltins {
         if (PosixConstants.PIPE_BUF.defined) {
             addBuiltinConstant("PIPE_BUF", PosixConstants.PIPE_BUF.getValueIfDefined());
         }
+        for (IntConstant c : PosixConstants.epollEvents) {
+            if (c.defined) {
+                // EPOLLET is the sign bit, but Python sees the masks as unsigned
+                addBuiltinConstant(c.name, Integer.toUnsignedLong(c.getValueIfDefined()));
+            }
+        }
+        if (PosixConstants.EPOLL_CLOEXEC.defined) {
+            addBuiltinConstant("EPOLL_CLOEXEC", PosixConstants.EPOLL_CLOEXEC.getValueIfDefined());
+        }
+    }
+
+    @Override
+    public void postInitialize(Python3Core core) {
+        super.postInitialize(core);
+        // Only platforms that define the epoll constants have epoll, in both backends. Hide it
+        // elsewhere so that 'selectors' does not pick an unusable default selector.
+        if (!PosixConstants.EPOLLIN.defined) {
+            core.lookupBuiltinModule(T_SELECT).setAttribute(T_EPOLL, PNone.NO_VALUE);
+        }
+    }
+
+    @Builtin(name = "epoll", constructsClass = PythonBuiltinClassType.PEpoll, minNumOfPositionalArgs = 1, parameterNames = {"$cls", "sizehint", "flags"}, //
+                    doc = "epoll(sizehint=-1, flags=0)\n--\n\nReturns an epolling object.\n\n" +
+                                    "  sizehint\n    The expected number of events to be registered.  It must be positive,\n" +
+                                    "    or -1 to use the default.  It is only used on older systems where\n    epoll_create1() is not available; otherwise it has no effect (though its\n" +
+                                    "    value is still checked).\n  flags\n    Deprecated and completely ignored.  However, when supplied, its value\n    must be 0 or select.EPOLL_CLOEXEC, otherwise OSError is raised.")
+    @ArgumentClinic(name = "sizehint", conversion = ClinicConversion.Int, defaultValue = "-1")
+    @ArgumentClinic(name = "flags", conversion = ClinicConversion.Int, defaultValue = "0")
+    @GenerateNodeFactory
+    abstract static class EpollNode extends PythonTernaryClinicBuiltinNode {
+
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return EpollNodeClinicProviderGen.INSTANCE;
+        }
+
+        @Specialization
+        PEpoll create(VirtualFrame frame, Object cls, int sizehint, int flags,
+                        @CachedLibrary("getPosixSupport()") PosixSupportLibrary posixLib) {
+            if (sizehint == 0 || sizehint < -1) {
+                throw raise(ValueError, ErrorMessages.NEGATIVE_SIZEHINT);
+            }
+            if (flags != 0 && flags != PosixConstants.EPOLL_CLOEXEC.getValueIfDefined()) {
+                throw raiseOSError(frame, OSErrorEnum.EINVAL);
+            }
+            try {
+                return factory().createEpoll(cls, posixLib.epollCreate(getPosixSupport()));
+            } catch (PosixException e) {
+                throw raiseOSErrorFromPosixException(frame, e);
+            }
+        }
     }
 
     @Builtin(name = "select", minNumOfPositionalArgs = 3, parameterNames = {"rlist", "wlist", "xlist", "timeout"})
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules;
+
+import static com.oracle.graal.python.nodes.BuiltinNames.J__STRUCT;
+
+import java.util.List;
+
+import com.oracle.graal.python.PythonLanguage;
+import com.oracle.graal.python.annotations.ArgumentClinic;
+import com.oracle.graal.python.annotations.ArgumentClinic.ClinicConversion;
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.bytes.PBytes;
+import com.oracle.graal.python.builtins.objects.struct.PStruct;
+import com.oracle.graal.python.builtins.objects.struct.PStructUnpackIterator;
+import com.oracle.graal.python.builtins.objects.struct.StructNodes.GetStructFormatNode;
+import com.oracle.graal.python.builtins.objects.struct.StructNodes.IterUnpackNode;
+import com.oracle.graal.python.builtins.objects.struct.StructNodes.PackBytesNode;
+import com.oracle.graal.python.builtins.objects.struct.StructNodes.PackIntoNode;
+import com.oracle.graal.python.builtins.objects.struct.StructNodes.UnpackBufferNode;
+import com.oracle.graal.python.builtins.objects.struct.StructNodes.UnpackFromNode;
+import com.oracle.graal.python.builtins.objects.tuple.PTuple;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonTernaryClinicBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.clinic.ArgumentClinicProvider;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+
+@CoreFunctions(defineModule = J__STRUCT)
+public class StructModuleBuiltins extends PythonBuiltins {
+
+    public StructModuleBuiltins() {
+        addBuiltinConstant("error", PythonBuiltinClassType.StructError);
+    }
+
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return StructModuleBuiltinsFactory.getFactories();
+    }
+
+    // Struct(format)
+    @Builtin(name = "Struct", minNumOfPositionalArgs = 2, constructsClass = PythonBuiltinClassType.PStruct, parameterNames = {"$cls", "format"})
+    @GenerateNodeFactory
+    abstract static class StructNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        PStruct construct(Object cls, Object format,
+                        @Cached GetStructFormatNode getStructFormatNode) {
+            return factory().createStruct(cls, getStructFormatNode.execute(format));
+        }
+    }
+
+    // pack(format, v1, v2, ...)
+    @Builtin(name = "pack", minNumOfPositionalArgs = 1, takesVarArgs = true)
+    @GenerateNodeFactory
+    abstract static class PackNode extends PythonBuiltinNode {
+        @Specialization
+        static PBytes pack(VirtualFrame frame, Object format, Object[] args,
+                        @Cached GetStructFormatNode getStructFormatNode,
+                        @Cached PackBytesNode packBytesNode) {
+            return packBytesNode.execute(frame, getStructFormatNode.execute(format), args);
+        }
+    }
+
+    // pack_into(format, buffer, offset, v1, v2, ...)
+    @Builtin(name = "pack_into", minNumOfPositionalArgs = 1, takesVarArgs = true)
+    @GenerateNodeFactory
+    abstract static class PackIntoBuiltinNode extends PythonBuiltinNode {
+        @Specialization
+        static PNone packInto(VirtualFrame frame, Object format, Object[] args,
+                        @Cached GetStructFormatNode getStructFormatNode,
+                        @Cached PackIntoNode packIntoNode) {
+            packIntoNode.execute(frame, getStructFormatNode.execute(format), args);
+            return PNone.NONE;
+        }
+    }
+
+    // unpack(format, buffer)
+    @Builtin(name = "unpack", minNumOfPositionalArgs = 2)
+    @GenerateNodeFactory
+    abstract static class UnpackNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static PTuple unpack(VirtualFrame frame, Object format, Object buffer,
+                        @Cached GetStructFormatNode getStructFormatNode,
+                        @Cached UnpackBufferNode unpackBufferNode) {
+            return unpackBufferNode.execute(frame, getStructFormatNode.execute(format), buffer);
+        }
+    }
+
+    // unpack_from(format, /, buffer, offset=0)
+    @Builtin(name = "unpack_from", minNumOfPositionalArgs = 2, numOfPositionalOnlyArgs = 1, parameterNames = {"format", "buffer", "offset"})
+    @ArgumentClinic(name = "offset", conversion = ClinicConversion.Index, defaultValue = "0")
+    @GenerateNodeFactory
+    abstract static class UnpackFromBuiltinNode extends PythonTernaryClinicBuiltinNode {
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return StructModuleBuiltinsClinicProviders.UnpackFromBuiltinNodeClinicProviderGen.INSTANCE;
+        }
+
+        @Specialization
+        static PTuple unpackFrom(VirtualFrame frame, Object format, Object buffer, int offset,
+                        @Cached GetStructFormatNode getStructFormatNode,
+                        @Cached UnpackFromNode unpackFromNode) {
+            return unpackFromNode.execute(frame, getStructFormatNode.execute(format), buffer, offset);
+        }
+    }
+
+    // iter_unpack(format, buffer)
+    @Builtin(name = "iter_unpack", minNumOfPositionalArgs = 2)
+    @GenerateNodeFactory
+    abstract static class IterUnpackBuiltinNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static PStructUnpackIterator iterUnpack(VirtualFrame frame, Object format, Object buffer,
+                        @Cached GetStructFormatNode getStructFormatNode,
+                        @Cached IterUnpackNode iterUnpackNode) {
+            return iterUnpackNode.execute(frame, getStructFormatNode.execute(format), buffer);
+        }
+    }
+
+    // calcsize(format)
+    @Builtin(name = "calcsize", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class CalcSizeNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static int calcsize(Object format,
+                        @Cached GetStructFormatNode getStructFormatNode) {
+            return getStructFormatNode.execute(format).getSize();
+        }
+    }
+
+    // _clearcache()
+    @Builtin(name = "_clearcache")
+    @GenerateNodeFactory
+    abstract static class ClearCacheNode extends PythonBuiltinNode {
+        @Specialization
+        @TruffleBoundary
+        PNone clearcache() {
+            PythonLanguage.get(this).structFormatCache.clear();
+            return PNone.NONE;
+        }
+    }
+}
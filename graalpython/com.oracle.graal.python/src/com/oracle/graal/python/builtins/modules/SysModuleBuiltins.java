@@ -1856,11 +1856,9 @@ public class SysModuleBuiltins extends PythonBuiltins {
                     "Return the current thread switch interval; see sys.setswitchinterval().")
     @GenerateNodeFactory
     abstract static class GetSwitchIntervalNode extends PythonBuiltinNode {
-        private static final double FACTOR = 1.e-6;
-
         @Specialization
         Object getCheckInterval(@SuppressWarnings("unused") PythonModule sys) {
-            return FACTOR * getContext().getSysModuleState().getSwitchInterval();
+            return getContext().getSysModuleState().getSwitchInterval();
         }
     }
 
@@ -1877,8 +1875,6 @@ public class SysModuleBuiltins extends PythonBuiltins {
                     "A typical value is 0.005 (5 milliseconds).")
     @GenerateNodeFactory
     abstract static class SetSwitchIntervalNode extends PythonBuiltinNode {
-        private static final double FACTOR = 1.e6;
-
         @Specialization
         Object setCheckInterval(VirtualFrame frame, @SuppressWarnings("unused") PythonModule sys, Object arg,
                         @Cached PyFloatAsDoubleNode floatAsDoubleNode) {
@@ -1886,7 +1882,8 @@ public class SysModuleBuiltins extends PythonBuiltins {
             if (interval <= 0.0) {
                 throw raise(ValueError, SWITCH_INTERVAL_MUST_BE_POSITIVE);
             }
-            getContext().getSysModuleState().setSwitchInterval(FACTOR * interval);
+            // picked up by the GIL release ticker of the AsyncHandler
+            getContext().getSysModuleState().setSwitchInterval(interval);
             return PNone.NONE;
         }
     }
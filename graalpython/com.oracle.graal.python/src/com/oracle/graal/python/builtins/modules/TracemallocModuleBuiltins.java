@@ -41,25 +41,42 @@
 package com.oracle.graal.python.builtins.modules;
 
 import static com.oracle.graal.python.nodes.BuiltinNames.J__TRACEMALLOC;
+import static com.oracle.graal.python.util.PythonUtils.tsLiteral;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
+import com.oracle.graal.python.annotations.ArgumentClinic;
 import com.oracle.graal.python.builtins.Builtin;
 import com.oracle.graal.python.builtins.CoreFunctions;
 import com.oracle.graal.python.builtins.Python3Core;
 import com.oracle.graal.python.builtins.PythonBuiltinClassType;
 import com.oracle.graal.python.builtins.PythonBuiltins;
-import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.tuple.PTuple;
+import com.oracle.graal.python.nodes.ErrorMessages;
 import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
 import com.oracle.graal.python.nodes.function.PythonBuiltinNode;
-import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryClinicBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.clinic.ArgumentClinicProvider;
+import com.oracle.graal.python.runtime.Tracemalloc;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.NodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.strings.TruffleString;
 
 @CoreFunctions(defineModule = J__TRACEMALLOC)
 public class TracemallocModuleBuiltins extends PythonBuiltins {
 
+    // the only domain we trace, native allocations are not traced
+    private static final int DEFAULT_DOMAIN = 0;
+
+    private static final TruffleString T_UNKNOWN = tsLiteral("<unknown>");
+
     @Override
     protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
         return TracemallocModuleBuiltinsFactory.getFactories();
@@ -70,13 +87,31 @@ public class TracemallocModuleBuiltins extends PythonBuiltins {
         super.initialize(core);
     }
 
+    static PTuple tracebackToTuple(PythonObjectFactory factory, Tracemalloc.Traceback traceback) {
+        Object[] frames = new Object[traceback.getNframe()];
+        for (int i = 0; i < frames.length; i++) {
+            TruffleString filename = traceback.getFilename(i);
+            frames[i] = factory.createTuple(new Object[]{filename != null ? filename : T_UNKNOWN, traceback.getLineno(i)});
+        }
+        return factory.createTuple(frames);
+    }
+
     @Builtin(name = "_get_object_traceback", minNumOfPositionalArgs = 1)
     @GenerateNodeFactory
-    abstract static class GetObjectTracebackNode extends PythonBuiltinNode {
+    abstract static class GetObjectTracebackNode extends PythonUnaryBuiltinNode {
         @Specialization
-        static Object getObjectTraceback(Object obj,
-                        @Cached PRaiseNode raiseNode) {
-            throw raiseNode.raise(PythonBuiltinClassType.NotImplementedError);
+        @TruffleBoundary
+        Object getObjectTraceback(Object obj) {
+            Tracemalloc tracemalloc = getContext().getTracemalloc();
+            if (!tracemalloc.isTracing()) {
+                return PNone.NONE;
+            }
+            Tracemalloc.Trace trace = tracemalloc.getTrace(obj);
+            if (trace == null) {
+                return PNone.NONE;
+            }
+            PythonObjectFactory factory = factory();
+            return tracemalloc.untraced(() -> tracebackToTuple(factory, trace.getTraceback()));
         }
     }
 
@@ -84,9 +119,158 @@ public class TracemallocModuleBuiltins extends PythonBuiltins {
     @GenerateNodeFactory
     abstract static class GetTracesNode extends PythonBuiltinNode {
         @Specialization
-        static Object getTraces(
-                        @Cached PRaiseNode raiseNode) {
-            throw raiseNode.raise(PythonBuiltinClassType.NotImplementedError);
+        @TruffleBoundary
+        Object getTraces() {
+            Tracemalloc tracemalloc = getContext().getTracemalloc();
+            PythonObjectFactory factory = factory();
+            if (!tracemalloc.isTracing()) {
+                return factory.createList();
+            }
+            return tracemalloc.untraced(() -> {
+                ArrayList<Tracemalloc.Trace> traces = tracemalloc.getTraces();
+                HashMap<Tracemalloc.Traceback, PTuple> tuples = new HashMap<>();
+                Object[] result = new Object[traces.size()];
+                for (int i = 0; i < result.length; i++) {
+                    Tracemalloc.Trace trace = traces.get(i);
+                    Tracemalloc.Traceback traceback = trace.getTraceback();
+                    PTuple frames = tuples.computeIfAbsent(traceback, tb -> tracebackToTuple(factory, tb));
+                    result[i] = factory.createTuple(new Object[]{DEFAULT_DOMAIN, trace.getSize(), frames, traceback.getTotalNframe()});
+                }
+                return factory.createList(result);
+            });
+        }
+    }
+
+    @Builtin(name = "start", parameterNames = {"nframe"}, doc = "start($module, nframe=1, /)\n" +
+                    "--\n" +
+                    "\n" +
+                    "Start tracing Python memory allocations.\n" +
+                    "\n" +
+                    "Also set the maximum number of frames stored in the traceback of a\n" +
+                    "trace to nframe.")
+    @ArgumentClinic(name = "nframe", conversion = ArgumentClinic.ClinicConversion.Int, defaultValue = "1")
+    @GenerateNodeFactory
+    abstract static class StartNode extends PythonUnaryClinicBuiltinNode {
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return TracemallocModuleBuiltinsClinicProviders.StartNodeClinicProviderGen.INSTANCE;
+        }
+
+        @Specialization
+        Object start(int nframe) {
+            if (nframe < 1 || nframe > Tracemalloc.MAX_NFRAME) {
+                throw raise(PythonBuiltinClassType.ValueError, ErrorMessages.THE_NUMBER_OF_FRAMES_MUST_BE_IN_RANGE, Tracemalloc.MAX_NFRAME);
+            }
+            getContext().getTracemalloc().start(getLanguage(), nframe);
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "stop", doc = "stop($module, /)\n" +
+                    "--\n" +
+                    "\n" +
+                    "Stop tracing Python memory allocations.\n" +
+                    "\n" +
+                    "Also clear traces of memory blocks allocated by Python.")
+    @GenerateNodeFactory
+    abstract static class StopNode extends PythonBuiltinNode {
+        @Specialization
+        Object stop() {
+            getContext().getTracemalloc().stop();
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "is_tracing", doc = "is_tracing($module, /)\n" +
+                    "--\n" +
+                    "\n" +
+                    "Return True if the tracemalloc module is tracing Python memory allocations.")
+    @GenerateNodeFactory
+    abstract static class IsTracingNode extends PythonBuiltinNode {
+        @Specialization
+        boolean isTracing() {
+            return getContext().getTracemalloc().isTracing();
+        }
+    }
+
+    @Builtin(name = "clear_traces", doc = "clear_traces($module, /)\n" +
+                    "--\n" +
+                    "\n" +
+                    "Clear traces of memory blocks allocated by Python.")
+    @GenerateNodeFactory
+    abstract static class ClearTracesNode extends PythonBuiltinNode {
+        @Specialization
+        Object clearTraces() {
+            getContext().getTracemalloc().clearTraces();
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "get_traceback_limit", doc = "get_traceback_limit($module, /)\n" +
+                    "--\n" +
+                    "\n" +
+                    "Get the maximum number of frames stored in the traceback of a trace.\n" +
+                    "\n" +
+                    "By default, a trace of an allocated memory block only stores\n" +
+                    "the most recent frame: the limit is 1.")
+    @GenerateNodeFactory
+    abstract static class GetTracebackLimitNode extends PythonBuiltinNode {
+        @Specialization
+        int getTracebackLimit() {
+            return getContext().getTracemalloc().getMaxNframe();
+        }
+    }
+
+    @Builtin(name = "get_traced_memory", doc = "get_traced_memory($module, /)\n" +
+                    "--\n" +
+                    "\n" +
+                    "Get the current size and peak size of memory blocks traced by tracemalloc.\n" +
+                    "\n" +
+                    "Returns a tuple: (current: int, peak: int).")
+    @GenerateNodeFactory
+    abstract static class GetTracedMemoryNode extends PythonBuiltinNode {
+        @Specialization
+        @TruffleBoundary
+        Object getTracedMemory() {
+            Tracemalloc tracemalloc = getContext().getTracemalloc();
+            if (!tracemalloc.isTracing()) {
+                return factory().createTuple(new Object[]{0, 0});
+            }
+            long current = tracemalloc.getTracedMemory();
+            return factory().createTuple(new Object[]{current, tracemalloc.getPeakTracedMemory()});
+        }
+    }
+
+    @Builtin(name = "reset_peak", doc = "reset_peak($module, /)\n" +
+                    "--\n" +
+                    "\n" +
+                    "Set the peak size of memory blocks traced by tracemalloc to the current size.\n" +
+                    "\n" +
+                    "Do nothing if the tracemalloc module is not tracing memory allocations.")
+    @GenerateNodeFactory
+    abstract static class ResetPeakNode extends PythonBuiltinNode {
+        @Specialization
+        @TruffleBoundary
+        Object resetPeak() {
+            Tracemalloc tracemalloc = getContext().getTracemalloc();
+            if (tracemalloc.isTracing()) {
+                tracemalloc.resetPeak();
+            }
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "get_tracemalloc_memory", doc = "get_tracemalloc_memory($module, /)\n" +
+                    "--\n" +
+                    "\n" +
+                    "Get the memory usage in bytes of the tracemalloc module.\n" +
+                    "\n" +
+                    "This memory is used internally to trace memory allocations.")
+    @GenerateNodeFactory
+    abstract static class GetTracemallocMemoryNode extends PythonBuiltinNode {
+        @Specialization
+        long getTracemallocMemory() {
+            return getContext().getTracemalloc().getTracemallocMemory();
         }
     }
 }
@@ -10,6 +10,7 @@ import static com.oracle.graal.python.builtins.PythonBuiltinClassType.PList;
 import static com.oracle.graal.python.builtins.PythonBuiltinClassType.PTuple;
 import static com.oracle.graal.python.builtins.PythonBuiltinClassType.TypeError;
 import static com.oracle.graal.python.builtins.PythonBuiltinClassType.ValueError;
+import static com.oracle.graal.python.nodes.PGuards.isBuiltinDict;
 import static com.oracle.graal.python.nodes.PGuards.isDouble;
 import static com.oracle.graal.python.nodes.PGuards.isInteger;
 import static com.oracle.graal.python.nodes.PGuards.isPFloat;
@@ -36,6 +37,10 @@ import com.oracle.graal.python.builtins.Builtin;
 import com.oracle.graal.python.builtins.CoreFunctions;
 import com.oracle.graal.python.builtins.PythonBuiltinClassType;
 import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.modules.json.JSONEncoderBuiltinsFactory.AppendJSONStringNodeGen;
+import com.oracle.graal.python.builtins.modules.json.JSONEncoderBuiltinsFactory.AppendValueNodeGen;
+import com.oracle.graal.python.builtins.modules.json.JSONModuleBuiltins.AppendEscapedStringNode;
+import com.oracle.graal.python.builtins.modules.json.JSONModuleBuiltinsFactory.AppendEscapedStringNodeGen;
 import com.oracle.graal.python.builtins.objects.PNone;
 import com.oracle.graal.python.builtins.objects.common.HashingStorage;
 import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageGetIterator;
@@ -44,6 +49,7 @@ import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.Hashi
 import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorNext;
 import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorValue;
 import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageLen;
+import com.oracle.graal.python.builtins.objects.common.SequenceStorageNodes.GetItemScalarNode;
 import com.oracle.graal.python.builtins.objects.dict.PDict;
 import com.oracle.graal.python.builtins.objects.floats.FloatBuiltins;
 import com.oracle.graal.python.builtins.objects.floats.PFloat;
@@ -56,6 +62,7 @@ import com.oracle.graal.python.builtins.objects.tuple.PTuple;
 import com.oracle.graal.python.builtins.objects.type.SpecialMethodSlot;
 import com.oracle.graal.python.lib.GetNextNode;
 import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PNodeWithRaise;
 import com.oracle.graal.python.nodes.PRaiseNode;
 import com.oracle.graal.python.nodes.SpecialMethodNames;
 import com.oracle.graal.python.nodes.builtins.ListNodes.ConstructListNode;
@@ -70,14 +77,19 @@ import com.oracle.graal.python.runtime.exception.PException;
 import com.oracle.graal.python.runtime.formatting.FloatFormatter;
 import com.oracle.graal.python.runtime.sequence.PSequence;
 import com.oracle.graal.python.runtime.sequence.storage.SequenceStorage;
+import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Bind;
 import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Cached.Shared;
+import com.oracle.truffle.api.dsl.Fallback;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NeverDefault;
 import com.oracle.truffle.api.dsl.NodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.strings.TruffleString;
 import com.oracle.truffle.api.strings.TruffleStringBuilder;
-import com.oracle.truffle.api.strings.TruffleStringIterator;
 
 @CoreFunctions(extendClasses = PythonBuiltinClassType.JSONEncoder)
 public class JSONEncoderBuiltins extends PythonBuiltins {
@@ -98,11 +110,6 @@ public class JSONEncoderBuiltins extends PythonBuiltins {
     @ArgumentClinic(name = "_current_indent_level", conversion = ArgumentClinic.ClinicConversion.Int, defaultValue = "0", useDefaultForNone = true)
     @GenerateNodeFactory
     public abstract static class CallEncoderNode extends PythonTernaryClinicBuiltinNode {
-        @Child private LookupAndCallUnaryNode callGetItems = LookupAndCallUnaryNode.create(SpecialMethodNames.T_ITEMS);
-        @Child private LookupAndCallUnaryNode callGetDictIter = LookupAndCallUnaryNode.create(SpecialMethodSlot.Iter);
-        @Child private LookupAndCallUnaryNode callGetListIter = LookupAndCallUnaryNode.create(SpecialMethodSlot.Iter);
-        @Child private ListSortNode sortList = ListSortNode.create();
-        private static final TruffleStringBuilder.AppendStringNode appendStringNode = TruffleStringBuilder.AppendStringNode.getUncached();
 
         @Override
         protected ArgumentClinicProvider getArgumentClinic() {
@@ -111,53 +118,294 @@ public class JSONEncoderBuiltins extends PythonBuiltins {
 
         @Specialization
         protected PTuple call(PJSONEncoder self, Object obj, @SuppressWarnings("unused") int indent,
+                        @Cached(parameters = "0") AppendValueNode appendValueNode,
                         @Cached TruffleStringBuilder.ToStringNode toStringNode) {
             TruffleStringBuilder builder = TruffleStringBuilder.create(TS_ENCODING);
-            appendListObj(self, builder, obj);
+            appendValueNode.execute(self, builder, obj);
             return factory().createTuple(new Object[]{toStringNode.execute(builder)});
         }
+    }
 
-        private void appendConst(TruffleStringBuilder builder, Object obj) {
-            if (obj == PNone.NONE) {
-                appendStringNode.execute(builder, T_NULL);
-            } else if (obj == Boolean.TRUE) {
-                appendStringNode.execute(builder, T_JSON_TRUE);
+    /**
+     * Appends the JSON representation of a value. The common element types get their own
+     * specializations and exact lists, tuples and dicts are encoded by a child node one level
+     * deeper, so that the encoding of a regularly shaped document compiles into straight-line
+     * code. Containers nested deeper than {@link #MAX_INLINE_DEPTH} and all other objects are
+     * handled by {@link GenericEncoderNode}.
+     */
+    abstract static class AppendValueNode extends PNodeWithRaise {
+        static final int MAX_INLINE_DEPTH = 8;
+
+        final int depth;
+        @Child private AppendValueNode itemNode;
+
+        AppendValueNode(int depth) {
+            this.depth = depth;
+        }
+
+        abstract void execute(PJSONEncoder encoder, TruffleStringBuilder builder, Object obj);
+
+        @Specialization(guards = "isNone(obj)")
+        static void doNone(@SuppressWarnings("unused") PJSONEncoder encoder, TruffleStringBuilder builder, @SuppressWarnings("unused") PNone obj,
+                        @Shared("append") @Cached TruffleStringBuilder.AppendStringNode appendStringNode) {
+            appendStringNode.execute(builder, T_NULL);
+        }
+
+        @Specialization
+        static void doBoolean(@SuppressWarnings("unused") PJSONEncoder encoder, TruffleStringBuilder builder, boolean obj,
+                        @Shared("append") @Cached TruffleStringBuilder.AppendStringNode appendStringNode) {
+            appendStringNode.execute(builder, obj ? T_JSON_TRUE : T_JSON_FALSE);
+        }
+
+        @Specialization
+        static void doInt(@SuppressWarnings("unused") PJSONEncoder encoder, TruffleStringBuilder builder, int obj,
+                        @Shared("appendLong") @Cached TruffleStringBuilder.AppendLongNumberNode appendLongNumberNode) {
+            appendLongNumberNode.execute(builder, obj);
+        }
+
+        @Specialization
+        static void doLong(@SuppressWarnings("unused") PJSONEncoder encoder, TruffleStringBuilder builder, long obj,
+                        @Shared("appendLong") @Cached TruffleStringBuilder.AppendLongNumberNode appendLongNumberNode) {
+            appendLongNumberNode.execute(builder, obj);
+        }
+
+        @Specialization
+        void doDouble(PJSONEncoder encoder, TruffleStringBuilder builder, double obj,
+                        @Shared("append") @Cached TruffleStringBuilder.AppendStringNode appendStringNode) {
+            appendStringNode.execute(builder, formatFloat(this, encoder, obj));
+        }
+
+        @Specialization
+        static void doString(PJSONEncoder encoder, TruffleStringBuilder builder, TruffleString obj,
+                        @Shared("appendString") @Cached AppendJSONStringNode appendJSONStringNode) {
+            appendJSONStringNode.execute(encoder, builder, obj);
+        }
+
+        @Specialization
+        static void doPString(PJSONEncoder encoder, TruffleStringBuilder builder, PString obj,
+                        @Cached CastToTruffleStringNode castToTruffleStringNode,
+                        @Shared("appendString") @Cached AppendJSONStringNode appendJSONStringNode) {
+            appendJSONStringNode.execute(encoder, builder, castToTruffleStringNode.execute(obj));
+        }
+
+        @Specialization(guards = "depth < MAX_INLINE_DEPTH")
+        void doList(PJSONEncoder encoder, TruffleStringBuilder builder, PList list,
+                        @Bind("this") Node inliningTarget,
+                        @Cached IsBuiltinObjectProfile isListProfile,
+                        @Shared("getItem") @Cached GetItemScalarNode getItemNode,
+                        @Shared("append") @Cached TruffleStringBuilder.AppendStringNode appendStringNode,
+                        @Shared("generic") @Cached GenericEncoderNode genericNode) {
+            if (isListProfile.profileObject(inliningTarget, list, PythonBuiltinClassType.PList)) {
+                appendSequence(encoder, builder, list, getItemNode, appendStringNode);
             } else {
-                assert obj == Boolean.FALSE;
-                appendStringNode.execute(builder, T_JSON_FALSE);
+                genericNode.execute(encoder, builder, list);
+            }
+        }
+
+        @Specialization(guards = "depth < MAX_INLINE_DEPTH")
+        void doTuple(PJSONEncoder encoder, TruffleStringBuilder builder, PTuple tuple,
+                        @Bind("this") Node inliningTarget,
+                        @Cached IsBuiltinObjectProfile isTupleProfile,
+                        @Shared("getItem") @Cached GetItemScalarNode getItemNode,
+                        @Shared("append") @Cached TruffleStringBuilder.AppendStringNode appendStringNode,
+                        @Shared("generic") @Cached GenericEncoderNode genericNode) {
+            if (isTupleProfile.profileObject(inliningTarget, tuple, PythonBuiltinClassType.PTuple)) {
+                appendSequence(encoder, builder, tuple, getItemNode, appendStringNode);
+            } else {
+                genericNode.execute(encoder, builder, tuple);
             }
         }
 
-        private void appendFloat(PJSONEncoder encoder, TruffleStringBuilder builder, double obj) {
-            if (!Double.isFinite(obj)) {
-                if (!encoder.allowNan) {
-                    throw raise(ValueError, ErrorMessages.OUT_OF_RANGE_FLOAT_NOT_JSON_COMPLIANT);
+        @Specialization(guards = "depth < MAX_INLINE_DEPTH")
+        void doDict(PJSONEncoder encoder, TruffleStringBuilder builder, PDict dict,
+                        @Cached HashingStorageLen lenNode,
+                        @Cached HashingStorageGetIterator getIteratorNode,
+                        @Cached HashingStorageIteratorNext iteratorNextNode,
+                        @Cached HashingStorageIteratorKey iteratorKeyNode,
+                        @Cached HashingStorageIteratorValue iteratorValueNode,
+                        @Shared("appendString") @Cached AppendJSONStringNode appendJSONStringNode,
+                        @Shared("append") @Cached TruffleStringBuilder.AppendStringNode appendStringNode,
+                        @Shared("generic") @Cached GenericEncoderNode genericNode) {
+            if (encoder.sortKeys || !isBuiltinDict(dict)) {
+                genericNode.execute(encoder, builder, dict);
+                return;
+            }
+            HashingStorage storage = dict.getDictStorage();
+            if (lenNode.execute(storage) == 0) {
+                appendStringNode.execute(builder, T_EMPTY_BRACES);
+                return;
+            }
+            startRecursion(this, encoder, dict);
+            appendStringNode.execute(builder, T_LBRACE);
+            AppendValueNode valueNode = getValueNode();
+            HashingStorageIterator it = getIteratorNode.execute(storage);
+            boolean first = true;
+            while (iteratorNextNode.execute(storage, it)) {
+                Object key = iteratorKeyNode.execute(storage, it);
+                if (key instanceof TruffleString) {
+                    if (!first) {
+                        appendStringNode.execute(builder, encoder.itemSeparator);
+                    }
+                    appendJSONStringNode.execute(encoder, builder, (TruffleString) key);
+                    appendStringNode.execute(builder, encoder.keySeparator);
+                } else if (!genericNode.appendDictKey(encoder, builder, first, key)) {
+                    continue;
                 }
-                if (obj > 0) {
-                    appendStringNode.execute(builder, T_POSITIVE_INFINITY);
-                } else if (obj < 0) {
-                    appendStringNode.execute(builder, T_NEGATIVE_INFINITY);
-                } else {
-                    appendStringNode.execute(builder, T_NAN);
+                first = false;
+                valueNode.execute(encoder, builder, iteratorValueNode.execute(storage, it));
+            }
+            appendStringNode.execute(builder, T_RBRACE);
+            endRecursion(encoder, dict);
+        }
+
+        @Fallback
+        static void doGeneric(PJSONEncoder encoder, TruffleStringBuilder builder, Object obj,
+                        @Shared("generic") @Cached GenericEncoderNode genericNode) {
+            genericNode.execute(encoder, builder, obj);
+        }
+
+        private void appendSequence(PJSONEncoder encoder, TruffleStringBuilder builder, PSequence sequence, GetItemScalarNode getItemNode,
+                        TruffleStringBuilder.AppendStringNode appendStringNode) {
+            if (sequence.getSequenceStorage().length() == 0) {
+                appendStringNode.execute(builder, T_EMPTY_BRACKETS);
+                return;
+            }
+            startRecursion(this, encoder, sequence);
+            appendStringNode.execute(builder, T_LBRACKET);
+            AppendValueNode valueNode = getValueNode();
+            // the storage is re-read in every iteration since the default function may modify it
+            for (int i = 0; i < sequence.getSequenceStorage().length(); i++) {
+                if (i > 0) {
+                    appendStringNode.execute(builder, encoder.itemSeparator);
+                }
+                valueNode.execute(encoder, builder, getItemNode.execute(sequence.getSequenceStorage(), i));
+            }
+            appendStringNode.execute(builder, T_RBRACKET);
+            endRecursion(encoder, sequence);
+        }
+
+        private AppendValueNode getValueNode() {
+            if (itemNode == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                itemNode = insert(AppendValueNodeGen.create(depth + 1));
+            }
+            return itemNode;
+        }
+
+        @NeverDefault
+        static AppendValueNode create(int depth) {
+            return AppendValueNodeGen.create(depth);
+        }
+    }
+
+    /**
+     * Appends a string as JSON string, either using the builtin escaping or by calling the
+     * {@code encoder} function of the encoder.
+     */
+    abstract static class AppendJSONStringNode extends PNodeWithRaise {
+
+        abstract void execute(PJSONEncoder encoder, TruffleStringBuilder builder, TruffleString obj);
+
+        @Specialization
+        void doIt(PJSONEncoder encoder, TruffleStringBuilder builder, TruffleString obj,
+                        @Cached AppendEscapedStringNode appendEscapedStringNode,
+                        @Cached CallUnaryMethodNode callEncoderNode,
+                        @Cached CastToTruffleStringNode castToTruffleStringNode,
+                        @Cached TruffleStringBuilder.AppendStringNode appendStringNode) {
+            switch (encoder.fastEncode) {
+                case FastEncode:
+                    appendEscapedStringNode.execute(builder, obj, false);
+                    break;
+                case FastEncodeAscii:
+                    appendEscapedStringNode.execute(builder, obj, true);
+                    break;
+                case None:
+                    Object result = callEncoderNode.executeObject(encoder.encoder, obj);
+                    if (!isString(result)) {
+                        throw raise(TypeError, ErrorMessages.ENCODER_MUST_RETURN_STR, result);
+                    }
+                    appendStringNode.execute(builder, castToTruffleStringNode.execute(result));
+                    break;
+                default:
+                    throw CompilerDirectives.shouldNotReachHere();
+            }
+        }
+
+        @NeverDefault
+        static AppendJSONStringNode create() {
+            return AppendJSONStringNodeGen.create();
+        }
+    }
+
+    /**
+     * Encodes arbitrary objects using uncached nodes: int and float subclasses, subclasses of
+     * containers, sorted dicts, objects that need the {@code default} function and containers
+     * nested too deep to be handled by {@link AppendValueNode}.
+     */
+    static final class GenericEncoderNode extends PNodeWithRaise {
+        @Child private LookupAndCallUnaryNode callGetItems = LookupAndCallUnaryNode.create(SpecialMethodNames.T_ITEMS);
+        @Child private LookupAndCallUnaryNode callGetDictIter = LookupAndCallUnaryNode.create(SpecialMethodSlot.Iter);
+        @Child private LookupAndCallUnaryNode callGetListIter = LookupAndCallUnaryNode.create(SpecialMethodSlot.Iter);
+        @Child private ListSortNode sortList = ListSortNode.create();
+        private static final TruffleStringBuilder.AppendStringNode appendStringNode = TruffleStringBuilder.AppendStringNode.getUncached();
+
+        @NeverDefault
+        static GenericEncoderNode create() {
+            return new GenericEncoderNode();
+        }
+
+        @TruffleBoundary
+        void execute(PJSONEncoder encoder, TruffleStringBuilder builder, Object obj) {
+            appendListObj(encoder, builder, obj);
+        }
+
+        /**
+         * Appends the item separator (unless this is the first entry), the key and the key
+         * separator. Returns {@code false} if the key is skipped.
+         */
+        @TruffleBoundary
+        boolean appendDictKey(PJSONEncoder encoder, TruffleStringBuilder builder, boolean first, Object key) {
+            if (isString(key)) {
+                if (!first) {
+                    appendStringNode.execute(builder, encoder.itemSeparator);
                 }
+                appendSimpleObj(encoder, builder, key);
             } else {
-                appendStringNode.execute(builder, formatDouble(obj));
+                if (!isSimpleObj(key)) {
+                    if (encoder.skipKeys) {
+                        return false;
+                    }
+                    throw raise(TypeError, ErrorMessages.KEYS_MUST_BE_STR_INT___NOT_P, key);
+                }
+                if (!first) {
+                    appendStringNode.execute(builder, encoder.itemSeparator);
+                }
+                appendStringNode.execute(builder, T_DOUBLE_QUOTE);
+                appendSimpleObj(encoder, builder, key);
+                appendStringNode.execute(builder, T_DOUBLE_QUOTE);
             }
+            appendStringNode.execute(builder, encoder.keySeparator);
+            return true;
         }
 
-        private static TruffleString formatDouble(double obj) {
-            FloatFormatter f = new FloatFormatter(PRaiseNode.getUncached(), FloatBuiltins.StrNode.spec);
-            f.setMinFracDigits(1);
-            return FloatBuiltins.StrNode.doFormat(obj, f);
+        private void appendConst(TruffleStringBuilder builder, Object obj) {
+            if (obj == PNone.NONE) {
+                appendStringNode.execute(builder, T_NULL);
+            } else if (obj == Boolean.TRUE) {
+                appendStringNode.execute(builder, T_JSON_TRUE);
+            } else {
+                assert obj == Boolean.FALSE;
+                appendStringNode.execute(builder, T_JSON_FALSE);
+            }
         }
 
         private void appendString(PJSONEncoder encoder, TruffleStringBuilder builder, TruffleString obj) {
             switch (encoder.fastEncode) {
                 case FastEncode:
-                    appendString(obj, builder, false);
+                    AppendEscapedStringNodeGen.getUncached().execute(builder, obj, false);
                     break;
                 case FastEncodeAscii:
-                    appendString(obj, builder, true);
+                    AppendEscapedStringNodeGen.getUncached().execute(builder, obj, true);
                     break;
                 case None:
                     Object result = CallUnaryMethodNode.getUncached().executeObject(encoder.encoder, obj);
@@ -172,11 +420,6 @@ public class JSONEncoderBuiltins extends PythonBuiltins {
             }
         }
 
-        private static void appendString(TruffleString obj, TruffleStringBuilder builder, boolean asciiOnly) {
-            JSONModuleBuiltins.appendString(TruffleString.CreateCodePointIteratorNode.getUncached().execute(obj, TS_ENCODING), builder, asciiOnly,
-                            TruffleStringIterator.NextNode.getUncached(), TruffleStringBuilder.AppendCodePointNode.getUncached());
-        }
-
         private static boolean isSimpleObj(Object obj) {
             return obj == PNone.NONE || obj == Boolean.TRUE || obj == Boolean.FALSE || isString(obj) || isInteger(obj) || isPInt(obj) || obj instanceof Float || isDouble(obj) || isPFloat(obj);
         }
@@ -197,18 +440,17 @@ public class JSONEncoderBuiltins extends PythonBuiltins {
             } else if (obj instanceof PInt) {
                 appendStringNode.execute(builder, TruffleString.FromJavaStringNode.getUncached().execute(castExact(obj, PInt.class).toString(), TS_ENCODING));
             } else if (obj instanceof Float) {
-                appendFloat(encoder, builder, (float) obj);
+                appendStringNode.execute(builder, formatFloat(this, encoder, (float) obj));
             } else if (obj instanceof Double) {
-                appendFloat(encoder, builder, (double) obj);
+                appendStringNode.execute(builder, formatFloat(this, encoder, (double) obj));
             } else if (obj instanceof PFloat) {
-                appendFloat(encoder, builder, ((PFloat) obj).asDouble());
+                appendStringNode.execute(builder, formatFloat(this, encoder, ((PFloat) obj).asDouble()));
             } else {
                 return false;
             }
             return true;
         }
 
-        @TruffleBoundary
         private void appendListObj(PJSONEncoder encoder, TruffleStringBuilder builder, Object obj) {
             if (appendSimpleObj(encoder, builder, obj)) {
                 // done
@@ -217,34 +459,20 @@ public class JSONEncoderBuiltins extends PythonBuiltins {
             } else if (obj instanceof PDict) {
                 appendDict(encoder, builder, (PDict) obj);
             } else {
-                startRecursion(encoder, obj);
+                startRecursion(this, encoder, obj);
                 Object newObj = CallUnaryMethodNode.getUncached().executeObject(encoder.defaultFn, obj);
                 appendListObj(encoder, builder, newObj);
                 endRecursion(encoder, obj);
             }
         }
 
-        private static void endRecursion(PJSONEncoder encoder, Object obj) {
-            if (encoder.markers != PNone.NONE) {
-                encoder.removeCircular(obj);
-            }
-        }
-
-        private void startRecursion(PJSONEncoder encoder, Object obj) {
-            if (encoder.markers != PNone.NONE) {
-                if (!encoder.tryAddCircular(obj)) {
-                    throw raise(ValueError, ErrorMessages.CIRCULAR_REFERENCE_DETECTED);
-                }
-            }
-        }
-
         private void appendDict(PJSONEncoder encoder, TruffleStringBuilder builder, PDict dict) {
             HashingStorage storage = dict.getDictStorage();
 
             if (HashingStorageLen.executeUncached(storage) == 0) {
                 appendStringNode.execute(builder, T_EMPTY_BRACES);
             } else {
-                startRecursion(encoder, dict);
+                startRecursion(this, encoder, dict);
                 appendStringNode.execute(builder, T_LBRACE);
 
                 if (!encoder.sortKeys && IsBuiltinObjectProfile.profileObjectUncached(dict, PDict)) {
@@ -290,23 +518,9 @@ public class JSONEncoderBuiltins extends PythonBuiltins {
         }
 
         private boolean appendDictEntry(PJSONEncoder encoder, TruffleStringBuilder builder, boolean first, Object key, Object value) {
-            if (!first) {
-                appendStringNode.execute(builder, encoder.itemSeparator);
+            if (!appendDictKey(encoder, builder, first, key)) {
+                return first;
             }
-            if (isString(key)) {
-                appendSimpleObj(encoder, builder, key);
-            } else {
-                if (!isSimpleObj(key)) {
-                    if (encoder.skipKeys) {
-                        return true;
-                    }
-                    throw raise(TypeError, ErrorMessages.KEYS_MUST_BE_STR_INT___NOT_P, key);
-                }
-                appendStringNode.execute(builder, T_DOUBLE_QUOTE);
-                appendSimpleObj(encoder, builder, key);
-                appendStringNode.execute(builder, T_DOUBLE_QUOTE);
-            }
-            appendStringNode.execute(builder, encoder.keySeparator);
             appendListObj(encoder, builder, value);
             return false;
         }
@@ -317,7 +531,7 @@ public class JSONEncoderBuiltins extends PythonBuiltins {
             if (storage.length() == 0) {
                 appendStringNode.execute(builder, T_EMPTY_BRACKETS);
             } else {
-                startRecursion(encoder, list);
+                startRecursion(this, encoder, list);
                 appendStringNode.execute(builder, T_LBRACKET);
 
                 if (IsBuiltinObjectProfile.profileObjectUncached(list, PTuple) || IsBuiltinObjectProfile.profileObjectUncached(list, PList)) {
@@ -355,4 +569,41 @@ public class JSONEncoderBuiltins extends PythonBuiltins {
             }
         }
     }
+
+    private static TruffleString formatFloat(PNodeWithRaise node, PJSONEncoder encoder, double obj) {
+        if (!Double.isFinite(obj)) {
+            if (!encoder.allowNan) {
+                throw node.raise(ValueError, ErrorMessages.OUT_OF_RANGE_FLOAT_NOT_JSON_COMPLIANT);
+            }
+            if (obj > 0) {
+                return T_POSITIVE_INFINITY;
+            } else if (obj < 0) {
+                return T_NEGATIVE_INFINITY;
+            } else {
+                return T_NAN;
+            }
+        }
+        return formatDouble(obj);
+    }
+
+    @TruffleBoundary
+    private static TruffleString formatDouble(double obj) {
+        FloatFormatter f = new FloatFormatter(PRaiseNode.getUncached(), FloatBuiltins.StrNode.spec);
+        f.setMinFracDigits(1);
+        return FloatBuiltins.StrNode.doFormat(obj, f);
+    }
+
+    private static void startRecursion(PNodeWithRaise node, PJSONEncoder encoder, Object obj) {
+        if (encoder.markers != PNone.NONE) {
+            if (!encoder.tryAddCircular(obj)) {
+                throw node.raise(ValueError, ErrorMessages.CIRCULAR_REFERENCE_DETECTED);
+            }
+        }
+    }
+
+    private static void endRecursion(PJSONEncoder encoder, Object obj) {
+        if (encoder.markers != PNone.NONE) {
+            encoder.removeCircular(obj);
+        }
+    }
 }
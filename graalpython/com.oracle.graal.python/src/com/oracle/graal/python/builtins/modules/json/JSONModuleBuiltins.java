@@ -25,7 +25,7 @@ import com.oracle.graal.python.builtins.objects.PNone;
 import com.oracle.graal.python.builtins.objects.dict.PDict;
 import com.oracle.graal.python.builtins.objects.function.PBuiltinFunction;
 import com.oracle.graal.python.builtins.objects.method.PBuiltinMethod;
-import com.oracle.graal.python.builtins.objects.str.StringNodes.CastToJavaStringCheckedNode;
+import com.oracle.graal.python.builtins.objects.str.StringNodes.CastToTruffleStringCheckedNode;
 import com.oracle.graal.python.nodes.ErrorMessages;
 import com.oracle.graal.python.nodes.SpecialAttributeNames;
 import com.oracle.graal.python.nodes.attributes.GetAttributeNode.GetFixedAttributeNode;
@@ -40,9 +40,12 @@ import com.oracle.graal.python.runtime.object.PythonObjectFactory;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.GenerateUncached;
+import com.oracle.truffle.api.dsl.NeverDefault;
 import com.oracle.truffle.api.dsl.NodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.strings.TruffleString;
 import com.oracle.truffle.api.strings.TruffleStringBuilder;
 import com.oracle.truffle.api.strings.TruffleStringIterator;
@@ -63,7 +66,7 @@ public class JSONModuleBuiltins extends PythonBuiltins {
 
     }
 
-    static boolean isWhitespace(char c) {
+    static boolean isWhitespace(int c) {
         return c == ' ' || c == '\t' || c == '\n' || c == '\r';
     }
 
@@ -90,11 +93,15 @@ public class JSONModuleBuiltins extends PythonBuiltins {
 
         @Specialization
         Object call(Object string, int end, boolean strict,
-                        @Cached CastToJavaStringCheckedNode castString,
+                        @Cached CastToTruffleStringCheckedNode castString,
+                        @Cached TruffleString.GetCodeRangeNode getCodeRangeNode,
+                        @Cached TruffleString.SwitchEncodingNode switchEncodingNode,
+                        @Cached TruffleString.GetInternalByteArrayNode getInternalByteArrayNode,
                         @Cached PythonObjectFactory factory) {
             IntRef nextIdx = new IntRef();
-            TruffleString result = JSONScannerBuiltins.scanStringUnicode(castString.cast(string, ErrorMessages.FIRST_ARG_MUST_BE_STRING_NOT_P, string), end, strict, nextIdx,
-                            this);
+            TruffleString str = castString.cast(string, ErrorMessages.FIRST_ARG_MUST_BE_STRING_NOT_P, string);
+            JSONScannerSource source = JSONScannerSource.create(str, getCodeRangeNode, switchEncodingNode, getInternalByteArrayNode);
+            TruffleString result = JSONScannerBuiltins.scanStringUnicode(source, end, strict, nextIdx, this);
             return factory.createTuple(new Object[]{result, nextIdx.value});
         }
     }
@@ -114,15 +121,13 @@ public class JSONModuleBuiltins extends PythonBuiltins {
 
         @Specialization
         TruffleString call(TruffleString string,
-                        @Cached TruffleString.CreateCodePointIteratorNode createCodePointIteratorNode,
-                        @Cached TruffleStringIterator.NextNode nextNode,
-                        @Cached TruffleStringBuilder.AppendCodePointNode appendCodePointNode,
+                        @Cached AppendEscapedStringNode appendEscapedStringNode,
                         @Cached TruffleStringBuilder.ToStringNode toStringNode) {
             try {
                 int len = string.byteLength(TS_ENCODING);
                 // 12.5% overallocated, TruffleStringBuilder.ToStringNode will copy anyway
                 TruffleStringBuilder builder = TruffleStringBuilder.create(TS_ENCODING, len + (len >> 3) + 2);
-                appendString(createCodePointIteratorNode.execute(string, TS_ENCODING), builder, false, nextNode, appendCodePointNode);
+                appendEscapedStringNode.execute(builder, string, false);
                 return toStringNode.execute(builder);
             } catch (OutOfMemoryError | NegativeArraySizeException e) {
                 throw raise(PythonBuiltinClassType.OverflowError, ErrorMessages.STR_TOO_LONG_TO_ESCAPE);
@@ -146,15 +151,13 @@ public class JSONModuleBuiltins extends PythonBuiltins {
 
         @Specialization
         TruffleString call(TruffleString string,
-                        @Cached TruffleString.CreateCodePointIteratorNode createCodePointIteratorNode,
-                        @Cached TruffleStringIterator.NextNode nextNode,
-                        @Cached TruffleStringBuilder.AppendCodePointNode appendCodePointNode,
+                        @Cached AppendEscapedStringNode appendEscapedStringNode,
                         @Cached TruffleStringBuilder.ToStringNode toStringNode) {
             try {
                 int len = string.byteLength(TS_ENCODING);
                 // 12.5% overallocated, TruffleStringBuilder.ToStringNode will copy anyway
                 TruffleStringBuilder builder = TruffleStringBuilder.create(TS_ENCODING, len + (len >> 3) + 2);
-                appendString(createCodePointIteratorNode.execute(string, TS_ENCODING), builder, true, nextNode, appendCodePointNode);
+                appendEscapedStringNode.execute(builder, string, true);
                 return toStringNode.execute(builder);
             } catch (OutOfMemoryError | NegativeArraySizeException e) {
                 throw raise(PythonBuiltinClassType.OverflowError, ErrorMessages.STR_TOO_LONG_TO_ESCAPE);
@@ -189,6 +192,38 @@ public class JSONModuleBuiltins extends PythonBuiltins {
         }
     }
 
+    @Builtin(name = "StreamDecoder", minNumOfPositionalArgs = 3, parameterNames = {"$cls", "scanner", "fp", "chunk_size", "ndjson"}, //
+                    constructsClass = PythonBuiltinClassType.JSONStreamDecoder, //
+                    doc = "StreamDecoder(scanner, fp, chunk_size=65536, ndjson=False) -> iterator\n" +
+                                    "\n" +
+                                    "Decode JSON records from the binary file object fp, reading chunk_size bytes\n" +
+                                    "at a time. If the document is a top-level array, its elements are yielded as\n" +
+                                    "they complete, otherwise each whitespace separated top-level value is yielded.\n" +
+                                    "With ndjson=True every top-level value is a record, even if it is an array.\n" +
+                                    "The input must be UTF-8 encoded. Errors are reported relative to the record.")
+    @ArgumentClinic(name = "chunk_size", conversion = ArgumentClinic.ClinicConversion.Int, defaultValue = "65536")
+    @ArgumentClinic(name = "ndjson", conversion = ArgumentClinic.ClinicConversion.Boolean, defaultValue = "false")
+    @GenerateNodeFactory
+    public abstract static class MakeStreamDecoder extends PythonClinicBuiltinNode {
+
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return JSONModuleBuiltinsClinicProviders.MakeStreamDecoderClinicProviderGen.INSTANCE;
+        }
+
+        @Specialization
+        protected PJSONStreamDecoder doNew(Object cls, Object scanner, Object fp, int chunkSize, boolean ndjson,
+                        @Cached PythonObjectFactory factory) {
+            if (!(scanner instanceof PJSONScanner jsonScanner)) {
+                throw raise(TypeError, ErrorMessages.MUST_BE_TYPE_A_NOT_TYPE_B, "scanner", "_json.Scanner", scanner);
+            }
+            if (chunkSize <= 0) {
+                throw raise(PythonBuiltinClassType.ValueError, ErrorMessages.S_MUST_BE_GREATER_THAN_ZERO, "chunk_size");
+            }
+            return factory.createJSONStreamDecoder(cls, jsonScanner, fp, chunkSize, ndjson);
+        }
+    }
+
     @Builtin(name = "make_encoder", minNumOfPositionalArgs = 10, //
                     parameterNames = {"$cls", "markers", "default", "encoder", "indent", "key_separator", "item_separator", "sort_keys", "skipkeys", "allow_nan"}, //
                     constructsClass = PythonBuiltinClassType.JSONEncoder, //
@@ -234,20 +269,54 @@ public class JSONModuleBuiltins extends PythonBuiltins {
         }
     }
 
-    static void appendString(TruffleStringIterator it, TruffleStringBuilder builder, boolean asciiOnly, TruffleStringIterator.NextNode nextNode,
-                    TruffleStringBuilder.AppendCodePointNode appendCodePointNode) {
-        appendCodePointNode.execute(builder, '"', 1, true);
+    /**
+     * Appends a string as a JSON string literal. Runs of characters that do not need to be escaped
+     * are copied to the builder at once.
+     */
+    @GenerateUncached
+    abstract static class AppendEscapedStringNode extends Node {
+
+        abstract void execute(TruffleStringBuilder builder, TruffleString string, boolean asciiOnly);
+
+        @NeverDefault
+        static AppendEscapedStringNode create() {
+            return JSONModuleBuiltinsFactory.AppendEscapedStringNodeGen.create();
+        }
+
+        @Specialization
+        static void doIt(TruffleStringBuilder builder, TruffleString string, boolean asciiOnly,
+                        @Cached TruffleString.CreateCodePointIteratorNode createCodePointIteratorNode,
+                        @Cached TruffleStringIterator.NextNode nextNode,
+                        @Cached TruffleStringBuilder.AppendCodePointNode appendCodePointNode,
+                        @Cached TruffleStringBuilder.AppendSubstringByteIndexNode appendSubstringNode) {
+            appendCodePointNode.execute(builder, '"', 1, true);
+            TruffleStringIterator it = createCodePointIteratorNode.execute(string, TS_ENCODING);
+            // TS_ENCODING is UTF-32, so the byte index of a code point is four times its index
+            int runStart = 0;
+            int idx = 0;
+            while (it.hasNext()) {
+                int c = nextNode.execute(it);
+                if (c < 0x20 || c == '"' || c == '\\' || (asciiOnly && c > '~')) {
+                    if (idx > runStart) {
+                        appendSubstringNode.execute(builder, string, runStart << 2, (idx - runStart) << 2);
+                    }
+                    appendEscaped(c, builder, appendCodePointNode);
+                    runStart = idx + 1;
+                }
+                idx++;
+            }
+            if (idx > runStart) {
+                appendSubstringNode.execute(builder, string, runStart << 2, (idx - runStart) << 2);
+            }
+            appendCodePointNode.execute(builder, '"', 1, true);
+        }
 
-        while (it.hasNext()) {
-            int c = nextNode.execute(it);
+        private static void appendEscaped(int c, TruffleStringBuilder builder, TruffleStringBuilder.AppendCodePointNode appendCodePointNode) {
             switch (c) {
                 case '\\':
-                    appendCodePointNode.execute(builder, '\\', 1, true);
-                    appendCodePointNode.execute(builder, '\\', 1, true);
-                    break;
                 case '"':
                     appendCodePointNode.execute(builder, '\\', 1, true);
-                    appendCodePointNode.execute(builder, '"', 1, true);
+                    appendCodePointNode.execute(builder, c, 1, true);
                     break;
                 case '\b':
                     appendCodePointNode.execute(builder, '\\', 1, true);
@@ -270,21 +339,16 @@ public class JSONModuleBuiltins extends PythonBuiltins {
                     appendCodePointNode.execute(builder, 't', 1, true);
                     break;
                 default:
-                    if (c <= 0x1f || (asciiOnly && c > '~')) {
-                        if (c <= 0xffff) {
-                            appendEscapedUtf16((char) c, builder, appendCodePointNode);
-                        } else {
-                            // split SMP codepoint to surrogate pair
-                            appendEscapedUtf16((char) (0xD800 + ((c - 0x10000) >> 10)), builder, appendCodePointNode);
-                            appendEscapedUtf16((char) (0xDC00 + ((c - 0x10000) & 0x3FF)), builder, appendCodePointNode);
-                        }
+                    if (c <= 0xffff) {
+                        appendEscapedUtf16((char) c, builder, appendCodePointNode);
                     } else {
-                        appendCodePointNode.execute(builder, c, 1, true);
+                        // split SMP codepoint to surrogate pair
+                        appendEscapedUtf16((char) (0xD800 + ((c - 0x10000) >> 10)), builder, appendCodePointNode);
+                        appendEscapedUtf16((char) (0xDC00 + ((c - 0x10000) & 0x3FF)), builder, appendCodePointNode);
                     }
                     break;
             }
         }
-        appendCodePointNode.execute(builder, '"', 1, true);
     }
 
     private static void appendEscapedUtf16(char c, TruffleStringBuilder builder, TruffleStringBuilder.AppendCodePointNode appendCodePointNode) {
@@ -18,14 +18,18 @@ import com.oracle.graal.python.builtins.Builtin;
 import com.oracle.graal.python.builtins.CoreFunctions;
 import com.oracle.graal.python.builtins.PythonBuiltinClassType;
 import com.oracle.graal.python.builtins.PythonBuiltins;
-import com.oracle.graal.python.builtins.modules.BuiltinConstructors;
+import com.oracle.graal.python.builtins.modules.json.JSONScannerSource.StringSource;
+import com.oracle.graal.python.builtins.modules.json.JSONScannerSource.Utf8Source;
 import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAccessLibrary;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAcquireLibrary;
 import com.oracle.graal.python.builtins.objects.common.EconomicMapStorage;
 import com.oracle.graal.python.builtins.objects.common.HashingStorage;
 import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageSetItem;
 import com.oracle.graal.python.builtins.objects.dict.PDict;
 import com.oracle.graal.python.builtins.objects.exception.PBaseException;
 import com.oracle.graal.python.builtins.objects.floats.FloatUtils;
+import com.oracle.graal.python.builtins.objects.str.PString;
 import com.oracle.graal.python.builtins.objects.tuple.PTuple;
 import com.oracle.graal.python.lib.PyFloatCheckExactNode;
 import com.oracle.graal.python.lib.PyLongCheckExactNode;
@@ -38,17 +42,26 @@ import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
 import com.oracle.graal.python.nodes.function.builtins.PythonTernaryClinicBuiltinNode;
 import com.oracle.graal.python.nodes.function.builtins.clinic.ArgumentClinicProvider;
 import com.oracle.graal.python.nodes.statement.AbstractImportNode;
+import com.oracle.graal.python.nodes.util.CastToTruffleStringNode;
 import com.oracle.graal.python.runtime.PythonContext;
 import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.graal.python.runtime.sequence.storage.DoubleSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.IntSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.LongSequenceStorage;
 import com.oracle.graal.python.runtime.sequence.storage.ObjectSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.SequenceStorage;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Cached.Shared;
+import com.oracle.truffle.api.dsl.Fallback;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.NodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.library.CachedLibrary;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.object.Shape;
 import com.oracle.truffle.api.strings.TruffleString;
@@ -68,7 +81,6 @@ public class JSONScannerBuiltins extends PythonBuiltins {
     }
 
     @Builtin(name = J___CALL__, minNumOfPositionalArgs = 1, parameterNames = {"$self", "string", "idx"})
-    @ArgumentClinic(name = "string", conversion = ArgumentClinic.ClinicConversion.TString)
     @ArgumentClinic(name = "idx", conversion = ArgumentClinic.ClinicConversion.Int, defaultValue = "0", useDefaultForNone = true)
     @GenerateNodeFactory
     public abstract static class CallScannerNode extends PythonTernaryClinicBuiltinNode {
@@ -91,8 +103,53 @@ public class JSONScannerBuiltins extends PythonBuiltins {
         }
 
         @Specialization
-        protected PTuple call(PJSONScanner self, TruffleString string, int idx,
-                        @Cached TruffleString.ToJavaStringNode toJavaStringNode) {
+        protected PTuple callStr(PJSONScanner self, TruffleString string, int idx,
+                        @Shared("getCodeRange") @Cached TruffleString.GetCodeRangeNode getCodeRangeNode,
+                        @Shared("switchEncoding") @Cached TruffleString.SwitchEncodingNode switchEncodingNode,
+                        @Shared("getInternalByteArray") @Cached TruffleString.GetInternalByteArrayNode getInternalByteArrayNode) {
+            initShapes();
+            IntRef nextIdx = new IntRef();
+            Object result = scanOnceUnicode(self, JSONScannerSource.create(string, getCodeRangeNode, switchEncodingNode, getInternalByteArrayNode), idx, nextIdx);
+            return factory.createTuple(new Object[]{result, nextIdx.value});
+        }
+
+        @Specialization
+        protected PTuple callPString(PJSONScanner self, PString string, int idx,
+                        @Cached CastToTruffleStringNode castToTruffleStringNode,
+                        @Shared("getCodeRange") @Cached TruffleString.GetCodeRangeNode getCodeRangeNode,
+                        @Shared("switchEncoding") @Cached TruffleString.SwitchEncodingNode switchEncodingNode,
+                        @Shared("getInternalByteArray") @Cached TruffleString.GetInternalByteArrayNode getInternalByteArrayNode) {
+            return callStr(self, castToTruffleStringNode.execute(string), idx, getCodeRangeNode, switchEncodingNode, getInternalByteArrayNode);
+        }
+
+        /*
+         * GraalPy extension: scan UTF-8 encoded bytes-like objects in place. Returned indices are
+         * byte offsets, errors are reported on the decoded document like json.loads does. Buffers
+         * without an internal byte array (e.g. non-contiguous memoryviews or native memory) are
+         * copied in full once before scanning. json.loads only passes bytes and bytearray objects.
+         */
+        @Specialization(guards = "acquireLib.hasBuffer(buffer)", limit = "3")
+        protected PTuple callBuffer(VirtualFrame frame, PJSONScanner self, Object buffer, int idx,
+                        @CachedLibrary("buffer") PythonBufferAcquireLibrary acquireLib,
+                        @CachedLibrary(limit = "3") PythonBufferAccessLibrary bufferLib) {
+            initShapes();
+            Object buf = acquireLib.acquireReadonly(buffer, frame, this);
+            try {
+                IntRef nextIdx = new IntRef();
+                Object result = scanUtf8(self, new Utf8Source(bufferLib.getInternalOrCopiedByteArray(buf), 0, bufferLib.getBufferLength(buf), false), idx, nextIdx);
+                return factory.createTuple(new Object[]{result, nextIdx.value});
+            } finally {
+                bufferLib.release(buf, frame, this);
+            }
+        }
+
+        @Fallback
+        @SuppressWarnings("unused")
+        protected Object error(Object self, Object string, Object idx) {
+            throw raise(PythonBuiltinClassType.TypeError, ErrorMessages.EXPECTED_STR_OR_BYTESLIKE_OBJ);
+        }
+
+        private void initShapes() {
             if (tupleInstanceShape == null) {
                 CompilerDirectives.transferToInterpreterAndInvalidate();
                 tupleInstanceShape = PythonLanguage.get(this).getBuiltinTypeInstanceShape(PythonBuiltinClassType.PTuple);
@@ -105,13 +162,49 @@ public class JSONScannerBuiltins extends PythonBuiltins {
                 CompilerDirectives.transferToInterpreterAndInvalidate();
                 dictInstanceShape = PythonLanguage.get(this).getBuiltinTypeInstanceShape(PythonBuiltinClassType.PDict);
             }
-            IntRef nextIdx = new IntRef();
-            Object result = scanOnceUnicode(self, toJavaStringNode.execute(string), idx, nextIdx);
-            return factory.createTuple(new Object[]{result, nextIdx.value});
+        }
+
+        /**
+         * Scans one complete record found by a {@link PJSONStreamDecoder}.
+         */
+        Object scanRecord(PJSONScanner scanner, Utf8Source record) {
+            initShapes();
+            return scanUtf8(scanner, record, 0, new IntRef());
+        }
+
+        @TruffleBoundary
+        private Object scanUtf8(PJSONScanner scanner, Utf8Source source, int idx, IntRef nextIdx) {
+            if (source.isValid()) {
+                return scanDocument(scanner, source, idx, nextIdx);
+            }
+            /*
+             * The input is not valid UTF-8, so decode it the way json.loads would and scan it as a
+             * str. This is decided before scanning, so no hook runs twice. Indices are translated
+             * back to byte offsets.
+             */
+            StringSource decoded = source.decode(factory);
+            Object result = scanDocument(scanner, decoded, idx < 0 ? idx : decoded.toInternalIndex(idx), nextIdx);
+            nextIdx.value = decoded.toExternalIndex(nextIdx.value);
+            return result;
+        }
+
+        private Object scanDocument(PJSONScanner scanner, JSONScannerSource string, int idx, IntRef nextIdx) {
+            Object result = scanOnceUnicode(scanner, string, idx, nextIdx);
+            if (string.isStreamRecord() && nextIdx.value != string.length()) {
+                throw decodeError(this, string, nextIdx.value, ErrorMessages.EXTRA_DATA);
+            }
+            return result;
+        }
+
+        private RuntimeException noValue(JSONScannerSource string, int idx) {
+            if (string.isStreamRecord()) {
+                throw decodeError(this, string, idx, ErrorMessages.EXPECTING_VALUE);
+            }
+            throw stopIteration(this, string.toExternalIndex(idx));
         }
 
         @TruffleBoundary
-        private Object parseObjectUnicode(PJSONScanner scanner, String string, int start, IntRef nextIdx) {
+        private Object parseObjectUnicode(PJSONScanner scanner, JSONScannerSource string, int start, IntRef nextIdx) {
             /*
              * Read a JSON object from PyUnicode pystr. idx is the index of the first character
              * after the opening curly brace. nextIdx is a return-by-reference index to the first
@@ -199,7 +292,7 @@ public class JSONScannerBuiltins extends PythonBuiltins {
         }
 
         @TruffleBoundary
-        private Object parseArrayUnicode(PJSONScanner scanner, String string, int start, IntRef nextIdx) {
+        private Object parseArrayUnicode(PJSONScanner scanner, JSONScannerSource string, int start, IntRef nextIdx) {
             /*
              * Read a JSON array from PyUnicode pystr. idx is the index of the first character after
              * the opening brace. nextIdx is a return-by-reference index to the first character
@@ -210,6 +303,9 @@ public class JSONScannerBuiltins extends PythonBuiltins {
             int idx = start;
             ObjectSequenceStorage storage = new ObjectSequenceStorage(4);
             int length = string.length();
+            boolean allInts = true;
+            boolean allLongs = true;
+            boolean allDoubles = true;
 
             idx = skipWhitespace(string, idx, length);
 
@@ -220,6 +316,9 @@ public class JSONScannerBuiltins extends PythonBuiltins {
                     /* read any JSON term */
                     Object val = scanOnceUnicode(scanner, string, idx, nextIdx);
                     storage.insertItem(storage.length(), val);
+                    allInts &= val instanceof Integer;
+                    allLongs &= val instanceof Integer || val instanceof Long;
+                    allDoubles &= val instanceof Double;
                     idx = nextIdx.value;
 
                     /* skip whitespace between term and , */
@@ -243,10 +342,51 @@ public class JSONScannerBuiltins extends PythonBuiltins {
                 throw decodeError(this, string, length - 1, ErrorMessages.EXPECTING_VALUE);
             }
             nextIdx.value = idx + 1;
-            return factory.createList(PythonBuiltinClassType.PList, listInstanceShape, storage);
+            SequenceStorage result = storage;
+            if (storage.length() > 0) {
+                if (allInts) {
+                    result = toIntStorage(storage);
+                } else if (allLongs) {
+                    result = toLongStorage(storage);
+                } else if (allDoubles) {
+                    result = toDoubleStorage(storage);
+                }
+            }
+            return factory.createList(PythonBuiltinClassType.PList, listInstanceShape, result);
+        }
+
+        /*
+         * Homogeneous arrays of numbers are stored unboxed, just like list displays with only int
+         * or float elements.
+         */
+        private static IntSequenceStorage toIntStorage(ObjectSequenceStorage storage) {
+            Object[] values = storage.getInternalArray();
+            int[] ints = new int[storage.length()];
+            for (int i = 0; i < ints.length; i++) {
+                ints[i] = (int) values[i];
+            }
+            return new IntSequenceStorage(ints);
+        }
+
+        private static LongSequenceStorage toLongStorage(ObjectSequenceStorage storage) {
+            Object[] values = storage.getInternalArray();
+            long[] longs = new long[storage.length()];
+            for (int i = 0; i < longs.length; i++) {
+                longs[i] = values[i] instanceof Integer ? (int) values[i] : (long) values[i];
+            }
+            return new LongSequenceStorage(longs);
+        }
+
+        private static DoubleSequenceStorage toDoubleStorage(ObjectSequenceStorage storage) {
+            Object[] values = storage.getInternalArray();
+            double[] doubles = new double[storage.length()];
+            for (int i = 0; i < doubles.length; i++) {
+                doubles[i] = (double) values[i];
+            }
+            return new DoubleSequenceStorage(doubles);
         }
 
-        private static int skipWhitespace(String string, int start, int length) {
+        private static int skipWhitespace(JSONScannerSource string, int start, int length) {
             int idx = start;
             while (idx < length && JSONModuleBuiltins.isWhitespace(string.charAt(idx))) {
                 idx++;
@@ -268,7 +408,7 @@ public class JSONScannerBuiltins extends PythonBuiltins {
         }
 
         @TruffleBoundary
-        private Object matchNumberUnicode(PJSONScanner scanner, String string, int start, IntRef nextIdx) {
+        private Object matchNumberUnicode(PJSONScanner scanner, JSONScannerSource string, int start, IntRef nextIdx) {
             /*
              * Read a JSON number from PyUnicode pystr. idx is the index of the first character of
              * the number nextIdx is a return-by-reference index to the first character after the
@@ -285,7 +425,7 @@ public class JSONScannerBuiltins extends PythonBuiltins {
             if (string.charAt(idx) == '-') {
                 idx++;
                 if (idx >= length) {
-                    throw stopIteration(this, start);
+                    throw noValue(string, start);
                 }
             }
 
@@ -300,7 +440,7 @@ public class JSONScannerBuiltins extends PythonBuiltins {
                 idx++;
                 /* no integer digits, error */
             } else {
-                throw stopIteration(this, start);
+                throw noValue(string, start);
             }
             boolean isFloat = false;
 
@@ -339,21 +479,19 @@ public class JSONScannerBuiltins extends PythonBuiltins {
             nextIdx.value = idx;
             if (isFloat) {
                 if (PyFloatCheckExactNode.getUncached().execute(scanner.parseFloat)) {
-                    String numStr = string.substring(start, idx);
-                    return FloatUtils.parseValidString(numStr);
+                    return FloatUtils.parseValidString(string.asciiSubstring(start, idx));
                 } else {
                     /* copy the section we determined to be a number */
-                    TruffleString numStr = toTruffleStringUncached(string.substring(start, idx));
+                    TruffleString numStr = string.substring(start, idx, true);
                     return callParseFloat.executeObject(scanner.parseFloat, numStr);
                 }
             } else {
                 if (PyLongCheckExactNode.getUncached().execute(scanner.parseInt)) {
-                    Object rval = BuiltinConstructors.IntNode.parseSimpleDecimalLiteral(string, start, idx - start);
+                    Object rval = parseSimpleDecimalLiteral(string, start, idx);
                     if (rval != null) {
                         return rval;
                     }
-                    String numStr = string.substring(start, idx);
-                    BigInteger bi = new BigInteger(numStr);
+                    BigInteger bi = new BigInteger(string.asciiSubstring(start, idx));
                     try {
                         return bi.intValueExact();
                     } catch (ArithmeticException e) {
@@ -367,14 +505,37 @@ public class JSONScannerBuiltins extends PythonBuiltins {
                     return factory.createInt(bi);
                 } else {
                     /* copy the section we determined to be a number */
-                    TruffleString numStr = toTruffleStringUncached(string.substring(start, idx));
+                    TruffleString numStr = string.substring(start, idx, true);
                     return callParseInt.executeObject(scanner.parseInt, numStr);
                 }
             }
         }
 
+        private static Object parseSimpleDecimalLiteral(JSONScannerSource string, int start, int end) {
+            /*
+             * The number was already matched, so it is an optional minus sign followed by digits
+             * without leading zeros. Up to 18 digits always fit into a long.
+             */
+            boolean negative = string.charAt(start) == '-';
+            int idx = negative ? start + 1 : start;
+            if (end - idx > 18) {
+                return null;
+            }
+            long value = 0;
+            for (; idx < end; idx++) {
+                value = value * 10 + (string.charAt(idx) - '0');
+            }
+            if (negative) {
+                value = -value;
+            }
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                return (int) value;
+            }
+            return value;
+        }
+
         @TruffleBoundary
-        private Object scanOnceUnicode(PJSONScanner scanner, String string, int idx, IntRef nextIdx) {
+        private Object scanOnceUnicode(PJSONScanner scanner, JSONScannerSource string, int idx, IntRef nextIdx) {
             /*
              * Read one JSON term (of any kind) from PyUnicode pystr. idx is the index of the first
              * character of the term nextIdx is a return-by-reference index to the first character
@@ -387,7 +548,7 @@ public class JSONScannerBuiltins extends PythonBuiltins {
             }
             int length = string.length();
             if (idx >= length) {
-                throw stopIteration(this, idx);
+                throw noValue(string, idx);
             }
 
             switch (string.charAt(idx)) {
@@ -460,41 +621,49 @@ public class JSONScannerBuiltins extends PythonBuiltins {
     }
 
     @TruffleBoundary
-    static TruffleString scanStringUnicode(String string, int start, boolean strict, IntRef nextIdx, Node raisingNode) {
-        String result;
+    static TruffleString scanStringUnicode(JSONScannerSource string, int start, boolean strict, IntRef nextIdx, Node raisingNode) {
         StringBuilder builder = null;
+        int length = string.length();
 
-        if (start < 0 || start > string.length()) {
+        if (start < 0 || start > length) {
             throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.ValueError, ErrorMessages.END_IS_OUT_OF_BOUNDS);
         }
         int idx = start;
-        while (idx < string.length()) {
-            char c = string.charAt(idx++);
+        // start of the current run of characters that are copied verbatim
+        int runStart = start;
+        boolean ascii = true;
+        while (idx < length) {
+            int c = string.charAt(idx++);
             if (c == '"') {
                 // we reached the end of the string literal
-                result = builder == null ? string.substring(start, idx - 1) : builder.toString();
                 nextIdx.value = idx;
-                return toTruffleStringUncached(result);
+                if (builder == null) {
+                    return string.substring(start, idx - 1, ascii);
+                }
+                string.appendTo(builder, runStart, idx - 1, ascii);
+                return toTruffleStringUncached(builder.toString());
             } else if (c == '\\') {
                 // escape sequence, switch to StringBuilder
                 if (builder == null) {
-                    builder = new StringBuilder().append(string, start, idx - 1);
+                    builder = new StringBuilder();
                 }
-                if (idx >= string.length()) {
+                string.appendTo(builder, runStart, idx - 1, ascii);
+                ascii = true;
+                if (idx >= length) {
                     throw decodeError(raisingNode, string, start - 1, ErrorMessages.UTERMINATED_STR_STARTING);
                 }
                 c = string.charAt(idx++);
                 if (c == 'u') {
-                    if (idx + 3 >= string.length()) {
+                    if (idx + 3 >= length) {
                         throw decodeError(raisingNode, string, idx - 1, ErrorMessages.INVALID_UXXXX_ESCAPE);
                     }
                     c = 0;
                     for (int i = 0; i < 4; i++) {
-                        int digit = Character.digit(string.charAt(idx++), 16);
+                        int digit = hexDigit(string.charAt(idx++));
                         if (digit == -1) {
                             throw decodeError(raisingNode, string, idx - 1, ErrorMessages.INVALID_UXXXX_ESCAPE);
                         }
-                        c = (char) ((c << 4) + digit);
+                        c = (c << 4) + digit;
                     }
                 } else {
                     switch (c) {
@@ -521,25 +690,40 @@ public class JSONScannerBuiltins extends PythonBuiltins {
                             throw decodeError(raisingNode, string, idx - 1, ErrorMessages.INVALID_ESCAPE);
                     }
                 }
-                builder.append(c);
+                // surrogate pairs written as two escapes are joined by the StringBuilder
+                builder.append((char) c);
+                runStart = idx;
             } else {
                 // any other character: check if in strict mode
                 if (strict && c < 0x20) {
                     throw decodeError(raisingNode, string, idx - 1, ErrorMessages.INVALID_CTRL_CHARACTER_AT);
                 }
-                if (builder != null) {
-                    builder.append(c);
-                }
+                ascii &= c < 0x80;
             }
         }
         throw decodeError(raisingNode, string, start - 1, ErrorMessages.UNTERMINATED_STR_STARTING_AT);
     }
 
-    private static RuntimeException decodeError(Node raisingNode, String jsonString, int pos, TruffleString format) {
+    private static int hexDigit(int c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    static RuntimeException decodeError(Node raisingNode, JSONScannerSource jsonString, int pos, TruffleString format) {
+        throw decodeError(raisingNode, jsonString.getDocument(), jsonString.toDocumentIndex(pos), format);
+    }
+
+    static RuntimeException decodeError(Node raisingNode, TruffleString doc, int pos, TruffleString format) {
         CompilerAsserts.neverPartOfCompilation();
         Object module = AbstractImportNode.importModule(toTruffleStringUncached("json.decoder"));
         Object errorClass = PyObjectLookupAttr.getUncached().execute(null, module, T_JSON_DECODE_ERROR);
-        Object exception = CallNode.getUncached().execute(errorClass, format, toTruffleStringUncached(jsonString), pos);
+        Object exception = CallNode.getUncached().execute(errorClass, format, doc, pos);
         throw PRaiseNode.raise(raisingNode, (PBaseException) exception, false);
     }
 
@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.json;
+
+import static com.oracle.graal.python.nodes.BuiltinNames.T_DECODE;
+import static com.oracle.graal.python.nodes.StringLiterals.T_SURROGATEPASS;
+import static com.oracle.graal.python.nodes.StringLiterals.T_UTF8;
+import static com.oracle.graal.python.util.PythonUtils.TS_ENCODING;
+import static com.oracle.graal.python.util.PythonUtils.arrayAccessor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.oracle.graal.python.lib.PyObjectCallMethodObjArgs;
+import com.oracle.graal.python.nodes.util.CastToTruffleStringNode;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.strings.InternalByteArray;
+import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleString.CodeRange;
+import com.oracle.truffle.api.strings.TruffleString.Encoding;
+
+/**
+ * The input of the JSON scanner. The scanner only ever looks at individual characters through
+ * {@link #charAt(int)} and copies out whole runs of them, so we can scan directly over the internal
+ * byte array of a {@link TruffleString} or over the raw bytes of a UTF-8 encoded buffer without
+ * converting the whole document to a Java string first.
+ */
+abstract class JSONScannerSource {
+
+    /**
+     * The number of code units that can be passed to {@link #charAt(int)}.
+     */
+    abstract int length();
+
+    /**
+     * The character at the given index. Structural JSON characters are always ASCII, so for UTF-8
+     * sources this may also return single bytes of multi-byte sequences.
+     */
+    abstract int charAt(int idx);
+
+    /**
+     * Creates a string from the characters in {@code [start, end)}. {@code ascii} must only be set
+     * if all of the characters in the range are known to be ASCII.
+     */
+    abstract TruffleString substring(int start, int end, boolean ascii);
+
+    /**
+     * Appends the characters in {@code [start, end)} to the given builder.
+     */
+    abstract void appendTo(StringBuilder builder, int start, int end, boolean ascii);
+
+    /**
+     * The characters in {@code [start, end)}, which must all be ASCII (used for numbers).
+     */
+    abstract String asciiSubstring(int start, int end);
+
+    /**
+     * The {@code str} document reported in a {@code JSONDecodeError}. Positions passed along with
+     * it are indices into this source.
+     */
+    abstract TruffleString getDocument();
+
+    /**
+     * Converts an index into this source to the index reported back to the caller.
+     */
+    int toExternalIndex(int idx) {
+        return idx;
+    }
+
+    /**
+     * Converts an index into this source to a position in {@link #getDocument()}.
+     */
+    int toDocumentIndex(int idx) {
+        return idx;
+    }
+
+    /**
+     * Whether this source holds exactly one record of a {@link PJSONStreamDecoder}. Such records
+     * must consist of one complete value and a missing value is a {@code JSONDecodeError} rather
+     * than a {@code StopIteration}.
+     */
+    abstract boolean isStreamRecord();
+
+    /**
+     * Creates a source over the internal storage of the given string. Depending on the code range
+     * of the string, each character takes one, two or four bytes.
+     */
+    static StringSource create(TruffleString string, TruffleString.GetCodeRangeNode getCodeRangeNode, TruffleString.SwitchEncodingNode switchEncodingNode,
+                    TruffleString.GetInternalByteArrayNode getInternalByteArrayNode) {
+        CodeRange codeRange = getCodeRangeNode.execute(string, TS_ENCODING);
+        Encoding encoding;
+        int stride;
+        if (codeRange == CodeRange.ASCII || codeRange == CodeRange.LATIN_1) {
+            encoding = Encoding.ISO_8859_1;
+            stride = 1;
+        } else if (codeRange == CodeRange.BMP) {
+            encoding = Encoding.UTF_16;
+            stride = 2;
+        } else {
+            encoding = TS_ENCODING;
+            stride = 4;
+        }
+        InternalByteArray bytes = getInternalByteArrayNode.execute(switchEncodingNode.execute(string, encoding), encoding);
+        return new StringSource(string, bytes.getArray(), bytes.getOffset(), bytes.getLength() / stride, stride);
+    }
+
+    @TruffleBoundary
+    static StringSource createUncached(TruffleString string) {
+        return create(string, TruffleString.GetCodeRangeNode.getUncached(), TruffleString.SwitchEncodingNode.getUncached(), TruffleString.GetInternalByteArrayNode.getUncached());
+    }
+
+    static final class StringSource extends JSONScannerSource {
+        private final TruffleString string;
+        private final byte[] array;
+        private final int offset;
+        private final int length;
+        private final int stride;
+        private boolean streamRecord;
+
+        /*
+         * For strings decoded from a UTF-8 buffer: the byte offset of each character in the
+         * original buffer, plus one entry for the end.
+         */
+        private int[] externalOffsets;
+
+        private StringSource(TruffleString string, byte[] array, int offset, int length, int stride) {
+            this.string = string;
+            this.array = array;
+            this.offset = offset;
+            this.length = length;
+            this.stride = stride;
+        }
+
+        @Override
+        int length() {
+            return length;
+        }
+
+        @Override
+        int charAt(int idx) {
+            switch (stride) {
+                case 1:
+                    return array[offset + idx] & 0xFF;
+                case 2:
+                    return arrayAccessor.getShort(array, offset + (idx << 1)) & 0xFFFF;
+                default:
+                    return arrayAccessor.getInt(array, offset + (idx << 2));
+            }
+        }
+
+        @Override
+        TruffleString substring(int start, int end, boolean ascii) {
+            return string.substringUncached(start, end - start, TS_ENCODING, false);
+        }
+
+        @Override
+        void appendTo(StringBuilder builder, int start, int end, boolean ascii) {
+            if (stride == 1) {
+                for (int i = start; i < end; i++) {
+                    builder.append((char) (array[offset + i] & 0xFF));
+                }
+            } else {
+                for (int i = start; i < end; i++) {
+                    builder.appendCodePoint(charAt(i));
+                }
+            }
+        }
+
+        @Override
+        String asciiSubstring(int start, int end) {
+            if (stride == 1) {
+                return new String(array, offset + start, end - start, StandardCharsets.ISO_8859_1);
+            }
+            StringBuilder builder = new StringBuilder(end - start);
+            appendTo(builder, start, end, true);
+            return builder.toString();
+        }
+
+        @Override
+        TruffleString getDocument() {
+            return string;
+        }
+
+        @Override
+        boolean isStreamRecord() {
+            return streamRecord;
+        }
+
+        @Override
+        int toExternalIndex(int idx) {
+            return externalOffsets == null ? idx : externalOffsets[idx];
+        }
+
+        /**
+         * Converts a byte offset into the original UTF-8 buffer to a character index. Offsets
+         * pointing into the middle of a character are rounded up to the next character.
+         */
+        int toInternalIndex(int externalIdx) {
+            if (externalOffsets == null) {
+                return externalIdx;
+            }
+            int idx = Arrays.binarySearch(externalOffsets, externalIdx);
+            return idx >= 0 ? idx : -(idx + 1);
+        }
+    }
+
+    /**
+     * A source over the raw bytes of a UTF-8 encoded buffer. Indices are byte offsets.
+     */
+    static final class Utf8Source extends JSONScannerSource {
+        private final byte[] array;
+        private final int offset;
+        private final int length;
+        private final boolean streamRecord;
+
+        Utf8Source(byte[] array, int offset, int length, boolean streamRecord) {
+            this.array = array;
+            this.offset = offset;
+            this.length = length;
+            this.streamRecord = streamRecord;
+        }
+
+        @Override
+        int length() {
+            return length;
+        }
+
+        @Override
+        int charAt(int idx) {
+            return array[offset + idx] & 0xFF;
+        }
+
+        @Override
+        TruffleString substring(int start, int end, boolean ascii) {
+            if (ascii) {
+                return TruffleString.fromByteArrayUncached(array, offset + start, end - start, Encoding.US_ASCII, true).switchEncodingUncached(TS_ENCODING);
+            }
+            return TruffleString.fromByteArrayUncached(array, offset + start, end - start, Encoding.UTF_8, true).switchEncodingUncached(TS_ENCODING);
+        }
+
+        @Override
+        void appendTo(StringBuilder builder, int start, int end, boolean ascii) {
+            if (ascii) {
+                for (int i = start; i < end; i++) {
+                    builder.append((char) array[offset + i]);
+                }
+            } else {
+                builder.append(substring(start, end, false).toJavaStringUncached());
+            }
+        }
+
+        @Override
+        String asciiSubstring(int start, int end) {
+            return new String(array, offset + start, end - start, StandardCharsets.US_ASCII);
+        }
+
+        /**
+         * Whether the buffer is valid UTF-8. Only valid buffers can be scanned in place, others
+         * (e.g. surrogates encoded with 'surrogatepass', which TruffleString cannot represent) have
+         * to be {@linkplain #decode decoded} before anything is scanned.
+         */
+        @TruffleBoundary
+        boolean isValid() {
+            return TruffleString.fromByteArrayUncached(array, offset, length, Encoding.UTF_8, false).isValidUncached(Encoding.UTF_8);
+        }
+
+        @Override
+        @TruffleBoundary
+        TruffleString getDocument() {
+            // errors are reported on the decoded document with character positions
+            return TruffleString.fromByteArrayUncached(array, offset, length, Encoding.UTF_8, true).switchEncodingUncached(TS_ENCODING);
+        }
+
+        @Override
+        int toDocumentIndex(int idx) {
+            // count the bytes that start a character
+            int chars = 0;
+            for (int i = 0; i < idx; i++) {
+                if ((array[offset + i] & 0xC0) != 0x80) {
+                    chars++;
+                }
+            }
+            return chars;
+        }
+
+        @Override
+        boolean isStreamRecord() {
+            return streamRecord;
+        }
+
+        /**
+         * Decodes the buffer like {@code json.loads} does and returns a string source that maps
+         * its indices back to byte offsets in this buffer.
+         */
+        @TruffleBoundary
+        StringSource decode(PythonObjectFactory factory) {
+            Object bytes = factory.createBytes(Arrays.copyOfRange(array, offset, offset + length));
+            Object decoded = PyObjectCallMethodObjArgs.getUncached().execute(null, bytes, T_DECODE, T_UTF8, T_SURROGATEPASS);
+            StringSource source = createUncached(CastToTruffleStringNode.getUncached().execute(decoded));
+            int[] offsets = new int[source.length() + 1];
+            int byteOffset = 0;
+            for (int i = 0; i < source.length(); i++) {
+                offsets[i] = byteOffset;
+                int c = source.charAt(i);
+                byteOffset += c < 0x80 ? 1 : c < 0x800 ? 2 : c < 0x10000 ? 3 : 4;
+            }
+            offsets[source.length()] = byteOffset;
+            source.externalOffsets = offsets;
+            source.streamRecord = streamRecord;
+            return source;
+        }
+    }
+}
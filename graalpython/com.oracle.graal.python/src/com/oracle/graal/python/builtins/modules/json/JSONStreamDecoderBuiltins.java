@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.json;
+
+import static com.oracle.graal.python.builtins.modules.io.IONodes.T_READ;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___ITER__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___NEXT__;
+import static com.oracle.graal.python.util.PythonUtils.TS_ENCODING;
+
+import java.util.List;
+
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.modules.json.JSONScannerBuiltins.CallScannerNode;
+import com.oracle.graal.python.builtins.modules.json.JSONScannerSource.Utf8Source;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAccessLibrary;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAcquireLibrary;
+import com.oracle.graal.python.lib.PyObjectCallMethodObjArgs;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleString.Encoding;
+
+@CoreFunctions(extendClasses = PythonBuiltinClassType.JSONStreamDecoder)
+public class JSONStreamDecoderBuiltins extends PythonBuiltins {
+
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return JSONStreamDecoderBuiltinsFactory.getFactories();
+    }
+
+    @Builtin(name = J___ITER__, minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class IterNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static PJSONStreamDecoder iter(PJSONStreamDecoder self) {
+            return self;
+        }
+    }
+
+    @Builtin(name = J___NEXT__, minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class NextNode extends PythonUnaryBuiltinNode {
+        @Child private CallScannerNode scanNode = JSONScannerBuiltinsFactory.CallScannerNodeFactory.create();
+
+        @Specialization
+        Object next(VirtualFrame frame, PJSONStreamDecoder self,
+                        @Cached PyObjectCallMethodObjArgs callRead,
+                        @CachedLibrary(limit = "3") PythonBufferAcquireLibrary acquireLib,
+                        @CachedLibrary(limit = "3") PythonBufferAccessLibrary bufferLib) {
+            while (true) {
+                int recordEnd = findRecord(self);
+                if (recordEnd >= 0) {
+                    int recordStart = self.getRecordStart();
+                    Utf8Source record = new Utf8Source(self.getBuffer(), recordStart, recordEnd - recordStart, true);
+                    // consume the record first, so that the stream can continue after an error
+                    self.consumed(recordEnd);
+                    return scanNode.scanRecord(self.scanner, record);
+                } else if (recordEnd == PJSONStreamDecoder.NEED_MORE_INPUT) {
+                    Object data = callRead.execute(frame, self.fp, T_READ, self.chunkSize);
+                    Object buffer = acquireLib.acquireReadonly(data, frame, this);
+                    try {
+                        int length = bufferLib.getBufferLength(buffer);
+                        int offset = self.reserve(length);
+                        bufferLib.readIntoByteArray(buffer, 0, self.getBuffer(), offset, length);
+                        self.added(length);
+                    } finally {
+                        bufferLib.release(buffer, frame, this);
+                    }
+                } else if (recordEnd == PJSONStreamDecoder.EXHAUSTED) {
+                    throw raiseStopIteration();
+                } else {
+                    throw streamError(self, recordEnd);
+                }
+            }
+        }
+
+        @TruffleBoundary
+        private static int findRecord(PJSONStreamDecoder self) {
+            return self.findRecord();
+        }
+
+        @TruffleBoundary
+        private RuntimeException streamError(PJSONStreamDecoder self, int status) {
+            TruffleString message;
+            switch (status) {
+                case PJSONStreamDecoder.EXPECTING_VALUE:
+                    message = ErrorMessages.EXPECTING_VALUE;
+                    break;
+                case PJSONStreamDecoder.EXPECTING_COMMA_DELIMITER:
+                    message = ErrorMessages.EXPECTING_COMMA_DELIMITER;
+                    break;
+                default:
+                    message = ErrorMessages.EXTRA_DATA;
+                    break;
+            }
+            // only whitespace and delimiters are left between the last record and the error
+            int start = self.getStart();
+            int length = self.getPos() - start;
+            TruffleString doc = TruffleString.fromByteArrayUncached(self.getBuffer(), start, length, Encoding.US_ASCII, true).switchEncodingUncached(TS_ENCODING);
+            throw JSONScannerBuiltins.decodeError(this, doc, length, message);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.json;
+
+import com.oracle.graal.python.builtins.objects.object.PythonBuiltinObject;
+import com.oracle.graal.python.util.PythonUtils;
+import com.oracle.truffle.api.object.Shape;
+
+/**
+ * Decodes a stream of JSON records read in chunks from a binary file object. The records are
+ * either the elements of a top-level array or a sequence of whitespace separated top-level values
+ * (e.g. NDJSON). Only the bytes of the record being decoded are kept, so the buffer is bounded by
+ * the largest record plus one chunk.
+ *
+ * This class only finds the record boundaries. It tracks nesting depth and string state
+ * incrementally, so bytes are looked at only once no matter how records are split into chunks.
+ * Complete records are decoded by the regular scanner.
+ */
+public final class PJSONStreamDecoder extends PythonBuiltinObject {
+
+    /* states between records */
+    private static final int START = 0;
+    private static final int ARRAY_FIRST_VALUE = 1;
+    private static final int ARRAY_VALUE = 2;
+    private static final int ARRAY_NEXT = 3;
+    private static final int VALUES = 4;
+    private static final int END = 5;
+
+    /* results of findRecord other than the end of a record */
+    static final int NEED_MORE_INPUT = -1;
+    static final int EXHAUSTED = -2;
+    static final int EXPECTING_VALUE = -3;
+    static final int EXPECTING_COMMA_DELIMITER = -4;
+    static final int EXTRA_DATA = -5;
+
+    final PJSONScanner scanner;
+    final Object fp;
+    final int chunkSize;
+    private final boolean ndjson;
+
+    private byte[] buffer;
+    /* start of the bytes that were not consumed yet */
+    private int start;
+    /* end of the valid bytes in the buffer */
+    private int end;
+    /* the next byte to look at */
+    private int pos;
+    private boolean eof;
+
+    private int state = START;
+    private int recordStart = -1;
+    private int depth;
+    private boolean inString;
+    private boolean escape;
+
+    public PJSONStreamDecoder(Object cls, Shape instanceShape, PJSONScanner scanner, Object fp, int chunkSize, boolean ndjson) {
+        super(cls, instanceShape);
+        this.scanner = scanner;
+        this.fp = fp;
+        this.chunkSize = chunkSize;
+        this.ndjson = ndjson;
+        this.buffer = PythonUtils.EMPTY_BYTE_ARRAY;
+    }
+
+    byte[] getBuffer() {
+        return buffer;
+    }
+
+    int getStart() {
+        return start;
+    }
+
+    int getPos() {
+        return pos;
+    }
+
+    int getRecordStart() {
+        return recordStart;
+    }
+
+    boolean isEof() {
+        return eof;
+    }
+
+    /**
+     * Makes room for {@code length} more bytes after the valid bytes, dropping consumed bytes from
+     * the front of the buffer, and returns the offset at which they must be stored.
+     */
+    int reserve(int length) {
+        int keep = end - start;
+        if (keep + length > buffer.length) {
+            byte[] newBuffer = new byte[Math.max(keep + length, buffer.length * 2)];
+            PythonUtils.arraycopy(buffer, start, newBuffer, 0, keep);
+            buffer = newBuffer;
+        } else if (start > 0) {
+            PythonUtils.arraycopy(buffer, start, buffer, 0, keep);
+        }
+        pos -= start;
+        if (recordStart >= 0) {
+            recordStart -= start;
+        }
+        start = 0;
+        end = keep;
+        return end;
+    }
+
+    void added(int length) {
+        if (length == 0) {
+            eof = true;
+        }
+        end += length;
+    }
+
+    /**
+     * Marks the record ending at {@code recordEnd} as consumed.
+     */
+    void consumed(int recordEnd) {
+        recordStart = -1;
+        start = recordEnd;
+        pos = recordEnd;
+    }
+
+    /**
+     * Looks for the next complete record. Returns the end of the record (the record starts at
+     * {@link #getRecordStart()}) or one of the negative status codes.
+     */
+    int findRecord() {
+        while (true) {
+            if (recordStart < 0) {
+                while (pos < end && JSONModuleBuiltins.isWhitespace(buffer[pos])) {
+                    pos++;
+                }
+                if (pos == end) {
+                    if (!eof) {
+                        return NEED_MORE_INPUT;
+                    }
+                    switch (state) {
+                        case ARRAY_FIRST_VALUE:
+                        case ARRAY_VALUE:
+                            return EXPECTING_VALUE;
+                        case ARRAY_NEXT:
+                            return EXPECTING_COMMA_DELIMITER;
+                        default:
+                            return EXHAUSTED;
+                    }
+                }
+                byte c = buffer[pos];
+                switch (state) {
+                    case START:
+                        if (c == '[' && !ndjson) {
+                            state = ARRAY_FIRST_VALUE;
+                            start = ++pos;
+                            continue;
+                        }
+                        state = VALUES;
+                        break;
+                    case ARRAY_FIRST_VALUE:
+                        if (c == ']') {
+                            state = END;
+                            start = ++pos;
+                            continue;
+                        }
+                        break;
+                    case ARRAY_NEXT:
+                        if (c == ',') {
+                            state = ARRAY_VALUE;
+                            start = ++pos;
+                            continue;
+                        } else if (c == ']') {
+                            state = END;
+                            start = ++pos;
+                            continue;
+                        }
+                        return EXPECTING_COMMA_DELIMITER;
+                    case END:
+                        return EXTRA_DATA;
+                    default:
+                        break;
+                }
+                recordStart = pos++;
+                inString = c == '"';
+                escape = false;
+                depth = c == '{' || c == '[' ? 1 : 0;
+            }
+            int recordEnd = findRecordEnd();
+            if (recordEnd < 0) {
+                if (!eof) {
+                    return NEED_MORE_INPUT;
+                }
+                // let the scanner report what is wrong with the truncated record
+                recordEnd = end;
+            }
+            if (state == ARRAY_FIRST_VALUE || state == ARRAY_VALUE) {
+                state = ARRAY_NEXT;
+            }
+            return recordEnd;
+        }
+    }
+
+    private int findRecordEnd() {
+        byte[] b = buffer;
+        int i = pos;
+        try {
+            if (depth == 0 && !inString) {
+                // numbers and named constants end at the first byte that cannot be part of them
+                while (i < end) {
+                    if (!isScalarByte(b[i])) {
+                        return i;
+                    }
+                    i++;
+                }
+                return eof ? end : -1;
+            }
+            while (i < end) {
+                byte c = b[i++];
+                if (inString) {
+                    if (escape) {
+                        escape = false;
+                    } else if (c == '\\') {
+                        escape = true;
+                    } else if (c == '"') {
+                        inString = false;
+                        if (depth == 0) {
+                            return i;
+                        }
+                    }
+                } else if (c == '"') {
+                    inString = true;
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    if (--depth == 0) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        } finally {
+            pos = i;
+        }
+    }
+
+    private static boolean isScalarByte(byte c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '-' || c == '+' || c == '.';
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.pickle;
+
+import com.oracle.graal.python.builtins.objects.object.PythonBuiltinObject;
+import com.oracle.truffle.api.object.Shape;
+
+/**
+ * The state of a {@code _pickle.Pickler}. The hooks a subclass may define ({@code persistent_id},
+ * {@code dispatch_table} and {@code reducer_override}) are looked up once in {@code __init__}, as
+ * CPython does.
+ */
+public final class PPickler extends PythonBuiltinObject {
+    // the write method of the file, null until __init__ ran, or when pickling into bytes
+    private Object write;
+    private boolean initialized;
+    private int protocol;
+    private boolean fixImports;
+    private boolean fast;
+    private Object bufferCallback;
+    private Object persistentId;
+    private Object dispatchTable;
+    private Object reducerOverride;
+    private PickleMemoTable memo = new PickleMemoTable();
+
+    public PPickler(Object cls, Shape instanceShape) {
+        super(cls, instanceShape);
+    }
+
+    void init(Object writeMethod, int proto, boolean fixImportsFlag, Object callback) {
+        this.write = writeMethod;
+        this.protocol = proto;
+        this.fixImports = fixImportsFlag && proto < 3;
+        this.bufferCallback = callback;
+        this.fast = false;
+        this.memo.clear();
+        this.initialized = true;
+    }
+
+    boolean isInitialized() {
+        return initialized;
+    }
+
+    Object getWrite() {
+        return write;
+    }
+
+    int getProtocol() {
+        return protocol;
+    }
+
+    boolean isBin() {
+        return protocol > 0;
+    }
+
+    boolean isFixImports() {
+        return fixImports;
+    }
+
+    boolean isFast() {
+        return fast;
+    }
+
+    void setFast(boolean fast) {
+        this.fast = fast;
+    }
+
+    Object getBufferCallback() {
+        return bufferCallback;
+    }
+
+    Object getPersistentId() {
+        return persistentId;
+    }
+
+    void setPersistentId(Object persistentId) {
+        this.persistentId = persistentId;
+    }
+
+    Object getDispatchTable() {
+        return dispatchTable;
+    }
+
+    void setDispatchTable(Object dispatchTable) {
+        this.dispatchTable = dispatchTable;
+    }
+
+    Object getReducerOverride() {
+        return reducerOverride;
+    }
+
+    void setReducerOverride(Object reducerOverride) {
+        this.reducerOverride = reducerOverride;
+    }
+
+    PickleMemoTable getMemo() {
+        return memo;
+    }
+
+    void setMemo(PickleMemoTable memo) {
+        this.memo = memo;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.pickle;
+
+import java.util.Arrays;
+
+import com.oracle.graal.python.builtins.objects.object.PythonBuiltinObject;
+import com.oracle.truffle.api.object.Shape;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * The state of a {@code _pickle.Unpickler}. Like in CPython, the memo is a plain array indexed by
+ * the memo keys of the pickle stream.
+ */
+public final class PUnpickler extends PythonBuiltinObject {
+    private static final int INITIAL_MEMO_SIZE = 32;
+
+    // the methods of the file, null until __init__ ran, or when unpickling from a buffer
+    private Object read;
+    private Object readline;
+    private boolean initialized;
+    private boolean fixImports;
+    private TruffleString encoding;
+    private TruffleString errors;
+    // iterator over the out-of-band buffers, null if none were given
+    private Object buffers;
+    private Object persistentLoad;
+    // the protocol of the stream being loaded, as announced by the PROTO opcode
+    private int protocol;
+
+    private Object[] memo = new Object[INITIAL_MEMO_SIZE];
+    private int memoLen;
+
+    public PUnpickler(Object cls, Shape instanceShape) {
+        super(cls, instanceShape);
+    }
+
+    void init(Object readMethod, Object readlineMethod, boolean fixImportsFlag, TruffleString encodingName, TruffleString errorsName, Object buffersIterator) {
+        this.read = readMethod;
+        this.readline = readlineMethod;
+        this.fixImports = fixImportsFlag;
+        this.encoding = encodingName;
+        this.errors = errorsName;
+        this.buffers = buffersIterator;
+        this.protocol = 0;
+        clearMemo();
+        this.initialized = true;
+    }
+
+    boolean isInitialized() {
+        return initialized;
+    }
+
+    Object getRead() {
+        return read;
+    }
+
+    Object getReadline() {
+        return readline;
+    }
+
+    boolean isFixImports() {
+        return fixImports;
+    }
+
+    TruffleString getEncoding() {
+        return encoding;
+    }
+
+    TruffleString getErrors() {
+        return errors;
+    }
+
+    Object getBuffers() {
+        return buffers;
+    }
+
+    Object getPersistentLoad() {
+        return persistentLoad;
+    }
+
+    void setPersistentLoad(Object persistentLoad) {
+        this.persistentLoad = persistentLoad;
+    }
+
+    int getProtocol() {
+        return protocol;
+    }
+
+    void setProtocol(int protocol) {
+        this.protocol = protocol;
+    }
+
+    Object memoGet(int idx) {
+        return idx < memo.length ? memo[idx] : null;
+    }
+
+    void memoPut(int idx, Object value) {
+        if (idx >= memo.length) {
+            memo = Arrays.copyOf(memo, Math.max(idx + 1, memo.length * 2));
+        }
+        if (memo[idx] == null) {
+            memoLen++;
+        }
+        memo[idx] = value;
+    }
+
+    int getMemoLen() {
+        return memoLen;
+    }
+
+    int getMemoCapacity() {
+        return memo.length;
+    }
+
+    void clearMemo() {
+        if (memo.length > INITIAL_MEMO_SIZE) {
+            memo = new Object[INITIAL_MEMO_SIZE];
+        } else {
+            Arrays.fill(memo, null);
+        }
+        memoLen = 0;
+    }
+
+    Object[] copyMemo() {
+        return memo.clone();
+    }
+
+    void setMemo(Object[] newMemo, int newMemoLen) {
+        this.memo = newMemo;
+        this.memoLen = newMemoLen;
+    }
+}
@@ -0,0 +1,1102 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.pickle;
+
+import static com.oracle.graal.python.builtins.modules.pickle.PickleEncoder.asBuiltinType;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleEncoder.asString;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleEncoder.dictToKeywords;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleEncoder.getItems;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleEncoder.getModuleAttribute;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleEncoder.isString;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleEncoder.repr;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.HIGHEST_PROTOCOL;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_BYTES_ENCODING;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_CODECS;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_COMPAT_PICKLE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_COPYREG;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_ESCAPE_DECODE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_EXTENSION_CACHE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_FIND_CLASS;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_IMPORT_MAPPING;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_INVERTED_REGISTRY;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_NAME_MAPPING;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_RAW_UNICODE_ESCAPE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_SURROGATEPASS;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_UTF8;
+import static com.oracle.graal.python.nodes.BuiltinNames.T_ADD;
+import static com.oracle.graal.python.nodes.BuiltinNames.T_APPEND;
+import static com.oracle.graal.python.nodes.BuiltinNames.T_DECODE;
+import static com.oracle.graal.python.nodes.BuiltinNames.T_EXTEND;
+import static com.oracle.graal.python.nodes.SpecialAttributeNames.T___DICT__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.T___GETINITARGS__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.T___NEW__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.T___SETSTATE__;
+import static com.oracle.graal.python.util.PythonUtils.TS_ENCODING;
+import static com.oracle.graal.python.util.PythonUtils.tsLiteral;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAccessLibrary;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAcquireLibrary;
+import com.oracle.graal.python.builtins.objects.bytes.PBytes;
+import com.oracle.graal.python.builtins.objects.common.EconomicMapStorage;
+import com.oracle.graal.python.builtins.objects.common.HashingStorage;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageGetIterator;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIterator;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorKey;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorNext;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorValue;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageSetItem;
+import com.oracle.graal.python.builtins.objects.dict.PDict;
+import com.oracle.graal.python.builtins.objects.function.PKeyword;
+import com.oracle.graal.python.builtins.objects.list.PList;
+import com.oracle.graal.python.builtins.objects.memoryview.PMemoryView;
+import com.oracle.graal.python.builtins.objects.set.PSet;
+import com.oracle.graal.python.builtins.objects.tuple.PTuple;
+import com.oracle.graal.python.builtins.objects.type.TypeNodes.IsTypeNode;
+import com.oracle.graal.python.lib.PyDictGetItem;
+import com.oracle.graal.python.lib.PyDictSetItem;
+import com.oracle.graal.python.lib.PyIterNextNode;
+import com.oracle.graal.python.lib.PyLongAsLongNode;
+import com.oracle.graal.python.lib.PyObjectCallMethodObjArgs;
+import com.oracle.graal.python.lib.PyObjectGetAttr;
+import com.oracle.graal.python.lib.PyObjectLookupAttr;
+import com.oracle.graal.python.lib.PyObjectSetAttr;
+import com.oracle.graal.python.lib.PyObjectSetItem;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.nodes.builtins.ListNodes;
+import com.oracle.graal.python.nodes.call.CallNode;
+import com.oracle.graal.python.nodes.object.BuiltinClassProfiles.IsBuiltinObjectProfile;
+import com.oracle.graal.python.nodes.object.InlinedGetClassNode;
+import com.oracle.graal.python.nodes.statement.AbstractImportNode;
+import com.oracle.graal.python.runtime.exception.PException;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.graal.python.runtime.sequence.storage.SequenceStorageFactory;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.memory.ByteArraySupport;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleString.Encoding;
+
+/**
+ * Reads one pickle from a byte array or a file, following {@code load()} in CPython's
+ * {@code _pickle.c}. When reading from a file, only as many bytes as needed are requested, except
+ * for frames, which are read as a whole, so that the file is positioned right after the pickle
+ * afterwards.
+ */
+final class PickleDecoder {
+    private static final ByteArraySupport LE = ByteArraySupport.littleEndian();
+    private static final ByteArraySupport BE = ByteArraySupport.bigEndian();
+    private static final TruffleString T_TOREADONLY = tsLiteral("toreadonly");
+
+    private final PUnpickler unpickler;
+    private final Node raisingNode;
+    private final PythonObjectFactory factory;
+    // the methods of the file, null when loading from a buffer
+    private final Object read;
+    private final Object readline;
+
+    private byte[] buf;
+    private int pos;
+    private int end;
+
+    private Object[] stack = new Object[16];
+    private int stackLen;
+    private int[] marks = new int[8];
+    private int marksLen;
+    // objects below the topmost mark must not be popped
+    private int fence;
+
+    private PickleDecoder(PUnpickler unpickler, Node raisingNode, byte[] data, int len) {
+        this.unpickler = unpickler;
+        this.raisingNode = raisingNode;
+        this.factory = PythonObjectFactory.getUncached();
+        this.buf = data;
+        this.end = len;
+        if (data == null) {
+            this.read = unpickler.getRead();
+            this.readline = unpickler.getReadline();
+            this.buf = new byte[0];
+        } else {
+            this.read = null;
+            this.readline = null;
+        }
+    }
+
+    @TruffleBoundary
+    static Object loadFile(PUnpickler unpickler, Node raisingNode) {
+        return new PickleDecoder(unpickler, raisingNode, null, 0).load();
+    }
+
+    @TruffleBoundary
+    static Object loadBytes(PUnpickler unpickler, byte[] data, int len, Node raisingNode) {
+        return new PickleDecoder(unpickler, raisingNode, data, len).load();
+    }
+
+    private PException raise(PythonBuiltinClassType type, TruffleString format, Object... args) {
+        throw PRaiseNode.raiseUncached(raisingNode, type, format, args);
+    }
+
+    private PException raiseUnpicklingError(TruffleString format, Object... args) {
+        throw raise(PythonBuiltinClassType.UnpicklingError, format, args);
+    }
+
+    // ---- input
+
+    /* Makes sure that n bytes are available at pos, reading them from the file if necessary. */
+    private void need(int n) {
+        if (end - pos >= n) {
+            return;
+        }
+        if (read == null) {
+            throw raiseUnpicklingError(ErrorMessages.PICKLE_DATA_WAS_TRUNCATED);
+        }
+        int remaining = end - pos;
+        Object data = CallNode.getUncached().execute(read, n - remaining);
+        appendFromFile(data, remaining);
+        if (end < n) {
+            throw raiseUnpicklingError(ErrorMessages.PICKLE_DATA_WAS_TRUNCATED);
+        }
+    }
+
+    private void appendFromFile(Object data, int remaining) {
+        PythonBufferAcquireLibrary acquireLib = PythonBufferAcquireLibrary.getUncached();
+        PythonBufferAccessLibrary bufferLib = PythonBufferAccessLibrary.getUncached();
+        Object buffer = acquireLib.acquireReadonly(data);
+        try {
+            int len = bufferLib.getBufferLength(buffer);
+            byte[] newBuf = new byte[remaining + len];
+            System.arraycopy(buf, pos, newBuf, 0, remaining);
+            bufferLib.readIntoByteArray(buffer, 0, newBuf, remaining, len);
+            buf = newBuf;
+            pos = 0;
+            end = remaining + len;
+        } finally {
+            bufferLib.release(buffer);
+        }
+    }
+
+    private int readByte() {
+        need(1);
+        return buf[pos++] & 0xff;
+    }
+
+    private int readUShort() {
+        need(2);
+        int value = LE.getShort(buf, pos) & 0xffff;
+        pos += 2;
+        return value;
+    }
+
+    private int readInt() {
+        need(4);
+        int value = LE.getInt(buf, pos);
+        pos += 4;
+        return value;
+    }
+
+    /* Reads an unsigned size of 1, 4 or 8 bytes. */
+    private int readSize(int nbytes, String opname) {
+        long size;
+        if (nbytes == 1) {
+            size = readByte();
+        } else if (nbytes == 4) {
+            size = readInt() & 0xffffffffL;
+        } else {
+            need(8);
+            size = LE.getLong(buf, pos);
+            pos += 8;
+        }
+        if (size < 0 || size > Integer.MAX_VALUE - 8) {
+            throw raise(PythonBuiltinClassType.OverflowError, ErrorMessages.S_EXCEEDS_SYSTEM_MAXIMUM, opname, Integer.MAX_VALUE - 8);
+        }
+        return (int) size;
+    }
+
+    /* Returns the offset of the next line in buf and advances past it. The line includes '\n'. */
+    private int readLine() {
+        for (int i = pos; i < end; i++) {
+            if (buf[i] == '\n') {
+                int start = pos;
+                pos = i + 1;
+                return start;
+            }
+        }
+        if (readline == null) {
+            throw raiseUnpicklingError(ErrorMessages.PICKLE_DATA_WAS_TRUNCATED);
+        }
+        int remaining = end - pos;
+        appendFromFile(CallNode.getUncached().execute(readline), remaining);
+        if (end == remaining || buf[end - 1] != '\n') {
+            throw raiseUnpicklingError(ErrorMessages.PICKLE_DATA_WAS_TRUNCATED);
+        }
+        pos = end;
+        return 0;
+    }
+
+    /* Reads a line and returns it without the trailing newline as a Java string. */
+    private String readLineString(int minLength) {
+        int start = readLine();
+        int len = pos - start;
+        if (len < minLength) {
+            throw raiseUnpicklingError(ErrorMessages.PICKLE_DATA_WAS_TRUNCATED);
+        }
+        return new String(buf, start, len - 1, StandardCharsets.ISO_8859_1);
+    }
+
+    private TruffleString readLineAsString(Encoding encoding) {
+        int start = readLine();
+        int len = pos - start;
+        if (len < 2) {
+            throw raiseUnpicklingError(ErrorMessages.PICKLE_DATA_WAS_TRUNCATED);
+        }
+        return decodeUtf8OrAscii(start, len - 1, encoding);
+    }
+
+    private TruffleString decodeUtf8OrAscii(int start, int len, Encoding encoding) {
+        TruffleString str = TruffleString.fromByteArrayUncached(buf, start, len, encoding, true);
+        if (!str.isValidUncached(encoding)) {
+            Object bytes = factory.createBytes(Arrays.copyOfRange(buf, start, start + len));
+            PyObjectCallMethodObjArgs.getUncached().execute(null, bytes, T_DECODE, encoding == Encoding.US_ASCII ? PickleUtils.T_ASCII : T_UTF8);
+        }
+        return str.switchEncodingUncached(TS_ENCODING);
+    }
+
+    // ---- stack
+
+    private void push(Object value) {
+        if (stackLen == stack.length) {
+            stack = Arrays.copyOf(stack, stackLen * 2);
+        }
+        stack[stackLen++] = value;
+    }
+
+    private PException stackUnderflow() {
+        throw raiseUnpicklingError(marksLen > 0 ? ErrorMessages.UNEXPECTED_MARK_FOUND : ErrorMessages.UNPICKLING_STACK_UNDERFLOW);
+    }
+
+    private Object pop() {
+        if (stackLen <= fence) {
+            throw stackUnderflow();
+        }
+        Object value = stack[--stackLen];
+        stack[stackLen] = null;
+        return value;
+    }
+
+    private Object peek() {
+        if (stackLen <= fence) {
+            throw stackUnderflow();
+        }
+        return stack[stackLen - 1];
+    }
+
+    private Object[] popItems(int start) {
+        if (start < fence) {
+            throw stackUnderflow();
+        }
+        Object[] items = Arrays.copyOfRange(stack, start, stackLen);
+        clearStack(start);
+        return items;
+    }
+
+    private void clearStack(int start) {
+        Arrays.fill(stack, start, stackLen, null);
+        stackLen = start;
+    }
+
+    private int marker() {
+        if (marksLen < 1) {
+            throw raiseUnpicklingError(ErrorMessages.COULD_NOT_FIND_MARK);
+        }
+        int mark = marks[--marksLen];
+        fence = marksLen > 0 ? marks[marksLen - 1] : 0;
+        return mark;
+    }
+
+    // ---- load
+
+    private Object load() {
+        while (true) {
+            int op;
+            try {
+                op = readByte();
+            } catch (PException e) {
+                e.expect(null, PythonBuiltinClassType.UnpicklingError, IsBuiltinObjectProfile.getUncached());
+                throw raise(PythonBuiltinClassType.EOFError, ErrorMessages.RAN_OUT_OF_INPUT);
+            }
+            switch ((byte) op) {
+                case PickleUtils.STOP:
+                    return pop();
+                case PickleUtils.PROTO:
+                    loadProto();
+                    break;
+                case PickleUtils.FRAME:
+                    loadFrame();
+                    break;
+                case PickleUtils.NONE:
+                    push(PNone.NONE);
+                    break;
+                case PickleUtils.NEWTRUE:
+                    push(true);
+                    break;
+                case PickleUtils.NEWFALSE:
+                    push(false);
+                    break;
+                case PickleUtils.INT:
+                    loadInt();
+                    break;
+                case PickleUtils.BININT:
+                    push(readInt());
+                    break;
+                case PickleUtils.BININT1:
+                    push(readByte());
+                    break;
+                case PickleUtils.BININT2:
+                    push(readUShort());
+                    break;
+                case PickleUtils.LONG:
+                    loadLong();
+                    break;
+                case PickleUtils.LONG1:
+                    loadCountedLong(readByte());
+                    break;
+                case PickleUtils.LONG4: {
+                    int size = readInt();
+                    if (size < 0) {
+                        throw raiseUnpicklingError(ErrorMessages.S_PICKLE_HAS_NEGATIVE_BYTE_COUNT, "LONG");
+                    }
+                    loadCountedLong(size);
+                    break;
+                }
+                case PickleUtils.FLOAT:
+                    push(CallNode.getUncached().execute(PythonBuiltinClassType.PFloat, readLineAsString(Encoding.US_ASCII)));
+                    break;
+                case PickleUtils.BINFLOAT:
+                    need(8);
+                    push(BE.getDouble(buf, pos));
+                    pos += 8;
+                    break;
+                case PickleUtils.STRING:
+                    loadString();
+                    break;
+                case PickleUtils.BINSTRING: {
+                    int size = readInt();
+                    if (size < 0) {
+                        throw raiseUnpicklingError(ErrorMessages.S_PICKLE_HAS_NEGATIVE_BYTE_COUNT, "BINSTRING");
+                    }
+                    push(decodeString(readBytesObject(size)));
+                    break;
+                }
+                case PickleUtils.SHORT_BINSTRING:
+                    push(decodeString(readBytesObject(readByte())));
+                    break;
+                case PickleUtils.SHORT_BINBYTES:
+                    push(readBytesObject(readByte()));
+                    break;
+                case PickleUtils.BINBYTES:
+                    push(readBytesObject(readSize(4, "BINBYTES")));
+                    break;
+                case PickleUtils.BINBYTES8:
+                    push(readBytesObject(readSize(8, "BINBYTES8")));
+                    break;
+                case PickleUtils.BYTEARRAY8: {
+                    int size = readSize(8, "BYTEARRAY8");
+                    need(size);
+                    push(factory.createByteArray(Arrays.copyOfRange(buf, pos, pos + size)));
+                    pos += size;
+                    break;
+                }
+                case PickleUtils.NEXT_BUFFER:
+                    loadNextBuffer();
+                    break;
+                case PickleUtils.READONLY_BUFFER:
+                    loadReadonlyBuffer();
+                    break;
+                case PickleUtils.UNICODE: {
+                    int start = readLine();
+                    Object bytes = factory.createBytes(Arrays.copyOfRange(buf, start, pos - 1));
+                    push(PyObjectCallMethodObjArgs.getUncached().execute(null, bytes, T_DECODE, T_RAW_UNICODE_ESCAPE));
+                    break;
+                }
+                case PickleUtils.SHORT_BINUNICODE:
+                    loadUnicode(readByte());
+                    break;
+                case PickleUtils.BINUNICODE:
+                    loadUnicode(readSize(4, "BINUNICODE"));
+                    break;
+                case PickleUtils.BINUNICODE8:
+                    loadUnicode(readSize(8, "BINUNICODE8"));
+                    break;
+                case PickleUtils.EMPTY_TUPLE:
+                    push(factory.createEmptyTuple());
+                    break;
+                case PickleUtils.TUPLE1:
+                    push(factory.createTuple(popItems(stackLen - 1)));
+                    break;
+                case PickleUtils.TUPLE2:
+                    push(factory.createTuple(popItems(stackLen - 2)));
+                    break;
+                case PickleUtils.TUPLE3:
+                    push(factory.createTuple(popItems(stackLen - 3)));
+                    break;
+                case PickleUtils.TUPLE:
+                    push(factory.createTuple(popItems(marker())));
+                    break;
+                case PickleUtils.EMPTY_LIST:
+                    push(factory.createList());
+                    break;
+                case PickleUtils.LIST:
+                    push(factory.createList(popItems(marker())));
+                    break;
+                case PickleUtils.EMPTY_DICT:
+                    push(factory.createDict());
+                    break;
+                case PickleUtils.DICT:
+                    loadDict();
+                    break;
+                case PickleUtils.EMPTY_SET:
+                    push(factory.createSet());
+                    break;
+                case PickleUtils.FROZENSET:
+                    push(factory.createFrozenSet(toStorage(popItems(marker()))));
+                    break;
+                case PickleUtils.ADDITEMS:
+                    loadAddItems();
+                    break;
+                case PickleUtils.APPEND:
+                    doAppend(stackLen - 1);
+                    break;
+                case PickleUtils.APPENDS:
+                    doAppend(marker());
+                    break;
+                case PickleUtils.SETITEM:
+                    doSetItems(stackLen - 2);
+                    break;
+                case PickleUtils.SETITEMS:
+                    doSetItems(marker());
+                    break;
+                case PickleUtils.BUILD:
+                    loadBuild();
+                    break;
+                case PickleUtils.OBJ:
+                    loadObj();
+                    break;
+                case PickleUtils.INST:
+                    loadInst();
+                    break;
+                case PickleUtils.NEWOBJ:
+                    loadNewobj(false);
+                    break;
+                case PickleUtils.NEWOBJ_EX:
+                    loadNewobj(true);
+                    break;
+                case PickleUtils.REDUCE:
+                    loadReduce();
+                    break;
+                case PickleUtils.GLOBAL: {
+                    TruffleString moduleName = readLineAsString(Encoding.UTF_8);
+                    TruffleString globalName = readLineAsString(Encoding.UTF_8);
+                    push(callFindClass(moduleName, globalName));
+                    break;
+                }
+                case PickleUtils.STACK_GLOBAL: {
+                    Object globalName = pop();
+                    Object moduleName = pop();
+                    if (!(moduleName instanceof TruffleString) || !(globalName instanceof TruffleString)) {
+                        throw raiseUnpicklingError(ErrorMessages.STACK_GLOBAL_REQUIRES_STR);
+                    }
+                    push(callFindClass(moduleName, globalName));
+                    break;
+                }
+                case PickleUtils.EXT1:
+                    loadExtension(readByte());
+                    break;
+                case PickleUtils.EXT2:
+                    loadExtension(readUShort());
+                    break;
+                case PickleUtils.EXT4:
+                    loadExtension(readInt());
+                    break;
+                case PickleUtils.MARK:
+                    if (marksLen == marks.length) {
+                        marks = Arrays.copyOf(marks, marksLen * 2);
+                    }
+                    marks[marksLen++] = stackLen;
+                    fence = stackLen;
+                    break;
+                case PickleUtils.POP:
+                    loadPop();
+                    break;
+                case PickleUtils.POP_MARK:
+                    clearStack(marker());
+                    break;
+                case PickleUtils.DUP:
+                    push(peek());
+                    break;
+                case PickleUtils.GET:
+                    memoGet(parseMemoIndex(readLineString(2), false, null));
+                    break;
+                case PickleUtils.BINGET:
+                    memoGet(readByte());
+                    break;
+                case PickleUtils.LONG_BINGET:
+                    memoGet(readInt() & 0xffffffffL);
+                    break;
+                case PickleUtils.PUT:
+                    memoPut(parseMemoIndex(readLineString(2), true, "PUT"));
+                    break;
+                case PickleUtils.BINPUT:
+                    memoPut(readByte());
+                    break;
+                case PickleUtils.LONG_BINPUT: {
+                    int idx = readInt();
+                    if (idx < 0) {
+                        throw raise(PythonBuiltinClassType.ValueError, ErrorMessages.NEGATIVE_S_ARGUMENT, "LONG_BINPUT");
+                    }
+                    memoPut(idx);
+                    break;
+                }
+                case PickleUtils.MEMOIZE:
+                    memoPut(unpickler.getMemoLen());
+                    break;
+                case PickleUtils.PERSID:
+                    loadPersid();
+                    break;
+                case PickleUtils.BINPERSID: {
+                    Object pid = pop();
+                    push(CallNode.getUncached().execute(getPersistentLoad(), pid));
+                    break;
+                }
+                default:
+                    if (0x20 <= op && op <= 0x7e && op != '\'' && op != '\\') {
+                        throw raiseUnpicklingError(ErrorMessages.INVALID_LOAD_KEY_C, (char) op);
+                    }
+                    throw raiseUnpicklingError(ErrorMessages.INVALID_LOAD_KEY_X, op);
+            }
+        }
+    }
+
+    private void loadProto() {
+        int proto = readByte();
+        if (proto > HIGHEST_PROTOCOL) {
+            throw raise(PythonBuiltinClassType.ValueError, ErrorMessages.UNSUPPORTED_PICKLE_PROTOCOL, proto);
+        }
+        unpickler.setProtocol(proto);
+    }
+
+    private void loadFrame() {
+        int frameLen = readSize(8, "FRAME length");
+        need(frameLen);
+    }
+
+    private static Object toInt(BigInteger value) {
+        if (value.bitLength() < 32) {
+            return value.intValue();
+        } else if (value.bitLength() < 64) {
+            return value.longValue();
+        }
+        return PythonObjectFactory.getUncached().createInt(value);
+    }
+
+    private Object parseInt(String text) {
+        try {
+            return toInt(new BigInteger(text.strip()));
+        } catch (NumberFormatException e) {
+            // other bases or underscores, let int() handle them or raise
+            return CallNode.getUncached().execute(PythonBuiltinClassType.PInt, TruffleString.fromJavaStringUncached(text, TS_ENCODING), 0);
+        }
+    }
+
+    private void loadInt() {
+        String text = readLineString(2);
+        if (text.equals("00")) {
+            push(false);
+        } else if (text.equals("01")) {
+            push(true);
+        } else {
+            push(parseInt(text));
+        }
+    }
+
+    private void loadLong() {
+        String text = readLineString(2);
+        if (text.endsWith("L")) {
+            text = text.substring(0, text.length() - 1);
+        }
+        push(parseInt(text));
+    }
+
+    private void loadCountedLong(int size) {
+        if (size == 0) {
+            push(0);
+            return;
+        }
+        need(size);
+        byte[] bigEndian = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bigEndian[i] = buf[pos + size - 1 - i];
+        }
+        pos += size;
+        push(toInt(new BigInteger(bigEndian)));
+    }
+
+    /**
+     * Reads {@code size} bytes into a new bytes object. Data that is not buffered yet is read from
+     * the file in one call, and if the file returns a bytes object of the right size, that object
+     * is used as it is.
+     */
+    private Object readBytesObject(int size) {
+        if (read != null && pos == end && size > 0) {
+            Object data = CallNode.getUncached().execute(read, size);
+            if (data instanceof PBytes && asBuiltinType(InlinedGetClassNode.executeUncached(data)) == PythonBuiltinClassType.PBytes &&
+                            PythonBufferAccessLibrary.getUncached().getBufferLength(data) == size) {
+                return data;
+            }
+            appendFromFile(data, 0);
+            if (end < size) {
+                throw raiseUnpicklingError(ErrorMessages.PICKLE_DATA_WAS_TRUNCATED);
+            }
+        } else {
+            need(size);
+        }
+        Object bytes = factory.createBytes(Arrays.copyOfRange(buf, pos, pos + size));
+        pos += size;
+        return bytes;
+    }
+
+
+    private void loadString() {
+        int start = readLine();
+        int len = pos - start - 1;
+        if (len < 2 || buf[start] != buf[start + len - 1] || (buf[start] != '\'' && buf[start] != '"')) {
+            throw raiseUnpicklingError(ErrorMessages.STRING_OPCODE_ARGUMENT_MUST_BE_QUOTED);
+        }
+        Object quoted = factory.createBytes(Arrays.copyOfRange(buf, start + 1, start + len - 1));
+        Object decoded = CallNode.getUncached().execute(getModuleAttribute(T_CODECS, T_ESCAPE_DECODE), quoted);
+        push(decodeString(getItems((PTuple) decoded)[0]));
+    }
+
+    /* Python 2 str objects are decoded with the encoding and errors given to the Unpickler. */
+    private Object decodeString(Object bytes) {
+        TruffleString encoding = unpickler.getEncoding();
+        if (encoding.equalsUncached(T_BYTES_ENCODING, TS_ENCODING)) {
+            return bytes;
+        }
+        return PyObjectCallMethodObjArgs.getUncached().execute(null, bytes, T_DECODE, encoding, unpickler.getErrors());
+    }
+
+    private void loadUnicode(int size) {
+        need(size);
+        TruffleString str = TruffleString.fromByteArrayUncached(buf, pos, size, Encoding.UTF_8, true);
+        if (str.isValidUncached(Encoding.UTF_8)) {
+            push(str.switchEncodingUncached(TS_ENCODING));
+        } else {
+            // lone surrogates
+            Object bytes = factory.createBytes(Arrays.copyOfRange(buf, pos, pos + size));
+            push(PyObjectCallMethodObjArgs.getUncached().execute(null, bytes, T_DECODE, T_UTF8, T_SURROGATEPASS));
+        }
+        pos += size;
+    }
+
+    private void loadNextBuffer() {
+        Object buffers = unpickler.getBuffers();
+        if (buffers == null) {
+            throw raiseUnpicklingError(ErrorMessages.OUT_OF_BAND_DATA_BUT_NO_BUFFERS);
+        }
+        Object buffer = PyIterNextNode.getUncached().execute(null, buffers);
+        if (buffer == null) {
+            throw raiseUnpicklingError(ErrorMessages.NOT_ENOUGH_OUT_OF_BAND_BUFFERS);
+        }
+        push(buffer);
+    }
+
+    private void loadReadonlyBuffer() {
+        Object obj = peek();
+        Object view = CallNode.getUncached().execute(PythonBuiltinClassType.PMemoryView, obj);
+        if (!((PMemoryView) view).isReadOnly()) {
+            stack[stackLen - 1] = PyObjectCallMethodObjArgs.getUncached().execute(null, view, T_TOREADONLY);
+        }
+    }
+
+    private static HashingStorage toStorage(Object[] items) {
+        HashingStorage storage = EconomicMapStorage.create(items.length);
+        for (Object item : items) {
+            storage = HashingStorageSetItem.executeUncached(storage, item, PNone.NONE);
+        }
+        return storage;
+    }
+
+    private void loadDict() {
+        int mark = marker();
+        if ((stackLen - mark) % 2 != 0) {
+            throw raiseUnpicklingError(ErrorMessages.ODD_NUMBER_OF_ITEMS_FOR_S, "DICT");
+        }
+        PDict dict = factory.createDict();
+        for (int i = mark + 1; i < stackLen; i += 2) {
+            PyDictSetItem.executeUncached(dict, stack[i - 1], stack[i]);
+        }
+        clearStack(mark);
+        push(dict);
+    }
+
+    private void loadAddItems() {
+        int mark = marker();
+        if (mark > stackLen || mark <= fence) {
+            throw stackUnderflow();
+        }
+        if (mark == stackLen) {
+            return;
+        }
+        Object set = stack[mark - 1];
+        if (set instanceof PSet pset) {
+            HashingStorage storage = pset.getDictStorage();
+            for (Object item : popItems(mark)) {
+                storage = HashingStorageSetItem.executeUncached(storage, item, PNone.NONE);
+            }
+            pset.setDictStorage(storage);
+        } else {
+            Object add = PyObjectGetAttr.getUncached().execute(set, T_ADD);
+            for (int i = mark; i < stackLen; i++) {
+                CallNode.getUncached().execute(add, stack[i]);
+            }
+            clearStack(mark);
+        }
+    }
+
+    private void doAppend(int x) {
+        if (x > stackLen || x <= fence) {
+            throw stackUnderflow();
+        }
+        if (x == stackLen) {
+            return;
+        }
+        Object list = stack[x - 1];
+        if (list instanceof PList plist && asBuiltinType(InlinedGetClassNode.executeUncached(plist)) == PythonBuiltinClassType.PList) {
+            Object[] items = popItems(x);
+            if (plist.getSequenceStorage().length() == 0) {
+                // typically the whole list, let the storage specialize on the items
+                plist.setSequenceStorage(SequenceStorageFactory.createStorage(items));
+            } else {
+                ListNodes.AppendNode appendNode = ListNodes.AppendNode.getUncached();
+                for (Object item : items) {
+                    appendNode.execute(plist, item);
+                }
+            }
+            return;
+        }
+        Object extend = PyObjectLookupAttr.getUncached().execute(null, list, T_EXTEND);
+        if (extend != PNone.NO_VALUE) {
+            CallNode.getUncached().execute(extend, factory.createList(popItems(x)));
+        } else {
+            Object append = PyObjectGetAttr.getUncached().execute(list, T_APPEND);
+            for (int i = x; i < stackLen; i++) {
+                CallNode.getUncached().execute(append, stack[i]);
+            }
+            clearStack(x);
+        }
+    }
+
+    private void doSetItems(int x) {
+        if (x > stackLen || x <= fence) {
+            throw stackUnderflow();
+        }
+        if (x == stackLen) {
+            return;
+        }
+        if ((stackLen - x) % 2 != 0) {
+            throw raiseUnpicklingError(ErrorMessages.ODD_NUMBER_OF_ITEMS_FOR_S, "SETITEMS");
+        }
+        Object dict = stack[x - 1];
+        if (dict instanceof PDict pdict && asBuiltinType(InlinedGetClassNode.executeUncached(pdict)) == PythonBuiltinClassType.PDict) {
+            for (int i = x + 1; i < stackLen; i += 2) {
+                PyDictSetItem.executeUncached(pdict, stack[i - 1], stack[i]);
+            }
+        } else {
+            for (int i = x + 1; i < stackLen; i += 2) {
+                PyObjectSetItem.getUncached().execute(null, dict, stack[i - 1], stack[i]);
+            }
+        }
+        clearStack(x);
+    }
+
+    private void loadBuild() {
+        if (stackLen - 2 < fence) {
+            throw stackUnderflow();
+        }
+        Object state = pop();
+        Object inst = stack[stackLen - 1];
+        Object setstate = PyObjectLookupAttr.getUncached().execute(null, inst, T___SETSTATE__);
+        if (setstate != PNone.NO_VALUE) {
+            CallNode.getUncached().execute(setstate, state);
+            return;
+        }
+        Object slotState = null;
+        if (state instanceof PTuple tuple && tuple.getSequenceStorage().length() == 2) {
+            Object[] items = getItems(tuple);
+            state = items[0];
+            slotState = items[1];
+        }
+        if (state != PNone.NONE) {
+            if (!(state instanceof PDict stateDict)) {
+                throw raiseUnpicklingError(ErrorMessages.STATE_IS_NOT_A_DICTIONARY);
+            }
+            Object instDict = PyObjectGetAttr.getUncached().execute(inst, T___DICT__);
+            forEachItem(stateDict, (key, value) -> PyObjectSetItem.getUncached().execute(null, instDict, key, value));
+        }
+        if (slotState != null) {
+            if (!(slotState instanceof PDict slotDict)) {
+                throw raiseUnpicklingError(ErrorMessages.SLOT_STATE_IS_NOT_A_DICTIONARY);
+            }
+            forEachItem(slotDict, (key, value) -> PyObjectSetAttr.getUncached().execute(null, inst, key, value));
+        }
+    }
+
+    private interface ItemConsumer {
+        void accept(Object key, Object value);
+    }
+
+    private static void forEachItem(PDict dict, ItemConsumer consumer) {
+        HashingStorage storage = dict.getDictStorage();
+        HashingStorageIterator it = HashingStorageGetIterator.executeUncached(storage);
+        while (HashingStorageIteratorNext.executeUncached(storage, it)) {
+            consumer.accept(HashingStorageIteratorKey.executeUncached(storage, it), HashingStorageIteratorValue.executeUncached(storage, it));
+        }
+    }
+
+    private Object instantiate(Object cls, Object[] args) {
+        if (args.length == 0 && IsTypeNode.getUncached().execute(cls)) {
+            Object getinitargs = PyObjectLookupAttr.getUncached().execute(null, cls, T___GETINITARGS__);
+            if (getinitargs == PNone.NO_VALUE) {
+                return PyObjectCallMethodObjArgs.getUncached().execute(null, cls, T___NEW__, cls);
+            }
+        }
+        return CallNode.getUncached().execute(cls, args);
+    }
+
+    private void loadObj() {
+        int mark = marker();
+        if (stackLen - mark < 1) {
+            throw stackUnderflow();
+        }
+        Object[] args = popItems(mark + 1);
+        Object cls = pop();
+        push(instantiate(cls, args));
+    }
+
+    private void loadInst() {
+        int mark = marker();
+        TruffleString moduleName = readLineAsString(Encoding.US_ASCII);
+        TruffleString className = readLineAsString(Encoding.US_ASCII);
+        Object cls = callFindClass(moduleName, className);
+        push(instantiate(cls, popItems(mark)));
+    }
+
+    private void loadNewobj(boolean useKwargs) {
+        String opname = useKwargs ? "NEWOBJ_EX" : "NEWOBJ";
+        Object kwargs = useKwargs ? pop() : null;
+        Object args = pop();
+        Object cls = pop();
+        if (!IsTypeNode.getUncached().execute(cls)) {
+            throw raiseUnpicklingError(ErrorMessages.S_CLASS_ARGUMENT_MUST_BE_A_TYPE, opname, cls);
+        }
+        if (!(args instanceof PTuple argsTuple)) {
+            throw raiseUnpicklingError(ErrorMessages.S_ARGS_ARGUMENT_MUST_BE_A_TUPLE, opname, args);
+        }
+        PKeyword[] keywords = PKeyword.EMPTY_KEYWORDS;
+        if (useKwargs) {
+            if (!(kwargs instanceof PDict kwargsDict)) {
+                throw raiseUnpicklingError(ErrorMessages.S_KWARGS_ARGUMENT_MUST_BE_A_DICT, opname, kwargs);
+            }
+            keywords = dictToKeywords(kwargsDict);
+        }
+        Object[] clsArgs = getItems(argsTuple);
+        Object[] newArgs = new Object[clsArgs.length + 1];
+        newArgs[0] = cls;
+        System.arraycopy(clsArgs, 0, newArgs, 1, clsArgs.length);
+        Object newMethod = PyObjectGetAttr.getUncached().execute(cls, T___NEW__);
+        push(CallNode.getUncached().execute(newMethod, newArgs, keywords));
+    }
+
+    private void loadReduce() {
+        Object args = pop();
+        Object callable = pop();
+        if (!(args instanceof PTuple argsTuple)) {
+            throw raise(PythonBuiltinClassType.TypeError, ErrorMessages.S_ARGS_ARGUMENT_MUST_BE_A_TUPLE, "REDUCE", args);
+        }
+        push(CallNode.getUncached().execute(callable, getItems(argsTuple)));
+    }
+
+    private void loadPop() {
+        if (marksLen > 0 && marks[marksLen - 1] == stackLen) {
+            marksLen--;
+            fence = marksLen > 0 ? marks[marksLen - 1] : 0;
+        } else {
+            pop();
+        }
+    }
+
+    private long parseMemoIndex(String text, boolean isPut, String opname) {
+        long idx;
+        try {
+            idx = Long.parseLong(text.strip());
+        } catch (NumberFormatException e) {
+            Object value = CallNode.getUncached().execute(PythonBuiltinClassType.PInt, TruffleString.fromJavaStringUncached(text, TS_ENCODING));
+            idx = PyLongAsLongNode.getUncached().execute(null, value);
+        }
+        if (isPut && idx < 0) {
+            throw raise(PythonBuiltinClassType.ValueError, ErrorMessages.NEGATIVE_S_ARGUMENT, opname);
+        }
+        return idx;
+    }
+
+    private void memoGet(long idx) {
+        Object value = idx >= 0 && idx <= Integer.MAX_VALUE ? unpickler.memoGet((int) idx) : null;
+        if (value == null) {
+            throw raiseUnpicklingError(ErrorMessages.MEMO_VALUE_NOT_FOUND_AT_INDEX_D, idx);
+        }
+        push(value);
+    }
+
+    private void memoPut(long idx) {
+        Object value = peek();
+        if (idx > Integer.MAX_VALUE - 8) {
+            throw raise(PythonBuiltinClassType.MemoryError);
+        }
+        unpickler.memoPut((int) idx, value);
+    }
+
+    private Object getPersistentLoad() {
+        Object persistentLoad = unpickler.getPersistentLoad();
+        if (persistentLoad == null) {
+            throw raiseUnpicklingError(ErrorMessages.NO_PERSISTENT_LOAD_FUNCTION);
+        }
+        return persistentLoad;
+    }
+
+    private void loadPersid() {
+        Object persistentLoad = getPersistentLoad();
+        int start = readLine();
+        int len = pos - start - 1;
+        TruffleString pid = TruffleString.fromByteArrayUncached(buf, start, len, Encoding.US_ASCII, true);
+        if (!pid.isValidUncached(Encoding.US_ASCII)) {
+            throw raiseUnpicklingError(ErrorMessages.PERSISTENT_IDS_IN_PROTOCOL_0_MUST_BE_ASCII);
+        }
+        push(CallNode.getUncached().execute(persistentLoad, pid.switchEncodingUncached(TS_ENCODING)));
+    }
+
+    private void loadExtension(int code) {
+        if (code <= 0) {
+            throw raiseUnpicklingError(ErrorMessages.EXT_SPECIFIES_CODE_LE_0);
+        }
+        PDict cache = (PDict) getModuleAttribute(T_COPYREG, T_EXTENSION_CACHE);
+        Object obj = PyDictGetItem.getUncached().execute(null, cache, code);
+        if (obj != null) {
+            push(obj);
+            return;
+        }
+        PDict inverted = (PDict) getModuleAttribute(T_COPYREG, T_INVERTED_REGISTRY);
+        Object pair = PyDictGetItem.getUncached().execute(null, inverted, code);
+        if (pair == null) {
+            throw raise(PythonBuiltinClassType.ValueError, ErrorMessages.UNREGISTERED_EXTENSION_CODE_D, code);
+        }
+        Object[] items = pair instanceof PTuple tuple ? getItems(tuple) : null;
+        if (items == null || items.length != 2 || !isString(items[0]) || !isString(items[1])) {
+            throw raise(PythonBuiltinClassType.ValueError, ErrorMessages.INVERTED_REGISTRY_D_ISNT_A_2_TUPLE_OF_STRINGS, code);
+        }
+        obj = callFindClass(items[0], items[1]);
+        PyDictSetItem.executeUncached(cache, code, obj);
+        push(obj);
+    }
+
+    /* Subclasses may override find_class, so it is only called directly for exact Unpicklers. */
+    private Object callFindClass(Object moduleName, Object globalName) {
+        if (asBuiltinType(InlinedGetClassNode.executeUncached(unpickler)) == PythonBuiltinClassType.Unpickler) {
+            return findClass(unpickler, moduleName, globalName, raisingNode);
+        }
+        return PyObjectCallMethodObjArgs.getUncached().execute(null, unpickler, T_FIND_CLASS, moduleName, globalName);
+    }
+
+    @TruffleBoundary
+    static Object findClass(PUnpickler unpickler, Object moduleName, Object globalName, Node raisingNode) {
+        Object module = moduleName;
+        Object global = globalName;
+        if (unpickler.getProtocol() < 3 && unpickler.isFixImports()) {
+            PDict nameMapping = (PDict) getModuleAttribute(T_COMPAT_PICKLE, T_NAME_MAPPING);
+            Object item = PyDictGetItem.getUncached().execute(null, nameMapping, PythonObjectFactory.getUncached().createTuple(new Object[]{module, global}));
+            if (item != null) {
+                if (!(item instanceof PTuple tuple) || tuple.getSequenceStorage().length() != 2) {
+                    throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.RuntimeError, ErrorMessages.COMPAT_PICKLE_NAME_MAPPING_VALUES_2_TUPLES, T_NAME_MAPPING, item);
+                }
+                Object[] pair = getItems(tuple);
+                if (!isString(pair[0]) || !isString(pair[1])) {
+                    throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.RuntimeError, ErrorMessages.COMPAT_PICKLE_NAME_MAPPING_VALUES_STR_PAIRS, T_NAME_MAPPING, pair[0], pair[1]);
+                }
+                module = pair[0];
+                global = pair[1];
+            } else {
+                PDict importMapping = (PDict) getModuleAttribute(T_COMPAT_PICKLE, T_IMPORT_MAPPING);
+                item = PyDictGetItem.getUncached().execute(null, importMapping, module);
+                if (item != null) {
+                    if (!isString(item)) {
+                        throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.RuntimeError, ErrorMessages.COMPAT_PICKLE_IMPORT_MAPPING_VALUES_STRINGS, T_IMPORT_MAPPING, item);
+                    }
+                    module = item;
+                }
+            }
+        }
+        Object moduleObj = AbstractImportNode.importModule(asString(module));
+        if (unpickler.getProtocol() >= 4) {
+            TruffleString[] dottedPath = PickleEncoder.getDottedPath(moduleObj, asString(global), raisingNode);
+            Object result = PickleEncoder.getDeepAttribute(moduleObj, dottedPath, null);
+            if (result == null) {
+                throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.AttributeError, ErrorMessages.CANT_GET_ATTRIBUTE_S_ON_S, repr(global), repr(moduleObj));
+            }
+            return result;
+        }
+        return PyObjectGetAttr.getUncached().execute(moduleObj, global);
+    }
+}
@@ -0,0 +1,1566 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.pickle;
+
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.ADDITEMS;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.APPEND;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.APPENDS;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BATCHSIZE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BINBYTES;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BINFLOAT;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BINGET;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BININT;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BININT1;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BININT2;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BINPERSID;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BINPUT;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BINUNICODE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BUILD;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BYTEARRAY8;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.DICT;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.EMPTY_DICT;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.EMPTY_LIST;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.EMPTY_SET;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.EMPTY_TUPLE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.EXT1;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.EXT2;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.EXT4;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.FAST_NESTING_LIMIT;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.FLOAT;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.FRAME;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.FRAME_HEADER_SIZE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.FRAME_SIZE_MIN;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.FRAME_SIZE_TARGET;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.FROZENSET;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.GET;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.GLOBAL;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.INT;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.LIST;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.LONG;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.LONG1;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.LONG4;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.LONG_BINGET;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.LONG_BINPUT;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.MARK;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.MEMOIZE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.NEWFALSE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.NEWOBJ;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.NEWOBJ_EX;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.NEWTRUE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.NEXT_BUFFER;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.NONE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.PERSID;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.POP;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.POP_MARK;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.PROTO;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.PUT;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.READONLY_BUFFER;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.REDUCE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.SETITEM;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.SETITEMS;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.SHORT_BINBYTES;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.SHORT_BINUNICODE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.STACK_GLOBAL;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.STOP;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.TUPLE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.TUPLE1;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.TUPLE2;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.TUPLE3;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_CODECS;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_COMPAT_PICKLE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_COPYREG;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_DISPATCH_TABLE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_EXTENSION_REGISTRY;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_FUNCTOOLS;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_LATIN1;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_LOCALS;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_MP_MAIN;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_NEWOBJ;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_NEWOBJ_EX;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_PARTIAL;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_REVERSE_IMPORT_MAPPING;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_REVERSE_NAME_MAPPING;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_SURROGATEPASS;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_UTF8;
+import static com.oracle.graal.python.nodes.BuiltinNames.T_ENCODE;
+import static com.oracle.graal.python.nodes.BuiltinNames.T_GETATTR;
+import static com.oracle.graal.python.nodes.BuiltinNames.T___MAIN__;
+import static com.oracle.graal.python.nodes.SpecialAttributeNames.T___CLASS__;
+import static com.oracle.graal.python.nodes.SpecialAttributeNames.T___MODULE__;
+import static com.oracle.graal.python.nodes.SpecialAttributeNames.T___NAME__;
+import static com.oracle.graal.python.nodes.SpecialAttributeNames.T___QUALNAME__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.T_ITEMS;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.T___NEW__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.T___NEXT__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.T___REDUCE_EX__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.T___REDUCE__;
+import static com.oracle.graal.python.util.PythonUtils.TS_ENCODING;
+import static com.oracle.graal.python.util.PythonUtils.toTruffleStringUncached;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.PNotImplemented;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAccessLibrary;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAcquireLibrary;
+import com.oracle.graal.python.builtins.objects.common.HashingStorage;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageGetIterator;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIterator;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorKey;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorNext;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorValue;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageLen;
+import com.oracle.graal.python.builtins.objects.common.PHashingCollection;
+import com.oracle.graal.python.builtins.objects.common.SequenceStorageNodes;
+import com.oracle.graal.python.builtins.objects.dict.PDict;
+import com.oracle.graal.python.builtins.objects.ellipsis.PEllipsis;
+import com.oracle.graal.python.builtins.objects.floats.PFloat;
+import com.oracle.graal.python.builtins.objects.function.PKeyword;
+import com.oracle.graal.python.builtins.objects.ints.PInt;
+import com.oracle.graal.python.builtins.objects.list.PList;
+import com.oracle.graal.python.builtins.objects.memoryview.PMemoryView;
+import com.oracle.graal.python.builtins.objects.str.PString;
+import com.oracle.graal.python.builtins.objects.tuple.PTuple;
+import com.oracle.graal.python.builtins.objects.type.PythonBuiltinClass;
+import com.oracle.graal.python.builtins.objects.type.TypeNodes.IsTypeNode;
+import com.oracle.graal.python.lib.PyCallableCheckNode;
+import com.oracle.graal.python.lib.PyDictGetItem;
+import com.oracle.graal.python.lib.PyIterNextNode;
+import com.oracle.graal.python.lib.PyLongAsLongNode;
+import com.oracle.graal.python.lib.PyObjectCallMethodObjArgs;
+import com.oracle.graal.python.lib.PyObjectGetAttr;
+import com.oracle.graal.python.lib.PyObjectGetItem;
+import com.oracle.graal.python.lib.PyObjectGetIter;
+import com.oracle.graal.python.lib.PyObjectIsTrueNode;
+import com.oracle.graal.python.lib.PyObjectLookupAttr;
+import com.oracle.graal.python.lib.PyObjectReprAsTruffleStringNode;
+import com.oracle.graal.python.lib.PyObjectStrAsTruffleStringNode;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.nodes.call.CallNode;
+import com.oracle.graal.python.nodes.classes.IsSubtypeNode;
+import com.oracle.graal.python.nodes.object.BuiltinClassProfiles.IsBuiltinObjectProfile;
+import com.oracle.graal.python.nodes.object.InlinedGetClassNode;
+import com.oracle.graal.python.nodes.statement.AbstractImportNode;
+import com.oracle.graal.python.runtime.PythonContext;
+import com.oracle.graal.python.runtime.exception.PException;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.graal.python.runtime.sequence.storage.BoolSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.DoubleSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.IntSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.LongSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.SequenceStorage;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.memory.ByteArraySupport;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.InternalByteArray;
+import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleString.CodeRange;
+import com.oracle.truffle.api.strings.TruffleString.Encoding;
+
+/**
+ * Writes the pickle stream of one {@code Pickler.dump} call. This follows {@code save()} in
+ * CPython's {@code _pickle.c}: the output is collected in a growable byte array, split into frames
+ * for protocol 4 and up, and flushed to the file whenever a frame is complete. Payloads that exceed
+ * a frame are handed to {@code write} as they are, so large bytes objects and {@code PickleBuffer}s
+ * are not copied.
+ */
+final class PickleEncoder {
+    private static final ByteArraySupport LE = ByteArraySupport.littleEndian();
+    private static final ByteArraySupport BE = ByteArraySupport.bigEndian();
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes();
+
+    private final PPickler pickler;
+    private final Node raisingNode;
+    private final PythonContext context;
+    private final PythonObjectFactory factory;
+
+    private final int proto;
+    private final boolean bin;
+    private final boolean fast;
+    private final Object write;
+    private final Object persistentId;
+    private final Object dispatchTable;
+    private final Object reducerOverride;
+    private final Object bufferCallback;
+    private final PickleMemoTable memo;
+    private final int recursionLimit;
+
+    private byte[] out = new byte[4096];
+    private int outLen;
+    private boolean framing;
+    // position of the header of the frame being written, -1 if no frame is open
+    private int frameStart = -1;
+
+    private int depth;
+    private int fastNesting;
+    private IdentityHashMap<Object, Object> fastMemo;
+
+    private PickleEncoder(PPickler pickler, Node raisingNode) {
+        this.pickler = pickler;
+        this.raisingNode = raisingNode;
+        this.context = PythonContext.get(null);
+        this.factory = PythonObjectFactory.getUncached();
+        this.proto = pickler.getProtocol();
+        this.bin = pickler.isBin();
+        this.fast = pickler.isFast();
+        this.write = pickler.getWrite();
+        this.persistentId = pickler.getPersistentId();
+        this.dispatchTable = pickler.getDispatchTable();
+        this.reducerOverride = pickler.getReducerOverride();
+        this.bufferCallback = pickler.getBufferCallback();
+        this.memo = pickler.getMemo();
+        this.recursionLimit = context.getSysModuleState().getRecursionLimit();
+    }
+
+    /**
+     * Pickles {@code obj} and returns the pickle, or writes it to the file of the pickler and
+     * returns {@code null} if it has one.
+     */
+    @TruffleBoundary
+    static byte[] dump(PPickler pickler, Object obj, Node raisingNode) {
+        PickleEncoder encoder = new PickleEncoder(pickler, raisingNode);
+        try {
+            encoder.dump(obj);
+        } catch (StackOverflowError e) {
+            throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.RecursionError, ErrorMessages.MAXIMUM_RECURSION_DEPTH_EXCEEDED_WHILE_PICKLING);
+        }
+        if (encoder.write != null) {
+            encoder.flushToFile();
+            return null;
+        }
+        return Arrays.copyOf(encoder.out, encoder.outLen);
+    }
+
+    private void dump(Object obj) {
+        if (proto >= 2) {
+            reserve(2);
+            out[outLen++] = PROTO;
+            out[outLen++] = (byte) proto;
+            if (proto >= 4) {
+                framing = true;
+            }
+        }
+        save(obj, false);
+        write1(STOP);
+        commitFrame();
+        framing = false;
+    }
+
+    private PException raise(PythonBuiltinClassType type, TruffleString format, Object... args) {
+        throw PRaiseNode.raiseUncached(raisingNode, type, format, args);
+    }
+
+    private PException raisePicklingError(TruffleString format, Object... args) {
+        throw raise(PythonBuiltinClassType.PicklingError, format, args);
+    }
+
+    // ---- output buffer and framing
+
+    private void ensureCapacity(int n) {
+        int required = outLen + n;
+        if (required < 0) {
+            throw raise(PythonBuiltinClassType.MemoryError, ErrorMessages.CANNOT_SERIALIZE_BYTES_LARGER_THAN_4GIB);
+        }
+        if (required > out.length) {
+            out = Arrays.copyOf(out, Math.max(required, out.length * 2 < 0 ? Integer.MAX_VALUE - 8 : out.length * 2));
+        }
+    }
+
+    /* Makes room for n bytes, opening a new frame first if needed. */
+    private void reserve(int n) {
+        if (framing && frameStart == -1) {
+            ensureCapacity(FRAME_HEADER_SIZE + n);
+            frameStart = outLen;
+            outLen += FRAME_HEADER_SIZE;
+        } else {
+            ensureCapacity(n);
+        }
+    }
+
+    private void write1(byte op) {
+        reserve(1);
+        out[outLen++] = op;
+    }
+
+    private void writeOpAndByte(byte op, int value) {
+        reserve(2);
+        out[outLen++] = op;
+        out[outLen++] = (byte) value;
+    }
+
+    private void writeOpAndInt(byte op, int value) {
+        reserve(5);
+        out[outLen++] = op;
+        LE.putInt(out, outLen, value);
+        outLen += 4;
+    }
+
+    /* Writes an opcode followed by an ASCII argument and a newline, as used by the text opcodes. */
+    private void writeTextOp(byte op, String arg) {
+        reserve(arg.length() + 2);
+        out[outLen++] = op;
+        for (int i = 0; i < arg.length(); i++) {
+            out[outLen++] = (byte) arg.charAt(i);
+        }
+        out[outLen++] = '\n';
+    }
+
+    private void commitFrame() {
+        if (!framing || frameStart == -1) {
+            return;
+        }
+        int frameLen = outLen - frameStart - FRAME_HEADER_SIZE;
+        if (frameLen >= FRAME_SIZE_MIN) {
+            out[frameStart] = FRAME;
+            LE.putLong(out, frameStart + 1, frameLen);
+        } else {
+            System.arraycopy(out, frameStart + FRAME_HEADER_SIZE, out, frameStart, frameLen);
+            outLen -= FRAME_HEADER_SIZE;
+        }
+        frameStart = -1;
+    }
+
+    private void flushToFile() {
+        CallNode.getUncached().execute(write, factory.createBytes(Arrays.copyOf(out, outLen)));
+        outLen = 0;
+        frameStart = -1;
+    }
+
+    /* Called after every complete object; closes the frame once it is large enough. */
+    private void opcodeBoundary() {
+        if (!framing || frameStart == -1) {
+            return;
+        }
+        if (outLen - frameStart - FRAME_HEADER_SIZE >= FRAME_SIZE_TARGET) {
+            commitFrame();
+            if (write != null) {
+                flushToFile();
+            }
+        }
+    }
+
+    /**
+     * Writes {@code header} followed by the contents of {@code buffer}. Payloads that do not fit in
+     * a frame are not framed and, when writing to a file, passed directly to {@code write} as
+     * {@code payload}.
+     */
+    private void writeBytes(byte[] header, Object buffer, int len, Object payload) {
+        PythonBufferAccessLibrary bufferLib = PythonBufferAccessLibrary.getUncached();
+        boolean bypassFrame = len >= FRAME_SIZE_TARGET;
+        boolean wasFraming = framing;
+        if (bypassFrame) {
+            commitFrame();
+            framing = false;
+        }
+        reserve(header.length);
+        System.arraycopy(header, 0, out, outLen, header.length);
+        outLen += header.length;
+        if (bypassFrame && write != null) {
+            flushToFile();
+            CallNode.getUncached().execute(write, payload != null ? payload : factory.createBytes(bufferLib.getCopyOfRange(buffer, 0, len)));
+        } else {
+            reserve(len);
+            bufferLib.readIntoByteArray(buffer, 0, out, outLen, len);
+            outLen += len;
+        }
+        framing = wasFraming;
+    }
+
+    private static byte[] sizedHeader(byte op, int sizeBytes, long size) {
+        byte[] header = new byte[1 + sizeBytes];
+        header[0] = op;
+        for (int i = 0; i < sizeBytes; i++) {
+            header[1 + i] = (byte) (size >>> (8 * i));
+        }
+        return header;
+    }
+
+    // ---- memo
+
+    private void memoPut(Object obj) {
+        if (fast) {
+            return;
+        }
+        int idx = memo.size();
+        memo.put(obj, idx);
+        if (proto >= 4) {
+            write1(MEMOIZE);
+        } else if (!bin) {
+            writeTextOp(PUT, Integer.toString(idx));
+        } else if (idx < 256) {
+            writeOpAndByte(BINPUT, idx);
+        } else {
+            writeOpAndInt(LONG_BINPUT, idx);
+        }
+    }
+
+    private void memoGet(int idx) {
+        if (!bin) {
+            writeTextOp(GET, Integer.toString(idx));
+        } else if (idx < 256) {
+            writeOpAndByte(BINGET, idx);
+        } else {
+            writeOpAndInt(LONG_BINGET, idx);
+        }
+    }
+
+    private void fastSaveEnter(Object obj) {
+        if (++fastNesting >= FAST_NESTING_LIMIT) {
+            if (fastMemo == null) {
+                fastMemo = new IdentityHashMap<>();
+            }
+            if (fastMemo.containsKey(obj)) {
+                throw raise(PythonBuiltinClassType.ValueError, ErrorMessages.FAST_MODE_CANT_PICKLE_CYCLIC_OBJECTS, obj,
+                                Integer.toHexString(System.identityHashCode(obj)));
+            }
+            fastMemo.put(obj, obj);
+        }
+    }
+
+    private void fastSaveLeave(Object obj) {
+        if (fastNesting-- >= FAST_NESTING_LIMIT) {
+            fastMemo.remove(obj);
+        }
+    }
+
+    // ---- save
+
+    static PythonBuiltinClassType asBuiltinType(Object type) {
+        if (type instanceof PythonBuiltinClassType builtinType) {
+            return builtinType;
+        } else if (type instanceof PythonBuiltinClass builtinClass) {
+            return builtinClass.getType();
+        }
+        return null;
+    }
+
+    private void save(Object obj, boolean persSave) {
+        if (++depth > recursionLimit) {
+            depth--;
+            throw raise(PythonBuiltinClassType.RecursionError, ErrorMessages.MAXIMUM_RECURSION_DEPTH_EXCEEDED_WHILE_PICKLING);
+        }
+        try {
+            saveImpl(obj, persSave);
+        } finally {
+            depth--;
+        }
+        opcodeBoundary();
+    }
+
+    private void saveImpl(Object obj, boolean persSave) {
+        if (!persSave && persistentId != null && savePers(obj)) {
+            return;
+        }
+        Object type = InlinedGetClassNode.executeUncached(obj);
+        PythonBuiltinClassType builtinType = asBuiltinType(type);
+
+        // atoms are not memoized
+        if (builtinType == PythonBuiltinClassType.PNone) {
+            write1(NONE);
+            return;
+        } else if (builtinType == PythonBuiltinClassType.Boolean) {
+            saveBool(PyObjectIsTrueNode.getUncached().execute(null, obj));
+            return;
+        } else if (builtinType == PythonBuiltinClassType.PInt) {
+            saveLong(obj);
+            return;
+        } else if (builtinType == PythonBuiltinClassType.PFloat) {
+            saveFloat(obj instanceof Double d ? d : ((PFloat) obj).getValue());
+            return;
+        }
+
+        int memoIdx = memo.get(obj);
+        if (memoIdx >= 0) {
+            memoGet(memoIdx);
+            return;
+        }
+
+        if (builtinType != null) {
+            switch (builtinType) {
+                case PBytes:
+                    saveBytes(obj);
+                    return;
+                case PString:
+                    saveUnicode(obj);
+                    return;
+                case PDict:
+                    saveDict((PDict) obj);
+                    return;
+                case PSet:
+                    saveSet((PHashingCollection) obj);
+                    return;
+                case PFrozenSet:
+                    saveFrozenSet(obj);
+                    return;
+                case PList:
+                    saveList((PList) obj);
+                    return;
+                case PTuple:
+                    saveTuple((PTuple) obj);
+                    return;
+                case PByteArray:
+                    saveByteArray(obj);
+                    return;
+                case PickleBuffer:
+                    savePickleBuffer((PPickleBuffer) obj);
+                    return;
+                default:
+                    break;
+            }
+        }
+
+        Object reduceValue = null;
+        if (reducerOverride != null) {
+            reduceValue = CallNode.getUncached().execute(reducerOverride, obj);
+            if (reduceValue == PNotImplemented.NOT_IMPLEMENTED) {
+                reduceValue = null;
+            }
+        }
+        if (reduceValue == null) {
+            if (builtinType == PythonBuiltinClassType.PythonClass) {
+                saveType(obj);
+                return;
+            } else if (builtinType == PythonBuiltinClassType.PFunction) {
+                saveGlobal(obj, null);
+                return;
+            }
+            Object reduceFunc = lookupReduceFunction(type);
+            if (reduceFunc != null) {
+                reduceValue = CallNode.getUncached().execute(reduceFunc, obj);
+            } else if (IsSubtypeNode.getUncached().execute(type, PythonBuiltinClassType.PythonClass)) {
+                saveGlobal(obj, null);
+                return;
+            } else {
+                reduceFunc = PyObjectLookupAttr.getUncached().execute(null, obj, T___REDUCE_EX__);
+                if (reduceFunc != PNone.NO_VALUE) {
+                    reduceValue = CallNode.getUncached().execute(reduceFunc, proto);
+                } else {
+                    reduceFunc = PyObjectLookupAttr.getUncached().execute(null, obj, T___REDUCE__);
+                    if (reduceFunc == PNone.NO_VALUE) {
+                        throw raisePicklingError(ErrorMessages.CANT_PICKLE_P_OBJECT_S, obj, repr(obj));
+                    }
+                    reduceValue = CallNode.getUncached().execute(reduceFunc);
+                }
+            }
+        }
+        if (isString(reduceValue)) {
+            saveGlobal(obj, reduceValue);
+        } else if (reduceValue instanceof PTuple tuple) {
+            saveReduce(getItems(tuple), obj);
+        } else {
+            throw raisePicklingError(ErrorMessages.REDUCE_MUST_RETURN_STRING_OR_TUPLE);
+        }
+    }
+
+    private Object lookupReduceFunction(Object type) {
+        if (dispatchTable == null) {
+            PDict copyregDispatch = (PDict) getModuleAttribute(T_COPYREG, T_DISPATCH_TABLE);
+            return PyDictGetItem.getUncached().execute(null, copyregDispatch, type);
+        }
+        try {
+            return PyObjectGetItem.getUncached().execute(null, dispatchTable, type);
+        } catch (PException e) {
+            e.expect(null, PythonBuiltinClassType.KeyError, IsBuiltinObjectProfile.getUncached());
+            return null;
+        }
+    }
+
+    private boolean savePers(Object obj) {
+        Object pid = CallNode.getUncached().execute(persistentId, obj);
+        if (pid == PNone.NONE) {
+            return false;
+        }
+        if (bin) {
+            save(pid, true);
+            write1(BINPERSID);
+        } else {
+            TruffleString pidStr = PyObjectStrAsTruffleStringNode.getUncached().execute(pid);
+            if (pidStr.getCodeRangeUncached(TS_ENCODING) != CodeRange.ASCII) {
+                throw raisePicklingError(ErrorMessages.PERSISTENT_IDS_IN_PROTOCOL_0_MUST_BE_ASCII);
+            }
+            writeTextOp(PERSID, pidStr.toJavaStringUncached());
+        }
+        return true;
+    }
+
+    private void saveBool(boolean value) {
+        if (proto >= 2) {
+            write1(value ? NEWTRUE : NEWFALSE);
+        } else {
+            writeTextOp(INT, value ? "01" : "00");
+        }
+    }
+
+    private void saveInt(long value) {
+        if (!bin) {
+            writeTextOp(INT, Long.toString(value));
+        } else if (value >= 0 && value <= 0xff) {
+            writeOpAndByte(BININT1, (int) value);
+        } else if (value >= 0 && value <= 0xffff) {
+            reserve(3);
+            out[outLen++] = BININT2;
+            LE.putShort(out, outLen, (short) value);
+            outLen += 2;
+        } else {
+            writeOpAndInt(BININT, (int) value);
+        }
+    }
+
+    private void saveLong(Object obj) {
+        BigInteger big = null;
+        long value;
+        if (obj instanceof Integer i) {
+            value = i;
+        } else if (obj instanceof Long l) {
+            value = l;
+        } else {
+            big = ((PInt) obj).getValue();
+            value = big.bitLength() < 64 ? big.longValue() : 0;
+            if (big.bitLength() < 64) {
+                big = null;
+            }
+        }
+        if (big == null && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            saveInt(value);
+            return;
+        }
+        if (big == null) {
+            big = BigInteger.valueOf(value);
+        }
+        if (proto >= 2) {
+            // minimal two's complement, little-endian
+            byte[] bytes = big.toByteArray();
+            int n = bytes.length;
+            if (n < 256) {
+                reserve(2 + n);
+                out[outLen++] = LONG1;
+                out[outLen++] = (byte) n;
+            } else {
+                reserve(5 + n);
+                out[outLen++] = LONG4;
+                LE.putInt(out, outLen, n);
+                outLen += 4;
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                out[outLen++] = bytes[i];
+            }
+        } else {
+            writeTextOp(LONG, big.toString() + "L");
+        }
+    }
+
+    private void saveFloat(double value) {
+        if (bin) {
+            reserve(9);
+            out[outLen++] = BINFLOAT;
+            BE.putDouble(out, outLen, value);
+            outLen += 8;
+        } else {
+            writeTextOp(FLOAT, repr(value).toJavaStringUncached());
+        }
+    }
+
+    private void saveBytes(Object obj) {
+        if (proto < 3) {
+            // bytes do not exist in Python 2, reduce them to codecs.encode(latin1 str, 'latin1')
+            PythonBufferAccessLibrary bufferLib = PythonBufferAccessLibrary.getUncached();
+            int len = bufferLib.getBufferLength(obj);
+            Object[] reduceValue;
+            if (len == 0) {
+                reduceValue = new Object[]{PythonBuiltinClassType.PBytes, factory.createEmptyTuple()};
+            } else {
+                TruffleString latin1 = TruffleString.fromByteArrayUncached(bufferLib.getInternalOrCopiedByteArray(obj), 0, len, Encoding.ISO_8859_1, true).switchEncodingUncached(TS_ENCODING);
+                reduceValue = new Object[]{getModuleAttribute(T_CODECS, T_ENCODE), factory.createTuple(new Object[]{latin1, T_LATIN1})};
+            }
+            saveReduce(reduceValue, obj);
+            return;
+        }
+        int len = PythonBufferAccessLibrary.getUncached().getBufferLength(obj);
+        saveBytesData(obj, obj, len);
+    }
+
+    private void saveBytesData(Object obj, Object buffer, int len) {
+        byte[] header = len <= 0xff ? sizedHeader(SHORT_BINBYTES, 1, len) : sizedHeader(BINBYTES, 4, len);
+        writeBytes(header, buffer, len, obj);
+        memoPut(obj);
+    }
+
+    private void saveByteArrayData(Object obj, Object buffer, int len) {
+        writeBytes(sizedHeader(BYTEARRAY8, 8, len), buffer, len, obj);
+        memoPut(obj);
+    }
+
+    private void saveByteArray(Object obj) {
+        PythonBufferAcquireLibrary acquireLib = PythonBufferAcquireLibrary.getUncached();
+        PythonBufferAccessLibrary bufferLib = PythonBufferAccessLibrary.getUncached();
+        Object buffer = acquireLib.acquireReadonly(obj);
+        try {
+            int len = bufferLib.getBufferLength(buffer);
+            if (proto < 5) {
+                Object args = len == 0 ? factory.createEmptyTuple() : factory.createTuple(new Object[]{factory.createBytes(bufferLib.getCopyOfRange(buffer, 0, len))});
+                saveReduce(new Object[]{PythonBuiltinClassType.PByteArray, args}, obj);
+            } else {
+                saveByteArrayData(obj, buffer, len);
+            }
+        } finally {
+            bufferLib.release(buffer);
+        }
+    }
+
+    private void savePickleBuffer(PPickleBuffer obj) {
+        if (proto < 5) {
+            throw raisePicklingError(ErrorMessages.PICKLEBUFFER_NEEDS_PROTOCOL_5);
+        }
+        PMemoryView view = obj.getView();
+        if (view == null) {
+            throw raise(PythonBuiltinClassType.ValueError, ErrorMessages.OPERATION_FORBIDDEN_ON_RELEASED_PICKLEBUFFER);
+        }
+        if (view.getBufferSuboffsets() != null || !(view.isCContiguous() || view.isFortranContiguous())) {
+            throw raisePicklingError(ErrorMessages.PICKLEBUFFER_NOT_CONTIGUOUS);
+        }
+        boolean inBand = true;
+        if (bufferCallback != null) {
+            inBand = PyObjectIsTrueNode.getUncached().execute(null, CallNode.getUncached().execute(bufferCallback, obj));
+        }
+        if (inBand) {
+            PythonBufferAccessLibrary bufferLib = PythonBufferAccessLibrary.getUncached();
+            Object buffer = PythonBufferAcquireLibrary.getUncached().acquireReadonly(obj);
+            try {
+                int len = bufferLib.getBufferLength(buffer);
+                if (view.isReadOnly()) {
+                    saveBytesData(obj, buffer, len);
+                } else {
+                    saveByteArrayData(obj, buffer, len);
+                }
+            } finally {
+                bufferLib.release(buffer);
+            }
+        } else {
+            write1(NEXT_BUFFER);
+            if (view.isReadOnly()) {
+                write1(READONLY_BUFFER);
+            }
+        }
+    }
+
+    private void saveUnicode(Object obj) {
+        TruffleString str = obj instanceof TruffleString ts ? ts : ((PString) obj).getValueUncached();
+        if (bin) {
+            byte[] data;
+            int offset;
+            int len;
+            if (str.isValidUncached(TS_ENCODING)) {
+                InternalByteArray utf8 = str.switchEncodingUncached(Encoding.UTF_8).getInternalByteArrayUncached(Encoding.UTF_8);
+                data = utf8.getArray();
+                offset = utf8.getOffset();
+                len = utf8.getLength();
+            } else {
+                // lone surrogates
+                Object encoded = PyObjectCallMethodObjArgs.getUncached().execute(null, obj, T_ENCODE, T_UTF8, T_SURROGATEPASS);
+                PythonBufferAccessLibrary bufferLib = PythonBufferAccessLibrary.getUncached();
+                data = bufferLib.getInternalOrCopiedByteArray(encoded);
+                offset = 0;
+                len = bufferLib.getBufferLength(encoded);
+            }
+            byte[] header = len <= 0xff && proto >= 4 ? sizedHeader(SHORT_BINUNICODE, 1, len) : sizedHeader(BINUNICODE, 4, len);
+            Object buffer = factory.createBytes(data, offset, len);
+            writeBytes(header, buffer, len, null);
+        } else {
+            writeRawUnicodeEscaped(str);
+        }
+        memoPut(obj);
+    }
+
+    /* The raw-unicode-escape codec, additionally escaping backslashes and line breaks. */
+    private void writeRawUnicodeEscaped(TruffleString str) {
+        int len = str.codePointLengthUncached(TS_ENCODING);
+        write1(PickleUtils.UNICODE);
+        for (int i = 0; i < len; i++) {
+            int ch = str.codePointAtIndexUncached(i, TS_ENCODING);
+            if (ch >= 0x10000) {
+                writeEscape('U', ch, 8);
+            } else if (ch >= 256 || ch == '\\' || ch == 0 || ch == '\n' || ch == '\r' || ch == 0x1a) {
+                writeEscape('u', ch, 4);
+            } else {
+                reserve(1);
+                out[outLen++] = (byte) ch;
+            }
+        }
+        write1((byte) '\n');
+    }
+
+    private void writeEscape(char kind, int ch, int digits) {
+        reserve(2 + digits);
+        out[outLen++] = '\\';
+        out[outLen++] = (byte) kind;
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            out[outLen++] = HEX_DIGITS[(ch >> shift) & 0xf];
+        }
+    }
+
+    private void saveTuple(PTuple tuple) {
+        Object[] items = getItems(tuple);
+        int len = items.length;
+        if (len == 0) {
+            if (proto > 0) {
+                write1(EMPTY_TUPLE);
+            } else {
+                write1(MARK);
+                write1(TUPLE);
+            }
+            return;
+        }
+        /*
+         * If the tuple shows up in the memo after saving its elements, it is recursive: pop what we
+         * pushed and fetch it from the memo.
+         */
+        if (len <= 3 && proto >= 2) {
+            for (Object item : items) {
+                save(item, false);
+            }
+            int memoIdx = memo.get(tuple);
+            if (memoIdx >= 0) {
+                for (int i = 0; i < len; i++) {
+                    write1(POP);
+                }
+                memoGet(memoIdx);
+                return;
+            }
+            write1(len == 1 ? TUPLE1 : len == 2 ? TUPLE2 : TUPLE3);
+        } else {
+            write1(MARK);
+            for (Object item : items) {
+                save(item, false);
+            }
+            int memoIdx = memo.get(tuple);
+            if (memoIdx >= 0) {
+                if (bin) {
+                    write1(POP_MARK);
+                } else {
+                    for (int i = 0; i <= len; i++) {
+                        write1(POP);
+                    }
+                }
+                memoGet(memoIdx);
+                return;
+            }
+            write1(TUPLE);
+        }
+        memoPut(tuple);
+    }
+
+    private void saveList(PList list) {
+        if (fast) {
+            fastSaveEnter(list);
+        }
+        if (bin) {
+            write1(EMPTY_LIST);
+        } else {
+            write1(MARK);
+            write1(LIST);
+        }
+        memoPut(list);
+        if (list.getSequenceStorage().length() > 0) {
+            // only called for exact lists
+            if (proto > 0) {
+                batchListExact(list);
+            } else {
+                batchList(PyObjectGetIter.getUncached().execute(null, list));
+            }
+        }
+        if (fast) {
+            fastSaveLeave(list);
+        }
+    }
+
+    private void batchListExact(PList list) {
+        SequenceStorage storage = list.getSequenceStorage();
+        if (storage.length() == 1) {
+            save(SequenceStorageNodes.GetItemScalarNode.getUncached().execute(storage, 0), false);
+            write1(APPEND);
+            return;
+        }
+        int total = 0;
+        do {
+            write1(MARK);
+            int end = Math.min(total + BATCHSIZE, list.getSequenceStorage().length());
+            if (!savePrimitiveItems(list.getSequenceStorage(), total, end)) {
+                for (int i = total; i < end && i < list.getSequenceStorage().length(); i++) {
+                    save(SequenceStorageNodes.GetItemScalarNode.getUncached().execute(list.getSequenceStorage(), i), false);
+                }
+            }
+            total = end;
+            write1(APPENDS);
+        } while (total < list.getSequenceStorage().length());
+    }
+
+    /**
+     * Lists and tuples of primitives are common in numeric data. Their elements cannot be memoized
+     * or recursive, so unless a {@code persistent_id} hook has to see each of them, they are
+     * written directly from the storage without going through {@link #save}.
+     */
+    private boolean savePrimitiveItems(SequenceStorage storage, int start, int end) {
+        if (persistentId != null) {
+            return false;
+        }
+        if (storage instanceof IntSequenceStorage intStorage) {
+            int[] values = intStorage.getInternalIntArray();
+            for (int i = start; i < end; i++) {
+                saveInt(values[i]);
+                opcodeBoundary();
+            }
+        } else if (storage instanceof LongSequenceStorage longStorage) {
+            long[] values = longStorage.getInternalLongArray();
+            for (int i = start; i < end; i++) {
+                saveLong(values[i]);
+                opcodeBoundary();
+            }
+        } else if (storage instanceof DoubleSequenceStorage doubleStorage) {
+            double[] values = doubleStorage.getInternalDoubleArray();
+            for (int i = start; i < end; i++) {
+                saveFloat(values[i]);
+                opcodeBoundary();
+            }
+        } else if (storage instanceof BoolSequenceStorage boolStorage) {
+            boolean[] values = boolStorage.getInternalBoolArray();
+            for (int i = start; i < end; i++) {
+                saveBool(values[i]);
+                opcodeBoundary();
+            }
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private void batchList(Object iterator) {
+        PyIterNextNode nextNode = PyIterNextNode.getUncached();
+        if (proto == 0) {
+            Object item;
+            while ((item = nextNode.execute(null, iterator)) != null) {
+                save(item, false);
+                write1(APPEND);
+            }
+            return;
+        }
+        int n;
+        do {
+            Object first = nextNode.execute(null, iterator);
+            if (first == null) {
+                break;
+            }
+            Object item = nextNode.execute(null, iterator);
+            if (item == null) {
+                save(first, false);
+                write1(APPEND);
+                break;
+            }
+            write1(MARK);
+            save(first, false);
+            n = 1;
+            while (item != null) {
+                save(item, false);
+                if (++n == BATCHSIZE) {
+                    break;
+                }
+                item = nextNode.execute(null, iterator);
+            }
+            write1(APPENDS);
+        } while (n == BATCHSIZE);
+    }
+
+    private void saveDict(PDict dict) {
+        if (fast) {
+            fastSaveEnter(dict);
+        }
+        if (bin) {
+            write1(EMPTY_DICT);
+        } else {
+            write1(MARK);
+            write1(DICT);
+        }
+        memoPut(dict);
+        if (HashingStorageLen.executeUncached(dict.getDictStorage()) > 0) {
+            // only called for exact dicts
+            if (proto > 0) {
+                batchDictExact(dict);
+            } else {
+                Object items = PyObjectCallMethodObjArgs.getUncached().execute(null, dict, T_ITEMS);
+                batchDict(PyObjectGetIter.getUncached().execute(null, items));
+            }
+        }
+        if (fast) {
+            fastSaveLeave(dict);
+        }
+    }
+
+    private void batchDictExact(PDict dict) {
+        HashingStorage storage = dict.getDictStorage();
+        int size = HashingStorageLen.executeUncached(storage);
+        HashingStorageIterator it = HashingStorageGetIterator.executeUncached(storage);
+        if (size == 1) {
+            HashingStorageIteratorNext.executeUncached(storage, it);
+            save(HashingStorageIteratorKey.executeUncached(storage, it), false);
+            save(HashingStorageIteratorValue.executeUncached(storage, it), false);
+            write1(SETITEM);
+            return;
+        }
+        int i;
+        do {
+            i = 0;
+            write1(MARK);
+            while (HashingStorageIteratorNext.executeUncached(storage, it)) {
+                save(HashingStorageIteratorKey.executeUncached(storage, it), false);
+                save(HashingStorageIteratorValue.executeUncached(storage, it), false);
+                checkSizeUnchanged(dict, storage, size, ErrorMessages.DICTIONARY_CHANGED_SIZE_DURING_ITERATION);
+                if (++i == BATCHSIZE) {
+                    break;
+                }
+            }
+            write1(SETITEMS);
+        } while (i == BATCHSIZE);
+    }
+
+    private void checkSizeUnchanged(PHashingCollection collection, HashingStorage storage, int size, TruffleString message) {
+        if (collection.getDictStorage() != storage || HashingStorageLen.executeUncached(storage) != size) {
+            throw raise(PythonBuiltinClassType.RuntimeError, message);
+        }
+    }
+
+    private Object[] nextDictItem(PyIterNextNode nextNode, Object iterator) {
+        Object item = nextNode.execute(null, iterator);
+        if (item == null) {
+            return null;
+        }
+        if (!(item instanceof PTuple tuple) || tuple.getSequenceStorage().length() != 2) {
+            throw raise(PythonBuiltinClassType.TypeError, ErrorMessages.DICT_ITEMS_MUST_RETURN_2_TUPLES);
+        }
+        return getItems(tuple);
+    }
+
+    private void saveDictItem(Object[] item) {
+        save(item[0], false);
+        save(item[1], false);
+    }
+
+    private void batchDict(Object iterator) {
+        PyIterNextNode nextNode = PyIterNextNode.getUncached();
+        if (proto == 0) {
+            Object[] item;
+            while ((item = nextDictItem(nextNode, iterator)) != null) {
+                saveDictItem(item);
+                write1(SETITEM);
+            }
+            return;
+        }
+        int n;
+        do {
+            Object[] first = nextDictItem(nextNode, iterator);
+            if (first == null) {
+                break;
+            }
+            Object[] item = nextDictItem(nextNode, iterator);
+            if (item == null) {
+                saveDictItem(first);
+                write1(SETITEM);
+                break;
+            }
+            write1(MARK);
+            saveDictItem(first);
+            n = 1;
+            while (item != null) {
+                saveDictItem(item);
+                if (++n == BATCHSIZE) {
+                    break;
+                }
+                item = nextDictItem(nextNode, iterator);
+            }
+            write1(SETITEMS);
+        } while (n == BATCHSIZE);
+    }
+
+    private Object[] listOfItems(Object iterable) {
+        Object iterator = PyObjectGetIter.getUncached().execute(null, iterable);
+        PyIterNextNode nextNode = PyIterNextNode.getUncached();
+        Object[] items = new Object[8];
+        int n = 0;
+        Object item;
+        while ((item = nextNode.execute(null, iterator)) != null) {
+            if (n == items.length) {
+                items = Arrays.copyOf(items, n * 2);
+            }
+            items[n++] = item;
+        }
+        return Arrays.copyOf(items, n);
+    }
+
+    private void saveSet(PHashingCollection set) {
+        if (proto < 4) {
+            Object args = factory.createTuple(new Object[]{factory.createList(listOfItems(set))});
+            saveReduce(new Object[]{PythonBuiltinClassType.PSet, args}, set);
+            return;
+        }
+        write1(EMPTY_SET);
+        memoPut(set);
+        HashingStorage storage = set.getDictStorage();
+        int size = HashingStorageLen.executeUncached(storage);
+        if (size == 0) {
+            return;
+        }
+        HashingStorageIterator it = HashingStorageGetIterator.executeUncached(storage);
+        int i;
+        do {
+            i = 0;
+            write1(MARK);
+            while (HashingStorageIteratorNext.executeUncached(storage, it)) {
+                save(HashingStorageIteratorKey.executeUncached(storage, it), false);
+                checkSizeUnchanged(set, storage, size, ErrorMessages.SET_CHANGED_SIZE_DURING_ITERATION);
+                if (++i == BATCHSIZE) {
+                    break;
+                }
+            }
+            write1(ADDITEMS);
+        } while (i == BATCHSIZE);
+    }
+
+    private void saveFrozenSet(Object set) {
+        if (proto < 4) {
+            Object args = factory.createTuple(new Object[]{factory.createList(listOfItems(set))});
+            saveReduce(new Object[]{PythonBuiltinClassType.PFrozenSet, args}, set);
+            return;
+        }
+        write1(MARK);
+        Object iterator = PyObjectGetIter.getUncached().execute(null, set);
+        Object item;
+        while ((item = PyIterNextNode.getUncached().execute(null, iterator)) != null) {
+            save(item, false);
+        }
+        int memoIdx = memo.get(set);
+        if (memoIdx >= 0) {
+            write1(POP_MARK);
+            memoGet(memoIdx);
+            return;
+        }
+        write1(FROZENSET);
+        memoPut(set);
+    }
+
+    private void saveType(Object type) {
+        PythonBuiltinClassType builtinType = asBuiltinType(type);
+        if (builtinType == PythonBuiltinClassType.PNone) {
+            saveSingletonType(type, PNone.NONE);
+        } else if (builtinType == PythonBuiltinClassType.PEllipsis) {
+            saveSingletonType(type, PEllipsis.INSTANCE);
+        } else if (builtinType == PythonBuiltinClassType.PNotImplemented) {
+            saveSingletonType(type, PNotImplemented.NOT_IMPLEMENTED);
+        } else {
+            saveGlobal(type, null);
+        }
+    }
+
+    private void saveSingletonType(Object type, Object singleton) {
+        saveReduce(new Object[]{PythonBuiltinClassType.PythonClass, factory.createTuple(new Object[]{singleton})}, type);
+    }
+
+    // ---- reduce
+
+    private static boolean isIterator(Object obj) {
+        Object type = InlinedGetClassNode.executeUncached(obj);
+        return PyObjectLookupAttr.getUncached().execute(null, type, T___NEXT__) != PNone.NO_VALUE;
+    }
+
+    private void saveReduce(Object[] args, Object obj) {
+        int size = args.length;
+        if (size < 2 || size > 6) {
+            throw raisePicklingError(ErrorMessages.REDUCE_TUPLE_MUST_CONTAIN_2_TO_6_ELEMENTS);
+        }
+        Object callable = args[0];
+        if (!PyCallableCheckNode.getUncached().execute(callable)) {
+            throw raisePicklingError(ErrorMessages.REDUCE_FIRST_ITEM_MUST_BE_CALLABLE);
+        }
+        if (!(args[1] instanceof PTuple argtup)) {
+            throw raisePicklingError(ErrorMessages.REDUCE_SECOND_ITEM_MUST_BE_TUPLE);
+        }
+        Object state = size > 2 && args[2] != PNone.NONE ? args[2] : null;
+        Object listItems = size > 3 && args[3] != PNone.NONE ? args[3] : null;
+        if (listItems != null && !isIterator(listItems)) {
+            throw raisePicklingError(ErrorMessages.REDUCE_FOURTH_ITEM_MUST_BE_ITERATOR, listItems);
+        }
+        Object dictItems = size > 4 && args[4] != PNone.NONE ? args[4] : null;
+        if (dictItems != null && !isIterator(dictItems)) {
+            throw raisePicklingError(ErrorMessages.REDUCE_FIFTH_ITEM_MUST_BE_ITERATOR, dictItems);
+        }
+        Object stateSetter = size > 5 && args[5] != PNone.NONE ? args[5] : null;
+        if (stateSetter != null && !PyCallableCheckNode.getUncached().execute(stateSetter)) {
+            throw raisePicklingError(ErrorMessages.REDUCE_SIXTH_ITEM_MUST_BE_FUNCTION, stateSetter);
+        }
+
+        boolean useNewobj = false;
+        boolean useNewobjEx = false;
+        if (proto >= 2) {
+            Object name = PyObjectLookupAttr.getUncached().execute(null, callable, T___NAME__);
+            if (isString(name)) {
+                TruffleString nameStr = asString(name);
+                useNewobjEx = nameStr.equalsUncached(T_NEWOBJ_EX, TS_ENCODING);
+                useNewobj = !useNewobjEx && nameStr.equalsUncached(T_NEWOBJ, TS_ENCODING);
+            }
+        }
+        Object[] argItems = getItems(argtup);
+        if (useNewobjEx) {
+            if (argItems.length != 3) {
+                throw raisePicklingError(ErrorMessages.NEWOBJ_EX_ARGS_MUST_BE_3, argItems.length);
+            }
+            Object cls = argItems[0];
+            if (!IsTypeNode.getUncached().execute(cls)) {
+                throw raisePicklingError(ErrorMessages.NEWOBJ_EX_FIRST_MUST_BE_CLASS, cls);
+            }
+            if (!(argItems[1] instanceof PTuple clsArgs)) {
+                throw raisePicklingError(ErrorMessages.NEWOBJ_EX_SECOND_MUST_BE_TUPLE, argItems[1]);
+            }
+            if (!(argItems[2] instanceof PDict kwargs)) {
+                throw raisePicklingError(ErrorMessages.NEWOBJ_EX_THIRD_MUST_BE_DICT, argItems[2]);
+            }
+            if (obj != null) {
+                Object objClass = PyObjectGetAttr.getUncached().execute(obj, T___CLASS__);
+                if (objClass != cls && !(asBuiltinType(objClass) != null && asBuiltinType(objClass) == asBuiltinType(cls))) {
+                    throw raisePicklingError(ErrorMessages.NEWOBJ_EX_CLASS_MISMATCH, repr(objClass), repr(cls));
+                }
+            }
+            if (proto >= 4) {
+                save(cls, false);
+                save(clsArgs, false);
+                save(kwargs, false);
+                write1(NEWOBJ_EX);
+            } else {
+                // functools.partial(cls.__new__, cls, *args, **kwargs)
+                Object[] clsArgItems = getItems(clsArgs);
+                Object[] newArgs = new Object[clsArgItems.length + 2];
+                newArgs[0] = PyObjectGetAttr.getUncached().execute(cls, T___NEW__);
+                newArgs[1] = cls;
+                System.arraycopy(clsArgItems, 0, newArgs, 2, clsArgItems.length);
+                Object partial = getModuleAttribute(T_FUNCTOOLS, T_PARTIAL);
+                Object newCallable = CallNode.getUncached().execute(partial, newArgs, dictToKeywords(kwargs));
+                save(newCallable, false);
+                save(factory.createEmptyTuple(), false);
+                write1(REDUCE);
+            }
+        } else if (useNewobj) {
+            if (argItems.length < 1) {
+                throw raisePicklingError(ErrorMessages.NEWOBJ_ARGLIST_IS_EMPTY);
+            }
+            Object cls = argItems[0];
+            if (!IsTypeNode.getUncached().execute(cls)) {
+                throw raisePicklingError(ErrorMessages.NEWOBJ_ARGS0_IS_NOT_A_TYPE);
+            }
+            if (obj != null) {
+                Object objClass = PyObjectGetAttr.getUncached().execute(obj, T___CLASS__);
+                if (objClass != cls && !(asBuiltinType(objClass) != null && asBuiltinType(objClass) == asBuiltinType(cls))) {
+                    throw raisePicklingError(ErrorMessages.NEWOBJ_ARGS0_HAS_WRONG_CLASS);
+                }
+            }
+            save(cls, false);
+            save(factory.createTuple(Arrays.copyOfRange(argItems, 1, argItems.length)), false);
+            write1(NEWOBJ);
+        } else {
+            save(callable, false);
+            save(argtup, false);
+            write1(REDUCE);
+        }
+
+        if (obj != null) {
+            int memoIdx = memo.get(obj);
+            if (memoIdx >= 0) {
+                // recursive reduction, fetch the object created earlier
+                write1(POP);
+                memoGet(memoIdx);
+                return;
+            }
+            memoPut(obj);
+        }
+        if (listItems != null) {
+            batchList(listItems);
+        }
+        if (dictItems != null) {
+            batchDict(dictItems);
+        }
+        if (state != null) {
+            if (stateSetter == null) {
+                save(state, false);
+                write1(BUILD);
+            } else {
+                // state_setter(obj, state), keeping the stack as it was
+                save(stateSetter, false);
+                save(obj, false);
+                save(state, false);
+                write1(TUPLE2);
+                write1(REDUCE);
+                write1(POP);
+            }
+        }
+    }
+
+    static PKeyword[] dictToKeywords(PDict kwargs) {
+        HashingStorage storage = kwargs.getDictStorage();
+        PKeyword[] keywords = PKeyword.create(HashingStorageLen.executeUncached(storage));
+        HashingStorageIterator it = HashingStorageGetIterator.executeUncached(storage);
+        int i = 0;
+        while (HashingStorageIteratorNext.executeUncached(storage, it)) {
+            Object key = HashingStorageIteratorKey.executeUncached(storage, it);
+            keywords[i++] = new PKeyword(asString(key), HashingStorageIteratorValue.executeUncached(storage, it));
+        }
+        return keywords;
+    }
+
+    // ---- globals
+
+    private void saveGlobal(Object obj, Object name) {
+        Object globalName = name;
+        if (globalName == null) {
+            globalName = PyObjectLookupAttr.getUncached().execute(null, obj, T___QUALNAME__);
+            if (globalName == PNone.NO_VALUE) {
+                globalName = PyObjectGetAttr.getUncached().execute(obj, T___NAME__);
+            }
+        }
+        TruffleString globalNameStr = asString(globalName);
+        TruffleString[] dottedPath = getDottedPath(null, globalNameStr);
+        Object moduleName = whichModule(obj, dottedPath);
+
+        Object module;
+        try {
+            module = AbstractImportNode.importModule(asString(moduleName));
+        } catch (PException e) {
+            throw raisePicklingError(ErrorMessages.CANT_PICKLE_S_IMPORT_OF_MODULE_S_FAILED, repr(obj), repr(moduleName));
+        }
+        Object[] parentHolder = new Object[1];
+        Object cls = getDeepAttribute(module, dottedPath, parentHolder);
+        if (cls == null) {
+            throw raisePicklingError(ErrorMessages.CANT_PICKLE_S_ATTRIBUTE_LOOKUP_S_ON_S_FAILED, repr(obj), globalNameStr, asString(moduleName));
+        }
+        if (cls != obj) {
+            throw raisePicklingError(ErrorMessages.CANT_PICKLE_S_NOT_THE_SAME_OBJECT_AS_S_S, repr(obj), asString(moduleName), globalNameStr);
+        }
+        Object parent = parentHolder[0];
+        TruffleString lastName = dottedPath[dottedPath.length - 1];
+
+        if (proto >= 2) {
+            Object extensionKey = factory.createTuple(new Object[]{moduleName, globalName});
+            PDict registry = (PDict) getModuleAttribute(T_COPYREG, T_EXTENSION_REGISTRY);
+            Object codeObj = PyDictGetItem.getUncached().execute(null, registry, extensionKey);
+            if (codeObj != null) {
+                long code = PyLongAsLongNode.getUncached().execute(null, codeObj);
+                if (code <= 0 || code > 0x7fffffffL) {
+                    throw raisePicklingError(ErrorMessages.CANT_PICKLE_S_EXTENSION_CODE_D_IS_OUT_OF_RANGE, repr(obj), code);
+                }
+                if (code <= 0xff) {
+                    writeOpAndByte(EXT1, (int) code);
+                } else if (code <= 0xffff) {
+                    reserve(3);
+                    out[outLen++] = EXT2;
+                    LE.putShort(out, outLen, (short) code);
+                    outLen += 2;
+                } else {
+                    writeOpAndInt(EXT4, (int) code);
+                }
+                return;
+            }
+        }
+
+        if (parent == module) {
+            globalName = lastName;
+            globalNameStr = lastName;
+        }
+        if (proto >= 4) {
+            save(moduleName, false);
+            save(globalName, false);
+            write1(STACK_GLOBAL);
+        } else if (parent != module) {
+            Object getattr = PyObjectGetAttr.getUncached().execute(context.getBuiltins(), T_GETATTR);
+            saveReduce(new Object[]{getattr, factory.createTuple(new Object[]{parent, lastName})}, null);
+        } else {
+            TruffleString moduleNameStr = asString(moduleName);
+            if (proto < 3 && pickler.isFixImports()) {
+                TruffleString[] fixed = fixImports(moduleNameStr, globalNameStr);
+                moduleNameStr = fixed[0];
+                globalNameStr = fixed[1];
+            }
+            write1(GLOBAL);
+            writeIdentifier(moduleNameStr, ErrorMessages.CANT_PICKLE_MODULE_IDENTIFIER_S_USING_PROTOCOL_D);
+            writeIdentifier(globalNameStr, ErrorMessages.CANT_PICKLE_GLOBAL_IDENTIFIER_S_USING_PROTOCOL_D);
+        }
+        memoPut(obj);
+    }
+
+    /* Module and global names are written as UTF-8 for protocol 3 and as ASCII before. */
+    private void writeIdentifier(TruffleString name, TruffleString errorMessage) {
+        CodeRange codeRange = name.getCodeRangeUncached(TS_ENCODING);
+        if (proto == 3 ? !name.isValidUncached(TS_ENCODING) : codeRange != CodeRange.ASCII) {
+            throw raisePicklingError(errorMessage, name, proto);
+        }
+        InternalByteArray bytes = name.switchEncodingUncached(Encoding.UTF_8).getInternalByteArrayUncached(Encoding.UTF_8);
+        reserve(bytes.getLength() + 1);
+        System.arraycopy(bytes.getArray(), bytes.getOffset(), out, outLen, bytes.getLength());
+        outLen += bytes.getLength();
+        out[outLen++] = '\n';
+    }
+
+    private TruffleString[] fixImports(TruffleString moduleName, TruffleString globalName) {
+        PDict nameMapping = (PDict) getModuleAttribute(T_COMPAT_PICKLE, T_REVERSE_NAME_MAPPING);
+        Object item = PyDictGetItem.getUncached().execute(null, nameMapping, factory.createTuple(new Object[]{moduleName, globalName}));
+        if (item != null) {
+            if (!(item instanceof PTuple tuple) || tuple.getSequenceStorage().length() != 2) {
+                throw raise(PythonBuiltinClassType.RuntimeError, ErrorMessages.COMPAT_PICKLE_NAME_MAPPING_VALUES_2_TUPLES, T_REVERSE_NAME_MAPPING, item);
+            }
+            Object[] pair = getItems(tuple);
+            if (!isString(pair[0]) || !isString(pair[1])) {
+                throw raise(PythonBuiltinClassType.RuntimeError, ErrorMessages.COMPAT_PICKLE_NAME_MAPPING_VALUES_STR_PAIRS, T_REVERSE_NAME_MAPPING, pair[0], pair[1]);
+            }
+            return new TruffleString[]{asString(pair[0]), asString(pair[1])};
+        }
+        PDict importMapping = (PDict) getModuleAttribute(T_COMPAT_PICKLE, T_REVERSE_IMPORT_MAPPING);
+        item = PyDictGetItem.getUncached().execute(null, importMapping, moduleName);
+        if (item != null) {
+            if (!isString(item)) {
+                throw raise(PythonBuiltinClassType.RuntimeError, ErrorMessages.COMPAT_PICKLE_IMPORT_MAPPING_VALUES_STRINGS, T_REVERSE_IMPORT_MAPPING, item);
+            }
+            return new TruffleString[]{asString(item), globalName};
+        }
+        return new TruffleString[]{moduleName, globalName};
+    }
+
+    private Object whichModule(Object obj, TruffleString[] dottedPath) {
+        Object moduleName = PyObjectLookupAttr.getUncached().execute(null, obj, T___MODULE__);
+        if (moduleName != PNone.NO_VALUE && moduleName != PNone.NONE) {
+            return moduleName;
+        }
+        // iterate over a copy, importing may add entries to sys.modules
+        PDict modules = context.getSysModules();
+        Object[] items = listOfItems(PyObjectCallMethodObjArgs.getUncached().execute(null, modules, T_ITEMS));
+        for (Object entry : items) {
+            Object[] pair = getItems((PTuple) entry);
+            Object name = pair[0];
+            Object module = pair[1];
+            if (module == PNone.NONE || !isString(name)) {
+                continue;
+            }
+            TruffleString nameStr = asString(name);
+            if (nameStr.equalsUncached(T___MAIN__, TS_ENCODING) || nameStr.equalsUncached(T_MP_MAIN, TS_ENCODING)) {
+                continue;
+            }
+            if (getDeepAttribute(module, dottedPath, null) == obj) {
+                return name;
+            }
+        }
+        return T___MAIN__;
+    }
+
+    static TruffleString[] getDottedPath(Object obj, TruffleString name, Node raisingNode) {
+        String[] parts = name.toJavaStringUncached().split("\\.", -1);
+        TruffleString[] path = new TruffleString[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            path[i] = toTruffleStringUncached(parts[i]);
+            if (path[i].equalsUncached(T_LOCALS, TS_ENCODING)) {
+                if (obj == null) {
+                    throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.AttributeError, ErrorMessages.CANT_PICKLE_LOCAL_OBJECT_S, repr(name));
+                }
+                throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.AttributeError, ErrorMessages.CANT_GET_LOCAL_ATTRIBUTE_S_ON_S, repr(name), repr(obj));
+            }
+        }
+        return path;
+    }
+
+    private TruffleString[] getDottedPath(Object obj, TruffleString name) {
+        return getDottedPath(obj, name, raisingNode);
+    }
+
+    /* Returns null if an attribute is missing. */
+    static Object getDeepAttribute(Object obj, TruffleString[] names, Object[] parentHolder) {
+        Object current = obj;
+        Object parent = null;
+        for (TruffleString name : names) {
+            parent = current;
+            current = PyObjectLookupAttr.getUncached().execute(null, parent, name);
+            if (current == PNone.NO_VALUE) {
+                return null;
+            }
+        }
+        if (parentHolder != null) {
+            parentHolder[0] = parent;
+        }
+        return current;
+    }
+
+    // ---- helpers
+
+    static Object getModuleAttribute(TruffleString module, TruffleString name) {
+        return PyObjectGetAttr.getUncached().execute(AbstractImportNode.importModule(module), name);
+    }
+
+    static boolean isString(Object obj) {
+        return obj instanceof TruffleString || obj instanceof PString;
+    }
+
+    static TruffleString asString(Object obj) {
+        if (obj instanceof TruffleString ts) {
+            return ts;
+        } else if (obj instanceof PString ps) {
+            return ps.getValueUncached();
+        }
+        return PyObjectStrAsTruffleStringNode.getUncached().execute(obj);
+    }
+
+    static TruffleString repr(Object obj) {
+        return PyObjectReprAsTruffleStringNode.getUncached().execute(null, obj);
+    }
+
+    static Object[] getItems(PTuple tuple) {
+        SequenceStorage storage = tuple.getSequenceStorage();
+        int len = storage.length();
+        Object[] items = new Object[len];
+        for (int i = 0; i < len; i++) {
+            items[i] = SequenceStorageNodes.GetItemScalarNode.getUncached().execute(storage, i);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.pickle;
+
+import java.util.Arrays;
+
+/**
+ * The memo of a pickler, mapping objects to their memo index by identity like CPython's
+ * {@code PyMemoTable}. Keys and indices are kept in two parallel open addressing arrays, so a
+ * lookup never allocates. Unlike {@link com.oracle.graal.python.util.WeakIdentityHashMap} the keys
+ * are held strongly, the memo must keep every memoized object alive until the pickler is done.
+ */
+final class PickleMemoTable {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private Object[] keys;
+    private int[] values;
+    private int size;
+
+    PickleMemoTable() {
+        this.keys = new Object[INITIAL_CAPACITY];
+        this.values = new int[INITIAL_CAPACITY];
+    }
+
+    private PickleMemoTable(Object[] keys, int[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the memo index of {@code key} or {@code -1} if it was not memoized yet.
+     */
+    int get(Object key) {
+        Object[] k = keys;
+        int mask = k.length - 1;
+        int i = hash(key) & mask;
+        while (true) {
+            Object cur = k[i];
+            if (cur == key) {
+                return values[i];
+            } else if (cur == null) {
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    void put(Object key, int value) {
+        assert key != null;
+        if ((size + 1) * 3 >= keys.length * 2) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != null) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    void clear() {
+        if (keys.length > INITIAL_CAPACITY) {
+            keys = new Object[INITIAL_CAPACITY];
+            values = new int[INITIAL_CAPACITY];
+        } else {
+            Arrays.fill(keys, null);
+        }
+        size = 0;
+    }
+
+    PickleMemoTable copy() {
+        return new PickleMemoTable(keys.clone(), values.clone(), size);
+    }
+
+    /**
+     * Raw access for iterating over the table, slots with a {@code null} key are empty.
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    Object keyAt(int slot) {
+        return keys[slot];
+    }
+
+    int valueAt(int slot) {
+        return values[slot];
+    }
+
+    private void resize(int newCapacity) {
+        Object[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new Object[newCapacity];
+        values = new int[newCapacity];
+        int mask = newCapacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            Object key = oldKeys[j];
+            if (key != null) {
+                int i = hash(key) & mask;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int hash(Object key) {
+        int h = System.identityHashCode(key);
+        // spread the bits, identity hashes tend to be clustered in the low bits
+        return h ^ (h >>> 16);
+    }
+}
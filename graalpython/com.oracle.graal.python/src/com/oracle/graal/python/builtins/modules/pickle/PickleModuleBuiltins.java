@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.pickle;
+
+import java.util.List;
+
+import com.oracle.graal.python.annotations.ArgumentClinic;
+import com.oracle.graal.python.annotations.ArgumentClinic.ClinicConversion;
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAccessLibrary;
+import com.oracle.graal.python.builtins.objects.function.PKeyword;
+import com.oracle.graal.python.lib.PyMemoryViewFromObject;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonClinicBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonVarargsBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.clinic.ArgumentClinicProvider;
+import com.oracle.graal.python.runtime.ExecutionContext.IndirectCallContext;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.strings.TruffleString;
+
+@CoreFunctions(defineModule = "_pickle")
+public final class PickleModuleBuiltins extends PythonBuiltins {
+
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return PickleModuleBuiltinsFactory.getFactories();
+    }
+
+    @Builtin(name = "Pickler", minNumOfPositionalArgs = 1, constructsClass = PythonBuiltinClassType.Pickler, takesVarArgs = true, takesVarKeywordArgs = true)
+    @GenerateNodeFactory
+    public abstract static class PicklerNode extends PythonVarargsBuiltinNode {
+        @Specialization
+        @SuppressWarnings("unused")
+        PPickler doGeneric(Object cls, Object[] args, PKeyword[] kwargs) {
+            return factory().createPickler(cls);
+        }
+    }
+
+    @Builtin(name = "Unpickler", minNumOfPositionalArgs = 1, constructsClass = PythonBuiltinClassType.Unpickler, takesVarArgs = true, takesVarKeywordArgs = true)
+    @GenerateNodeFactory
+    public abstract static class UnpicklerNode extends PythonVarargsBuiltinNode {
+        @Specialization
+        @SuppressWarnings("unused")
+        PUnpickler doGeneric(Object cls, Object[] args, PKeyword[] kwargs) {
+            return factory().createUnpickler(cls);
+        }
+    }
+
+    @Builtin(name = "PickleBuffer", minNumOfPositionalArgs = 2, parameterNames = {"$cls", "buffer"}, constructsClass = PythonBuiltinClassType.PickleBuffer)
+    @GenerateNodeFactory
+    public abstract static class PickleBufferNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        PPickleBuffer doGeneric(VirtualFrame frame, Object cls, Object buffer,
+                        @Cached PyMemoryViewFromObject memoryViewFromObject) {
+            return factory().createPickleBuffer(cls, memoryViewFromObject.execute(frame, buffer));
+        }
+    }
+
+    @Builtin(name = "dump", minNumOfPositionalArgs = 2, parameterNames = {"obj", "file", "protocol"}, keywordOnlyNames = {"fix_imports", "buffer_callback"})
+    @ArgumentClinic(name = "fix_imports", conversion = ClinicConversion.Boolean, defaultValue = "true")
+    @GenerateNodeFactory
+    public abstract static class DumpNode extends PythonClinicBuiltinNode {
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return PickleModuleBuiltinsClinicProviders.DumpNodeClinicProviderGen.INSTANCE;
+        }
+
+        @Specialization
+        Object dump(VirtualFrame frame, Object obj, Object file, Object protocol, boolean fixImports, Object bufferCallback) {
+            PPickler pickler = factory().createPickler(PythonBuiltinClassType.Pickler);
+            Object savedState = IndirectCallContext.enter(frame, this);
+            try {
+                PicklerBuiltins.initPickler(pickler, file, protocol, fixImports, bufferCallback, this);
+                PickleEncoder.dump(pickler, obj, this);
+            } finally {
+                IndirectCallContext.exit(frame, this, savedState);
+            }
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "dumps", minNumOfPositionalArgs = 1, parameterNames = {"obj", "protocol"}, keywordOnlyNames = {"fix_imports", "buffer_callback"})
+    @ArgumentClinic(name = "fix_imports", conversion = ClinicConversion.Boolean, defaultValue = "true")
+    @GenerateNodeFactory
+    public abstract static class DumpsNode extends PythonClinicBuiltinNode {
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return PickleModuleBuiltinsClinicProviders.DumpsNodeClinicProviderGen.INSTANCE;
+        }
+
+        @Specialization
+        Object dumps(VirtualFrame frame, Object obj, Object protocol, boolean fixImports, Object bufferCallback) {
+            PPickler pickler = factory().createPickler(PythonBuiltinClassType.Pickler);
+            Object savedState = IndirectCallContext.enter(frame, this);
+            try {
+                PicklerBuiltins.initPickler(pickler, null, protocol, fixImports, bufferCallback, this);
+                return factory().createBytes(PickleEncoder.dump(pickler, obj, this));
+            } finally {
+                IndirectCallContext.exit(frame, this, savedState);
+            }
+        }
+    }
+
+    @Builtin(name = "load", minNumOfPositionalArgs = 1, parameterNames = {"file"}, keywordOnlyNames = {"fix_imports", "encoding", "errors", "buffers"})
+    @ArgumentClinic(name = "fix_imports", conversion = ClinicConversion.Boolean, defaultValue = "true")
+    @ArgumentClinic(name = "encoding", conversion = ClinicConversion.TString, defaultValue = "PickleUtils.T_ASCII")
+    @ArgumentClinic(name = "errors", conversion = ClinicConversion.TString, defaultValue = "PickleUtils.T_STRICT")
+    @GenerateNodeFactory
+    public abstract static class LoadNode extends PythonClinicBuiltinNode {
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return PickleModuleBuiltinsClinicProviders.LoadNodeClinicProviderGen.INSTANCE;
+        }
+
+        @Specialization
+        Object load(VirtualFrame frame, Object file, boolean fixImports, TruffleString encoding, TruffleString errors, Object buffers) {
+            PUnpickler unpickler = factory().createUnpickler(PythonBuiltinClassType.Unpickler);
+            Object savedState = IndirectCallContext.enter(frame, this);
+            try {
+                UnpicklerBuiltins.initUnpickler(unpickler, file, fixImports, encoding, errors, buffers, this);
+                return PickleDecoder.loadFile(unpickler, this);
+            } finally {
+                IndirectCallContext.exit(frame, this, savedState);
+            }
+        }
+    }
+
+    @Builtin(name = "loads", minNumOfPositionalArgs = 1, numOfPositionalOnlyArgs = 1, parameterNames = {"data"}, keywordOnlyNames = {"fix_imports", "encoding", "errors", "buffers"})
+    @ArgumentClinic(name = "data", conversion = ClinicConversion.ReadableBuffer)
+    @ArgumentClinic(name = "fix_imports", conversion = ClinicConversion.Boolean, defaultValue = "true")
+    @ArgumentClinic(name = "encoding", conversion = ClinicConversion.TString, defaultValue = "PickleUtils.T_ASCII")
+    @ArgumentClinic(name = "errors", conversion = ClinicConversion.TString, defaultValue = "PickleUtils.T_STRICT")
+    @GenerateNodeFactory
+    public abstract static class LoadsNode extends PythonClinicBuiltinNode {
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return PickleModuleBuiltinsClinicProviders.LoadsNodeClinicProviderGen.INSTANCE;
+        }
+
+        @Specialization(limit = "3")
+        Object loads(VirtualFrame frame, Object buffer, boolean fixImports, TruffleString encoding, TruffleString errors, Object buffers,
+                        @CachedLibrary("buffer") PythonBufferAccessLibrary bufferLib) {
+            PUnpickler unpickler = factory().createUnpickler(PythonBuiltinClassType.Unpickler);
+            try {
+                Object savedState = IndirectCallContext.enter(frame, this);
+                try {
+                    UnpicklerBuiltins.initUnpickler(unpickler, null, fixImports, encoding, errors, buffers, this);
+                    return PickleDecoder.loadBytes(unpickler, bufferLib.getInternalOrCopiedByteArray(buffer), bufferLib.getBufferLength(buffer), this);
+                } finally {
+                    IndirectCallContext.exit(frame, this, savedState);
+                }
+            } finally {
+                bufferLib.release(buffer, frame, this);
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.pickle;
+
+import static com.oracle.graal.python.util.PythonUtils.tsLiteral;
+
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * Opcodes and limits of the pickle format, see {@code Lib/pickletools.py} for their documentation.
+ */
+public final class PickleUtils {
+    public static final int DEFAULT_PROTOCOL = 4;
+    public static final int HIGHEST_PROTOCOL = 5;
+
+    /* Number of elements saved per APPENDS/SETITEMS/ADDITEMS batch. */
+    static final int BATCHSIZE = 1000;
+
+    /* Frames are committed once they reach this size. */
+    static final int FRAME_SIZE_TARGET = 64 * 1024;
+    /* Smaller frames are merged into the enclosing stream. */
+    static final int FRAME_SIZE_MIN = 4;
+    static final int FRAME_HEADER_SIZE = 9;
+
+    /* Nesting depth after which fast mode starts looking for cycles. */
+    static final int FAST_NESTING_LIMIT = 50;
+
+    // protocol 0 and 1
+    static final byte MARK = '(';
+    static final byte STOP = '.';
+    static final byte POP = '0';
+    static final byte POP_MARK = '1';
+    static final byte DUP = '2';
+    static final byte FLOAT = 'F';
+    static final byte INT = 'I';
+    static final byte BININT = 'J';
+    static final byte BININT1 = 'K';
+    static final byte LONG = 'L';
+    static final byte BININT2 = 'M';
+    static final byte NONE = 'N';
+    static final byte PERSID = 'P';
+    static final byte BINPERSID = 'Q';
+    static final byte REDUCE = 'R';
+    static final byte STRING = 'S';
+    static final byte BINSTRING = 'T';
+    static final byte SHORT_BINSTRING = 'U';
+    static final byte UNICODE = 'V';
+    static final byte BINUNICODE = 'X';
+    static final byte APPEND = 'a';
+    static final byte BUILD = 'b';
+    static final byte GLOBAL = 'c';
+    static final byte DICT = 'd';
+    static final byte EMPTY_DICT = '}';
+    static final byte APPENDS = 'e';
+    static final byte GET = 'g';
+    static final byte BINGET = 'h';
+    static final byte INST = 'i';
+    static final byte LONG_BINGET = 'j';
+    static final byte LIST = 'l';
+    static final byte EMPTY_LIST = ']';
+    static final byte OBJ = 'o';
+    static final byte PUT = 'p';
+    static final byte BINPUT = 'q';
+    static final byte LONG_BINPUT = 'r';
+    static final byte SETITEM = 's';
+    static final byte TUPLE = 't';
+    static final byte EMPTY_TUPLE = ')';
+    static final byte SETITEMS = 'u';
+    static final byte BINFLOAT = 'G';
+
+    // protocol 2
+    static final byte PROTO = (byte) 0x80;
+    static final byte NEWOBJ = (byte) 0x81;
+    static final byte EXT1 = (byte) 0x82;
+    static final byte EXT2 = (byte) 0x83;
+    static final byte EXT4 = (byte) 0x84;
+    static final byte TUPLE1 = (byte) 0x85;
+    static final byte TUPLE2 = (byte) 0x86;
+    static final byte TUPLE3 = (byte) 0x87;
+    static final byte NEWTRUE = (byte) 0x88;
+    static final byte NEWFALSE = (byte) 0x89;
+    static final byte LONG1 = (byte) 0x8a;
+    static final byte LONG4 = (byte) 0x8b;
+
+    // protocol 3
+    static final byte BINBYTES = 'B';
+    static final byte SHORT_BINBYTES = 'C';
+
+    // protocol 4
+    static final byte SHORT_BINUNICODE = (byte) 0x8c;
+    static final byte BINUNICODE8 = (byte) 0x8d;
+    static final byte BINBYTES8 = (byte) 0x8e;
+    static final byte EMPTY_SET = (byte) 0x8f;
+    static final byte ADDITEMS = (byte) 0x90;
+    static final byte FROZENSET = (byte) 0x91;
+    static final byte NEWOBJ_EX = (byte) 0x92;
+    static final byte STACK_GLOBAL = (byte) 0x93;
+    static final byte MEMOIZE = (byte) 0x94;
+    static final byte FRAME = (byte) 0x95;
+
+    // protocol 5
+    static final byte BYTEARRAY8 = (byte) 0x96;
+    static final byte NEXT_BUFFER = (byte) 0x97;
+    static final byte READONLY_BUFFER = (byte) 0x98;
+
+    static final TruffleString T_COPYREG = tsLiteral("copyreg");
+    static final TruffleString T_DISPATCH_TABLE = tsLiteral("dispatch_table");
+    static final TruffleString T_EXTENSION_REGISTRY = tsLiteral("_extension_registry");
+    static final TruffleString T_INVERTED_REGISTRY = tsLiteral("_inverted_registry");
+    static final TruffleString T_EXTENSION_CACHE = tsLiteral("_extension_cache");
+    static final TruffleString T_COMPAT_PICKLE = tsLiteral("_compat_pickle");
+    static final TruffleString T_NAME_MAPPING = tsLiteral("NAME_MAPPING");
+    static final TruffleString T_IMPORT_MAPPING = tsLiteral("IMPORT_MAPPING");
+    static final TruffleString T_REVERSE_NAME_MAPPING = tsLiteral("REVERSE_NAME_MAPPING");
+    static final TruffleString T_REVERSE_IMPORT_MAPPING = tsLiteral("REVERSE_IMPORT_MAPPING");
+    static final TruffleString T_CODECS = tsLiteral("codecs");
+    static final TruffleString T_FUNCTOOLS = tsLiteral("functools");
+    static final TruffleString T_PARTIAL = tsLiteral("partial");
+    static final TruffleString T_LATIN1 = tsLiteral("latin1");
+    static final TruffleString T_UTF8 = tsLiteral("utf-8");
+    static final TruffleString T_ASCII = tsLiteral("ASCII");
+    static final TruffleString T_STRICT = tsLiteral("strict");
+    static final TruffleString T_SURROGATEPASS = tsLiteral("surrogatepass");
+    static final TruffleString T_RAW_UNICODE_ESCAPE = tsLiteral("raw-unicode-escape");
+    static final TruffleString T_ESCAPE_DECODE = tsLiteral("escape_decode");
+    static final TruffleString T_BYTES_ENCODING = tsLiteral("bytes");
+    static final TruffleString T_MP_MAIN = tsLiteral("__mp_main__");
+    static final TruffleString T_LOCALS = tsLiteral("<locals>");
+    static final TruffleString T_NEWOBJ = tsLiteral("__newobj__");
+    static final TruffleString T_NEWOBJ_EX = tsLiteral("__newobj_ex__");
+    static final TruffleString T_PERSISTENT_ID = tsLiteral("persistent_id");
+    static final TruffleString T_PERSISTENT_LOAD = tsLiteral("persistent_load");
+    static final TruffleString T_REDUCER_OVERRIDE = tsLiteral("reducer_override");
+    static final TruffleString T_FIND_CLASS = tsLiteral("find_class");
+
+    private PickleUtils() {
+        // no instances
+    }
+}
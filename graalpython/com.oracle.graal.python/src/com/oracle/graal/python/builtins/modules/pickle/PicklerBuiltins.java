@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.pickle;
+
+import static com.oracle.graal.python.builtins.modules.io.IONodes.T_WRITE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.DEFAULT_PROTOCOL;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.HIGHEST_PROTOCOL;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_DISPATCH_TABLE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_PERSISTENT_ID;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_REDUCER_OVERRIDE;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___INIT__;
+
+import java.util.List;
+
+import com.oracle.graal.python.annotations.ArgumentClinic;
+import com.oracle.graal.python.annotations.ArgumentClinic.ClinicConversion;
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.common.HashingStorage;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageGetIterator;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIterator;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorNext;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorValue;
+import com.oracle.graal.python.builtins.objects.dict.PDict;
+import com.oracle.graal.python.builtins.objects.tuple.PTuple;
+import com.oracle.graal.python.lib.PyCallableCheckNode;
+import com.oracle.graal.python.lib.PyLongAsLongNode;
+import com.oracle.graal.python.lib.PyObjectIsTrueNode;
+import com.oracle.graal.python.lib.PyObjectLookupAttr;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PGuards;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonClinicBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.clinic.ArgumentClinicProvider;
+import com.oracle.graal.python.runtime.ExecutionContext.IndirectCallContext;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+
+@CoreFunctions(extendClasses = PythonBuiltinClassType.Pickler)
+public final class PicklerBuiltins extends PythonBuiltins {
+
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return PicklerBuiltinsFactory.getFactories();
+    }
+
+    /**
+     * Validates the arguments of {@code Pickler.__init__}, {@code dump} and {@code dumps} and
+     * initializes the pickler. A {@code null} file pickles into bytes.
+     */
+    @TruffleBoundary
+    static void initPickler(PPickler self, Object file, Object protocol, boolean fixImports, Object bufferCallback, Node raisingNode) {
+        int proto;
+        if (PGuards.isPNone(protocol)) {
+            proto = DEFAULT_PROTOCOL;
+        } else {
+            long value = PyLongAsLongNode.getUncached().execute(null, protocol);
+            if (value < 0) {
+                proto = HIGHEST_PROTOCOL;
+            } else if (value > HIGHEST_PROTOCOL) {
+                throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.ValueError, ErrorMessages.PICKLE_PROTOCOL_MUST_BE_LE, HIGHEST_PROTOCOL);
+            } else {
+                proto = (int) value;
+            }
+        }
+        Object write = null;
+        if (file != null) {
+            write = PyObjectLookupAttr.getUncached().execute(null, file, T_WRITE);
+            if (write == PNone.NO_VALUE) {
+                throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.TypeError, ErrorMessages.FILE_MUST_HAVE_WRITE_ATTR);
+            }
+        }
+        Object callback = PGuards.isPNone(bufferCallback) ? null : bufferCallback;
+        if (callback != null && proto < 5) {
+            throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.ValueError, ErrorMessages.BUFFER_CALLBACK_NEEDS_PROTOCOL_5);
+        }
+        self.init(write, proto, fixImports, callback);
+        // the hooks of subclasses, or values assigned through the getsets
+        self.setPersistentId(lookupHook(self, T_PERSISTENT_ID));
+        self.setDispatchTable(lookupHook(self, T_DISPATCH_TABLE));
+        self.setReducerOverride(lookupHook(self, T_REDUCER_OVERRIDE));
+    }
+
+    private static Object lookupHook(Object self, TruffleString name) {
+        Object hook = PyObjectLookupAttr.getUncached().execute(null, self, name);
+        return hook == PNone.NO_VALUE || hook == PNone.NONE ? null : hook;
+    }
+
+    static PPickler checkInitialized(PythonBuiltinBaseNode node, PPickler self) {
+        if (!self.isInitialized()) {
+            throw node.raise(PythonBuiltinClassType.PicklingError, ErrorMessages.S_INIT_WAS_NOT_CALLED_BY_P_INIT, "Pickler", self);
+        }
+        return self;
+    }
+
+    @Builtin(name = J___INIT__, minNumOfPositionalArgs = 2, parameterNames = {"$self", "file", "protocol", "fix_imports", "buffer_callback"})
+    @ArgumentClinic(name = "fix_imports", conversion = ClinicConversion.Boolean, defaultValue = "true")
+    @GenerateNodeFactory
+    public abstract static class InitNode extends PythonClinicBuiltinNode {
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return PicklerBuiltinsClinicProviders.InitNodeClinicProviderGen.INSTANCE;
+        }
+
+        @Specialization
+        Object init(VirtualFrame frame, PPickler self, Object file, Object protocol, boolean fixImports, Object bufferCallback) {
+            Object savedState = IndirectCallContext.enter(frame, this);
+            try {
+                initPickler(self, file, protocol, fixImports, bufferCallback, this);
+            } finally {
+                IndirectCallContext.exit(frame, this, savedState);
+            }
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "dump", minNumOfPositionalArgs = 2, parameterNames = {"$self", "obj"})
+    @GenerateNodeFactory
+    public abstract static class DumpNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        Object dump(VirtualFrame frame, PPickler self, Object obj) {
+            checkInitialized(this, self);
+            Object savedState = IndirectCallContext.enter(frame, this);
+            try {
+                PickleEncoder.dump(self, obj, this);
+            } finally {
+                IndirectCallContext.exit(frame, this, savedState);
+            }
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "clear_memo", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    public abstract static class ClearMemoNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object clear(PPickler self) {
+            self.getMemo().clear();
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "memo", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true, allowsDelete = true)
+    @GenerateNodeFactory
+    public abstract static class MemoNode extends PythonBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        Object get(PPickler self, @SuppressWarnings("unused") PNone value) {
+            return factory().createPicklerMemoProxy(self);
+        }
+
+        @Specialization(guards = "isDeleteMarker(value)")
+        Object delete(@SuppressWarnings("unused") PPickler self, @SuppressWarnings("unused") Object value) {
+            throw raise(PythonBuiltinClassType.TypeError, ErrorMessages.ATTRIBUTE_DELETION_IS_NOT_SUPPORTED);
+        }
+
+        @Specialization(guards = {"!isNoValue(value)", "!isDeleteMarker(value)"})
+        Object set(VirtualFrame frame, PPickler self, Object value) {
+            Object savedState = IndirectCallContext.enter(frame, this);
+            try {
+                self.setMemo(toMemo(value, this));
+            } finally {
+                IndirectCallContext.exit(frame, this, savedState);
+            }
+            return PNone.NONE;
+        }
+
+        @TruffleBoundary
+        private static PickleMemoTable toMemo(Object value, Node raisingNode) {
+            if (value instanceof PPicklerMemoProxy proxy) {
+                return proxy.getPickler().getMemo().copy();
+            } else if (value instanceof PDict dict) {
+                PickleMemoTable memo = new PickleMemoTable();
+                HashingStorage storage = dict.getDictStorage();
+                HashingStorageIterator it = HashingStorageGetIterator.executeUncached(storage);
+                while (HashingStorageIteratorNext.executeUncached(storage, it)) {
+                    Object entry = HashingStorageIteratorValue.executeUncached(storage, it);
+                    if (!(entry instanceof PTuple tuple) || tuple.getSequenceStorage().length() != 2) {
+                        throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.TypeError, ErrorMessages.MEMO_VALUES_MUST_BE_2_ITEM_TUPLES);
+                    }
+                    Object[] items = PickleEncoder.getItems(tuple);
+                    long idx = PyLongAsLongNode.getUncached().execute(null, items[0]);
+                    if (idx < 0 || idx > Integer.MAX_VALUE) {
+                        throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.ValueError, ErrorMessages.MEMO_KEY_MUST_BE_POSITIVE_INTEGERS);
+                    }
+                    memo.put(items[1], (int) idx);
+                }
+                return memo;
+            }
+            throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.TypeError, ErrorMessages.PICKLER_MEMO_MUST_BE_PROXY_OR_DICT, value);
+        }
+    }
+
+    @Builtin(name = "fast", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true)
+    @GenerateNodeFactory
+    public abstract static class FastNode extends PythonBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        static boolean get(PPickler self, @SuppressWarnings("unused") PNone value) {
+            return self.isFast();
+        }
+
+        @Specialization(guards = "!isNoValue(value)")
+        static Object set(VirtualFrame frame, PPickler self, Object value,
+                        @Cached PyObjectIsTrueNode isTrueNode) {
+            self.setFast(isTrueNode.execute(frame, value));
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "bin", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    public abstract static class BinNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static int get(PPickler self) {
+            return self.isBin() ? 1 : 0;
+        }
+    }
+
+    @Builtin(name = "persistent_id", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true, allowsDelete = true)
+    @GenerateNodeFactory
+    public abstract static class PersistentIdNode extends PythonBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        Object get(PPickler self, @SuppressWarnings("unused") PNone value) {
+            if (self.getPersistentId() == null) {
+                throw raise(PythonBuiltinClassType.AttributeError, T_PERSISTENT_ID);
+            }
+            return self.getPersistentId();
+        }
+
+        @Specialization(guards = "isDeleteMarker(value)")
+        Object delete(@SuppressWarnings("unused") PPickler self, @SuppressWarnings("unused") Object value) {
+            throw raise(PythonBuiltinClassType.TypeError, ErrorMessages.ATTRIBUTE_DELETION_IS_NOT_SUPPORTED);
+        }
+
+        @Specialization(guards = {"!isNoValue(value)", "!isDeleteMarker(value)"})
+        Object set(PPickler self, Object value,
+                        @Cached PyCallableCheckNode callableCheckNode) {
+            if (!callableCheckNode.execute(value)) {
+                throw raise(PythonBuiltinClassType.TypeError, ErrorMessages.PERSISTENT_ID_MUST_BE_CALLABLE);
+            }
+            self.setPersistentId(value);
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "dispatch_table", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true, allowsDelete = true)
+    @GenerateNodeFactory
+    public abstract static class DispatchTableNode extends PythonBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        Object get(PPickler self, @SuppressWarnings("unused") PNone value) {
+            if (self.getDispatchTable() == null) {
+                throw raise(PythonBuiltinClassType.AttributeError, T_DISPATCH_TABLE);
+            }
+            return self.getDispatchTable();
+        }
+
+        @Specialization(guards = "isDeleteMarker(value)")
+        static Object delete(PPickler self, @SuppressWarnings("unused") Object value) {
+            self.setDispatchTable(null);
+            return PNone.NONE;
+        }
+
+        @Specialization(guards = {"!isNoValue(value)", "!isDeleteMarker(value)"})
+        static Object set(PPickler self, Object value) {
+            self.setDispatchTable(value);
+            return PNone.NONE;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.pickle;
+
+import static com.oracle.graal.python.builtins.modules.io.IONodes.T_READ;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_PERSISTENT_LOAD;
+import static com.oracle.graal.python.nodes.BuiltinNames.T_READLINE;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___INIT__;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.oracle.graal.python.annotations.ArgumentClinic;
+import com.oracle.graal.python.annotations.ArgumentClinic.ClinicConversion;
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.common.HashingStorage;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageGetIterator;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIterator;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorKey;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorNext;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorValue;
+import com.oracle.graal.python.builtins.objects.dict.PDict;
+import com.oracle.graal.python.lib.PyCallableCheckNode;
+import com.oracle.graal.python.lib.PyLongAsLongNode;
+import com.oracle.graal.python.lib.PyObjectGetIter;
+import com.oracle.graal.python.lib.PyObjectLookupAttr;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonClinicBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonTernaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.clinic.ArgumentClinicProvider;
+import com.oracle.graal.python.runtime.ExecutionContext.IndirectCallContext;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+
+@CoreFunctions(extendClasses = PythonBuiltinClassType.Unpickler)
+public final class UnpicklerBuiltins extends PythonBuiltins {
+
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return UnpicklerBuiltinsFactory.getFactories();
+    }
+
+    /**
+     * Validates the arguments of {@code Unpickler.__init__}, {@code load} and {@code loads} and
+     * initializes the unpickler. A {@code null} file unpickles from a buffer.
+     */
+    @TruffleBoundary
+    static void initUnpickler(PUnpickler self, Object file, boolean fixImports, TruffleString encoding, TruffleString errors, Object buffers, Node raisingNode) {
+        Object read = null;
+        Object readline = null;
+        if (file != null) {
+            read = PyObjectLookupAttr.getUncached().execute(null, file, T_READ);
+            readline = PyObjectLookupAttr.getUncached().execute(null, file, T_READLINE);
+            if (read == PNone.NO_VALUE || readline == PNone.NO_VALUE) {
+                throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.TypeError, ErrorMessages.FILE_MUST_HAVE_READ_AND_READLINE_ATTRS);
+            }
+        }
+        Object buffersIterator = buffers == PNone.NONE || buffers == PNone.NO_VALUE ? null : PyObjectGetIter.getUncached().execute(null, buffers);
+        self.init(read, readline, fixImports, encoding, errors, buffersIterator);
+        // the hook of subclasses, or a value assigned through the getset
+        Object persistentLoad = PyObjectLookupAttr.getUncached().execute(null, self, T_PERSISTENT_LOAD);
+        self.setPersistentLoad(persistentLoad == PNone.NO_VALUE || persistentLoad == PNone.NONE ? null : persistentLoad);
+    }
+
+    @Builtin(name = J___INIT__, minNumOfPositionalArgs = 2, parameterNames = {"$self", "file"}, keywordOnlyNames = {"fix_imports", "encoding", "errors", "buffers"})
+    @ArgumentClinic(name = "fix_imports", conversion = ClinicConversion.Boolean, defaultValue = "true")
+    @ArgumentClinic(name = "encoding", conversion = ClinicConversion.TString, defaultValue = "PickleUtils.T_ASCII")
+    @ArgumentClinic(name = "errors", conversion = ClinicConversion.TString, defaultValue = "PickleUtils.T_STRICT")
+    @GenerateNodeFactory
+    public abstract static class InitNode extends PythonClinicBuiltinNode {
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return UnpicklerBuiltinsClinicProviders.InitNodeClinicProviderGen.INSTANCE;
+        }
+
+        @Specialization
+        Object init(VirtualFrame frame, PUnpickler self, Object file, boolean fixImports, TruffleString encoding, TruffleString errors, Object buffers) {
+            Object savedState = IndirectCallContext.enter(frame, this);
+            try {
+                initUnpickler(self, file, fixImports, encoding, errors, buffers, this);
+            } finally {
+                IndirectCallContext.exit(frame, this, savedState);
+            }
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "load", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    public abstract static class LoadNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        Object load(VirtualFrame frame, PUnpickler self) {
+            if (!self.isInitialized()) {
+                throw raise(PythonBuiltinClassType.UnpicklingError, ErrorMessages.S_INIT_WAS_NOT_CALLED_BY_P_INIT, "Unpickler", self);
+            }
+            Object savedState = IndirectCallContext.enter(frame, this);
+            try {
+                return PickleDecoder.loadFile(self, this);
+            } finally {
+                IndirectCallContext.exit(frame, this, savedState);
+            }
+        }
+    }
+
+    @Builtin(name = "find_class", minNumOfPositionalArgs = 3, parameterNames = {"$self", "module_name", "global_name"})
+    @GenerateNodeFactory
+    public abstract static class FindClassNode extends PythonTernaryBuiltinNode {
+        @Specialization
+        Object findClass(VirtualFrame frame, PUnpickler self, Object moduleName, Object globalName) {
+            Object savedState = IndirectCallContext.enter(frame, this);
+            try {
+                return PickleDecoder.findClass(self, moduleName, globalName, this);
+            } finally {
+                IndirectCallContext.exit(frame, this, savedState);
+            }
+        }
+    }
+
+    @Builtin(name = "memo", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true, allowsDelete = true)
+    @GenerateNodeFactory
+    public abstract static class MemoNode extends PythonBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        Object get(PUnpickler self, @SuppressWarnings("unused") PNone value) {
+            return factory().createUnpicklerMemoProxy(self);
+        }
+
+        @Specialization(guards = "isDeleteMarker(value)")
+        Object delete(@SuppressWarnings("unused") PUnpickler self, @SuppressWarnings("unused") Object value) {
+            throw raise(PythonBuiltinClassType.TypeError, ErrorMessages.ATTRIBUTE_DELETION_IS_NOT_SUPPORTED);
+        }
+
+        @Specialization(guards = {"!isNoValue(value)", "!isDeleteMarker(value)"})
+        Object set(VirtualFrame frame, PUnpickler self, Object value) {
+            Object savedState = IndirectCallContext.enter(frame, this);
+            try {
+                setMemo(self, value, this);
+            } finally {
+                IndirectCallContext.exit(frame, this, savedState);
+            }
+            return PNone.NONE;
+        }
+
+        @TruffleBoundary
+        private static void setMemo(PUnpickler self, Object value, Node raisingNode) {
+            if (value instanceof PUnpicklerMemoProxy proxy) {
+                PUnpickler other = proxy.getUnpickler();
+                self.setMemo(other.copyMemo(), other.getMemoLen());
+            } else if (value instanceof PDict dict) {
+                Object[] memo = new Object[Math.max(self.getMemoCapacity(), 1)];
+                int memoLen = 0;
+                HashingStorage storage = dict.getDictStorage();
+                HashingStorageIterator it = HashingStorageGetIterator.executeUncached(storage);
+                while (HashingStorageIteratorNext.executeUncached(storage, it)) {
+                    long idx = PyLongAsLongNode.getUncached().execute(null, HashingStorageIteratorKey.executeUncached(storage, it));
+                    if (idx < 0 || idx > Integer.MAX_VALUE - 8) {
+                        throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.ValueError, ErrorMessages.MEMO_KEY_MUST_BE_POSITIVE_INTEGERS);
+                    }
+                    if (idx >= memo.length) {
+                        memo = Arrays.copyOf(memo, (int) Math.max(idx + 1, memo.length * 2L));
+                    }
+                    if (memo[(int) idx] == null) {
+                        memoLen++;
+                    }
+                    memo[(int) idx] = HashingStorageIteratorValue.executeUncached(storage, it);
+                }
+                self.setMemo(memo, memoLen);
+            } else {
+                throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.TypeError, ErrorMessages.UNPICKLER_MEMO_MUST_BE_PROXY_OR_DICT, value);
+            }
+        }
+    }
+
+    @Builtin(name = "persistent_load", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true, allowsDelete = true)
+    @GenerateNodeFactory
+    public abstract static class PersistentLoadNode extends PythonBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        Object get(PUnpickler self, @SuppressWarnings("unused") PNone value) {
+            if (self.getPersistentLoad() == null) {
+                throw raise(PythonBuiltinClassType.AttributeError, T_PERSISTENT_LOAD);
+            }
+            return self.getPersistentLoad();
+        }
+
+        @Specialization(guards = "isDeleteMarker(value)")
+        Object delete(@SuppressWarnings("unused") PUnpickler self, @SuppressWarnings("unused") Object value) {
+            throw raise(PythonBuiltinClassType.TypeError, ErrorMessages.ATTRIBUTE_DELETION_IS_NOT_SUPPORTED);
+        }
+
+        @Specialization(guards = {"!isNoValue(value)", "!isDeleteMarker(value)"})
+        Object set(PUnpickler self, Object value,
+                        @Cached PyCallableCheckNode callableCheckNode) {
+            if (!callableCheckNode.execute(value)) {
+                throw raise(PythonBuiltinClassType.TypeError, ErrorMessages.PERSISTENT_LOAD_MUST_BE_CALLABLE);
+            }
+            self.setPersistentLoad(value);
+            return PNone.NONE;
+        }
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.asyncio;
+
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.RuntimeError;
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.ValueError;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___AWAIT__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___CLASS_GETITEM__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___INIT__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___ITER__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___REPR__;
+import static com.oracle.graal.python.nodes.StringLiterals.T_SPACE;
+import static com.oracle.graal.python.util.PythonUtils.tsLiteral;
+
+import java.util.List;
+
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.asyncio.FutureNodes.AddDoneCallbackNode;
+import com.oracle.graal.python.builtins.objects.asyncio.FutureNodes.FutureCancelNode;
+import com.oracle.graal.python.builtins.objects.asyncio.FutureNodes.FutureResultNode;
+import com.oracle.graal.python.builtins.objects.asyncio.FutureNodes.FutureSetExceptionNode;
+import com.oracle.graal.python.builtins.objects.asyncio.FutureNodes.FutureSetResultNode;
+import com.oracle.graal.python.builtins.objects.asyncio.FutureNodes.InitFutureNode;
+import com.oracle.graal.python.builtins.objects.asyncio.FutureNodes.MakeCancelledErrorNode;
+import com.oracle.graal.python.builtins.objects.str.StringUtils.SimpleTruffleStringFormatNode;
+import com.oracle.graal.python.builtins.objects.type.TypeNodes;
+import com.oracle.graal.python.lib.PyObjectCallMethodObjArgs;
+import com.oracle.graal.python.lib.PyObjectIsTrueNode;
+import com.oracle.graal.python.lib.PyObjectRichCompareBool;
+import com.oracle.graal.python.lib.PyObjectStrAsTruffleStringNode;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.call.CallNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonTernaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.graal.python.nodes.object.GetClassNode;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.profiles.InlinedLoopConditionProfile;
+import com.oracle.truffle.api.strings.TruffleString;
+
+@CoreFunctions(extendClasses = PythonBuiltinClassType.PFuture)
+public final class FutureBuiltins extends PythonBuiltins {
+    static final TruffleString T_PENDING = tsLiteral("PENDING");
+    static final TruffleString T_CANCELLED = tsLiteral("CANCELLED");
+    static final TruffleString T_FINISHED = tsLiteral("FINISHED");
+    private static final TruffleString T__REPR_INFO = tsLiteral("_repr_info");
+    private static final TruffleString T__FUTURE_REPR_INFO = tsLiteral("_future_repr_info");
+    private static final TruffleString T_JOIN = tsLiteral("join");
+
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return FutureBuiltinsFactory.getFactories();
+    }
+
+    static PFuture checkInitialized(PythonBuiltinBaseNode node, PFuture self) {
+        if (self.getLoop() == null) {
+            throw node.raise(RuntimeError, ErrorMessages.FUTURE_NOT_INITIALIZED);
+        }
+        return self;
+    }
+
+    @Builtin(name = J___INIT__, minNumOfPositionalArgs = 1, parameterNames = {"$self"}, keywordOnlyNames = {"loop"})
+    @GenerateNodeFactory
+    public abstract static class InitNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object init(VirtualFrame frame, PFuture self, Object loop,
+                        @Cached InitFutureNode initFutureNode) {
+            initFutureNode.execute(frame, self, loop instanceof PNone ? PNone.NONE : loop);
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "result", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    public abstract static class ResultNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        Object result(VirtualFrame frame, PFuture self,
+                        @Cached FutureResultNode resultNode) {
+            return resultNode.execute(frame, checkInitialized(this, self));
+        }
+    }
+
+    @Builtin(name = "exception", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    public abstract static class ExceptionNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        Object exception(VirtualFrame frame, PFuture self,
+                        @Cached MakeCancelledErrorNode makeCancelledErrorNode) {
+            checkInitialized(this, self);
+            switch (self.getState()) {
+                case CANCELLED:
+                    throw FutureNodes.raiseExceptionObject(this, makeCancelledErrorNode.execute(frame, self));
+                case PENDING:
+                    throw FutureNodes.raiseInvalidStateError(this, ErrorMessages.EXCEPTION_IS_NOT_SET);
+                default:
+                    self.setLogTraceback(false);
+                    return self.getException();
+            }
+        }
+    }
+
+    @Builtin(name = "set_result", minNumOfPositionalArgs = 2)
+    @GenerateNodeFactory
+    public abstract static class SetResultNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        Object setResult(VirtualFrame frame, PFuture self, Object result,
+                        @Cached FutureSetResultNode setResultNode) {
+            setResultNode.execute(frame, checkInitialized(this, self), result);
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "set_exception", minNumOfPositionalArgs = 2)
+    @GenerateNodeFactory
+    public abstract static class SetExceptionNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        Object setException(VirtualFrame frame, PFuture self, Object exception,
+                        @Cached FutureSetExceptionNode setExceptionNode) {
+            setExceptionNode.execute(frame, checkInitialized(this, self), exception);
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "add_done_callback", minNumOfPositionalArgs = 2, parameterNames = {"$self", "fn"}, keywordOnlyNames = {"context"})
+    @GenerateNodeFactory
+    public abstract static class AddDoneCallbackBuiltinNode extends PythonTernaryBuiltinNode {
+        @Specialization
+        Object add(VirtualFrame frame, PFuture self, Object fn, Object context,
+                        @Cached AddDoneCallbackNode addDoneCallbackNode) {
+            addDoneCallbackNode.execute(frame, checkInitialized(this, self), fn, context instanceof PNone ? PNone.NONE : context);
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "remove_done_callback", minNumOfPositionalArgs = 2)
+    @GenerateNodeFactory
+    public abstract static class RemoveDoneCallbackNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        Object remove(VirtualFrame frame, PFuture self, Object fn,
+                        @Bind("this") Node inliningTarget,
+                        @Cached InlinedLoopConditionProfile loopProfile,
+                        @Cached PyObjectRichCompareBool.EqNode eqNode) {
+            checkInitialized(this, self);
+            int count = self.getCallbackCount();
+            boolean[] keep = new boolean[count];
+            int removed = 0;
+            loopProfile.profileCounted(inliningTarget, count);
+            for (int i = 0; loopProfile.inject(inliningTarget, i < count); i++) {
+                keep[i] = !eqNode.execute(frame, self.getCallback(i), fn);
+                if (!keep[i]) {
+                    removed++;
+                }
+            }
+            if (removed > 0 && self.getCallbackCount() == count) {
+                self.retainCallbacks(keep);
+            }
+            return removed;
+        }
+    }
+
+    @Builtin(name = "cancel", minNumOfPositionalArgs = 1, parameterNames = {"$self", "msg"})
+    @GenerateNodeFactory
+    public abstract static class CancelNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        boolean cancel(VirtualFrame frame, PFuture self, Object msg,
+                        @Cached FutureCancelNode cancelNode) {
+            return cancelNode.execute(frame, checkInitialized(this, self), msg instanceof PNone ? PNone.NONE : msg);
+        }
+    }
+
+    @Builtin(name = "cancelled", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    public abstract static class CancelledNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static boolean cancelled(PFuture self) {
+            return self.getState() == PFuture.State.CANCELLED;
+        }
+    }
+
+    @Builtin(name = "done", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    public abstract static class DoneNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static boolean done(PFuture self) {
+            return !self.isPending();
+        }
+    }
+
+    @Builtin(name = "get_loop", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    public abstract static class GetLoopNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        Object getLoop(PFuture self) {
+            return checkInitialized(this, self).getLoop();
+        }
+    }
+
+    @Builtin(name = "_make_cancelled_error", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    public abstract static class MakeCancelledErrorBuiltinNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object make(VirtualFrame frame, PFuture self,
+                        @Cached MakeCancelledErrorNode makeCancelledErrorNode) {
+            return makeCancelledErrorNode.execute(frame, self);
+        }
+    }
+
+    @Builtin(name = J___AWAIT__, minNumOfPositionalArgs = 1)
+    @Builtin(name = J___ITER__, minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    public abstract static class AwaitNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        Object await(PFuture self) {
+            return factory().createFutureIter(checkInitialized(this, self));
+        }
+    }
+
+    @Builtin(name = "_repr_info", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    public abstract static class ReprInfoNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object reprInfo(VirtualFrame frame, PFuture self,
+                        @Cached CallNode callNode) {
+            return callNode.execute(frame, FutureNodes.lookupAsyncioAttribute(FutureNodes.T_ASYNCIO_BASE_FUTURES, T__FUTURE_REPR_INFO), self);
+        }
+    }
+
+    @Builtin(name = J___REPR__, minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    public abstract static class ReprNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static TruffleString repr(VirtualFrame frame, PFuture self,
+                        @Cached GetClassNode getClassNode,
+                        @Cached TypeNodes.GetNameNode getNameNode,
+                        @Cached PyObjectCallMethodObjArgs callReprInfo,
+                        @Cached PyObjectCallMethodObjArgs callJoin,
+                        @Cached PyObjectStrAsTruffleStringNode strNode,
+                        @Cached SimpleTruffleStringFormatNode simpleTruffleStringFormatNode) {
+            Object info = callJoin.execute(frame, T_SPACE, T_JOIN, callReprInfo.execute(frame, self, T__REPR_INFO));
+            return simpleTruffleStringFormatNode.format("<%s %s>", getNameNode.execute(getClassNode.execute(self)), strNode.execute(frame, info));
+        }
+    }
+
+    @Builtin(name = J___CLASS_GETITEM__, minNumOfPositionalArgs = 2, isClassmethod = true)
+    @GenerateNodeFactory
+    public abstract static class ClassGetItemNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        Object classGetItem(Object cls, Object key) {
+            return factory().createGenericAlias(cls, key);
+        }
+    }
+
+    @Builtin(name = "_state", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    public abstract static class StateNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object state(PFuture self) {
+            return self.getLoop() == null ? PNone.NONE : FutureNodes.getStateName(self);
+        }
+    }
+
+    @Builtin(name = "_loop", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    public abstract static class LoopNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object loop(PFuture self) {
+            return self.getLoop() == null ? PNone.NONE : self.getLoop();
+        }
+    }
+
+    @Builtin(name = "_result", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    public abstract static class ResultAttrNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object result(PFuture self) {
+            return self.getResult();
+        }
+    }
+
+    @Builtin(name = "_exception", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    public abstract static class ExceptionAttrNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object exception(PFuture self) {
+            return self.getException();
+        }
+    }
+
+    @Builtin(name = "_source_traceback", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    public abstract static class SourceTracebackNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object sourceTraceback(PFuture self) {
+            return self.getSourceTraceback();
+        }
+    }
+
+    @Builtin(name = "_callbacks", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    public abstract static class CallbacksNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        Object callbacks(PFuture self) {
+            int count = self.getCallbackCount();
+            if (count == 0) {
+                return PNone.NONE;
+            }
+            Object[] items = new Object[count];
+            for (int i = 0; i < count; i++) {
+                items[i] = factory().createTuple(new Object[]{self.getCallback(i), self.getCallbackContext(i)});
+            }
+            return factory().createList(items);
+        }
+    }
+
+    @Builtin(name = "_cancel_message", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true)
+    @GenerateNodeFactory
+    public abstract static class CancelMessageNode extends PythonBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        static Object get(PFuture self, @SuppressWarnings("unused") PNone value) {
+            return self.getCancelMessage();
+        }
+
+        @Specialization(guards = "!isNoValue(value)")
+        static Object set(PFuture self, Object value) {
+            self.setCancelMessage(value);
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "_asyncio_future_blocking", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true)
+    @GenerateNodeFactory
+    public abstract static class BlockingNode extends PythonBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        static Object get(PFuture self, @SuppressWarnings("unused") PNone value) {
+            return self.isBlocking();
+        }
+
+        @Specialization(guards = "!isNoValue(value)")
+        static Object set(VirtualFrame frame, PFuture self, Object value,
+                        @Cached PyObjectIsTrueNode isTrueNode) {
+            self.setBlocking(isTrueNode.execute(frame, value));
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "_log_traceback", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true)
+    @GenerateNodeFactory
+    public abstract static class LogTracebackNode extends PythonBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        static Object get(PFuture self, @SuppressWarnings("unused") PNone value) {
+            return self.isLogTraceback();
+        }
+
+        @Specialization(guards = "!isNoValue(value)")
+        Object set(VirtualFrame frame, PFuture self, Object value,
+                        @Cached PyObjectIsTrueNode isTrueNode) {
+            if (isTrueNode.execute(frame, value)) {
+                throw raise(ValueError, ErrorMessages.LOG_TRACEBACK_ONLY_FALSE);
+            }
+            self.setLogTraceback(false);
+            return PNone.NONE;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.asyncio;
+
+import static com.oracle.graal.python.util.PythonUtils.tsLiteral;
+
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.dict.PDict;
+import com.oracle.graal.python.builtins.objects.str.StringUtils;
+import com.oracle.graal.python.builtins.objects.type.TypeNodes;
+import com.oracle.graal.python.lib.PyObjectGetAttr;
+import com.oracle.graal.python.nodes.WriteUnraisableNode;
+import com.oracle.graal.python.nodes.object.InlinedGetClassNode;
+import com.oracle.graal.python.runtime.AsyncHandler;
+import com.oracle.graal.python.runtime.AsyncHandler.SharedFinalizer.FinalizableReference;
+import com.oracle.graal.python.runtime.PythonContext;
+import com.oracle.graal.python.runtime.exception.PException;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * Reports a future that is collected with an exception that was never retrieved, or a task that is
+ * collected while it is still pending, to {@code loop.call_exception_handler} like the finalizers
+ * of {@code _asyncio} do. The reference keeps what the report needs, since the future itself is
+ * gone by then, the context passed to the handler has no {@code future} or {@code task} entry.
+ */
+final class FutureFinalizer extends FinalizableReference {
+    private static final TruffleString T_CALL_EXCEPTION_HANDLER = tsLiteral("call_exception_handler");
+    private static final TruffleString T_MESSAGE = tsLiteral("message");
+    private static final TruffleString T_EXCEPTION = tsLiteral("exception");
+    private static final TruffleString T_SOURCE_TRACEBACK = tsLiteral("source_traceback");
+    private static final TruffleString T_EXCEPTION_NEVER_RETRIEVED = tsLiteral(" exception was never retrieved");
+    private static final TruffleString T_TASK_DESTROYED_PENDING = tsLiteral("Task was destroyed but it is pending!");
+
+    private final TruffleString typeName;
+    private final Object sourceTraceback;
+    // the exception to report, null if it was retrieved
+    private Object exception;
+    private boolean pendingTask;
+
+    private FutureFinalizer(PFuture future, TruffleString typeName, PythonContext context) {
+        super(future, future.getLoop(), context.getSharedFinalizer());
+        this.typeName = typeName;
+        this.sourceTraceback = future.getSourceTraceback();
+    }
+
+    @TruffleBoundary
+    static FutureFinalizer create(PFuture future, PythonContext context) {
+        TruffleString typeName = TypeNodes.GetNameNode.getUncached().execute(InlinedGetClassNode.executeUncached(future));
+        return new FutureFinalizer(future, typeName, context);
+    }
+
+    void setException(Object exception) {
+        this.exception = exception;
+    }
+
+    void setPendingTask(boolean pendingTask) {
+        this.pendingTask = pendingTask;
+    }
+
+    @Override
+    public AsyncHandler.AsyncAction release() {
+        if (!isReleased() && (pendingTask || exception != null)) {
+            return new ReportCallback(this);
+        }
+        return null;
+    }
+
+    private static final class ReportCallback extends AsyncHandler.AsyncPythonAction {
+        private final FutureFinalizer finalizer;
+        private Object handler;
+
+        ReportCallback(FutureFinalizer finalizer) {
+            this.finalizer = finalizer;
+        }
+
+        @Override
+        protected Object callable() {
+            try {
+                handler = PyObjectGetAttr.getUncached().execute(finalizer.getReference(), T_CALL_EXCEPTION_HANDLER);
+            } catch (PException e) {
+                WriteUnraisableNode.getUncached().execute(e.getEscapedException(), null, finalizer.getReference());
+                return null;
+            }
+            return handler;
+        }
+
+        @Override
+        protected Object[] arguments() {
+            PDict context = PythonObjectFactory.getUncached().createDict();
+            if (finalizer.pendingTask) {
+                context.setItem(T_MESSAGE, T_TASK_DESTROYED_PENDING);
+            } else {
+                context.setItem(T_MESSAGE, StringUtils.cat(finalizer.typeName, T_EXCEPTION_NEVER_RETRIEVED));
+                context.setItem(T_EXCEPTION, finalizer.exception);
+            }
+            if (finalizer.sourceTraceback != PNone.NONE) {
+                context.setItem(T_SOURCE_TRACEBACK, finalizer.sourceTraceback);
+            }
+            return new Object[]{context};
+        }
+
+        @Override
+        protected void handleException(PException e) {
+            WriteUnraisableNode.getUncached().execute(e.getEscapedException(), null, handler);
+        }
+    }
+}
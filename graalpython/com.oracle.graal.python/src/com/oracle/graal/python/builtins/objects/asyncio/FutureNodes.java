@@ -0,0 +1,688 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.asyncio;
+
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.RuntimeError;
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.StopIteration;
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.TypeError;
+import static com.oracle.graal.python.nodes.BuiltinNames.T__ASYNCIO;
+import static com.oracle.graal.python.util.PythonUtils.toTruffleStringUncached;
+import static com.oracle.graal.python.util.PythonUtils.tsLiteral;
+
+import com.oracle.graal.python.PythonLanguage;
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.modules.AsyncioModuleBuiltins;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.dict.PDict;
+import com.oracle.graal.python.builtins.objects.exception.GetExceptionTracebackNode;
+import com.oracle.graal.python.builtins.objects.exception.PBaseException;
+import com.oracle.graal.python.builtins.objects.exception.StopIterationBuiltins;
+import com.oracle.graal.python.builtins.objects.function.PKeyword;
+import com.oracle.graal.python.builtins.objects.generator.CommonGeneratorBuiltins;
+import com.oracle.graal.python.builtins.objects.generator.PGenerator;
+import com.oracle.graal.python.builtins.objects.traceback.PTraceback;
+import com.oracle.graal.python.builtins.objects.type.TypeNodes;
+import com.oracle.graal.python.lib.PyDictDelItem;
+import com.oracle.graal.python.lib.PyDictGetItem;
+import com.oracle.graal.python.lib.PyDictSetItem;
+import com.oracle.graal.python.lib.PyObjectCallMethodObjArgs;
+import com.oracle.graal.python.lib.PyObjectGetAttr;
+import com.oracle.graal.python.lib.PyObjectIsTrueNode;
+import com.oracle.graal.python.lib.PyObjectLookupAttr;
+import com.oracle.graal.python.lib.PyObjectReprAsTruffleStringNode;
+import com.oracle.graal.python.lib.PyObjectSetAttr;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PNodeWithContext;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.nodes.call.CallNode;
+import com.oracle.graal.python.nodes.classes.IsSubtypeNode;
+import com.oracle.graal.python.nodes.object.BuiltinClassProfiles.IsBuiltinObjectProfile;
+import com.oracle.graal.python.nodes.object.GetClassNode;
+import com.oracle.graal.python.nodes.statement.AbstractImportNode;
+import com.oracle.graal.python.runtime.PythonContext;
+import com.oracle.graal.python.runtime.PythonOptions;
+import com.oracle.graal.python.runtime.exception.PException;
+import com.oracle.graal.python.runtime.formatting.ErrorMessageFormatter;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.profiles.InlinedConditionProfile;
+import com.oracle.truffle.api.profiles.InlinedLoopConditionProfile;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * Nodes implementing the state transitions of {@link PFuture} and the stepping of {@link PTask}.
+ * They operate on the Java state directly, the Python level methods in {@link FutureBuiltins} and
+ * {@link TaskBuiltins} are thin wrappers around them.
+ */
+public abstract class FutureNodes {
+    static final TruffleString T_ASYNCIO_EXCEPTIONS = tsLiteral("asyncio.exceptions");
+    static final TruffleString T_ASYNCIO_COROUTINES = tsLiteral("asyncio.coroutines");
+    static final TruffleString T_ASYNCIO_BASE_FUTURES = tsLiteral("asyncio.base_futures");
+    static final TruffleString T_ASYNCIO_BASE_TASKS = tsLiteral("asyncio.base_tasks");
+    static final TruffleString T_ASYNCIO_FORMAT_HELPERS = tsLiteral("asyncio.format_helpers");
+    static final TruffleString T_EXTRACT_STACK = tsLiteral("extract_stack");
+    static final TruffleString T_GET_DEBUG = tsLiteral("get_debug");
+    static final TruffleString T_CANCELLED_ERROR = tsLiteral("CancelledError");
+    static final TruffleString T_INVALID_STATE_ERROR = tsLiteral("InvalidStateError");
+    static final TruffleString T_CALL_SOON = tsLiteral("call_soon");
+    static final TruffleString T_CONTEXT = tsLiteral("context");
+    static final TruffleString T_MSG = tsLiteral("msg");
+    static final TruffleString T_CANCEL = tsLiteral("cancel");
+    static final TruffleString T_ADD_DONE_CALLBACK = tsLiteral("add_done_callback");
+    static final TruffleString T_GET_LOOP = tsLiteral("get_loop");
+    static final TruffleString T__LOOP = tsLiteral("_loop");
+    static final TruffleString T_RESULT = tsLiteral("result");
+    static final TruffleString T_SEND = tsLiteral("send");
+    static final TruffleString T_THROW = tsLiteral("throw");
+    static final TruffleString T__ASYNCIO_FUTURE_BLOCKING = tsLiteral("_asyncio_future_blocking");
+
+    private static final ErrorMessageFormatter FORMATTER = new ErrorMessageFormatter();
+
+    /**
+     * Reads an attribute of one of the pure Python asyncio modules. The modules are only needed on
+     * slow paths, such as for raising asyncio specific exceptions, so they are imported lazily.
+     */
+    @TruffleBoundary
+    static Object lookupAsyncioAttribute(TruffleString module, TruffleString name) {
+        Object mod = AbstractImportNode.importModule(module, new TruffleString[]{name});
+        return PyObjectGetAttr.getUncached().execute(null, mod, name);
+    }
+
+    /**
+     * The error messages of asyncio show the repr of futures and tasks, which the message
+     * formatter cannot compute itself.
+     */
+    @TruffleBoundary
+    static TruffleString repr(Object obj) {
+        return PyObjectReprAsTruffleStringNode.getUncached().execute(null, obj);
+    }
+
+    @TruffleBoundary
+    static PException raiseInvalidStateError(Node raisingNode, TruffleString format, Object... args) {
+        Object cls = lookupAsyncioAttribute(T_ASYNCIO_EXCEPTIONS, T_INVALID_STATE_ERROR);
+        Object exc = CallNode.getUncached().execute(cls, toTruffleStringUncached(FORMATTER.format(format, args)));
+        throw raiseExceptionObject(raisingNode, exc);
+    }
+
+    static PException raiseExceptionObject(Node raisingNode, Object exc) {
+        if (exc instanceof PBaseException) {
+            throw PRaiseNode.raise(raisingNode, (PBaseException) exc, PythonOptions.isPExceptionWithJavaStacktrace(PythonLanguage.get(raisingNode)));
+        }
+        throw PRaiseNode.raiseUncached(raisingNode, TypeError, ErrorMessages.INVALID_EXCEPTION_OBJECT);
+    }
+
+    @TruffleBoundary
+    static PDict getCurrentTasks(PythonContext context) {
+        return (PDict) context.lookupBuiltinModule(T__ASYNCIO).getAttribute(AsyncioModuleBuiltins.CURRENT_TASKS_ATTR);
+    }
+
+    /**
+     * Only exact futures and tasks are handled directly, subclasses may override any of the
+     * methods.
+     */
+    static boolean isExactFuture(Node inliningTarget, IsBuiltinObjectProfile profile, Object obj) {
+        return obj instanceof PFuture && (profile.profileObject(inliningTarget, obj, PythonBuiltinClassType.PFuture) || profile.profileObject(inliningTarget, obj, PythonBuiltinClassType.PTask));
+    }
+
+    static TruffleString getStateName(PFuture future) {
+        switch (future.getState()) {
+            case PENDING:
+                return FutureBuiltins.T_PENDING;
+            case CANCELLED:
+                return FutureBuiltins.T_CANCELLED;
+            default:
+                return FutureBuiltins.T_FINISHED;
+        }
+    }
+
+    /**
+     * Binds a future to its loop, which is the current event loop if {@code loop} is {@code None}.
+     */
+    public abstract static class InitFutureNode extends PNodeWithContext {
+        public abstract void execute(VirtualFrame frame, PFuture future, Object loop);
+
+        @Specialization
+        static void init(VirtualFrame frame, PFuture future, Object loopArg,
+                        @Bind("this") Node inliningTarget,
+                        @Cached InlinedConditionProfile noLoopProfile,
+                        @Cached AsyncioModuleBuiltins.GetEventLoop getEventLoop,
+                        @Cached PyObjectCallMethodObjArgs callGetDebug,
+                        @Cached PyObjectIsTrueNode isTrueNode,
+                        @Cached CallNode callNode) {
+            Object loop = loopArg;
+            if (noLoopProfile.profile(inliningTarget, loop == PNone.NONE)) {
+                loop = getEventLoop.execute(frame, null);
+            }
+            future.setLoop(loop);
+            if (isTrueNode.execute(frame, callGetDebug.execute(frame, loop, T_GET_DEBUG))) {
+                future.setSourceTraceback(callNode.execute(frame, lookupAsyncioAttribute(T_ASYNCIO_FORMAT_HELPERS, T_EXTRACT_STACK)));
+            }
+        }
+    }
+
+    /**
+     * Equivalent of {@code loop.call_soon(callback[, arg], context=context)}. If {@code arg} is
+     * {@code null}, the callback is called without arguments.
+     */
+    public abstract static class CallSoonNode extends PNodeWithContext {
+        public abstract void execute(VirtualFrame frame, Object loop, Object callback, Object arg, Object context);
+
+        @Specialization
+        static void callSoon(VirtualFrame frame, Object loop, Object callback, Object arg, Object context,
+                        @Cached PyObjectGetAttr getCallSoon,
+                        @Cached CallNode callNode) {
+            Object callSoon = getCallSoon.execute(frame, loop, T_CALL_SOON);
+            Object[] args = arg == null ? new Object[]{callback} : new Object[]{callback, arg};
+            callNode.execute(frame, callSoon, args, new PKeyword[]{new PKeyword(T_CONTEXT, context)});
+        }
+    }
+
+    public abstract static class ScheduleCallbacksNode extends PNodeWithContext {
+        public abstract void execute(VirtualFrame frame, PFuture future);
+
+        @Specialization
+        static void schedule(VirtualFrame frame, PFuture future,
+                        @Bind("this") Node inliningTarget,
+                        @Cached InlinedLoopConditionProfile loopProfile,
+                        @Cached CallSoonNode callSoonNode) {
+            int count = future.getCallbackCount();
+            Object[] callbacks = future.getCallbacks();
+            Object[] contexts = future.getCallbackContexts();
+            future.clearCallbacks();
+            loopProfile.profileCounted(inliningTarget, count);
+            for (int i = 0; loopProfile.inject(inliningTarget, i < count); i++) {
+                callSoonNode.execute(frame, future.getLoop(), callbacks[i], future, contexts[i]);
+            }
+        }
+    }
+
+    public abstract static class AddDoneCallbackNode extends PNodeWithContext {
+        public abstract void execute(VirtualFrame frame, PFuture future, Object fn, Object context);
+
+        @Specialization
+        void add(VirtualFrame frame, PFuture future, Object fn, Object context,
+                        @Bind("this") Node inliningTarget,
+                        @Cached InlinedConditionProfile pendingProfile,
+                        @Cached CallSoonNode callSoonNode,
+                        @Cached PythonObjectFactory factory) {
+            if (pendingProfile.profile(inliningTarget, future.isPending())) {
+                Object ctx = context;
+                if (ctx == PNone.NONE) {
+                    ctx = factory.copyContextVarsContext(getContext().getThreadState(getLanguage()).getContextVarsContext());
+                }
+                future.addCallback(fn, ctx);
+            } else {
+                callSoonNode.execute(frame, future.getLoop(), fn, future, context);
+            }
+        }
+    }
+
+    public abstract static class FutureSetResultNode extends PNodeWithContext {
+        public abstract void execute(VirtualFrame frame, PFuture future, Object result);
+
+        @Specialization
+        void set(VirtualFrame frame, PFuture future, Object result,
+                        @Cached ScheduleCallbacksNode scheduleCallbacksNode) {
+            if (!future.isPending()) {
+                throw raiseInvalidStateError(this, ErrorMessages.INVALID_STATE_OF_FUTURE, getStateName(future), repr(future));
+            }
+            future.setResult(result);
+            scheduleCallbacksNode.execute(frame, future);
+        }
+    }
+
+    public abstract static class FutureSetExceptionNode extends PNodeWithContext {
+        public abstract void execute(VirtualFrame frame, PFuture future, Object exception);
+
+        @Specialization
+        void set(VirtualFrame frame, PFuture future, Object exception,
+                        @Bind("this") Node inliningTarget,
+                        @Cached TypeNodes.IsTypeNode isTypeNode,
+                        @Cached CallNode callNode,
+                        @Cached IsBuiltinObjectProfile stopIterationProfile,
+                        @Cached GetExceptionTracebackNode getTracebackNode,
+                        @Cached PRaiseNode raiseNode,
+                        @Cached ScheduleCallbacksNode scheduleCallbacksNode) {
+            if (!future.isPending()) {
+                throw raiseInvalidStateError(this, ErrorMessages.INVALID_STATE_OF_FUTURE, getStateName(future), repr(future));
+            }
+            Object exc = exception;
+            if (isTypeNode.execute(exc)) {
+                exc = callNode.execute(frame, exc);
+            }
+            if (!(exc instanceof PBaseException)) {
+                throw raiseNode.raise(TypeError, ErrorMessages.INVALID_EXCEPTION_OBJECT);
+            }
+            if (stopIterationProfile.profileObject(inliningTarget, exc, StopIteration)) {
+                throw raiseNode.raise(TypeError, ErrorMessages.STOP_ITERATION_INTO_FUTURE);
+            }
+            future.setException(exc, getTracebackNode.execute(exc));
+            if (future.getFinalizer() == null) {
+                future.setFinalizer(FutureFinalizer.create(future, getContext()));
+            }
+            scheduleCallbacksNode.execute(frame, future);
+        }
+    }
+
+    /**
+     * Implements {@code Future.cancel}, which is also used by tasks to mark themselves cancelled.
+     */
+    public abstract static class FutureCancelNode extends PNodeWithContext {
+        public abstract boolean execute(VirtualFrame frame, PFuture future, Object msg);
+
+        @Specialization
+        static boolean cancel(VirtualFrame frame, PFuture future, Object msg,
+                        @Cached ScheduleCallbacksNode scheduleCallbacksNode) {
+            future.setLogTraceback(false);
+            if (!future.isPending()) {
+                return false;
+            }
+            future.setCancelled(msg);
+            scheduleCallbacksNode.execute(frame, future);
+            return true;
+        }
+    }
+
+    /**
+     * Calls {@code cancel(msg=msg)} on any future-like object. Tasks are cancelled through their
+     * method, since cancelling a task may need to cancel the future the task waits for.
+     */
+    public abstract static class CancelAnyNode extends PNodeWithContext {
+        public abstract boolean execute(VirtualFrame frame, Object future, Object msg);
+
+        @Specialization
+        static boolean cancel(VirtualFrame frame, Object future, Object msg,
+                        @Bind("this") Node inliningTarget,
+                        @Cached IsBuiltinObjectProfile futureProfile,
+                        @Cached FutureCancelNode futureCancelNode,
+                        @Cached PyObjectGetAttr getCancel,
+                        @Cached CallNode callNode,
+                        @Cached PyObjectIsTrueNode isTrueNode) {
+            if (future instanceof PFuture && futureProfile.profileObject(inliningTarget, future, PythonBuiltinClassType.PFuture)) {
+                return futureCancelNode.execute(frame, (PFuture) future, msg);
+            }
+            Object cancel = getCancel.execute(frame, future, T_CANCEL);
+            return isTrueNode.execute(frame, callNode.execute(frame, cancel, new Object[0], new PKeyword[]{new PKeyword(T_MSG, msg)}));
+        }
+    }
+
+    /**
+     * Creates the {@code CancelledError} to raise for a cancelled future and chains the saved
+     * cancellation exception to it.
+     */
+    public abstract static class MakeCancelledErrorNode extends PNodeWithContext {
+        public abstract Object execute(VirtualFrame frame, PFuture future);
+
+        @Specialization
+        static Object make(VirtualFrame frame, PFuture future,
+                        @Cached CallNode callNode) {
+            Object cls = lookupAsyncioAttribute(T_ASYNCIO_EXCEPTIONS, T_CANCELLED_ERROR);
+            Object msg = future.getCancelMessage();
+            Object exc = msg == PNone.NONE ? callNode.execute(frame, cls) : callNode.execute(frame, cls, msg);
+            if (exc instanceof PBaseException && future.getCancelledExc() instanceof PBaseException) {
+                ((PBaseException) exc).setContext((PBaseException) future.getCancelledExc());
+            }
+            future.setCancelledExc(PNone.NONE);
+            return exc;
+        }
+    }
+
+    public abstract static class IsCancelledErrorNode extends PNodeWithContext {
+        public abstract boolean execute(Object exc);
+
+        @Specialization
+        static boolean check(Object exc,
+                        @Cached GetClassNode getClassNode,
+                        @Cached IsSubtypeNode isSubtypeNode) {
+            return isSubtypeNode.execute(getClassNode.execute(exc), lookupAsyncioAttribute(T_ASYNCIO_EXCEPTIONS, T_CANCELLED_ERROR));
+        }
+    }
+
+    /**
+     * Implements {@code Future.result}.
+     */
+    public abstract static class FutureResultNode extends PNodeWithContext {
+        public abstract Object execute(VirtualFrame frame, PFuture future);
+
+        @Specialization
+        Object result(VirtualFrame frame, PFuture future,
+                        @Bind("this") Node inliningTarget,
+                        @Cached InlinedConditionProfile hasExceptionProfile,
+                        @Cached MakeCancelledErrorNode makeCancelledErrorNode) {
+            switch (future.getState()) {
+                case CANCELLED:
+                    throw raiseExceptionObject(this, makeCancelledErrorNode.execute(frame, future));
+                case PENDING:
+                    throw raiseInvalidStateError(this, ErrorMessages.RESULT_IS_NOT_READY);
+                default:
+                    future.setLogTraceback(false);
+                    Object exception = future.getException();
+                    if (hasExceptionProfile.profile(inliningTarget, exception instanceof PBaseException)) {
+                        PBaseException exc = (PBaseException) exception;
+                        // equivalent of exc.with_traceback(tb)
+                        Object tb = future.getExceptionTraceback();
+                        if (tb instanceof PTraceback) {
+                            exc.setTraceback((PTraceback) tb);
+                        } else {
+                            exc.clearTraceback();
+                        }
+                        throw raiseExceptionObject(this, exc);
+                    }
+                    return future.getResult();
+            }
+        }
+    }
+
+    public abstract static class EnterTaskNode extends PNodeWithContext {
+        public abstract void execute(VirtualFrame frame, PDict currentTasks, Object loop, Object task);
+
+        @Specialization
+        static void enter(VirtualFrame frame, PDict currentTasks, Object loop, Object task,
+                        @Cached PyDictGetItem getItem,
+                        @Cached PyDictSetItem setItem,
+                        @Cached PRaiseNode raiseNode) {
+            Object item = getItem.execute(frame, currentTasks, loop);
+            if (item != null) {
+                throw raiseNode.raise(RuntimeError, ErrorMessages.CANT_ENTER_TASK_ALREADY_RUNNING, task, item);
+            }
+            setItem.execute(frame, currentTasks, loop, task);
+        }
+    }
+
+    public abstract static class LeaveTaskNode extends PNodeWithContext {
+        public abstract void execute(VirtualFrame frame, PDict currentTasks, Object loop, Object task);
+
+        @Specialization
+        static void leave(VirtualFrame frame, PDict currentTasks, Object loop, Object task,
+                        @Cached PyDictGetItem getItem,
+                        @Cached PyDictDelItem delItem,
+                        @Cached PRaiseNode raiseNode) {
+            Object item = getItem.execute(frame, currentTasks, loop);
+            if (item != task) {
+                throw raiseNode.raise(RuntimeError, ErrorMessages.TASK_NOT_ENTERED, task, item == null ? PNone.NONE : item);
+            }
+            delItem.execute(frame, currentTasks, loop);
+        }
+    }
+
+    /**
+     * Resumes the coroutine of a task with {@code send(None)} or, if {@code exc} is not
+     * {@code null}, with {@code throw(exc)}. Builtin coroutines are resumed directly.
+     */
+    public abstract static class ResumeCoroutineNode extends PNodeWithContext {
+        public abstract Object execute(VirtualFrame frame, Object coro, Object exc);
+
+        @Specialization(guards = "exc == null")
+        static Object send(VirtualFrame frame, PGenerator coro, @SuppressWarnings("unused") Object exc,
+                        @Cached CommonGeneratorBuiltins.SendNode sendNode) {
+            return sendNode.execute(frame, coro, PNone.NONE);
+        }
+
+        @Specialization(guards = "exc != null")
+        static Object doThrow(VirtualFrame frame, PGenerator coro, Object exc,
+                        @Cached CommonGeneratorBuiltins.ThrowNode throwNode) {
+            return throwNode.execute(frame, coro, exc, PNone.NO_VALUE, PNone.NO_VALUE);
+        }
+
+        @Fallback
+        static Object doGeneric(VirtualFrame frame, Object coro, Object exc,
+                        @Cached PyObjectCallMethodObjArgs callMethod) {
+            if (exc == null) {
+                return callMethod.execute(frame, coro, T_SEND, PNone.NONE);
+            }
+            return callMethod.execute(frame, coro, T_THROW, exc);
+        }
+    }
+
+    /**
+     * Implements {@code Task.__step}: resumes the coroutine and, depending on what it yielded,
+     * either subscribes the task to the awaited future or reschedules the task.
+     */
+    public abstract static class TaskStepNode extends PNodeWithContext {
+        public abstract void execute(VirtualFrame frame, PTask task, Object exc);
+
+        @Specialization
+        void step(VirtualFrame frame, PTask task, Object excArg,
+                        @Bind("this") Node inliningTarget,
+                        @Cached InlinedConditionProfile mustCancelProfile,
+                        @Cached IsCancelledErrorNode isCancelledErrorNode,
+                        @Cached MakeCancelledErrorNode makeCancelledErrorNode,
+                        @Cached EnterTaskNode enterTaskNode,
+                        @Cached LeaveTaskNode leaveTaskNode,
+                        @Cached ResumeCoroutineNode resumeCoroutineNode,
+                        @Cached TaskExceptionNode taskExceptionNode,
+                        @Cached TaskYieldNode taskYieldNode) {
+            if (!task.isPending()) {
+                throw raiseInvalidStateError(this, ErrorMessages.STEP_ALREADY_DONE, repr(task), repr(excArg == null ? PNone.NONE : excArg));
+            }
+            Object exc = excArg;
+            if (mustCancelProfile.profile(inliningTarget, task.isMustCancel())) {
+                if (exc == null || !isCancelledErrorNode.execute(exc)) {
+                    exc = makeCancelledErrorNode.execute(frame, task);
+                }
+                task.setMustCancel(false);
+            }
+            task.setFutWaiter(PNone.NONE);
+            PDict currentTasks = getCurrentTasks(getContext());
+            Object loop = task.getLoop();
+            enterTaskNode.execute(frame, currentTasks, loop, task);
+            try {
+                Object result;
+                try {
+                    result = resumeCoroutineNode.execute(frame, task.getCoro(), exc);
+                } catch (PException e) {
+                    taskExceptionNode.execute(frame, task, e);
+                    return;
+                }
+                taskYieldNode.execute(frame, task, result);
+            } finally {
+                leaveTaskNode.execute(frame, currentTasks, loop, task);
+            }
+        }
+    }
+
+    /**
+     * Completes a task whose coroutine raised an exception.
+     */
+    abstract static class TaskExceptionNode extends PNodeWithContext {
+        abstract void execute(VirtualFrame frame, PTask task, PException e);
+
+        @Specialization
+        static void handle(VirtualFrame frame, PTask task, PException e,
+                        @Bind("this") Node inliningTarget,
+                        @Cached IsBuiltinObjectProfile stopIterationProfile,
+                        @Cached StopIterationBuiltins.StopIterationValueNode getValueNode,
+                        @Cached IsCancelledErrorNode isCancelledErrorNode,
+                        @Cached GetClassNode getClassNode,
+                        @Cached IsSubtypeNode isSubtypeNode,
+                        @Cached FutureSetResultNode setResultNode,
+                        @Cached FutureSetExceptionNode setExceptionNode,
+                        @Cached FutureCancelNode cancelNode) {
+            if (stopIterationProfile.profileException(inliningTarget, e, StopIteration)) {
+                if (task.isMustCancel()) {
+                    // the task was cancelled right before the coroutine stopped
+                    task.setMustCancel(false);
+                    cancelNode.execute(frame, task, task.getCancelMessage());
+                } else {
+                    setResultNode.execute(frame, task, getValueNode.execute(e.getUnreifiedException()));
+                }
+                return;
+            }
+            PBaseException exc = e.getEscapedException();
+            if (isCancelledErrorNode.execute(exc)) {
+                // save the original exception so that it can be chained later
+                task.setCancelledExc(exc);
+                cancelNode.execute(frame, task, PNone.NONE);
+                return;
+            }
+            setExceptionNode.execute(frame, task, exc);
+            Object excClass = getClassNode.execute(exc);
+            if (isSubtypeNode.execute(excClass, PythonBuiltinClassType.KeyboardInterrupt) || isSubtypeNode.execute(excClass, PythonBuiltinClassType.SystemExit)) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Handles the value yielded by the coroutine of a task.
+     */
+    abstract static class TaskYieldNode extends PNodeWithContext {
+        abstract void execute(VirtualFrame frame, PTask task, Object result);
+
+        @Specialization
+        void handle(VirtualFrame frame, PTask task, Object result,
+                        @Bind("this") Node inliningTarget,
+                        @Cached IsBuiltinObjectProfile futureProfile,
+                        @Cached InlinedConditionProfile noneProfile,
+                        @Cached AddDoneCallbackNode addDoneCallbackNode,
+                        @Cached CancelAnyNode cancelAnyNode,
+                        @Cached PyObjectLookupAttr lookupBlocking,
+                        @Cached PyObjectLookupAttr lookupGetLoop,
+                        @Cached PyObjectGetAttr getAttr,
+                        @Cached PyObjectSetAttr setBlocking,
+                        @Cached PyObjectIsTrueNode isTrueNode,
+                        @Cached CallNode callNode,
+                        @Cached CallSoonNode callSoonNode,
+                        @Cached PythonObjectFactory factory) {
+            if (isExactFuture(inliningTarget, futureProfile, result)) {
+                PFuture future = (PFuture) result;
+                if (future.getLoop() != task.getLoop()) {
+                    scheduleError(frame, task, callSoonNode, factory, ErrorMessages.TASK_GOT_FUTURE_ON_DIFFERENT_LOOP, repr(task), repr(future));
+                } else if (future.isBlocking()) {
+                    if (future == task) {
+                        scheduleError(frame, task, callSoonNode, factory, ErrorMessages.TASK_CANNOT_AWAIT_ON_ITSELF, repr(task));
+                    } else {
+                        future.setBlocking(false);
+                        addDoneCallbackNode.execute(frame, future, task.getWakeupMethod(), task.getContext());
+                        waitFor(frame, task, future, cancelAnyNode);
+                    }
+                } else {
+                    scheduleError(frame, task, callSoonNode, factory, ErrorMessages.YIELD_INSTEAD_OF_YIELD_FROM_IN_TASK, repr(task), repr(future));
+                }
+            } else if (noneProfile.profile(inliningTarget, result == PNone.NONE)) {
+                // bare yield relinquishes control for one event loop iteration
+                callSoonNode.execute(frame, task.getLoop(), task.getStepMethod(), null, task.getContext());
+            } else {
+                Object blocking = lookupBlocking.execute(frame, result, T__ASYNCIO_FUTURE_BLOCKING);
+                if (blocking != PNone.NO_VALUE && blocking != PNone.NONE) {
+                    Object getLoop = lookupGetLoop.execute(frame, result, T_GET_LOOP);
+                    Object loop = getLoop != PNone.NO_VALUE ? callNode.execute(frame, getLoop) : getAttr.execute(frame, result, T__LOOP);
+                    if (loop != task.getLoop()) {
+                        scheduleError(frame, task, callSoonNode, factory, ErrorMessages.TASK_GOT_FUTURE_ON_DIFFERENT_LOOP, repr(task), repr(result));
+                    } else if (isTrueNode.execute(frame, blocking)) {
+                        if (result == task) {
+                            scheduleError(frame, task, callSoonNode, factory, ErrorMessages.TASK_CANNOT_AWAIT_ON_ITSELF, repr(task));
+                        } else {
+                            setBlocking.execute(frame, result, T__ASYNCIO_FUTURE_BLOCKING, false);
+                            Object addDoneCallback = getAttr.execute(frame, result, T_ADD_DONE_CALLBACK);
+                            callNode.execute(frame, addDoneCallback, new Object[]{task.getWakeupMethod()}, new PKeyword[]{new PKeyword(T_CONTEXT, task.getContext())});
+                            waitFor(frame, task, result, cancelAnyNode);
+                        }
+                    } else {
+                        scheduleError(frame, task, callSoonNode, factory, ErrorMessages.YIELD_INSTEAD_OF_YIELD_FROM_IN_TASK, repr(task), repr(result));
+                    }
+                } else if (result instanceof PGenerator && !((PGenerator) result).isCoroutine()) {
+                    scheduleError(frame, task, callSoonNode, factory, ErrorMessages.YIELD_INSTEAD_OF_YIELD_FROM_FOR_GENERATOR, repr(task), repr(result));
+                } else {
+                    scheduleError(frame, task, callSoonNode, factory, ErrorMessages.TASK_GOT_BAD_YIELD, repr(result));
+                }
+            }
+        }
+
+        private static void waitFor(VirtualFrame frame, PTask task, Object future, CancelAnyNode cancelAnyNode) {
+            task.setFutWaiter(future);
+            if (task.isMustCancel()) {
+                if (cancelAnyNode.execute(frame, future, task.getCancelMessage())) {
+                    task.setMustCancel(false);
+                }
+            }
+        }
+
+        private static void scheduleError(VirtualFrame frame, PTask task, CallSoonNode callSoonNode, PythonObjectFactory factory, TruffleString format, Object... args) {
+            PBaseException exc = factory.createBaseException(RuntimeError, format, args);
+            callSoonNode.execute(frame, task.getLoop(), task.getStepMethod(), exc, task.getContext());
+        }
+    }
+
+    /**
+     * Implements {@code Task.__wakeup}: steps the task once the future it waited for is done.
+     */
+    public abstract static class TaskWakeupNode extends PNodeWithContext {
+        public abstract void execute(VirtualFrame frame, PTask task, Object future);
+
+        @Specialization
+        static void wakeup(VirtualFrame frame, PTask task, Object future,
+                        @Bind("this") Node inliningTarget,
+                        @Cached IsBuiltinObjectProfile futureProfile,
+                        @Cached InlinedConditionProfile successProfile,
+                        @Cached FutureResultNode resultNode,
+                        @Cached PyObjectCallMethodObjArgs callResult,
+                        @Cached TaskStepNode stepNode) {
+            Object exc = null;
+            if (isExactFuture(inliningTarget, futureProfile, future)) {
+                PFuture fut = (PFuture) future;
+                if (successProfile.profile(inliningTarget, fut.getState() == PFuture.State.FINISHED && fut.getException() == PNone.NONE)) {
+                    stepNode.execute(frame, task, null);
+                    return;
+                }
+                try {
+                    resultNode.execute(frame, fut);
+                } catch (PException e) {
+                    exc = e.getEscapedException();
+                }
+            } else {
+                try {
+                    callResult.execute(frame, future, T_RESULT);
+                } catch (PException e) {
+                    // this may also be a cancellation
+                    exc = e.getEscapedException();
+                }
+            }
+            stepNode.execute(frame, task, exc);
+        }
+    }
+}
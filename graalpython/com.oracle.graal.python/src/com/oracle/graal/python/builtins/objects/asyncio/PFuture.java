@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.asyncio;
+
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.object.PythonBuiltinObject;
+import com.oracle.graal.python.util.PythonUtils;
+import com.oracle.truffle.api.object.Shape;
+
+/**
+ * The state of an {@code asyncio.Future}. Done callbacks and their contexts are kept in two
+ * parallel arrays that are only allocated once the first callback is added, most futures never
+ * have more than the single wakeup callback of the awaiting task.
+ */
+public class PFuture extends PythonBuiltinObject {
+    public enum State {
+        PENDING,
+        CANCELLED,
+        FINISHED
+    }
+
+    // null until __init__ ran
+    private Object loop;
+    private State state = State.PENDING;
+    private Object result = PNone.NONE;
+    private Object exception = PNone.NONE;
+    private Object exceptionTraceback = PNone.NONE;
+    private Object cancelMessage = PNone.NONE;
+    private Object cancelledExc = PNone.NONE;
+    private Object sourceTraceback = PNone.NONE;
+    private boolean blocking;
+    private boolean logTraceback;
+    // created once something may have to be reported when the future is collected
+    private FutureFinalizer finalizer;
+
+    private Object[] callbacks;
+    private Object[] callbackContexts;
+    private int callbackCount;
+
+    public PFuture(Object cls, Shape instanceShape) {
+        super(cls, instanceShape);
+    }
+
+    public Object getLoop() {
+        return loop;
+    }
+
+    public void setLoop(Object loop) {
+        this.loop = loop;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isPending() {
+        return state == State.PENDING;
+    }
+
+    public Object getResult() {
+        return result;
+    }
+
+    public Object getException() {
+        return exception;
+    }
+
+    public Object getExceptionTraceback() {
+        return exceptionTraceback;
+    }
+
+    public void setResult(Object result) {
+        assert state == State.PENDING;
+        this.result = result;
+        this.state = State.FINISHED;
+        clearPendingTask();
+    }
+
+    public void setException(Object exception, Object traceback) {
+        assert state == State.PENDING;
+        this.exception = exception;
+        this.exceptionTraceback = traceback;
+        this.state = State.FINISHED;
+        this.logTraceback = true;
+        if (finalizer != null) {
+            finalizer.setException(exception);
+        }
+        clearPendingTask();
+    }
+
+    public void setCancelled(Object message) {
+        assert state == State.PENDING;
+        this.cancelMessage = message;
+        this.state = State.CANCELLED;
+        clearPendingTask();
+    }
+
+    private void clearPendingTask() {
+        if (finalizer != null) {
+            finalizer.setPendingTask(false);
+        }
+    }
+
+    public Object getCancelMessage() {
+        return cancelMessage;
+    }
+
+    public void setCancelMessage(Object cancelMessage) {
+        this.cancelMessage = cancelMessage;
+    }
+
+    public Object getCancelledExc() {
+        return cancelledExc;
+    }
+
+    public void setCancelledExc(Object cancelledExc) {
+        this.cancelledExc = cancelledExc;
+    }
+
+    public Object getSourceTraceback() {
+        return sourceTraceback;
+    }
+
+    public void setSourceTraceback(Object sourceTraceback) {
+        this.sourceTraceback = sourceTraceback;
+    }
+
+    public boolean isBlocking() {
+        return blocking;
+    }
+
+    public void setBlocking(boolean blocking) {
+        this.blocking = blocking;
+    }
+
+    public boolean isLogTraceback() {
+        return logTraceback;
+    }
+
+    public void setLogTraceback(boolean logTraceback) {
+        this.logTraceback = logTraceback;
+        if (finalizer != null) {
+            finalizer.setException(logTraceback ? exception : null);
+        }
+    }
+
+    FutureFinalizer getFinalizer() {
+        return finalizer;
+    }
+
+    /**
+     * Registers the finalizer that reports this future when it is collected. Requires the loop to
+     * be set.
+     */
+    void setFinalizer(FutureFinalizer finalizer) {
+        assert this.finalizer == null && loop != null;
+        this.finalizer = finalizer;
+        finalizer.setException(logTraceback ? exception : null);
+    }
+
+    public int getCallbackCount() {
+        return callbackCount;
+    }
+
+    public Object getCallback(int i) {
+        assert i < callbackCount;
+        return callbacks[i];
+    }
+
+    public Object getCallbackContext(int i) {
+        assert i < callbackCount;
+        return callbackContexts[i];
+    }
+
+    public void addCallback(Object callback, Object context) {
+        if (callbacks == null) {
+            callbacks = new Object[1];
+            callbackContexts = new Object[1];
+        } else if (callbackCount == callbacks.length) {
+            int newLength = callbackCount < 4 ? 4 : callbackCount * 2;
+            callbacks = PythonUtils.arrayCopyOf(callbacks, newLength);
+            callbackContexts = PythonUtils.arrayCopyOf(callbackContexts, newLength);
+        }
+        callbacks[callbackCount] = callback;
+        callbackContexts[callbackCount] = context;
+        callbackCount++;
+    }
+
+    /**
+     * Keeps only the callbacks for which {@code keep[i]} is set, preserving their order.
+     */
+    public void retainCallbacks(boolean[] keep) {
+        int j = 0;
+        for (int i = 0; i < callbackCount; i++) {
+            if (keep[i]) {
+                callbacks[j] = callbacks[i];
+                callbackContexts[j] = callbackContexts[i];
+                j++;
+            }
+        }
+        for (int i = j; i < callbackCount; i++) {
+            callbacks[i] = null;
+            callbackContexts[i] = null;
+        }
+        callbackCount = j;
+    }
+
+    Object[] getCallbacks() {
+        return callbacks;
+    }
+
+    Object[] getCallbackContexts() {
+        return callbackContexts;
+    }
+
+    /**
+     * Drops the callbacks from this future. The arrays are not reused, so callers that obtained
+     * them before may keep iterating over them.
+     */
+    void clearCallbacks() {
+        callbacks = null;
+        callbackContexts = null;
+        callbackCount = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "PFuture(" + state + ")";
+    }
+}
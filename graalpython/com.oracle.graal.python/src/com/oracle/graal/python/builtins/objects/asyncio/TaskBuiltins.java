@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.asyncio;
+
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.RuntimeError;
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.TypeError;
+import static com.oracle.graal.python.nodes.BuiltinNames.T_ADD;
+import static com.oracle.graal.python.nodes.BuiltinNames.T__ASYNCIO;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___INIT__;
+import static com.oracle.graal.python.util.PythonUtils.tsLiteral;
+
+import java.util.List;
+
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.modules.AsyncioModuleBuiltins;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.asyncio.FutureNodes.CallSoonNode;
+import com.oracle.graal.python.builtins.objects.asyncio.FutureNodes.CancelAnyNode;
+import com.oracle.graal.python.builtins.objects.asyncio.FutureNodes.InitFutureNode;
+import com.oracle.graal.python.builtins.objects.asyncio.FutureNodes.TaskStepNode;
+import com.oracle.graal.python.builtins.objects.asyncio.FutureNodes.TaskWakeupNode;
+import com.oracle.graal.python.builtins.objects.generator.PGenerator;
+import com.oracle.graal.python.builtins.objects.list.PList;
+import com.oracle.graal.python.builtins.objects.str.StringUtils.SimpleTruffleStringFormatNode;
+import com.oracle.graal.python.lib.PyObjectCallMethodObjArgs;
+import com.oracle.graal.python.lib.PyObjectGetAttr;
+import com.oracle.graal.python.lib.PyObjectIsTrueNode;
+import com.oracle.graal.python.lib.PyObjectStrAsObjectNode;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.call.CallNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonQuaternaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonTernaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.graal.python.runtime.PythonContext;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.profiles.InlinedConditionProfile;
+import com.oracle.truffle.api.strings.TruffleString;
+
+@CoreFunctions(extendClasses = PythonBuiltinClassType.PTask)
+public final class TaskBuiltins extends PythonBuiltins {
+    private static final TruffleString T__STEP = tsLiteral("_step");
+    private static final TruffleString T__WAKEUP = tsLiteral("_wakeup");
+    private static final TruffleString T_POP = tsLiteral("pop");
+    private static final TruffleString T_ISCOROUTINE = tsLiteral("iscoroutine");
+    private static final TruffleString T__TASK_REPR_INFO = tsLiteral("_task_repr_info");
+    private static final TruffleString T__TASK_GET_STACK = tsLiteral("_task_get_stack");
+    private static final TruffleString T__TASK_PRINT_STACK = tsLiteral("_task_print_stack");
+
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return TaskBuiltinsFactory.getFactories();
+    }
+
+    @TruffleBoundary
+    private static Object getAllTasks(PythonContext context) {
+        return context.lookupBuiltinModule(T__ASYNCIO).getAttribute(AsyncioModuleBuiltins.ALL_TASKS_ATTR);
+    }
+
+    @Builtin(name = J___INIT__, minNumOfPositionalArgs = 2, parameterNames = {"$self", "coro"}, keywordOnlyNames = {"loop", "name"})
+    @GenerateNodeFactory
+    public abstract static class InitNode extends PythonQuaternaryBuiltinNode {
+        @Specialization
+        Object init(VirtualFrame frame, PTask self, Object coro, Object loop, Object name,
+                        @Bind("this") Node inliningTarget,
+                        @Cached InlinedConditionProfile nativeCoroutineProfile,
+                        @Cached InitFutureNode initFutureNode,
+                        @Cached CallNode callNode,
+                        @Cached PyObjectIsTrueNode isTrueNode,
+                        @Cached PyObjectStrAsObjectNode strNode,
+                        @Cached PyObjectGetAttr getMethodNode,
+                        @Cached PyObjectCallMethodObjArgs callMethodNode,
+                        @Cached CallSoonNode callSoonNode) {
+            initFutureNode.execute(frame, self, loop instanceof PNone ? PNone.NONE : loop);
+            if (self.getSourceTraceback() instanceof PList) {
+                callMethodNode.execute(frame, self.getSourceTraceback(), T_POP);
+            }
+            if (!nativeCoroutineProfile.profile(inliningTarget, coro instanceof PGenerator && ((PGenerator) coro).isCoroutine())) {
+                Object isCoroutine = FutureNodes.lookupAsyncioAttribute(FutureNodes.T_ASYNCIO_COROUTINES, T_ISCOROUTINE);
+                if (!isTrueNode.execute(frame, callNode.execute(frame, isCoroutine, coro))) {
+                    // prevent logging for a pending task that never ran
+                    self.setLogDestroyPending(false);
+                    throw raise(TypeError, ErrorMessages.A_COROUTINE_WAS_EXPECTED_GOT_S, FutureNodes.repr(coro));
+                }
+            }
+            if (name instanceof PNone) {
+                self.setName(null);
+                self.setNameId(getContext().nextAsyncioTaskNameId());
+            } else {
+                self.setName(strNode.execute(frame, name));
+            }
+            self.setMustCancel(false);
+            self.setFutWaiter(PNone.NONE);
+            self.setCoro(coro);
+            if (self.getFinalizer() == null) {
+                self.setFinalizer(FutureFinalizer.create(self, getContext()));
+            }
+            self.setContext(factory().copyContextVarsContext(getContext().getThreadState(getLanguage()).getContextVarsContext()));
+            if (self.getStepMethod() == null) {
+                self.setStepMethod(getMethodNode.execute(frame, self, T__STEP));
+                self.setWakeupMethod(getMethodNode.execute(frame, self, T__WAKEUP));
+            }
+            callSoonNode.execute(frame, self.getLoop(), self.getStepMethod(), null, self.getContext());
+            callMethodNode.execute(frame, getAllTasks(getContext()), T_ADD, self);
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "_step", minNumOfPositionalArgs = 1, parameterNames = {"$self", "exc"})
+    @GenerateNodeFactory
+    public abstract static class StepNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object step(VirtualFrame frame, PTask self, Object exc,
+                        @Cached TaskStepNode stepNode) {
+            stepNode.execute(frame, self, exc instanceof PNone ? null : exc);
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "_wakeup", minNumOfPositionalArgs = 2)
+    @GenerateNodeFactory
+    public abstract static class WakeupNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object wakeup(VirtualFrame frame, PTask self, Object future,
+                        @Cached TaskWakeupNode wakeupNode) {
+            wakeupNode.execute(frame, self, future);
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "cancel", minNumOfPositionalArgs = 1, parameterNames = {"$self", "msg"})
+    @GenerateNodeFactory
+    public abstract static class CancelNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static boolean cancel(VirtualFrame frame, PTask self, Object msgArg,
+                        @Cached CancelAnyNode cancelAnyNode) {
+            Object msg = msgArg instanceof PNone ? PNone.NONE : msgArg;
+            self.setLogTraceback(false);
+            if (!self.isPending()) {
+                return false;
+            }
+            if (self.getFutWaiter() != PNone.NONE) {
+                if (cancelAnyNode.execute(frame, self.getFutWaiter(), msg)) {
+                    // Leave the waiter set, it may be a task that catches and ignores the
+                    // cancellation, so we may have to cancel it again later.
+                    return true;
+                }
+            }
+            // the step of this task must already be scheduled
+            self.setMustCancel(true);
+            self.setCancelMessage(msg);
+            return true;
+        }
+    }
+
+    @Builtin(name = "set_result", minNumOfPositionalArgs = 2)
+    @GenerateNodeFactory
+    public abstract static class SetResultNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        @SuppressWarnings("unused")
+        Object setResult(PTask self, Object result) {
+            throw raise(RuntimeError, ErrorMessages.TASK_DOES_NOT_SUPPORT_S, "set_result");
+        }
+    }
+
+    @Builtin(name = "set_exception", minNumOfPositionalArgs = 2)
+    @GenerateNodeFactory
+    public abstract static class SetExceptionNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        @SuppressWarnings("unused")
+        Object setException(PTask self, Object exception) {
+            throw raise(RuntimeError, ErrorMessages.TASK_DOES_NOT_SUPPORT_S, "set_exception");
+        }
+    }
+
+    @Builtin(name = "get_coro", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    public abstract static class GetCoroNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object getCoro(PTask self) {
+            return self.getCoro();
+        }
+    }
+
+    @Builtin(name = "get_name", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    public abstract static class GetNameNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object getName(PTask self,
+                        @Cached SimpleTruffleStringFormatNode simpleTruffleStringFormatNode) {
+            if (self.getName() == null) {
+                self.setName(simpleTruffleStringFormatNode.format("Task-%d", self.getNameId()));
+            }
+            return self.getName();
+        }
+    }
+
+    @Builtin(name = "set_name", minNumOfPositionalArgs = 2)
+    @GenerateNodeFactory
+    public abstract static class SetNameNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object setName(VirtualFrame frame, PTask self, Object name,
+                        @Cached PyObjectStrAsObjectNode strNode) {
+            self.setName(strNode.execute(frame, name));
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "get_stack", minNumOfPositionalArgs = 1, parameterNames = {"$self"}, keywordOnlyNames = {"limit"})
+    @GenerateNodeFactory
+    public abstract static class GetStackNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object getStack(VirtualFrame frame, PTask self, Object limit,
+                        @Cached CallNode callNode) {
+            Object getStack = FutureNodes.lookupAsyncioAttribute(FutureNodes.T_ASYNCIO_BASE_TASKS, T__TASK_GET_STACK);
+            return callNode.execute(frame, getStack, self, limit instanceof PNone ? PNone.NONE : limit);
+        }
+    }
+
+    @Builtin(name = "print_stack", minNumOfPositionalArgs = 1, parameterNames = {"$self"}, keywordOnlyNames = {"limit", "file"})
+    @GenerateNodeFactory
+    public abstract static class PrintStackNode extends PythonTernaryBuiltinNode {
+        @Specialization
+        static Object printStack(VirtualFrame frame, PTask self, Object limit, Object file,
+                        @Cached CallNode callNode) {
+            Object printStack = FutureNodes.lookupAsyncioAttribute(FutureNodes.T_ASYNCIO_BASE_TASKS, T__TASK_PRINT_STACK);
+            return callNode.execute(frame, printStack, self, limit instanceof PNone ? PNone.NONE : limit, file instanceof PNone ? PNone.NONE : file);
+        }
+    }
+
+    @Builtin(name = "_repr_info", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    public abstract static class ReprInfoNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object reprInfo(VirtualFrame frame, PTask self,
+                        @Cached CallNode callNode) {
+            return callNode.execute(frame, FutureNodes.lookupAsyncioAttribute(FutureNodes.T_ASYNCIO_BASE_TASKS, T__TASK_REPR_INFO), self);
+        }
+    }
+
+    @Builtin(name = "_coro", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    public abstract static class CoroNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object coro(PTask self) {
+            return self.getCoro();
+        }
+    }
+
+    @Builtin(name = "_fut_waiter", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    public abstract static class FutWaiterNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object futWaiter(PTask self) {
+            return self.getFutWaiter();
+        }
+    }
+
+    @Builtin(name = "_must_cancel", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    public abstract static class MustCancelNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static boolean mustCancel(PTask self) {
+            return self.isMustCancel();
+        }
+    }
+
+    @Builtin(name = "_log_destroy_pending", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true)
+    @GenerateNodeFactory
+    public abstract static class LogDestroyPendingNode extends PythonBinaryBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        static Object get(PTask self, @SuppressWarnings("unused") PNone value) {
+            return self.isLogDestroyPending();
+        }
+
+        @Specialization(guards = "!isNoValue(value)")
+        static Object set(VirtualFrame frame, PTask self, Object value,
+                        @Cached PyObjectIsTrueNode isTrueNode) {
+            self.setLogDestroyPending(isTrueNode.execute(frame, value));
+            return PNone.NONE;
+        }
+    }
+}
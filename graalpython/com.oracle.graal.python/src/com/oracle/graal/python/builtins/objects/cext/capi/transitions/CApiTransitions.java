@@ -43,7 +43,6 @@ package com.oracle.graal.python.builtins.objects.cext.capi.transitions;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.WeakHashMap;
@@ -72,6 +71,7 @@ import com.oracle.graal.python.builtins.objects.getsetdescriptor.DescriptorDelet
 import com.oracle.graal.python.runtime.PythonContext;
 import com.oracle.graal.python.runtime.sequence.storage.NativeSequenceStorage;
 import com.oracle.graal.python.runtime.sequence.storage.SequenceStorage.ListStorageType;
+import com.oracle.graal.python.util.LongObjectHashMap;
 import com.oracle.graal.python.util.PythonUtils;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
@@ -113,7 +113,7 @@ public class CApiTransitions {
     public static final class HandleContext {
 
         public final NativeObjectReferenceArrayWrapper referencesToBeFreed = new NativeObjectReferenceArrayWrapper();
-        public final HashMap<Long, IdReference<?>> nativeLookup = new HashMap<>();
+        public final LongObjectHashMap<IdReference<?>> nativeLookup = new LongObjectHashMap<>();
         public final WeakHashMap<Object, WeakReference<PythonAbstractNativeObject>> managedNativeLookup = new WeakHashMap<>();
         public final ArrayList<PythonObjectReference> nativeHandles = new ArrayList<>();
         public final Set<NativeStorageReference> nativeStorageReferences = new HashSet<>();
@@ -234,6 +234,9 @@ public class CApiTransitions {
                         }
                         context.referenceQueuePollActive = false;
                         LOGGER.fine("collected " + count + " references from native reference queue in " + ((System.nanoTime() - start) / 1000000) + "ms");
+                        if (LOGGER.isLoggable(Level.FINE)) {
+                            logNativeLookupStats(context);
+                        }
                     }
                     return;
                 }
@@ -305,6 +308,12 @@ public class CApiTransitions {
         return logResult(null);
     }
 
+    private static void logNativeLookupStats(HandleContext context) {
+        LongObjectHashMap<IdReference<?>> table = context.nativeLookup;
+        LOGGER.fine(PythonUtils.formatJString("native lookup table: size=%d, capacity=%d, average probe length=%.2f, max probe length=%d", table.size(), table.capacity(),
+                        table.getAverageProbeLength(), table.getMaxProbeLength()));
+    }
+
     @TruffleBoundary
     public static IdReference<?> nativeLookupGet(HandleContext context, long pointer) {
         return context.nativeLookup.get(pointer);
@@ -60,6 +60,7 @@ import com.oracle.graal.python.builtins.objects.function.Signature;
 import com.oracle.graal.python.builtins.objects.object.PythonBuiltinObject;
 import com.oracle.graal.python.builtins.objects.tuple.PTuple;
 import com.oracle.graal.python.compiler.CodeUnit;
+import com.oracle.graal.python.compiler.LazyCodeUnit;
 import com.oracle.graal.python.compiler.OpCodes;
 import com.oracle.graal.python.nodes.PRootNode;
 import com.oracle.graal.python.nodes.bytecode.PBytecodeGeneratorFunctionRootNode;
@@ -401,6 +402,12 @@ public final class PCode extends PythonBuiltinObject {
             for (int i = 0; i < co.constants.length; i++) {
                 if (co.constants[i] instanceof CodeUnit) {
                     context.setCodeUnitFilename((CodeUnit) co.constants[i], filename);
+                } else if (co.constants[i] instanceof LazyCodeUnit) {
+                    // do not force decoding, the lazy unit keeps the filename until it is decoded
+                    LazyCodeUnit lazy = (LazyCodeUnit) co.constants[i];
+                    if (!lazy.setFilenameBeforeDecoding(filename)) {
+                        context.setCodeUnitFilename(lazy.resolve(), filename);
+                    }
                 }
             }
         }
@@ -489,8 +496,8 @@ public final class PCode extends PythonBuiltinObject {
     @TruffleBoundary
     private static Object convertConstantToPythonSpace(RootNode rootNode, Object o) {
         PythonObjectFactory factory = PythonObjectFactory.getUncached();
-        if (o instanceof CodeUnit) {
-            CodeUnit code = ((CodeUnit) o);
+        if (LazyCodeUnit.isCodeUnit(o)) {
+            CodeUnit code = LazyCodeUnit.resolve(o);
             PBytecodeRootNode bytecodeRootNode = PBytecodeRootNode.create(PythonLanguage.get(rootNode), code, getSourceSection(rootNode).getSource());
             return factory.createCode(bytecodeRootNode.getCallTarget(), bytecodeRootNode.getSignature(), code);
         } else if (o instanceof BigInteger) {
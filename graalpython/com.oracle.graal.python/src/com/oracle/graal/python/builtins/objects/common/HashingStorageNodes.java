@@ -81,6 +81,7 @@ import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.object.DynamicObject;
 import com.oracle.truffle.api.object.DynamicObjectLibrary;
 import com.oracle.truffle.api.profiles.InlinedBranchProfile;
+import com.oracle.truffle.api.profiles.InlinedConditionProfile;
 import com.oracle.truffle.api.profiles.InlinedLoopConditionProfile;
 import com.oracle.truffle.api.strings.TruffleString;
 
@@ -529,6 +530,62 @@ public class HashingStorageNodes {
         }
     }
 
+    /**
+     * Moves an existing key to the end or to the beginning of the iteration order. Returns
+     * {@code false} if the key is not present. Ordered dicts get their items only through
+     * {@link HashingStorageSetItem}, so their storage is either empty or an
+     * {@link EconomicMapStorage}, which is reordered in place. Other storages are converted, which
+     * iterators of the old storage cannot detect.
+     */
+    @GenerateUncached
+    public abstract static class HashingStorageMoveToEnd extends Node {
+        public abstract boolean execute(Frame frame, PHashingCollection toUpdate, Object key, boolean last);
+
+        @Specialization
+        static boolean doIt(Frame frame, PHashingCollection toUpdate, Object key, boolean last,
+                        @Bind("this") Node inliningTarget,
+                        @Cached InlinedConditionProfile isEmptyProfile,
+                        @Cached PyObjectHashNode hashNode,
+                        @Cached HashingStorageToEconomicMap toEconomicMapNode,
+                        @Cached ObjectHashMap.MoveToEndNode moveNode) {
+            long hash = hashNode.execute(frame, key);
+            HashingStorage storage = toUpdate.getDictStorage();
+            if (isEmptyProfile.profile(inliningTarget, storage instanceof EmptyStorage)) {
+                return false;
+            }
+            EconomicMapStorage economicMap = toEconomicMapNode.execute(storage);
+            if (economicMap != storage) {
+                toUpdate.setDictStorage(economicMap);
+            }
+            return moveNode.move(frame, economicMap.map, key, hash, last);
+        }
+    }
+
+    /**
+     * Adds one to the int value stored for an existing key with a single lookup and returns one of
+     * the {@link ObjectHashMap.IncrementNode} results. Only {@link EconomicMapStorage} is updated in
+     * place and reports absent keys, for which the caller can set the value without a get. For
+     * other storages and values that are not ints this returns
+     * {@link ObjectHashMap.IncrementNode#UNCHANGED} and the caller is expected to fall back to a get
+     * followed by a set.
+     */
+    @GenerateUncached
+    public abstract static class HashingStorageIncrement extends Node {
+        public abstract int execute(Frame frame, HashingStorage self, Object key, long keyHash);
+
+        @Specialization
+        static int economicMap(Frame frame, EconomicMapStorage self, Object key, long keyHash,
+                        @Cached ObjectHashMap.IncrementNode incrementNode) {
+            return incrementNode.increment(frame, self.map, key, keyHash);
+        }
+
+        @Fallback
+        static int other(@SuppressWarnings("unused") Frame frame, @SuppressWarnings("unused") HashingStorage self, @SuppressWarnings("unused") Object key,
+                        @SuppressWarnings("unused") long keyHash) {
+            return ObjectHashMap.IncrementNode.UNCHANGED;
+        }
+    }
+
     @GenerateUncached
     public abstract static class HashingStorageLen extends Node {
         public static int executeUncached(HashingStorage dictStorage) {
@@ -630,6 +687,8 @@ public class HashingStorageNodes {
     public static final class HashingStorageIterator {
         int index = -1;
         Object currentValue;
+        // ObjectHashMap#reorderCount of an economic map storage when the iteration started
+        int reorderCount;
         final Object[] domKeys;
         final DynamicObjectLibrary dylib;
         final boolean isReverse;
@@ -663,6 +722,15 @@ public class HashingStorageNodes {
         public void setState(int state) {
             index = state;
         }
+
+        /**
+         * Returns {@code true} if the items of {@code storage} changed their positions since this
+         * iterator was created, for example by {@code OrderedDict.move_to_end}. Continuing the
+         * iteration could skip or repeat items in such case.
+         */
+        public boolean isReordered(HashingStorage storage) {
+            return storage instanceof EconomicMapStorage && ((EconomicMapStorage) storage).map.getReorderCount() != reorderCount;
+        }
     }
 
     @GenerateUncached
@@ -686,8 +754,11 @@ public class HashingStorageNodes {
         public abstract HashingStorageIterator executeImpl(HashingStorage storage);
 
         @Specialization
-        static HashingStorageIterator economicMap(@SuppressWarnings("unused") EconomicMapStorage self) {
-            return new HashingStorageIterator();
+        static HashingStorageIterator economicMap(EconomicMapStorage self) {
+            HashingStorageIterator it = new HashingStorageIterator();
+            it.index = self.map.getFirstUsedHash() - 1;
+            it.reorderCount = self.map.getReorderCount();
+            return it;
         }
 
         @Specialization
@@ -719,9 +790,10 @@ public class HashingStorageNodes {
         abstract HashingStorageIterator executeImpl(HashingStorage storage);
 
         @Specialization
-        static HashingStorageIterator economicMap(@SuppressWarnings("unused") EconomicMapStorage self) {
+        static HashingStorageIterator economicMap(EconomicMapStorage self) {
             HashingStorageIterator it = new HashingStorageIterator(true);
             it.index = self.map.usedHashes;
+            it.reorderCount = self.map.getReorderCount();
             return it;
         }
 
@@ -56,6 +56,7 @@ import com.oracle.truffle.api.frame.Frame;
 import com.oracle.truffle.api.nodes.LoopNode;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.profiles.InlinedBranchProfile;
+import com.oracle.truffle.api.profiles.InlinedConditionProfile;
 import com.oracle.truffle.api.profiles.InlinedCountingConditionProfile;
 
 /**
@@ -185,6 +186,19 @@ public final class ObjectHashMap {
     // How many of the buckets in indices array are used. This may be larger by usedHashes if
     // we compacted on deletion.
     int usedIndices;
+    // All the slots in the hashes/keysAndValues arrays before this index are dummy items. This is
+    // a lower bound maintained lazily, so that taking the first item of a map from which items are
+    // repeatedly removed from the front does not need to skip over all the dummy items again.
+    int firstUsedHash;
+    // The slots in the hashes/keysAndValues arrays before this index are free slots reserved by
+    // rehashing for items moved to the front (see MoveToEndNode). Unlike other dummy items, they
+    // have no dummy bucket in the indices array.
+    int frontHeadroom;
+    // Incremented whenever items change their slots in the hashes/keysAndValues arrays, i.e., when
+    // they are moved to the front or to the end and when the arrays are compacted or rehashed.
+    // Iterators use it to detect changes that keep the size of the map, see
+    // HashingStorageNodes.HashingStorageIterator.
+    int reorderCount;
 
     /**
      * If the map contains elements with potential side effects in __eq__, then this map may have to
@@ -247,6 +261,8 @@ public final class ObjectHashMap {
         size = 0;
         usedHashes = 0;
         usedIndices = 0;
+        firstUsedHash = 0;
+        frontHeadroom = 0;
         allocateData(INITIAL_INDICES_SIZE);
     }
 
@@ -255,6 +271,8 @@ public final class ObjectHashMap {
         result.size = size;
         result.usedHashes = usedHashes;
         result.usedIndices = usedIndices;
+        result.firstUsedHash = firstUsedHash;
+        result.frontHeadroom = frontHeadroom;
         result.hashes = PythonUtils.arrayCopyOf(hashes, hashes.length);
         result.indices = PythonUtils.arrayCopyOf(indices, indices.length);
         result.keysAndValues = PythonUtils.arrayCopyOf(keysAndValues, keysAndValues.length);
@@ -328,6 +346,38 @@ public final class ObjectHashMap {
         return size;
     }
 
+    /**
+     * Returns the index of the first slot in the compact arrays that may hold a real item.
+     */
+    int getFirstUsedHash() {
+        int i = firstUsedHash;
+        while (i < usedHashes && getValue(i) == null) {
+            i++;
+        }
+        firstUsedHash = i;
+        return i;
+    }
+
+    /**
+     * Called after the item in the last used slot of the compact arrays was removed. The trailing
+     * dummy items can be dropped, since no bucket in the indices array refers to them anymore.
+     */
+    private void trimRemovedTail() {
+        while (usedHashes > 0 && getValue(usedHashes - 1) == null) {
+            usedHashes--;
+        }
+        if (firstUsedHash > usedHashes) {
+            firstUsedHash = usedHashes;
+        }
+        if (frontHeadroom > usedHashes) {
+            frontHeadroom = usedHashes;
+        }
+    }
+
+    int getReorderCount() {
+        return reorderCount;
+    }
+
     @GenerateUncached
     public abstract static class GetNode extends Node {
         public final Object get(Frame frame, ObjectHashMap map, DictKey key) {
@@ -529,11 +579,15 @@ public final class ObjectHashMap {
     // contains the key that we are inserting
     private void insertNewKey(int[] localIndices, Object key, long keyHash, Object value) {
         assert localIndices == this.indices;
+        putInNewSlot(localIndices, key, keyHash, value, findEmptyBucket(localIndices, keyHash));
+    }
+
+    // Finds the bucket for a key that is not in the map and marks the collisions on the way
+    private static int findEmptyBucket(int[] localIndices, long keyHash) {
         int compactIndex = getIndex(localIndices.length, keyHash);
         int index = localIndices[compactIndex];
         if (index == EMPTY_INDEX) {
-            putInNewSlot(localIndices, key, keyHash, value, compactIndex);
-            return;
+            return compactIndex;
         }
 
         // collision
@@ -545,8 +599,7 @@ public final class ObjectHashMap {
             compactIndex = nextIndex(localIndices.length, compactIndex, perturb);
             index = localIndices[compactIndex];
             if (index == EMPTY_INDEX) {
-                putInNewSlot(localIndices, key, keyHash, value, compactIndex);
-                return;
+                return compactIndex;
             }
             markCollision(localIndices, compactIndex);
         }
@@ -649,6 +702,9 @@ public final class ObjectHashMap {
                 map.setValue(unwrappedIndex, null);
                 map.setKey(unwrappedIndex, null);
                 map.size--;
+                if (unwrappedIndex == map.usedHashes - 1) {
+                    map.trimRemovedTail();
+                }
                 return result;
             }
 
@@ -675,6 +731,9 @@ public final class ObjectHashMap {
                         map.setValue(unwrappedIndex, null);
                         map.setKey(unwrappedIndex, null);
                         map.size--;
+                        if (unwrappedIndex == map.usedHashes - 1) {
+                            map.trimRemovedTail();
+                        }
                         return result;
                     }
                 }
@@ -687,6 +746,181 @@ public final class ObjectHashMap {
         }
     }
 
+    /**
+     * Moves an existing item to the end or to the beginning of the iteration order. The item is
+     * removed and inserted again without another lookup, so its old slot in the compact arrays
+     * becomes a dummy item with a dummy bucket, as if it was removed by {@link RemoveNode}. Returns
+     * {@code false} if the key is not present.
+     */
+    @GenerateUncached
+    public abstract static class MoveToEndNode extends Node {
+        public final boolean move(Frame frame, ObjectHashMap map, Object key, long keyHash, boolean last) {
+            return execute(frame, map, key, keyHash, last);
+        }
+
+        abstract boolean execute(Frame frame, ObjectHashMap map, Object key, long keyHash, boolean last);
+
+        @Specialization
+        public static boolean doMoveWithRestart(Frame frame, ObjectHashMap map, Object key, long keyHash, boolean last,
+                        @Bind("this") Node inliningTarget,
+                        @Cached InlinedBranchProfile lookupRestart,
+                        @Cached InlinedConditionProfile lastProfile,
+                        @Cached PyObjectRichCompareBool.EqNode eqNode) {
+            while (true) {
+                try {
+                    int bucket = map.findBucket(frame, key, keyHash, eqNode);
+                    if (bucket == EMPTY_INDEX) {
+                        return false;
+                    }
+                    if (lastProfile.profile(inliningTarget, last)) {
+                        map.moveToEnd(bucket);
+                    } else {
+                        map.moveToFront(bucket);
+                    }
+                    return true;
+                } catch (RestartLookupException ignore) {
+                    lookupRestart.enter(inliningTarget);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds one to the value of an existing key in place, which needs a single lookup instead of
+     * the get followed by a put that {@code mapping[key] = mapping.get(key, 0) + 1} does. Returns
+     * {@link #ABSENT} if the key is not present and {@link #UNCHANGED} if its value is not an int
+     * that can be incremented without overflowing a Java long, the map is not modified in both
+     * cases.
+     */
+    @GenerateUncached
+    public abstract static class IncrementNode extends Node {
+        public static final int INCREMENTED = 0;
+        public static final int ABSENT = 1;
+        public static final int UNCHANGED = 2;
+
+        public final int increment(Frame frame, ObjectHashMap map, Object key, long keyHash) {
+            return execute(frame, map, key, keyHash);
+        }
+
+        abstract int execute(Frame frame, ObjectHashMap map, Object key, long keyHash);
+
+        @Specialization
+        static int doIncrementWithRestart(Frame frame, ObjectHashMap map, Object key, long keyHash,
+                        @Bind("this") Node inliningTarget,
+                        @Cached InlinedBranchProfile lookupRestart,
+                        @Cached InlinedBranchProfile overflowProfile,
+                        @Cached PyObjectRichCompareBool.EqNode eqNode) {
+            while (true) {
+                try {
+                    int bucket = map.findBucket(frame, key, keyHash, eqNode);
+                    if (bucket == EMPTY_INDEX) {
+                        return ABSENT;
+                    }
+                    int index = unwrapIndex(map.indices[bucket]);
+                    Object value = map.getValue(index);
+                    if (value instanceof Integer intValue) {
+                        int i = intValue;
+                        if (i == Integer.MAX_VALUE) {
+                            overflowProfile.enter(inliningTarget);
+                            map.setValue(index, i + 1L);
+                        } else {
+                            map.setValue(index, i + 1);
+                        }
+                        return INCREMENTED;
+                    } else if (value instanceof Long longValue && longValue != Long.MAX_VALUE) {
+                        map.setValue(index, longValue + 1);
+                        return INCREMENTED;
+                    }
+                    return UNCHANGED;
+                } catch (RestartLookupException ignore) {
+                    lookupRestart.enter(inliningTarget);
+                }
+            }
+        }
+    }
+
+    private int findBucket(Frame frame, Object key, long keyHash, PyObjectRichCompareBool.EqNode eqNode) throws RestartLookupException {
+        assert checkInternalState();
+        int[] localIndices = indices;
+        int indicesLen = localIndices.length;
+        int compactIndex = getIndex(indicesLen, keyHash);
+        long perturb = keyHash;
+        int searchLimit = getBucketsCount(localIndices) + PERTURB_SHIFTS_COUT;
+        for (int i = 0; i < searchLimit; i++) {
+            if (localIndices != indices) {
+                throw RestartLookupException.INSTANCE;
+            }
+            int index = localIndices[compactIndex];
+            if (index == EMPTY_INDEX) {
+                return EMPTY_INDEX;
+            }
+            if (index != DUMMY_INDEX) {
+                if (keysEqual(localIndices, frame, unwrapIndex(index), key, keyHash, eqNode)) {
+                    return compactIndex;
+                } else if (!isCollision(localIndices[compactIndex])) {
+                    return EMPTY_INDEX;
+                }
+            }
+            perturb >>>= PERTURB_SHIFT;
+            compactIndex = nextIndex(indicesLen, compactIndex, perturb);
+        }
+        throw CompilerDirectives.shouldNotReachHere();
+    }
+
+    private void moveToEnd(int bucket) {
+        int index = unwrapIndex(indices[bucket]);
+        if (index == usedHashes - 1) {
+            return;
+        }
+        Object key = getKey(index);
+        Object value = getValue(index);
+        long keyHash = hashes[index];
+        removeAt(bucket, index);
+        if (needsCompaction()) {
+            compact();
+        }
+        if (needsResize(indices)) {
+            rehashAndPut(key, keyHash, value);
+        } else {
+            insertNewKey(indices, key, keyHash, value);
+        }
+        reorderCount++;
+    }
+
+    private void moveToFront(int bucket) {
+        int index = unwrapIndex(indices[bucket]);
+        if (index == getFirstUsedHash()) {
+            return;
+        }
+        Object key = getKey(index);
+        Object value = getValue(index);
+        long keyHash = hashes[index];
+        removeAt(bucket, index);
+        if (index == usedHashes - 1) {
+            trimRemovedTail();
+        }
+        if (frontHeadroom == 0) {
+            // make room for half of the current items in front of the first item
+            rehash(Math.max(1, size >> 1));
+        }
+        // the bucket was accounted for in usedIndices when the headroom was reserved
+        int newIndex = --frontHeadroom;
+        indices[findEmptyBucket(indices, keyHash)] = newIndex;
+        setValue(newIndex, value);
+        setKey(newIndex, key);
+        hashes[newIndex] = keyHash;
+        size++;
+        firstUsedHash = newIndex;
+        reorderCount++;
+    }
+
+    private void removeAt(int bucket, int index) {
+        indices[bucket] = DUMMY_INDEX;
+        setValue(index, null);
+        setKey(index, null);
+        size--;
+    }
+
     private static final class RestartLookupException extends Exception {
         private static final long serialVersionUID = -5517471989238569331L;
         private static final RestartLookupException INSTANCE = new RestartLookupException();
@@ -737,7 +971,17 @@ public final class ObjectHashMap {
      */
     @TruffleBoundary
     private void rehashAndPut(Object newKey, long newKeyHash, Object newValue) {
-        int requiredIndicesSize = usedHashes * GROWTH_RATE;
+        rehash(0);
+        insertNewKey(indices, newKey, newKeyHash, newValue);
+    }
+
+    /**
+     * Rehashes the map, leaving {@code headroom} free slots in front of the first item in the
+     * compact arrays.
+     */
+    @TruffleBoundary
+    private void rehash(int headroom) {
+        int requiredIndicesSize = (usedHashes + headroom) * GROWTH_RATE;
         // We need the hash table of this size, in order to accommodate "requiredIndicesSize" items
         int indicesCapacity = requiredIndicesSize + (requiredIndicesSize / 3);
         if (indicesCapacity < INITIAL_INDICES_SIZE) {
@@ -755,8 +999,12 @@ public final class ObjectHashMap {
         int oldSize = size;
         allocateData(indicesCapacity);
         size = 0;
-        usedHashes = 0;
-        usedIndices = 0;
+        // the slots in front are accounted for as used, so that moving items there needs no checks
+        usedHashes = headroom;
+        usedIndices = headroom;
+        firstUsedHash = headroom;
+        frontHeadroom = headroom;
+        reorderCount++;
         int[] localIndices = this.indices;
         for (int i = 0; i < oldUsedSize; i++) {
             if (getValue(i, oldKeysAndValues) != null) {
@@ -766,7 +1014,6 @@ public final class ObjectHashMap {
         }
         assert size == oldSize : String.format("size=%d, oldSize=%d, oldUsedSize=%d, usedHashes=%d, usedIndices=%d",
                         size, oldSize, oldUsedSize, usedHashes, usedIndices);
-        insertNewKey(localIndices, newKey, newKeyHash, newValue);
     }
 
     @TruffleBoundary
@@ -792,6 +1039,11 @@ public final class ObjectHashMap {
             }
         }
         usedHashes -= dummyCount; // We've "removed" the dummy entries
+        firstUsedHash = 0;
+        reorderCount++;
+        // the reserved slots in front have no dummy buckets
+        dummyCount -= frontHeadroom;
+        frontHeadroom = 0;
         int[] localIndices = indices;
         for (int i = 0; i < localIndices.length; i++) {
             int index = localIndices[i];
@@ -460,6 +460,10 @@ public abstract class SequenceStorageNodes {
             return getGetItemScalarNode().executeDouble(s, normalizeIndex(key, s));
         }
 
+        public final long executeLong(SequenceStorage s, int key) throws UnexpectedResultException {
+            return getGetItemScalarNode().executeLong(s, normalizeIndex(key, s));
+        }
+
         @Specialization
         protected Object doScalarInt(SequenceStorage storage, int idx) {
             return getGetItemScalarNode().execute(storage, normalizeIndex(idx, storage));
@@ -634,6 +638,8 @@ public abstract class SequenceStorageNodes {
 
         public abstract double executeDouble(SequenceStorage s, int idx) throws UnexpectedResultException;
 
+        public abstract long executeLong(SequenceStorage s, int idx) throws UnexpectedResultException;
+
         @Specialization
         protected static boolean doBoolean(BoolSequenceStorage storage, int idx) {
             return storage.getBoolItemNormalized(idx);
@@ -996,6 +1002,12 @@ public abstract class SequenceStorageNodes {
             return execute(null, s, key, value);
         }
 
+        protected abstract SequenceStorage execute(VirtualFrame frame, SequenceStorage s, int key, long value);
+
+        public final SequenceStorage execute(SequenceStorage s, int key, long value) {
+            return execute(null, s, key, value);
+        }
+
         @Specialization
         protected SequenceStorage doScalarInt(IntSequenceStorage storage, int idx, int value) {
             int normalized = normalizeIndex(idx, storage);
@@ -1010,6 +1022,13 @@ public abstract class SequenceStorageNodes {
             return storage;
         }
 
+        @Specialization
+        protected SequenceStorage doScalarInt(LongSequenceStorage storage, int idx, long value) {
+            int normalized = normalizeIndex(idx, storage);
+            storage.setLongItemNormalized(normalized, value);
+            return storage;
+        }
+
         @Specialization
         @InliningCutoff
         protected SequenceStorage doScalarInt(SequenceStorage storage, int idx, Object value,
@@ -40,27 +40,41 @@
  */
 package com.oracle.graal.python.builtins.objects.deque;
 
-import java.util.ArrayDeque;
-import java.util.Iterator;
+import java.util.Arrays;
 
 import com.oracle.graal.python.builtins.objects.object.PythonBuiltinObject;
+import com.oracle.graal.python.runtime.sequence.storage.SequenceStorage.ListStorageType;
+import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.object.Shape;
 
 /**
- * A simple wrapper around Java's {@link ArrayDeque}.
+ * A deque backed by a circular array. The array's capacity is always a power of two, so logical
+ * indices can be mapped to slots with a simple mask. Like the list storages, the array is
+ * specialized to {@code int[]}, {@code long[]} or {@code double[]} while all elements have the
+ * corresponding type, and is generalized to {@code Object[]} once an incompatible element is
+ * added.
  */
 public final class PDeque extends PythonBuiltinObject {
-    final ArrayDeque<Object> data = createArrayDeque();
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * One of {@code int[]}, {@code long[]}, {@code double[]} or {@code Object[]} depending on
+     * {@link #storageType}, or {@code null} if the storage type is {@link ListStorageType#Empty}.
+     */
+    private Object store;
+    private ListStorageType storageType = ListStorageType.Empty;
+    private int capacity;
+    private int head;
+    private int size;
     private int maxLength = -1;
 
     /**
      * This is a modification counter and used to produce exceptions if the deque is modified during
-     * iteration. We need it because {@link ArrayDeque}'s iterators have a slightly different
-     * behavior. E.g. if you iterate the deque to the end and the last element comparison would
-     * modify the deque, then {@link ArrayDeque} doesn't complain while CPython's implementation
-     * still complains. The main difference is that CPython will always check if the deque was
-     * modifed right after it called out for {@code __eq__}.
+     * iteration. The main difference to Java's fail-fast iterators is that CPython will always
+     * check if the deque was modifed right after it called out for {@code __eq__}. Operations that
+     * do not change the number of elements (e.g. replacing an item or reversing) do not change the
+     * state.
      */
     private int state;
 
@@ -68,13 +82,8 @@ public final class PDeque extends PythonBuiltinObject {
         super(cls, instanceShape);
     }
 
-    @TruffleBoundary
-    private static ArrayDeque<Object> createArrayDeque() {
-        return new ArrayDeque<>();
-    }
-
     int getSize() {
-        return data.size();
+        return size;
     }
 
     int getMaxLength() {
@@ -85,55 +94,250 @@ public final class PDeque extends PythonBuiltinObject {
         this.maxLength = maxLength;
     }
 
+    private int slot(int idx) {
+        return (head + idx) & (capacity - 1);
+    }
+
+    private static ListStorageType storageTypeFor(Object value) {
+        if (value instanceof Integer) {
+            return ListStorageType.Int;
+        } else if (value instanceof Long) {
+            return ListStorageType.Long;
+        } else if (value instanceof Double) {
+            return ListStorageType.Double;
+        }
+        return ListStorageType.Generic;
+    }
+
+    private static Object allocate(ListStorageType type, int cap) {
+        switch (type) {
+            case Int:
+                return new int[cap];
+            case Long:
+                return new long[cap];
+            case Double:
+                return new double[cap];
+            default:
+                return new Object[cap];
+        }
+    }
+
+    private Object readSlot(int slot) {
+        switch (storageType) {
+            case Int:
+                return ((int[]) store)[slot];
+            case Long:
+                return ((long[]) store)[slot];
+            case Double:
+                return ((double[]) store)[slot];
+            default:
+                return ((Object[]) store)[slot];
+        }
+    }
+
+    /**
+     * Writes a value that is known to be accepted by the current storage type (see
+     * {@link #ensureAccepts(Object)}).
+     */
+    private void writeSlot(int slot, Object value) {
+        switch (storageType) {
+            case Int:
+                ((int[]) store)[slot] = (int) value;
+                break;
+            case Long:
+                ((long[]) store)[slot] = value instanceof Integer ? (int) value : (long) value;
+                break;
+            case Double:
+                ((double[]) store)[slot] = (double) value;
+                break;
+            default:
+                ((Object[]) store)[slot] = value;
+                break;
+        }
+    }
+
+    private void copySlot(int from, int to) {
+        switch (storageType) {
+            case Int:
+                int[] ints = (int[]) store;
+                ints[to] = ints[from];
+                break;
+            case Long:
+                long[] longs = (long[]) store;
+                longs[to] = longs[from];
+                break;
+            case Double:
+                double[] doubles = (double[]) store;
+                doubles[to] = doubles[from];
+                break;
+            default:
+                Object[] objects = (Object[]) store;
+                objects[to] = objects[from];
+                break;
+        }
+    }
+
+    /**
+     * Drops references to removed elements so that they can be collected. Primitive storages don't
+     * need to be cleared.
+     */
+    private void clearSlots(int from, int to) {
+        if (storageType == ListStorageType.Generic) {
+            Arrays.fill((Object[]) store, from, to, null);
+        }
+    }
+
+    private void ensureAccepts(Object value) {
+        switch (storageType) {
+            case Empty:
+                storageType = storageTypeFor(value);
+                capacity = INITIAL_CAPACITY;
+                store = allocate(storageType, capacity);
+                head = 0;
+                return;
+            case Int:
+                if (!(value instanceof Integer)) {
+                    generalize(value instanceof Long ? ListStorageType.Long : ListStorageType.Generic);
+                }
+                return;
+            case Long:
+                if (!(value instanceof Integer || value instanceof Long)) {
+                    generalize(ListStorageType.Generic);
+                }
+                return;
+            case Double:
+                if (!(value instanceof Double)) {
+                    generalize(ListStorageType.Generic);
+                }
+                return;
+            default:
+                return;
+        }
+    }
+
+    @TruffleBoundary
+    private void generalize(ListStorageType newType) {
+        assert newType.generalizesFrom(storageType);
+        Object newStore = allocate(newType, capacity);
+        if (newType == ListStorageType.Long) {
+            assert storageType == ListStorageType.Int;
+            int[] ints = (int[]) store;
+            long[] longs = (long[]) newStore;
+            for (int i = 0; i < size; i++) {
+                longs[i] = ints[slot(i)];
+            }
+        } else {
+            Object[] objects = (Object[]) newStore;
+            for (int i = 0; i < size; i++) {
+                objects[i] = readSlot(slot(i));
+            }
+        }
+        store = newStore;
+        storageType = newType;
+        head = 0;
+    }
+
+    /**
+     * Copies the elements in logical order to {@code dst} which must have the same type as the
+     * current store.
+     */
+    private void copyTo(Object dst, int dstPos) {
+        int first = Math.min(size, capacity - head);
+        System.arraycopy(store, head, dst, dstPos, first);
+        System.arraycopy(store, 0, dst, dstPos + first, size - first);
+    }
+
+    private void ensureCapacity() {
+        if (size == capacity) {
+            grow();
+        }
+    }
+
     @TruffleBoundary
+    private void grow() {
+        if (capacity >= (1 << 30)) {
+            throw new OutOfMemoryError();
+        }
+        int newCapacity = capacity << 1;
+        Object newStore = allocate(storageType, newCapacity);
+        copyTo(newStore, 0);
+        store = newStore;
+        capacity = newCapacity;
+        head = 0;
+    }
+
     void append(Object value) {
-        assert maxLength == -1 || data.size() <= maxLength;
-        data.addLast(value);
-        if (maxLength != -1 && data.size() > maxLength) {
+        assert maxLength == -1 || size <= maxLength;
+        ensureAccepts(value);
+        ensureCapacity();
+        writeSlot(slot(size), value);
+        size++;
+        if (maxLength != -1 && size > maxLength) {
             popLeft();
         } else {
             state++;
         }
-
-        assert maxLength == -1 || data.size() <= maxLength;
+        assert maxLength == -1 || size <= maxLength;
     }
 
-    @TruffleBoundary
     void appendLeft(Object value) {
-        assert maxLength == -1 || data.size() <= maxLength;
-        data.addFirst(value);
-        if (maxLength != -1 && data.size() > maxLength) {
+        assert maxLength == -1 || size <= maxLength;
+        ensureAccepts(value);
+        ensureCapacity();
+        head = (head - 1) & (capacity - 1);
+        writeSlot(head, value);
+        size++;
+        if (maxLength != -1 && size > maxLength) {
             pop();
         } else {
             state++;
         }
-        assert maxLength == -1 || data.size() <= maxLength;
+        assert maxLength == -1 || size <= maxLength;
     }
 
     /**
      * Returns {@code null} if empty.
      */
-    @TruffleBoundary
     Object pop() {
         state++;
-        return data.pollLast();
+        if (size == 0) {
+            return null;
+        }
+        int last = slot(size - 1);
+        Object value = readSlot(last);
+        clearSlots(last, last + 1);
+        size--;
+        return value;
     }
 
     /**
      * Returns {@code null} if empty.
      */
-    @TruffleBoundary
     Object popLeft() {
         state++;
-        return data.pollFirst();
+        if (size == 0) {
+            return null;
+        }
+        Object value = readSlot(head);
+        clearSlots(head, head + 1);
+        head = (head + 1) & (capacity - 1);
+        size--;
+        return value;
     }
 
     /**
      * Returns {@code null} if empty.
      */
-    @TruffleBoundary
     Object peekLeft() {
-        return data.peekFirst();
+        if (size == 0) {
+            return null;
+        }
+        return readSlot(head);
+    }
+
+    public Object getItem(int idx) {
+        assert 0 <= idx && idx < size;
+        return readSlot(slot(idx));
     }
 
     @TruffleBoundary
@@ -145,51 +349,153 @@ public final class PDeque extends PythonBuiltinObject {
 
     @TruffleBoundary
     void addAll(PDeque other) {
-        for (Object e : other.data) {
-            append(e);
+        assert other != this;
+        int n = other.size;
+        for (int i = 0; i < n; i++) {
+            append(other.getItem(i));
         }
     }
 
     @TruffleBoundary
-    public Iterator<Object> iterator() {
-        return data.iterator();
-    }
-
-    @TruffleBoundary
-    public Iterator<Object> reverseIterator() {
-        return data.descendingIterator();
+    public Object[] toArray() {
+        Object[] result = new Object[size];
+        if (storageType == ListStorageType.Generic) {
+            copyTo(result, 0);
+        } else {
+            for (int i = 0; i < size; i++) {
+                result[i] = readSlot(slot(i));
+            }
+        }
+        return result;
     }
 
-    @TruffleBoundary
     public void clear() {
-        data.clear();
+        store = null;
+        storageType = ListStorageType.Empty;
+        capacity = 0;
+        head = 0;
+        size = 0;
         state++;
     }
 
+    /**
+     * Replaces the item at index {@code idx} or removes it if {@code value == null}.
+     */
     @TruffleBoundary
     public void setItem(int idx, Object value) {
-        assert 0 <= idx && idx < data.size();
-        int n = data.size() - idx - 1;
-        Object[] savedItems = new Object[n];
-        for (int i = 0; i < savedItems.length; i++) {
-            savedItems[i] = data.pollLast();
-        }
-        // this removes the item we want to replace
-        data.pollLast();
-        assert data.size() == idx;
+        assert 0 <= idx && idx < size;
         if (value != null) {
-            data.addLast(value);
+            ensureAccepts(value);
+            writeSlot(slot(idx), value);
+            return;
+        }
+        // removal case: shift the shorter side of the deque over the removed element
+        if (idx < size / 2) {
+            for (int i = idx; i > 0; i--) {
+                copySlot(slot(i - 1), slot(i));
+            }
+            clearSlots(head, head + 1);
+            head = (head + 1) & (capacity - 1);
         } else {
-            // removal case: this alters the number of elements, so modify the state
-            state++;
+            for (int i = idx; i < size - 1; i++) {
+                copySlot(slot(i + 1), slot(i));
+            }
+            int last = slot(size - 1);
+            clearSlots(last, last + 1);
+        }
+        size--;
+        // this alters the number of elements, so modify the state
+        state++;
+    }
+
+    /**
+     * Rotates the deque {@code n} steps to the right (or to the left if {@code n} is negative).
+     * Rotating a full ring just moves the head; otherwise the elements are moved between both ends
+     * in contiguous blocks.
+     */
+    @TruffleBoundary
+    void rotate(int n) {
+        if (size <= 1) {
+            return;
+        }
+        int k = (int) (((long) n % size + size) % size);
+        if (k == 0) {
+            return;
         }
+        state++;
+        if (size == capacity) {
+            head = slot(size - k);
+        } else if (k <= size / 2) {
+            rotateRight(k);
+        } else {
+            rotateLeft(size - k);
+        }
+    }
 
-        // re-add saved items
-        for (int i = savedItems.length - 1; i >= 0; i--) {
-            data.addLast(savedItems[i]);
+    private void rotateRight(int k) {
+        int mask = capacity - 1;
+        int free = capacity - size;
+        int remaining = k;
+        while (remaining > 0) {
+            int srcEnd = slot(size - 1);
+            int dstEnd = (head - 1) & mask;
+            int chunk = Math.min(Math.min(remaining, free), Math.min(srcEnd + 1, dstEnd + 1));
+            System.arraycopy(store, srcEnd - chunk + 1, store, dstEnd - chunk + 1, chunk);
+            clearSlots(srcEnd - chunk + 1, srcEnd + 1);
+            head = (head - chunk) & mask;
+            remaining -= chunk;
+        }
+    }
+
+    private void rotateLeft(int k) {
+        int mask = capacity - 1;
+        int free = capacity - size;
+        int remaining = k;
+        while (remaining > 0) {
+            int src = head;
+            int dst = slot(size);
+            int chunk = Math.min(Math.min(remaining, free), Math.min(capacity - src, capacity - dst));
+            System.arraycopy(store, src, store, dst, chunk);
+            clearSlots(src, src + chunk);
+            head = (head + chunk) & mask;
+            remaining -= chunk;
+        }
+    }
+
+    @TruffleBoundary
+    void reverse() {
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            int a = slot(i);
+            int b = slot(j);
+            switch (storageType) {
+                case Int:
+                    int[] ints = (int[]) store;
+                    int tmpInt = ints[a];
+                    ints[a] = ints[b];
+                    ints[b] = tmpInt;
+                    break;
+                case Long:
+                    long[] longs = (long[]) store;
+                    long tmpLong = longs[a];
+                    longs[a] = longs[b];
+                    longs[b] = tmpLong;
+                    break;
+                case Double:
+                    double[] doubles = (double[]) store;
+                    double tmpDouble = doubles[a];
+                    doubles[a] = doubles[b];
+                    doubles[b] = tmpDouble;
+                    break;
+                case Generic:
+                    Object[] objects = (Object[]) store;
+                    Object tmp = objects[a];
+                    objects[a] = objects[b];
+                    objects[b] = tmp;
+                    break;
+                default:
+                    throw CompilerDirectives.shouldNotReachHere();
+            }
         }
-        assert maxLength == -1 || data.size() <= maxLength;
-        assert value != null && data.size() == n + idx + 1 || value == null && data.size() == n + idx;
     }
 
     public int getState() {
@@ -40,40 +40,47 @@
  */
 package com.oracle.graal.python.builtins.objects.deque;
 
-import java.util.ArrayDeque;
-import java.util.Iterator;
+import java.util.ConcurrentModificationException;
 
 import com.oracle.graal.python.builtins.objects.iterator.PBuiltinIterator;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.object.Shape;
 
 /**
- * A simple wrapper around Java's {@link ArrayDeque}.
+ * An index-based iterator over a {@link PDeque}. The position is derived from the number of
+ * remaining elements, which is only valid as long as the deque's state did not change.
  */
 public final class PDequeIter extends PBuiltinIterator {
     final PDeque deque;
     final int startState;
-    private final Iterator<Object> iterator;
+    private final boolean reverse;
     private int remaining;
 
     public PDequeIter(Object cls, Shape instanceShape, PDeque deque, boolean reverse) {
         super(cls, instanceShape);
         this.deque = deque;
-        this.iterator = reverse ? deque.reverseIterator() : deque.iterator();
+        this.reverse = reverse;
         this.remaining = deque.getSize();
         this.startState = deque.getState();
     }
 
-    @TruffleBoundary
     boolean hasNext() {
-        return iterator.hasNext();
+        return remaining > 0;
     }
 
-    @TruffleBoundary
     Object next() {
-        Object next = iterator.next();
+        int size = deque.getSize();
+        int idx = reverse ? remaining - 1 : size - remaining;
+        if (idx < 0 || idx >= size) {
+            throw concurrentModification();
+        }
         remaining--;
-        return next;
+        return deque.getItem(idx);
+    }
+
+    @TruffleBoundary
+    private static ConcurrentModificationException concurrentModification() {
+        return new ConcurrentModificationException();
     }
 
     int lengthHint() {
@@ -0,0 +1,365 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.dict;
+
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.KeyError;
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.TypeError;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___EQ__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___INIT__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___OR__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___REDUCE__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___REPR__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___ROR__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.T_UPDATE;
+import static com.oracle.graal.python.nodes.StringLiterals.T_ELLIPSIS;
+
+import java.util.List;
+
+import com.oracle.graal.python.annotations.ArgumentClinic;
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.PNotImplemented;
+import com.oracle.graal.python.builtins.objects.common.HashingStorage;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageAddAllToOther;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageCopy;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageDelItem;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageEq;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageGetIterator;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageGetReverseIterator;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIterator;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorKey;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorNext;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorValue;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageLen;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageMoveToEnd;
+import com.oracle.graal.python.builtins.objects.function.PKeyword;
+import com.oracle.graal.python.builtins.objects.str.StringUtils.SimpleTruffleStringFormatNode;
+import com.oracle.graal.python.builtins.objects.type.SpecialMethodSlot;
+import com.oracle.graal.python.builtins.objects.type.TypeNodes;
+import com.oracle.graal.python.lib.PyObjectCallMethodObjArgs;
+import com.oracle.graal.python.lib.PyObjectGetIter;
+import com.oracle.graal.python.lib.PyObjectReprAsTruffleStringNode;
+import com.oracle.graal.python.lib.PyObjectRichCompareBool;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.builtins.ListNodes.ConstructListNode;
+import com.oracle.graal.python.nodes.call.CallNode;
+import com.oracle.graal.python.nodes.call.special.CallTernaryMethodNode;
+import com.oracle.graal.python.nodes.call.special.LookupSpecialMethodSlotNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonBinaryClinicBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonTernaryClinicBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonVarargsBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.clinic.ArgumentClinicProvider;
+import com.oracle.graal.python.nodes.object.BuiltinClassProfiles.IsBuiltinObjectProfile;
+import com.oracle.graal.python.nodes.object.GetClassNode;
+import com.oracle.graal.python.nodes.object.GetDictIfExistsNode;
+import com.oracle.graal.python.nodes.object.InlinedGetClassNode;
+import com.oracle.graal.python.runtime.PythonContext;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.ImportStatic;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * Builtins of {@code collections.OrderedDict} that differ from {@code dict}. The order is kept by
+ * the dict storage itself, {@code move_to_end} and {@code popitem(last=False)} reorder the storage
+ * in amortized constant time.
+ */
+@CoreFunctions(extendClasses = PythonBuiltinClassType.POrderedDict)
+public final class OrderedDictBuiltins extends PythonBuiltins {
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return OrderedDictBuiltinsFactory.getFactories();
+    }
+
+    @Builtin(name = J___INIT__, minNumOfPositionalArgs = 1, takesVarArgs = true, takesVarKeywordArgs = true)
+    @GenerateNodeFactory
+    abstract static class InitNode extends PythonVarargsBuiltinNode {
+        @Specialization
+        Object init(VirtualFrame frame, POrderedDict self, Object[] args, PKeyword[] kwargs,
+                        @Cached UpdateItemsNode updateItemsNode) {
+            if (args.length > 1) {
+                throw raise(TypeError, ErrorMessages.EXPECTED_AT_MOST_D_ARGS_GOT_D, "OrderedDict", 1, args.length);
+            }
+            updateItemsNode.execute(frame, self, args.length == 1 ? args[0] : PNone.NO_VALUE, kwargs);
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "update", minNumOfPositionalArgs = 1, takesVarArgs = true, takesVarKeywordArgs = true)
+    @GenerateNodeFactory
+    abstract static class UpdateNode extends PythonVarargsBuiltinNode {
+        @Specialization
+        Object update(VirtualFrame frame, POrderedDict self, Object[] args, PKeyword[] kwargs,
+                        @Cached UpdateItemsNode updateItemsNode) {
+            if (args.length > 1) {
+                throw raise(TypeError, ErrorMessages.EXPECTED_AT_MOST_D_ARGS_GOT_D, "update", 1, args.length);
+            }
+            updateItemsNode.execute(frame, self, args.length == 1 ? args[0] : PNone.NO_VALUE, kwargs);
+            return PNone.NONE;
+        }
+    }
+
+    /**
+     * {@code MutableMapping.update}, which CPython uses for {@code OrderedDict.__init__} and
+     * {@code OrderedDict.update}. Subclasses may override {@code __setitem__}, so the items are set
+     * through it. The items are collected into a temporary storage first, so a key repeated in a
+     * sequence of pairs is set only once, with its last value. Exact ordered dicts are updated like
+     * dicts.
+     */
+    @ImportStatic(SpecialMethodSlot.class)
+    abstract static class UpdateItemsNode extends Node {
+        abstract void execute(VirtualFrame frame, POrderedDict self, Object other, PKeyword[] kwargs);
+
+        @Specialization
+        static void update(VirtualFrame frame, POrderedDict self, Object other, PKeyword[] kwargs,
+                        @Bind("this") Node inliningTarget,
+                        @Cached IsBuiltinObjectProfile isBuiltinProfile,
+                        @Cached DictNodes.UpdateNode dictUpdateNode,
+                        @Cached HashingStorage.InitNode initNode,
+                        @Cached HashingStorageAddAllToOther addAllToOtherNode,
+                        @Cached InlinedGetClassNode getClassNode,
+                        @Cached(parameters = "SetItem") LookupSpecialMethodSlotNode lookupSetItem,
+                        @Cached CallTernaryMethodNode callSetItem,
+                        @Cached HashingStorageGetIterator getIterator,
+                        @Cached HashingStorageIteratorNext iterNext,
+                        @Cached HashingStorageIteratorKey iterKey,
+                        @Cached HashingStorageIteratorValue iterValue) {
+            if (isBuiltinProfile.profileObject(inliningTarget, self, PythonBuiltinClassType.POrderedDict)) {
+                if (other != PNone.NO_VALUE) {
+                    dictUpdateNode.execute(frame, self, other);
+                }
+                if (kwargs.length > 0) {
+                    addAllToOtherNode.execute(frame, initNode.execute(frame, PNone.NO_VALUE, kwargs), self);
+                }
+                return;
+            }
+            HashingStorage items = initNode.execute(frame, other, kwargs);
+            Object setItem = lookupSetItem.execute(frame, getClassNode.execute(inliningTarget, self), self);
+            HashingStorageIterator it = getIterator.execute(items);
+            while (iterNext.execute(items, it)) {
+                callSetItem.execute(frame, setItem, self, iterKey.execute(items, it), iterValue.execute(items, it));
+            }
+        }
+    }
+
+    @Builtin(name = "move_to_end", minNumOfPositionalArgs = 2, parameterNames = {"$self", "key", "last"})
+    @ArgumentClinic(name = "last", conversion = ArgumentClinic.ClinicConversion.Boolean, defaultValue = "true")
+    @GenerateNodeFactory
+    abstract static class MoveToEndNode extends PythonTernaryClinicBuiltinNode {
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return OrderedDictBuiltinsClinicProviders.MoveToEndNodeClinicProviderGen.INSTANCE;
+        }
+
+        @Specialization
+        Object moveToEnd(VirtualFrame frame, POrderedDict self, Object key, boolean last,
+                        @Cached HashingStorageMoveToEnd moveToEndNode) {
+            if (!moveToEndNode.execute(frame, self, key, last)) {
+                throw raise(KeyError, new Object[]{key});
+            }
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "popitem", minNumOfPositionalArgs = 1, parameterNames = {"$self", "last"})
+    @ArgumentClinic(name = "last", conversion = ArgumentClinic.ClinicConversion.Boolean, defaultValue = "true")
+    @GenerateNodeFactory
+    abstract static class PopItemNode extends PythonBinaryClinicBuiltinNode {
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return OrderedDictBuiltinsClinicProviders.PopItemNodeClinicProviderGen.INSTANCE;
+        }
+
+        @Specialization
+        Object popItem(VirtualFrame frame, POrderedDict self, boolean last,
+                        @Cached HashingStorageGetIterator getIterator,
+                        @Cached HashingStorageGetReverseIterator getReverseIterator,
+                        @Cached HashingStorageIteratorNext iterNext,
+                        @Cached HashingStorageIteratorKey iterKey,
+                        @Cached HashingStorageIteratorValue iterValue,
+                        @Cached HashingStorageDelItem delItem) {
+            HashingStorage storage = self.getDictStorage();
+            HashingStorageIterator it = last ? getReverseIterator.execute(storage) : getIterator.execute(storage);
+            if (!iterNext.execute(storage, it)) {
+                throw raise(KeyError, ErrorMessages.IS_EMPTY, "dictionary");
+            }
+            Object key = iterKey.execute(storage, it);
+            Object value = iterValue.execute(storage, it);
+            delItem.execute(frame, storage, key, self);
+            return factory().createTuple(new Object[]{key, value});
+        }
+    }
+
+    @Builtin(name = J___EQ__, minNumOfPositionalArgs = 2)
+    @GenerateNodeFactory
+    abstract static class EqNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static boolean eq(VirtualFrame frame, POrderedDict self, PDict other,
+                        @Cached HashingStorageEq storageEqNode,
+                        @Cached HashingStorageGetIterator getIterator,
+                        @Cached HashingStorageIteratorNext iterNext,
+                        @Cached HashingStorageIteratorKey iterKey,
+                        @Cached PyObjectRichCompareBool.EqNode eqNode) {
+            HashingStorage selfStorage = self.getDictStorage();
+            HashingStorage otherStorage = other.getDictStorage();
+            if (!storageEqNode.execute(frame, selfStorage, otherStorage)) {
+                return false;
+            }
+            if (!(other instanceof POrderedDict)) {
+                return true;
+            }
+            // equal ordered dicts must also have the same order of keys
+            HashingStorageIterator selfIt = getIterator.execute(selfStorage);
+            HashingStorageIterator otherIt = getIterator.execute(otherStorage);
+            while (iterNext.execute(selfStorage, selfIt) && iterNext.execute(otherStorage, otherIt)) {
+                if (!eqNode.execute(frame, iterKey.execute(selfStorage, selfIt), iterKey.execute(otherStorage, otherIt))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Fallback
+        @SuppressWarnings("unused")
+        static PNotImplemented doGeneric(Object self, Object other) {
+            return PNotImplemented.NOT_IMPLEMENTED;
+        }
+    }
+
+    @Builtin(name = J___REPR__, minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class ReprNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        Object repr(VirtualFrame frame, POrderedDict self,
+                        @Cached GetClassNode getClassNode,
+                        @Cached TypeNodes.GetNameNode getNameNode,
+                        @Cached HashingStorageLen lenNode,
+                        @Cached ConstructListNode constructListNode,
+                        @Cached PyObjectReprAsTruffleStringNode reprNode,
+                        @Cached SimpleTruffleStringFormatNode simpleTruffleStringFormatNode) {
+            TruffleString name = getNameNode.execute(getClassNode.execute(self));
+            if (lenNode.execute(self.getDictStorage()) == 0) {
+                return simpleTruffleStringFormatNode.format("%s()", name);
+            }
+            PythonContext ctxt = PythonContext.get(this);
+            if (!ctxt.reprEnter(self)) {
+                return T_ELLIPSIS;
+            }
+            try {
+                TruffleString itemsRepr = reprNode.execute(frame, constructListNode.execute(frame, factory().createDictItemsView(self)));
+                return simpleTruffleStringFormatNode.format("%s(%s)", name, itemsRepr);
+            } finally {
+                ctxt.reprLeave(self);
+            }
+        }
+    }
+
+    @Builtin(name = J___REDUCE__, minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class ReduceNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        Object reduce(VirtualFrame frame, POrderedDict self,
+                        @Cached GetClassNode getClassNode,
+                        @Cached GetDictIfExistsNode getDictNode,
+                        @Cached HashingStorageLen lenNode,
+                        @Cached HashingStorageCopy copyNode,
+                        @Cached PyObjectGetIter getIter) {
+            Object state = PNone.NONE;
+            PDict instDict = getDictNode.execute(self);
+            if (instDict != null && lenNode.execute(instDict.getDictStorage()) > 0) {
+                state = factory().createDict(copyNode.execute(instDict.getDictStorage()));
+            }
+            Object items = getIter.execute(frame, factory().createDictItemsView(self));
+            return factory().createTuple(new Object[]{getClassNode.execute(self), factory().createEmptyTuple(), state, PNone.NONE, items});
+        }
+    }
+
+    @Builtin(name = "copy", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class CopyNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        Object copy(VirtualFrame frame, POrderedDict self,
+                        @Bind("this") Node inliningTarget,
+                        @Cached IsBuiltinObjectProfile isBuiltinProfile,
+                        @Cached HashingStorageCopy copyNode,
+                        @Cached GetClassNode getClassNode,
+                        @Cached CallNode callNode) {
+            if (isBuiltinProfile.profileObject(inliningTarget, self, PythonBuiltinClassType.POrderedDict)) {
+                return factory().createOrderedDict(copyNode.execute(self.getDictStorage()));
+            }
+            return callNode.execute(frame, getClassNode.execute(self), self);
+        }
+    }
+
+    @Builtin(name = J___OR__, minNumOfPositionalArgs = 2)
+    @Builtin(name = J___ROR__, minNumOfPositionalArgs = 2, reverseOperation = true)
+    @GenerateNodeFactory
+    abstract static class OrNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object or(VirtualFrame frame, PDict self, PDict other,
+                        @Cached GetClassNode getClassNode,
+                        @Cached CallNode callNode,
+                        @Cached PyObjectCallMethodObjArgs callUpdate) {
+            POrderedDict od = (POrderedDict) (self instanceof POrderedDict ? self : other);
+            Object result = callNode.execute(frame, getClassNode.execute(od), self);
+            callUpdate.execute(frame, result, T_UPDATE, other);
+            return result;
+        }
+
+        @Fallback
+        @SuppressWarnings("unused")
+        static Object or(Object self, Object other) {
+            return PNotImplemented.NOT_IMPLEMENTED;
+        }
+    }
+}
@@ -71,6 +71,10 @@ public abstract class PHashingStorageIterator extends PBuiltinIterator {
         return lenNode.execute(getHashingStorage()) != size;
     }
 
+    public final boolean checkReordered() {
+        return iterator.isReordered(storage);
+    }
+
     public final int getSize() {
         return size;
     }
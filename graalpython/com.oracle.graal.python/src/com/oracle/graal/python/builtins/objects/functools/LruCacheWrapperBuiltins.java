@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.functools;
+
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.TypeError;
+import static com.oracle.graal.python.nodes.SpecialAttributeNames.J___DICT__;
+import static com.oracle.graal.python.nodes.SpecialAttributeNames.T___QUALNAME__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___CALL__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___COPY__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___DEEPCOPY__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___GET__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___REDUCE__;
+
+import java.util.List;
+
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.common.ObjectHashMap;
+import com.oracle.graal.python.builtins.objects.dict.PDict;
+import com.oracle.graal.python.builtins.objects.function.PKeyword;
+import com.oracle.graal.python.builtins.objects.functools.PLruCacheWrapper.Link;
+import com.oracle.graal.python.lib.PyLongCheckExactNode;
+import com.oracle.graal.python.lib.PyObjectGetAttr;
+import com.oracle.graal.python.lib.PyObjectHashNode;
+import com.oracle.graal.python.lib.PyUnicodeCheckExactNode;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PGuards;
+import com.oracle.graal.python.nodes.call.CallNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonTernaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonVarargsBuiltinNode;
+import com.oracle.graal.python.nodes.object.GetClassNode;
+import com.oracle.graal.python.nodes.object.GetOrCreateDictNode;
+import com.oracle.graal.python.nodes.object.SetDictNode;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Cached.Shared;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.ImportStatic;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+
+@CoreFunctions(extendClasses = PythonBuiltinClassType.PLruCacheWrapper)
+public class LruCacheWrapperBuiltins extends PythonBuiltins {
+
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return LruCacheWrapperBuiltinsFactory.getFactories();
+    }
+
+    /**
+     * Builds the cache key like CPython's {@code lru_cache_make_key}: a single {@code int} or
+     * {@code str} argument is its own key, otherwise the key is a tuple of the positional arguments,
+     * followed by a marker and the keyword arguments and, if the cache is typed, the types of all
+     * arguments.
+     */
+    abstract static class MakeKeyNode extends Node {
+        abstract Object execute(PLruCacheWrapper self, Object[] args, PKeyword[] keywords);
+
+        @Specialization
+        static Object makeKey(PLruCacheWrapper self, Object[] args, PKeyword[] keywords,
+                        @Cached PyLongCheckExactNode longCheckExactNode,
+                        @Cached PyUnicodeCheckExactNode unicodeCheckExactNode,
+                        @Cached GetClassNode getClassNode,
+                        @Cached PythonObjectFactory factory) {
+            boolean typed = self.isTyped();
+            if (!typed && keywords.length == 0) {
+                if (args.length == 1 && (longCheckExactNode.execute(args[0]) || unicodeCheckExactNode.execute(args[0]))) {
+                    return args[0];
+                }
+                return factory.createTuple(args);
+            }
+            int size = args.length;
+            if (keywords.length > 0) {
+                size += 1 + 2 * keywords.length;
+            }
+            if (typed) {
+                size += args.length + keywords.length;
+            }
+            Object[] key = new Object[size];
+            System.arraycopy(args, 0, key, 0, args.length);
+            int idx = args.length;
+            if (keywords.length > 0) {
+                key[idx++] = self.getKwdMark();
+                for (PKeyword keyword : keywords) {
+                    key[idx++] = keyword.getName();
+                    key[idx++] = keyword.getValue();
+                }
+            }
+            if (typed) {
+                for (Object arg : args) {
+                    key[idx++] = getClassNode.execute(arg);
+                }
+                for (PKeyword keyword : keywords) {
+                    key[idx++] = getClassNode.execute(keyword.getValue());
+                }
+            }
+            assert idx == size;
+            return factory.createTuple(key);
+        }
+    }
+
+    @Builtin(name = J___CALL__, minNumOfPositionalArgs = 1, takesVarArgs = true, takesVarKeywordArgs = true)
+    @GenerateNodeFactory
+    abstract static class LruCacheCallNode extends PythonVarargsBuiltinNode {
+
+        @Specialization(guards = "self.getMaxsize() == 0")
+        static Object doUncached(VirtualFrame frame, PLruCacheWrapper self, Object[] args, PKeyword[] keywords,
+                        @Shared("call") @Cached CallNode callNode) {
+            self.misses++;
+            return callNode.execute(frame, self.getFunction(), args, keywords);
+        }
+
+        @Specialization(guards = "self.getMaxsize() < 0")
+        static Object doUnbounded(VirtualFrame frame, PLruCacheWrapper self, Object[] args, PKeyword[] keywords,
+                        @Shared("makeKey") @Cached MakeKeyNode makeKeyNode,
+                        @Shared("hash") @Cached PyObjectHashNode hashNode,
+                        @Shared("get") @Cached ObjectHashMap.GetNode getNode,
+                        @Shared("put") @Cached ObjectHashMap.PutNode putNode,
+                        @Shared("call") @Cached CallNode callNode) {
+            Object key = makeKeyNode.execute(self, args, keywords);
+            long hash = hashNode.execute(frame, key);
+            // an unbounded cache does not need the LRU list and maps keys to results directly
+            Object result = getNode.get(frame, self.getMap(), key, hash);
+            if (result != null) {
+                self.hits++;
+                return result;
+            }
+            self.misses++;
+            result = callNode.execute(frame, self.getFunction(), args, keywords);
+            putNode.put(frame, self.getMap(), key, hash, result);
+            return result;
+        }
+
+        @Specialization(guards = "self.getMaxsize() > 0")
+        static Object doBounded(VirtualFrame frame, PLruCacheWrapper self, Object[] args, PKeyword[] keywords,
+                        @Shared("makeKey") @Cached MakeKeyNode makeKeyNode,
+                        @Shared("hash") @Cached PyObjectHashNode hashNode,
+                        @Shared("get") @Cached ObjectHashMap.GetNode getNode,
+                        @Shared("put") @Cached ObjectHashMap.PutNode putNode,
+                        @Cached ObjectHashMap.RemoveNode removeNode,
+                        @Shared("call") @Cached CallNode callNode) {
+            Object key = makeKeyNode.execute(self, args, keywords);
+            long hash = hashNode.execute(frame, key);
+            ObjectHashMap map = self.getMap();
+            Link root = self.getRoot();
+            Object found = getNode.get(frame, map, key, hash);
+            /*
+             * A link that is being evicted may still be in the map while its removal runs Python
+             * code, but its result was already cleared, so it counts as a miss.
+             */
+            if (found != null && !((Link) found).isEvicted()) {
+                Link link = (Link) found;
+                // move the link to the most recently used end of the list
+                link.unlink();
+                link.linkBefore(root);
+                self.hits++;
+                return link.result;
+            }
+            self.misses++;
+            Object result = callNode.execute(frame, self.getFunction(), args, keywords);
+            if (getNode.get(frame, map, key, hash) != null) {
+                // the same key was added while the user function was running
+                return result;
+            }
+            if (map.size() >= self.getMaxsize()) {
+                Link oldest = root.next;
+                if (oldest != root) {
+                    // unlink before touching the map, which may call back into Python code
+                    oldest.unlink();
+                    Object oldKey = oldest.key;
+                    oldest.key = null;
+                    oldest.result = null;
+                    removeNode.remove(frame, map, oldKey, oldest.hash);
+                }
+            }
+            Link link = new Link(key, hash, result);
+            link.linkBefore(root);
+            putNode.put(frame, map, key, hash, link);
+            return result;
+        }
+    }
+
+    @Builtin(name = J___GET__, minNumOfPositionalArgs = 2, maxNumOfPositionalArgs = 3)
+    @GenerateNodeFactory
+    abstract static class LruCacheGetNode extends PythonTernaryBuiltinNode {
+        @Specialization(guards = "!isPNone(instance)")
+        Object doMethod(PLruCacheWrapper self, Object instance, @SuppressWarnings("unused") Object klass) {
+            return factory().createMethod(instance, self);
+        }
+
+        @Specialization
+        static Object doNone(PLruCacheWrapper self, @SuppressWarnings("unused") PNone instance, @SuppressWarnings("unused") Object klass) {
+            return self;
+        }
+    }
+
+    @Builtin(name = "cache_info", minNumOfPositionalArgs = 1, doc = "Report cache statistics")
+    @GenerateNodeFactory
+    abstract static class CacheInfoNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object cacheInfo(VirtualFrame frame, PLruCacheWrapper self,
+                        @Cached CallNode callNode) {
+            return callNode.execute(frame, self.getCacheInfoType(), self.hits, self.misses, self.getMaxsizeObj(), self.getMap().size());
+        }
+    }
+
+    @Builtin(name = "cache_clear", minNumOfPositionalArgs = 1, doc = "Clear the cache and cache statistics")
+    @GenerateNodeFactory
+    abstract static class CacheClearNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static PNone cacheClear(PLruCacheWrapper self) {
+            self.clear();
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = J___REDUCE__, minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class ReduceNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object reduce(VirtualFrame frame, PLruCacheWrapper self,
+                        @Cached PyObjectGetAttr getAttr) {
+            return getAttr.execute(frame, self, T___QUALNAME__);
+        }
+    }
+
+    @Builtin(name = J___COPY__, minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class CopyNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object copy(PLruCacheWrapper self) {
+            return self;
+        }
+    }
+
+    @Builtin(name = J___DEEPCOPY__, minNumOfPositionalArgs = 2)
+    @GenerateNodeFactory
+    abstract static class DeepCopyNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object deepcopy(PLruCacheWrapper self, @SuppressWarnings("unused") Object memo) {
+            return self;
+        }
+    }
+
+    @Builtin(name = J___DICT__, minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true)
+    @GenerateNodeFactory
+    @ImportStatic(PGuards.class)
+    abstract static class DictNode extends PythonBinaryBuiltinNode {
+        @Specialization(guards = "isNoValue(mapping)")
+        static Object getDict(PLruCacheWrapper self, @SuppressWarnings("unused") PNone mapping,
+                        @Cached GetOrCreateDictNode getDict) {
+            return getDict.execute(self);
+        }
+
+        @Specialization
+        static Object setDict(PLruCacheWrapper self, PDict mapping,
+                        @Cached SetDictNode setDict) {
+            setDict.execute(self, mapping);
+            return PNone.NONE;
+        }
+
+        @Specialization(guards = {"!isNoValue(mapping)", "!isDict(mapping)"})
+        Object setDict(@SuppressWarnings("unused") PLruCacheWrapper self, Object mapping) {
+            throw raise(TypeError, ErrorMessages.DICT_MUST_BE_SET_TO_DICT, mapping);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.functools;
+
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.common.ObjectHashMap;
+import com.oracle.graal.python.builtins.objects.object.PythonBuiltinObject;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.object.Shape;
+
+/**
+ * The object returned by {@code functools._lru_cache_wrapper}. The cache maps keys to
+ * {@link Link links} of an intrusive doubly linked list, which keeps the entries of a bounded
+ * cache in the order of their last use. Like in CPython, consistency relies on the GIL: the list
+ * is only manipulated in Java code that does not call back into Python.
+ */
+public final class PLruCacheWrapper extends PythonBuiltinObject {
+    /**
+     * An entry of the cache. The {@link #getRoot() root} is a dummy link that is never in the map.
+     */
+    static final class Link {
+        Link prev;
+        Link next;
+        Object key;
+        long hash;
+        Object result;
+
+        Link() {
+            prev = this;
+            next = this;
+        }
+
+        Link(Object key, long hash, Object result) {
+            this.key = key;
+            this.hash = hash;
+            this.result = result;
+        }
+
+        void unlink() {
+            prev.next = next;
+            next.prev = prev;
+        }
+
+        void linkBefore(Link root) {
+            Link last = root.prev;
+            last.next = this;
+            root.prev = this;
+            prev = last;
+            next = root;
+        }
+
+        /**
+         * Links that were evicted while a lookup that called back into Python still found them in
+         * the map must not be reinserted into the list and their result must not be used.
+         */
+        boolean isEvicted() {
+            return key == null;
+        }
+    }
+
+    private final Object function;
+    private final int maxsize;
+    private final boolean typed;
+    private final Object cacheInfoType;
+    private final Object kwdMark;
+    private final ObjectHashMap map = new ObjectHashMap();
+    private final Link root = new Link();
+    long hits;
+    long misses;
+
+    public PLruCacheWrapper(Object cls, Shape instanceShape, Object function, int maxsize, boolean typed, Object cacheInfoType, Object kwdMark) {
+        super(cls, instanceShape);
+        this.function = function;
+        this.maxsize = maxsize;
+        this.typed = typed;
+        this.cacheInfoType = cacheInfoType;
+        this.kwdMark = kwdMark;
+    }
+
+    public Object getFunction() {
+        return function;
+    }
+
+    /**
+     * The {@code maxsize} as reported by {@code cache_info}, {@code None} for an unbounded cache.
+     */
+    public Object getMaxsizeObj() {
+        return maxsize < 0 ? PNone.NONE : maxsize;
+    }
+
+    /**
+     * The maximum number of entries, {@code -1} for an unbounded cache.
+     */
+    public int getMaxsize() {
+        return maxsize;
+    }
+
+    public boolean isTyped() {
+        return typed;
+    }
+
+    public Object getCacheInfoType() {
+        return cacheInfoType;
+    }
+
+    /**
+     * Separates positional from keyword arguments in the keys. Unique per wrapper.
+     */
+    public Object getKwdMark() {
+        return kwdMark;
+    }
+
+    ObjectHashMap getMap() {
+        return map;
+    }
+
+    Link getRoot() {
+        return root;
+    }
+
+    @TruffleBoundary
+    void clear() {
+        map.clear();
+        root.prev = root;
+        root.next = root;
+        hits = 0;
+        misses = 0;
+    }
+}
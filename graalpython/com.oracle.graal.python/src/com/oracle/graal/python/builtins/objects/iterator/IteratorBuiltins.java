@@ -176,6 +176,16 @@ public class IteratorBuiltins extends PythonBuiltins {
             return stopIteration(self);
         }
 
+        @Specialization(guards = "!self.isExhausted()")
+        Object next(PLongRangeIterator self,
+                        @Bind("this") Node inliningTarget,
+                        @Shared("next") @Cached InlinedConditionProfile profile) {
+            if (profile.profile(inliningTarget, self.hasNextLong())) {
+                return self.nextLong();
+            }
+            return stopIteration(self);
+        }
+
         @Specialization(guards = "!self.isExhausted()")
         Object next(PBigRangeIterator self) {
             if (self.hasNextBigInt()) {
@@ -214,6 +224,7 @@ public class IteratorBuiltins extends PythonBuiltins {
         Object nextHashingStorageIter(PHashingStorageIterator self,
                         @Bind("this") Node inliningTarget,
                         @Cached InlinedConditionProfile sizeChanged,
+                        @Cached InlinedConditionProfile reordered,
                         @Cached HashingStorageLen lenNode,
                         @Cached HashingStorageIteratorNext nextNode,
                         @Cached PHashingStorageIteratorNextValue itValueNode,
@@ -225,6 +236,12 @@ public class IteratorBuiltins extends PythonBuiltins {
                     String name = PBaseSetIterator.isInstance(self) ? "Set" : "dictionary";
                     throw raise(RuntimeError, ErrorMessages.CHANGED_SIZE_DURING_ITERATION, name);
                 }
+                if (reordered.profile(inliningTarget, self.checkReordered())) {
+                    if (PBaseSetIterator.isInstance(self)) {
+                        throw raise(RuntimeError, ErrorMessages.CHANGED_SIZE_DURING_ITERATION, "Set");
+                    }
+                    throw raise(RuntimeError, ErrorMessages.DICTIONARY_KEYS_CHANGED_DURING_ITERATION);
+                }
                 self.index++;
                 return itValueNode.execute(self, storage, it);
             }
@@ -314,7 +331,7 @@ public class IteratorBuiltins extends PythonBuiltins {
                         @Bind("this") Node inliningTarget,
                         @Cached HashingStorageLen lenNode,
                         @Cached InlinedConditionProfile profile) {
-            if (profile.profile(inliningTarget, self.checkSizeChanged(lenNode))) {
+            if (profile.profile(inliningTarget, self.checkSizeChanged(lenNode) || self.checkReordered())) {
                 return 0;
             }
             return self.getSize() - self.getIndex();
@@ -337,6 +354,11 @@ public class IteratorBuiltins extends PythonBuiltins {
             return self.getRemainingLength();
         }
 
+        @Specialization(guards = "!self.isExhausted()")
+        public static long lengthHint(PLongRangeIterator self) {
+            return self.getRemainingLength();
+        }
+
         @Specialization(guards = "!self.isExhausted()")
         public Object lengthHint(PBigRangeIterator self) {
             return factory().createInt(self.getRemainingLength());
@@ -457,6 +479,15 @@ public class IteratorBuiltins extends PythonBuiltins {
             return reduceInternal(frame, factory().createIntRange(start, stop, step, len), self.getIndex(), PythonContext.get(this));
         }
 
+        @Specialization
+        public Object reduce(VirtualFrame frame, PLongRangeIterator self) {
+            PInt start = factory().createInt(self.getStart());
+            PInt stop = factory().createInt(self.getStop());
+            PInt step = factory().createInt(self.getStep());
+            PInt len = factory().createInt(self.getLen());
+            return reduceInternal(frame, factory().createBigRange(start, stop, step, len), self.getLongIndex(), PythonContext.get(this));
+        }
+
         @Specialization
         public Object reduce(VirtualFrame frame, PBigRangeIterator self) {
             PInt start = self.getStart();
@@ -525,7 +556,19 @@ public class IteratorBuiltins extends PythonBuiltins {
             return PNone.NONE;
         }
 
-        @Specialization(guards = "!isPBigRangeIterator(self)")
+        @Specialization
+        @TruffleBoundary
+        public static Object reduce(PLongRangeIterator self, Object index,
+                        @Cached CastToJavaBigIntegerNode castToJavaBigIntegerNode) {
+            BigInteger idx = castToJavaBigIntegerNode.execute(index);
+            if (idx.compareTo(BigInteger.ZERO) < 0) {
+                idx = BigInteger.ZERO;
+            }
+            self.setLongIndex(idx);
+            return PNone.NONE;
+        }
+
+        @Specialization(guards = {"!isPBigRangeIterator(self)", "!isPLongRangeIterator(self)"})
         public static Object reduce(VirtualFrame frame, PBuiltinIterator self, Object index,
                         @Cached PyNumberAsSizeNode asSizeNode) {
             int idx = asSizeNode.executeExact(frame, index);
@@ -539,5 +582,9 @@ public class IteratorBuiltins extends PythonBuiltins {
         protected static boolean isPBigRangeIterator(Object obj) {
             return obj instanceof PBigRangeIterator;
         }
+
+        protected static boolean isPLongRangeIterator(Object obj) {
+            return obj instanceof PLongRangeIterator;
+        }
     }
 }
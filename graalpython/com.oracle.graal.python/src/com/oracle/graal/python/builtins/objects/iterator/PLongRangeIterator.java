@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.iterator;
+
+import java.math.BigInteger;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.object.Shape;
+
+/**
+ * Iterator over a big range whose values all fit in a long, e.g., {@code range(2**40, 2**40 + n)}.
+ * Unlike {@link PBigRangeIterator}, producing the next value does not allocate.
+ */
+public final class PLongRangeIterator extends PBuiltinIterator {
+    private final long start;
+    private final long step;
+    private final long len;
+
+    private long longIndex;
+    private long nextValue;
+
+    public PLongRangeIterator(Object clazz, Shape instanceShape, long start, long step, long len) {
+        super(clazz, instanceShape);
+        this.start = start;
+        this.step = step;
+        this.len = len;
+
+        this.longIndex = 0;
+        this.nextValue = start;
+    }
+
+    public long getRemainingLength() {
+        return this.len - this.longIndex;
+    }
+
+    public long nextLong() {
+        long value = nextValue;
+        // may wrap around after the last value, but such a value is never returned
+        nextValue = value + step;
+        longIndex++;
+        return value;
+    }
+
+    public boolean hasNextLong() {
+        return longIndex < len;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getStep() {
+        return step;
+    }
+
+    public long getLen() {
+        return len;
+    }
+
+    public long getLongIndex() {
+        return longIndex;
+    }
+
+    @TruffleBoundary
+    public void setLongIndex(BigInteger idx) {
+        long index = idx.compareTo(BigInteger.valueOf(len)) > 0 ? len : idx.longValue();
+        this.longIndex = index;
+        this.nextValue = start + index * step;
+    }
+
+    /**
+     * Returns the stop of the range iterated over, which need not fit in a long.
+     */
+    @TruffleBoundary
+    public BigInteger getStop() {
+        return BigInteger.valueOf(start).add(BigInteger.valueOf(len).multiply(BigInteger.valueOf(step)));
+    }
+
+    /**
+     * Returns {@code true} if a range with the given {@code start}, {@code step} and {@code len}
+     * can be iterated with a {@link PLongRangeIterator}.
+     */
+    @TruffleBoundary
+    public static boolean fitsInLong(BigInteger start, BigInteger step, BigInteger len) {
+        if (start.bitLength() >= Long.SIZE || step.bitLength() >= Long.SIZE || len.bitLength() >= Long.SIZE) {
+            return false;
+        }
+        if (len.signum() == 0) {
+            return true;
+        }
+        BigInteger last = start.add(len.subtract(BigInteger.ONE).multiply(step));
+        return last.bitLength() < Long.SIZE;
+    }
+}
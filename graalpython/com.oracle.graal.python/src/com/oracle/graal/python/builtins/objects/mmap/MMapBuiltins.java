@@ -215,7 +215,7 @@ public class MMapBuiltins extends PythonBuiltins {
             assert len > 0;
             assert pos + len <= self.getLength();
             byte[] buffer = new byte[len];
-            posixLib.mmapReadBytes(node.getPosixSupport(), self.getPosixSupportHandle(), pos, buffer, buffer.length);
+            posixLib.mmapReadBytes(node.getPosixSupport(), self.getPosixSupportHandle(), pos, buffer, 0, buffer.length);
             return buffer;
         } catch (PosixException e) {
             throw node.raiseOSErrorFromPosixException(frame, e);
@@ -312,7 +312,7 @@ public class MMapBuiltins extends PythonBuiltins {
 
         private void writeBuffer(VirtualFrame frame, PosixSupportLibrary posixSupportLib, PMMap mmap, long idx, byte[] bytes, int len) {
             try {
-                posixSupportLib.mmapWriteBytes(getPosixSupport(), mmap.getPosixSupportHandle(), idx, bytes, len);
+                posixSupportLib.mmapWriteBytes(getPosixSupport(), mmap.getPosixSupportHandle(), idx, bytes, 0, len);
             } catch (PosixException ex) {
                 throw raiseOSErrorFromPosixException(frame, ex);
             }
@@ -496,7 +496,7 @@ public class MMapBuiltins extends PythonBuiltins {
             int nread;
             outer: while (self.getPos() < self.getLength()) {
                 try {
-                    nread = posixLib.mmapReadBytes(getPosixSupport(), self.getPosixSupportHandle(), self.getPos(), buffer, (int) Math.min(self.getRemaining(), buffer.length));
+                    nread = posixLib.mmapReadBytes(getPosixSupport(), self.getPosixSupportHandle(), self.getPos(), buffer, 0, (int) Math.min(self.getRemaining(), buffer.length));
                 } catch (PosixException e) {
                     throw raiseOSErrorFromPosixException(frame, e);
                 }
@@ -537,7 +537,7 @@ public class MMapBuiltins extends PythonBuiltins {
                 if (self.getPos() > self.getLength() || self.getLength() - self.getPos() < dataLen) {
                     throw raise(ValueError, ErrorMessages.DATA_OUT_OF_RANGE);
                 }
-                posixLib.mmapWriteBytes(getPosixSupport(), self.getPosixSupportHandle(), self.getPos(), dataBytes, dataLen);
+                posixLib.mmapWriteBytes(getPosixSupport(), self.getPosixSupportHandle(), self.getPos(), dataBytes, 0, dataLen);
                 self.setPos(self.getPos() + dataLen);
                 return dataLen;
             } catch (PosixException e) {
@@ -665,7 +665,7 @@ public class MMapBuiltins extends PythonBuiltins {
             try {
                 long remaining = self.getLength() - index;
                 int toReadLen = remaining > buffer.length ? buffer.length : (int) remaining;
-                int nread = posixLib.mmapReadBytes(getPosixSupport(), self.getPosixSupportHandle(), index, buffer, toReadLen);
+                int nread = posixLib.mmapReadBytes(getPosixSupport(), self.getPosixSupportHandle(), index, buffer, 0, toReadLen);
                 if (toReadLen != nread) {
                     throw raise(PythonBuiltinClassType.SystemError, MMAP_CHANGED_LENGTH);
                 }
@@ -167,6 +167,36 @@ public final class PMMap extends PythonObject {
         }
     }
 
+    @ExportMessage
+    void readIntoByteArray(int srcOffset, byte[] dest, int destOffset, int length,
+                    @Bind("$node") Node inliningTarget,
+                    @CachedLibrary(limit = "1") PosixSupportLibrary posixLib,
+                    @Shared("gotException") @Cached InlinedBranchProfile gotException,
+                    @Shared("raiseNode") @Cached PConstructAndRaiseNode raiseNode,
+                    @Shared("js2ts") @Cached TruffleString.FromJavaStringNode fromJavaStringNode) {
+        try {
+            posixLib.mmapReadBytes(PythonContext.get(raiseNode).getPosixSupport(), getPosixSupportHandle(), srcOffset, dest, destOffset, length);
+        } catch (PosixException e) {
+            gotException.enter(inliningTarget);
+            throw raiseNode.raiseOSError(null, e.getErrorCode(), fromJavaStringNode.execute(e.getMessage(), TS_ENCODING), null, null);
+        }
+    }
+
+    @ExportMessage
+    void writeFromByteArray(int destOffset, byte[] src, int srcOffset, int length,
+                    @Bind("$node") Node inliningTarget,
+                    @CachedLibrary(limit = "1") PosixSupportLibrary posixLib,
+                    @Shared("gotException") @Cached InlinedBranchProfile gotException,
+                    @Shared("raiseNode") @Cached PConstructAndRaiseNode raiseNode,
+                    @Shared("js2ts") @Cached TruffleString.FromJavaStringNode fromJavaStringNode) {
+        try {
+            posixLib.mmapWriteBytes(PythonContext.get(raiseNode).getPosixSupport(), getPosixSupportHandle(), destOffset, src, srcOffset, length);
+        } catch (PosixException e) {
+            gotException.enter(inliningTarget);
+            throw raiseNode.raiseOSError(null, e.getErrorCode(), fromJavaStringNode.execute(e.getMessage(), TS_ENCODING), null, null);
+        }
+    }
+
     @ExportMessage
     Object acquire(@SuppressWarnings("unused") int flags) {
         return this;
@@ -51,6 +51,7 @@ import com.oracle.graal.python.builtins.objects.PNone;
 import com.oracle.graal.python.builtins.objects.PNotImplemented;
 import com.oracle.graal.python.builtins.objects.common.IndexNodes.NormalizeIndexNode;
 import com.oracle.graal.python.builtins.objects.ints.PInt;
+import com.oracle.graal.python.builtins.objects.iterator.PLongRangeIterator;
 import com.oracle.graal.python.builtins.objects.range.RangeNodes.CoerceToBigRange;
 import com.oracle.graal.python.builtins.objects.range.RangeNodes.LenOfIntRangeNodeExact;
 import com.oracle.graal.python.builtins.objects.range.RangeNodes.PRangeStartNode;
@@ -212,7 +213,14 @@ public class RangeBuiltins extends PythonBuiltins {
         }
 
         @Specialization
+        @TruffleBoundary
         Object doPIntRange(PBigRange self) {
+            BigInteger start = self.getBigIntegerStart();
+            BigInteger step = self.getBigIntegerStep();
+            BigInteger len = self.getBigIntegerLength();
+            if (PLongRangeIterator.fitsInLong(start, step, len)) {
+                return factory().createLongRangeIterator(start.longValue(), step.longValue(), len.longValue());
+            }
             return factory().createBigRangeIterator(self);
         }
     }
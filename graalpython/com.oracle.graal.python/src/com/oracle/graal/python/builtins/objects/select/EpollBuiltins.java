@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.select;
+
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___ENTER__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___EXIT__;
+import static com.oracle.graal.python.runtime.PosixConstants.EPOLLIN;
+import static com.oracle.graal.python.runtime.PosixConstants.EPOLLOUT;
+import static com.oracle.graal.python.runtime.PosixConstants.EPOLLPRI;
+import static com.oracle.graal.python.runtime.PosixConstants.EPOLL_CTL_ADD;
+import static com.oracle.graal.python.runtime.PosixConstants.EPOLL_CTL_DEL;
+import static com.oracle.graal.python.runtime.PosixConstants.EPOLL_CTL_MOD;
+import static com.oracle.graal.python.runtime.exception.PythonErrorType.ValueError;
+import static com.oracle.graal.python.util.PythonUtils.tsLiteral;
+import static com.oracle.graal.python.util.TimeUtils.SEC_TO_NS;
+
+import java.util.List;
+
+import com.oracle.graal.python.annotations.ArgumentClinic;
+import com.oracle.graal.python.annotations.ArgumentClinic.ClinicConversion;
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.list.PList;
+import com.oracle.graal.python.builtins.objects.select.EpollBuiltinsClinicProviders.ModifyNodeClinicProviderGen;
+import com.oracle.graal.python.builtins.objects.select.EpollBuiltinsClinicProviders.PollNodeClinicProviderGen;
+import com.oracle.graal.python.builtins.objects.select.EpollBuiltinsClinicProviders.RegisterNodeClinicProviderGen;
+import com.oracle.graal.python.lib.PyObjectAsFileDescriptor;
+import com.oracle.graal.python.lib.PyTimeFromObjectNode;
+import com.oracle.graal.python.lib.PyTimeFromObjectNode.RoundType;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PGuards;
+import com.oracle.graal.python.nodes.call.special.LookupAndCallUnaryNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonTernaryClinicBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.clinic.ArgumentClinicProvider;
+import com.oracle.graal.python.runtime.GilNode;
+import com.oracle.graal.python.runtime.PosixConstants;
+import com.oracle.graal.python.runtime.PosixSupportLibrary;
+import com.oracle.graal.python.runtime.PosixSupportLibrary.PosixException;
+import com.oracle.graal.python.runtime.PosixSupportLibrary.Timeval;
+import com.oracle.graal.python.util.TimeUtils;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.strings.TruffleString;
+
+@CoreFunctions(extendClasses = PythonBuiltinClassType.PEpoll)
+public final class EpollBuiltins extends PythonBuiltins {
+
+    // the epoll type is removed from the module on platforms that do not define these
+    static final int DEFAULT_EVENTMASK = EPOLLIN.defined ? EPOLLIN.getValueIfDefined() | EPOLLPRI.getValueIfDefined() | EPOLLOUT.getValueIfDefined() : 0;
+
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return EpollBuiltinsFactory.getFactories();
+    }
+
+    abstract static class EpollCtlNode extends PythonTernaryClinicBuiltinNode {
+
+        Object ctl(VirtualFrame frame, PEpoll self, Object fdObj, long eventmask, int op,
+                        PyObjectAsFileDescriptor asFileDescriptor, PosixSupportLibrary posixLib) {
+            checkNotClosed(self);
+            int fd = asFileDescriptor.execute(frame, fdObj);
+            try {
+                posixLib.epollCtl(getPosixSupport(), self.getEpfd(), op, fd, (int) eventmask);
+            } catch (PosixException e) {
+                throw raiseOSErrorFromPosixException(frame, e);
+            }
+            if (op == EPOLL_CTL_ADD.getValueIfDefined()) {
+                self.registered();
+            }
+            return PNone.NONE;
+        }
+
+        void checkNotClosed(PEpoll self) {
+            if (self.isClosed()) {
+                throw raise(ValueError, ErrorMessages.IO_OPERATION_ON_CLOSED_EPOLL);
+            }
+        }
+    }
+
+    @Builtin(name = "register", minNumOfPositionalArgs = 2, parameterNames = {"$self", "fd", "eventmask"}, //
+                    doc = "register($self, /, fd, eventmask=select.EPOLLIN | select.EPOLLPRI | select.EPOLLOUT)\n--\n\nRegisters a new fd or raises an OSError if the fd is already registered.")
+    @ArgumentClinic(name = "eventmask", conversion = ClinicConversion.Long, defaultValue = "DEFAULT_EVENTMASK")
+    @GenerateNodeFactory
+    abstract static class RegisterNode extends EpollCtlNode {
+
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return RegisterNodeClinicProviderGen.INSTANCE;
+        }
+
+        @Specialization
+        Object register(VirtualFrame frame, PEpoll self, Object fd, long eventmask,
+                        @Cached PyObjectAsFileDescriptor asFileDescriptor,
+                        @CachedLibrary("getPosixSupport()") PosixSupportLibrary posixLib) {
+            return ctl(frame, self, fd, eventmask, EPOLL_CTL_ADD.getValueIfDefined(), asFileDescriptor, posixLib);
+        }
+    }
+
+    @Builtin(name = "modify", minNumOfPositionalArgs = 3, parameterNames = {"$self", "fd", "eventmask"}, //
+                    doc = "modify($self, /, fd, eventmask)\n--\n\nModify event mask for a registered file descriptor.")
+    @ArgumentClinic(name = "eventmask", conversion = ClinicConversion.Long)
+    @GenerateNodeFactory
+    abstract static class ModifyNode extends EpollCtlNode {
+
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return ModifyNodeClinicProviderGen.INSTANCE;
+        }
+
+        @Specialization
+        Object modify(VirtualFrame frame, PEpoll self, Object fd, long eventmask,
+                        @Cached PyObjectAsFileDescriptor asFileDescriptor,
+                        @CachedLibrary("getPosixSupport()") PosixSupportLibrary posixLib) {
+            return ctl(frame, self, fd, eventmask, EPOLL_CTL_MOD.getValueIfDefined(), asFileDescriptor, posixLib);
+        }
+    }
+
+    @Builtin(name = "unregister", minNumOfPositionalArgs = 2, parameterNames = {"$self", "fd"}, //
+                    doc = "unregister($self, /, fd)\n--\n\nRemove a registered file descriptor from the epoll object.")
+    @GenerateNodeFactory
+    abstract static class UnregisterNode extends PythonBinaryBuiltinNode {
+
+        @Specialization
+        Object unregister(VirtualFrame frame, PEpoll self, Object fdObj,
+                        @Cached PyObjectAsFileDescriptor asFileDescriptor,
+                        @CachedLibrary("getPosixSupport()") PosixSupportLibrary posixLib) {
+            if (self.isClosed()) {
+                throw raise(ValueError, ErrorMessages.IO_OPERATION_ON_CLOSED_EPOLL);
+            }
+            int fd = asFileDescriptor.execute(frame, fdObj);
+            try {
+                posixLib.epollCtl(getPosixSupport(), self.getEpfd(), EPOLL_CTL_DEL.getValueIfDefined(), fd, 0);
+            } catch (PosixException e) {
+                throw raiseOSErrorFromPosixException(frame, e);
+            }
+            self.unregistered();
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "poll", minNumOfPositionalArgs = 1, parameterNames = {"$self", "timeout", "maxevents"}, //
+                    doc = "poll($self, /, timeout=None, maxevents=-1)\n--\n\nWait for events on the epoll file descriptor.\n\n" +
+                                    "  timeout\n    the maximum time to wait in seconds (as float);\n    a timeout of None or -1 makes poll wait indefinitely\n" +
+                                    "  maxevents\n    the maximum number of events returned; -1 means no limit\n\n" +
+                                    "Returns a list containing any descriptors that have events to report,\nas a list of (fd, events) 2-tuples.")
+    @ArgumentClinic(name = "maxevents", conversion = ClinicConversion.Int, defaultValue = "-1")
+    @GenerateNodeFactory
+    abstract static class PollNode extends PythonTernaryClinicBuiltinNode {
+
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return PollNodeClinicProviderGen.INSTANCE;
+        }
+
+        @Specialization
+        PList poll(VirtualFrame frame, PEpoll self, Object timeoutObj, int maxeventsIn,
+                        @Cached PyTimeFromObjectNode pyTimeFromObjectNode,
+                        @CachedLibrary("getPosixSupport()") PosixSupportLibrary posixLib,
+                        @Cached GilNode gil) {
+            if (self.isClosed()) {
+                throw raise(ValueError, ErrorMessages.IO_OPERATION_ON_CLOSED_EPOLL);
+            }
+            Timeval timeout = null;
+            if (!PGuards.isPNone(timeoutObj)) {
+                long ns = pyTimeFromObjectNode.execute(frame, timeoutObj, RoundType.TIMEOUT, SEC_TO_NS);
+                if (ns >= 0) {
+                    timeout = TimeUtils.pyTimeAsTimeval(ns);
+                }
+            }
+            int maxevents = maxeventsIn;
+            if (maxevents == -1) {
+                maxevents = PosixConstants.FD_SETSIZE.value - 1;
+                int registeredCount = self.getRegisteredCount();
+                if (registeredCount >= 0) {
+                    // events of the fds that do not fit are reported by the next poll
+                    maxevents = Math.max(1, Math.min(maxevents, registeredCount));
+                }
+            } else if (maxevents < 1) {
+                throw raise(ValueError, ErrorMessages.MAXEVENTS_MUST_BE_GREATER_THAN_ZERO, maxevents);
+            }
+            int[] fds = new int[maxevents];
+            int[] events = new int[maxevents];
+            int n;
+            try {
+                gil.release(true);
+                try {
+                    n = posixLib.epollWait(getPosixSupport(), self.getEpfd(), fds, events, timeout);
+                } finally {
+                    gil.acquire();
+                }
+            } catch (PosixException e) {
+                throw raiseOSErrorFromPosixException(frame, e);
+            }
+            Object[] result = new Object[n];
+            for (int i = 0; i < n; i++) {
+                result[i] = factory().createTuple(new Object[]{fds[i], Integer.toUnsignedLong(events[i])});
+            }
+            return factory().createList(result);
+        }
+    }
+
+    @Builtin(name = "close", minNumOfPositionalArgs = 1, doc = "close($self, /)\n--\n\nClose the epoll control file descriptor.\n\nFurther operations on the epoll object will raise an exception.")
+    @GenerateNodeFactory
+    abstract static class CloseNode extends PythonUnaryBuiltinNode {
+
+        @Specialization
+        Object close(VirtualFrame frame, PEpoll self,
+                        @CachedLibrary("getPosixSupport()") PosixSupportLibrary posixLib) {
+            if (!self.isClosed()) {
+                int epfd = self.getEpfd();
+                self.markClosed();
+                try {
+                    posixLib.close(getPosixSupport(), epfd);
+                } catch (PosixException e) {
+                    throw raiseOSErrorFromPosixException(frame, e);
+                }
+            }
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "closed", minNumOfPositionalArgs = 1, isGetter = true, doc = "True if the epoll handler is closed")
+    @GenerateNodeFactory
+    abstract static class ClosedNode extends PythonUnaryBuiltinNode {
+
+        @Specialization
+        static boolean closed(PEpoll self) {
+            return self.isClosed();
+        }
+    }
+
+    @Builtin(name = "fileno", minNumOfPositionalArgs = 1, doc = "fileno($self, /)\n--\n\nReturn the epoll control file descriptor.")
+    @GenerateNodeFactory
+    abstract static class FilenoNode extends PythonUnaryBuiltinNode {
+
+        @Specialization
+        int fileno(PEpoll self) {
+            if (self.isClosed()) {
+                throw raise(ValueError, ErrorMessages.IO_OPERATION_ON_CLOSED_EPOLL);
+            }
+            return self.getEpfd();
+        }
+    }
+
+    @Builtin(name = "fromfd", minNumOfPositionalArgs = 2, isClassmethod = true, parameterNames = {"$cls", "fd"}, //
+                    doc = "fromfd($type, fd, /)\n--\n\nCreate an epoll object from a given control fd.")
+    @GenerateNodeFactory
+    abstract static class FromFdNode extends PythonBinaryBuiltinNode {
+
+        @Specialization
+        PEpoll fromfd(VirtualFrame frame, Object cls, Object fdObj,
+                        @Cached PyObjectAsFileDescriptor asFileDescriptor) {
+            PEpoll epoll = factory().createEpoll(cls, asFileDescriptor.execute(frame, fdObj));
+            // the fd may already have registrations that were made elsewhere
+            epoll.markRegisteredCountUnknown();
+            return epoll;
+        }
+    }
+
+    @Builtin(name = J___ENTER__, minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class EnterNode extends PythonUnaryBuiltinNode {
+
+        @Specialization
+        Object enter(PEpoll self) {
+            if (self.isClosed()) {
+                throw raise(ValueError, ErrorMessages.IO_OPERATION_ON_CLOSED_EPOLL);
+            }
+            return self;
+        }
+    }
+
+    @Builtin(name = J___EXIT__, minNumOfPositionalArgs = 4)
+    @GenerateNodeFactory
+    abstract static class ExitNode extends PythonBuiltinNode {
+        protected static final TruffleString T_CLOSE = tsLiteral("close");
+
+        @Specialization
+        static Object exit(VirtualFrame frame, PEpoll self, @SuppressWarnings("unused") Object typ, @SuppressWarnings("unused") Object val, @SuppressWarnings("unused") Object tb,
+                        @Cached("create(T_CLOSE)") LookupAndCallUnaryNode callCloseNode) {
+            return callCloseNode.executeObject(frame, self);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.struct;
+
+/**
+ * A format character of a compiled {@link StructFormat} together with its repeat count. For
+ * {@code s} and {@code p}, the repeat count is the length of the string and they describe a single
+ * value.
+ */
+public final class FormatCode {
+    /**
+     * The format character, e.g. {@code 'i'}.
+     */
+    public final char code;
+    /**
+     * Offset of the first value in the packed data, in bytes.
+     */
+    public final int offset;
+    /**
+     * Number of bytes of each value.
+     */
+    public final int size;
+    /**
+     * Number of consecutive values described by this code.
+     */
+    public final int count;
+    /**
+     * Whether the bytes need to be reversed relative to the platform byte order.
+     */
+    public final boolean swap;
+    /**
+     * Whether the value is packed using the native sizes and error messages, i.e. the {@code '@'}
+     * mode.
+     */
+    public final boolean nativeMode;
+
+    FormatCode(char code, int offset, int size, int count, boolean swap, boolean nativeMode) {
+        this.code = code;
+        this.offset = offset;
+        this.size = size;
+        this.count = count;
+        this.swap = swap;
+        this.nativeMode = nativeMode;
+    }
+
+    public boolean isInteger() {
+        switch (code) {
+            case 'b':
+            case 'B':
+            case 'h':
+            case 'H':
+            case 'i':
+            case 'I':
+            case 'l':
+            case 'L':
+            case 'q':
+            case 'Q':
+            case 'n':
+            case 'N':
+            case 'P':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public boolean isUnsigned() {
+        switch (code) {
+            case 'B':
+            case 'H':
+            case 'I':
+            case 'L':
+            case 'Q':
+            case 'N':
+            case 'P':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public boolean isFloat() {
+        return code == 'e' || code == 'f' || code == 'd';
+    }
+
+    public boolean isBool() {
+        return code == '?';
+    }
+
+    public boolean isChar() {
+        return code == 'c';
+    }
+
+    public boolean isString() {
+        return code == 's' || code == 'p';
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.struct;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.objects.bytes.BytesUtils;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.nodes.Node;
+
+/**
+ * A {@code struct} format string compiled into the list of values it describes, with their
+ * offsets and sizes resolved. Instances are immutable and do not refer to any context, so they can
+ * be cached in the AST and shared between {@link PStruct} objects with the same format.
+ */
+public final class StructFormat {
+    // CPython clears its cache when it gets larger than this
+    static final int MAX_CACHE_SIZE = 100;
+
+    private static final boolean NATIVE_BIG_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+
+    private final String format;
+    @CompilationFinal(dimensions = 1) private final FormatCode[] codes;
+    private final int length;
+    private final int size;
+
+    private StructFormat(String format, FormatCode[] codes, int length, int size) {
+        this.format = format;
+        this.codes = codes;
+        this.length = length;
+        this.size = size;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public FormatCode[] getCodes() {
+        return codes;
+    }
+
+    /**
+     * The number of values packed or unpacked by this format.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * The number of bytes of the packed data.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Compiles a format string. Raises {@code struct.error} if it is not valid.
+     */
+    @TruffleBoundary
+    public static StructFormat compile(Node raisingNode, String format) {
+        int pos = 0;
+        boolean nativeMode = true;
+        boolean bigEndian = NATIVE_BIG_ENDIAN;
+        if (!format.isEmpty()) {
+            switch (format.charAt(0)) {
+                case '@':
+                    pos++;
+                    break;
+                case '=':
+                    nativeMode = false;
+                    pos++;
+                    break;
+                case '<':
+                    nativeMode = false;
+                    bigEndian = false;
+                    pos++;
+                    break;
+                case '>':
+                case '!':
+                    nativeMode = false;
+                    bigEndian = true;
+                    pos++;
+                    break;
+            }
+        }
+        boolean swap = bigEndian != NATIVE_BIG_ENDIAN;
+
+        ArrayList<FormatCode> codes = new ArrayList<>();
+        int length = 0;
+        long size = 0;
+        for (int i = pos; i < format.length();) {
+            char c = format.charAt(i++);
+            if (c < 128 && BytesUtils.isSpace((byte) c)) {
+                // Py_ISSPACE, only ASCII whitespace is skipped
+                continue;
+            }
+            long num = 1;
+            if (c >= '0' && c <= '9') {
+                num = c - '0';
+                while (i < format.length() && (c = format.charAt(i)) >= '0' && c <= '9') {
+                    num = num * 10 + (c - '0');
+                    if (num > Integer.MAX_VALUE) {
+                        throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.StructError, ErrorMessages.TOTAL_STRUCT_SIZE_TOO_LONG);
+                    }
+                    i++;
+                }
+                if (i == format.length()) {
+                    throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.StructError, ErrorMessages.REPEAT_COUNT_WITHOUT_FMT);
+                }
+                c = format.charAt(i++);
+            }
+            int itemSize = getItemSize(raisingNode, c, nativeMode);
+            if (nativeMode && size > 0 && c != 's' && c != 'p' && c != 'x') {
+                // native values are aligned to their size
+                size = (size + itemSize - 1) / itemSize * itemSize;
+            }
+            if (c == 's' || c == 'p') {
+                codes.add(new FormatCode(c, (int) size, (int) num, 1, swap, nativeMode));
+                length++;
+            } else if (c != 'x' && num > 0) {
+                codes.add(new FormatCode(c, (int) size, itemSize, (int) num, swap, nativeMode));
+                length += (int) num;
+            }
+            size += num * itemSize;
+            if (size > Integer.MAX_VALUE) {
+                throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.StructError, ErrorMessages.TOTAL_STRUCT_SIZE_TOO_LONG);
+            }
+        }
+        return new StructFormat(format, codes.toArray(new FormatCode[0]), length, (int) size);
+    }
+
+    private static int getItemSize(Node raisingNode, char c, boolean nativeMode) {
+        switch (c) {
+            case 'x':
+            case 'c':
+            case 'b':
+            case 'B':
+            case '?':
+            case 's':
+            case 'p':
+                return 1;
+            case 'h':
+            case 'H':
+            case 'e':
+                return 2;
+            case 'i':
+            case 'I':
+            case 'f':
+                return 4;
+            case 'l':
+            case 'L':
+                return nativeMode ? Long.BYTES : Integer.BYTES;
+            case 'q':
+            case 'Q':
+            case 'd':
+                return 8;
+            case 'n':
+            case 'N':
+            case 'P':
+                if (nativeMode) {
+                    return Long.BYTES;
+                }
+                break;
+        }
+        throw PRaiseNode.raiseUncached(raisingNode, PythonBuiltinClassType.StructError, ErrorMessages.BAD_CHAR_IN_STRUCT_FMT);
+    }
+}
@@ -0,0 +1,675 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.struct;
+
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.OverflowError;
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.StructError;
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.TypeError;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.oracle.graal.python.PythonLanguage;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAccessLibrary;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAcquireLibrary;
+import com.oracle.graal.python.builtins.objects.bytes.PBytes;
+import com.oracle.graal.python.builtins.objects.bytes.PBytesLike;
+import com.oracle.graal.python.builtins.objects.ints.PInt;
+import com.oracle.graal.python.builtins.objects.str.PString;
+import com.oracle.graal.python.builtins.objects.tuple.PTuple;
+import com.oracle.graal.python.lib.PyFloatAsDoubleNode;
+import com.oracle.graal.python.lib.PyIndexCheckNode;
+import com.oracle.graal.python.lib.PyLongAsLongAndOverflowNode;
+import com.oracle.graal.python.lib.PyNumberAsSizeNode;
+import com.oracle.graal.python.lib.PyNumberIndexNode;
+import com.oracle.graal.python.lib.PyObjectIsTrueNode;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PNodeWithRaise;
+import com.oracle.graal.python.nodes.PNodeWithRaiseAndIndirectCall;
+import com.oracle.graal.python.nodes.util.CastToTruffleStringNode;
+import com.oracle.graal.python.runtime.exception.PException;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.graal.python.runtime.sequence.storage.ByteSequenceStorage;
+import com.oracle.graal.python.util.NumericSupport;
+import com.oracle.graal.python.util.OverflowException;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Cached.Shared;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+
+public abstract class StructNodes {
+
+    /**
+     * Returns the compiled format for a {@code str} or {@code bytes} format argument. Constant
+     * format strings are cached in the AST, everything else goes through a language-wide cache,
+     * like CPython's {@code _struct} cache.
+     */
+    public abstract static class GetStructFormatNode extends PNodeWithRaise {
+        public abstract StructFormat execute(Object format);
+
+        @Specialization(guards = "format == cachedFormat", limit = "3")
+        StructFormat doCached(@SuppressWarnings("unused") TruffleString format,
+                        @SuppressWarnings("unused") @Cached("format") TruffleString cachedFormat,
+                        @Cached("lookup(cachedFormat)") StructFormat structFormat) {
+            return structFormat;
+        }
+
+        @Specialization(replaces = "doCached")
+        StructFormat doString(TruffleString format) {
+            return lookup(format);
+        }
+
+        @Specialization
+        StructFormat doPString(PString format,
+                        @Cached CastToTruffleStringNode castToStringNode) {
+            return lookup(castToStringNode.execute(format));
+        }
+
+        @Specialization(limit = "1")
+        StructFormat doBytes(PBytes format,
+                        @CachedLibrary("format") PythonBufferAccessLibrary bufferLib) {
+            return lookup(bufferLib.getCopiedByteArray(format));
+        }
+
+        @Fallback
+        StructFormat doOther(Object format) {
+            throw raise(TypeError, ErrorMessages.STRUCT_ARG_MUST_BE_STR_OR_BYTES, format);
+        }
+
+        @TruffleBoundary
+        StructFormat lookup(TruffleString format) {
+            return lookup(format.toJavaStringUncached());
+        }
+
+        @TruffleBoundary
+        private StructFormat lookup(byte[] format) {
+            // non-ASCII characters are rejected as bad format characters
+            return lookup(new String(format, StandardCharsets.ISO_8859_1));
+        }
+
+        @TruffleBoundary
+        private StructFormat lookup(String format) {
+            ConcurrentHashMap<String, StructFormat> cache = PythonLanguage.get(this).structFormatCache;
+            StructFormat result = cache.get(format);
+            if (result == null) {
+                result = StructFormat.compile(this, format);
+                if (cache.size() >= StructFormat.MAX_CACHE_SIZE) {
+                    cache.clear();
+                }
+                cache.put(format, result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Packs {@code args[argsOffset:]} into a writable buffer at the given offset. The caller is
+     * responsible for checking the number of values and the bounds of the buffer.
+     */
+    public abstract static class PackNode extends Node {
+        public abstract void execute(VirtualFrame frame, StructFormat format, Object buffer, int offset, Object[] args, int argsOffset);
+
+        @Specialization(guards = "format == cachedFormat", limit = "3")
+        @ExplodeLoop
+        static void doCached(VirtualFrame frame, @SuppressWarnings("unused") StructFormat format, Object buffer, int offset, Object[] args, int argsOffset,
+                        @Cached("format") StructFormat cachedFormat,
+                        @Cached("createPackValueNodes(cachedFormat)") PackValueNode[] packValueNodes) {
+            FormatCode[] codes = cachedFormat.getCodes();
+            int argIdx = argsOffset;
+            for (int i = 0; i < packValueNodes.length; i++) {
+                packValueNodes[i].execute(frame, codes[i], buffer, offset, args, argIdx);
+                argIdx += codes[i].count;
+            }
+        }
+
+        @Specialization(replaces = "doCached")
+        static void doGeneric(VirtualFrame frame, StructFormat format, Object buffer, int offset, Object[] args, int argsOffset,
+                        @Cached PackValueNode packValueNode) {
+            int argIdx = argsOffset;
+            for (FormatCode code : format.getCodes()) {
+                packValueNode.execute(frame, code, buffer, offset, args, argIdx);
+                argIdx += code.count;
+            }
+        }
+
+        static PackValueNode[] createPackValueNodes(StructFormat format) {
+            PackValueNode[] nodes = new PackValueNode[format.getCodes().length];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = StructNodesFactory.PackValueNodeGen.create();
+            }
+            return nodes;
+        }
+    }
+
+    /**
+     * Unpacks all values of the format from a buffer at the given offset. The caller is
+     * responsible for checking the bounds of the buffer.
+     */
+    public abstract static class UnpackNode extends Node {
+        public abstract Object[] execute(StructFormat format, Object buffer, int offset);
+
+        @Specialization(guards = "format == cachedFormat", limit = "3")
+        @ExplodeLoop
+        static Object[] doCached(@SuppressWarnings("unused") StructFormat format, Object buffer, int offset,
+                        @Cached("format") StructFormat cachedFormat,
+                        @Cached("createUnpackValueNodes(cachedFormat)") UnpackValueNode[] unpackValueNodes) {
+            FormatCode[] codes = cachedFormat.getCodes();
+            Object[] result = new Object[cachedFormat.getLength()];
+            int resultIdx = 0;
+            for (int i = 0; i < unpackValueNodes.length; i++) {
+                unpackValueNodes[i].execute(codes[i], buffer, offset, result, resultIdx);
+                resultIdx += codes[i].count;
+            }
+            return result;
+        }
+
+        @Specialization(replaces = "doCached")
+        static Object[] doGeneric(StructFormat format, Object buffer, int offset,
+                        @Cached UnpackValueNode unpackValueNode) {
+            Object[] result = new Object[format.getLength()];
+            int resultIdx = 0;
+            for (FormatCode code : format.getCodes()) {
+                unpackValueNode.execute(code, buffer, offset, result, resultIdx);
+                resultIdx += code.count;
+            }
+            return result;
+        }
+
+        static UnpackValueNode[] createUnpackValueNodes(StructFormat format) {
+            UnpackValueNode[] nodes = new UnpackValueNode[format.getCodes().length];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = StructNodesFactory.UnpackValueNodeGen.create();
+            }
+            return nodes;
+        }
+    }
+
+    /**
+     * Packs the values of a single {@link FormatCode}.
+     */
+    public abstract static class PackValueNode extends PNodeWithRaise {
+        public abstract void execute(VirtualFrame frame, FormatCode code, Object buffer, int offset, Object[] args, int argsOffset);
+
+        @Specialization(guards = "code.isInteger()")
+        void doInteger(VirtualFrame frame, FormatCode code, Object buffer, int offset, Object[] args, int argsOffset,
+                        @Shared("bufferLib") @CachedLibrary(limit = "3") PythonBufferAccessLibrary bufferLib,
+                        @Cached PyIndexCheckNode indexCheckNode,
+                        @Cached PyNumberIndexNode indexNode,
+                        @Cached PyLongAsLongAndOverflowNode asLongNode) {
+            for (int i = 0; i < code.count; i++) {
+                Object value = args[argsOffset + i];
+                if (!indexCheckNode.execute(value)) {
+                    throw raise(StructError, ErrorMessages.STRUCT_ARG_NOT_AN_INTEGER);
+                }
+                Object index = indexNode.execute(frame, value);
+                long longValue;
+                try {
+                    longValue = asLongNode.execute(frame, index);
+                    checkRange(code, longValue);
+                } catch (OverflowException e) {
+                    if (code.isUnsigned() && code.size == Long.BYTES && index instanceof PInt && fitsInUnsignedLong((PInt) index)) {
+                        longValue = ((PInt) index).longValue();
+                    } else {
+                        throw rangeError(code);
+                    }
+                }
+                int pos = offset + code.offset + i * code.size;
+                switch (code.size) {
+                    case 1:
+                        bufferLib.writeByte(buffer, pos, (byte) longValue);
+                        break;
+                    case 2:
+                        writeShort(bufferLib, buffer, pos, code.swap, (short) longValue);
+                        break;
+                    case 4:
+                        writeInt(bufferLib, buffer, pos, code.swap, (int) longValue);
+                        break;
+                    case 8:
+                        writeLong(bufferLib, buffer, pos, code.swap, longValue);
+                        break;
+                    default:
+                        throw CompilerDirectives.shouldNotReachHere();
+                }
+            }
+        }
+
+        @Specialization(guards = "code.isFloat()")
+        void doFloat(VirtualFrame frame, FormatCode code, Object buffer, int offset, Object[] args, int argsOffset,
+                        @Shared("bufferLib") @CachedLibrary(limit = "3") PythonBufferAccessLibrary bufferLib,
+                        @Cached PyFloatAsDoubleNode asDoubleNode) {
+            for (int i = 0; i < code.count; i++) {
+                double value;
+                try {
+                    value = asDoubleNode.execute(frame, args[argsOffset + i]);
+                } catch (PException e) {
+                    throw raise(StructError, ErrorMessages.STRUCT_ARG_NOT_A_FLOAT);
+                }
+                int pos = offset + code.offset + i * code.size;
+                switch (code.size) {
+                    case 2:
+                        writeShort(bufferLib, buffer, pos, code.swap, NumericSupport.floatToShortBits(this, value));
+                        break;
+                    case 4:
+                        float floatValue = (float) value;
+                        if (Float.isInfinite(floatValue) && !Double.isInfinite(value)) {
+                            throw raise(OverflowError, ErrorMessages.FLOAT_TO_LARGE_TO_PACK_WITH_S_FMT, "f");
+                        }
+                        writeInt(bufferLib, buffer, pos, code.swap, Float.floatToRawIntBits(floatValue));
+                        break;
+                    case 8:
+                        writeLong(bufferLib, buffer, pos, code.swap, Double.doubleToRawLongBits(value));
+                        break;
+                    default:
+                        throw CompilerDirectives.shouldNotReachHere();
+                }
+            }
+        }
+
+        @Specialization(guards = "code.isBool()")
+        static void doBool(VirtualFrame frame, FormatCode code, Object buffer, int offset, Object[] args, int argsOffset,
+                        @Shared("bufferLib") @CachedLibrary(limit = "3") PythonBufferAccessLibrary bufferLib,
+                        @Cached PyObjectIsTrueNode isTrueNode) {
+            for (int i = 0; i < code.count; i++) {
+                bufferLib.writeByte(buffer, offset + code.offset + i, isTrueNode.execute(frame, args[argsOffset + i]) ? (byte) 1 : (byte) 0);
+            }
+        }
+
+        @Specialization(guards = "code.isChar()")
+        void doChar(FormatCode code, Object buffer, int offset, Object[] args, int argsOffset,
+                        @Shared("bufferLib") @CachedLibrary(limit = "3") PythonBufferAccessLibrary bufferLib) {
+            for (int i = 0; i < code.count; i++) {
+                Object value = args[argsOffset + i];
+                if (!(value instanceof PBytes) || bufferLib.getBufferLength(value) != 1) {
+                    throw raise(StructError, ErrorMessages.STRUCT_CHAR_FMT_REQUIRES_BYTES);
+                }
+                bufferLib.writeByte(buffer, offset + code.offset + i, bufferLib.readByte(value, 0));
+            }
+        }
+
+        @Specialization(guards = "code.isString()")
+        void doString(FormatCode code, Object buffer, int offset, Object[] args, int argsOffset,
+                        @Shared("bufferLib") @CachedLibrary(limit = "3") PythonBufferAccessLibrary bufferLib) {
+            Object value = args[argsOffset];
+            if (!(value instanceof PBytesLike)) {
+                throw raise(StructError, ErrorMessages.STRUCT_ARG_FOR_S_MUST_BE_BYTES, code.code == 's' ? "s" : "p");
+            }
+            int length = bufferLib.getBufferLength(value);
+            int pos = offset + code.offset;
+            if (code.code == 's') {
+                bufferLib.readIntoBuffer(value, 0, buffer, pos, Math.min(length, code.size), bufferLib);
+            } else if (code.size > 0) {
+                // Pascal string: the first byte is the length, capped at 255 like in CPython
+                int n = Math.min(length, code.size - 1);
+                bufferLib.writeByte(buffer, pos, (byte) Math.min(n, 255));
+                bufferLib.readIntoBuffer(value, 0, buffer, pos + 1, n, bufferLib);
+            }
+        }
+
+        private static void checkRange(FormatCode code, long value) throws OverflowException {
+            if (code.size == Long.BYTES) {
+                if (value < 0 && code.isUnsigned() && code.code != 'P') {
+                    throw OverflowException.INSTANCE;
+                }
+            } else if (code.isUnsigned()) {
+                if (value < 0 || value >= (1L << (code.size * 8))) {
+                    throw OverflowException.INSTANCE;
+                }
+            } else {
+                long max = (1L << (code.size * 8 - 1)) - 1;
+                if (value < -max - 1 || value > max) {
+                    throw OverflowException.INSTANCE;
+                }
+            }
+        }
+
+        private PException rangeError(FormatCode code) {
+            if (code.nativeMode) {
+                switch (code.code) {
+                    case 'b':
+                        throw raise(StructError, ErrorMessages.STRUCT_BYTE_FMT_REQUIRES_RANGE);
+                    case 'B':
+                        throw raise(StructError, ErrorMessages.STRUCT_UBYTE_FMT_REQUIRES_RANGE);
+                    case 'h':
+                        throw raise(StructError, ErrorMessages.STRUCT_SHORT_FMT_REQUIRES_RANGE);
+                    case 'H':
+                        throw raise(StructError, ErrorMessages.STRUCT_USHORT_FMT_REQUIRES_RANGE);
+                }
+                if (code.size == Long.BYTES) {
+                    throw raise(StructError, ErrorMessages.STRUCT_ARG_OUT_OF_RANGE);
+                }
+            }
+            throw raise(StructError, ErrorMessages.STRUCT_FMT_REQUIRES_RANGE, getRangeArguments(code));
+        }
+
+        @TruffleBoundary
+        private static Object[] getRangeArguments(FormatCode code) {
+            int bits = code.size * 8 - (code.isUnsigned() ? 0 : 1);
+            BigInteger max = BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE);
+            BigInteger min = code.isUnsigned() ? BigInteger.ZERO : max.negate().subtract(BigInteger.ONE);
+            return new Object[]{String.valueOf(code.code), min.toString(), max.toString()};
+        }
+
+        @TruffleBoundary
+        private static boolean fitsInUnsignedLong(PInt value) {
+            return value.getValue().signum() >= 0 && value.getValue().bitLength() <= Long.SIZE;
+        }
+
+        private static void writeShort(PythonBufferAccessLibrary bufferLib, Object buffer, int pos, boolean swap, short value) {
+            bufferLib.writeShort(buffer, pos, swap ? Short.reverseBytes(value) : value);
+        }
+
+        private static void writeInt(PythonBufferAccessLibrary bufferLib, Object buffer, int pos, boolean swap, int value) {
+            bufferLib.writeInt(buffer, pos, swap ? Integer.reverseBytes(value) : value);
+        }
+
+        private static void writeLong(PythonBufferAccessLibrary bufferLib, Object buffer, int pos, boolean swap, long value) {
+            bufferLib.writeLong(buffer, pos, swap ? Long.reverseBytes(value) : value);
+        }
+    }
+
+    /**
+     * Unpacks the values of a single {@link FormatCode}.
+     */
+    public abstract static class UnpackValueNode extends Node {
+        public abstract void execute(FormatCode code, Object buffer, int offset, Object[] result, int resultOffset);
+
+        @Specialization(guards = "code.isInteger()")
+        static void doInteger(FormatCode code, Object buffer, int offset, Object[] result, int resultOffset,
+                        @Shared("bufferLib") @CachedLibrary(limit = "3") PythonBufferAccessLibrary bufferLib,
+                        @Shared("factory") @Cached PythonObjectFactory factory) {
+            for (int i = 0; i < code.count; i++) {
+                int pos = offset + code.offset + i * code.size;
+                Object value;
+                switch (code.size) {
+                    case 1: {
+                        byte b = bufferLib.readByte(buffer, pos);
+                        value = code.isUnsigned() ? b & 0xFF : (int) b;
+                        break;
+                    }
+                    case 2: {
+                        short s = readShort(bufferLib, buffer, pos, code.swap);
+                        value = code.isUnsigned() ? s & 0xFFFF : (int) s;
+                        break;
+                    }
+                    case 4: {
+                        int v = readInt(bufferLib, buffer, pos, code.swap);
+                        value = code.isUnsigned() ? (Object) (v & 0xFFFFFFFFL) : (Object) v;
+                        break;
+                    }
+                    case 8: {
+                        long v = readLong(bufferLib, buffer, pos, code.swap);
+                        value = code.isUnsigned() && v < 0 ? factory.createInt(NumericSupport.asUnsigned(v)) : (Object) v;
+                        break;
+                    }
+                    default:
+                        throw CompilerDirectives.shouldNotReachHere();
+                }
+                result[resultOffset + i] = value;
+            }
+        }
+
+        @Specialization(guards = "code.isFloat()")
+        static void doFloat(FormatCode code, Object buffer, int offset, Object[] result, int resultOffset,
+                        @Shared("bufferLib") @CachedLibrary(limit = "3") PythonBufferAccessLibrary bufferLib) {
+            for (int i = 0; i < code.count; i++) {
+                int pos = offset + code.offset + i * code.size;
+                double value;
+                switch (code.size) {
+                    case 2:
+                        value = NumericSupport.shortBitsToFloat(readShort(bufferLib, buffer, pos, code.swap));
+                        break;
+                    case 4:
+                        value = Float.intBitsToFloat(readInt(bufferLib, buffer, pos, code.swap));
+                        break;
+                    case 8:
+                        value = Double.longBitsToDouble(readLong(bufferLib, buffer, pos, code.swap));
+                        break;
+                    default:
+                        throw CompilerDirectives.shouldNotReachHere();
+                }
+                result[resultOffset + i] = value;
+            }
+        }
+
+        @Specialization(guards = "code.isBool()")
+        static void doBool(FormatCode code, Object buffer, int offset, Object[] result, int resultOffset,
+                        @Shared("bufferLib") @CachedLibrary(limit = "3") PythonBufferAccessLibrary bufferLib) {
+            for (int i = 0; i < code.count; i++) {
+                result[resultOffset + i] = bufferLib.readByte(buffer, offset + code.offset + i) != 0;
+            }
+        }
+
+        @Specialization(guards = "code.isChar()")
+        static void doChar(FormatCode code, Object buffer, int offset, Object[] result, int resultOffset,
+                        @Shared("bufferLib") @CachedLibrary(limit = "3") PythonBufferAccessLibrary bufferLib,
+                        @Shared("factory") @Cached PythonObjectFactory factory) {
+            for (int i = 0; i < code.count; i++) {
+                result[resultOffset + i] = factory.createBytes(new byte[]{bufferLib.readByte(buffer, offset + code.offset + i)});
+            }
+        }
+
+        @Specialization(guards = "code.isString()")
+        static void doString(FormatCode code, Object buffer, int offset, Object[] result, int resultOffset,
+                        @Shared("bufferLib") @CachedLibrary(limit = "3") PythonBufferAccessLibrary bufferLib,
+                        @Shared("factory") @Cached PythonObjectFactory factory) {
+            int pos = offset + code.offset;
+            if (code.code == 's') {
+                result[resultOffset] = factory.createBytes(bufferLib.getCopyOfRange(buffer, pos, pos + code.size));
+            } else if (code.size == 0) {
+                result[resultOffset] = factory.createBytes(new byte[0]);
+            } else {
+                int n = Math.min(bufferLib.readByte(buffer, pos) & 0xFF, code.size - 1);
+                result[resultOffset] = factory.createBytes(bufferLib.getCopyOfRange(buffer, pos + 1, pos + 1 + n));
+            }
+        }
+
+        private static short readShort(PythonBufferAccessLibrary bufferLib, Object buffer, int pos, boolean swap) {
+            short value = bufferLib.readShort(buffer, pos);
+            return swap ? Short.reverseBytes(value) : value;
+        }
+
+        private static int readInt(PythonBufferAccessLibrary bufferLib, Object buffer, int pos, boolean swap) {
+            int value = bufferLib.readInt(buffer, pos);
+            return swap ? Integer.reverseBytes(value) : value;
+        }
+
+        private static long readLong(PythonBufferAccessLibrary bufferLib, Object buffer, int pos, boolean swap) {
+            long value = bufferLib.readLong(buffer, pos);
+            return swap ? Long.reverseBytes(value) : value;
+        }
+    }
+
+    /**
+     * {@code pack(v1, v2, ...)}
+     */
+    public abstract static class PackBytesNode extends PNodeWithRaise {
+        public abstract PBytes execute(VirtualFrame frame, StructFormat format, Object[] args);
+
+        @Specialization
+        PBytes pack(VirtualFrame frame, StructFormat format, Object[] args,
+                        @Cached PackNode packNode,
+                        @Cached PythonObjectFactory factory) {
+            if (args.length != format.getLength()) {
+                throw raise(StructError, ErrorMessages.STRUCT_S_EXPECTED_D_ITEMS, "pack", format.getLength(), args.length);
+            }
+            ByteSequenceStorage storage = new ByteSequenceStorage(new byte[format.getSize()]);
+            packNode.execute(frame, format, storage, 0, args, 0);
+            return factory.createBytes(storage);
+        }
+    }
+
+    /**
+     * {@code pack_into(buffer, offset, v1, v2, ...)}, the arguments start at {@code args[0]}.
+     */
+    public abstract static class PackIntoNode extends PNodeWithRaiseAndIndirectCall {
+        public abstract void execute(VirtualFrame frame, StructFormat format, Object[] args);
+
+        @Specialization
+        void packInto(VirtualFrame frame, StructFormat format, Object[] args,
+                        @CachedLibrary(limit = "3") PythonBufferAcquireLibrary acquireLib,
+                        @CachedLibrary(limit = "3") PythonBufferAccessLibrary bufferLib,
+                        @Cached PyNumberAsSizeNode asSizeNode,
+                        @Cached PackNode packNode) {
+            if (args.length != format.getLength() + 2) {
+                if (args.length == 0) {
+                    throw raise(TypeError, ErrorMessages.STRUCT_PACK_INTO_EXPECTED_BUFFER);
+                } else if (args.length == 1) {
+                    throw raise(TypeError, ErrorMessages.STRUCT_PACK_INTO_EXPECTED_OFFSET);
+                }
+                throw raise(StructError, ErrorMessages.STRUCT_S_EXPECTED_D_ITEMS, "pack_into", format.getLength(), args.length - 2);
+            }
+            Object buffer = acquireLib.acquireWritableWithTypeError(args[0], "pack_into", frame, this);
+            try {
+                int offset = asSizeNode.executeExact(frame, args[1]);
+                int length = bufferLib.getBufferLength(buffer);
+                int size = format.getSize();
+                if (offset < 0) {
+                    if (offset + size > 0) {
+                        throw raise(StructError, ErrorMessages.STRUCT_NO_SPACE_TO_PACK, size, offset);
+                    }
+                    if (offset + length < 0) {
+                        throw raise(StructError, ErrorMessages.STRUCT_OFFSET_OUT_OF_RANGE, offset, length);
+                    }
+                    offset += length;
+                }
+                if (length - offset < size) {
+                    throw raise(StructError, ErrorMessages.STRUCT_PACK_INTO_REQUIRES_AT_LEAST, (long) size + offset, size, offset, length);
+                }
+                // like CPython, padding and unused string bytes are zeroed
+                for (int i = 0; i < size; i++) {
+                    bufferLib.writeByte(buffer, offset + i, (byte) 0);
+                }
+                packNode.execute(frame, format, buffer, offset, args, 2);
+            } finally {
+                bufferLib.release(buffer, frame, this);
+            }
+        }
+    }
+
+    /**
+     * {@code unpack(buffer)}
+     */
+    public abstract static class UnpackBufferNode extends PNodeWithRaiseAndIndirectCall {
+        public abstract PTuple execute(VirtualFrame frame, StructFormat format, Object bufferObj);
+
+        @Specialization
+        PTuple unpack(VirtualFrame frame, StructFormat format, Object bufferObj,
+                        @CachedLibrary(limit = "3") PythonBufferAcquireLibrary acquireLib,
+                        @CachedLibrary(limit = "3") PythonBufferAccessLibrary bufferLib,
+                        @Cached UnpackNode unpackNode,
+                        @Cached PythonObjectFactory factory) {
+            Object buffer = acquireLib.acquireReadonly(bufferObj, frame, this);
+            try {
+                if (bufferLib.getBufferLength(buffer) != format.getSize()) {
+                    throw raise(StructError, ErrorMessages.STRUCT_UNPACK_REQUIRES_BUFFER_OF_D_BYTES, format.getSize());
+                }
+                return factory.createTuple(unpackNode.execute(format, buffer, 0));
+            } finally {
+                bufferLib.release(buffer, frame, this);
+            }
+        }
+    }
+
+    /**
+     * {@code unpack_from(buffer, offset=0)}
+     */
+    public abstract static class UnpackFromNode extends PNodeWithRaiseAndIndirectCall {
+        public abstract PTuple execute(VirtualFrame frame, StructFormat format, Object bufferObj, int offset);
+
+        @Specialization
+        PTuple unpackFrom(VirtualFrame frame, StructFormat format, Object bufferObj, int offsetArg,
+                        @CachedLibrary(limit = "3") PythonBufferAcquireLibrary acquireLib,
+                        @CachedLibrary(limit = "3") PythonBufferAccessLibrary bufferLib,
+                        @Cached UnpackNode unpackNode,
+                        @Cached PythonObjectFactory factory) {
+            Object buffer = acquireLib.acquireReadonly(bufferObj, frame, this);
+            try {
+                int offset = offsetArg;
+                int length = bufferLib.getBufferLength(buffer);
+                int size = format.getSize();
+                if (offset < 0) {
+                    if (offset + length < 0) {
+                        throw raise(StructError, ErrorMessages.STRUCT_OFFSET_OUT_OF_RANGE, offset, length);
+                    }
+                    offset += length;
+                }
+                if (length - offset < size) {
+                    throw raise(StructError, ErrorMessages.STRUCT_UNPACK_FROM_REQUIRES_AT_LEAST, (long) size + offset, size, offset, length);
+                }
+                return factory.createTuple(unpackNode.execute(format, buffer, offset));
+            } finally {
+                bufferLib.release(buffer, frame, this);
+            }
+        }
+    }
+
+    /**
+     * {@code iter_unpack(buffer)}
+     */
+    public abstract static class IterUnpackNode extends PNodeWithRaiseAndIndirectCall {
+        public abstract PStructUnpackIterator execute(VirtualFrame frame, StructFormat format, Object bufferObj);
+
+        @Specialization
+        PStructUnpackIterator iterUnpack(VirtualFrame frame, StructFormat format, Object bufferObj,
+                        @CachedLibrary(limit = "3") PythonBufferAcquireLibrary acquireLib,
+                        @CachedLibrary(limit = "3") PythonBufferAccessLibrary bufferLib,
+                        @Cached PythonObjectFactory factory) {
+            if (format.getSize() == 0) {
+                throw raise(StructError, ErrorMessages.STRUCT_CANNOT_ITER_UNPACK_EMPTY);
+            }
+            Object buffer = acquireLib.acquireReadonly(bufferObj, frame, this);
+            int length = bufferLib.getBufferLength(buffer);
+            if (length % format.getSize() != 0) {
+                bufferLib.release(buffer, frame, this);
+                throw raise(StructError, ErrorMessages.STRUCT_ITER_UNPACK_REQUIRES_MULTIPLE, format.getSize());
+            }
+            return factory.createStructUnpackIterator(format, buffer, length);
+        }
+    }
+}
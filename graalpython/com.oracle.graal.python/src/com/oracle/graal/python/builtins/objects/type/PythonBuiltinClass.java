@@ -93,6 +93,7 @@ public final class PythonBuiltinClass extends PythonManagedClass {
     @Override
     public void onAttributeUpdate(TruffleString key, Object newValue) {
         assert !PythonContext.get(null).isCoreInitialized();
+        getMethodResolutionOrder().invalidateVersionTag();
         // Ideally, startup code should not create ASTs that rely on assumptions of props of
         // builtins. So there should be no assumptions to invalidate yet
         assert !getMethodResolutionOrder().invalidateAttributeInMROFinalAssumptions(key);
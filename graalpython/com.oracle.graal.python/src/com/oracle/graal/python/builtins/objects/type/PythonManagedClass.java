@@ -215,7 +215,7 @@ public abstract class PythonManagedClass extends PythonObject implements PythonA
      */
     public boolean canSkipOnAttributeUpdate(TruffleString key, @SuppressWarnings("unused") Object value, TruffleString.CodePointLengthNode codePointLengthNode,
                     TruffleString.CodePointAtIndexNode codePointAtIndexNode) {
-        return !methodResolutionOrder.hasAttributeInMROFinalAssumptions() &&
+        return !methodResolutionOrder.hasAttributeInMROFinalAssumptions() && methodResolutionOrder.getVersionTag() == 0 &&
                         !SpecialMethodSlot.canBeSpecial(key, codePointLengthNode, codePointAtIndexNode);
     }
 
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.type;
+
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.common.DynamicObjectStorage;
+import com.oracle.graal.python.builtins.objects.dict.PDict;
+import com.oracle.graal.python.nodes.attributes.ReadAttributeFromObjectNode;
+import com.oracle.graal.python.nodes.object.GetDictIfExistsNode;
+import com.oracle.graal.python.runtime.sequence.storage.MroSequenceStorage;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * Per-context cache of MRO lookup results for the generic lookup paths, which are used once the
+ * inline caches of a lookup site overflow. This is the equivalent of CPython's type method cache:
+ * entries are keyed by the version tag of the type (see
+ * {@link MroSequenceStorage#getVersionTag()}) and the attribute name. Modifying a type invalidates
+ * its version tag and the tags of its subclasses, so stale entries are never hit again and simply
+ * get overwritten.
+ *
+ * Only types whose whole MRO consists of {@link PythonManagedClass}es with attributes in the
+ * object storage get a version tag, other types are looked up without the cache.
+ */
+public final class TypeAttributeCache {
+    private static final int SIZE_BITS = 12;
+    private static final int MASK = (1 << SIZE_BITS) - 1;
+
+    private static final class Entry {
+        final int versionTag;
+        final TruffleString name;
+        final Object value;
+
+        Entry(int versionTag, TruffleString name, Object value) {
+            this.versionTag = versionTag;
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    private final Entry[] entries = new Entry[MASK + 1];
+    private int nextVersionTag = 1;
+
+    /**
+     * Looks up {@code name} in {@code mro}, which must be obtained through
+     * {@link TypeNodes.GetMroStorageNode} so that it is initialized. Returns
+     * {@link PNone#NO_VALUE} if the attribute is not found.
+     */
+    @TruffleBoundary
+    public Object lookup(MroSequenceStorage mro, TruffleString name) {
+        int versionTag = getOrAssignVersionTag(mro);
+        if (versionTag == 0) {
+            return lookupInMro(mro, name);
+        }
+        int index = (versionTag ^ name.hashCode()) & MASK;
+        Entry entry = entries[index];
+        if (entry != null && entry.versionTag == versionTag && (entry.name == name || entry.name.equals(name))) {
+            return entry.value;
+        }
+        Object value = lookupInMro(mro, name);
+        // the lookup cannot run any code, but check anyway that the type wasn't modified meanwhile
+        if (mro.getVersionTag() == versionTag) {
+            entries[index] = new Entry(versionTag, name, value);
+        }
+        return value;
+    }
+
+    private static Object lookupInMro(MroSequenceStorage mro, TruffleString name) {
+        ReadAttributeFromObjectNode readNode = ReadAttributeFromObjectNode.getUncachedForceType();
+        for (int i = 0; i < mro.length(); i++) {
+            Object value = readNode.execute(mro.getItemNormalized(i), name);
+            if (value != PNone.NO_VALUE) {
+                return value;
+            }
+        }
+        return PNone.NO_VALUE;
+    }
+
+    private int getOrAssignVersionTag(MroSequenceStorage mro) {
+        int versionTag = mro.getVersionTag();
+        if (versionTag != 0) {
+            return versionTag;
+        }
+        if (nextVersionTag == Integer.MAX_VALUE || mro.length() == 0 || !hasObjectStorage(mro.getItemNormalized(0))) {
+            return 0;
+        }
+        for (int i = 1; i < mro.length(); i++) {
+            PythonAbstractClass base = mro.getItemNormalized(i);
+            if (!(base instanceof PythonManagedClass) || getOrAssignVersionTag(TypeNodes.GetMroStorageNode.getUncached().execute(base)) == 0) {
+                return 0;
+            }
+        }
+        versionTag = nextVersionTag++;
+        mro.setVersionTag(versionTag);
+        for (int i = 1; i < mro.length(); i++) {
+            TypeNodes.GetMroStorageNode.getUncached().execute(mro.getItemNormalized(i)).addVersionTagDependent(mro);
+        }
+        return versionTag;
+    }
+
+    /**
+     * Writes to the attributes of a managed class invalidate the version tag only if they go
+     * through the object storage, a class dict that was converted to a different storage could be
+     * modified behind our back.
+     */
+    private static boolean hasObjectStorage(PythonAbstractClass klass) {
+        if (!(klass instanceof PythonManagedClass)) {
+            return false;
+        }
+        PDict dict = GetDictIfExistsNode.getUncached().execute(klass);
+        return dict == null || dict.getDictStorage() instanceof DynamicObjectStorage;
+    }
+}
@@ -406,6 +406,7 @@ public abstract class TypeNodes {
                     result = DEFAULT | HAVE_GC | BASETYPE | DICT_SUBCLASS | MATCH_SELF | MAPPING;
                     break;
                 case PDefaultDict:
+                case POrderedDict:
                     result = DEFAULT | HAVE_GC | BASETYPE | MAPPING;
                     break;
                 case PBaseException:
@@ -92,11 +92,28 @@ public final class CodeUnit {
 
     public final int conditionProfileCount;
 
+    /*
+     * Helper node slots of the root node. An instruction that can create helper nodes owns
+     * OpCodes#helperNodeSlots consecutive slots, addressed by its begin bci plus a small offset.
+     * nodeSlotBits has a bit set for each such bci and nodeSlotBase holds the number of bits set
+     * before each word, so the slot of a bci is its rank in the bit set, see getNodeIndex.
+     */
+    @CompilationFinal(dimensions = 1) public final long[] nodeSlotBits;
+    @CompilationFinal(dimensions = 1) public final int[] nodeSlotBase;
+    public final int nodeCount;
+
     public final int startLine;
     public final int startColumn;
     public final int endLine;
     public final int endColumn;
 
+    /*
+     * Filename set on a LazyCodeUnit before it was decoded. Filenames set on decoded code units are
+     * kept per context, see PythonContext#getCodeUnitFilename. Written before the unit is
+     * published.
+     */
+    TruffleString filenameBeforeDecoding;
+
     /* Lazily initialized source map */
     @CompilationFinal SourceMap sourceMap;
 
@@ -143,6 +160,9 @@ public final class CodeUnit {
         this.primitiveConstants = primitiveConstants;
         this.exceptionHandlerRanges = exceptionHandlerRanges;
         this.conditionProfileCount = conditionProfileCount;
+        this.nodeSlotBits = new long[(code.length + 63) >> 6];
+        this.nodeSlotBase = new int[nodeSlotBits.length];
+        this.nodeCount = assignNodeSlots(code, nodeSlotBits, nodeSlotBase);
         this.startLine = startLine;
         this.startColumn = startColumn;
         this.endLine = endLine;
@@ -153,6 +173,32 @@ public final class CodeUnit {
         this.generalizeVarsMap = generalizeVarsMap;
     }
 
+    private static int assignNodeSlots(byte[] code, long[] bits, int[] base) {
+        for (int bci = 0; bci < code.length;) {
+            OpCodes op = OpCodes.fromOpCode(code[bci]);
+            for (int i = 0; i < op.helperNodeSlots(); i++) {
+                bits[(bci + i) >> 6] |= 1L << (bci + i);
+            }
+            bci += op.length();
+        }
+        int count = 0;
+        for (int i = 0; i < bits.length; i++) {
+            base[i] = count;
+            count += Long.bitCount(bits[i]);
+        }
+        return count;
+    }
+
+    public int getNodeIndex(int bci) {
+        long bits = nodeSlotBits[bci >> 6];
+        assert (bits & (1L << bci)) != 0;
+        return nodeSlotBase[bci >> 6] + Long.bitCount(bits & ((1L << bci) - 1));
+    }
+
+    public TruffleString getFilenameBeforeDecoding() {
+        return filenameBeforeDecoding;
+    }
+
     public SourceMap getSourceMap() {
         if (sourceMap == null) {
             CompilerDirectives.transferToInterpreterAndInvalidate();
@@ -285,8 +331,8 @@ public final class CodeUnit {
                     case LOAD_CONST_COLLECTION:
                     case MAKE_KEYWORD: {
                         Object constant = constants[oparg];
-                        if (constant instanceof CodeUnit) {
-                            line[5] = ((CodeUnit) constant).qualname.toJavaStringUncached();
+                        if (LazyCodeUnit.isCodeUnit(constant)) {
+                            line[5] = LazyCodeUnit.resolve(constant).qualname.toJavaStringUncached();
                         } else {
                             if (constant instanceof TruffleString) {
                                 line[5] = StringNodes.StringReprNode.getUncached().execute((TruffleString) constant).toJavaStringUncached();
@@ -314,7 +360,7 @@ public final class CodeUnit {
                     }
                     case MAKE_FUNCTION: {
                         line[4] = String.format("% 2d", followingArgs[0]);
-                        CodeUnit codeUnit = (CodeUnit) constants[oparg];
+                        CodeUnit codeUnit = LazyCodeUnit.resolve(constants[oparg]);
                         line[5] = line[5] = codeUnit.qualname.toJavaStringUncached();
                         break;
                     }
@@ -483,9 +529,9 @@ public final class CodeUnit {
         }
 
         for (Object c : constants) {
-            if (c instanceof CodeUnit) {
+            if (LazyCodeUnit.isCodeUnit(c)) {
                 sb.append('\n');
-                sb.append(c);
+                sb.append(LazyCodeUnit.resolve(c));
             }
         }
 
@@ -44,6 +44,7 @@ import static com.oracle.graal.python.compiler.OpCodes.ADD_TO_COLLECTION;
 import static com.oracle.graal.python.compiler.OpCodes.BINARY_OP;
 import static com.oracle.graal.python.compiler.OpCodes.BINARY_SUBSCR;
 import static com.oracle.graal.python.compiler.OpCodes.BUILD_SLICE;
+import static com.oracle.graal.python.compiler.OpCodes.BUILD_STRING;
 import static com.oracle.graal.python.compiler.OpCodes.CALL_COMPREHENSION;
 import static com.oracle.graal.python.compiler.OpCodes.CALL_FUNCTION;
 import static com.oracle.graal.python.compiler.OpCodes.CALL_FUNCTION_KW;
@@ -201,7 +202,13 @@ import com.oracle.truffle.api.strings.TruffleString;
  * Compiler for bytecode interpreter.
  */
 public class Compiler implements SSTreeVisitor<Void> {
-    public static final int BYTECODE_VERSION = 27;
+    public static final int BYTECODE_VERSION = 29;
+
+    /*
+     * The most f-string parts that BUILD_STRING concatenates from the stack, longer f-strings are
+     * joined through a list to keep the stack shallow and the exploded concatenation loop short.
+     */
+    private static final int MAX_BUILD_STRING_PARTS = 31;
 
     private final ErrorCallback errorCallback;
 
@@ -1380,11 +1387,23 @@ public class Compiler implements SSTreeVisitor<Void> {
     public Void visit(ExprTy.JoinedStr node) {
         SourceRange savedLocation = setLocation(node);
         try {
-            // TODO add optimized op for small chains
-            addOp(LOAD_STRING, addObject(unit.constants, T_EMPTY_STRING));
-            addOpName(LOAD_METHOD, unit.names, "join");
-            collectIntoArray(node.values, CollectionBits.KIND_LIST);
-            addOp(CALL_METHOD, 1);
+            if (node.values == null || node.values.length == 0) {
+                addOp(LOAD_STRING, addObject(unit.constants, T_EMPTY_STRING));
+            } else if (node.values.length == 1) {
+                // the single part is either a string constant or a formatted value, both are strings
+                node.values[0].accept(this);
+            } else if (node.values.length <= MAX_BUILD_STRING_PARTS) {
+                for (ExprTy value : node.values) {
+                    value.accept(this);
+                }
+                addOp(BUILD_STRING, node.values.length);
+            } else {
+                // long chains are joined through a list so that they don't need a deep stack
+                addOp(LOAD_STRING, addObject(unit.constants, T_EMPTY_STRING));
+                addOpName(LOAD_METHOD, unit.names, "join");
+                collectIntoArray(node.values, CollectionBits.KIND_LIST);
+                addOp(CALL_METHOD, 1);
+            }
             return null;
         } finally {
             setLocation(savedLocation);
@@ -2496,11 +2515,46 @@ public class Compiler implements SSTreeVisitor<Void> {
         return null;
     }
 
+    /**
+     * Compiles a conditional jump to {@code next} taken when {@code test} is {@code jumpIfTrue}.
+     * Boolean operators, {@code not}, conditional expressions and chained comparisons are compiled
+     * directly into jumps, without materializing intermediate values. See compiler_jump_if in
+     * CPython.
+     */
     private void jumpIf(ExprTy test, Block next, boolean jumpIfTrue) {
-        // TODO Optimize for various test types, such as short-circuit operators
-        // See compiler_jump_if in CPython
-        if (test instanceof ExprTy.Compare) {
-            checkCompare((ExprTy.Compare) test);
+        if (test instanceof ExprTy.UnaryOp && ((ExprTy.UnaryOp) test).op == UnaryOpTy.Not) {
+            jumpIf(((ExprTy.UnaryOp) test).operand, next, !jumpIfTrue);
+            return;
+        }
+        if (test instanceof ExprTy.BoolOp) {
+            ExprTy[] values = ((ExprTy.BoolOp) test).values;
+            boolean isOr = ((ExprTy.BoolOp) test).op == BoolOpTy.Or;
+            // Operands other than the last one jump out when they decide the result
+            Block next2 = isOr == jumpIfTrue ? next : new Block();
+            for (int i = 0; i < values.length - 1; i++) {
+                jumpIf(values[i], next2, isOr);
+            }
+            jumpIf(values[values.length - 1], next, jumpIfTrue);
+            if (next2 != next) {
+                unit.useNextBlock(next2);
+            }
+            return;
+        }
+        if (test instanceof ExprTy.IfExp) {
+            ExprTy.IfExp ifExp = (ExprTy.IfExp) test;
+            Block end = new Block();
+            Block next2 = new Block();
+            jumpIf(ifExp.test, next2, false);
+            jumpIf(ifExp.body, next, jumpIfTrue);
+            addOp(JUMP_FORWARD, end);
+            unit.useNextBlock(next2);
+            jumpIf(ifExp.orElse, next, jumpIfTrue);
+            unit.useNextBlock(end);
+            return;
+        }
+        if (test instanceof ExprTy.Compare && ((ExprTy.Compare) test).ops.length > 1) {
+            jumpIfChainedCompare((ExprTy.Compare) test, next, jumpIfTrue);
+            return;
         }
         test.accept(this);
         if (jumpIfTrue) {
@@ -2510,6 +2564,36 @@ public class Compiler implements SSTreeVisitor<Void> {
         }
     }
 
+    private void jumpIfChainedCompare(ExprTy.Compare node, Block next, boolean jumpIfTrue) {
+        SourceRange savedLocation = setLocation(node);
+        checkCompare(node);
+        try {
+            Block cleanup = new Block();
+            node.left.accept(this);
+            int i;
+            for (i = 0; i < node.comparators.length - 1; i++) {
+                node.comparators[i].accept(this);
+                addOp(DUP_TOP);
+                addOp(ROT_THREE);
+                addCompareOp(node.ops[i]);
+                addConditionalJump(POP_AND_JUMP_IF_FALSE, cleanup);
+            }
+            node.comparators[i].accept(this);
+            addCompareOp(node.ops[i]);
+            addConditionalJump(jumpIfTrue ? POP_AND_JUMP_IF_TRUE : POP_AND_JUMP_IF_FALSE, next);
+            Block end = new Block();
+            addOp(JUMP_FORWARD, end);
+            unit.useNextBlock(cleanup);
+            addOp(POP_TOP);
+            if (!jumpIfTrue) {
+                addOp(JUMP_FORWARD, next);
+            }
+            unit.useNextBlock(end);
+        } finally {
+            setLocation(savedLocation);
+        }
+    }
+
     @Override
     public Void visit(StmtTy.Import node) {
         setLocation(node);
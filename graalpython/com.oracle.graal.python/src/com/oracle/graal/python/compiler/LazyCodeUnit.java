@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.compiler;
+
+import com.oracle.graal.python.builtins.modules.MarshalModuleBuiltins;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * Placeholder for a nested {@link CodeUnit} in the constants of a deserialized code unit. Only
+ * the position of the marshalled data is recorded while loading the enclosing code, the nested
+ * unit is decoded the first time it is needed, e.g., when {@code MAKE_FUNCTION} creates its root
+ * node or when {@code co_consts} is accessed. Functions that are never defined therefore do not
+ * cost more than their serialized form.
+ */
+public final class LazyCodeUnit {
+    private byte[] data;
+    private final int offset;
+    private final int length;
+    private volatile CodeUnit codeUnit;
+    // guarded by this
+    private TruffleString filename;
+
+    public LazyCodeUnit(byte[] data, int offset, int length) {
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public CodeUnit resolve() {
+        CodeUnit result = codeUnit;
+        if (result == null) {
+            result = decode();
+        }
+        return result;
+    }
+
+    @TruffleBoundary
+    private synchronized CodeUnit decode() {
+        CodeUnit result = codeUnit;
+        if (result == null) {
+            result = MarshalModuleBuiltins.deserializeCodeUnit(data, offset, length);
+            result.filenameBeforeDecoding = filename;
+            codeUnit = result;
+            data = null;
+        }
+        return result;
+    }
+
+    /**
+     * Keeps the filename set by {@code _imp._fix_co_filename} until the unit is decoded. It is
+     * stored here rather than in the context, because the unit may be decoded in another context.
+     * Returns {@code false} if the unit was already decoded, the caller has to record the filename
+     * for the decoded unit in that case.
+     */
+    public synchronized boolean setFilenameBeforeDecoding(TruffleString newFilename) {
+        if (codeUnit != null) {
+            return false;
+        }
+        filename = newFilename;
+        return true;
+    }
+
+    /**
+     * Returns the code unit of a code constant, decoding it if necessary.
+     */
+    public static CodeUnit resolve(Object constant) {
+        if (constant instanceof LazyCodeUnit) {
+            return ((LazyCodeUnit) constant).resolve();
+        }
+        return (CodeUnit) constant;
+    }
+
+    public static boolean isCodeUnit(Object constant) {
+        return constant instanceof CodeUnit || constant instanceof LazyCodeUnit;
+    }
+}
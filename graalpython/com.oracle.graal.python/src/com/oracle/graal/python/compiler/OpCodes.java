@@ -288,6 +288,15 @@ public enum OpCodes {
      * Pushes: the formatted value
      */
     FORMAT_VALUE(1, (oparg, followingArgs, withJump) -> (oparg & FormatOptions.FVS_MASK) == FormatOptions.FVS_HAVE_SPEC ? 2 : 1, 1),
+    /**
+     * Concatenates strings from the stack into a new string, used for f-strings. The items are
+     * strings produced by {@link #FORMAT_VALUE} or string constants.
+     *
+     * Pops: items to concatenate (count = immediate argument)
+     *
+     * Pushes: the concatenated string
+     */
+    BUILD_STRING(1, (oparg, followingArgs, withJump) -> oparg, 1),
 
     /**
      * Extends the immediate operand of the following instruction by its own operand shifted left by
@@ -808,10 +817,14 @@ public enum OpCodes {
     BINARY_OP_DD_B(BINARY_OP, QuickeningTypes.DOUBLE, QuickeningTypes.BOOLEAN, BINARY_OP_DD_O),
     FOR_ITER_O(FOR_ITER, 0, QuickeningTypes.OBJECT),
     FOR_ITER_I(FOR_ITER, 0, QuickeningTypes.INT, FOR_ITER_O),
+    FOR_ITER_L(FOR_ITER, 0, QuickeningTypes.LONG, FOR_ITER_O),
+    FOR_ITER_D(FOR_ITER, 0, QuickeningTypes.DOUBLE, FOR_ITER_O),
     BINARY_SUBSCR_SEQ_O_O(BINARY_SUBSCR, QuickeningTypes.OBJECT, QuickeningTypes.OBJECT),
     BINARY_SUBSCR_SEQ_I_O(BINARY_SUBSCR, QuickeningTypes.INT, QuickeningTypes.OBJECT),
     BINARY_SUBSCR_SEQ_I_I(BINARY_SUBSCR, QuickeningTypes.INT, QuickeningTypes.INT, BINARY_SUBSCR_SEQ_I_O),
     BINARY_SUBSCR_SEQ_I_D(BINARY_SUBSCR, QuickeningTypes.INT, QuickeningTypes.DOUBLE, BINARY_SUBSCR_SEQ_I_O),
+    BINARY_SUBSCR_SEQ_I_L(BINARY_SUBSCR, QuickeningTypes.INT, QuickeningTypes.LONG, BINARY_SUBSCR_SEQ_I_O),
+    BINARY_SUBSCR_DICT_STR(BINARY_SUBSCR, QuickeningTypes.OBJECT, QuickeningTypes.OBJECT),
     STORE_SUBSCR_OOO(STORE_SUBSCR, QuickeningTypes.OBJECT, 0),
     /*
      * The index and collection inputs are handled manually in the compiler, the input type
@@ -820,10 +833,15 @@ public enum OpCodes {
     STORE_SUBSCR_SEQ_IOO(STORE_SUBSCR, QuickeningTypes.OBJECT, 0),
     STORE_SUBSCR_SEQ_IIO(STORE_SUBSCR, QuickeningTypes.INT, 0),
     STORE_SUBSCR_SEQ_IDO(STORE_SUBSCR, QuickeningTypes.DOUBLE, 0),
+    STORE_SUBSCR_SEQ_ILO(STORE_SUBSCR, QuickeningTypes.LONG, 0),
     POP_AND_JUMP_IF_FALSE_O(POP_AND_JUMP_IF_FALSE, QuickeningTypes.OBJECT, 0),
     POP_AND_JUMP_IF_FALSE_B(POP_AND_JUMP_IF_FALSE, QuickeningTypes.BOOLEAN, 0, POP_AND_JUMP_IF_FALSE_O),
     POP_AND_JUMP_IF_TRUE_O(POP_AND_JUMP_IF_TRUE, QuickeningTypes.OBJECT, 0),
-    POP_AND_JUMP_IF_TRUE_B(POP_AND_JUMP_IF_TRUE, QuickeningTypes.BOOLEAN, 0, POP_AND_JUMP_IF_TRUE_O);
+    POP_AND_JUMP_IF_TRUE_B(POP_AND_JUMP_IF_TRUE, QuickeningTypes.BOOLEAN, 0, POP_AND_JUMP_IF_TRUE_O),
+    FORMAT_VALUE_O(FORMAT_VALUE, QuickeningTypes.OBJECT, 0),
+    FORMAT_VALUE_I(FORMAT_VALUE, QuickeningTypes.INT, 0),
+    FORMAT_VALUE_L(FORMAT_VALUE, QuickeningTypes.LONG, 0),
+    FORMAT_VALUE_D(FORMAT_VALUE, QuickeningTypes.DOUBLE, 0);
 
     public static final class CollectionBits {
         public static final int KIND_MASK = 0b00011111;
@@ -869,6 +887,23 @@ public enum OpCodes {
     static {
         assert values().length < 256;
         System.arraycopy(values(), 0, VALUES, 0, VALUES.length);
+        // instructions whose implementation, including all quickened variants, never creates helper
+        // nodes in the interpreter
+        OpCodes[] withoutNodes = {POP_TOP, ROT_TWO, ROT_THREE, ROT_N, DUP_TOP, NOP, RETURN_VALUE, YIELD_VALUE, EXTENDED_ARG,
+                        LOAD_NONE, LOAD_ELLIPSIS, LOAD_TRUE, LOAD_FALSE, LOAD_BYTE, LOAD_INT, LOAD_LONG, LOAD_DOUBLE, LOAD_BIGINT,
+                        LOAD_STRING, LOAD_BYTES, LOAD_COMPLEX, LOAD_CONST, LOAD_CONST_COLLECTION, LOAD_ASSERTION_ERROR, LOAD_CLOSURE,
+                        CLOSURE_FROM_STACK, STORE_DEREF, STORE_FAST, MAKE_KEYWORD, TUPLE_FROM_LIST, JUMP_FORWARD, JUMP_BACKWARD,
+                        PUSH_EXC_INFO, POP_EXCEPT, UNWRAP_EXC, END_EXC_HANDLER};
+        for (OpCodes op : withoutNodes) {
+            assert op.quickens == null;
+            op.helperNodeSlots = 0;
+        }
+        // instructions that keep a second helper node at their begin bci + 1
+        OpCodes[] withTwoNodes = {FORMAT_VALUE, COLLECTION_ADD_STACK, DELETE_NAME, IMPORT_NAME, CALL_METHOD_VARARGS};
+        for (OpCodes op : withTwoNodes) {
+            assert op.quickens == null && op.length() >= 2;
+            op.helperNodeSlots = 2;
+        }
     }
 
     public final StackEffect consumesStackItems;
@@ -882,6 +917,7 @@ public enum OpCodes {
     public final OpCodes generalizesTo;
     private byte quickenInputTypes;
     private byte quickenOutputTypes;
+    private int helperNodeSlots = 1;
 
     OpCodes(int argLength, int consumesStackItems, int producesStackItems) {
         this(argLength, (oparg, followingArgs, withJump) -> consumesStackItems, (oparg, followingArgs, withJump) -> producesStackItems);
@@ -930,6 +966,19 @@ public enum OpCodes {
         int stackEffect(int oparg, byte[] followingArgs, boolean withJump);
     }
 
+    /**
+     * The number of helper node slots the interpreter uses for this instruction, including all its
+     * quickened and generalized variants. The slots are addressed by the begin bci of the
+     * instruction plus an offset smaller than this number.
+     */
+    public int helperNodeSlots() {
+        OpCodes base = this;
+        while (base.quickens != null) {
+            base = base.quickens;
+        }
+        return base.helperNodeSlots;
+    }
+
     public boolean hasArg() {
         return argLength > 0;
     }
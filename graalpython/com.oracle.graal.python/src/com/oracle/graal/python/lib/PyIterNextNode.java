@@ -43,6 +43,7 @@ package com.oracle.graal.python.lib;
 import com.oracle.graal.python.builtins.objects.PNone;
 import com.oracle.graal.python.builtins.objects.iterator.PBigRangeIterator;
 import com.oracle.graal.python.builtins.objects.iterator.PIntRangeIterator;
+import com.oracle.graal.python.builtins.objects.iterator.PLongRangeIterator;
 import com.oracle.graal.python.nodes.ErrorMessages;
 import com.oracle.graal.python.nodes.PNodeWithContext;
 import com.oracle.graal.python.nodes.PRaiseNode;
@@ -78,6 +79,15 @@ public abstract class PyIterNextNode extends PNodeWithContext {
         return null;
     }
 
+    @Specialization
+    Object doLongRange(PLongRangeIterator iterator) {
+        if (iterator.hasNextLong()) {
+            return iterator.nextLong();
+        }
+        iterator.setExhausted();
+        return null;
+    }
+
     @Specialization
     Object doBigIntRange(PBigRangeIterator iterator,
                     @Cached PythonObjectFactory factory) {
@@ -352,6 +352,7 @@ public abstract class ErrorMessages {
     public static final TruffleString P_HAS_RO_ATTRS_S_TO_DELETE = tsLiteral("'%p' object has only read-only attributes (del .%s)");
     public static final TruffleString HASH_MISMATCH = tsLiteral("hash mismatch: known hash is different to computed hash");
     public static final TruffleString HASH_SHOULD_RETURN_INTEGER = tsLiteral("__hash__ method should return an integer");
+    public static final TruffleString HEAP_ARGUMENT_MUST_BE_A_LIST = tsLiteral("heap argument must be a list");
     public static final TruffleString HEX_VALUE_TOO_LARGE_AS_FLOAT = tsLiteral("hexadecimal value too large to represent as a float");
     public static final TruffleString HOST_ACCESS_NOT_ALLOWED = tsLiteral("host access is not allowed");
     public static final TruffleString HOST_LOOKUP_NOT_ALLOWED = tsLiteral("host lookup is not allowed");
@@ -472,6 +473,7 @@ public abstract class ErrorMessages {
     public static final TruffleString MATH_DOMAIN_ERROR = tsLiteral("math domain error");
     public static final TruffleString MATH_RANGE_ERROR = tsLiteral("math range error");
     public static final TruffleString MAX_MARSHAL_STACK_DEPTH = tsLiteral("Maximum marshal stack depth");
+    public static final TruffleString MAXSIZE_SHOULD_BE_INTEGER_OR_NONE = tsLiteral("maxsize should be integer or None");
     public static final TruffleString M = tsLiteral("%m");
     public static final TruffleString MEMORYVIEW_INVALID_SLICE_KEY = tsLiteral("memoryview: invalid slice key");
     public static final TruffleString MEMORYVIEW_A_BYTES_LIKE_OBJECT_REQUIRED_NOT_P = tsLiteral("memoryview: a bytes-like object is required, not '%p'");
@@ -835,6 +837,31 @@ public abstract class ErrorMessages {
     public static final TruffleString P_GOT_MULTIPLE_VALUES_FOR_ARGUMENT_S = tsLiteral("%p got multiple values for argument '%s'");
     public static final TruffleString RES_O_O_RANGE = tsLiteral("%s result out of range");
     public static final TruffleString FLOAT_TO_LARGE_TO_PACK_WITH_S_FMT = tsLiteral("float too large to pack with %s format");
+    public static final TruffleString BAD_CHAR_IN_STRUCT_FMT = tsLiteral("bad char in struct format");
+    public static final TruffleString REPEAT_COUNT_WITHOUT_FMT = tsLiteral("repeat count given without format specifier");
+    public static final TruffleString TOTAL_STRUCT_SIZE_TOO_LONG = tsLiteral("total struct size too long");
+    public static final TruffleString STRUCT_ARG_NOT_AN_INTEGER = tsLiteral("required argument is not an integer");
+    public static final TruffleString STRUCT_ARG_NOT_A_FLOAT = tsLiteral("required argument is not a float");
+    public static final TruffleString STRUCT_ARG_OUT_OF_RANGE = tsLiteral("argument out of range");
+    public static final TruffleString STRUCT_FMT_REQUIRES_RANGE = tsLiteral("'%s' format requires %s <= number <= %s");
+    public static final TruffleString STRUCT_BYTE_FMT_REQUIRES_RANGE = tsLiteral("byte format requires -128 <= number <= 127");
+    public static final TruffleString STRUCT_UBYTE_FMT_REQUIRES_RANGE = tsLiteral("ubyte format requires 0 <= number <= 255");
+    public static final TruffleString STRUCT_SHORT_FMT_REQUIRES_RANGE = tsLiteral("short format requires -32768 <= number <= 32767");
+    public static final TruffleString STRUCT_USHORT_FMT_REQUIRES_RANGE = tsLiteral("ushort format requires 0 <= number <= 65535");
+    public static final TruffleString STRUCT_CHAR_FMT_REQUIRES_BYTES = tsLiteral("char format requires a bytes object of length 1");
+    public static final TruffleString STRUCT_ARG_FOR_S_MUST_BE_BYTES = tsLiteral("argument for '%s' must be a bytes object");
+    public static final TruffleString STRUCT_S_EXPECTED_D_ITEMS = tsLiteral("%s expected %d items for packing (got %d)");
+    public static final TruffleString STRUCT_UNPACK_REQUIRES_BUFFER_OF_D_BYTES = tsLiteral("unpack requires a buffer of %d bytes");
+    public static final TruffleString STRUCT_UNPACK_FROM_REQUIRES_AT_LEAST = tsLiteral("unpack_from requires a buffer of at least %d bytes for unpacking %d bytes at offset %d (actual buffer size is %d)");
+    public static final TruffleString STRUCT_PACK_INTO_REQUIRES_AT_LEAST = tsLiteral("pack_into requires a buffer of at least %d bytes for packing %d bytes at offset %d (actual buffer size is %d)");
+    public static final TruffleString STRUCT_OFFSET_OUT_OF_RANGE = tsLiteral("offset %d out of range for %d-byte buffer");
+    public static final TruffleString STRUCT_NO_SPACE_TO_PACK = tsLiteral("no space to pack %d bytes at offset %d");
+    public static final TruffleString STRUCT_PACK_INTO_EXPECTED_BUFFER = tsLiteral("pack_into expected buffer argument");
+    public static final TruffleString STRUCT_PACK_INTO_EXPECTED_OFFSET = tsLiteral("pack_into expected offset argument");
+    public static final TruffleString STRUCT_MISSING_FORMAT = tsLiteral("missing format argument");
+    public static final TruffleString STRUCT_CANNOT_ITER_UNPACK_EMPTY = tsLiteral("cannot iteratively unpack with a struct of length 0");
+    public static final TruffleString STRUCT_ITER_UNPACK_REQUIRES_MULTIPLE = tsLiteral("iterative unpacking requires a buffer of a multiple of %d bytes");
+    public static final TruffleString STRUCT_ARG_MUST_BE_STR_OR_BYTES = tsLiteral("Struct() argument 1 must be a str or bytes object, not %p");
     public static final TruffleString CANNOT_UNPACK_NON_ITERABLE = tsLiteral("cannot unpack non-iterable %p object");
     public static final TruffleString NTOH_PYTHON_STRING_TOO_LARGE_TO_CONVERT = tsLiteral("ntohs: Python int too large to convert to 16-bit unsigned integer (The silent truncation is deprecated)");
     public static final TruffleString ARG_1_MUST_BE_UNICODE_NOT_P = tsLiteral("array() argument 1 must be a unicode character, not %p");
@@ -858,6 +885,7 @@ public abstract class ErrorMessages {
     public static final TruffleString CAPI_NOT_YET_INITIALIZED = tsLiteral("C API not yet initialized");
     public static final TruffleString INCORRECT_USAGE_OF_INTERNAL_GROUPER = tsLiteral("incorrect usage of internal _grouper");
     public static final TruffleString COVERAGE_TRACKER_NOT_AVAILABLE = tsLiteral("coverage tracker not available");
+    public static final TruffleString PROFILER_SAMPLING_NOT_AVAILABLE = tsLiteral("profiler sampling is not available when async actions are polled");
     public static final TruffleString GETPWUID_NOT_FOUND = tsLiteral("getpwuid(): uid not found");
     public static final TruffleString EXPECTED_INT_MESSAGE = tsLiteral("Expected an int as second argument to ldexp.");
     public static final TruffleString NOT_IMPLEMENTED = tsLiteral("not implemented");
@@ -981,6 +1009,7 @@ public abstract class ErrorMessages {
     public static final TruffleString EXPECTING_COLON_DELIMITER = tsLiteral("Expecting ':' delimiter");
     public static final TruffleString EXPECTING_COMMA_DELIMITER = tsLiteral("Expecting ',' delimiter");
     public static final TruffleString EXPECTING_VALUE = tsLiteral("Expecting value");
+    public static final TruffleString EXTRA_DATA = tsLiteral("Extra data");
     public static final TruffleString IOR_IS_NOT_SUPPORTED_BY_P_USE_INSTEAD = tsLiteral("'|=' is not supported by %p; use '|' instead");
     public static final TruffleString ZIP_ARG_D_IS_LONGER_THEN_ARG_SD = tsLiteral("zip() argument %d is longer than argument%s%d");
     public static final TruffleString ZIP_ARG_D_IS_SHORTER_THEN_ARG_SD = tsLiteral("zip() argument %d is shorter than argument%s%d");
@@ -1087,6 +1116,9 @@ public abstract class ErrorMessages {
     public static final TruffleString DETACHED_BUFFER = tsLiteral("underlying buffer has been detached");
     public static final TruffleString UNSUPPORTED_WHENCE = tsLiteral("whence value %d unsupported");
     public static final TruffleString IO_CLOSED = tsLiteral("I/O operation on closed file.");
+    public static final TruffleString IO_OPERATION_ON_CLOSED_EPOLL = tsLiteral("I/O operation on closed epoll object");
+    public static final TruffleString NEGATIVE_SIZEHINT = tsLiteral("negative sizehint");
+    public static final TruffleString MAXEVENTS_MUST_BE_GREATER_THAN_ZERO = tsLiteral("maxevents must be greater than 0, got %d");
     public static final TruffleString MUST_BE_NON_NEG_OR_NEG_1 = tsLiteral("read length must be non-negative or -1");
     public static final TruffleString BUF_SIZE_POS = tsLiteral("buffer size must be strictly positive");
     public static final TruffleString S_SHOULD_RETURN_BYTES = tsLiteral("%s should return bytes");
@@ -1145,6 +1177,7 @@ public abstract class ErrorMessages {
     public static final TruffleString SECOND_ITEM_OF_STATE_MUST_BE_AN_INTEGER_NOT_P = tsLiteral("second item of state must be an integer, not %p");
     public static final TruffleString WRITE_COULD_NOT_COMPLETE_WITHOUT_BLOCKING = tsLiteral("write could not complete without blocking");
     public static final TruffleString THE_S_OBJECT_IS_BEING_GARBAGE_COLLECTED = tsLiteral("the %s object is being garbage-collected");
+    public static final TruffleString THE_NUMBER_OF_FRAMES_MUST_BE_IN_RANGE = tsLiteral("the number of frames must be in range [1; %d]");
     public static final TruffleString SHUTDOWN_POSSIBLY_DUE_TO_DAEMON_THREADS = tsLiteral("could not acquire lock for %s at interpreter shutdown, possibly due to daemon threads");
     public static final TruffleString REENTRANT_CALL_INSIDE_P = tsLiteral("reentrant call inside %p");
     public static final TruffleString DEQUE_MUTATED_DURING_ITERATION = tsLiteral("deque mutated during iteration");
@@ -1189,6 +1222,7 @@ public abstract class ErrorMessages {
     public static final TruffleString UNDERLYING_BUFFER_IS_NOT_WRITABLE = tsLiteral("underlying buffer is not writable");
     public static final TruffleString UNDERLYING_BUFFER_IS_NOT_C_CONTIGUOUS = tsLiteral("underlying buffer is not C contiguous");
     public static final TruffleString OFFSET_CANNOT_BE_NEGATIVE = tsLiteral("offset cannot be negative");
+    public static final TruffleString OFFSET_TOO_LARGE = tsLiteral("offset too large");
     public static final TruffleString BUFFER_SIZE_TOO_SMALL_D_INSTEAD_OF_AT_LEAST_D_BYTES = tsLiteral("Buffer size too small (%d instead of at least %d bytes)");
     public static final TruffleString THE_HANDLE_ATTRIBUTE_OF_THE_SECOND_ARGUMENT_MUST_BE_AN_INTEGER = tsLiteral("the _handle attribute of the second argument must be an integer");
     public static final TruffleString EXPECTED_S_INSTANCE_GOT_S = tsLiteral("expected %s instance, got %s");
@@ -1300,6 +1334,84 @@ public abstract class ErrorMessages {
 
     // pickle errors
     public static final TruffleString CANNOT_PICKLE_OBJECT_TYPE = tsLiteral("cannot pickle '%p' object");
+    public static final TruffleString PICKLE_PROTOCOL_MUST_BE_LE = tsLiteral("pickle protocol must be <= %d");
+    public static final TruffleString UNSUPPORTED_PICKLE_PROTOCOL = tsLiteral("unsupported pickle protocol: %d");
+    public static final TruffleString FILE_MUST_HAVE_WRITE_ATTR = tsLiteral("file must have a 'write' attribute");
+    public static final TruffleString FILE_MUST_HAVE_READ_AND_READLINE_ATTRS = tsLiteral("file must have 'read' and 'readline' attributes");
+    public static final TruffleString BUFFER_CALLBACK_NEEDS_PROTOCOL_5 = tsLiteral("buffer_callback needs protocol >= 5");
+    public static final TruffleString S_INIT_WAS_NOT_CALLED_BY_P_INIT = tsLiteral("%s.__init__() was not called by %p.__init__()");
+    public static final TruffleString PERSISTENT_ID_MUST_BE_CALLABLE = tsLiteral("persistent_id must be a callable taking one argument");
+    public static final TruffleString PERSISTENT_LOAD_MUST_BE_CALLABLE = tsLiteral("persistent_load must be a callable taking one argument");
+    public static final TruffleString PICKLER_MEMO_MUST_BE_PROXY_OR_DICT = tsLiteral("'memo' attribute must be a PicklerMemoProxy object or dict, not %p");
+    public static final TruffleString UNPICKLER_MEMO_MUST_BE_PROXY_OR_DICT = tsLiteral("'memo' attribute must be an UnpicklerMemoProxy object or dict, not %p");
+    public static final TruffleString MEMO_VALUES_MUST_BE_2_ITEM_TUPLES = tsLiteral("memo values must be 2-item tuples");
+    public static final TruffleString MEMO_KEY_MUST_BE_POSITIVE_INTEGERS = tsLiteral("memo key must be positive integers.");
+    public static final TruffleString ATTRIBUTE_DELETION_IS_NOT_SUPPORTED = tsLiteral("attribute deletion is not supported");
+    public static final TruffleString MAXIMUM_RECURSION_DEPTH_EXCEEDED_WHILE_PICKLING = tsLiteral("maximum recursion depth exceeded while pickling an object");
+    public static final TruffleString CANT_PICKLE_P_OBJECT_S = tsLiteral("can't pickle '%p' object: %s");
+    public static final TruffleString REDUCE_MUST_RETURN_STRING_OR_TUPLE = tsLiteral("__reduce__ must return a string or tuple");
+    public static final TruffleString REDUCE_TUPLE_MUST_CONTAIN_2_TO_6_ELEMENTS = tsLiteral("tuple returned by __reduce__ must contain 2 through 6 elements");
+    public static final TruffleString REDUCE_FIRST_ITEM_MUST_BE_CALLABLE = tsLiteral("first item of the tuple returned by __reduce__ must be callable");
+    public static final TruffleString REDUCE_SECOND_ITEM_MUST_BE_TUPLE = tsLiteral("second item of the tuple returned by __reduce__ must be a tuple");
+    public static final TruffleString REDUCE_FOURTH_ITEM_MUST_BE_ITERATOR = tsLiteral("fourth element of the tuple returned by __reduce__ must be an iterator, not %p");
+    public static final TruffleString REDUCE_FIFTH_ITEM_MUST_BE_ITERATOR = tsLiteral("fifth element of the tuple returned by __reduce__ must be an iterator, not %p");
+    public static final TruffleString REDUCE_SIXTH_ITEM_MUST_BE_FUNCTION = tsLiteral("sixth element of the tuple returned by __reduce__ must be a function, not %p");
+    public static final TruffleString NEWOBJ_EX_ARGS_MUST_BE_3 = tsLiteral("length of the NEWOBJ_EX argument tuple must be exactly 3, not %d");
+    public static final TruffleString NEWOBJ_EX_FIRST_MUST_BE_CLASS = tsLiteral("first item from NEWOBJ_EX argument tuple must be a class, not %p");
+    public static final TruffleString NEWOBJ_EX_SECOND_MUST_BE_TUPLE = tsLiteral("second item from NEWOBJ_EX argument tuple must be a tuple, not %p");
+    public static final TruffleString NEWOBJ_EX_THIRD_MUST_BE_DICT = tsLiteral("third item from NEWOBJ_EX argument tuple must be a dict, not %p");
+    public static final TruffleString NEWOBJ_EX_CLASS_MISMATCH = tsLiteral("first argument to __newobj_ex__() must be %s, not %s");
+    public static final TruffleString NEWOBJ_ARGLIST_IS_EMPTY = tsLiteral("__newobj__ arglist is empty");
+    public static final TruffleString NEWOBJ_ARGS0_IS_NOT_A_TYPE = tsLiteral("args[0] from __newobj__ args is not a type");
+    public static final TruffleString NEWOBJ_ARGS0_HAS_WRONG_CLASS = tsLiteral("args[0] from __newobj__ args has the wrong class");
+    public static final TruffleString DICT_ITEMS_MUST_RETURN_2_TUPLES = tsLiteral("dict items iterator must return 2-tuples");
+    public static final TruffleString CANT_PICKLE_LOCAL_OBJECT_S = tsLiteral("Can't pickle local object %s");
+    public static final TruffleString CANT_GET_LOCAL_ATTRIBUTE_S_ON_S = tsLiteral("Can't get local attribute %s on %s");
+    public static final TruffleString CANT_GET_ATTRIBUTE_S_ON_S = tsLiteral("Can't get attribute %s on %s");
+    public static final TruffleString CANT_PICKLE_S_IMPORT_OF_MODULE_S_FAILED = tsLiteral("Can't pickle %s: import of module %s failed");
+    public static final TruffleString CANT_PICKLE_S_ATTRIBUTE_LOOKUP_S_ON_S_FAILED = tsLiteral("Can't pickle %s: attribute lookup %s on %s failed");
+    public static final TruffleString CANT_PICKLE_S_NOT_THE_SAME_OBJECT_AS_S_S = tsLiteral("Can't pickle %s: it's not the same object as %s.%s");
+    public static final TruffleString CANT_PICKLE_MODULE_IDENTIFIER_S_USING_PROTOCOL_D = tsLiteral("can't pickle module identifier '%s' using pickle protocol %d");
+    public static final TruffleString CANT_PICKLE_GLOBAL_IDENTIFIER_S_USING_PROTOCOL_D = tsLiteral("can't pickle global identifier '%s' using pickle protocol %d");
+    public static final TruffleString CANT_PICKLE_S_EXTENSION_CODE_D_IS_OUT_OF_RANGE = tsLiteral("Can't pickle %s: extension code %d is out of range");
+    public static final TruffleString EXT_SPECIFIES_CODE_LE_0 = tsLiteral("EXT specifies code <= 0");
+    public static final TruffleString INVERTED_REGISTRY_D_ISNT_A_2_TUPLE_OF_STRINGS = tsLiteral("_inverted_registry[%d] isn't a 2-tuple of strings");
+    public static final TruffleString UNREGISTERED_EXTENSION_CODE_D = tsLiteral("unregistered extension code %d");
+    public static final TruffleString COMPAT_PICKLE_NAME_MAPPING_VALUES_2_TUPLES = tsLiteral("_compat_pickle.%s values should be 2-tuples, not %p");
+    public static final TruffleString COMPAT_PICKLE_NAME_MAPPING_VALUES_STR_PAIRS = tsLiteral("_compat_pickle.%s values should be pairs of str, not (%p, %p)");
+    public static final TruffleString COMPAT_PICKLE_IMPORT_MAPPING_VALUES_STRINGS = tsLiteral("_compat_pickle.%s values should be strings, not %p");
+    public static final TruffleString PERSISTENT_IDS_IN_PROTOCOL_0_MUST_BE_ASCII = tsLiteral("persistent IDs in protocol 0 must be ASCII strings");
+    public static final TruffleString CANNOT_SERIALIZE_BYTES_LARGER_THAN_4GIB = tsLiteral("cannot serialize a bytes object larger than 4 GiB");
+    public static final TruffleString PICKLEBUFFER_NEEDS_PROTOCOL_5 = tsLiteral("PickleBuffer can only pickled with protocol >= 5");
+    public static final TruffleString PICKLEBUFFER_NOT_CONTIGUOUS = tsLiteral("PickleBuffer can not be pickled when pointing to a non-contiguous buffer");
+    public static final TruffleString OPERATION_FORBIDDEN_ON_RELEASED_PICKLEBUFFER = tsLiteral("operation forbidden on released PickleBuffer object");
+    public static final TruffleString CANNOT_EXTRACT_RAW_BUFFER_FROM_NON_CONTIGUOUS = tsLiteral("cannot extract raw buffer from non-contiguous buffer");
+    public static final TruffleString FAST_MODE_CANT_PICKLE_CYCLIC_OBJECTS = tsLiteral("fast mode: can't pickle cyclic objects including object type %p at %s");
+    public static final TruffleString DICTIONARY_CHANGED_SIZE_DURING_ITERATION = tsLiteral("dictionary changed size during iteration");
+    public static final TruffleString DICTIONARY_KEYS_CHANGED_DURING_ITERATION = tsLiteral("dictionary keys changed during iteration");
+    public static final TruffleString SET_CHANGED_SIZE_DURING_ITERATION = tsLiteral("set changed size during iteration");
+    public static final TruffleString RAN_OUT_OF_INPUT = tsLiteral("Ran out of input");
+    public static final TruffleString PICKLE_DATA_WAS_TRUNCATED = tsLiteral("pickle data was truncated");
+    public static final TruffleString INVALID_LOAD_KEY_C = tsLiteral("invalid load key, '%c'.");
+    public static final TruffleString INVALID_LOAD_KEY_X = tsLiteral("invalid load key, '\\x%02x'.");
+    public static final TruffleString UNPICKLING_STACK_UNDERFLOW = tsLiteral("unpickling stack underflow");
+    public static final TruffleString UNEXPECTED_MARK_FOUND = tsLiteral("unexpected MARK found");
+    public static final TruffleString COULD_NOT_FIND_MARK = tsLiteral("could not find MARK");
+    public static final TruffleString ODD_NUMBER_OF_ITEMS_FOR_S = tsLiteral("odd number of items for %s");
+    public static final TruffleString STATE_IS_NOT_A_DICTIONARY = tsLiteral("state is not a dictionary");
+    public static final TruffleString SLOT_STATE_IS_NOT_A_DICTIONARY = tsLiteral("slot state is not a dictionary");
+    public static final TruffleString S_CLASS_ARGUMENT_MUST_BE_A_TYPE = tsLiteral("%s class argument must be a type, not %p");
+    public static final TruffleString S_ARGS_ARGUMENT_MUST_BE_A_TUPLE = tsLiteral("%s args argument must be a tuple, not %p");
+    public static final TruffleString S_KWARGS_ARGUMENT_MUST_BE_A_DICT = tsLiteral("%s kwargs argument must be a dict, not %p");
+    public static final TruffleString STACK_GLOBAL_REQUIRES_STR = tsLiteral("STACK_GLOBAL requires str");
+    public static final TruffleString STRING_OPCODE_ARGUMENT_MUST_BE_QUOTED = tsLiteral("the STRING opcode argument must be quoted");
+    public static final TruffleString S_PICKLE_HAS_NEGATIVE_BYTE_COUNT = tsLiteral("%s pickle has negative byte count");
+    public static final TruffleString NEGATIVE_S_ARGUMENT = tsLiteral("negative %s argument");
+    public static final TruffleString S_EXCEEDS_SYSTEM_MAXIMUM = tsLiteral("%s exceeds system's maximum size of %d bytes");
+    public static final TruffleString NO_PERSISTENT_LOAD_FUNCTION = tsLiteral("A load persistent id instruction was encountered, but no persistent_load function was specified.");
+    public static final TruffleString OUT_OF_BAND_DATA_BUT_NO_BUFFERS = tsLiteral("pickle stream refers to out-of-band data but no *buffers* argument was given");
+    public static final TruffleString NOT_ENOUGH_OUT_OF_BAND_BUFFERS = tsLiteral("not enough out-of-band buffers");
+    public static final TruffleString MEMO_VALUE_NOT_FOUND_AT_INDEX_D = tsLiteral("Memo value not found at index %d");
 
     // csv errors
     public static final TruffleString MUST_BE_ONE_CHARACTER_STRING = tsLiteral("\"%s\" must be a 1-character string");
@@ -1474,6 +1586,22 @@ public abstract class ErrorMessages {
     public static final TruffleString NO_RUNNING_EVENT_LOOP = tsLiteral("no running event loop");
     public static final TruffleString CANT_ENTER_TASK_ALREADY_RUNNING = tsLiteral("Cannot enter into task %s while another task %s is being executed.");
     public static final TruffleString TASK_NOT_ENTERED = tsLiteral("Leaving task %s does not match the current task %s.");
+    public static final TruffleString FUTURE_NOT_INITIALIZED = tsLiteral("Future object is not initialized.");
+    public static final TruffleString RESULT_IS_NOT_READY = tsLiteral("Result is not ready.");
+    public static final TruffleString EXCEPTION_IS_NOT_SET = tsLiteral("Exception is not set.");
+    public static final TruffleString INVALID_STATE_OF_FUTURE = tsLiteral("%s: %s");
+    public static final TruffleString STEP_ALREADY_DONE = tsLiteral("_step(): already done: %s, %s");
+    public static final TruffleString INVALID_EXCEPTION_OBJECT = tsLiteral("invalid exception object");
+    public static final TruffleString STOP_ITERATION_INTO_FUTURE = tsLiteral("StopIteration interacts badly with generators and cannot be raised into a Future");
+    public static final TruffleString LOG_TRACEBACK_ONLY_FALSE = tsLiteral("_log_traceback can only be set to False");
+    public static final TruffleString AWAIT_WASNT_USED_WITH_FUTURE = tsLiteral("await wasn't used with future");
+    public static final TruffleString TASK_DOES_NOT_SUPPORT_S = tsLiteral("Task does not support %s operation");
+    public static final TruffleString A_COROUTINE_WAS_EXPECTED_GOT_S = tsLiteral("a coroutine was expected, got %s");
+    public static final TruffleString TASK_GOT_FUTURE_ON_DIFFERENT_LOOP = tsLiteral("Task %s got Future %s attached to a different loop");
+    public static final TruffleString TASK_CANNOT_AWAIT_ON_ITSELF = tsLiteral("Task cannot await on itself: %s");
+    public static final TruffleString YIELD_INSTEAD_OF_YIELD_FROM_IN_TASK = tsLiteral("yield was used instead of yield from in task %s with %s");
+    public static final TruffleString YIELD_INSTEAD_OF_YIELD_FROM_FOR_GENERATOR = tsLiteral("yield was used instead of yield from for generator in task %s with %s");
+    public static final TruffleString TASK_GOT_BAD_YIELD = tsLiteral("Task got bad yield: %s");
     public static final TruffleString ENCODING_NAME_MUST_BE_A_STRING = tsLiteral("encoding name must be a string.");
     public static final TruffleString NO_SUCH_CODEC_IS_SUPPORTED = tsLiteral("no such codec is supported.");
     public static final TruffleString COULDN_T_CONVERT_THE_OBJECT_TO_UNICODE = tsLiteral("couldn't convert the object to unicode.");
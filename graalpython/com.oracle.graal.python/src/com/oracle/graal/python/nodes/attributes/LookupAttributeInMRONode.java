@@ -53,6 +53,7 @@ import com.oracle.graal.python.builtins.objects.type.MroShape;
 import com.oracle.graal.python.builtins.objects.type.MroShape.MroShapeLookupResult;
 import com.oracle.graal.python.builtins.objects.type.PythonAbstractClass;
 import com.oracle.graal.python.builtins.objects.type.PythonClass;
+import com.oracle.graal.python.builtins.objects.type.PythonManagedClass;
 import com.oracle.graal.python.builtins.objects.type.TypeNodes;
 import com.oracle.graal.python.builtins.objects.type.TypeNodes.GetMroStorageNode;
 import com.oracle.graal.python.builtins.objects.type.TypeNodesFactory.IsSameTypeNodeGen;
@@ -373,6 +374,10 @@ public abstract class LookupAttributeInMRONode extends LookupInMROBaseNode {
 
     public static Object lookup(Object klass, Object key, GetMroStorageNode getMroNode, ReadAttributeFromObjectNode readAttrNode, boolean skipNonStaticBases, DynamicObjectLibrary dylib) {
         MroSequenceStorage mro = getMroNode.execute(klass);
+        if (!skipNonStaticBases && klass instanceof PythonManagedClass && key instanceof TruffleString) {
+            // megamorphic sites share the per-context cache keyed by type version tags
+            return PythonContext.get(getMroNode).getTypeAttributeCache().lookup(mro, (TruffleString) key);
+        }
         for (int i = 0; i < mro.length(); i++) {
             Object kls = mro.getItemNormalized(i);
             if (skipNonStaticBase(kls, skipNonStaticBases, dylib)) {
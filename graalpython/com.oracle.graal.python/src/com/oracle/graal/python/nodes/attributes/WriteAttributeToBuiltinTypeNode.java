@@ -46,6 +46,7 @@ import com.oracle.graal.python.builtins.objects.dict.PDict;
 import com.oracle.graal.python.builtins.objects.object.PythonObject;
 import com.oracle.graal.python.builtins.objects.type.PythonBuiltinClass;
 import com.oracle.graal.python.builtins.objects.type.PythonManagedClass;
+import com.oracle.graal.python.builtins.objects.type.TypeAttributeCache;
 import com.oracle.graal.python.nodes.object.GetDictIfExistsNode;
 import com.oracle.graal.python.runtime.PythonContext;
 import com.oracle.truffle.api.dsl.Bind;
@@ -63,7 +64,8 @@ import com.oracle.truffle.api.strings.TruffleString;
  * Variant of {@link WriteAttributeToObjectNode} that allows to set attributes of builtin types
  * after initialization has finished. This node does not call
  * {@link PythonManagedClass#onAttributeUpdate(Object, Object)} and should be used with caution,
- * because it does not invalidate any assumptions or caches related to MRO lookups.
+ * because it does not invalidate any assumptions or caches related to MRO lookups, except for the
+ * version tag used by the {@link TypeAttributeCache}.
  */
 @GenerateUncached
 public abstract class WriteAttributeToBuiltinTypeNode extends ObjectAttributeNode {
@@ -79,6 +81,7 @@ public abstract class WriteAttributeToBuiltinTypeNode extends ObjectAttributeNod
                     @SuppressWarnings("unused") @Shared("getDict") @Cached GetDictIfExistsNode getDict,
                     @CachedLibrary(limit = "getAttributeAccessInlineCacheMaxDepth()") DynamicObjectLibrary dylib) {
         dylib.put(klass, key, value);
+        klass.getMethodResolutionOrder().invalidateVersionTag();
     }
 
     @Specialization(guards = "dict != null", limit = "1")
@@ -89,6 +92,7 @@ public abstract class WriteAttributeToBuiltinTypeNode extends ObjectAttributeNod
                     @Cached InlinedBranchProfile updateStorage,
                     @Cached HashingStorageSetItem setHashingStorageItem) {
         WriteAttributeToObjectNode.writeToDict(dict, key, value, inliningTarget, updateStorage, setHashingStorageItem);
+        klass.getMethodResolutionOrder().invalidateVersionTag();
     }
 
     @Specialization
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.nodes.bytecode;
+
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.KeyError;
+
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageGetItem;
+import com.oracle.graal.python.builtins.objects.dict.PDict;
+import com.oracle.graal.python.nodes.PGuards;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.ImportStatic;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * Subscript of an exact dict with a str key. Neither can override {@code __getitem__},
+ * {@code __hash__} or {@code __eq__}, and exact dicts don't have {@code __missing__}, so we can go
+ * directly to the storage.
+ */
+@ImportStatic(PGuards.class)
+public abstract class BinarySubscrDictStr extends Node {
+    public static final QuickeningGeneralizeException GENERALIZE = new QuickeningGeneralizeException(0);
+
+    public abstract Object execute(VirtualFrame frame, Object dict, Object key);
+
+    @Specialization(guards = "isBuiltinDict(dict)")
+    static Object doDict(VirtualFrame frame, PDict dict, TruffleString key,
+                    @Cached HashingStorageGetItem getItem,
+                    @Cached PRaiseNode raiseNode) {
+        Object result = getItem.execute(frame, dict.getDictStorage(), key);
+        if (result == null) {
+            throw raiseNode.raise(KeyError, new Object[]{key});
+        }
+        return result;
+    }
+
+    @Fallback
+    @SuppressWarnings("unused")
+    static Object doGeneralize(VirtualFrame frame, Object dict, Object key) {
+        CompilerDirectives.transferToInterpreterAndInvalidate();
+        throw GENERALIZE;
+    }
+
+    public static BinarySubscrDictStr create() {
+        return BinarySubscrDictStrNodeGen.create();
+    }
+}
@@ -157,4 +157,41 @@ public abstract class BinarySubscrSeq extends Node {
             return BinarySubscrSeqFactory.DNodeGen.create();
         }
     }
+
+    public abstract static class LNode extends BinarySubscrSeq {
+        public abstract long execute(Object sequence, int index);
+
+        @Specialization(guards = "cannotBeOverriddenForImmutableType(sequence)")
+        long doList(PList sequence, int index,
+                        @Cached("createForList()") SequenceStorageNodes.GetItemNode getItemNode) {
+            try {
+                return getItemNode.executeLong(sequence.getSequenceStorage(), index);
+            } catch (UnexpectedResultException e) {
+                // Truffle doesn't let us throw UnexpectedResultException without rewriteOn
+                throw GENERALIZE_RESULT;
+            }
+        }
+
+        @Specialization(guards = "cannotBeOverriddenForImmutableType(sequence)")
+        long doList(PTuple sequence, int index,
+                        @Cached("createForTuple()") SequenceStorageNodes.GetItemNode getItemNode) {
+            try {
+                return getItemNode.executeLong(sequence.getSequenceStorage(), index);
+            } catch (UnexpectedResultException e) {
+                // Truffle doesn't let us throw UnexpectedResultException without rewriteOn
+                throw GENERALIZE_RESULT;
+            }
+        }
+
+        @Fallback
+        @SuppressWarnings("unused")
+        long doGeneralize(Object sequence, int index) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            throw GENERALIZE_COLLECTION;
+        }
+
+        public static LNode create() {
+            return BinarySubscrSeqFactory.LNodeGen.create();
+        }
+    }
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.nodes.bytecode;
+
+import static com.oracle.graal.python.util.PythonUtils.TS_ENCODING;
+
+import com.oracle.graal.python.nodes.PNodeWithContext;
+import com.oracle.graal.python.nodes.util.CastToTruffleStringNode;
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateUncached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.Frame;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleStringBuilder;
+
+/**
+ * Concatenates the topmost {@code count} stack items (which are results of {@code FORMAT_VALUE}
+ * or string constants) into a single string. The result is sized up front, so the parts are
+ * copied only once.
+ */
+@GenerateUncached
+public abstract class BuildStringNode extends PNodeWithContext {
+    public abstract TruffleString execute(Frame frame, int stackTop, int count);
+
+    @Specialization
+    @ExplodeLoop
+    static TruffleString doBuild(VirtualFrame frame, int stackTop, int count,
+                    @Cached CastToTruffleStringNode castNode,
+                    @Cached TruffleStringBuilder.AppendStringNode appendNode,
+                    @Cached TruffleStringBuilder.ToStringNode toStringNode) {
+        CompilerAsserts.partialEvaluationConstant(count);
+        int start = stackTop - count + 1;
+        TruffleString[] parts = new TruffleString[count];
+        long byteLength = 0;
+        for (int i = 0; i < count; i++) {
+            parts[i] = castNode.execute(frame.getObject(start + i));
+            frame.setObject(start + i, null);
+            byteLength += parts[i].byteLength(TS_ENCODING);
+        }
+        TruffleStringBuilder sb = TruffleStringBuilder.create(TS_ENCODING, (int) Math.min(byteLength, Integer.MAX_VALUE));
+        for (int i = 0; i < count; i++) {
+            appendNode.execute(sb, parts[i]);
+        }
+        return toStringNode.execute(sb);
+    }
+
+    public static BuildStringNode create() {
+        return BuildStringNodeGen.create();
+    }
+
+    public static BuildStringNode getUncached() {
+        return BuildStringNodeGen.getUncached();
+    }
+}
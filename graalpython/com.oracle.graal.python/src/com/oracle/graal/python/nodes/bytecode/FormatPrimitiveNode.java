@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.nodes.bytecode;
+
+import static com.oracle.graal.python.util.PythonUtils.TS_ENCODING;
+
+import com.oracle.graal.python.builtins.objects.floats.FloatBuiltins;
+import com.oracle.graal.python.nodes.PNodeWithContext;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.runtime.formatting.FloatFormatter;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateUncached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * Formats a primitive value for the quickened {@code FORMAT_VALUE} variants without a format
+ * spec. For ints and floats {@code str}, {@code repr} and {@code format} with an empty spec all
+ * give the same result, so the conversion flag doesn't matter here.
+ */
+@GenerateUncached
+public abstract class FormatPrimitiveNode extends PNodeWithContext {
+    public abstract TruffleString executeLong(long value);
+
+    public abstract TruffleString executeDouble(double value);
+
+    @Specialization
+    static TruffleString doLong(long value,
+                    @Cached TruffleString.FromLongNode fromLongNode) {
+        return fromLongNode.execute(value, TS_ENCODING, false);
+    }
+
+    @Specialization
+    static TruffleString doDouble(double value,
+                    @Cached PRaiseNode raiseNode) {
+        FloatFormatter f = new FloatFormatter(raiseNode, FloatBuiltins.StrNode.spec);
+        f.setMinFracDigits(1);
+        return FloatBuiltins.StrNode.doFormat(value, f);
+    }
+
+    public static FormatPrimitiveNode create() {
+        return FormatPrimitiveNodeGen.create();
+    }
+
+    public static FormatPrimitiveNode getUncached() {
+        return FormatPrimitiveNodeGen.getUncached();
+    }
+}
@@ -86,6 +86,9 @@ import com.oracle.graal.python.builtins.objects.function.PKeyword;
 import com.oracle.graal.python.builtins.objects.function.Signature;
 import com.oracle.graal.python.builtins.objects.ints.IntBuiltins;
 import com.oracle.graal.python.builtins.objects.ints.IntBuiltinsFactory;
+import com.oracle.graal.python.builtins.objects.iterator.PDoubleSequenceIterator;
+import com.oracle.graal.python.builtins.objects.iterator.PLongRangeIterator;
+import com.oracle.graal.python.builtins.objects.iterator.PLongSequenceIterator;
 import com.oracle.graal.python.builtins.objects.list.ListBuiltins;
 import com.oracle.graal.python.builtins.objects.list.ListBuiltinsFactory;
 import com.oracle.graal.python.builtins.objects.list.PList;
@@ -101,6 +104,7 @@ import com.oracle.graal.python.builtins.objects.slice.SliceNodesFactory.CreateSl
 import com.oracle.graal.python.compiler.BinaryOpsConstants;
 import com.oracle.graal.python.compiler.CodeUnit;
 import com.oracle.graal.python.compiler.FormatOptions;
+import com.oracle.graal.python.compiler.LazyCodeUnit;
 import com.oracle.graal.python.compiler.OpCodes;
 import com.oracle.graal.python.compiler.OpCodes.CollectionBits;
 import com.oracle.graal.python.compiler.OpCodesConstants;
@@ -132,6 +136,7 @@ import com.oracle.graal.python.lib.PyObjectSizeNodeGen;
 import com.oracle.graal.python.lib.PyObjectStrAsObjectNode;
 import com.oracle.graal.python.lib.PyObjectStrAsObjectNodeGen;
 import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PGuards;
 import com.oracle.graal.python.nodes.PRaiseNode;
 import com.oracle.graal.python.nodes.PRaiseNodeGen;
 import com.oracle.graal.python.nodes.PRootNode;
@@ -279,6 +284,10 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
     private static final NodeSupplier<ForIterONode> NODE_FOR_ITER_O = ForIterONode::create;
     private static final ForIterINode UNCACHED_FOR_ITER_I = ForIterINode.getUncached();
     private static final NodeSupplier<ForIterINode> NODE_FOR_ITER_I = ForIterINode::create;
+    private static final ForIterLNode UNCACHED_FOR_ITER_L = ForIterLNode.getUncached();
+    private static final NodeSupplier<ForIterLNode> NODE_FOR_ITER_L = ForIterLNode::create;
+    private static final ForIterDNode UNCACHED_FOR_ITER_D = ForIterDNode.getUncached();
+    private static final NodeSupplier<ForIterDNode> NODE_FOR_ITER_D = ForIterDNode::create;
     private static final NodeSupplier<PyObjectGetIter> NODE_OBJECT_GET_ITER = PyObjectGetIter::create;
     private static final PyObjectGetIter UNCACHED_OBJECT_GET_ITER = PyObjectGetIter.getUncached();
     private static final NodeSupplier<GetYieldFromIterNode> NODE_OBJECT_GET_YIELD_FROM_ITER = GetYieldFromIterNode::create;
@@ -352,6 +361,10 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
     private static final PyObjectAsciiNode UNCACHED_ASCII = PyObjectAsciiNode.getUncached();
     private static final NodeSupplier<PyObjectAsciiNode> NODE_ASCII = PyObjectAsciiNode::create;
     private static final NodeSupplier<FormatNode> NODE_FORMAT = FormatNode::create;
+    private static final FormatPrimitiveNode UNCACHED_FORMAT_PRIMITIVE = FormatPrimitiveNode.getUncached();
+    private static final NodeSupplier<FormatPrimitiveNode> NODE_FORMAT_PRIMITIVE = FormatPrimitiveNode::create;
+    private static final BuildStringNode UNCACHED_BUILD_STRING = BuildStringNode.getUncached();
+    private static final NodeSupplier<BuildStringNode> NODE_BUILD_STRING = BuildStringNode::create;
     private static final NodeSupplier<SendNode> NODE_SEND = SendNode::create;
     private static final NodeSupplier<ThrowNode> NODE_THROW = ThrowNode::create;
     private static final WriteGlobalNode UNCACHED_WRITE_GLOBAL = WriteGlobalNode.getUncached();
@@ -367,9 +380,12 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
     private static final NodeSupplier<GetSendValueNode> NODE_GET_SEND_VALUE = GetSendValueNode::create;
     private static final NodeSupplier<BinarySubscrSeq.ONode> NODE_BINARY_SUBSCR_SEQ_O = BinarySubscrSeq.ONode::create;
     private static final NodeSupplier<BinarySubscrSeq.INode> NODE_BINARY_SUBSCR_SEQ_I = BinarySubscrSeq.INode::create;
+    private static final NodeSupplier<BinarySubscrSeq.LNode> NODE_BINARY_SUBSCR_SEQ_L = BinarySubscrSeq.LNode::create;
     private static final NodeSupplier<BinarySubscrSeq.DNode> NODE_BINARY_SUBSCR_SEQ_D = BinarySubscrSeq.DNode::create;
+    private static final NodeSupplier<BinarySubscrDictStr> NODE_BINARY_SUBSCR_DICT_STR = BinarySubscrDictStr::create;
     private static final NodeSupplier<StoreSubscrSeq.ONode> NODE_STORE_SUBSCR_SEQ_O = StoreSubscrSeq.ONode::create;
     private static final NodeSupplier<StoreSubscrSeq.INode> NODE_STORE_SUBSCR_SEQ_I = StoreSubscrSeq.INode::create;
+    private static final NodeSupplier<StoreSubscrSeq.LNode> NODE_STORE_SUBSCR_SEQ_L = StoreSubscrSeq.LNode::create;
     private static final NodeSupplier<StoreSubscrSeq.DNode> NODE_STORE_SUBSCR_SEQ_D = StoreSubscrSeq.DNode::create;
 
     private static final NodeSupplier<IntBuiltins.AddNode> NODE_INT_ADD = IntBuiltins.AddNode::create;
@@ -543,7 +559,8 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
 
     /*
      * When instrumentation is in use, InstrumentationSupport#bciToHelper node is used instead of
-     * this array. Use getChildNodes() to get the right array.
+     * this array. Use getChildNodes() to get the right array. Only instructions that can create
+     * helper nodes have slots in it, see CodeUnit#getNodeIndex.
      */
     @Children private final Node[] adoptedNodes;
     @Child private CalleeContext calleeContext = CalleeContext.create();
@@ -644,7 +661,7 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
         this.parserErrorCallback = parserErrorCallback;
         this.signature = sign;
         this.bytecode = PythonUtils.arrayCopyOf(co.code, co.code.length);
-        this.adoptedNodes = new Node[co.code.length];
+        this.adoptedNodes = new Node[co.nodeCount];
         this.conditionProfiles = new int[co.conditionProfileCount];
         this.outputCanQuicken = co.outputCanQuicken;
         this.variableShouldUnbox = co.variableShouldUnbox;
@@ -745,28 +762,32 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
         T apply(A argument);
     }
 
+    private int nodeIndex(int bci) {
+        return co.getNodeIndex(bci);
+    }
+
     @FunctionalInterface
     private interface IntNodeFunction<T extends Node> {
         T apply(int argument);
     }
 
     @SuppressWarnings("unchecked")
-    private <A, T extends Node> T insertChildNode(Node[] nodes, int nodeIndex, Class<? extends T> cachedClass, NodeFunction<A, T> nodeSupplier, A argument) {
-        Node node = nodes[nodeIndex];
+    private <A, T extends Node> T insertChildNode(Node[] nodes, int bci, Class<? extends T> cachedClass, NodeFunction<A, T> nodeSupplier, A argument) {
+        Node node = nodes[nodeIndex(bci)];
         if (node != null && node.getClass() == cachedClass) {
             return CompilerDirectives.castExact(node, cachedClass);
         }
-        return CompilerDirectives.castExact(doInsertChildNode(nodes, nodeIndex, nodeSupplier, argument), cachedClass);
+        return CompilerDirectives.castExact(doInsertChildNode(nodes, bci, nodeSupplier, argument), cachedClass);
     }
 
     @SuppressWarnings("unchecked")
-    private <A, T extends Node> T doInsertChildNode(Node[] nodes, int nodeIndex, NodeFunction<A, T> nodeSupplier, A argument) {
+    private <A, T extends Node> T doInsertChildNode(Node[] nodes, int bci, NodeFunction<A, T> nodeSupplier, A argument) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
         Lock lock = getLock();
         lock.lock();
         try {
             T newNode = nodeSupplier.apply(argument);
-            doInsertChildNode(nodes, nodeIndex, newNode);
+            doInsertChildNode(nodes, bci, newNode);
             return newNode;
         } finally {
             lock.unlock();
@@ -774,34 +795,34 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
     }
 
     @SuppressWarnings("unchecked")
-    private <A, T extends Node> T insertChildNode(Node[] nodes, int nodeIndex, T uncached, Class<? extends T> cachedClass, NodeFunction<A, T> nodeSupplier, A argument, boolean useCachedNodes) {
+    private <A, T extends Node> T insertChildNode(Node[] nodes, int bci, T uncached, Class<? extends T> cachedClass, NodeFunction<A, T> nodeSupplier, A argument, boolean useCachedNodes) {
         if (!useCachedNodes) {
             return uncached;
         }
-        Node node = nodes[nodeIndex];
+        Node node = nodes[nodeIndex(bci)];
         if (node != null && node.getClass() == cachedClass) {
             return CompilerDirectives.castExact(node, cachedClass);
         }
-        return CompilerDirectives.castExact(doInsertChildNode(nodes, nodeIndex, nodeSupplier, argument), cachedClass);
+        return CompilerDirectives.castExact(doInsertChildNode(nodes, bci, nodeSupplier, argument), cachedClass);
     }
 
     @SuppressWarnings("unchecked")
-    private <T extends Node, U> T insertChildNodeInt(Node[] nodes, int nodeIndex, Class<U> expectedClass, IntNodeFunction<T> nodeSupplier, int argument) {
-        Node node = nodes[nodeIndex];
+    private <T extends Node, U> T insertChildNodeInt(Node[] nodes, int bci, Class<U> expectedClass, IntNodeFunction<T> nodeSupplier, int argument) {
+        Node node = nodes[nodeIndex(bci)];
         if (expectedClass.isInstance(node)) {
             return (T) node;
         }
-        return doInsertChildNodeInt(nodes, nodeIndex, nodeSupplier, argument);
+        return doInsertChildNodeInt(nodes, bci, nodeSupplier, argument);
     }
 
     @SuppressWarnings("unchecked")
-    private <T extends Node> T doInsertChildNodeInt(Node[] nodes, int nodeIndex, IntNodeFunction<T> nodeSupplier, int argument) {
+    private <T extends Node> T doInsertChildNodeInt(Node[] nodes, int bci, IntNodeFunction<T> nodeSupplier, int argument) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
         Lock lock = getLock();
         lock.lock();
         try {
             T newNode = nodeSupplier.apply(argument);
-            doInsertChildNode(nodes, nodeIndex, newNode);
+            doInsertChildNode(nodes, bci, newNode);
             return newNode;
         } finally {
             lock.unlock();
@@ -809,22 +830,22 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
     }
 
     @SuppressWarnings("unchecked")
-    private <T extends Node, U extends T> U insertChildNode(Node[] nodes, int nodeIndex, Class<U> cachedClass, NodeSupplier<T> nodeSupplier) {
-        Node node = nodes[nodeIndex];
+    private <T extends Node, U extends T> U insertChildNode(Node[] nodes, int bci, Class<U> cachedClass, NodeSupplier<T> nodeSupplier) {
+        Node node = nodes[nodeIndex(bci)];
         if (node != null && node.getClass() == cachedClass) {
             return CompilerDirectives.castExact(node, cachedClass);
         }
-        return CompilerDirectives.castExact(doInsertChildNode(nodes, nodeIndex, nodeSupplier), cachedClass);
+        return CompilerDirectives.castExact(doInsertChildNode(nodes, bci, nodeSupplier), cachedClass);
     }
 
     @SuppressWarnings("unchecked")
-    private <T extends Node> T doInsertChildNode(Node[] nodes, int nodeIndex, NodeSupplier<T> nodeSupplier) {
+    private <T extends Node> T doInsertChildNode(Node[] nodes, int bci, NodeSupplier<T> nodeSupplier) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
         Lock lock = getLock();
         lock.lock();
         try {
             T newNode = nodeSupplier.get();
-            doInsertChildNode(nodes, nodeIndex, newNode);
+            doInsertChildNode(nodes, bci, newNode);
             return newNode;
         } finally {
             lock.unlock();
@@ -832,23 +853,23 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
     }
 
     @SuppressWarnings("unchecked")
-    private <T extends Node> T insertChildNode(Node[] nodes, int nodeIndex, T uncached, Class<? extends T> cachedClass, NodeSupplier<T> nodeSupplier, boolean useCachedNodes) {
+    private <T extends Node> T insertChildNode(Node[] nodes, int bci, T uncached, Class<? extends T> cachedClass, NodeSupplier<T> nodeSupplier, boolean useCachedNodes) {
         if (!useCachedNodes) {
             return uncached;
         }
-        Node node = nodes[nodeIndex];
+        Node node = nodes[nodeIndex(bci)];
         if (node != null && node.getClass() == cachedClass) {
             return CompilerDirectives.castExact(node, cachedClass);
         }
-        return CompilerDirectives.castExact(doInsertChildNode(nodes, nodeIndex, nodeSupplier), cachedClass);
+        return CompilerDirectives.castExact(doInsertChildNode(nodes, bci, nodeSupplier), cachedClass);
     }
 
-    private void doInsertChildNode(Node[] nodes, int nodeIndex, Node newNode) {
+    private void doInsertChildNode(Node[] nodes, int bci, Node newNode) {
         if (nodes == adoptedNodes) {
-            nodes[nodeIndex] = insert(newNode);
+            nodes[nodeIndex(bci)] = insert(newNode);
         } else {
             assert nodes == instrumentationRoot.getInstrumentation().bciToHelperNode;
-            instrumentationRoot.getInstrumentation().insertHelperNode(newNode, nodeIndex);
+            instrumentationRoot.getInstrumentation().insertHelperNode(newNode, bci);
         }
     }
 
@@ -1386,11 +1407,38 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
                         break;
                     }
                     case OpCodesConstants.FORMAT_VALUE: {
+                        setCurrentBci(virtualFrame, bciSlot, bci);
+                        int options = Byte.toUnsignedInt(localBC[bci + 1]);
+                        stackTop = bytecodeFormatValueAdaptive(virtualFrame, stackTop, bci++, localBC, localNodes, options, useCachedNodes);
+                        break;
+                    }
+                    case OpCodesConstants.FORMAT_VALUE_O: {
                         setCurrentBci(virtualFrame, bciSlot, bci);
                         int options = Byte.toUnsignedInt(localBC[++bci]);
                         stackTop = bytecodeFormatValue(virtualFrame, stackTop, beginBci, localNodes, options, useCachedNodes);
                         break;
                     }
+                    case OpCodesConstants.FORMAT_VALUE_I: {
+                        int options = Byte.toUnsignedInt(localBC[bci + 1]);
+                        bytecodeFormatValueI(virtualFrame, stackTop, bci++, localNodes, options, useCachedNodes);
+                        break;
+                    }
+                    case OpCodesConstants.FORMAT_VALUE_L: {
+                        int options = Byte.toUnsignedInt(localBC[bci + 1]);
+                        bytecodeFormatValueL(virtualFrame, stackTop, bci++, localNodes, options, useCachedNodes);
+                        break;
+                    }
+                    case OpCodesConstants.FORMAT_VALUE_D: {
+                        int options = Byte.toUnsignedInt(localBC[bci + 1]);
+                        bytecodeFormatValueD(virtualFrame, stackTop, bci++, localNodes, options, useCachedNodes);
+                        break;
+                    }
+                    case OpCodesConstants.BUILD_STRING: {
+                        setCurrentBci(virtualFrame, bciSlot, bci);
+                        oparg |= Byte.toUnsignedInt(localBC[++bci]);
+                        stackTop = bytecodeBuildString(virtualFrame, stackTop, beginBci, localNodes, oparg, useCachedNodes);
+                        break;
+                    }
                     case OpCodesConstants.COLLECTION_FROM_COLLECTION: {
                         setCurrentBci(virtualFrame, bciSlot, bci);
                         int type = Byte.toUnsignedInt(localBC[++bci]);
@@ -1655,7 +1703,7 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
                     }
                     case OpCodesConstants.MATCH_CLASS: {
                         oparg |= Byte.toUnsignedInt(localBC[++bci]);
-                        stackTop = bytecodeMatchClass(virtualFrame, stackTop, oparg, bci, localNodes);
+                        stackTop = bytecodeMatchClass(virtualFrame, stackTop, oparg, beginBci, localNodes);
                         break;
                     }
                     case OpCodesConstants.GET_LEN: {
@@ -1753,10 +1801,18 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
                         stackTop = bytecodeBinarySubscrSeqII(virtualFrame, stackTop, bci, localNodes);
                         break;
                     }
+                    case OpCodesConstants.BINARY_SUBSCR_SEQ_I_L: {
+                        stackTop = bytecodeBinarySubscrSeqIL(virtualFrame, stackTop, bci, localNodes);
+                        break;
+                    }
                     case OpCodesConstants.BINARY_SUBSCR_SEQ_I_D: {
                         stackTop = bytecodeBinarySubscrSeqID(virtualFrame, stackTop, bci, localNodes);
                         break;
                     }
+                    case OpCodesConstants.BINARY_SUBSCR_DICT_STR: {
+                        stackTop = bytecodeBinarySubscrDictStr(virtualFrame, stackTop, bci, localNodes, bciSlot);
+                        break;
+                    }
                     case OpCodesConstants.BINARY_SUBSCR_SEQ_I_O: {
                         stackTop = bytecodeBinarySubscrSeqIO(virtualFrame, stackTop, bci, localNodes);
                         break;
@@ -1781,6 +1837,10 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
                         stackTop = bytecodeStoreSubscrSeqIIO(virtualFrame, stackTop, beginBci, localNodes, useCachedNodes);
                         break;
                     }
+                    case OpCodesConstants.STORE_SUBSCR_SEQ_ILO: {
+                        stackTop = bytecodeStoreSubscrSeqILO(virtualFrame, stackTop, beginBci, localNodes, useCachedNodes);
+                        break;
+                    }
                     case OpCodesConstants.STORE_SUBSCR_SEQ_IDO: {
                         stackTop = bytecodeStoreSubscrSeqIDO(virtualFrame, stackTop, beginBci, localNodes, useCachedNodes);
                         break;
@@ -2043,7 +2103,7 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
                         break;
                     }
                     case OpCodesConstants.FOR_ITER: {
-                        bytecodeForIterAdaptive(bci);
+                        bytecodeForIterAdaptive(virtualFrame, stackTop, bci);
                         continue;
                     }
                     case OpCodesConstants.FOR_ITER_O: {
@@ -2078,10 +2138,42 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
                         }
                         break;
                     }
+                    case OpCodesConstants.FOR_ITER_L: {
+                        setCurrentBci(virtualFrame, bciSlot, bci);
+                        boolean shouldLoop = bytecodeForIterL(virtualFrame, useCachedNodes, stackTop, bci, localNodes, beginBci);
+                        if (shouldLoop) {
+                            stackTop++;
+                            bci++;
+                        } else {
+                            virtualFrame.setObject(stackTop--, null);
+                            oparg |= Byte.toUnsignedInt(localBC[bci + 1]);
+                            bci += oparg;
+                            oparg = 0;
+                            notifyStatement(virtualFrame, instrumentation, mutableData, bci, beginBci);
+                            continue;
+                        }
+                        break;
+                    }
+                    case OpCodesConstants.FOR_ITER_D: {
+                        setCurrentBci(virtualFrame, bciSlot, bci);
+                        boolean shouldLoop = bytecodeForIterD(virtualFrame, useCachedNodes, stackTop, bci, localNodes, beginBci);
+                        if (shouldLoop) {
+                            stackTop++;
+                            bci++;
+                        } else {
+                            virtualFrame.setObject(stackTop--, null);
+                            oparg |= Byte.toUnsignedInt(localBC[bci + 1]);
+                            bci += oparg;
+                            oparg = 0;
+                            notifyStatement(virtualFrame, instrumentation, mutableData, bci, beginBci);
+                            continue;
+                        }
+                        break;
+                    }
                     case OpCodesConstants.LOAD_METHOD: {
                         setCurrentBci(virtualFrame, bciSlot, bci);
                         oparg |= Byte.toUnsignedInt(localBC[++bci]);
-                        stackTop = bytecodeLoadMethod(virtualFrame, stackTop, bci, oparg, localNames, localNodes, useCachedNodes);
+                        stackTop = bytecodeLoadMethod(virtualFrame, stackTop, beginBci, oparg, localNames, localNodes, useCachedNodes);
                         break;
                     }
                     case OpCodesConstants.CALL_METHOD: {
@@ -2440,7 +2532,31 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
         try {
             cont = node.execute(virtualFrame, virtualFrame.getObject(stackTop), stackTop + 1);
         } catch (QuickeningGeneralizeException e) {
-            generalizeForIterI(bci, e);
+            generalizeForIter(bci, e);
+        }
+        return cont;
+    }
+
+    @BytecodeInterpreterSwitch
+    private boolean bytecodeForIterL(VirtualFrame virtualFrame, boolean useCachedNodes, int stackTop, int bci, Node[] localNodes, int beginBci) {
+        ForIterLNode node = insertChildNode(localNodes, beginBci, UNCACHED_FOR_ITER_L, ForIterLNodeGen.class, NODE_FOR_ITER_L, useCachedNodes);
+        boolean cont = true;
+        try {
+            cont = node.execute(virtualFrame, virtualFrame.getObject(stackTop), stackTop + 1);
+        } catch (QuickeningGeneralizeException e) {
+            generalizeForIter(bci, e);
+        }
+        return cont;
+    }
+
+    @BytecodeInterpreterSwitch
+    private boolean bytecodeForIterD(VirtualFrame virtualFrame, boolean useCachedNodes, int stackTop, int bci, Node[] localNodes, int beginBci) {
+        ForIterDNode node = insertChildNode(localNodes, beginBci, UNCACHED_FOR_ITER_D, ForIterDNodeGen.class, NODE_FOR_ITER_D, useCachedNodes);
+        boolean cont = true;
+        try {
+            cont = node.execute(virtualFrame, virtualFrame.getObject(stackTop), stackTop + 1);
+        } catch (QuickeningGeneralizeException e) {
+            generalizeForIter(bci, e);
         }
         return cont;
     }
@@ -2525,8 +2641,7 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
 
     @BytecodeInterpreterSwitch
     private int bytecodeMakeFunction(VirtualFrame virtualFrame, Object globals, int stackTop, Node[] localNodes, int beginBci, int flags, Object localConsts) {
-        CodeUnit codeUnit = (CodeUnit) localConsts;
-        MakeFunctionNode makeFunctionNode = insertMakeFunctionNode(localNodes, beginBci, codeUnit);
+        MakeFunctionNode makeFunctionNode = insertMakeFunctionNode(localNodes, beginBci, localConsts);
         return makeFunctionNode.execute(virtualFrame, globals, stackTop, flags);
     }
 
@@ -2694,16 +2809,17 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
         return null;
     }
 
-    private MakeFunctionNode insertMakeFunctionNode(Node[] localNodes, int beginBci, CodeUnit codeUnit) {
-        return insertChildNode(localNodes, beginBci, MakeFunctionNodeGen.class, () -> MakeFunctionNode.create(getLanguage(PythonLanguage.class), codeUnit, source));
+    private MakeFunctionNode insertMakeFunctionNode(Node[] localNodes, int beginBci, Object codeConstant) {
+        // the nested code unit may be deserialized lazily, it is only decoded when the node is
+        // created
+        return insertChildNode(localNodes, beginBci, MakeFunctionNodeGen.class, () -> MakeFunctionNode.create(getLanguage(PythonLanguage.class), LazyCodeUnit.resolve(codeConstant), source));
     }
 
     public void materializeContainedFunctionsForInstrumentation(Set<Class<? extends Tag>> materializedTags) {
         usingCachedNodes = true;
         CodeUnit.iterateBytecode(bytecode, (bci, op, oparg, followingArgs) -> {
             if (op == OpCodes.MAKE_FUNCTION) {
-                CodeUnit codeUnit = (CodeUnit) consts[oparg];
-                MakeFunctionNode makeFunctionNode = insertMakeFunctionNode(getChildNodes(), bci, codeUnit);
+                MakeFunctionNode makeFunctionNode = insertMakeFunctionNode(getChildNodes(), bci, consts[oparg]);
                 RootNode rootNode = makeFunctionNode.getCallTarget().getRootNode();
                 if (rootNode instanceof PBytecodeGeneratorFunctionRootNode) {
                     rootNode = ((PBytecodeGeneratorFunctionRootNode) rootNode).getBytecodeRootNode();
@@ -2830,6 +2946,9 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
                 if (result instanceof Integer && (outputCanQuicken[bci] & QuickeningTypes.INT) != 0) {
                     bytecode[bci] = OpCodesConstants.BINARY_SUBSCR_SEQ_I_I;
                     virtualFrame.setInt(stackTop, (Integer) result);
+                } else if (result instanceof Long && (outputCanQuicken[bci] & QuickeningTypes.LONG) != 0) {
+                    bytecode[bci] = OpCodesConstants.BINARY_SUBSCR_SEQ_I_L;
+                    virtualFrame.setLong(stackTop, (Long) result);
                 } else if (result instanceof Double && (outputCanQuicken[bci] & QuickeningTypes.DOUBLE) != 0) {
                     bytecode[bci] = OpCodesConstants.BINARY_SUBSCR_SEQ_I_D;
                     virtualFrame.setDouble(stackTop, (Double) result);
@@ -2837,6 +2956,13 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
             }
             return stackTop;
         }
+        if (virtualFrame.isObject(stackTop) && virtualFrame.getObject(stackTop) instanceof TruffleString) {
+            Object dict = virtualFrame.getObject(stackTop - 1);
+            if (dict instanceof PDict && PGuards.isBuiltinDict((PDict) dict)) {
+                bytecode[bci] = OpCodesConstants.BINARY_SUBSCR_DICT_STR;
+                return bytecodeBinarySubscrDictStr(virtualFrame, stackTop, bci, localNodes, bciSlot);
+            }
+        }
         if (!virtualFrame.isObject(stackTop)) {
             generalizeInputs(bci);
             generalizeFrameSlot(virtualFrame, stackTop);
@@ -2899,6 +3025,25 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
         return stackTop;
     }
 
+    @BytecodeInterpreterSwitch
+    private int bytecodeBinarySubscrSeqIL(VirtualFrame virtualFrame, int stackTop, int bci, Node[] localNodes) {
+        if (!virtualFrame.isInt(stackTop)) {
+            return generalizeBinarySubscr(virtualFrame, stackTop, bci, localNodes);
+        }
+        int index = virtualFrame.getInt(stackTop);
+        Object sequence = virtualFrame.getObject(stackTop - 1);
+        BinarySubscrSeq.LNode node = insertChildNode(localNodes, bci, BinarySubscrSeqFactory.LNodeGen.class, NODE_BINARY_SUBSCR_SEQ_L);
+        long value;
+        try {
+            value = node.execute(sequence, index);
+        } catch (QuickeningGeneralizeException e) {
+            return generalizeBinarySubscrSeq(virtualFrame, stackTop, bci, localNodes, e);
+        }
+        virtualFrame.setObject(stackTop--, null);
+        virtualFrame.setLong(stackTop, value);
+        return stackTop;
+    }
+
     @BytecodeInterpreterSwitch
     private int bytecodeBinarySubscrSeqID(VirtualFrame virtualFrame, int stackTop, int bci, Node[] localNodes) {
         if (!virtualFrame.isInt(stackTop)) {
@@ -2918,6 +3063,28 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
         return stackTop;
     }
 
+    @BytecodeInterpreterSwitch
+    private int bytecodeBinarySubscrDictStr(VirtualFrame virtualFrame, int stackTop, int bci, Node[] localNodes, int bciSlot) {
+        setCurrentBci(virtualFrame, bciSlot, bci);
+        Object key;
+        try {
+            key = virtualFrame.getObject(stackTop);
+        } catch (FrameSlotTypeException e) {
+            // Should only happen in multi-context mode
+            return generalizeBinarySubscr(virtualFrame, stackTop, bci, localNodes);
+        }
+        BinarySubscrDictStr node = insertChildNode(localNodes, bci, BinarySubscrDictStrNodeGen.class, NODE_BINARY_SUBSCR_DICT_STR);
+        Object value;
+        try {
+            value = node.execute(virtualFrame, virtualFrame.getObject(stackTop - 1), key);
+        } catch (QuickeningGeneralizeException e) {
+            return generalizeBinarySubscr(virtualFrame, stackTop, bci, localNodes);
+        }
+        virtualFrame.setObject(stackTop--, null);
+        virtualFrame.setObject(stackTop, value);
+        return stackTop;
+    }
+
     private int generalizeBinarySubscrSeq(VirtualFrame virtualFrame, int stackTop, int bci, Node[] localNodes, QuickeningGeneralizeException e) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
         if (e == BinarySubscrSeq.GENERALIZE_RESULT) {
@@ -3107,7 +3274,7 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
         throw PRaiseNode.raiseUncached(this, SystemError, toTruffleStringUncached("not implemented bytecode %s"), OpCodes.fromOpCode(bc));
     }
 
-    private void generalizeForIterI(int bci, QuickeningGeneralizeException e) {
+    private void generalizeForIter(int bci, QuickeningGeneralizeException e) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
         if (e.type == QuickeningTypes.OBJECT) {
             bytecode[bci] = OpCodesConstants.FOR_ITER_O;
@@ -3116,9 +3283,14 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
         }
     }
 
-    private void bytecodeForIterAdaptive(int bci) {
+    private void bytecodeForIterAdaptive(VirtualFrame virtualFrame, int stackTop, int bci) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
-        if ((outputCanQuicken[bci] & QuickeningTypes.INT) != 0) {
+        Object iterator = virtualFrame.getObject(stackTop);
+        if ((outputCanQuicken[bci] & QuickeningTypes.LONG) != 0 && (iterator instanceof PLongSequenceIterator || iterator instanceof PLongRangeIterator)) {
+            bytecode[bci] = OpCodesConstants.FOR_ITER_L;
+        } else if ((outputCanQuicken[bci] & QuickeningTypes.DOUBLE) != 0 && iterator instanceof PDoubleSequenceIterator) {
+            bytecode[bci] = OpCodesConstants.FOR_ITER_D;
+        } else if ((outputCanQuicken[bci] & QuickeningTypes.INT) != 0) {
             bytecode[bci] = OpCodesConstants.FOR_ITER_I;
         } else {
             bytecode[bci] = OpCodesConstants.FOR_ITER_O;
@@ -4475,6 +4647,73 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
         }
     }
 
+    private int bytecodeFormatValueAdaptive(VirtualFrame virtualFrame, int stackTop, int bci, byte[] localBC, Node[] localNodes, int options, boolean useCachedNodes) {
+        CompilerDirectives.transferToInterpreterAndInvalidate();
+        if ((options & FormatOptions.FVS_MASK) != FormatOptions.FVS_HAVE_SPEC) {
+            if (virtualFrame.isInt(stackTop)) {
+                localBC[bci] = OpCodesConstants.FORMAT_VALUE_I;
+                bytecodeFormatValueI(virtualFrame, stackTop, bci, localNodes, options, useCachedNodes);
+                return stackTop;
+            } else if (virtualFrame.isLong(stackTop)) {
+                localBC[bci] = OpCodesConstants.FORMAT_VALUE_L;
+                bytecodeFormatValueL(virtualFrame, stackTop, bci, localNodes, options, useCachedNodes);
+                return stackTop;
+            } else if (virtualFrame.isDouble(stackTop)) {
+                localBC[bci] = OpCodesConstants.FORMAT_VALUE_D;
+                bytecodeFormatValueD(virtualFrame, stackTop, bci, localNodes, options, useCachedNodes);
+                return stackTop;
+            }
+        }
+        // with a format spec, the value is below the spec
+        int valueSlot = (options & FormatOptions.FVS_MASK) == FormatOptions.FVS_HAVE_SPEC ? stackTop - 1 : stackTop;
+        if (!virtualFrame.isObject(valueSlot)) {
+            generalizeInputs(bci);
+            generalizeFrameSlot(virtualFrame, valueSlot);
+        }
+        localBC[bci] = OpCodesConstants.FORMAT_VALUE_O;
+        return bytecodeFormatValue(virtualFrame, stackTop, bci, localNodes, options, useCachedNodes);
+    }
+
+    @BytecodeInterpreterSwitch
+    private void bytecodeFormatValueI(VirtualFrame virtualFrame, int stackTop, int bci, Node[] localNodes, int options, boolean useCachedNodes) {
+        if (!virtualFrame.isInt(stackTop)) {
+            generalizeFormatValue(virtualFrame, stackTop, bci, localNodes, options, useCachedNodes);
+            return;
+        }
+        FormatPrimitiveNode formatNode = insertChildNode(localNodes, bci + 1, UNCACHED_FORMAT_PRIMITIVE, FormatPrimitiveNodeGen.class, NODE_FORMAT_PRIMITIVE, useCachedNodes);
+        virtualFrame.setObject(stackTop, formatNode.executeLong(virtualFrame.getInt(stackTop)));
+    }
+
+    @BytecodeInterpreterSwitch
+    private void bytecodeFormatValueL(VirtualFrame virtualFrame, int stackTop, int bci, Node[] localNodes, int options, boolean useCachedNodes) {
+        if (!virtualFrame.isLong(stackTop)) {
+            generalizeFormatValue(virtualFrame, stackTop, bci, localNodes, options, useCachedNodes);
+            return;
+        }
+        FormatPrimitiveNode formatNode = insertChildNode(localNodes, bci + 1, UNCACHED_FORMAT_PRIMITIVE, FormatPrimitiveNodeGen.class, NODE_FORMAT_PRIMITIVE, useCachedNodes);
+        virtualFrame.setObject(stackTop, formatNode.executeLong(virtualFrame.getLong(stackTop)));
+    }
+
+    @BytecodeInterpreterSwitch
+    private void bytecodeFormatValueD(VirtualFrame virtualFrame, int stackTop, int bci, Node[] localNodes, int options, boolean useCachedNodes) {
+        if (!virtualFrame.isDouble(stackTop)) {
+            generalizeFormatValue(virtualFrame, stackTop, bci, localNodes, options, useCachedNodes);
+            return;
+        }
+        FormatPrimitiveNode formatNode = insertChildNode(localNodes, bci + 1, UNCACHED_FORMAT_PRIMITIVE, FormatPrimitiveNodeGen.class, NODE_FORMAT_PRIMITIVE, useCachedNodes);
+        virtualFrame.setObject(stackTop, formatNode.executeDouble(virtualFrame.getDouble(stackTop)));
+    }
+
+    private void generalizeFormatValue(VirtualFrame virtualFrame, int stackTop, int bci, Node[] localNodes, int options, boolean useCachedNodes) {
+        CompilerDirectives.transferToInterpreterAndInvalidate();
+        setCurrentBci(virtualFrame, bcioffset, bci);
+        generalizeFrameSlot(virtualFrame, stackTop);
+        generalizeInputs(bci);
+        bytecode[bci] = OpCodesConstants.FORMAT_VALUE_O;
+        bytecodeFormatValue(virtualFrame, stackTop, bci, localNodes, options, useCachedNodes);
+    }
+
+    @BytecodeInterpreterSwitch
     private int bytecodeFormatValue(VirtualFrame virtualFrame, int initialStackTop, int bci, Node[] localNodes, int options, boolean useCachedNodes) {
         int stackTop = initialStackTop;
         int type = options & FormatOptions.FVC_MASK;
@@ -4483,7 +4722,20 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
             spec = virtualFrame.getObject(stackTop);
             virtualFrame.setObject(stackTop--, null);
         }
-        Object value = virtualFrame.getObject(stackTop);
+        Object value;
+        try {
+            value = virtualFrame.getObject(stackTop);
+        } catch (FrameSlotTypeException e) {
+            // This should only happen when quickened concurrently in multi-context
+            // mode
+            generalizeInputs(bci);
+            value = virtualFrame.getValue(stackTop);
+        }
+        if (value instanceof TruffleString && spec == PNone.NO_VALUE && (type == FormatOptions.FVC_NONE || type == FormatOptions.FVC_STR)) {
+            // exact str formats to itself, no need to go through __format__
+            virtualFrame.setObject(stackTop, value);
+            return stackTop;
+        }
         switch (type) {
             case FormatOptions.FVC_STR:
                 value = insertChildNode(localNodes, bci, UNCACHED_STR, PyObjectStrAsObjectNodeGen.class, NODE_STR, useCachedNodes).execute(virtualFrame, value);
@@ -4503,6 +4755,15 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
         return stackTop;
     }
 
+    @BytecodeInterpreterSwitch
+    private int bytecodeBuildString(VirtualFrame virtualFrame, int initialStackTop, int bci, Node[] localNodes, int count, boolean useCachedNodes) {
+        BuildStringNode buildStringNode = insertChildNode(localNodes, bci, UNCACHED_BUILD_STRING, BuildStringNodeGen.class, NODE_BUILD_STRING, useCachedNodes);
+        TruffleString result = buildStringNode.execute(virtualFrame, initialStackTop, count);
+        int stackTop = initialStackTop - count + 1;
+        virtualFrame.setObject(stackTop, result);
+        return stackTop;
+    }
+
     private void bytecodeDeleteDeref(Frame localFrame, int bci, Node[] localNodes, int oparg, int cachedCelloffset, boolean useCachedNodes) {
         PCell cell = (PCell) localFrame.getObject(cachedCelloffset + oparg);
         Object value = cell.getRef();
@@ -4670,6 +4931,9 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
             if (virtualFrame.isInt(stackTop - 2)) {
                 bytecode[bci] = OpCodesConstants.STORE_SUBSCR_SEQ_IIO;
                 return bytecodeStoreSubscrSeqIIO(virtualFrame, stackTop, bci, localNodes, useCachedNodes);
+            } else if (virtualFrame.isLong(stackTop - 2)) {
+                bytecode[bci] = OpCodesConstants.STORE_SUBSCR_SEQ_ILO;
+                return bytecodeStoreSubscrSeqILO(virtualFrame, stackTop, bci, localNodes, useCachedNodes);
             } else if (virtualFrame.isDouble(stackTop - 2)) {
                 bytecode[bci] = OpCodesConstants.STORE_SUBSCR_SEQ_IDO;
                 return bytecodeStoreSubscrSeqIDO(virtualFrame, stackTop, bci, localNodes, useCachedNodes);
@@ -4755,9 +5019,32 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
         return stackTop;
     }
 
+    @BytecodeInterpreterSwitch
+    private int bytecodeStoreSubscrSeqILO(VirtualFrame virtualFrame, int stackTop, int bci, Node[] localNodes, boolean useCachedNodes) {
+        if (!virtualFrame.isLong(stackTop - 2)) {
+            return generalizeStoreSubscrSeq(virtualFrame, stackTop, bci, localNodes, useCachedNodes);
+        }
+        if (!virtualFrame.isInt(stackTop)) {
+            return generalizeStoreSubscr(virtualFrame, stackTop, bci, localNodes, useCachedNodes);
+        }
+        int index = virtualFrame.getInt(stackTop);
+        Object container = virtualFrame.getObject(stackTop - 1);
+        long value = virtualFrame.getLong(stackTop - 2);
+        try {
+            StoreSubscrSeq.LNode setItem = insertChildNode(localNodes, bci, StoreSubscrSeqFactory.LNodeGen.class, NODE_STORE_SUBSCR_SEQ_L);
+            setItem.execute(container, index, value);
+        } catch (QuickeningGeneralizeException e) {
+            return generalizeStoreSubscr(virtualFrame, stackTop, bci, localNodes, useCachedNodes);
+        }
+        virtualFrame.setObject(stackTop--, null);
+        virtualFrame.setObject(stackTop--, null);
+        virtualFrame.setObject(stackTop--, null);
+        return stackTop;
+    }
+
     @BytecodeInterpreterSwitch
     private int bytecodeStoreSubscrSeqIDO(VirtualFrame virtualFrame, int stackTop, int bci, Node[] localNodes, boolean useCachedNodes) {
-        if (!virtualFrame.isInt(stackTop - 2)) {
+        if (!virtualFrame.isDouble(stackTop - 2)) {
             return generalizeStoreSubscrSeq(virtualFrame, stackTop, bci, localNodes, useCachedNodes);
         }
         if (!virtualFrame.isInt(stackTop)) {
@@ -5102,7 +5389,7 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
 
         switch (argcount) {
             case 0: {
-                CallUnaryMethodNode callNode = insertChildNode(localNodes, bci + 1, UNCACHED_CALL_UNARY_METHOD, CallUnaryMethodNodeGen.class, NODE_CALL_UNARY_METHOD, useCachedNodes);
+                CallUnaryMethodNode callNode = insertChildNode(localNodes, bci, UNCACHED_CALL_UNARY_METHOD, CallUnaryMethodNodeGen.class, NODE_CALL_UNARY_METHOD, useCachedNodes);
 
                 profileCEvent(virtualFrame, func, PythonContext.ProfileEvent.C_CALL, mutableData, profilingEnabled);
                 try {
@@ -5118,7 +5405,7 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
                 break;
             }
             case 1: {
-                CallBinaryMethodNode callNode = insertChildNode(localNodes, bci + 1, UNCACHED_CALL_BINARY_METHOD, CallBinaryMethodNodeGen.class, NODE_CALL_BINARY_METHOD, useCachedNodes);
+                CallBinaryMethodNode callNode = insertChildNode(localNodes, bci, UNCACHED_CALL_BINARY_METHOD, CallBinaryMethodNodeGen.class, NODE_CALL_BINARY_METHOD, useCachedNodes);
 
                 profileCEvent(virtualFrame, func, PythonContext.ProfileEvent.C_CALL, mutableData, profilingEnabled);
                 try {
@@ -5135,7 +5422,7 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
                 break;
             }
             case 2: {
-                CallTernaryMethodNode callNode = insertChildNode(localNodes, bci + 1, UNCACHED_CALL_TERNARY_METHOD, CallTernaryMethodNodeGen.class, NODE_CALL_TERNARY_METHOD, useCachedNodes);
+                CallTernaryMethodNode callNode = insertChildNode(localNodes, bci, UNCACHED_CALL_TERNARY_METHOD, CallTernaryMethodNodeGen.class, NODE_CALL_TERNARY_METHOD, useCachedNodes);
                 Object arg1 = virtualFrame.getObject(stackTop);
                 virtualFrame.setObject(stackTop--, null);
                 Object arg0 = virtualFrame.getObject(stackTop);
@@ -5156,7 +5443,7 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
                 break;
             }
             case 3: {
-                CallQuaternaryMethodNode callNode = insertChildNode(localNodes, bci + 1, UNCACHED_CALL_QUATERNARY_METHOD, CallQuaternaryMethodNodeGen.class, NODE_CALL_QUATERNARY_METHOD,
+                CallQuaternaryMethodNode callNode = insertChildNode(localNodes, bci, UNCACHED_CALL_QUATERNARY_METHOD, CallQuaternaryMethodNodeGen.class, NODE_CALL_QUATERNARY_METHOD,
                                 useCachedNodes);
                 Object arg2 = virtualFrame.getObject(stackTop);
                 virtualFrame.setObject(stackTop--, null);
@@ -119,6 +119,27 @@ public abstract class StoreSubscrSeq extends Node {
         }
     }
 
+    public abstract static class LNode extends StoreSubscrSeq {
+        public abstract void execute(Object sequence, int index, long value);
+
+        @Specialization(guards = "cannotBeOverriddenForImmutableType(sequence)")
+        void doList(PList sequence, int index, long value,
+                        @Cached("createForList()") SequenceStorageNodes.SetItemNode setItemNode) {
+            updateStorage(sequence, setItemNode.execute(sequence.getSequenceStorage(), index, value));
+        }
+
+        @Fallback
+        @SuppressWarnings("unused")
+        void doGeneralize(Object sequence, int index, long value) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            throw new QuickeningGeneralizeException(0);
+        }
+
+        public static LNode create() {
+            return StoreSubscrSeqFactory.LNodeGen.create();
+        }
+    }
+
     protected void updateStorage(PList self, SequenceStorage newStorage) {
         if (updateStorageProfile.profile(self.getSequenceStorage() != newStorage)) {
             self.setSequenceStorage(newStorage);
@@ -90,7 +90,7 @@ public final class InstrumentationSupport extends Node {
         }
         startLine = minLine;
         statements = new InstrumentedBytecodeStatement[maxLine - minLine + 1];
-        bciToHelperNode = new Node[code.code.length];
+        bciToHelperNode = new Node[code.nodeCount];
         boolean[] loadedBreakpoint = new boolean[1];
         code.iterateBytecode((bci, op, oparg, followingArgs) -> {
             boolean setBreakpoint = false;
@@ -200,6 +200,6 @@ public final class InstrumentationSupport extends Node {
     public void insertHelperNode(Node node, int bci) {
         int line = code.bciToLine(bci);
         getStatement(line).insertHelperNode(node, bci);
-        bciToHelperNode[bci] = node;
+        bciToHelperNode[code.getNodeIndex(bci)] = node;
     }
 }
@@ -51,9 +51,12 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.graalvm.nativeimage.ImageInfo;
 
@@ -180,7 +183,11 @@ public class AsyncHandler {
     private final WeakReference<PythonContext> context;
     private final Queue<AsyncAction> rescheduled = new ConcurrentLinkedDeque<>();
     private static final int ASYNC_ACTION_DELAY = 25;
-    private static final int GIL_RELEASE_DELAY = 50;
+    /*
+     * Lower bound for scheduling the switch interval ticks, sys.setswitchinterval allows values
+     * that are much smaller than what a scheduled executor can honor.
+     */
+    private static final long MIN_SWITCH_INTERVAL_MICROS = 100;
 
     private class AsyncRunnable implements Runnable {
         private final Supplier<AsyncAction> actionSupplier;
@@ -340,7 +347,16 @@ public class AsyncHandler {
         }
         final Env env = ctx.getEnv();
         final AtomicBoolean gilReleaseRequested = new AtomicBoolean(false);
+        final AtomicLong lastAcquisitions = new AtomicLong(-1);
         final Runnable gilReleaseRunnable = () -> {
+            /*
+             * Like CPython, we only ask the owner to drop the GIL when another thread has been
+             * waiting for it for a whole switch interval without the GIL changing hands.
+             */
+            long acquisitions = ctx.getGilAcquisitions();
+            if (!ctx.hasGilWaiters() || lastAcquisitions.getAndSet(acquisitions) != acquisitions) {
+                return;
+            }
             if (gilReleaseRequested.compareAndSet(false, true)) {
                 Thread gilOwner = ctx.getGilOwner();
                 // There is a race, but that's no problem. The gil owner may release the gil before
@@ -378,7 +394,21 @@ public class AsyncHandler {
             }
         };
         if (PythonOptions.AUTOMATIC_ASYNC_ACTIONS) {
-            executorService.scheduleWithFixedDelay(gilReleaseRunnable, GIL_RELEASE_DELAY, GIL_RELEASE_DELAY, TimeUnit.MILLISECONDS);
+            // rescheduled after every tick, so that changes of the switch interval take effect
+            executorService.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        gilReleaseRunnable.run();
+                    } finally {
+                        try {
+                            executorService.schedule(this, getSwitchIntervalMicros(ctx), TimeUnit.MICROSECONDS);
+                        } catch (RejectedExecutionException e) {
+                            // we are shutting down
+                        }
+                    }
+                }
+            }, getSwitchIntervalMicros(ctx), TimeUnit.MICROSECONDS);
         } else {
             // we will release the gil when polled to do so
             registeredActions.add(new AsyncRunnable(() -> {
@@ -388,6 +418,23 @@ public class AsyncHandler {
         }
     }
 
+    /**
+     * Runs the task on a handler thread every {@code periodMicros} microseconds until the returned
+     * future is cancelled. Returns {@code null} if async actions are not run automatically, since
+     * polling cannot provide a regular period.
+     */
+    public ScheduledFuture<?> schedulePeriodic(Runnable task, long periodMicros) {
+        CompilerAsserts.neverPartOfCompilation();
+        if (!PythonOptions.AUTOMATIC_ASYNC_ACTIONS) {
+            return null;
+        }
+        return executorService.scheduleAtFixedRate(task, periodMicros, periodMicros, TimeUnit.MICROSECONDS);
+    }
+
+    private static long getSwitchIntervalMicros(PythonContext ctx) {
+        return Math.max(MIN_SWITCH_INTERVAL_MICROS, (long) (ctx.getSysModuleState().getSwitchInterval() * 1e6));
+    }
+
     public void shutdown() {
         if (executorService != null) {
             executorService.shutdownNow();
@@ -63,6 +63,15 @@ import static com.oracle.graal.python.runtime.PosixConstants.EAI_FAMILY;
 import static com.oracle.graal.python.runtime.PosixConstants.EAI_NONAME;
 import static com.oracle.graal.python.runtime.PosixConstants.EAI_SERVICE;
 import static com.oracle.graal.python.runtime.PosixConstants.EAI_SOCKTYPE;
+import static com.oracle.graal.python.runtime.PosixConstants.EPOLLET;
+import static com.oracle.graal.python.runtime.PosixConstants.EPOLLIN;
+import static com.oracle.graal.python.runtime.PosixConstants.EPOLLONESHOT;
+import static com.oracle.graal.python.runtime.PosixConstants.EPOLLOUT;
+import static com.oracle.graal.python.runtime.PosixConstants.EPOLLRDNORM;
+import static com.oracle.graal.python.runtime.PosixConstants.EPOLLWRNORM;
+import static com.oracle.graal.python.runtime.PosixConstants.EPOLL_CTL_ADD;
+import static com.oracle.graal.python.runtime.PosixConstants.EPOLL_CTL_DEL;
+import static com.oracle.graal.python.runtime.PosixConstants.EPOLL_CTL_MOD;
 import static com.oracle.graal.python.runtime.PosixConstants.F_OK;
 import static com.oracle.graal.python.runtime.PosixConstants.IN6ADDR_ANY;
 import static com.oracle.graal.python.runtime.PosixConstants.INADDR_NONE;
@@ -73,6 +82,7 @@ import static com.oracle.graal.python.runtime.PosixConstants.LOCK_NB;
 import static com.oracle.graal.python.runtime.PosixConstants.LOCK_SH;
 import static com.oracle.graal.python.runtime.PosixConstants.LOCK_UN;
 import static com.oracle.graal.python.runtime.PosixConstants.MAP_ANONYMOUS;
+import static com.oracle.graal.python.runtime.PosixConstants.MAP_PRIVATE;
 import static com.oracle.graal.python.runtime.PosixConstants.NI_DGRAM;
 import static com.oracle.graal.python.runtime.PosixConstants.NI_NAMEREQD;
 import static com.oracle.graal.python.runtime.PosixConstants.NI_NUMERICHOST;
@@ -154,6 +164,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.Inet4Address;
 import java.net.Inet6Address;
 import java.net.InetAddress;
@@ -165,9 +176,14 @@ import java.net.StandardSocketOptions;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ReadOnlyBufferException;
 import java.nio.channels.AlreadyConnectedException;
 import java.nio.channels.ByteChannel;
+import java.nio.channels.CancelledKeyException;
 import java.nio.channels.Channel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
@@ -668,6 +684,230 @@ public final class EmulatedPosixSupport extends PosixResources {
         return res;
     }
 
+    /**
+     * Emulation of an epoll instance on top of a {@link Selector} that lives as long as the epoll
+     * file descriptor. Unlike {@link #select}, channels are registered only once and
+     * {@link #epollWait} only walks the selected keys, so the cost of a wait is proportional to
+     * the number of ready channels rather than to the number of registered ones.
+     * <p>
+     * Java requires registered channels to be non-blocking, so registration switches the channel
+     * to non-blocking mode until it is unregistered again. Edge-triggered mode is not supported,
+     * {@code EPOLLET} is treated as level-triggered.
+     */
+    private static final class EmulatedPoller implements Channel {
+        private final Selector selector;
+        private final HashMap<Integer, PollerRegistration> registrations = new HashMap<>();
+
+        EmulatedPoller(Selector selector) {
+            this.selector = selector;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return selector.isOpen();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            for (PollerRegistration registration : registrations.values()) {
+                registration.cancel();
+            }
+            registrations.clear();
+            selector.close();
+        }
+    }
+
+    private static final class PollerRegistration {
+        private final int fd;
+        private final SelectableChannel channel;
+        private final boolean wasBlocking;
+        private SelectionKey key;
+        private int events;
+
+        PollerRegistration(int fd, SelectableChannel channel, boolean wasBlocking) {
+            this.fd = fd;
+            this.channel = channel;
+            this.wasBlocking = wasBlocking;
+        }
+
+        void cancel() throws IOException {
+            key.cancel();
+            if (wasBlocking && channel.isOpen() && channel.keyFor(key.selector()) == null) {
+                // the cancelled key is only deregistered during the next selection, which has to
+                // wait for a concurrent epollWait to leave the selector
+                key.selector().wakeup();
+                key.selector().selectNow();
+                channel.configureBlocking(true);
+            }
+        }
+    }
+
+    private static int epollToInterestOps(int events, SelectableChannel channel) {
+        int ops = 0;
+        if ((events & (EPOLLIN.getValueIfDefined() | EPOLLRDNORM.getValueIfDefined())) != 0) {
+            ops |= SelectionKey.OP_READ | SelectionKey.OP_ACCEPT;
+        }
+        if ((events & (EPOLLOUT.getValueIfDefined() | EPOLLWRNORM.getValueIfDefined())) != 0) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        return ops & channel.validOps();
+    }
+
+    private static int readyOpsToEpoll(int readyOps, int events) {
+        int result = 0;
+        if ((readyOps & (SelectionKey.OP_READ | SelectionKey.OP_ACCEPT)) != 0) {
+            result |= events & (EPOLLIN.getValueIfDefined() | EPOLLRDNORM.getValueIfDefined());
+        }
+        if ((readyOps & SelectionKey.OP_WRITE) != 0) {
+            result |= events & (EPOLLOUT.getValueIfDefined() | EPOLLWRNORM.getValueIfDefined());
+        }
+        return result;
+    }
+
+    private EmulatedPoller getPoller(int epfd) throws PosixException {
+        Channel ch = getFileChannel(epfd);
+        if (ch == null) {
+            throw posixException(OSErrorEnum.EBADF);
+        }
+        if (!(ch instanceof EmulatedPoller)) {
+            throw posixException(OSErrorEnum.EINVAL);
+        }
+        return (EmulatedPoller) ch;
+    }
+
+    @ExportMessage
+    @TruffleBoundary
+    public int epollCreate() throws PosixException {
+        if (PythonOptions.WITHOUT_JAVA_INET) {
+            throw new UnsupportedPosixFeatureException("epoll was excluded");
+        }
+        if (!EPOLLIN.defined) {
+            throw new UnsupportedPosixFeatureException("epoll is not available on this platform");
+        }
+        try {
+            return assignFileDescriptor(new EmulatedPoller(Selector.open()));
+        } catch (IOException e) {
+            throw posixException(OSErrorEnum.fromException(e, TruffleString.EqualNode.getUncached()));
+        }
+    }
+
+    @ExportMessage
+    @TruffleBoundary
+    public void epollCtl(int epfd, int op, int fd, int events) throws PosixException {
+        EmulatedPoller poller = getPoller(epfd);
+        if (epfd == fd) {
+            throw posixException(OSErrorEnum.EINVAL);
+        }
+        if ((events & EPOLLET.getValueIfDefined()) != 0) {
+            compatibilityIgnored("POSIX emulation layer doesn't support edge-triggered epoll, using level-triggered mode instead");
+        }
+        synchronized (poller) {
+            PollerRegistration registration = poller.registrations.get(fd);
+            if (registration != null && !registration.key.isValid()) {
+                // like epoll, forget about channels that were closed in the meantime
+                poller.registrations.remove(fd);
+                registration = null;
+            }
+            try {
+                if (op == EPOLL_CTL_ADD.getValueIfDefined()) {
+                    if (registration != null) {
+                        throw posixException(OSErrorEnum.EEXIST);
+                    }
+                    SelectableChannel channel;
+                    try {
+                        channel = getSelectableChannels(new int[]{fd})[0];
+                    } catch (ChannelNotSelectableException e) {
+                        // epoll_ctl reports EPERM for files that do not support polling
+                        throw posixException(OSErrorEnum.EPERM);
+                    }
+                    registration = new PollerRegistration(fd, channel, channel.isBlocking());
+                    channel.configureBlocking(false);
+                    registration.events = events;
+                    registration.key = channel.register(poller.selector, epollToInterestOps(events, channel), registration);
+                    poller.registrations.put(fd, registration);
+                } else if (op == EPOLL_CTL_MOD.getValueIfDefined()) {
+                    if (registration == null) {
+                        throw posixException(OSErrorEnum.ENOENT);
+                    }
+                    registration.events = events;
+                    registration.key.interestOps(epollToInterestOps(events, registration.channel));
+                } else if (op == EPOLL_CTL_DEL.getValueIfDefined()) {
+                    if (registration == null) {
+                        throw posixException(OSErrorEnum.ENOENT);
+                    }
+                    poller.registrations.remove(fd);
+                    registration.cancel();
+                } else {
+                    throw posixException(OSErrorEnum.EINVAL);
+                }
+            } catch (CancelledKeyException | ClosedChannelException e) {
+                // the registered channel was closed behind our back
+                poller.registrations.remove(fd);
+                throw posixException(OSErrorEnum.EBADF);
+            } catch (IOException e) {
+                throw posixException(OSErrorEnum.fromException(e, TruffleString.EqualNode.getUncached()));
+            }
+        }
+        // let a concurrent epollWait pick up the new interest set
+        poller.selector.wakeup();
+    }
+
+    @ExportMessage
+    @TruffleBoundary
+    public int epollWait(int epfd, int[] fds, int[] events, Timeval timeout) throws PosixException {
+        EmulatedPoller poller = getPoller(epfd);
+        Selector selector = poller.selector;
+        try {
+            // keys left over from a previous call that reported only 'fds.length' events are
+            // still in the selected set, so don't block in that case
+            if (!selector.selectedKeys().isEmpty()) {
+                selector.selectNow();
+            } else if (timeout == null) {
+                selector.select();
+            } else {
+                long timeoutMs;
+                try {
+                    timeoutMs = addExact(multiplyExact(timeout.getSeconds(), 1000L), timeout.getMicroseconds() / 1000L);
+                } catch (ArithmeticException ex) {
+                    throw posixException(OSErrorEnum.EINVAL);
+                }
+                if (timeoutMs == 0) {
+                    selector.selectNow();
+                } else {
+                    selector.select(timeoutMs);
+                }
+            }
+        } catch (ClosedSelectorException e) {
+            throw posixException(OSErrorEnum.EBADF);
+        } catch (IOException e) {
+            throw posixException(OSErrorEnum.fromException(e, TruffleString.EqualNode.getUncached()));
+        }
+        int n = 0;
+        synchronized (poller) {
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (n < fds.length && it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                if (!key.isValid()) {
+                    continue;
+                }
+                PollerRegistration registration = (PollerRegistration) key.attachment();
+                int ready = readyOpsToEpoll(key.readyOps(), registration.events);
+                if (ready == 0) {
+                    continue;
+                }
+                fds[n] = registration.fd;
+                events[n] = ready;
+                n++;
+                if ((registration.events & EPOLLONESHOT.getValueIfDefined()) != 0) {
+                    // disabled until re-armed with EPOLL_CTL_MOD
+                    key.interestOps(0);
+                }
+            }
+        }
+        return n;
+    }
+
     private SelectableChannel[] getSelectableChannels(int[] fds) throws PosixException {
         SelectableChannel[] channels = new SelectableChannel[fds.length];
         for (int i = 0; i < fds.length; i++) {
@@ -2283,81 +2523,44 @@ public final class EmulatedPosixSupport extends PosixResources {
     }
 
     public static final class MMapHandle {
-        private static final MMapHandle NONE = new MMapHandle(null, 0);
+        private static final MMapHandle NONE = new MMapHandle(null, 0, 0, null);
+
+        /**
+         * Mapped regions are split into {@link ByteBuffer} chunks of 1GB, because a single buffer
+         * can only be indexed by {@code int}.
+         */
+        private static final int CHUNK_SHIFT = 30;
+        private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
         private SeekableByteChannel channel;
         private final long offset;
+        private final long length;
 
-        public MMapHandle(SeekableByteChannel channel, long offset) {
+        /**
+         * The mapped memory, or {@code null} if the underlying channel cannot be mapped and every
+         * access has to go through {@link #channel}. Anonymous mappings are backed by heap
+         * buffers, file mappings by {@link MappedByteBuffer}s obtained from {@link FileChannel#map}.
+         */
+        private ByteBuffer[] chunks;
+
+        private MMapHandle(SeekableByteChannel channel, long offset, long length, ByteBuffer[] chunks) {
             this.channel = channel;
             this.offset = offset;
+            this.length = length;
+            this.chunks = chunks;
         }
 
-        @Override
-        public String toString() {
-            neverPartOfCompilation();
-            return String.format("Emulated mmap [channel=%s, offset=%d]", channel, offset);
-        }
-    }
-
-    private static final class AnonymousMap implements SeekableByteChannel {
-        private final byte[] data;
-
-        private boolean open = true;
-        private int cur;
-
-        public AnonymousMap(int cap) {
-            this.data = new byte[cap];
-        }
-
-        @Override
-        public boolean isOpen() {
-            return open;
-        }
-
-        @Override
-        public void close() throws IOException {
-            open = false;
-        }
-
-        @Override
-        public int read(ByteBuffer dst) throws IOException {
-            int nread = Math.min(dst.remaining(), data.length - cur);
-            dst.put(data, cur, nread);
-            return nread;
-        }
-
-        @Override
-        public int write(ByteBuffer src) throws IOException {
-            int nwrite = Math.min(src.remaining(), data.length - cur);
-            src.get(data, cur, nwrite);
-            return nwrite;
-        }
-
-        @Override
-        public long position() throws IOException {
-            return cur;
-        }
-
-        @Override
-        public SeekableByteChannel position(long newPosition) throws IOException {
-            if (newPosition < 0 || newPosition >= data.length) {
-                throw new IllegalArgumentException();
-            }
-            cur = (int) newPosition;
-            return this;
+        boolean isMapped() {
+            return chunks != null;
         }
 
         @Override
-        public long size() throws IOException {
-            return data.length;
-        }
-
-        @Override
-        public SeekableByteChannel truncate(long size) throws IOException {
-            for (int i = 0; i < size; i++) {
-                data[i] = 0;
+        public String toString() {
+            neverPartOfCompilation();
+            if (isMapped()) {
+                return String.format("Emulated mmap [mapped, chunks=%d, offset=%d, length=%d]", chunks.length, offset, length);
             }
-            return this;
+            return String.format("Emulated mmap [channel=%s, offset=%d]", channel, offset);
         }
     }
 
@@ -2374,7 +2577,7 @@ public final class EmulatedPosixSupport extends PosixResources {
         // Note: the profile is not really defaultDirProfile, but it's good to share...
         if (isAnonymousProfile.profile((flags & MAP_ANONYMOUS.value) != 0)) {
             try {
-                return new MMapHandle(new AnonymousMap(PythonUtils.toIntExact(length)), 0);
+                return new MMapHandle(null, 0, length, new ByteBuffer[]{allocateByteBuffer(PythonUtils.toIntExact(length))});
             } catch (OverflowException e) {
                 CompilerDirectives.transferToInterpreter();
                 throw new UnsupportedPosixFeatureException(String.format("Anonymous mapping in mmap for memory larger than %d", Integer.MAX_VALUE));
@@ -2389,8 +2592,14 @@ public final class EmulatedPosixSupport extends PosixResources {
         SeekableByteChannel fileChannel;
         try {
             fileChannel = newByteChannel(file, options);
+            ByteBuffer[] chunks = mapChannel(fileChannel, mmapMapMode(prot, flags), offset, length);
+            if (chunks != null) {
+                // the mapping stays valid after the channel is closed
+                closeChannel(fileChannel);
+                return new MMapHandle(null, offset, length, chunks);
+            }
             position(fileChannel, offset);
-            return new MMapHandle(fileChannel, offset);
+            return new MMapHandle(fileChannel, offset, length, null);
         } catch (IOException e) {
             throw posixException(OSErrorEnum.fromException(e, eqNode));
         }
@@ -2411,6 +2620,41 @@ public final class EmulatedPosixSupport extends PosixResources {
         return options;
     }
 
+    private static FileChannel.MapMode mmapMapMode(int prot, int flags) {
+        if ((prot & PROT_WRITE.value) == 0) {
+            return FileChannel.MapMode.READ_ONLY;
+        }
+        return (flags & MAP_PRIVATE.value) != 0 ? FileChannel.MapMode.PRIVATE : FileChannel.MapMode.READ_WRITE;
+    }
+
+    /**
+     * Maps the given region of the channel into memory if the channel is a {@link FileChannel}.
+     * Returns {@code null} if the channel does not support mapping (e.g., it comes from a virtual
+     * file system, or the requested mode does not fit the open options), in which case the caller
+     * falls back to positioned reads and writes on the channel.
+     */
+    @TruffleBoundary
+    private static ByteBuffer[] mapChannel(SeekableByteChannel channel, FileChannel.MapMode mode, long offset, long length) {
+        if (!(channel instanceof FileChannel) || length <= 0) {
+            return null;
+        }
+        FileChannel fc = (FileChannel) channel;
+        int count = (int) ((length + MMapHandle.CHUNK_MASK) >>> MMapHandle.CHUNK_SHIFT);
+        ByteBuffer[] chunks = new ByteBuffer[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                long chunkStart = (long) i << MMapHandle.CHUNK_SHIFT;
+                long chunkSize = Math.min(length - chunkStart, 1L << MMapHandle.CHUNK_SHIFT);
+                chunks[i] = fc.map(mode, offset + chunkStart, chunkSize);
+            }
+        } catch (IOException | RuntimeException e) {
+            // NonReadableChannelException, NonWritableChannelException,
+            // UnsupportedOperationException, ...
+            return null;
+        }
+        return chunks;
+    }
+
     @TruffleBoundary
     private static SeekableByteChannel newByteChannel(TruffleFile file, Set<StandardOpenOption> options) throws IOException {
         return file.newByteChannel(options);
@@ -2426,6 +2670,13 @@ public final class EmulatedPosixSupport extends PosixResources {
             throw posixException(OSErrorEnum.EACCES);
         }
         MMapHandle handle = (MMapHandle) mmap;
+        if (handle.isMapped()) {
+            if (index < 0 || index >= handle.length) {
+                errBranch.enter();
+                throw posixException(OSErrorEnum.ENODATA);
+            }
+            return getMappedByte(handle.chunks[(int) (index >>> MMapHandle.CHUNK_SHIFT)], (int) (index & MMapHandle.CHUNK_MASK));
+        }
         ByteBuffer readingBuffer = allocateByteBuffer(1);
         int readSize = readBytes(handle, index, readingBuffer, errBranch, eqNode);
         if (readSize == 0) {
@@ -2439,12 +2690,26 @@ public final class EmulatedPosixSupport extends PosixResources {
     public void mmapWriteByte(Object mmap, long index, byte value,
                     @Shared("errorBranch") @Cached BranchProfile errBranch,
                     @Shared("eq") @Cached TruffleString.EqualNode eqNode) throws PosixException {
-        mmapWriteBytes(mmap, index, new byte[]{value}, 1, errBranch, eqNode);
+        if (mmap instanceof MMapHandle && ((MMapHandle) mmap).isMapped()) {
+            MMapHandle handle = (MMapHandle) mmap;
+            if (index < 0 || index >= handle.length) {
+                errBranch.enter();
+                throw posixException(OSErrorEnum.EIO);
+            }
+            try {
+                putMappedByte(handle.chunks[(int) (index >>> MMapHandle.CHUNK_SHIFT)], (int) (index & MMapHandle.CHUNK_MASK), value);
+            } catch (ReadOnlyBufferException e) {
+                errBranch.enter();
+                throw posixException(OSErrorEnum.EACCES);
+            }
+            return;
+        }
+        mmapWriteBytes(mmap, index, new byte[]{value}, 0, 1, errBranch, eqNode);
     }
 
     @ExportMessage
     @SuppressWarnings("static-method")
-    public int mmapReadBytes(Object mmap, long index, byte[] bytes, int length,
+    public int mmapReadBytes(Object mmap, long index, byte[] bytes, int offset, int length,
                     @Shared("errorBranch") @Cached BranchProfile errBranch,
                     @Shared("eq") @Cached TruffleString.EqualNode eqNode) throws PosixException {
         if (mmap == MMapHandle.NONE) {
@@ -2452,6 +2717,15 @@ public final class EmulatedPosixSupport extends PosixResources {
             throw posixException(OSErrorEnum.EACCES);
         }
         MMapHandle handle = (MMapHandle) mmap;
+        if (handle.isMapped()) {
+            if (index < 0 || index > handle.length) {
+                errBranch.enter();
+                throw posixException(OSErrorEnum.ENODATA);
+            }
+            int readSize = (int) Math.min(length, handle.length - index);
+            copyMapped(handle, index, bytes, offset, readSize, false);
+            return readSize;
+        }
         int sz;
         try {
             sz = PythonUtils.toIntExact(length);
@@ -2462,7 +2736,7 @@ public final class EmulatedPosixSupport extends PosixResources {
         ByteBuffer readingBuffer = allocateByteBuffer(sz);
         int readSize = readBytes(handle, index, readingBuffer, errBranch, eqNode);
         if (readSize > 0) {
-            getByteBufferArray(readingBuffer, bytes, readSize);
+            getByteBufferArray(readingBuffer, bytes, offset, readSize);
         }
         return readSize;
     }
@@ -2479,7 +2753,7 @@ public final class EmulatedPosixSupport extends PosixResources {
 
     @ExportMessage
     @SuppressWarnings("static-method")
-    public void mmapWriteBytes(Object mmap, long index, byte[] bytes, int length,
+    public void mmapWriteBytes(Object mmap, long index, byte[] bytes, int offset, int length,
                     @Shared("errorBranch") @Cached BranchProfile errBranch,
                     @Shared("eq") @Cached TruffleString.EqualNode eqNode) throws PosixException {
         if (mmap == MMapHandle.NONE) {
@@ -2487,10 +2761,23 @@ public final class EmulatedPosixSupport extends PosixResources {
             throw posixException(OSErrorEnum.EACCES);
         }
         MMapHandle handle = (MMapHandle) mmap;
+        if (handle.isMapped()) {
+            if (index < 0 || length < 0 || index + length > handle.length) {
+                errBranch.enter();
+                throw posixException(OSErrorEnum.EIO);
+            }
+            try {
+                copyMapped(handle, index, bytes, offset, length, true);
+            } catch (ReadOnlyBufferException e) {
+                errBranch.enter();
+                throw posixException(OSErrorEnum.EACCES);
+            }
+            return;
+        }
         try {
             SeekableByteChannel channel = handle.channel;
             position(channel, handle.offset + index);
-            int written = writeChannel(channel, bytes, length);
+            int written = writeChannel(channel, bytes, offset, length);
             if (written != length) {
                 throw posixException(OSErrorEnum.EIO);
             }
@@ -2501,19 +2788,81 @@ public final class EmulatedPosixSupport extends PosixResources {
         }
     }
 
+    @TruffleBoundary(allowInlining = true)
+    private static byte getMappedByte(ByteBuffer chunk, int index) {
+        return chunk.get(index);
+    }
+
+    @TruffleBoundary(allowInlining = true)
+    private static void putMappedByte(ByteBuffer chunk, int index, byte value) {
+        chunk.put(index, value);
+    }
+
+    /**
+     * Copies {@code length} bytes between the mapped memory starting at {@code index} and
+     * {@code bytes} starting at {@code offset}, crossing chunk boundaries as needed.
+     */
+    @TruffleBoundary
+    private static void copyMapped(MMapHandle handle, long index, byte[] bytes, int offset, int length, boolean write) {
+        long cur = index;
+        int done = 0;
+        while (done < length) {
+            ByteBuffer chunk = handle.chunks[(int) (cur >>> MMapHandle.CHUNK_SHIFT)];
+            int chunkIndex = (int) (cur & MMapHandle.CHUNK_MASK);
+            int n = Math.min(length - done, chunk.capacity() - chunkIndex);
+            if (write) {
+                chunk.put(chunkIndex, bytes, offset + done, n);
+            } else {
+                chunk.get(chunkIndex, bytes, offset + done, n);
+            }
+            done += n;
+            cur += n;
+        }
+    }
+
     @TruffleBoundary
-    private static int writeChannel(SeekableByteChannel channel, byte[] bytes, int length) throws IOException {
-        return channel.write(ByteBuffer.wrap(bytes, 0, length));
+    private static int writeChannel(SeekableByteChannel channel, byte[] bytes, int offset, int length) throws IOException {
+        return channel.write(ByteBuffer.wrap(bytes, offset, length));
     }
 
     @ExportMessage
-    @SuppressWarnings({"static-method", "unused"})
-    public void mmapFlush(Object mmap, long offset, long length) {
-        // Intentionally noop
-        // If we had access to the underlying NIO FileChannel, we could explicitly set force(true)
-        // when creating the channel. Another possibility would be exposing JDK's memory mapped
-        // files support via Truffle API, which would allow for more compatible (and completely
-        // different implementation of mmap in emulated posix)
+    @SuppressWarnings("static-method")
+    public void mmapFlush(Object mmap, long offset, long length,
+                    @Shared("eq") @Cached TruffleString.EqualNode eqNode) throws PosixException {
+        if (mmap == MMapHandle.NONE) {
+            return;
+        }
+        MMapHandle handle = (MMapHandle) mmap;
+        try {
+            if (handle.isMapped()) {
+                forceMapped(handle, offset, length);
+            } else if (handle.channel instanceof FileChannel) {
+                forceChannel((FileChannel) handle.channel);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            throw posixException(OSErrorEnum.fromException(e, eqNode));
+        }
+    }
+
+    @TruffleBoundary
+    private static void forceMapped(MMapHandle handle, long offset, long length) {
+        long end = Math.min(handle.length, offset + length);
+        long cur = Math.max(0, offset);
+        while (cur < end) {
+            ByteBuffer chunk = handle.chunks[(int) (cur >>> MMapHandle.CHUNK_SHIFT)];
+            int chunkIndex = (int) (cur & MMapHandle.CHUNK_MASK);
+            int n = (int) Math.min(end - cur, chunk.capacity() - chunkIndex);
+            if (chunk instanceof MappedByteBuffer) {
+                // anonymous mappings are plain heap buffers, there is nothing to write back
+                ((MappedByteBuffer) chunk).force(chunkIndex, n);
+            }
+            cur += n;
+        }
+    }
+
+    @TruffleBoundary
+    private static void forceChannel(FileChannel channel) throws IOException {
+        channel.force(false);
     }
 
     @ExportMessage
@@ -2524,6 +2873,8 @@ public final class EmulatedPosixSupport extends PosixResources {
             return;
         }
         MMapHandle handle = (MMapHandle) mmap;
+        // the JDK releases the mapping once the buffers become unreachable
+        handle.chunks = null;
         if (handle.channel != null) {
             try {
                 closeChannel(handle.channel);
@@ -2556,9 +2907,9 @@ public final class EmulatedPosixSupport extends PosixResources {
     }
 
     @TruffleBoundary(allowInlining = true)
-    protected static void getByteBufferArray(ByteBuffer src, byte[] dst, int readSize) {
+    protected static void getByteBufferArray(ByteBuffer src, byte[] dst, int offset, int readSize) {
         src.flip();
-        src.get(dst, 0, readSize);
+        src.get(dst, offset, readSize);
     }
 
     @TruffleBoundary(allowInlining = true)
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.oracle.graal.python.builtins.objects.thread.PThread;
+
+/**
+ * Per-thread histograms of the time spent waiting for and holding the GIL. Collection is off by
+ * default and can be switched on with {@code __graalpython__.set_gil_statistics(True)}. The
+ * counters of a thread are only updated by that thread while it holds the GIL, and they are read
+ * with the GIL held, so they need no further synchronization.
+ */
+public final class GilStatistics {
+    /**
+     * Bucket {@code i > 0} counts durations in {@code [2^(i-1), 2^i)} microseconds, bucket 0
+     * counts durations below one microsecond and the last bucket is open-ended.
+     */
+    public static final int BUCKETS = 24;
+
+    public static final class ThreadStatistics {
+        private final long ident;
+        private final String name;
+        private final long[] waitHistogram = new long[BUCKETS];
+        private final long[] holdHistogram = new long[BUCKETS];
+        private long acquisitions;
+        private long waitNanos;
+        private long holdNanos;
+        private long holdStart;
+
+        ThreadStatistics(Thread thread) {
+            this.ident = PThread.getThreadId(thread);
+            this.name = thread.getName();
+        }
+
+        public long getIdent() {
+            return ident;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long[] getWaitHistogram() {
+            return waitHistogram.clone();
+        }
+
+        public long[] getHoldHistogram() {
+            return holdHistogram.clone();
+        }
+
+        public long getAcquisitions() {
+            return acquisitions;
+        }
+
+        public long getWaitNanos() {
+            return waitNanos;
+        }
+
+        public long getHoldNanos() {
+            return holdNanos;
+        }
+    }
+
+    private volatile boolean enabled;
+    private final ConcurrentHashMap<Long, ThreadStatistics> threads = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enabling the collection discards the data collected so far.
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled) {
+            threads.clear();
+        }
+        this.enabled = enabled;
+    }
+
+    public List<ThreadStatistics> getThreads() {
+        return new ArrayList<>(threads.values());
+    }
+
+    void acquired(long waitStart, long now) {
+        ThreadStatistics stats = forCurrentThread();
+        long waited = now - waitStart;
+        stats.acquisitions++;
+        stats.waitNanos += waited;
+        stats.waitHistogram[bucket(waited)]++;
+        stats.holdStart = now;
+    }
+
+    void releasing(long now) {
+        ThreadStatistics stats = forCurrentThread();
+        if (stats.holdStart != 0) {
+            long held = now - stats.holdStart;
+            stats.holdNanos += held;
+            stats.holdHistogram[bucket(held)]++;
+            stats.holdStart = 0;
+        }
+    }
+
+    private ThreadStatistics forCurrentThread() {
+        Thread thread = Thread.currentThread();
+        return threads.computeIfAbsent(PThread.getThreadId(thread), id -> new ThreadStatistics(thread));
+    }
+
+    static int bucket(long nanos) {
+        long micros = nanos / 1000;
+        return Math.min(BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(micros));
+    }
+}
@@ -248,6 +248,26 @@ public class ImageBuildtimePosixSupport extends PosixSupport {
         return nativeLib.select(nativePosixSupport, readfds, writefds, errorfds, timeout);
     }
 
+    @ExportMessage
+    final int epollCreate(@CachedLibrary("this.nativePosixSupport") PosixSupportLibrary nativeLib) throws PosixException {
+        checkNotInImageBuildtime();
+        return nativeLib.epollCreate(nativePosixSupport);
+    }
+
+    @ExportMessage
+    final void epollCtl(int epfd, int op, int fd, int events,
+                    @CachedLibrary("this.nativePosixSupport") PosixSupportLibrary nativeLib) throws PosixException {
+        checkNotInImageBuildtime();
+        nativeLib.epollCtl(nativePosixSupport, epfd, op, fd, events);
+    }
+
+    @ExportMessage
+    final int epollWait(int epfd, int[] fds, int[] events, Timeval timeout,
+                    @CachedLibrary("this.nativePosixSupport") PosixSupportLibrary nativeLib) throws PosixException {
+        checkNotInImageBuildtime();
+        return nativeLib.epollWait(nativePosixSupport, epfd, fds, events, timeout);
+    }
+
     @ExportMessage
     final long lseek(int fd, long offset, int how,
                     @CachedLibrary("this.nativePosixSupport") PosixSupportLibrary nativeLib) throws PosixException {
@@ -700,17 +720,17 @@ public class ImageBuildtimePosixSupport extends PosixSupport {
     }
 
     @ExportMessage
-    final int mmapReadBytes(Object mmap, long index, byte[] bytes, int length,
+    final int mmapReadBytes(Object mmap, long index, byte[] bytes, int offset, int length,
                     @CachedLibrary("this.nativePosixSupport") PosixSupportLibrary nativeLib) throws PosixException {
         checkNotInImageBuildtime();
-        return nativeLib.mmapReadBytes(nativePosixSupport, mmap, index, bytes, length);
+        return nativeLib.mmapReadBytes(nativePosixSupport, mmap, index, bytes, offset, length);
     }
 
     @ExportMessage
-    final void mmapWriteBytes(Object mmap, long index, byte[] bytes, int length,
+    final void mmapWriteBytes(Object mmap, long index, byte[] bytes, int offset, int length,
                     @CachedLibrary("this.nativePosixSupport") PosixSupportLibrary nativeLib) throws PosixException {
         checkNotInImageBuildtime();
-        nativeLib.mmapWriteBytes(nativePosixSupport, mmap, index, bytes, length);
+        nativeLib.mmapWriteBytes(nativePosixSupport, mmap, index, bytes, offset, length);
     }
 
     @ExportMessage
@@ -257,6 +257,39 @@ public class LoggingPosixSupport extends PosixSupport {
         }
     }
 
+    @ExportMessage
+    final int epollCreate(
+                    @CachedLibrary("this.delegate") PosixSupportLibrary lib) throws PosixException {
+        logEnter("epollCreate", "");
+        try {
+            return logExit("epollCreate", "%d", lib.epollCreate(delegate));
+        } catch (PosixException e) {
+            throw logException("epollCreate", e);
+        }
+    }
+
+    @ExportMessage
+    final void epollCtl(int epfd, int op, int fd, int events,
+                    @CachedLibrary("this.delegate") PosixSupportLibrary lib) throws PosixException {
+        logEnter("epollCtl", "%d, %d, %d, 0x%x", epfd, op, fd, events);
+        try {
+            lib.epollCtl(delegate, epfd, op, fd, events);
+        } catch (PosixException e) {
+            throw logException("epollCtl", e);
+        }
+    }
+
+    @ExportMessage
+    final int epollWait(int epfd, int[] fds, int[] events, Timeval timeout,
+                    @CachedLibrary("this.delegate") PosixSupportLibrary lib) throws PosixException {
+        logEnter("epollWait", "%d, %d, %s", epfd, fds.length, timeout);
+        try {
+            return logExit("epollWait", "%d", lib.epollWait(delegate, epfd, fds, events, timeout));
+        } catch (PosixException e) {
+            throw logException("epollWait", e);
+        }
+    }
+
     @ExportMessage
     final long lseek(int fd, long offset, int how,
                     @CachedLibrary("this.delegate") PosixSupportLibrary lib) throws PosixException {
@@ -813,11 +846,11 @@ public class LoggingPosixSupport extends PosixSupport {
     }
 
     @ExportMessage
-    public int mmapReadBytes(Object mmap, long index, byte[] bytes, int length,
+    public int mmapReadBytes(Object mmap, long index, byte[] bytes, int offset, int length,
                     @CachedLibrary("this.delegate") PosixSupportLibrary lib) throws PosixException {
-        logEnter("mmapReadBytes", "%s, %d, %d", mmap, index, length);
+        logEnter("mmapReadBytes", "%s, %d, %d, %d", mmap, index, offset, length);
         try {
-            return logExit("mmapReadBytes", "%s", lib.mmapReadBytes(delegate, mmap, index, bytes, length));
+            return logExit("mmapReadBytes", "%s", lib.mmapReadBytes(delegate, mmap, index, bytes, offset, length));
         } catch (PosixException e) {
             throw logException("mmapReadBytes", e);
         }
@@ -856,11 +889,11 @@ public class LoggingPosixSupport extends PosixSupport {
     }
 
     @ExportMessage
-    public void mmapWriteBytes(Object mmap, long index, byte[] bytes, int length,
+    public void mmapWriteBytes(Object mmap, long index, byte[] bytes, int offset, int length,
                     @CachedLibrary("this.delegate") PosixSupportLibrary lib) throws PosixException {
-        logEnter("mmapWriteBytes", "%s, %d, %d", mmap, index, length);
+        logEnter("mmapWriteBytes", "%s, %d, %d, %d", mmap, index, offset, length);
         try {
-            lib.mmapWriteBytes(delegate, mmap, index, bytes, length);
+            lib.mmapWriteBytes(delegate, mmap, index, bytes, offset, length);
         } catch (PosixException e) {
             throw logException("mmapWriteBytes", e);
         }
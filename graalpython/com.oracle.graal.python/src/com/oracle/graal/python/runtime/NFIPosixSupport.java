@@ -156,6 +156,9 @@ public final class NFIPosixSupport extends PosixSupport {
         call_dup2("(sint32, sint32, sint32):sint32"),
         call_pipe2("([sint32]):sint32"),
         call_select("(sint32, [sint32], sint32, [sint32], sint32, [sint32], sint32, sint64, sint64, [sint8]):sint32"),
+        call_epoll_create("():sint32"),
+        call_epoll_ctl("(sint32, sint32, sint32, sint32):sint32"),
+        call_epoll_wait("(sint32, [sint32], [sint32], sint32, sint64):sint32"),
         call_lseek("(sint32, sint64, sint32):sint64"),
         call_ftruncate("(sint32, sint64):sint32"),
         call_fsync("(sint32):sint32"),
@@ -587,6 +590,40 @@ public final class NFIPosixSupport extends PosixSupport {
         return max;
     }
 
+    @ExportMessage
+    public int epollCreate(
+                    @Shared("invoke") @Cached InvokeNativeFunction invokeNode) throws PosixException {
+        int res = invokeNode.callInt(this, PosixNativeFunction.call_epoll_create);
+        if (res < 0) {
+            throw getErrnoAndThrowPosixException(invokeNode);
+        }
+        return res;
+    }
+
+    @ExportMessage
+    public void epollCtl(int epfd, int op, int fd, int events,
+                    @Shared("invoke") @Cached InvokeNativeFunction invokeNode) throws PosixException {
+        int res = invokeNode.callInt(this, PosixNativeFunction.call_epoll_ctl, epfd, op, fd, events);
+        if (res < 0) {
+            throw getErrnoAndThrowPosixException(invokeNode);
+        }
+    }
+
+    @ExportMessage
+    public int epollWait(int epfd, int[] fds, int[] events, Timeval timeout,
+                    @Shared("invoke") @Cached InvokeNativeFunction invokeNode) throws PosixException {
+        long timeoutMs = -1;
+        if (timeout != null) {
+            // round up so that a short timeout does not turn into a busy loop
+            timeoutMs = timeout.getSeconds() * 1000L + (timeout.getMicroseconds() + 999) / 1000;
+        }
+        int res = invokeNode.callInt(this, PosixNativeFunction.call_epoll_wait, epfd, wrap(fds), wrap(events), fds.length, timeoutMs);
+        if (res < 0) {
+            throw getErrnoAndThrowPosixException(invokeNode);
+        }
+        return res;
+    }
+
     @ExportMessage
     public long lseek(int fd, long offset, int how,
                     @Shared("invoke") @Cached InvokeNativeFunction invokeNode) throws PosixException {
@@ -1363,19 +1400,19 @@ public final class NFIPosixSupport extends PosixSupport {
 
     @ExportMessage
     @SuppressWarnings("static-method")
-    public int mmapReadBytes(Object mmap, long index, byte[] bytes, int length) {
+    public int mmapReadBytes(Object mmap, long index, byte[] bytes, int offset, int length) {
         MMapHandle handle = (MMapHandle) mmap;
         checkIndexAndLen(handle, index, length);
-        UNSAFE.copyMemory(null, handle.pointer + index, bytes, Unsafe.ARRAY_BYTE_BASE_OFFSET, length);
+        UNSAFE.copyMemory(null, handle.pointer + index, bytes, Unsafe.ARRAY_BYTE_BASE_OFFSET + offset, length);
         return length;
     }
 
     @ExportMessage
     @SuppressWarnings("static-method")
-    public void mmapWriteBytes(Object mmap, long index, byte[] bytes, int length) {
+    public void mmapWriteBytes(Object mmap, long index, byte[] bytes, int offset, int length) {
         MMapHandle handle = (MMapHandle) mmap;
         checkIndexAndLen(handle, index, length);
-        UNSAFE.copyMemory(bytes, Unsafe.ARRAY_BYTE_BASE_OFFSET, null, handle.pointer + index, length);
+        UNSAFE.copyMemory(bytes, Unsafe.ARRAY_BYTE_BASE_OFFSET + offset, null, handle.pointer + index, length);
     }
 
     @ExportMessage
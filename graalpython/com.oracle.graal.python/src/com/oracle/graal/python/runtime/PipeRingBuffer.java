@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.runtime;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded single-producer/single-consumer byte ring that backs the emulated multiprocessing pipes
+ * (see {@link PythonContext.SharedMultiprocessingData#pipe(int)}). Messages are framed with a
+ * 4-byte length header, so the reader always receives whole messages as written by
+ * {@code _multiprocessing._write}. A writer blocks while the ring has no room for its message
+ * (backpressure). A message that does not fit into the ring at all is handed over as a copy when
+ * the ring is empty, so there is at most one such message in flight.
+ *
+ * The read and write positions are only ever advanced by the consumer and producer respectively,
+ * so the data path needs no locks. Threads that have to wait park themselves and are unparked by
+ * the other side. The {@link #readLock} and {@link #writeLock} only serialize concurrent readers or
+ * writers of the same pipe, so that messages do not interleave; they are uncontended in the common
+ * case.
+ *
+ * A message is always transferred as a whole, header and payload, in one step that does not block.
+ * Only waiting for the message or for room in the ring can throw {@link InterruptedException}, and
+ * that happens before anything was consumed or produced. So the blocking operations can be used
+ * with {@link com.oracle.truffle.api.TruffleSafepoint#setBlockedThreadInterruptible}, and a
+ * safepoint action that throws, e.g., a signal handler, leaves the stream intact.
+ */
+public final class PipeRingBuffer {
+    /** The same as the default pipe capacity on Linux. */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int HEADER_SIZE = Integer.BYTES;
+
+    private final byte[] buffer;
+    private final int mask;
+
+    /*
+     * Positions increase monotonically and are only mapped to the buffer with the mask. The read
+     * position is only written by the consumer, the write position only by the producer.
+     */
+    private volatile long readPos;
+    private volatile long writePos;
+
+    /*
+     * The payload of a message that is too large for the ring. It is set before the header of the
+     * message is published and cleared before the header is consumed.
+     */
+    private byte[] oversizedMessage;
+
+    private volatile boolean readerClosed;
+    private volatile boolean writerClosed;
+    private volatile Thread waitingReader;
+    private volatile Thread waitingWriter;
+
+    public final ReentrantLock readLock = new ReentrantLock();
+    public final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * Creates a ring of at least {@code requestedCapacity} bytes, rounded up to a power of two.
+     */
+    public PipeRingBuffer(int requestedCapacity) {
+        int capacity = Math.min(Math.max(requestedCapacity, MIN_CAPACITY), MAX_CAPACITY);
+        if (Integer.bitCount(capacity) != 1) {
+            capacity = Integer.highestOneBit(capacity) << 1;
+        }
+        this.buffer = new byte[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    private int available() {
+        return (int) (writePos - readPos);
+    }
+
+    private int free() {
+        return buffer.length - available();
+    }
+
+    /**
+     * Returns {@code true} if a read would not block, i.e., there is some data or the write end was
+     * closed.
+     */
+    public boolean isReadable() {
+        return available() > 0 || writerClosed;
+    }
+
+    public void closeReader() {
+        readerClosed = true;
+        unpark(waitingWriter);
+    }
+
+    public void closeWriter() {
+        writerClosed = true;
+        unpark(waitingReader);
+    }
+
+    private static void unpark(Thread t) {
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    /**
+     * Waits until at least {@code n} bytes can be read. Returns {@code false} if the write end was
+     * closed before that.
+     */
+    private boolean awaitAvailable(int n) throws InterruptedException {
+        if (available() >= n) {
+            return true;
+        }
+        waitingReader = Thread.currentThread();
+        try {
+            // re-check after publishing 'waitingReader' so we cannot miss a wake-up
+            while (available() < n) {
+                if (writerClosed) {
+                    // the writer may have published data right before closing
+                    return available() >= n;
+                }
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            return true;
+        } finally {
+            waitingReader = null;
+        }
+    }
+
+    /**
+     * Waits until at least {@code n} bytes can be written. Returns {@code false} if the read end was
+     * closed.
+     */
+    private boolean awaitFree(int n) throws InterruptedException {
+        if (readerClosed) {
+            return false;
+        }
+        if (free() >= n) {
+            return true;
+        }
+        waitingWriter = Thread.currentThread();
+        try {
+            while (free() < n) {
+                if (readerClosed) {
+                    return false;
+                }
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            return !readerClosed;
+        } finally {
+            waitingWriter = null;
+        }
+    }
+
+    /**
+     * Waits for the next message without consuming it. Returns the length of the message or
+     * {@code -1} if the write end was closed and all messages were consumed. The message can then
+     * be consumed with {@link #readMessage()} or {@link #readMessage(byte[], int)}, which do not
+     * block.
+     */
+    public int awaitMessage() throws InterruptedException {
+        if (!awaitAvailable(HEADER_SIZE)) {
+            return -1;
+        }
+        // the writer publishes the header together with the payload
+        return peekHeader();
+    }
+
+    private int peekHeader() {
+        assert available() >= HEADER_SIZE : "awaitMessage must be called first";
+        long pos = readPos;
+        int length = 0;
+        for (int i = 0; i < HEADER_SIZE; i++) {
+            length = (length << 8) | (buffer[(int) (pos + i) & mask] & 0xFF);
+        }
+        return length;
+    }
+
+    /**
+     * Consumes the message announced by {@link #awaitMessage()} and returns its payload.
+     */
+    public byte[] readMessage() {
+        int length = peekHeader();
+        if (isOversized(length)) {
+            return takeOversizedMessage();
+        }
+        byte[] result = new byte[length];
+        copyOut(readPos + HEADER_SIZE, result, 0, length);
+        consume(HEADER_SIZE + length);
+        return result;
+    }
+
+    /**
+     * Consumes the message announced by {@link #awaitMessage()} and copies its payload to
+     * {@code dst} at {@code offset}, which must have room for it.
+     */
+    public void readMessage(byte[] dst, int offset) {
+        int length = peekHeader();
+        if (isOversized(length)) {
+            byte[] message = takeOversizedMessage();
+            System.arraycopy(message, 0, dst, offset, length);
+            return;
+        }
+        copyOut(readPos + HEADER_SIZE, dst, offset, length);
+        consume(HEADER_SIZE + length);
+    }
+
+    private boolean isOversized(int length) {
+        return length > buffer.length - HEADER_SIZE;
+    }
+
+    private byte[] takeOversizedMessage() {
+        byte[] message = oversizedMessage;
+        assert message != null;
+        oversizedMessage = null;
+        consume(HEADER_SIZE);
+        return message;
+    }
+
+    private void copyOut(long pos, byte[] dst, int offset, int n) {
+        int start = (int) pos & mask;
+        int first = Math.min(n, buffer.length - start);
+        System.arraycopy(buffer, start, dst, offset, first);
+        System.arraycopy(buffer, 0, dst, offset + first, n - first);
+    }
+
+    private void consume(int n) {
+        readPos = readPos + n;
+        unpark(waitingWriter);
+    }
+
+    /**
+     * Waits until there is room for the whole message and then writes it. Returns {@code false} if
+     * the read end was closed. A message that is larger than the ring is copied and handed over
+     * once the ring is empty.
+     */
+    public boolean writeMessage(byte[] src, int offset, int length) throws InterruptedException {
+        assert length >= 0;
+        boolean oversized = isOversized(length);
+        if (!awaitFree(oversized ? buffer.length : HEADER_SIZE + length)) {
+            return false;
+        }
+        long pos = writePos;
+        for (int i = 0; i < HEADER_SIZE; i++) {
+            buffer[(int) (pos + i) & mask] = (byte) (length >>> (8 * (HEADER_SIZE - 1 - i)));
+        }
+        if (oversized) {
+            oversizedMessage = Arrays.copyOfRange(src, offset, offset + length);
+            writePos = pos + HEADER_SIZE;
+        } else {
+            int start = (int) (pos + HEADER_SIZE) & mask;
+            int first = Math.min(length, buffer.length - start);
+            System.arraycopy(src, offset, buffer, start, first);
+            System.arraycopy(src, offset + first, buffer, 0, length - first);
+            writePos = pos + HEADER_SIZE + length;
+        }
+        unpark(waitingReader);
+        return true;
+    }
+}
@@ -97,6 +97,10 @@ public final class PosixConstants {
     public static final OptionalIntConstant SEEK_HOLE;
     public static final MandatoryIntConstant SOMAXCONN;
     public static final OptionalIntConstant PIPE_BUF;
+    public static final OptionalIntConstant EPOLL_CLOEXEC;
+    public static final OptionalIntConstant EPOLL_CTL_ADD;
+    public static final OptionalIntConstant EPOLL_CTL_DEL;
+    public static final OptionalIntConstant EPOLL_CTL_MOD;
     public static final OptionalIntConstant O_ACCMODE;
     public static final MandatoryIntConstant O_RDONLY;
     public static final MandatoryIntConstant O_WRONLY;
@@ -300,6 +304,20 @@ public final class PosixConstants {
     public static final OptionalIntConstant TCP_CONGESTION;
     public static final OptionalIntConstant TCP_USER_TIMEOUT;
     public static final OptionalIntConstant TCP_NOTSENT_LOWAT;
+    public static final OptionalIntConstant EPOLLIN;
+    public static final OptionalIntConstant EPOLLPRI;
+    public static final OptionalIntConstant EPOLLOUT;
+    public static final OptionalIntConstant EPOLLERR;
+    public static final OptionalIntConstant EPOLLHUP;
+    public static final OptionalIntConstant EPOLLRDNORM;
+    public static final OptionalIntConstant EPOLLRDBAND;
+    public static final OptionalIntConstant EPOLLWRNORM;
+    public static final OptionalIntConstant EPOLLWRBAND;
+    public static final OptionalIntConstant EPOLLMSG;
+    public static final OptionalIntConstant EPOLLRDHUP;
+    public static final OptionalIntConstant EPOLLEXCLUSIVE;
+    public static final OptionalIntConstant EPOLLONESHOT;
+    public static final OptionalIntConstant EPOLLET;
     public static final MandatoryIntConstant SIZEOF_STRUCT_SOCKADDR_STORAGE;
     public static final MandatoryIntConstant SIZEOF_STRUCT_SOCKADDR_IN;
     public static final MandatoryIntConstant OFFSETOF_STRUCT_SOCKADDR_IN_SIN_FAMILY;
@@ -337,6 +355,7 @@ public final class PosixConstants {
     public static final IntConstant[] shutdownHow;
     public static final IntConstant[] socketOptions;
     public static final IntConstant[] tcpOptions;
+    public static final IntConstant[] epollEvents;
 
     static {
         Registry reg = Registry.create();
@@ -361,6 +380,10 @@ public final class PosixConstants {
         SEEK_HOLE = reg.createOptionalInt("SEEK_HOLE");
         SOMAXCONN = reg.createMandatoryInt("SOMAXCONN");
         PIPE_BUF = reg.createOptionalInt("PIPE_BUF");
+        EPOLL_CLOEXEC = reg.createOptionalInt("EPOLL_CLOEXEC");
+        EPOLL_CTL_ADD = reg.createOptionalInt("EPOLL_CTL_ADD");
+        EPOLL_CTL_DEL = reg.createOptionalInt("EPOLL_CTL_DEL");
+        EPOLL_CTL_MOD = reg.createOptionalInt("EPOLL_CTL_MOD");
         O_ACCMODE = reg.createOptionalInt("O_ACCMODE");
         O_RDONLY = reg.createMandatoryInt("O_RDONLY");
         O_WRONLY = reg.createMandatoryInt("O_WRONLY");
@@ -564,6 +587,20 @@ public final class PosixConstants {
         TCP_CONGESTION = reg.createOptionalInt("TCP_CONGESTION");
         TCP_USER_TIMEOUT = reg.createOptionalInt("TCP_USER_TIMEOUT");
         TCP_NOTSENT_LOWAT = reg.createOptionalInt("TCP_NOTSENT_LOWAT");
+        EPOLLIN = reg.createOptionalInt("EPOLLIN");
+        EPOLLPRI = reg.createOptionalInt("EPOLLPRI");
+        EPOLLOUT = reg.createOptionalInt("EPOLLOUT");
+        EPOLLERR = reg.createOptionalInt("EPOLLERR");
+        EPOLLHUP = reg.createOptionalInt("EPOLLHUP");
+        EPOLLRDNORM = reg.createOptionalInt("EPOLLRDNORM");
+        EPOLLRDBAND = reg.createOptionalInt("EPOLLRDBAND");
+        EPOLLWRNORM = reg.createOptionalInt("EPOLLWRNORM");
+        EPOLLWRBAND = reg.createOptionalInt("EPOLLWRBAND");
+        EPOLLMSG = reg.createOptionalInt("EPOLLMSG");
+        EPOLLRDHUP = reg.createOptionalInt("EPOLLRDHUP");
+        EPOLLEXCLUSIVE = reg.createOptionalInt("EPOLLEXCLUSIVE");
+        EPOLLONESHOT = reg.createOptionalInt("EPOLLONESHOT");
+        EPOLLET = reg.createOptionalInt("EPOLLET");
         SIZEOF_STRUCT_SOCKADDR_STORAGE = reg.createMandatoryInt("SIZEOF_STRUCT_SOCKADDR_STORAGE");
         SIZEOF_STRUCT_SOCKADDR_IN = reg.createMandatoryInt("SIZEOF_STRUCT_SOCKADDR_IN");
         OFFSETOF_STRUCT_SOCKADDR_IN_SIN_FAMILY = reg.createMandatoryInt("OFFSETOF_STRUCT_SOCKADDR_IN_SIN_FAMILY");
@@ -608,6 +645,8 @@ public final class PosixConstants {
                         SO_PRIORITY, SO_MARK, SO_DOMAIN, SO_PROTOCOL};
         tcpOptions = new IntConstant[]{TCP_NODELAY, TCP_MAXSEG, TCP_CORK, TCP_KEEPIDLE, TCP_KEEPINTVL, TCP_KEEPCNT, TCP_SYNCNT, TCP_LINGER2, TCP_DEFER_ACCEPT, TCP_WINDOW_CLAMP, TCP_INFO, TCP_QUICKACK,
                         TCP_FASTOPEN, TCP_CONGESTION, TCP_USER_TIMEOUT, TCP_NOTSENT_LOWAT};
+        epollEvents = new IntConstant[]{EPOLLIN, EPOLLPRI, EPOLLOUT, EPOLLERR, EPOLLHUP, EPOLLRDNORM, EPOLLRDBAND, EPOLLWRNORM, EPOLLWRBAND, EPOLLMSG, EPOLLRDHUP, EPOLLEXCLUSIVE,
+                        EPOLLONESHOT, EPOLLET};
     }
     // end generated by gen_native_cfg.py
     // @formatter:on
@@ -69,6 +69,10 @@ class PosixConstantsLinux {
         constants.put("SEEK_HOLE", 4);
         constants.put("SOMAXCONN", 4096);
         constants.put("PIPE_BUF", 4096);
+        constants.put("EPOLL_CLOEXEC", 0x00080000);
+        constants.put("EPOLL_CTL_ADD", 1);
+        constants.put("EPOLL_CTL_DEL", 2);
+        constants.put("EPOLL_CTL_MOD", 3);
         constants.put("O_ACCMODE", 0x00000003);
         constants.put("O_RDONLY", 0x00000000);
         constants.put("O_WRONLY", 0x00000001);
@@ -260,6 +264,20 @@ class PosixConstantsLinux {
         constants.put("TCP_CONGESTION", 13);
         constants.put("TCP_USER_TIMEOUT", 18);
         constants.put("TCP_NOTSENT_LOWAT", 25);
+        constants.put("EPOLLIN", 0x00000001);
+        constants.put("EPOLLPRI", 0x00000002);
+        constants.put("EPOLLOUT", 0x00000004);
+        constants.put("EPOLLERR", 0x00000008);
+        constants.put("EPOLLHUP", 0x00000010);
+        constants.put("EPOLLRDNORM", 0x00000040);
+        constants.put("EPOLLRDBAND", 0x00000080);
+        constants.put("EPOLLWRNORM", 0x00000100);
+        constants.put("EPOLLWRBAND", 0x00000200);
+        constants.put("EPOLLMSG", 0x00000400);
+        constants.put("EPOLLRDHUP", 0x00002000);
+        constants.put("EPOLLEXCLUSIVE", 0x10000000);
+        constants.put("EPOLLONESHOT", 0x40000000);
+        constants.put("EPOLLET", 0x80000000);
         constants.put("SIZEOF_STRUCT_SOCKADDR_STORAGE", 128);
         constants.put("SIZEOF_STRUCT_SOCKADDR_IN", 16);
         constants.put("OFFSETOF_STRUCT_SOCKADDR_IN_SIN_FAMILY", 0);
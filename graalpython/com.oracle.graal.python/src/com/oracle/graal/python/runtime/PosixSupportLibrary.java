@@ -107,6 +107,26 @@ public abstract class PosixSupportLibrary extends Library {
 
     public abstract SelectResult select(Object receiver, int[] readfds, int[] writefds, int[] errorfds, Timeval timeout) throws PosixException;
 
+    /**
+     * Creates a new epoll instance, which keeps its registrations across {@link #epollWait} calls.
+     * The instance is represented by a file descriptor and released by {@link #close}. Event masks
+     * and {@link #epollCtl} operations use the values from {@link PosixConstants}, which only
+     * defines them on platforms that have epoll.
+     */
+    public abstract int epollCreate(Object receiver) throws PosixException;
+
+    public abstract void epollCtl(Object receiver, int epfd, int op, int fd, int events) throws PosixException;
+
+    /**
+     * Waits for events on the file descriptors registered with the epoll instance {@code epfd}.
+     * At most {@code fds.length} events are reported, the ready file descriptors and their events
+     * are written to the beginning of {@code fds} and {@code events}.
+     *
+     * @param timeout {@code null} means wait indefinitely
+     * @return the number of ready file descriptors
+     */
+    public abstract int epollWait(Object receiver, int epfd, int[] fds, int[] events, Timeval timeout) throws PosixException;
+
     public abstract long lseek(Object receiver, int fd, long offset, int how) throws PosixException;
 
     public abstract void ftruncate(Object receiver, int fd, long length) throws PosixException;
@@ -297,9 +317,9 @@ public abstract class PosixSupportLibrary extends Library {
 
     public abstract void mmapWriteByte(Object receiver, Object mmap, long index, byte value) throws PosixException;
 
-    public abstract int mmapReadBytes(Object receiver, Object mmap, long index, byte[] bytes, int length) throws PosixException;
+    public abstract int mmapReadBytes(Object receiver, Object mmap, long index, byte[] bytes, int offset, int length) throws PosixException;
 
-    public abstract void mmapWriteBytes(Object receiver, Object mmap, long index, byte[] bytes, int length) throws PosixException;
+    public abstract void mmapWriteBytes(Object receiver, Object mmap, long index, byte[] bytes, int offset, int length) throws PosixException;
 
     public abstract void mmapFlush(Object receiver, Object mmap, long offset, long length) throws PosixException;
 
@@ -81,7 +81,6 @@ import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -130,6 +129,7 @@ import com.oracle.graal.python.builtins.objects.str.StringNodes.StringReplaceNod
 import com.oracle.graal.python.builtins.objects.thread.PLock;
 import com.oracle.graal.python.builtins.objects.thread.PThread;
 import com.oracle.graal.python.builtins.objects.tuple.PTuple;
+import com.oracle.graal.python.builtins.objects.type.TypeAttributeCache;
 import com.oracle.graal.python.compiler.CodeUnit;
 import com.oracle.graal.python.lib.PyObjectCallMethodObjArgs;
 import com.oracle.graal.python.nodes.SpecialAttributeNames;
@@ -601,6 +601,7 @@ public final class PythonContext extends Python3Core {
     private final List<AtExitHook> atExitHooks = new ArrayList<>();
     private final List<Runnable> capiHooks = new ArrayList<>();
     private final HashMap<PythonNativeClass, CyclicAssumption> nativeClassStableAssumptions = new HashMap<>();
+    private final TypeAttributeCache typeAttributeCache = new TypeAttributeCache();
     private final ThreadGroup threadGroup = new ThreadGroup(GRAALPYTHON_THREADS);
     private final IDUtils idUtils = new IDUtils();
 
@@ -642,13 +643,30 @@ public final class PythonContext extends Python3Core {
     private static final class GlobalInterpreterLock extends ReentrantLock {
         private static final long serialVersionUID = 1L;
 
+        /*
+         * Incremented by every thread that takes the GIL, so the switch interval ticker can tell
+         * whether the GIL changed hands since its last tick.
+         */
+        private volatile long acquisitions;
+
+        GlobalInterpreterLock(boolean fair) {
+            super(fair);
+        }
+
         @Override
         public Thread getOwner() {
             return super.getOwner();
         }
+
+        void acquired() {
+            // only written by the owner
+            acquisitions = acquisitions + 1;
+        }
     }
 
-    private final GlobalInterpreterLock globalInterpreterLock = new GlobalInterpreterLock();
+    private final GlobalInterpreterLock globalInterpreterLock;
+    private final GilStatistics gilStatistics = new GilStatistics();
+    private final Tracemalloc tracemalloc;
 
     /*
      * Used to avoid triggering more async handlers from an async handler. We run those only on the
@@ -699,6 +717,8 @@ public final class PythonContext extends Python3Core {
 
     private final ConcurrentHashMap<TruffleString, AtomicLong> deserializationId = new ConcurrentHashMap<>();
 
+    private final AtomicLong asyncioTaskNameCounter = new AtomicLong();
+
     private final long perfCounterStart = ImageInfo.inImageBuildtimeCode() ? 0 : System.nanoTime();
 
     public static final String CHILD_CONTEXT_DATA = "childContextData";
@@ -840,20 +860,13 @@ public final class PythonContext extends Python3Core {
 
     public static final class SharedMultiprocessingData {
 
-        /**
-         * A sentinel object that remains in the {@link LinkedBlockingQueue} in the
-         * {@link #pipeData}. It is pushed there in #close so that any blocking #take calls can wake
-         * up and react to the end of the stream.
-         */
-        private static final Object SENTINEL = new Object();
-
         private final AtomicInteger fdCounter = new AtomicInteger(0);
 
         /**
-         * Maps the two fake file descriptors created in {@link #pipe()} to one
-         * {@link LinkedBlockingQueue}
+         * Maps the two fake file descriptors created in {@link #pipe(int)} to one
+         * {@link PipeRingBuffer}
          */
-        private final ConcurrentSkipListMap<Integer, LinkedBlockingQueue<Object>> pipeData = new ConcurrentSkipListMap<>();
+        private final ConcurrentSkipListMap<Integer, PipeRingBuffer> pipeData = new ConcurrentSkipListMap<>();
 
         /**
          * Holds ref count of file descriptors which were passed over to a spawned child context.
@@ -897,12 +910,14 @@ public final class PythonContext extends Python3Core {
         }
 
         /**
+         * Creates a pipe that buffers up to {@code capacity} bytes, see {@link PipeRingBuffer}.
+         *
          * @return fake (negative) fd values to avoid clash with real file descriptors and to detect
          *         potential usage by other python builtins
          */
         @TruffleBoundary
-        public int[] pipe() {
-            LinkedBlockingQueue<Object> q = new LinkedBlockingQueue<>();
+        public int[] pipe(int capacity) {
+            PipeRingBuffer q = new PipeRingBuffer(capacity);
             int writeFD = fdCounter.addAndGet(-2);
             assert isWriteFD(writeFD);
             int readFD = getPairFd(writeFD);
@@ -912,13 +927,15 @@ public final class PythonContext extends Python3Core {
         }
 
         /**
-         * Adding pipe data needs no special synchronization, since we guarantee there is only ever
-         * one or no queue registered for a given fd.
+         * Writes one message to the pipe. This blocks while the pipe's buffer has no room for the
+         * message. Concurrent writers to the same pipe are serialized, so messages never
+         * interleave. The message is written as a whole or not at all, also if a safepoint action
+         * run while blocked throws.
          */
         @TruffleBoundary
-        public void addPipeData(int fd, byte[] bytes, Runnable noFDHandler, Runnable brokenPipeHandler) {
+        public void addPipeData(Node node, int fd, byte[] bytes, int offset, int length, Runnable noFDHandler, Runnable brokenPipeHandler) {
             assert isWriteFD(fd);
-            LinkedBlockingQueue<Object> q = pipeData.get(fd);
+            PipeRingBuffer q = pipeData.get(fd);
             if (q == null) {
                 // the write end is already closed
                 noFDHandler.run();
@@ -930,39 +947,103 @@ public final class PythonContext extends Python3Core {
                 brokenPipeHandler.run();
                 throw CompilerDirectives.shouldNotReachHere();
             }
-            q.add(bytes);
+            boolean[] written = new boolean[1];
+            TruffleSafepoint.setBlockedThreadInterruptible(node, ReentrantLock::lockInterruptibly, q.writeLock);
+            try {
+                TruffleSafepoint.setBlockedThreadInterruptible(node, (b) -> {
+                    written[0] = b.writeMessage(bytes, offset, length);
+                }, q);
+            } finally {
+                q.writeLock.unlock();
+            }
+            if (!written[0]) {
+                // the read end was closed while we were writing
+                brokenPipeHandler.run();
+                throw CompilerDirectives.shouldNotReachHere();
+            }
         }
 
         /**
-         * Closing the read end of a pipe just removes the mapping from that fd to the queue.
-         * Closing the write end adds the {@link #SENTINEL} value as the last value. There is a
+         * Closing the read end of a pipe removes the mapping from that fd to the buffer and wakes up
+         * a writer that may be blocked on a full buffer. Closing the write end marks the end of the
+         * stream, which readers observe after they consumed all remaining messages. There is a
          * potential race here for incorrect code that concurrently writes to the write end via
-         * {@link #addPipeData}, in that the sentinel may prevent writes from being visible.
+         * {@link #addPipeData}, in that the end of the stream may prevent writes from being
+         * visible.
          */
         @TruffleBoundary
         public void closePipe(int fd) {
-            LinkedBlockingQueue<Object> q = pipeData.remove(fd);
-            if (q != null && isWriteFD(fd)) {
-                q.offer(SENTINEL);
+            PipeRingBuffer q = pipeData.remove(fd);
+            if (q != null) {
+                if (isWriteFD(fd)) {
+                    q.closeWriter();
+                } else {
+                    q.closeReader();
+                }
+            }
+        }
+
+        /**
+         * Reads the next whole message. Returns an empty array if the write end of the pipe is
+         * closed and all messages were consumed. This needs no additional synchronization, since if
+         * the write-end of the pipe is already closed, the read will return appropriately. Only
+         * waiting for the message is interruptible, the message is consumed in one step.
+         */
+        @TruffleBoundary
+        public byte[] takePipeData(Node node, int fd, Runnable noFDHandler) {
+            PipeRingBuffer q = getReadPipe(fd, noFDHandler);
+            TruffleSafepoint.setBlockedThreadInterruptible(node, ReentrantLock::lockInterruptibly, q.readLock);
+            try {
+                int length = awaitMessage(node, q);
+                if (length < 0) {
+                    return PythonUtils.EMPTY_BYTE_ARRAY;
+                }
+                return q.readMessage();
+            } finally {
+                q.readLock.unlock();
             }
         }
 
         /**
-         * This needs no additional synchronization, since if the write-end of the pipe is already
-         * closed, the {@link #take} call will return appropriately.
+         * Reads the next whole message directly into {@code dst} at {@code offset}, if it fits into
+         * {@code maxLength} bytes. Returns the length of the message as {@link Integer} in that
+         * case (which is {@code 0} at the end of the stream), or the whole message as a new
+         * {@code byte[]} if it is too long.
          */
         @TruffleBoundary
-        public Object takePipeData(Node node, int fd, Runnable noFDHandler) {
-            LinkedBlockingQueue<Object> q = pipeData.get(fd);
+        public Object readPipeDataInto(Node node, int fd, byte[] dst, int offset, int maxLength, Runnable noFDHandler) {
+            PipeRingBuffer q = getReadPipe(fd, noFDHandler);
+            TruffleSafepoint.setBlockedThreadInterruptible(node, ReentrantLock::lockInterruptibly, q.readLock);
+            try {
+                int length = awaitMessage(node, q);
+                if (length < 0) {
+                    return 0;
+                }
+                if (length > maxLength) {
+                    return q.readMessage();
+                }
+                q.readMessage(dst, offset);
+                return length;
+            } finally {
+                q.readLock.unlock();
+            }
+        }
+
+        private PipeRingBuffer getReadPipe(int fd, Runnable noFDHandler) {
+            PipeRingBuffer q = pipeData.get(fd);
             if (q == null) {
                 noFDHandler.run();
                 throw CompilerDirectives.shouldNotReachHere();
             }
-            Object[] o = new Object[]{PNone.NONE};
-            TruffleSafepoint.setBlockedThreadInterruptible(node, (lbq) -> {
-                o[0] = take(lbq);
+            return q;
+        }
+
+        private static int awaitMessage(Node node, PipeRingBuffer q) {
+            int[] length = new int[]{-1};
+            TruffleSafepoint.setBlockedThreadInterruptible(node, (b) -> {
+                length[0] = b.awaitMessage();
             }, q);
-            return o[0];
+            return length[0];
         }
 
         /**
@@ -982,11 +1063,10 @@ public final class PythonContext extends Python3Core {
                     if (isClosed(fd2)) {
                         result[0] = false;
                     } else {
-                        // this uses q.isEmpty() instead of our isEmpty(q), because we are not
-                        // interested in the race between closing fd2 and this runnable. If the
-                        // SENTINEL is pushed in the meantime, we should return false, just as if
-                        // we had observed fd2 to be closed already.
-                        result[0] = q.isEmpty();
+                        // We are not interested in the race between closing fd2 and this
+                        // runnable. If the write end is closed in the meantime, we should return
+                        // false, just as if we had observed fd2 to be closed already.
+                        result[0] = !q.isReadable();
                     }
                 }
                 return q;
@@ -1002,16 +1082,6 @@ public final class PythonContext extends Python3Core {
             return fd % 2 == 0;
         }
 
-        private static Object take(LinkedBlockingQueue<Object> q) throws InterruptedException {
-            Object v = q.take();
-            if (v == SENTINEL) {
-                q.offer(SENTINEL);
-                return PythonUtils.EMPTY_BYTE_ARRAY;
-            } else {
-                return v;
-            }
-        }
-
         private boolean isClosed(int fd) {
             // since there is no way that any thread can be trying to read/write to this pipe FD
             // legally before it was added to pipeData in #pipe above, we don't need to
@@ -1090,6 +1160,8 @@ public final class PythonContext extends Python3Core {
         this.handler = new AsyncHandler(this);
         this.sharedFinalizer = new AsyncHandler.SharedFinalizer(this);
         this.optionValues = PythonOptions.createOptionValuesStorage(env);
+        this.globalInterpreterLock = new GlobalInterpreterLock(env.getOptions().get(PythonOptions.FairGilHandoff));
+        this.tracemalloc = new Tracemalloc(Math.max(1, env.getOptions().get(PythonOptions.TraceMallocSamplingInterval)));
         this.in = env.in();
         this.out = env.out();
         this.err = env.err();
@@ -2131,6 +2203,10 @@ public final class PythonContext extends Python3Core {
         return assumption;
     }
 
+    public TypeAttributeCache getTypeAttributeCache() {
+        return typeAttributeCache;
+    }
+
     public void setSingletonNativeWrapper(PythonAbstractObject obj, PythonNativeWrapper nativePtr) {
         assert PythonLanguage.getSingletonNativeWrapperIdx(obj) != -1 : "invalid special singleton object";
         assert singletonNativePtrs[PythonLanguage.getSingletonNativeWrapperIdx(obj)] == null;
@@ -2173,6 +2249,28 @@ public final class PythonContext extends Python3Core {
         return globalInterpreterLock.getOwner();
     }
 
+    /**
+     * Should not be used outside of {@link AsyncHandler}
+     */
+    boolean hasGilWaiters() {
+        return globalInterpreterLock.hasQueuedThreads();
+    }
+
+    /**
+     * Should not be used outside of {@link AsyncHandler}
+     */
+    long getGilAcquisitions() {
+        return globalInterpreterLock.acquisitions;
+    }
+
+    public GilStatistics getGilStatistics() {
+        return gilStatistics;
+    }
+
+    public Tracemalloc getTracemalloc() {
+        return tracemalloc;
+    }
+
     /**
      * Should not be called directly.
      *
@@ -2180,7 +2278,11 @@ public final class PythonContext extends Python3Core {
      */
     @TruffleBoundary
     boolean tryAcquireGil() {
-        return globalInterpreterLock.tryLock();
+        if (globalInterpreterLock.tryLock()) {
+            gilAcquired(0);
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -2192,12 +2294,22 @@ public final class PythonContext extends Python3Core {
     void acquireGil() throws InterruptedException {
         assert !ownsGil() : dumpStackOnAssertionHelper("trying to acquire the GIL more than once");
         boolean wasInterrupted = Thread.interrupted();
+        long waitStart = gilStatistics.isEnabled() ? System.nanoTime() : 0;
         globalInterpreterLock.lockInterruptibly();
+        gilAcquired(waitStart);
         if (wasInterrupted) {
             Thread.currentThread().interrupt();
         }
     }
 
+    private void gilAcquired(long waitStart) {
+        globalInterpreterLock.acquired();
+        if (gilStatistics.isEnabled()) {
+            long now = System.nanoTime();
+            gilStatistics.acquired(waitStart != 0 ? waitStart : now, now);
+        }
+    }
+
     static final String dumpStackOnAssertionHelper(String msg) {
         Thread.dumpStack();
         return msg;
@@ -2211,6 +2323,9 @@ public final class PythonContext extends Python3Core {
     @TruffleBoundary
     void releaseGil() {
         assert globalInterpreterLock.getHoldCount() == 1 : dumpStackOnAssertionHelper("trying to release the GIL with invalid hold count " + globalInterpreterLock.getHoldCount());
+        if (gilStatistics.isEnabled()) {
+            gilStatistics.releasing(System.nanoTime());
+        }
         globalInterpreterLock.unlock();
     }
 
@@ -2443,13 +2558,25 @@ public final class PythonContext extends Python3Core {
     }
 
     public TruffleString getCodeUnitFilename(CodeUnit co) {
-        return codeUnitFilename.get(co);
+        TruffleString filename = codeUnitFilename.get(co);
+        if (filename == null) {
+            // the filename may have been set before the code unit was decoded, see LazyCodeUnit
+            filename = co.getFilenameBeforeDecoding();
+        }
+        return filename;
     }
 
     public long getDeserializationId(TruffleString fileName) {
         return deserializationId.computeIfAbsent(fileName, f -> new AtomicLong()).incrementAndGet();
     }
 
+    /**
+     * Returns the number used in the default name {@code Task-<n>} of the next {@code asyncio.Task}.
+     */
+    public long nextAsyncioTaskNameId() {
+        return asyncioTaskNameCounter.incrementAndGet();
+    }
+
     @TruffleBoundary
     public TruffleString getSoAbi() {
         if (soABI == null) {
@@ -206,8 +206,9 @@ public final class PythonOptions {
                         throw new IllegalArgumentException(String.format("IntMaxStrDigits: invalid limit; must be >= %d or 0 for unlimited.", INT_MAX_STR_DIGITS_THRESHOLD));
                     }));
 
-    @Option(category = OptionCategory.USER, help = "Equivalent to the Python -B flag. Don't write bytecode files.", usageSyntax = "true|false", stability = OptionStability.STABLE) //
-    public static final OptionKey<Boolean> DontWriteBytecodeFlag = new OptionKey<>(true);
+    @Option(category = OptionCategory.USER, help = "Equivalent to the Python -B flag. Don't write bytecode files. By default, compiled modules are cached in " +
+                    "hash-based .pyc files, see CheckHashPycsMode.", usageSyntax = "true|false", stability = OptionStability.STABLE) //
+    public static final OptionKey<Boolean> DontWriteBytecodeFlag = new OptionKey<>(false);
 
     @Option(category = OptionCategory.USER, help = "If this is set, GraalPython will write .pyc files in a mirror directory tree at this path, " +
                     "instead of in __pycache__ directories within the source tree. " +
@@ -388,6 +389,22 @@ public final class PythonOptions {
     @Option(category = OptionCategory.EXPERT, usageSyntax = "true|false", help = "Enable built-in functions on the __graalpython__ module that are useful for debugging.") //
     public static final OptionKey<Boolean> EnableDebuggingBuiltins = new OptionKey<>(false);
 
+    @Option(category = OptionCategory.EXPERT, usageSyntax = "true|false", help = "Hand the GIL over to the thread that waited longest for it when it is released, instead of letting the releasing thread compete for it again. " +
+                    "Avoids starving I/O bound threads behind CPU bound ones at the cost of more thread switches.") //
+    public static final OptionKey<Boolean> FairGilHandoff = new OptionKey<>(false);
+
+    @Option(category = OptionCategory.EXPERT, usageSyntax = "<n>", help = "Record only every n-th allocation in tracemalloc and account it with n times its size. " +
+                    "Larger values reduce the overhead of tracing, 1 (default) records every allocation.") //
+    public static final OptionKey<Integer> TraceMallocSamplingInterval = new OptionKey<>(1);
+
+    @Option(category = OptionCategory.EXPERT, usageSyntax = "<us>", help = "If positive, the cProfile profiler samples the Python stacks itself every <us> microseconds " +
+                    "instead of using the CPU sampler instrument. Larger values reduce the overhead of profiling at the cost of precision. 0 (default) uses the CPU sampler.") //
+    public static final OptionKey<Integer> ProfilerSamplingInterval = new OptionKey<>(0);
+
+    @Option(category = OptionCategory.EXPERT, usageSyntax = "<bytes>", help = "The number of bytes an emulated multiprocessing pipe buffers before writers block, rounded up to a " +
+                    "power of two. Larger messages are handed over whole, one at a time.") //
+    public static final OptionKey<Integer> MultiprocessingPipeCapacity = new OptionKey<>(PipeRingBuffer.DEFAULT_CAPACITY);
+
     @Option(category = OptionCategory.EXPERT, help = "Disables using frozen modules.") //
     public static final OptionKey<Boolean> DisableFrozenModules = new OptionKey<>(false);
 
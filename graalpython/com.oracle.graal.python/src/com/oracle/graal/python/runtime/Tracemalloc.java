@@ -0,0 +1,359 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.runtime;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.Supplier;
+
+import com.oracle.graal.python.PythonLanguage;
+import com.oracle.graal.python.builtins.objects.bytes.PBytesLike;
+import com.oracle.graal.python.builtins.objects.code.PCode;
+import com.oracle.graal.python.builtins.objects.list.PList;
+import com.oracle.graal.python.builtins.objects.tuple.PTuple;
+import com.oracle.graal.python.nodes.bytecode.FrameInfo;
+import com.oracle.graal.python.runtime.sequence.storage.BoolSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.ByteSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.IntSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.SequenceStorage;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.Frame;
+import com.oracle.truffle.api.frame.FrameInstance;
+import com.oracle.truffle.api.frame.FrameInstanceVisitor;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * State of the {@code _tracemalloc} module of one context. Python objects are traced when they are
+ * created through {@link com.oracle.graal.python.runtime.object.PythonObjectFactory}. To keep the
+ * overhead low, only every {@link PythonOptions#TraceMallocSamplingInterval n-th} allocation is
+ * recorded and accounted with {@code n} times its size, so that the statistics computed from a
+ * snapshot estimate the total. Object sizes are estimated from the length of their storage, since
+ * the JVM does not expose them.
+ *
+ * Objects are held weakly and their traces are dropped after they were garbage collected. All
+ * methods must be called with the GIL held.
+ */
+public final class Tracemalloc {
+    public static final int MAX_NFRAME = 65535;
+
+    // rough shallow size of an object header and a few fields
+    private static final long OBJECT_SIZE = 32;
+
+    public static final class Traceback {
+        private final TruffleString[] filenames;
+        private final int[] linenos;
+        private final int totalNframe;
+        private final int hash;
+
+        Traceback(TruffleString[] filenames, int[] linenos, int totalNframe) {
+            this.filenames = filenames;
+            this.linenos = linenos;
+            this.totalNframe = totalNframe;
+            this.hash = Arrays.hashCode(filenames) * 31 + Arrays.hashCode(linenos);
+        }
+
+        /**
+         * Number of recorded frames, the most recent frame comes first.
+         */
+        public int getNframe() {
+            return filenames.length;
+        }
+
+        public TruffleString getFilename(int i) {
+            return filenames[i];
+        }
+
+        public int getLineno(int i) {
+            return linenos[i];
+        }
+
+        /**
+         * Number of frames on the stack when the object was allocated, may be larger than
+         * {@link #getNframe()}.
+         */
+        public int getTotalNframe() {
+            return totalNframe;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Traceback)) {
+                return false;
+            }
+            Traceback other = (Traceback) obj;
+            return totalNframe == other.totalNframe && Arrays.equals(linenos, other.linenos) && Arrays.equals(filenames, other.filenames);
+        }
+    }
+
+    public static final class Trace extends WeakReference<Object> {
+        private final int identityHash;
+        private final long size;
+        private final Traceback traceback;
+
+        Trace(Object referent, ReferenceQueue<Object> queue, long size, Traceback traceback) {
+            super(referent, queue);
+            this.identityHash = System.identityHashCode(referent);
+            this.size = size;
+            this.traceback = traceback;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public Traceback getTraceback() {
+            return traceback;
+        }
+    }
+
+    private final int samplingInterval;
+    private boolean tracing;
+    private int maxNframe = 1;
+    private int countdown;
+    // set while we are creating Python objects for our own results
+    private boolean reentrant;
+
+    /*
+     * Traces keyed by the identity hash code of the traced object, the lists are usually of length
+     * one. Python objects may override equals and hashCode, so we cannot use a WeakHashMap.
+     */
+    private final HashMap<Integer, ArrayList<Trace>> traces = new HashMap<>();
+    private final HashMap<Traceback, Traceback> tracebacks = new HashMap<>();
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+    private int traceCount;
+    private long tracedMemory;
+    private long peakTracedMemory;
+
+    public Tracemalloc(int samplingInterval) {
+        this.samplingInterval = samplingInterval;
+        this.countdown = samplingInterval;
+    }
+
+    public boolean isTracing() {
+        return tracing;
+    }
+
+    public int getMaxNframe() {
+        return maxNframe;
+    }
+
+    @TruffleBoundary
+    public void start(PythonLanguage language, int nframe) {
+        assert nframe >= 1 && nframe <= MAX_NFRAME;
+        maxNframe = nframe;
+        tracing = true;
+        language.noTracemallocAssumption.invalidate();
+    }
+
+    @TruffleBoundary
+    public void stop() {
+        tracing = false;
+        clearTraces();
+    }
+
+    @TruffleBoundary
+    public void clearTraces() {
+        traces.clear();
+        tracebacks.clear();
+        traceCount = 0;
+        tracedMemory = 0;
+        peakTracedMemory = 0;
+        while (queue.poll() != null) {
+            // discard
+        }
+    }
+
+    public void resetPeak() {
+        processQueue();
+        peakTracedMemory = tracedMemory;
+    }
+
+    public long getTracedMemory() {
+        processQueue();
+        return tracedMemory;
+    }
+
+    public long getPeakTracedMemory() {
+        return peakTracedMemory;
+    }
+
+    /**
+     * Rough estimate of the memory used to store the traces.
+     */
+    @TruffleBoundary
+    public long getTracemallocMemory() {
+        long size = OBJECT_SIZE * (traces.size() + traceCount);
+        for (Traceback tb : tracebacks.keySet()) {
+            size += OBJECT_SIZE + 12L * tb.getNframe();
+        }
+        return size;
+    }
+
+    /**
+     * Called for every object allocated by the object factory once any context started tracing.
+     */
+    public void onAllocation(Object object) {
+        if (tracing && !reentrant && --countdown <= 0) {
+            countdown = samplingInterval;
+            record(object);
+        }
+    }
+
+    /**
+     * Runs an action that creates Python objects without tracing them.
+     */
+    public <T> T untraced(Supplier<T> action) {
+        boolean wasReentrant = reentrant;
+        reentrant = true;
+        try {
+            return action.get();
+        } finally {
+            reentrant = wasReentrant;
+        }
+    }
+
+    @TruffleBoundary
+    private void record(Object object) {
+        processQueue();
+        Traceback traceback = tracebacks.computeIfAbsent(captureTraceback(maxNframe), tb -> tb);
+        Trace trace = new Trace(object, queue, estimateSize(object) * samplingInterval, traceback);
+        traces.computeIfAbsent(trace.identityHash, h -> new ArrayList<>(1)).add(trace);
+        traceCount++;
+        tracedMemory += trace.size;
+        peakTracedMemory = Math.max(peakTracedMemory, tracedMemory);
+    }
+
+    @TruffleBoundary
+    public Trace getTrace(Object object) {
+        ArrayList<Trace> list = traces.get(System.identityHashCode(object));
+        if (list != null) {
+            for (Trace trace : list) {
+                if (trace.get() == object) {
+                    return trace;
+                }
+            }
+        }
+        return null;
+    }
+
+    @TruffleBoundary
+    public ArrayList<Trace> getTraces() {
+        processQueue();
+        ArrayList<Trace> result = new ArrayList<>(traceCount);
+        for (ArrayList<Trace> list : traces.values()) {
+            for (Trace trace : list) {
+                if (trace.get() != null) {
+                    result.add(trace);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void processQueue() {
+        Trace trace;
+        while ((trace = (Trace) queue.poll()) != null) {
+            ArrayList<Trace> list = traces.get(trace.identityHash);
+            if (list != null && list.remove(trace)) {
+                if (list.isEmpty()) {
+                    traces.remove(trace.identityHash);
+                }
+                traceCount--;
+                tracedMemory -= trace.size;
+            }
+        }
+    }
+
+    private static Traceback captureTraceback(int limit) {
+        ArrayList<TruffleString> filenames = new ArrayList<>(limit);
+        ArrayList<Integer> linenos = new ArrayList<>(limit);
+        int[] total = new int[1];
+        Truffle.getRuntime().iterateFrames((FrameInstanceVisitor<Object>) frameInstance -> {
+            Frame frame = frameInstance.getFrame(FrameInstance.FrameAccess.READ_ONLY);
+            if (frame != null && frame.getFrameDescriptor().getInfo() instanceof FrameInfo) {
+                total[0]++;
+                if (filenames.size() < limit) {
+                    FrameInfo info = (FrameInfo) frame.getFrameDescriptor().getInfo();
+                    filenames.add(PCode.extractFileName(info.getRootNode()));
+                    linenos.add(info.getRootNode().bciToLine(info.getBci(frame)));
+                }
+            }
+            return null;
+        });
+        int[] lines = new int[linenos.size()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = linenos.get(i);
+        }
+        return new Traceback(filenames.toArray(new TruffleString[0]), lines, total[0]);
+    }
+
+    private static long estimateSize(Object object) {
+        SequenceStorage storage = null;
+        if (object instanceof PList) {
+            storage = ((PList) object).getSequenceStorage();
+        } else if (object instanceof PTuple) {
+            storage = ((PTuple) object).getSequenceStorage();
+        } else if (object instanceof PBytesLike) {
+            storage = ((PBytesLike) object).getSequenceStorage();
+        }
+        if (storage == null) {
+            return OBJECT_SIZE;
+        }
+        int itemSize;
+        if (storage instanceof ByteSequenceStorage || storage instanceof BoolSequenceStorage) {
+            itemSize = 1;
+        } else if (storage instanceof IntSequenceStorage) {
+            itemSize = Integer.BYTES;
+        } else {
+            itemSize = Long.BYTES;
+        }
+        return OBJECT_SIZE + (long) storage.getCapacity() * itemSize;
+    }
+}
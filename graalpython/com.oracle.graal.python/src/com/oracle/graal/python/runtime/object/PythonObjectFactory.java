@@ -67,11 +67,20 @@ import com.oracle.graal.python.builtins.modules.io.PTextIO;
 import com.oracle.graal.python.builtins.modules.json.PJSONEncoder;
 import com.oracle.graal.python.builtins.modules.json.PJSONEncoder.FastEncode;
 import com.oracle.graal.python.builtins.modules.json.PJSONScanner;
+import com.oracle.graal.python.builtins.modules.json.PJSONStreamDecoder;
 import com.oracle.graal.python.builtins.modules.lzma.LZMAObject;
+import com.oracle.graal.python.builtins.modules.pickle.PPickleBuffer;
+import com.oracle.graal.python.builtins.modules.pickle.PPickler;
+import com.oracle.graal.python.builtins.modules.pickle.PPicklerMemoProxy;
+import com.oracle.graal.python.builtins.modules.pickle.PUnpickler;
+import com.oracle.graal.python.builtins.modules.pickle.PUnpicklerMemoProxy;
 import com.oracle.graal.python.builtins.modules.zlib.ZLibCompObject;
 import com.oracle.graal.python.builtins.objects.PNone;
 import com.oracle.graal.python.builtins.objects.array.PArray;
 import com.oracle.graal.python.builtins.objects.asyncio.PCoroutineWrapper;
+import com.oracle.graal.python.builtins.objects.asyncio.PFuture;
+import com.oracle.graal.python.builtins.objects.asyncio.PFutureIter;
+import com.oracle.graal.python.builtins.objects.asyncio.PTask;
 import com.oracle.graal.python.builtins.objects.bytes.PByteArray;
 import com.oracle.graal.python.builtins.objects.bytes.PBytes;
 import com.oracle.graal.python.builtins.objects.capsule.PyCapsule;
@@ -99,6 +108,7 @@ import com.oracle.graal.python.builtins.objects.dict.PDictView.PDictKeyIterator;
 import com.oracle.graal.python.builtins.objects.dict.PDictView.PDictKeysView;
 import com.oracle.graal.python.builtins.objects.dict.PDictView.PDictValueIterator;
 import com.oracle.graal.python.builtins.objects.dict.PDictView.PDictValuesView;
+import com.oracle.graal.python.builtins.objects.dict.POrderedDict;
 import com.oracle.graal.python.builtins.objects.enumerate.PEnumerate;
 import com.oracle.graal.python.builtins.objects.exception.PBaseException;
 import com.oracle.graal.python.builtins.objects.floats.PFloat;
@@ -107,6 +117,7 @@ import com.oracle.graal.python.builtins.objects.function.PBuiltinFunction;
 import com.oracle.graal.python.builtins.objects.function.PFunction;
 import com.oracle.graal.python.builtins.objects.function.PKeyword;
 import com.oracle.graal.python.builtins.objects.function.Signature;
+import com.oracle.graal.python.builtins.objects.functools.PLruCacheWrapper;
 import com.oracle.graal.python.builtins.objects.generator.PGenerator;
 import com.oracle.graal.python.builtins.objects.getsetdescriptor.GetSetDescriptor;
 import com.oracle.graal.python.builtins.objects.getsetdescriptor.HiddenKeyDescriptor;
@@ -117,6 +128,7 @@ import com.oracle.graal.python.builtins.objects.iterator.PBigRangeIterator;
 import com.oracle.graal.python.builtins.objects.iterator.PDoubleSequenceIterator;
 import com.oracle.graal.python.builtins.objects.iterator.PForeignArrayIterator;
 import com.oracle.graal.python.builtins.objects.iterator.PIntRangeIterator;
+import com.oracle.graal.python.builtins.objects.iterator.PLongRangeIterator;
 import com.oracle.graal.python.builtins.objects.iterator.PIntegerSequenceIterator;
 import com.oracle.graal.python.builtins.objects.iterator.PLongSequenceIterator;
 import com.oracle.graal.python.builtins.objects.iterator.PObjectSequenceIterator;
@@ -170,6 +182,7 @@ import com.oracle.graal.python.builtins.objects.range.PIntRange;
 import com.oracle.graal.python.builtins.objects.referencetype.PReferenceType;
 import com.oracle.graal.python.builtins.objects.reversed.PSequenceReverseIterator;
 import com.oracle.graal.python.builtins.objects.reversed.PStringReverseIterator;
+import com.oracle.graal.python.builtins.objects.select.PEpoll;
 import com.oracle.graal.python.builtins.objects.set.PBaseSet;
 import com.oracle.graal.python.builtins.objects.set.PFrozenSet;
 import com.oracle.graal.python.builtins.objects.set.PSet;
@@ -182,6 +195,9 @@ import com.oracle.graal.python.builtins.objects.ssl.PSSLSocket;
 import com.oracle.graal.python.builtins.objects.ssl.SSLMethod;
 import com.oracle.graal.python.builtins.objects.str.NativeCharSequence;
 import com.oracle.graal.python.builtins.objects.str.PString;
+import com.oracle.graal.python.builtins.objects.struct.PStruct;
+import com.oracle.graal.python.builtins.objects.struct.PStructUnpackIterator;
+import com.oracle.graal.python.builtins.objects.struct.StructFormat;
 import com.oracle.graal.python.builtins.objects.superobject.SuperObject;
 import com.oracle.graal.python.builtins.objects.thread.PLock;
 import com.oracle.graal.python.builtins.objects.thread.PRLock;
@@ -280,12 +296,15 @@ public abstract class PythonObjectFactory extends Node {
     }
 
     @Specialization
-    static AllocationReporter doTrace(Object o, long size,
+    AllocationReporter doTrace(Object o, long size,
                     @Cached(value = "getAllocationReporter()", allowUncached = true) AllocationReporter reporter) {
         if (reporter.isActive()) {
             reporter.onEnter(null, 0, size);
             reporter.onReturnValue(o, 0, size);
         }
+        if (!getLanguage().noTracemallocAssumption.isValid()) {
+            PythonContext.get(this).getTracemalloc().onAllocation(o);
+        }
         return null;
     }
 
@@ -826,6 +845,10 @@ public abstract class PythonObjectFactory extends Node {
         return trace(new PPartial(cls, getShape(cls), function, args, kwDict));
     }
 
+    public final PLruCacheWrapper createLruCacheWrapper(Object cls, Object function, int maxsize, boolean typed, Object cacheInfoType, Object kwdMark) {
+        return trace(new PLruCacheWrapper(cls, getShape(cls), function, maxsize, typed, cacheInfoType, kwdMark));
+    }
+
     public final PDefaultDict createDefaultDict(Object cls) {
         return createDefaultDict(cls, PNone.NONE);
     }
@@ -842,6 +865,14 @@ public abstract class PythonObjectFactory extends Node {
         return trace(new PDefaultDict(cls, getShape(cls), storage, defaultFactory));
     }
 
+    public final POrderedDict createOrderedDict(Object cls) {
+        return trace(new POrderedDict(cls, getShape(cls)));
+    }
+
+    public final POrderedDict createOrderedDict(HashingStorage storage) {
+        return trace(new POrderedDict(PythonBuiltinClassType.POrderedDict, getShape(PythonBuiltinClassType.POrderedDict), storage));
+    }
+
     public final PDictView createDictKeysView(PHashingCollection dict) {
         return trace(new PDictKeysView(PythonBuiltinClassType.PDictKeysView, PythonBuiltinClassType.PDictKeysView.getInstanceShape(getLanguage()), dict));
     }
@@ -874,6 +905,18 @@ public abstract class PythonObjectFactory extends Node {
         return trace(new PCoroutineWrapper(getLanguage(), generator));
     }
 
+    public final PFuture createFuture(Object cls) {
+        return trace(new PFuture(cls, getShape(cls)));
+    }
+
+    public final PTask createTask(Object cls) {
+        return trace(new PTask(cls, getShape(cls)));
+    }
+
+    public final PFutureIter createFutureIter(PFuture future) {
+        return trace(new PFutureIter(getShape(PythonBuiltinClassType.PFutureIter), future));
+    }
+
     public final Object createAsyncGenerator() {
         // TODO implement this properly, this is just a placeholder so that typing stuff works
         return createPythonObject(PythonBuiltinClassType.PAsyncGenerator);
@@ -1047,6 +1090,10 @@ public abstract class PythonObjectFactory extends Node {
         return createBigRangeIterator(createInt(start), createInt(stop), createInt(step), createInt(len));
     }
 
+    public final PLongRangeIterator createLongRangeIterator(long start, long step, long len) {
+        return trace(new PLongRangeIterator(PythonBuiltinClassType.PIterator, PythonBuiltinClassType.PIterator.getInstanceShape(getLanguage()), start, step, len));
+    }
+
     public final PArrayIterator createArrayIterator(PArray array) {
         return trace(new PArrayIterator(PythonBuiltinClassType.PArrayIterator, PythonBuiltinClassType.PArrayIterator.getInstanceShape(getLanguage()), array));
     }
@@ -1166,6 +1213,19 @@ public abstract class PythonObjectFactory extends Node {
         return trace(new PDirEntry(PythonBuiltinClassType.PDirEntry, PythonBuiltinClassType.PDirEntry.getInstanceShape(getLanguage()), dirEntryData, path));
     }
 
+    public final PEpoll createEpoll(Object clazz, int epfd) {
+        return trace(new PEpoll(clazz, getShape(clazz), epfd));
+    }
+
+    public final PStruct createStruct(Object clazz, StructFormat format) {
+        return trace(new PStruct(clazz, getShape(clazz), format));
+    }
+
+    public final PStructUnpackIterator createStructUnpackIterator(StructFormat format, Object buffer, int bufferLength) {
+        return trace(new PStructUnpackIterator(PythonBuiltinClassType.PStructUnpackIterator, PythonBuiltinClassType.PStructUnpackIterator.getInstanceShape(getLanguage()), format, buffer,
+                        bufferLength));
+    }
+
     public final PMMap createMMap(PythonContext context, Object clazz, Object mmapHandle, int fd, long length, int access) {
         return trace(new PMMap(clazz, getShape(clazz), context, mmapHandle, fd, length, access));
     }
@@ -1413,11 +1473,35 @@ public abstract class PythonObjectFactory extends Node {
     }
 
     @TruffleBoundary
+    public final PJSONStreamDecoder createJSONStreamDecoder(Object clazz, PJSONScanner scanner, Object fp, int chunkSize, boolean ndjson) {
+        return trace(new PJSONStreamDecoder(clazz, getShape(clazz), scanner, fp, chunkSize, ndjson));
+    }
+
     public final PJSONEncoder createJSONEncoder(Object clazz, Object markers, Object defaultFn, Object encoder, Object indent, TruffleString keySeparator, TruffleString itemSeparator,
                     boolean sortKeys, boolean skipKeys, boolean allowNan, FastEncode fastEncode) {
         return trace(new PJSONEncoder(clazz, getShape(clazz), markers, defaultFn, encoder, indent, keySeparator, itemSeparator, sortKeys, skipKeys, allowNan, fastEncode));
     }
 
+    public final PPickler createPickler(Object cls) {
+        return trace(new PPickler(cls, getShape(cls)));
+    }
+
+    public final PUnpickler createUnpickler(Object cls) {
+        return trace(new PUnpickler(cls, getShape(cls)));
+    }
+
+    public final PPicklerMemoProxy createPicklerMemoProxy(PPickler pickler) {
+        return trace(new PPicklerMemoProxy(PythonBuiltinClassType.PicklerMemoProxy, getShape(PythonBuiltinClassType.PicklerMemoProxy), pickler));
+    }
+
+    public final PUnpicklerMemoProxy createUnpicklerMemoProxy(PUnpickler unpickler) {
+        return trace(new PUnpicklerMemoProxy(PythonBuiltinClassType.UnpicklerMemoProxy, getShape(PythonBuiltinClassType.UnpicklerMemoProxy), unpickler));
+    }
+
+    public final PPickleBuffer createPickleBuffer(Object cls, PMemoryView view) {
+        return trace(new PPickleBuffer(cls, getShape(cls), view));
+    }
+
     public final PDeque createDeque() {
         return trace(new PDeque(PythonBuiltinClassType.PDeque, getShape(PythonBuiltinClassType.PDeque)));
     }
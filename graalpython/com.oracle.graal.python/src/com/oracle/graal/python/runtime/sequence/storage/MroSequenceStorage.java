@@ -46,9 +46,12 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.function.Predicate;
 
 import com.oracle.graal.python.builtins.objects.type.PythonAbstractClass;
+import com.oracle.graal.python.builtins.objects.type.TypeAttributeCache;
 import com.oracle.graal.python.util.PythonUtils;
 import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
@@ -74,6 +77,15 @@ public final class MroSequenceStorage extends TypedSequenceStorage {
     private final Map<TruffleString, List<Assumption>> attributesInMROFinalAssumptions;
     private boolean hasAttributesInMROFinalAssumptions;
 
+    /**
+     * Version tag used as a key in the {@link TypeAttributeCache}, zero means no valid tag. A tag
+     * is only assigned when all the other classes in the MRO have a valid tag too, and those
+     * register this storage as their dependent. Invalidating a tag therefore only needs to visit
+     * the dependents.
+     */
+    private int versionTag;
+    private Set<MroSequenceStorage> versionTagDependents;
+
     @CompilationFinal(dimensions = 1) private final PythonAbstractClass[] values;
 
     @TruffleBoundary
@@ -245,11 +257,44 @@ public final class MroSequenceStorage extends TypedSequenceStorage {
         attrAssumptions.add(assumption);
     }
 
+    public int getVersionTag() {
+        return versionTag;
+    }
+
+    public void setVersionTag(int versionTag) {
+        CompilerAsserts.neverPartOfCompilation();
+        this.versionTag = versionTag;
+    }
+
+    public void addVersionTagDependent(MroSequenceStorage dependent) {
+        CompilerAsserts.neverPartOfCompilation();
+        assert versionTag != 0;
+        if (versionTagDependents == null) {
+            versionTagDependents = Collections.newSetFromMap(new WeakHashMap<>());
+        }
+        versionTagDependents.add(dependent);
+    }
+
+    @TruffleBoundary
+    public void invalidateVersionTag() {
+        if (versionTag != 0) {
+            versionTag = 0;
+            Set<MroSequenceStorage> dependents = versionTagDependents;
+            if (dependents != null) {
+                versionTagDependents = null;
+                for (MroSequenceStorage dependent : dependents) {
+                    dependent.invalidateVersionTag();
+                }
+            }
+        }
+    }
+
     /**
      * Returns {@code true} if some assumption was actually invalidated.
      */
     @TruffleBoundary
     public boolean invalidateAttributeInMROFinalAssumptions(TruffleString name) {
+        invalidateVersionTag();
         List<Assumption> assumptions = attributesInMROFinalAssumptions.getOrDefault(name, Collections.emptyList());
         // the empty check is just to avoid the StringBuilder allocation
         if (!assumptions.isEmpty()) {
@@ -264,6 +309,7 @@ public final class MroSequenceStorage extends TypedSequenceStorage {
 
     public void lookupChanged() {
         CompilerAsserts.neverPartOfCompilation();
+        invalidateVersionTag();
         attributesInMROFinalAssumptions.values().removeIf(REMOVE_IF_LARGE);
         lookupStableAssumption.invalidate();
     }
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from primitive {@code long} keys to object values that does not box the keys and does
+ * not allocate on lookups. It uses open addressing with linear probing and backward-shift
+ * deletion, so there are no tombstones. The key {@code 0} is reserved to mark free slots and cannot be stored.
+ *
+ * This class is not thread-safe.
+ */
+public final class LongObjectHashMap<V> {
+    private static final long EMPTY_KEY = 0L;
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final int INITIAL_CAPACITY = 64;
+    // resize when the table is more than 5/8 full
+    private static final int MAX_LOAD_NUMERATOR = 5;
+    private static final int MAX_LOAD_DENOMINATOR = 8;
+
+    private long[] keys;
+    private Object[] values;
+    private int shift;
+    private int size;
+    private int threshold;
+
+    public LongObjectHashMap() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        assert Integer.bitCount(capacity) == 1;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        shift = Long.numberOfLeadingZeros(capacity - 1);
+        threshold = capacity / MAX_LOAD_DENOMINATOR * MAX_LOAD_NUMERATOR;
+    }
+
+    /**
+     * Fibonacci hashing: native pointers are aligned, so their low bits carry little information.
+     * Multiplying spreads all bits into the high bits, which are then used as the index.
+     */
+    private int indexFor(long key) {
+        return (int) ((key * HASH_MULTIPLIER) >>> shift);
+    }
+
+    private int findSlot(long key) {
+        int mask = keys.length - 1;
+        int i = indexFor(key);
+        while (true) {
+            long k = keys[i];
+            if (k == key) {
+                return i;
+            } else if (k == EMPTY_KEY) {
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == EMPTY_KEY) {
+            return null;
+        }
+        int slot = findSlot(key);
+        return slot >= 0 ? (V) values[slot] : null;
+    }
+
+    public boolean containsKey(long key) {
+        return key != EMPTY_KEY && findSlot(key) >= 0;
+    }
+
+    /**
+     * Associates {@code value} with {@code key} and returns the previous value or {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        assert key != EMPTY_KEY;
+        assert value != null;
+        int mask = keys.length - 1;
+        int i = indexFor(key);
+        while (true) {
+            long k = keys[i];
+            if (k == key) {
+                Object old = values[i];
+                values[i] = value;
+                return (V) old;
+            } else if (k == EMPTY_KEY) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size > threshold) {
+                    rehash(keys.length << 1);
+                }
+                return null;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Removes the mapping for {@code key} and returns the removed value or {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int slot = key != EMPTY_KEY ? findSlot(key) : -1;
+        if (slot < 0) {
+            return null;
+        }
+        Object old = values[slot];
+        size--;
+        // backward-shift deletion: move up entries whose probe sequence passes the freed slot
+        int mask = keys.length - 1;
+        int free = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            long k = keys[i];
+            if (k == EMPTY_KEY) {
+                break;
+            }
+            int home = indexFor(k);
+            // the entry at i may be moved to 'free' iff its home slot is not in (free, i]
+            if (((i - home) & mask) >= ((i - free) & mask)) {
+                keys[free] = k;
+                values[free] = values[i];
+                free = i;
+            }
+        }
+        keys[free] = EMPTY_KEY;
+        values[free] = null;
+        return (V) old;
+    }
+
+    private void rehash(int newCapacity) {
+        if (newCapacity <= 0) {
+            throw new OutOfMemoryError();
+        }
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long k = oldKeys[j];
+            if (k != EMPTY_KEY) {
+                int i = indexFor(k);
+                while (keys[i] != EMPTY_KEY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = k;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY_KEY);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the number of slots a successful lookup of the worst-placed key has to inspect.
+     * Computed by scanning the whole table, so this is meant for diagnostics only.
+     */
+    public int getMaxProbeLength() {
+        int mask = keys.length - 1;
+        int max = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY_KEY) {
+                max = Math.max(max, ((i - indexFor(keys[i])) & mask) + 1);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the average number of slots a successful lookup has to inspect. Computed by scanning
+     * the whole table, so this is meant for diagnostics only.
+     */
+    public double getAverageProbeLength() {
+        if (size == 0) {
+            return 0;
+        }
+        int mask = keys.length - 1;
+        long total = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY_KEY) {
+                total += ((i - indexFor(keys[i])) & mask) + 1;
+            }
+        }
+        return (double) total / size;
+    }
+}
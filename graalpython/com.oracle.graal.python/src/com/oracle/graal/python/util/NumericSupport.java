@@ -99,7 +99,7 @@ public final class NumericSupport {
     }
 
     @TruffleBoundary
-    static short floatToShortBits(PNodeWithRaise nodeWithRaise, double value) {
+    public static short floatToShortBits(PNodeWithRaise nodeWithRaise, double value) {
         int sign;
         int e;
         double f;
@@ -172,7 +172,7 @@ public final class NumericSupport {
     }
 
     @TruffleBoundary
-    static float shortBitsToFloat(short bits) {
+    public static float shortBitsToFloat(short bits) {
         int sign;
         int e;
         int f;
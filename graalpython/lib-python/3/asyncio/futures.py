@@ -422,6 +422,5 @@ try:
 except ImportError:
     pass
 else:
-    # graalpy change: C Futures are not implemented yet, so we keep the python Future
-    pass
-    # Future = _CFuture = _asyncio.Future
+    # _CFuture is needed for tests.
+    Future = _CFuture = _asyncio.Future
@@ -187,7 +187,10 @@ def _write_atomic(path, data, mode=0o666):
     Be prepared to handle a FileExistsError if concurrent writing of the
     temporary file is attempted."""
     # id() is used to generate a pseudo-random filename.
-    path_tmp = '{}.{}'.format(path, id(path))
+    # Truffle change: ids are allocated deterministically, so concurrent
+    # processes would compete for the same temporary file and a file left
+    # behind by a crashed writer would block all future writes. Include the pid.
+    path_tmp = '{}.{}.{}'.format(path, _os.getpid(), id(path))
     fd = _os.open(path_tmp,
                   _os.O_EXCL | _os.O_CREAT | _os.O_WRONLY, mode & 0o666)
     try:
@@ -1014,22 +1017,26 @@ class SourceLoader(_LoaderBasics):
                     else:
                         _bootstrap._verbose_message('{} matches {}', bytecode_path,
                                                     source_path)
-                        return _compile_bytecode(bytes_data, name=fullname,
-                                                 bytecode_path=bytecode_path,
-                                                 source_path=source_path)
+                        # Begin Truffle change: a cache entry that cannot be
+                        # unmarshalled is treated like a stale one
+                        try:
+                            return _compile_bytecode(bytes_data, name=fullname,
+                                                     bytecode_path=bytecode_path,
+                                                     source_path=source_path)
+                        except (ValueError, EOFError):
+                            pass
+                        # End Truffle change
         if source_bytes is None:
             source_bytes = self.get_data(source_path)
         code_object = self.source_to_code(source_bytes, source_path)
         _bootstrap._verbose_message('code object from {}', source_path)
         if (not sys.dont_write_bytecode and bytecode_path is not None and
                 source_mtime is not None):
-            if hash_based:
-                if source_hash is None:
-                    source_hash = _imp.source_hash(source_bytes)
-                data = _code_to_hash_pyc(code_object, source_hash, check_source)
-            else:
-                data = _code_to_timestamp_pyc(code_object, source_mtime,
-                                              len(source_bytes))
+            # Truffle change: always write checked hash-based pycs, so cache
+            # validity does not depend on file timestamps
+            if source_hash is None:
+                source_hash = _imp.source_hash(_RAW_MAGIC_NUMBER, source_bytes)
+            data = _code_to_hash_pyc(code_object, source_hash, check_source)
             try:
                 self._cache_bytecode(source_path, bytecode_path, data)
             except NotImplementedError:
@@ -339,11 +339,18 @@ def loads(s, *, cls=None, object_hook=None, parse_float=None,
         if not isinstance(s, (bytes, bytearray)):
             raise TypeError(f'the JSON object must be str, bytes or bytearray, '
                             f'not {s.__class__.__name__}')
-        s = s.decode(detect_encoding(s), 'surrogatepass')
+        # Truffle change: UTF-8 input is scanned as bytes by the decoder,
+        # without decoding the whole document first
+        encoding = detect_encoding(s)
+        if cls is not None or encoding != 'utf-8':
+            s = s.decode(encoding, 'surrogatepass')
 
     if (cls is None and object_hook is None and
             parse_int is None and parse_float is None and
             parse_constant is None and object_pairs_hook is None and not kw):
+        if not isinstance(s, str):
+            # Truffle change: undecoded UTF-8 bytes, see above
+            return _default_decoder._decode_utf8(s)
         return _default_decoder.decode(s)
     if cls is None:
         cls = JSONDecoder
@@ -357,4 +364,7 @@ def loads(s, *, cls=None, object_hook=None, parse_float=None,
         kw['parse_int'] = parse_int
     if parse_constant is not None:
         kw['parse_constant'] = parse_constant
+    if not isinstance(s, str):
+        # Truffle change: undecoded UTF-8 bytes, see above
+        return cls(**kw)._decode_utf8(s)
     return cls(**kw).decode(s)
@@ -131,6 +131,7 @@ scanstring = c_scanstring or py_scanstring
 
 WHITESPACE = re.compile(r'[ \t\n\r]*', FLAGS)
 WHITESPACE_STR = ' \t\n\r'
+WHITESPACE_BYTES = re.compile(rb'[ \t\n\r]*', FLAGS)  # Truffle change
 
 
 def JSONObject(s_and_end, strict, scan_once, object_hook, object_pairs_hook,
@@ -340,6 +341,28 @@ class JSONDecoder(object):
             raise JSONDecodeError("Extra data", s, end)
         return obj
 
+    def _decode_utf8(self, b, _w=WHITESPACE_BYTES.match):
+        # Truffle change: like decode, but for UTF-8 bytes from json.loads.
+        # The native scanner works on UTF-8 buffers directly and reports byte
+        # offsets, errors are reported on the decoded text
+        if (scanner.c_make_scanner is None or
+                not isinstance(self.scan_once, scanner.c_make_scanner)):
+            return self.decode(b.decode('utf-8', 'surrogatepass'))
+
+        def error(msg, pos):
+            doc = b.decode('utf-8', 'surrogatepass')
+            charpos = len(b[:pos].decode('utf-8', 'surrogatepass'))
+            return JSONDecodeError(msg, doc, charpos)
+
+        try:
+            obj, end = self.scan_once(b, _w(b, 0).end())
+        except StopIteration as err:
+            raise error("Expecting value", err.value) from None
+        end = _w(b, end).end()
+        if end != len(b):
+            raise error("Extra data", end)
+        return obj
+
     def raw_decode(self, s, idx=0):
         """Decode a JSON document from ``s`` (a ``str`` beginning with
         a JSON document) and return a 2-tuple of the Python
@@ -240,6 +240,14 @@ class _ConnectionBase:
                 raise ValueError("negative offset")
             elif offset > bytesize:
                 raise ValueError("offset too large")
+            # Begin Truffle change
+            if self._handle < 0:
+                # receives directly into the buffer, returns the message if it does not fit
+                result = _multiprocessing._read_into(self._handle, m, offset)
+                if not isinstance(result, int):
+                    raise BufferTooShort(result)
+                return result
+            # End Truffle change
             result = self._recv_bytes()
             size = result.tell()
             if bytesize < offset + size:
@@ -378,7 +386,7 @@ class Connection(_ConnectionBase):
     def _send(self, buf, write=_write):
         # Begin Truffle change
         if(self._handle < 0):
-            self._send_mp_write(buf.tobytes())
+            self._send_mp_write(buf)
             return
         # End Truffle change
         remaining = len(buf)
@@ -412,7 +420,7 @@ class Connection(_ConnectionBase):
     def _send_bytes(self, buf):
         # Begin Truffle change
         if self._handle < 0:
-            self._send_mp_write(buf.tobytes())
+            self._send_mp_write(buf)
             return
         # End Truffle change
         n = len(buf)
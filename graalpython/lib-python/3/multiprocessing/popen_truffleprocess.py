@@ -114,11 +114,12 @@ class Popen(object):
                 set_spawning_popen(None)
 
             self.sentinel = parent_r
-            _write(parent_w, fp.getbuffer().tobytes())
 
             self._fds.extend([child_r, child_w])
             self._tid = _spawn_context(child_r, child_w, self._fds)
             self.pid = self._tid
+            # write only after the child is started, the pipe may not be able to hold all the data
+            _write(parent_w, fp.getbuffer())
         finally:
             fds_to_close = []
             for fd in (parent_r, parent_w):
@@ -69,6 +69,7 @@ MICRO_BENCHMARKS = {
     'class-access': ITER_15 + ['10_000'],
     'call-method-polymorphic': ITER_10 + ['1000'],
     'for-range': ITER_15 + ['50000'],
+    'for-range-long': ITER_15 + ['50000'],
     'function-call-sized': ITER_10 + ['2_000_000_000'],
     'generator-expression-sized': ITER_10 + ['30_000'],
     'generator-notaligned-sized': ITER_10 + ['30_000'],
@@ -78,14 +79,18 @@ MICRO_BENCHMARKS = {
     'list-indexing': ITER_10 + ['1000000'],
     'list-indexing-from-constructor': ITER_10 + ['10000000'],
     'list-indexing-from-literal': ITER_10 + ['10000000'],
+    'list-indexing-long': ITER_10 + ['1000000'],
     'list-iterating-explicit': ITER_10 + ['1000000'],
     'list-iterating': ITER_10 + ['1000000'],
+    'list-iterating-long': ITER_10 + ['1000000'],
+    'list-iterating-double': ITER_10 + ['1000000'],
     'list-iterating-obj-sized': ITER_10 + ['100_000_000'],
     'list-constructions-sized': ITER_10 + ['10_000'],
     'list-sort-objects': ITER_10 + ['10_000'],
     'list-sort-strings': ITER_10 + ['500_000'],
     'list-sort-keyed': ITER_10 + ['50_000'],
     'dict-getitem-sized': ITER_10 + ['50_000_000'],
+    'dict-getitem-str': ITER_10 + ['1000000'],
     'math-sqrt': ITER_10 + ['500000000'],
     'object-allocate': ITER_10 + ['5000'],
     'object-layout-change': ITER_10 + ['1000000'],
@@ -108,6 +113,8 @@ MICRO_BENCHMARKS = {
     'tuple-indexing-from-literal': ITER_10 + ['10000000'],
     'repeated-import': ITER_10 + ['10000000'],
     'codeobject-interpretation': ITER_10 + ['2000'],
+    'import-stdlib-cold': ITER_10 + ['20'],
+    'import-stdlib-warm': ITER_10 + ['20'],
 }
 
 MICRO_BENCHMARKS_SMALL = {
@@ -120,9 +127,12 @@ MICRO_BENCHMARKS_SMALL = {
     'builtin-len-tuple-sized': ITER_6 + WARMUP_2 + ['10_000_000'],
     'builtin-len': ITER_6 + WARMUP_2 + ['2_500_000'],
     'bytecode-benchmark': ITER_6 + WARMUP_2 + ['500'],
+    'import-stdlib-cold': ITER_6 + WARMUP_2 + ['2'],
+    'import-stdlib-warm': ITER_6 + WARMUP_2 + ['2'],
     'class-access': ITER_6 + WARMUP_2 + ['40'],
     'call-method-polymorphic': ITER_6 + WARMUP_2 + ['10'],
     'for-range': ITER_6 + WARMUP_2 + WARMUP_2 + ['50'],
+    'for-range-long': ITER_6 + WARMUP_2 + ['50'],
     'function-call-sized': ITER_6 + WARMUP_2 + ['2_000_000'],
     'generator-expression-sized': ITER_6 + WARMUP_2 + ['3000', '500'],
     'generator-notaligned-sized': ITER_6 + WARMUP_2 + ['3000', '500'],
@@ -132,11 +142,15 @@ MICRO_BENCHMARKS_SMALL = {
     'list-indexing': ITER_6 + WARMUP_2 + ['10_000'],
     'list-indexing-from-constructor': ITER_6 + WARMUP_2 + ['250_000'],
     'list-indexing-from-literal': ITER_6 + WARMUP_2 + ['250_000'],
+    'list-indexing-long': ITER_6 + WARMUP_2 + ['10_000'],
     'list-iterating-explicit': ITER_6 + WARMUP_2 + ['10_000'],
     'list-iterating': ITER_6 + WARMUP_2 + ['25_000'],
+    'list-iterating-long': ITER_6 + WARMUP_2 + ['25_000'],
+    'list-iterating-double': ITER_6 + WARMUP_2 + ['25_000'],
     'list-iterating-obj-sized': ITER_6 + WARMUP_2 + ['1_000_000'],
     'list-constructions-sized': ITER_6 + WARMUP_2 + ['500'],
     'dict-getitem-sized': ITER_6 + WARMUP_2 + ['1_000_000'],
+    'dict-getitem-str': ITER_6 + WARMUP_2 + ['100_000'],
     'math-sqrt': ITER_6 + WARMUP_2 + ['20_000_000'],
     'object-allocate': ITER_6 + WARMUP_2 + ['50'],
     'object-layout-change': ITER_6 + WARMUP_2 + ['10_000'],
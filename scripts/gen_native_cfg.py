@@ -70,6 +70,9 @@ includes = '''
 # include <netinet/in.h>
 # include <netinet/tcp.h>
 # include <sys/mman.h>
+# ifdef __linux__
+#  include <sys/epoll.h>
+# endif
 # include <sys/select.h>
 # include <sys/socket.h>
 # include <sys/un.h>
@@ -141,6 +144,11 @@ constant_defs = '''
 
 * i PIPE_BUF
 
+* x EPOLL_CLOEXEC
+* i EPOLL_CTL_ADD
+* i EPOLL_CTL_DEL
+* i EPOLL_CTL_MOD
+
 [openFlags]
 * x O_ACCMODE
   x O_RDONLY
@@ -385,6 +393,22 @@ u x S_IFCHR
 * i TCP_CONGESTION
 * i TCP_USER_TIMEOUT
 * i TCP_NOTSENT_LOWAT
+
+[epollEvents]
+* x EPOLLIN
+* x EPOLLPRI
+* x EPOLLOUT
+* x EPOLLERR
+* x EPOLLHUP
+* x EPOLLRDNORM
+* x EPOLLRDBAND
+* x EPOLLWRNORM
+* x EPOLLWRBAND
+* x EPOLLMSG
+* x EPOLLRDHUP
+* x EPOLLEXCLUSIVE
+* x EPOLLONESHOT
+* x EPOLLET
 '''
 
 layout_defs = '''